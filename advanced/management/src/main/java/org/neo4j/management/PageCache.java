@@ -37,6 +37,12 @@ public interface PageCache
     @Description( "Number of page pins" )
     long getPins();
 
+    @Description( "Number of page pins that found the page already in memory" )
+    long getHits();
+
+    @Description( "Ratio of hits to hits and page faults" )
+    double getHitRatio();
+
     @Description( "Number of page unpins" )
     long getUnpins();
 
@@ -45,4 +45,17 @@ public interface TransactionManager
 
     @Description( "The id of the latest committed transaction" )
     long getLastCommittedTxId();
+
+    @Description( "The number of times the transaction log has been forced to disk" )
+    long getNumberOfLogForces();
+
+    @Description( "The average number of transactions made durable by each force of the transaction log" )
+    double getAverageTransactionsPerLogForce();
+
+    @Description( "The average time, in microseconds, that a force of the transaction log takes" )
+    long getAverageLogForceTimeMicros();
+
+    @Description( "The number of transaction log forces by time taken, where the count at index i is of the " +
+                  "forces that took less than 2^i microseconds, but at least 2^(i-1)" )
+    long[] getLogForceLatencyHistogram();
 }
@@ -70,6 +70,20 @@ public final class PageCacheBean extends ManagementBeanProvider
             return pageCacheMonitor.countPins();
         }
 
+        @Override
+        public long getHits()
+        {
+            return pageCacheMonitor.countHits();
+        }
+
+        @Override
+        public double getHitRatio()
+        {
+            long hits = pageCacheMonitor.countHits();
+            long faults = pageCacheMonitor.countFaults();
+            return hits + faults == 0? 0.0 : (double) hits / (hits + faults);
+        }
+
         @Override
         public long getUnpins()
         {
@@ -19,6 +19,8 @@
  */
 package org.neo4j.management.impl;
 
+import java.util.concurrent.TimeUnit;
+
 import javax.management.NotCompliantMBeanException;
 
 import org.neo4j.helpers.Service;
@@ -27,6 +29,7 @@ import org.neo4j.jmx.impl.ManagementData;
 import org.neo4j.jmx.impl.Neo4jMBean;
 import org.neo4j.kernel.NeoStoreDataSource;
 import org.neo4j.kernel.impl.transaction.TransactionCounters;
+import org.neo4j.kernel.impl.transaction.log.GroupCommitStatistics;
 import org.neo4j.kernel.impl.transaction.state.DataSourceManager;
 import org.neo4j.management.TransactionManager;
 
@@ -48,12 +51,14 @@ public final class TransactionManagerBean extends ManagementBeanProvider
     {
         private final TransactionCounters txMonitor;
         private final DataSourceManager xadsm;
+        private final GroupCommitStatistics groupCommitStatistics;
 
         TransactionManagerImpl( ManagementData management ) throws NotCompliantMBeanException
         {
             super( management );
             this.txMonitor = management.resolveDependency( TransactionCounters.class );
             this.xadsm = management.resolveDependency( DataSourceManager.class );
+            this.groupCommitStatistics = management.resolveDependency( GroupCommitStatistics.class );
         }
 
         @Override
@@ -96,5 +101,29 @@ public final class TransactionManagerBean extends ManagementBeanProvider
             }
             return neoStoreDataSource.getNeoStore().getLastCommittedTransactionId();
         }
+
+        @Override
+        public long getNumberOfLogForces()
+        {
+            return groupCommitStatistics.forces();
+        }
+
+        @Override
+        public double getAverageTransactionsPerLogForce()
+        {
+            return groupCommitStatistics.averageTransactionsPerForce();
+        }
+
+        @Override
+        public long getAverageLogForceTimeMicros()
+        {
+            return TimeUnit.NANOSECONDS.toMicros( groupCommitStatistics.averageForceNanos() );
+        }
+
+        @Override
+        public long[] getLogForceLatencyHistogram()
+        {
+            return groupCommitStatistics.forceLatencyHistogram();
+        }
     }
 }
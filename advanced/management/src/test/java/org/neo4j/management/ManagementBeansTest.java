@@ -26,13 +26,16 @@ import org.junit.AfterClass;
 import org.junit.BeforeClass;
 import org.junit.Test;
 
+import org.neo4j.graphdb.Transaction;
 import org.neo4j.graphdb.factory.GraphDatabaseFactory;
 import org.neo4j.jmx.Kernel;
 import org.neo4j.jmx.Primitives;
 import org.neo4j.jmx.impl.JmxKernelExtension;
 import org.neo4j.kernel.GraphDatabaseAPI;
+import org.neo4j.kernel.impl.transaction.log.GroupCommitStatistics;
 import org.neo4j.test.TargetDirectory;
 
+import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertTrue;
@@ -141,6 +144,21 @@ public class ManagementBeansTest
         assertNotNull( getManager().getTransactionManagerBean() );
     }
 
+    @Test
+    public void canGetLogForceStatisticsFromTransactionManagerBean() throws Exception
+    {
+        try ( Transaction tx = graphDb.beginTx() )
+        {
+            graphDb.createNode();
+            tx.success();
+        }
+
+        TransactionManager transactions = getManager().getTransactionManagerBean();
+        assertTrue( transactions.getNumberOfLogForces() > 0 );
+        assertTrue( transactions.getAverageTransactionsPerLogForce() > 0 );
+        assertEquals( GroupCommitStatistics.LATENCY_BUCKETS, transactions.getLogForceLatencyHistogram().length );
+    }
+
     @Test
     public void canGetPageCacheBean() throws Exception
     {
@@ -128,6 +128,7 @@ public class SchemaRecordCheck implements RecordCheck<DynamicRecord, Consistency
             {
                 case INDEX_RULE:
                 case CONSTRAINT_INDEX_RULE:
+                case COMPOSITE_INDEX_RULE:
                     checkIndexRule( (IndexRule) rule, engine, record, records );
                     break;
                 case UNIQUENESS_CONSTRAINT:
@@ -175,7 +176,10 @@ public class SchemaRecordCheck implements RecordCheck<DynamicRecord, Consistency
     {
         if ( phase == Phase.CHECK_RULES )
         {
-            engine.comparativeCheck( records.propertyKey( rule.getPropertyKey() ), VALID_PROPERTY_KEY );
+            for ( int propertyKey : rule.getPropertyKeys() )
+            {
+                engine.comparativeCheck( records.propertyKey( propertyKey ), VALID_PROPERTY_KEY );
+            }
             if ( rule.isConstraintIndex() && rule.getOwningConstraint() != null )
             {
                 DynamicRecord previousObligation = constraintObligations.put( rule.getOwningConstraint(), record );
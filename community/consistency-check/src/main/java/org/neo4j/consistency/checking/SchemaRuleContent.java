@@ -19,6 +19,8 @@
  */
 package org.neo4j.consistency.checking;
 
+import java.util.Arrays;
+
 import org.neo4j.kernel.impl.store.UniquenessConstraintRule;
 import org.neo4j.kernel.impl.store.record.IndexRule;
 import org.neo4j.kernel.impl.store.record.SchemaRule;
@@ -56,6 +58,7 @@ public class SchemaRuleContent
             {
                 case INDEX_RULE:
                 case CONSTRAINT_INDEX_RULE:
+                case COMPOSITE_INDEX_RULE:
                     if ( !that.schemaRule.getKind().isIndex() )
                     {
                         return false;
@@ -74,7 +77,7 @@ public class SchemaRuleContent
 
     private static boolean indexRulesEquals( IndexRule lhs, IndexRule rhs )
     {
-        return lhs.getPropertyKey() == rhs.getPropertyKey();
+        return Arrays.equals( lhs.getPropertyKeys(), rhs.getPropertyKeys() );
     }
 
     private static boolean uniquenessConstraintEquals( UniquenessConstraintRule lhs, UniquenessConstraintRule rhs )
@@ -29,6 +29,7 @@ import org.neo4j.consistency.checking.index.IndexAccessors;
 import org.neo4j.consistency.report.ConsistencyReport;
 import org.neo4j.consistency.store.DiffRecordAccess;
 import org.neo4j.consistency.store.RecordAccess;
+import org.neo4j.kernel.api.index.CompositeValues;
 import org.neo4j.kernel.api.index.IndexReader;
 import org.neo4j.kernel.impl.store.record.IndexRule;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
@@ -60,16 +61,15 @@ public class NodeCorrectlyIndexedCheck implements RecordCheck<NodeRecord, Consis
             }
 
             List<PropertyBlock> properties = propertyReader.propertyBlocks( record );
-            PropertyBlock property = propertyWithKey( properties, indexRule.getPropertyKey() );
+            Object propertyValue = indexedValue( properties, indexRule );
 
-            if ( property == null )
+            if ( propertyValue == null )
             {
                 continue;
             }
 
             try ( IndexReader reader = indexes.accessorFor( indexRule ).newReader() )
             {
-                Object propertyValue = propertyReader.propertyValue( property ).value();
                 long nodeId = record.getId();
 
                 if ( indexRule.isConstraintIndex() )
@@ -135,6 +135,26 @@ public class NodeCorrectlyIndexedCheck implements RecordCheck<NodeRecord, Consis
         }
     }
 
+    /**
+     * @return the value the node should be indexed under, or {@code null} if the node lacks any of the properties
+     * of the index. Composite indexes hold their values encoded as a single tuple.
+     */
+    private Object indexedValue( List<PropertyBlock> properties, IndexRule indexRule )
+    {
+        int[] propertyKeys = indexRule.getPropertyKeys();
+        Object[] values = new Object[propertyKeys.length];
+        for ( int i = 0; i < propertyKeys.length; i++ )
+        {
+            PropertyBlock property = propertyWithKey( properties, propertyKeys[i] );
+            if ( property == null )
+            {
+                return null;
+            }
+            values[i] = propertyReader.propertyValue( property ).value();
+        }
+        return indexRule.isComposite() ? CompositeValues.encode( values ) : values[0];
+    }
+
     private PropertyBlock propertyWithKey( List<PropertyBlock> propertyBlocks, int propertyKey )
     {
         for ( PropertyBlock propertyBlock : propertyBlocks )
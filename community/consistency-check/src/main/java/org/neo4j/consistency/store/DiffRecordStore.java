@@ -217,6 +217,12 @@ public class DiffRecordStore<R extends AbstractBaseRecord> implements RecordStor
         return actual.getNumberOfReservedLowIds();
     }
 
+    @Override
+    public void readAhead( long id )
+    {
+        actual.readAhead( id );
+    }
+
     @SuppressWarnings( "unchecked" )
     private static class DispatchProcessor<FAILURE extends Exception> extends RecordStore.Processor<FAILURE>
     {
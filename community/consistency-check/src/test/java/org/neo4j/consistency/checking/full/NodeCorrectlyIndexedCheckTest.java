@@ -37,6 +37,7 @@ import org.neo4j.helpers.collection.MapUtil;
 import org.neo4j.kernel.api.direct.BoundedIterable;
 import org.neo4j.kernel.api.index.IndexAccessor;
 import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.index.SchemaIndexProvider.Descriptor;
 import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
@@ -218,6 +219,32 @@ public class NodeCorrectlyIndexedCheckTest
                     return emptyIterator();
                 }
 
+                @Override
+                public PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower,
+                                                                Number upper, boolean includeUpper )
+                {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public PrimitiveLongIterator rangeSeekByString( String lower, boolean includeLower,
+                                                                String upper, boolean includeUpper )
+                {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+                {
+                    throw new UnsupportedOperationException();
+                }
+
+                @Override
+                public IndexSample sampleIndex( long sampleSizeLimit )
+                {
+                    throw new UnsupportedOperationException();
+                }
+
                 @Override
                 public int getIndexedCount( long nodeId, Object propertyValue )
                 {
@@ -100,10 +100,11 @@ case class CypherCompiler(parser: CypherParser,
                           cacheMonitor: CypherCacheFlushingMonitor[CacheAccessor[PreparedQuery, ExecutionPlan]],
                           monitors: Monitors) {
 
-  def planQuery(queryText: String, context: PlanContext, planType: PlanType): (ExecutionPlan, Map[String, Any]) =
-    planPreparedQuery(prepareQuery(queryText, planType), context)
+  def planQuery(queryText: String, context: PlanContext, planType: PlanType,
+                runtime: RuntimeName = InterpretedRuntime): (ExecutionPlan, Map[String, Any]) =
+    planPreparedQuery(prepareQuery(queryText, planType, runtime), context)
 
-  def prepareQuery(queryText: String, planType: PlanType): PreparedQuery = {
+  def prepareQuery(queryText: String, planType: PlanType, runtime: RuntimeName = InterpretedRuntime): PreparedQuery = {
     val parsedStatement = parser.parse(queryText)
 
     val cleanedStatement: Statement = parsedStatement.endoRewrite(inSequence(normalizeReturnClauses, normalizeWithClauses))
@@ -113,7 +114,7 @@ case class CypherCompiler(parser: CypherParser,
     val postRewriteSemanticState = semanticChecker.check(queryText, rewrittenStatement)
 
     val table = SemanticTable(types = postRewriteSemanticState.typeTable)
-    PreparedQuery(rewrittenStatement, queryText, extractedParams, planType)(table, postRewriteSemanticState.scopeTree)
+    PreparedQuery(rewrittenStatement, queryText, extractedParams, planType, runtime)(table, postRewriteSemanticState.scopeTree)
   }
 
   def planPreparedQuery(parsedQuery: PreparedQuery, context: PlanContext): (ExecutionPlan, Map[String, Any]) = {
@@ -29,7 +29,8 @@ import StatementConverters._
 case class PreparedQuery(statement: Statement,
                          queryText: String,
                          extractedParams: Map[String, Any],
-                         planType: PlanType)(val semanticTable: SemanticTable, val scopeTree: Scope) {
+                         planType: PlanType,
+                         runtime: RuntimeName = InterpretedRuntime)(val semanticTable: SemanticTable, val scopeTree: Scope) {
 
   def abstractQuery: AbstractQuery = statement.asQuery.setQueryText(queryText)
 
@@ -0,0 +1,378 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.codegen
+
+import java.util.concurrent.atomic.AtomicLong
+
+import org.neo4j.cypher.internal.compiler.v2_2.ast
+import org.neo4j.cypher.internal.compiler.v2_2.ast.convert.commands.ExpressionConverters._
+import org.neo4j.cypher.internal.compiler.v2_2.commands.{ManyQueryExpression, SingleQueryExpression}
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.plans._
+import org.neo4j.cypher.internal.compiler.v2_2.symbols._
+import org.neo4j.graphdb.Direction
+
+import scala.collection.mutable
+
+/*
+Turns read only logical plans into Java classes, that run all the operators of a plan in one loop over the ids that
+the kernel hands out. Plans that this cannot handle give None, and are then run by the interpreted pipes instead.
+
+The supported plans are a leaf (AllNodesScan, NodeByLabelScan or NodeIndexSeek) followed by any number of single
+step Expand, Selection and Projection, optionally topped by an Aggregation without grouping keys.
+ */
+class CodeGenerator(javaCompiler: InMemoryJavaCompiler = new InMemoryJavaCompiler) {
+
+  def generate(plan: LogicalPlan): Option[CompiledPlan] =
+    if (!javaCompiler.isAvailable)
+      None
+    else try {
+      val className = s"GeneratedQuery${CodeGenerator.nextId.incrementAndGet()}"
+      val query = new QueryClass(className)
+      query.top(plan)
+      javaCompiler.compile(CodeGenerator.packageName, className, query.source).map {
+        clazz => new CompiledPlan(clazz.asSubclass(classOf[GeneratedQuery]), query.constants.toArray, query.symbols, query.operators)
+      }
+    } catch {
+      case _: CantCompileQueryException => None
+    }
+
+  private class CantCompileQueryException extends RuntimeException
+
+  private sealed trait Kind
+  private case object NodeKind extends Kind
+  private case object RelationshipKind extends Kind
+  private case object ValueKind extends Kind
+
+  private case class Var(kind: Kind, code: String) {
+    def value: String = kind match {
+      case NodeKind         => s"node($code)"
+      case RelationshipKind => s"relationship($code)"
+      case ValueKind        => code
+    }
+
+    def cypherType: CypherType = kind match {
+      case NodeKind         => CTNode
+      case RelationshipKind => CTRelationship
+      case ValueKind        => CTAny
+    }
+  }
+
+  private class QueryClass(className: String) {
+    val constants = mutable.ArrayBuffer[AnyRef]()
+    val operators = mutable.ArrayBuffer[String]()
+    var symbols: SymbolTable = SymbolTable()
+
+    private val fields = mutable.ArrayBuffer[String]()
+    private val initializers = mutable.ArrayBuffer[String]()
+    private val levels = mutable.ArrayBuffer[StringBuilder]()
+    private val labels = mutable.Map[String, String]()
+    private val propertyKeys = mutable.Map[String, String]()
+    private val params = mutable.Map[String, String]()
+    private var vars = Map[String, Var]()
+    private var nextMethod = "return advance();"
+    private var rowVars = Seq[(String, Var)]()
+
+    def top(plan: LogicalPlan) {
+      plan match {
+        case Projection(aggregation: Aggregation, expressions) =>
+          aggregate(aggregation)
+          operators += "Projection"
+          vars = expressions.map { case (name, expression) => name -> Var(ValueKind, value(expression)) }
+
+        case aggregation: Aggregation =>
+          aggregate(aggregation)
+
+        case _ =>
+          chain(plan)
+      }
+
+      rowVars = plan.availableSymbols.toSeq.map(_.name).map(name => name -> vars.getOrElse(name, cantCompile))
+      symbols = SymbolTable(rowVars.map { case (name, v) => name -> v.cypherType }.toMap)
+    }
+
+    private def chain(plan: LogicalPlan) {
+      plan match {
+        case AllNodesScan(IdName(id), arguments) if arguments.isEmpty =>
+          source(id, "allNodes()")
+
+        case NodeByLabelScan(IdName(id), label, arguments) if arguments.isEmpty =>
+          val labelField = label match {
+            case Left(name)     => labelId(name)
+            case Right(labelId) => labelId.id.toString
+          }
+          source(id, s"nodesWithLabel($labelField)")
+
+        case NodeIndexSeek(IdName(id), label, propertyKey, valueExpr, arguments) if arguments.isEmpty =>
+          val index = s"${label.nameId.id}, ${propertyKey.nameId.id}"
+          valueExpr match {
+            case SingleQueryExpression(expression) =>
+              source(id, s"indexSeek($index, ${constantValue(expression)})")
+            case ManyQueryExpression(expression) =>
+              source(id, s"indexSeekMany($index, ${constantValue(expression)}, (String) ${constant(label.name)}, (String) ${constant(propertyKey.name)})")
+          }
+
+        case Expand(left, IdName(from), dir, _, types, IdName(to), IdName(relName), SimplePatternLength, _) =>
+          chain(left)
+          expand(from, dir, types, to, relName)
+
+        case Selection(predicates, left) =>
+          chain(left)
+          operators += "Selection"
+          predicates.foreach(predicate => currentLevel.append(s"        if (!isTrue(${this.predicate(predicate)})) continue;\n"))
+
+        case Projection(left, expressions) =>
+          chain(left)
+          operators += "Projection"
+          vars = expressions.map {
+            case (name, ast.Identifier(identifier)) =>
+              name -> vars.getOrElse(identifier, cantCompile)
+            case (name, expression) =>
+              val v = field("Object", s"v${fields.size}")
+              currentLevel.append(s"        $v = ${value(expression)};\n")
+              name -> Var(ValueKind, v)
+          }
+
+        case _ =>
+          cantCompile
+      }
+    }
+
+    private def source(id: String, iterator: String) {
+      operators += "Scan"
+      val it = field("PrimitiveLongIterator", "it0")
+      initializers += s"$it = $iterator;"
+      val v = field("long", s"v${fields.size}")
+      vars = Map(id -> Var(NodeKind, v))
+      levels += new StringBuilder(
+        s"""      case 0:
+           |        if (!$it.hasNext()) return false;
+           |        $v = $it.next();
+           |""".stripMargin)
+    }
+
+    private def expand(from: String, dir: Direction, types: Seq[ast.RelTypeName], to: String, relName: String) {
+      val fromVar = vars.get(from).filter(_.kind == NodeKind).getOrElse(cantCompile)
+      if (vars.contains(to) || vars.contains(relName))
+        cantCompile
+      operators += "Expand"
+
+      val level = levels.size
+      val typeIds = field("int[]", s"t$level")
+      if (types.isEmpty)
+        initializers += s"$typeIds = null;"
+      else
+        initializers += s"$typeIds = relTypeIds(new String[]{${types.map(t => s"(String) ${constant(t.name)}").mkString(", ")}});"
+      val it = field("PrimitiveLongIterator", s"it$level")
+      val rel = field("long", s"v${fields.size}")
+      val node = field("long", s"v${fields.size}")
+
+      currentLevel.append(
+        s"""        $it = relationships(${fromVar.code}, org.neo4j.graphdb.Direction.${dir.name}, $typeIds);
+           |        level = $level;
+           |""".stripMargin)
+      levels += new StringBuilder(
+        s"""      case $level:
+           |        if (!$it.hasNext()) { level = ${level - 1}; continue; }
+           |        $rel = $it.next();
+           |        $node = otherNode($rel, ${fromVar.code});
+           |""".stripMargin)
+      vars = vars + (relName -> Var(RelationshipKind, rel)) + (to -> Var(NodeKind, node))
+    }
+
+    private def aggregate(aggregation: Aggregation) {
+      if (aggregation.groupingExpressions.nonEmpty || aggregation.aggregationExpression.isEmpty)
+        cantCompile
+      chain(aggregation.left)
+      operators += "EagerAggregation"
+
+      val done = field("boolean", "done")
+      val updates = new StringBuilder
+      val results = aggregation.aggregationExpression.map {
+        case (name, ast.CountStar()) =>
+          val count = field("long", s"a${fields.size}")
+          updates.append(s"      $count++;\n")
+          name -> Var(ValueKind, s"Long.valueOf($count)")
+
+        case (name, f@ast.FunctionInvocation(_, false, IndexedSeq(argument))) if f.name.equalsIgnoreCase("count") =>
+          val count = field("long", s"a${fields.size}")
+          updates.append(s"      if (${value(argument)} != null) $count++;\n")
+          name -> Var(ValueKind, s"Long.valueOf($count)")
+
+        case (name, f@ast.FunctionInvocation(_, false, IndexedSeq(argument))) if f.name.equalsIgnoreCase("sum") =>
+          val sum = field("Object", s"a${fields.size}")
+          initializers += s"$sum = sumZero();"
+          updates.append(s"      $sum = sum($sum, ${value(argument)}, (String) ${constant(argument.asCommandExpression.toString)});\n")
+          name -> Var(ValueKind, sum)
+
+        case _ =>
+          cantCompile
+      }
+
+      nextMethod =
+        s"""if ($done) return false;
+           |    while (advance()) {
+           |$updates    }
+           |    $done = true;
+           |    return true;""".stripMargin
+      vars = results
+    }
+
+    private def value(expression: ast.Expression): String = expression match {
+      case ast.Identifier(name) =>
+        vars.getOrElse(name, cantCompile).value
+
+      case ast.Property(ast.Identifier(name), ast.PropertyKeyName(key)) =>
+        vars.get(name) match {
+          case Some(Var(NodeKind, v))         => s"nodeProperty($v, ${propertyKeyId(key)})"
+          case Some(Var(RelationshipKind, v)) => s"relationshipProperty($v, ${propertyKeyId(key)})"
+          case _                              => cantCompile
+        }
+
+      case _ =>
+        constantValue(expression)
+    }
+
+    // Values that do not change from row to row
+    private def constantValue(expression: ast.Expression): String = expression match {
+      case ast.Parameter(name) =>
+        params.getOrElseUpdate(name, {
+          val p = field("Object", s"p${params.size}")
+          initializers += s"$p = param((String) ${constant(name)});"
+          p
+        })
+
+      // Literals in collections are usually auto parameterized, so the collection is built once per execution
+      case ast.Collection(expressions) if expressions.exists(!_.isInstanceOf[ast.Literal]) =>
+        val c = field("Object", s"c${fields.size}")
+        initializers += s"$c = java.util.Arrays.asList(new Object[]{${expressions.map(constantValue).mkString(", ")}});"
+        c
+
+      case _ =>
+        constant(literal(expression))
+    }
+
+    private def literal(expression: ast.Expression): AnyRef = expression match {
+      case _: ast.Null                   => null
+      case l: ast.Literal                => l.value
+      case ast.Collection(expressions)   => expressions.map(literal)
+      case _                             => cantCompile
+    }
+
+    private def predicate(expression: ast.Expression): String = expression match {
+      case ast.HasLabels(ast.Identifier(name), labelNames) =>
+        val v = vars.get(name).filter(_.kind == NodeKind).getOrElse(cantCompile)
+        labelNames.map(label => s"hasLabel(${v.code}, ${labelId(label.name)})").reduce((l, r) => s"and($l, $r)")
+
+      case ast.Equals(ast.Identifier(lhs), ast.Identifier(rhs))
+        if vars.contains(lhs) && vars.contains(rhs) && vars(lhs).kind != ValueKind && vars(lhs).kind == vars(rhs).kind =>
+        s"Boolean.valueOf(${vars(lhs).code} == ${vars(rhs).code})"
+
+      case ast.Equals(lhs, rhs)    => s"equal(${value(lhs)}, ${value(rhs)})"
+      case ast.NotEquals(lhs, rhs) => s"not(equal(${value(lhs)}, ${value(rhs)}))"
+      case ast.In(lhs, rhs)        => s"in(${value(lhs)}, ${value(rhs)})"
+      case ast.Not(inner)          => s"not(${predicate(inner)})"
+      case ast.And(lhs, rhs)       => s"and(${predicate(lhs)}, ${predicate(rhs)})"
+      case ast.Or(lhs, rhs)        => s"or(${predicate(lhs)}, ${predicate(rhs)})"
+      case ast.Ands(inner)         => inner.toSeq.map(predicate).reduce((l, r) => s"and($l, $r)")
+      case ast.Ors(inner)          => inner.toSeq.map(predicate).reduce((l, r) => s"or($l, $r)")
+      case _: ast.True             => "Boolean.TRUE"
+      case _: ast.False            => "Boolean.FALSE"
+      case _                       => cantCompile
+    }
+
+    private def labelId(name: String): String = labels.getOrElseUpdate(name, {
+      val l = field("int", s"l${labels.size}")
+      initializers += s"$l = labelId((String) ${constant(name)});"
+      l
+    })
+
+    private def propertyKeyId(name: String): String = propertyKeys.getOrElseUpdate(name, {
+      val pk = field("int", s"pk${propertyKeys.size}")
+      initializers += s"$pk = propertyKeyId((String) ${constant(name)});"
+      pk
+    })
+
+    private def constant(value: AnyRef): String = {
+      constants += value
+      s"constant(${constants.size - 1})"
+    }
+
+    private def field(javaType: String, name: String): String = {
+      fields += s"  private $javaType $name;"
+      name
+    }
+
+    private def currentLevel = levels.last
+
+    private def cantCompile: Nothing = throw new CantCompileQueryException
+
+    def source: String = {
+      val row = rowVars.map { case (name, v) => s"    row.update((String) ${constant(name)}, ${v.value});" }
+      s"""package ${CodeGenerator.packageName};
+         |
+         |import org.neo4j.collection.primitive.PrimitiveLongIterator;
+         |import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext;
+         |import org.neo4j.cypher.internal.compiler.v2_2.codegen.GeneratedQuery;
+         |import org.neo4j.cypher.internal.compiler.v2_2.pipes.QueryState;
+         |
+         |public final class $className extends GeneratedQuery
+         |{
+         |  private int level;
+         |${fields.mkString("\n")}
+         |
+         |  public $className(QueryState state, Object[] constants)
+         |  {
+         |    super(state, constants);
+         |${initializers.map("    " + _).mkString("\n")}
+         |  }
+         |
+         |  public boolean next()
+         |  {
+         |    $nextMethod
+         |  }
+         |
+         |  private boolean advance()
+         |  {
+         |    while (true) {
+         |      switch (level) {
+         |${levels.mkString}        return true;
+         |      default:
+         |        throw new IllegalStateException("No such level " + level);
+         |      }
+         |    }
+         |  }
+         |
+         |  public ExecutionContext row()
+         |  {
+         |    ExecutionContext row = newRow();
+         |${row.mkString("\n")}
+         |    return row;
+         |  }
+         |}
+         |""".stripMargin
+    }
+  }
+}
+
+object CodeGenerator {
+  val packageName = "org.neo4j.cypher.internal.compiler.v2_2.codegen.generated"
+
+  private val nextId = new AtomicLong
+}
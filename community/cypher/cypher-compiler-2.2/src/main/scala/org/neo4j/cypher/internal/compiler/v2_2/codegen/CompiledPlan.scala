@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.codegen
+
+import java.lang.reflect.InvocationTargetException
+
+import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.QueryState
+import org.neo4j.cypher.internal.compiler.v2_2.symbols.SymbolTable
+
+/*
+A generated query class together with the values it was compiled against. A new instance of the class runs the
+query once.
+ */
+class CompiledPlan(clazz: Class[_ <: GeneratedQuery], constants: Array[AnyRef], val symbols: SymbolTable,
+                   val operators: Seq[String]) {
+  private val constructor = clazz.getConstructor(classOf[QueryState], classOf[Array[AnyRef]])
+
+  def execute(state: QueryState): Iterator[ExecutionContext] = {
+    val query = try {
+      constructor.newInstance(state, constants)
+    } catch {
+      case e: InvocationTargetException => throw e.getCause
+    }
+
+    new Iterator[ExecutionContext] {
+      private var fetched = false
+      private var hasMore = false
+
+      def hasNext: Boolean = {
+        if (!fetched) {
+          hasMore = query.next()
+          fetched = true
+        }
+        hasMore
+      }
+
+      def next(): ExecutionContext = {
+        if (!hasNext)
+          Iterator.empty.next()
+        fetched = false
+        query.row()
+      }
+    }
+  }
+}
@@ -0,0 +1,157 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.codegen
+
+import org.neo4j.collection.primitive.{PrimitiveLongCollections, PrimitiveLongIterator}
+import org.neo4j.cypher.internal.compiler.v2_2._
+import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions.StringHelper
+import org.neo4j.cypher.internal.compiler.v2_2.mutation.GraphElementPropertyFunctions
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.QueryState
+import org.neo4j.cypher.internal.compiler.v2_2.spi.QueryContext
+import org.neo4j.cypher.internal.helpers.{IsCollection, TypeSafeMathSupport}
+import org.neo4j.graphdb.{Direction, Node, Relationship}
+import org.neo4j.kernel.api.index.IndexDescriptor
+
+import scala.collection.JavaConverters._
+
+/*
+The super class of the classes that CodeGenerator generates. Generated classes read the graph through the primitive,
+id based parts of the QueryContext, and only turn ids into nodes and relationships for the rows they produce.
+Everything that has to behave exactly like the interpreted runtime, like equality and null handling, is implemented
+once here rather than in generated code.
+ */
+abstract class GeneratedQuery(state: QueryState, constants: Array[AnyRef])
+  extends GraphElementPropertyFunctions with TypeSafeMathSupport with StringHelper {
+
+  private implicit val queryState = state
+
+  protected final val query: QueryContext = state.query
+
+  // Moves to the next row, returning false when there are no more rows
+  def next(): Boolean
+
+  // The current row
+  def row(): ExecutionContext
+
+  protected final def newRow(): ExecutionContext = state.newExecutionContext()
+
+  protected final def constant(offset: Int): AnyRef = constants(offset)
+
+  protected final def param(name: String): AnyRef = state.getParam(name).asInstanceOf[AnyRef]
+
+  protected final def labelId(name: String): Int = query.getOptLabelId(name).getOrElse(-1)
+
+  protected final def propertyKeyId(name: String): Int = query.getOptPropertyKeyId(name).getOrElse(-1)
+
+  // Relationship types that do not exist yet are left out, so an empty array means that nothing can match
+  protected final def relTypeIds(names: Array[String]): Array[Int] = names.flatMap(query.getOptRelTypeId)
+
+  protected final def allNodes(): PrimitiveLongIterator = query.getAllNodesPrimitive
+
+  protected final def nodesWithLabel(label: Int): PrimitiveLongIterator =
+    if (label == -1) PrimitiveLongCollections.emptyIterator() else query.getNodesByLabelPrimitive(label)
+
+  protected final def indexSeek(label: Int, propertyKey: Int, value: Any): PrimitiveLongIterator = value match {
+    case null => PrimitiveLongCollections.emptyIterator()
+    case _    => query.exactIndexSearchPrimitive(new IndexDescriptor(label, propertyKey), makeValueNeoSafe(value))
+  }
+
+  protected final def indexSeekMany(label: Int, propertyKey: Int, values: Any, labelName: String, propertyKeyName: String): PrimitiveLongIterator = values match {
+    case IsCollection(coll) =>
+      PrimitiveLongCollections.concat(coll.toSet[Any].iterator.map(value => indexSeek(label, propertyKey, value)).asJava)
+    case null =>
+      PrimitiveLongCollections.emptyIterator()
+    case _ =>
+      throw new CypherTypeException(s"Expected the value for looking up :$labelName($propertyKeyName) to be a collection but it was not.")
+  }
+
+  // A null array of types means relationships of any type
+  protected final def relationships(node: Long, dir: Direction, types: Array[Int]): PrimitiveLongIterator =
+    if (types == null) query.getRelationshipsForIdsPrimitive(node, dir, Array.empty)
+    else if (types.isEmpty) PrimitiveLongCollections.emptyIterator()
+    else query.getRelationshipsForIdsPrimitive(node, dir, types)
+
+  protected final def otherNode(relationship: Long, node: Long): Long = query.getOtherNodeIdPrimitive(relationship, node)
+
+  protected final def node(id: Long): Node = query.nodeOps.getById(id)
+
+  protected final def relationship(id: Long): Relationship = query.relationshipOps.getById(id)
+
+  protected final def nodeProperty(node: Long, propertyKey: Int): AnyRef =
+    if (propertyKey == -1) null else query.nodeOps.getProperty(node, propertyKey).asInstanceOf[AnyRef]
+
+  protected final def relationshipProperty(relationship: Long, propertyKey: Int): AnyRef =
+    if (propertyKey == -1) null else query.relationshipOps.getProperty(relationship, propertyKey).asInstanceOf[AnyRef]
+
+  // Predicates are three valued, with null standing for unknown
+
+  protected final def isTrue(value: java.lang.Boolean): Boolean = value != null && value.booleanValue()
+
+  protected final def hasLabel(node: Long, label: Int): java.lang.Boolean =
+    label != -1 && query.isLabelSetOnNode(label, node)
+
+  protected final def equal(lhs: Any, rhs: Any): java.lang.Boolean = (lhs, rhs) match {
+    case (null, _)                                             => null
+    case (_, null)                                             => null
+    case (IsCollection(l), IsCollection(r))                    => l == r
+    case (l: Node, r) if !r.isInstanceOf[Node]                 => incomparable(l, r)
+    case (l, r: Node) if !l.isInstanceOf[Node]                 => incomparable(l, r)
+    case (l: Relationship, r) if !r.isInstanceOf[Relationship] => incomparable(l, r)
+    case (l, r: Relationship) if !l.isInstanceOf[Relationship] => incomparable(l, r)
+    case _                                                     => lhs == rhs
+  }
+
+  protected final def in(value: Any, collection: Any): java.lang.Boolean = {
+    var result: java.lang.Boolean = false
+    val items = makeTraversable(collection).iterator
+    while (items.hasNext) {
+      val matches = equal(value, items.next())
+      if (matches == null)
+        result = null
+      else if (matches.booleanValue())
+        return true
+    }
+    result
+  }
+
+  protected final def not(value: java.lang.Boolean): java.lang.Boolean =
+    if (value == null) null else !value.booleanValue()
+
+  protected final def and(lhs: java.lang.Boolean, rhs: java.lang.Boolean): java.lang.Boolean =
+    if (lhs == java.lang.Boolean.FALSE || rhs == java.lang.Boolean.FALSE) false
+    else if (lhs == null || rhs == null) null
+    else true
+
+  protected final def or(lhs: java.lang.Boolean, rhs: java.lang.Boolean): java.lang.Boolean =
+    if (lhs == java.lang.Boolean.TRUE || rhs == java.lang.Boolean.TRUE) true
+    else if (lhs == null || rhs == null) null
+    else false
+
+  protected final def sumZero(): AnyRef = 0.asInstanceOf[AnyRef]
+
+  protected final def sum(result: AnyRef, value: Any, name: String): AnyRef = value match {
+    case null           => result
+    case number: Number => plus(result, number).asInstanceOf[AnyRef]
+    case _              => throw new CypherTypeException(s"SUM($name) can only handle numerical values, or null.")
+  }
+
+  private def incomparable(lhs: Any, rhs: Any): Nothing =
+    throw new IncomparableValuesException(textWithType(lhs), textWithType(rhs))
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.codegen
+
+import java.io.{ByteArrayOutputStream, File, OutputStream}
+import java.net.{URI, URLClassLoader}
+import java.util.Locale
+import javax.tools.JavaFileObject.Kind
+import javax.tools._
+
+import scala.collection.JavaConverters._
+import scala.collection.mutable
+
+/*
+Compiles generated Java source to classes without touching the file system. Needs the compiler that comes with the
+JDK, so on a plain JRE nothing gets compiled and all queries are interpreted.
+ */
+class InMemoryJavaCompiler {
+  private lazy val compiler: Option[JavaCompiler] =
+    try Option(ToolProvider.getSystemJavaCompiler) catch { case _: Throwable => None }
+
+  private lazy val classPath: String = {
+    val urls = classLoaderUrls(getClass.getClassLoader)
+    (urls ++ Option(System.getProperty("java.class.path")).toSeq).distinct.mkString(File.pathSeparator)
+  }
+
+  def isAvailable: Boolean = compiler.isDefined
+
+  def compile(packageName: String, className: String, source: String): Option[Class[_]] = compiler.flatMap { javac =>
+    val fullName = s"$packageName.$className"
+    val fileManager = new ClassFileManager(javac.getStandardFileManager(null, Locale.getDefault, null))
+    val options = Seq("-classpath", classPath, "-g:none", "-nowarn").asJava
+    val units = Seq(new SourceFile(fullName, source)).asJava
+    val compiled = try {
+      javac.getTask(null, fileManager, new DiscardingDiagnostics, options, null, units).call().booleanValue()
+    } finally {
+      fileManager.close()
+    }
+
+    if (compiled)
+      Some(new GeneratedClassLoader(fileManager.classes, getClass.getClassLoader).loadClass(fullName))
+    else
+      None
+  }
+
+  private def classLoaderUrls(loader: ClassLoader): Seq[String] = loader match {
+    case null                => Seq.empty
+    case urls: URLClassLoader => urls.getURLs.toSeq.filter(_.getProtocol == "file").map(url => new File(url.toURI).getPath) ++ classLoaderUrls(loader.getParent)
+    case _                   => classLoaderUrls(loader.getParent)
+  }
+
+  private class SourceFile(name: String, source: String)
+    extends SimpleJavaFileObject(URI.create(s"string:///${name.replace('.', '/')}${Kind.SOURCE.extension}"), Kind.SOURCE) {
+    override def getCharContent(ignoreEncodingErrors: Boolean): CharSequence = source
+  }
+
+  private class ClassFile(name: String)
+    extends SimpleJavaFileObject(URI.create(s"bytes:///${name.replace('.', '/')}${Kind.CLASS.extension}"), Kind.CLASS) {
+    val bytes = new ByteArrayOutputStream()
+
+    override def openOutputStream(): OutputStream = bytes
+  }
+
+  private class ClassFileManager(delegate: StandardJavaFileManager)
+    extends ForwardingJavaFileManager[StandardJavaFileManager](delegate) {
+    val classes = mutable.Map[String, ClassFile]()
+
+    override def getJavaFileForOutput(location: JavaFileManager.Location, className: String, kind: Kind,
+                                      sibling: FileObject): JavaFileObject =
+      classes.getOrElseUpdate(className, new ClassFile(className))
+  }
+
+  private class DiscardingDiagnostics extends DiagnosticListener[JavaFileObject] {
+    def report(diagnostic: Diagnostic[_ <: JavaFileObject]) {}
+  }
+
+  // One loader per generated query, so that classes can be unloaded once their plans leave the cache
+  private class GeneratedClassLoader(classes: collection.Map[String, ClassFile], parent: ClassLoader)
+    extends ClassLoader(parent) {
+    override protected def findClass(name: String): Class[_] = classes.get(name) match {
+      case Some(classFile) =>
+        val bytes = classFile.bytes.toByteArray
+        defineClass(name, bytes, 0, bytes.length)
+      case None =>
+        super.findClass(name)
+    }
+  }
+}
@@ -0,0 +1,54 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.commands
+
+/*
+ * The part of an index that a range seek reads: either the values between two (optional) bounds,
+ * or the string values starting with the literal prefix of a regular expression.
+ */
+sealed trait SeekRange[+T] {
+  def map[R](f: T => R): SeekRange[R]
+}
+
+case class Bound[+T](value: T, inclusive: Boolean) {
+  def map[R](f: T => R) = Bound(f(value), inclusive)
+}
+
+case class InequalitySeekRange[+T](lower: Option[Bound[T]], upper: Option[Bound[T]]) extends SeekRange[T] {
+  def map[R](f: T => R) = InequalitySeekRange(lower.map(_.map(f)), upper.map(_.map(f)))
+}
+
+case class PrefixSeekRange[+T](regex: T) extends SeekRange[T] {
+  def map[R](f: T => R) = PrefixSeekRange(f(regex))
+}
+
+/*
+ * Extracts the literal prefix of regular expressions like 'prefix.*', as long as the prefix itself has no
+ * special meaning in a regular expression.
+ */
+object LiteralPrefix {
+  private val specialCharacters = "\\^$.|?*+()[]{}"
+
+  def unapply(regex: String): Option[String] =
+    if (regex.endsWith(".*")) {
+      val prefix = regex.dropRight(2)
+      if (prefix.nonEmpty && prefix.forall(c => specialCharacters.indexOf(c) < 0)) Some(prefix) else None
+    } else None
+}
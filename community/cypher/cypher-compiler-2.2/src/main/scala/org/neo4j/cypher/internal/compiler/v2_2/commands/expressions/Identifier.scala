@@ -20,7 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v2_2.commands.expressions
 
 import org.neo4j.cypher.internal.compiler.v2_2._
-import pipes.QueryState
+import pipes.{IdentifierSlot, QueryState, SlottedMap}
 import symbols._
 import org.neo4j.graphdb.NotFoundException
 import org.neo4j.helpers.ThisShouldNotHappenError
@@ -42,3 +42,16 @@ case class Identifier(entityName: String) extends Expression with Typed {
 
   def symbolTableDependencies = Set(entityName)
 }
+
+/*
+An identifier whose slot in the rows of the plan was looked up when the plan was built. It equals the plain
+identifier of the same name, so it can stand in for it anywhere.
+ */
+class SlottedIdentifier(entityName: String, slot: IdentifierSlot) extends Identifier(entityName) {
+  override def apply(ctx: ExecutionContext)(implicit state: QueryState): Any = {
+    val value = slot.get(ctx)
+    if (SlottedMap.isUnset(value))
+      throw new NotFoundException("Unknown identifier `%s`.".format(entityName))
+    value
+  }
+}
@@ -26,7 +26,8 @@ import org.neo4j.cypher.internal.compiler.v2_2.pipes._
 import org.neo4j.cypher.internal.compiler.v2_2.spi.{QueryContext, CSVResources}
 import org.neo4j.graphdb.GraphDatabaseService
 
-case class DefaultExecutionResultBuilderFactory(pipeInfo: PipeInfo, columns: List[String], planType: PlanType) extends ExecutionResultBuilderFactory {
+case class DefaultExecutionResultBuilderFactory(pipeInfo: PipeInfo, columns: List[String], planType: PlanType,
+                                                memoryBudget: Long = 0) extends ExecutionResultBuilderFactory {
   def create(): ExecutionResultBuilder =
     ExecutionWorkflowBuilder()
 
@@ -57,7 +58,10 @@ case class DefaultExecutionResultBuilderFactory(pipeInfo: PipeInfo, columns: Lis
 
     def build(graph: GraphDatabaseService, queryId: AnyRef, params: Map[String, Any]): InternalExecutionResult = {
       taskCloser.addTask(queryContext.close)
-      val state = new QueryState(graph, queryContext, externalResource, params, pipeDecorator, queryId = queryId)
+      val memory = QueryMemory(memoryBudget)
+      taskCloser.addTask(memory.close)
+      val state = new QueryState(graph, queryContext, externalResource, params, pipeDecorator, queryId = queryId,
+        slots = pipeInfo.slots, memory = memory)
       try {
         try {
           createResults(state)
@@ -41,7 +41,8 @@ case class PipeInfo(pipe: Pipe,
                     updating: Boolean,
                     periodicCommit: Option[PeriodicCommitInfo] = None,
                     fingerprint: Option[PlanFingerprint] = None,
-                    plannerUsed: PlannerName)
+                    plannerUsed: PlannerName,
+                    slots: Option[SlotLayout] = None)
 
 case class PeriodicCommitInfo(size: Option[Long]) {
   def batchRowCount = size.getOrElse(/* defaultSize */ 1000L)
@@ -64,10 +65,10 @@ class ExecutionPlanBuilder(graph: GraphDatabaseService,
     val abstractQuery = inputQuery.abstractQuery
 
     val pipeInfo = pipeBuilder.producePlan(inputQuery, planContext)
-    val PipeInfo(pipe, updating, periodicCommitInfo, fp, planner) = pipeInfo
+    val PipeInfo(pipe, updating, periodicCommitInfo, fp, planner, _) = pipeInfo
 
     val columns = getQueryResultColumns(abstractQuery, pipe.symbols)
-    val resultBuilderFactory = new DefaultExecutionResultBuilderFactory(pipeInfo, columns, inputQuery.planType)
+    val resultBuilderFactory = new DefaultExecutionResultBuilderFactory(pipeInfo, columns, inputQuery.planType, getQueryMemoryBudget)
     val func = getExecutionPlanFunction(periodicCommitInfo, abstractQuery.getQueryText, updating, resultBuilderFactory)
 
     val TTL = getQueryPlanTTL
@@ -98,6 +99,15 @@ class ExecutionPlanBuilder(graph: GraphDatabaseService,
     }
   }
 
+  private def getQueryMemoryBudget: Long = {
+    graph match {
+      case iagdb: InternalAbstractGraphDatabase =>
+        iagdb.getConfig.get(GraphDatabaseSettings.query_memory_budget)
+      case _ =>
+        0
+    }
+  }
+
   private def getQueryResultColumns(q: AbstractQuery, currentSymbols: SymbolTable): List[String] = q match {
     case in: PeriodicCommitQuery =>
       getQueryResultColumns(in.query, currentSymbols)
@@ -26,12 +26,15 @@ import org.neo4j.cypher.internal.compiler.v2_2.planDescription.{NoChildren, Plan
 import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.Cardinality
 import org.neo4j.cypher.internal.compiler.v2_2.symbols._
 
-case class AllNodesScanPipe(ident: String)(val estimatedCardinality: Option[Long] = None)
+case class AllNodesScanPipe(ident: String)(val estimatedCardinality: Option[Long] = None,
+                                            val slots: Option[SlotLayout] = None)
                            (implicit pipeMonitor: PipeMonitor) extends Pipe with RonjaPipe {
 
+  private val identSlot = SlotLayout.identifierSlot(slots, ident)
+
   protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] = {
-    val baseContext = state.initialContext.getOrElse(ExecutionContext.empty)
-    state.query.nodeOps.all.map(n => baseContext.newWith1(ident, n))
+    val baseContext = state.initialContext.getOrElse(state.newExecutionContext())
+    state.query.nodeOps.all.map(n => identSlot.newWith(baseContext, n))
   }
 
   def exists(predicate: Pipe => Boolean): Boolean = predicate(this)
@@ -51,5 +54,5 @@ case class AllNodesScanPipe(ident: String)(val estimatedCardinality: Option[Long
 
   def sources: Seq[Pipe] = Seq.empty
 
-  def withEstimatedCardinality(estimated: Long) = copy()(Some(estimated))
+  def withEstimatedCardinality(estimated: Long) = copy()(Some(estimated), slots)
 }
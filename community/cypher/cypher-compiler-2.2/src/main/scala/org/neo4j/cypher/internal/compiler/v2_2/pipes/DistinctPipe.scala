@@ -22,6 +22,7 @@ package org.neo4j.cypher.internal.compiler.v2_2.pipes
 import org.neo4j.cypher.internal.compiler.v2_2._
 import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions.Expression
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.Effects._
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.spill.{RowSize, SpillPartitions}
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.InternalPlanDescription.Arguments.KeyNames
 import org.neo4j.cypher.internal.compiler.v2_2.symbols._
 import org.neo4j.cypher.internal.helpers._
@@ -45,21 +46,42 @@ case class DistinctPipe(source: Pipe, expressions: Map[String, Expression])(val
 
     /*
      * The filtering is done by extracting from the context the values of all return expressions, and keeping them
-     * in a set.
+     * in a set. Once the query goes over its memory budget, rows that have not been seen yet are spilled to disk
+     * by the hash of their values instead, and each partition is made distinct on its own at the end.
      */
-    var seen = mutable.Set[NiceHasher]()
+    val seen = mutable.Set[NiceHasher]()
+    val partitions = new SpillPartitions(this, state)
+    var held = 0L
+    var spilling = false
 
-    returnExpressions.filter {
+    val distinctInMemory = returnExpressions.filter {
        case ctx =>
          val values = new NiceHasher(keyNames.map(ctx).toSeq)
 
          if (seen.contains(values)) {
            false
+         } else if (spilling && partitions.add(values.hashCode(), ctx)) {
+           false
          } else {
+           val size = RowSize.estimate(ctx)
            seen += values
+           held += size
+           if (!state.memory.allocate(size))
+             spilling = state.memory.shouldSpill(held)
            true
          }
     }
+
+    distinctInMemory ++ {
+      seen.clear()
+      state.memory.release(held)
+      partitions.partitions.flatMap(distinct)
+    }
+  }
+
+  private def distinct(rows: Iterator[ExecutionContext]): Iterator[ExecutionContext] = {
+    val seen = mutable.Set[NiceHasher]()
+    rows.filter(ctx => seen.add(new NiceHasher(keyNames.map(ctx).toSeq)))
   }
 
   def planDescription = source.planDescription.andThen(this, "Distinct", identifiers, KeyNames(expressions.keys.toSeq))
@@ -24,6 +24,7 @@ import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions.{Aggregation
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.Effects
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.Effects._
 import org.neo4j.cypher.internal.compiler.v2_2.pipes.aggregation.AggregationFunction
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.spill.{RowSize, SpillPartitions}
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.InternalPlanDescription.Arguments
 import org.neo4j.cypher.internal.compiler.v2_2.symbols._
 
@@ -50,8 +51,6 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Map[String, Expres
   }
 
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState) = {
-    // This is the temporary storage used while the aggregation is going on
-    val result = MutableMap[NiceHasher, (ExecutionContext, Seq[AggregationFunction])]()
     val keyNames: Seq[String] = keyExpressions.map(_._1).toSeq
     val aggregationNames: Seq[String] = aggregations.map(_._1).toSeq
     val mapSize = keyNames.size + aggregationNames.size
@@ -77,20 +76,58 @@ case class EagerAggregationPipe(source: Pipe, keyExpressions: Map[String, Expres
       Iterator.single(ExecutionContext(newMap))
     }
 
-    input.foreach(ctx => {
-      val groupValues: NiceHasher = new NiceHasher(keyNames.map(ctx))
-      val aggregateFunctions: Seq[AggregationFunction] = aggregations.map(_._2.createAggregationFunction).toSeq
-      val (_, functions) = result.getOrElseUpdate(groupValues, (ctx, aggregateFunctions))
-      functions.foreach(func => func(ctx)(state))
-    })
-
-    if (result.isEmpty && keyNames.isEmpty) {
-      createEmptyResult(state.params)
-    } else {
-      result.map {
-        case (key, (ctx, aggregator)) => createResults(key, aggregator, ctx)
-      }.toIterator
+    /*
+     * Groups are aggregated in memory until the query goes over its memory budget. After that, rows of groups that
+     * are not in memory are spilled to disk by the hash of their group, and each partition is aggregated on its own
+     * once the groups in memory have been returned. If a row can not be spilled, all spilled rows are read back and
+     * the rest of the aggregation is done in memory.
+     */
+    def aggregate(rows: Iterator[ExecutionContext], canSpill: Boolean): Iterator[ExecutionContext] = {
+      // This is the temporary storage used while the aggregation is going on
+      val result = MutableMap[NiceHasher, (ExecutionContext, Seq[AggregationFunction])]()
+      var partitions = if (canSpill) Some(new SpillPartitions(this, state)) else None
+      var held = 0L
+      var spilling = false
+
+      def update(ctx: ExecutionContext, groupValues: NiceHasher) {
+        val (_, functions) = result.getOrElseUpdate(groupValues, {
+          val size = RowSize.estimate(ctx) * 2
+          held += size
+          if (!state.memory.allocate(size))
+            spilling = partitions.isDefined && state.memory.shouldSpill(held)
+          (ctx, aggregations.map(_._2.createAggregationFunction).toSeq)
+        })
+        functions.foreach(func => func(ctx)(state))
+      }
+
+      rows.foreach(ctx => {
+        val groupValues: NiceHasher = new NiceHasher(keyNames.map(ctx))
+        if (!spilling || result.contains(groupValues)) {
+          update(ctx, groupValues)
+        } else if (!partitions.get.add(groupValues.hashCode(), ctx)) {
+          val spilled = partitions.get.partitions.flatten
+          partitions = None
+          spilling = false
+          spilled.foreach(row => update(row, new NiceHasher(keyNames.map(row))))
+          update(ctx, groupValues)
+        }
+      })
+
+      val inMemory = if (result.isEmpty && keyNames.isEmpty) {
+        createEmptyResult(state.params)
+      } else {
+        result.map {
+          case (key, (ctx, aggregator)) => createResults(key, aggregator, ctx)
+        }.toIterator
+      }
+
+      inMemory ++ {
+        state.memory.release(held)
+        partitions.iterator.flatMap(_.partitions).flatMap(aggregate(_, canSpill = false))
+      }
     }
+
+    aggregate(input, canSpill = true)
   }
 
   def planDescription = source.planDescription.andThen(this, "EagerAggregation", identifiers, Arguments.KeyNames(keyExpressions.keys.toSeq))
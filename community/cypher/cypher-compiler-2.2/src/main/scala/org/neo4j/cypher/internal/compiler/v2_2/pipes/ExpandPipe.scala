@@ -32,9 +32,14 @@ sealed abstract class ExpandPipe[T](source: Pipe,
                                  to: String,
                                  dir: Direction,
                                  types: Seq[T],
+                                 slots: Option[SlotLayout],
                                  pipeMonitor: PipeMonitor)
                     extends PipeWithSource(source, pipeMonitor) with RonjaPipe {
 
+  private val fromSlot = SlotLayout.identifierSlot(slots, from)
+  private val relSlot = SlotLayout.identifierSlot(slots, relName)
+  private val toSlot = SlotLayout.identifierSlot(slots, to)
+
   def getRelationships: (Node, QueryContext, Direction) => Iterator[Relationship]
 
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
@@ -45,7 +50,9 @@ sealed abstract class ExpandPipe[T](source: Pipe,
             val relationships: Iterator[Relationship] = getRelationships(n, state.query, dir)
             relationships.map {
               case r =>
-                row.newWith2(relName, r, to, r.getOtherNode(n))
+                val newRow = relSlot.newWith(row, r)
+                toSlot.set(newRow, r.getOtherNode(n))
+                newRow
             }
 
           case null => None
@@ -55,8 +62,12 @@ sealed abstract class ExpandPipe[T](source: Pipe,
     }
   }
 
-  def getFromNode(row: ExecutionContext): Any =
-    row.getOrElse(from, throw new InternalException(s"Expected to find a node at $from but found nothing"))
+  def getFromNode(row: ExecutionContext): Any = {
+    val node = fromSlot.get(row)
+    if (SlottedMap.isUnset(node))
+      throw new InternalException(s"Expected to find a node at $from but found nothing")
+    node
+  }
 
   def planDescription = {
     source.planDescription.andThen(this, "Expand", identifiers, ExpandExpression(from, relName, to, dir))
@@ -73,9 +84,10 @@ case class ExpandPipeForIntTypes(source: Pipe,
                                 to: String,
                                 dir: Direction,
                                 types: Seq[Int])
-                               (val estimatedCardinality: Option[Long] = None)
+                               (val estimatedCardinality: Option[Long] = None,
+                                val slots: Option[SlotLayout] = None)
                                (implicit pipeMonitor: PipeMonitor)
-  extends ExpandPipe[Int](source, from, relName, to, dir, types, pipeMonitor) {
+  extends ExpandPipe[Int](source, from, relName, to, dir, types, slots, pipeMonitor) {
 
   override def getRelationships: (Node, QueryContext, Direction) => Iterator[Relationship] =
     (n:Node, query: QueryContext, dir:Direction) => query.getRelationshipsForIds(n, dir, types)
@@ -83,10 +95,10 @@ case class ExpandPipeForIntTypes(source: Pipe,
 
   def dup(sources: List[Pipe]): Pipe = {
     val (source :: Nil) = sources
-    copy(source = source)(estimatedCardinality)
+    copy(source = source)(estimatedCardinality, slots)
   }
 
-  def withEstimatedCardinality(estimated: Long) = copy()(Some(estimated))
+  def withEstimatedCardinality(estimated: Long) = copy()(Some(estimated), slots)
 }
 
 case class ExpandPipeForStringTypes(source: Pipe,
@@ -95,9 +107,10 @@ case class ExpandPipeForStringTypes(source: Pipe,
                                     to: String,
                                     dir: Direction,
                                     types: Seq[String])
-                                   (val estimatedCardinality: Option[Long] = None)
+                                   (val estimatedCardinality: Option[Long] = None,
+                                    val slots: Option[SlotLayout] = None)
                                    (implicit pipeMonitor: PipeMonitor)
-  extends ExpandPipe[String](source, from, relName, to, dir, types, pipeMonitor) {
+  extends ExpandPipe[String](source, from, relName, to, dir, types, slots, pipeMonitor) {
 
   override def getRelationships: (Node, QueryContext, Direction) => Iterator[Relationship] =
     (n:Node, query: QueryContext, dir:Direction) => query.getRelationshipsFor(n, dir, types)
@@ -105,8 +118,8 @@ case class ExpandPipeForStringTypes(source: Pipe,
 
   def dup(sources: List[Pipe]): Pipe = {
     val (source :: Nil) = sources
-    copy(source = source)(estimatedCardinality)
+    copy(source = source)(estimatedCardinality, slots)
   }
 
-  def withEstimatedCardinality(estimated: Long) = copy()(Some(estimated))
+  def withEstimatedCardinality(estimated: Long) = copy()(Some(estimated), slots)
 }
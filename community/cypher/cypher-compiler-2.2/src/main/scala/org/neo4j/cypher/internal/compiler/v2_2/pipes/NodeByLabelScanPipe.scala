@@ -26,10 +26,13 @@ import org.neo4j.cypher.internal.compiler.v2_2.planDescription.{NoChildren, Plan
 import org.neo4j.cypher.internal.compiler.v2_2.symbols.{SymbolTable, _}
 
 case class NodeByLabelScanPipe(ident: String, label: Either[String, LabelId])
-                              (val estimatedCardinality: Option[Long] = None)(implicit pipeMonitor: PipeMonitor)
+                              (val estimatedCardinality: Option[Long] = None, val slots: Option[SlotLayout] = None)
+                              (implicit pipeMonitor: PipeMonitor)
   extends Pipe
   with RonjaPipe {
 
+  private val identSlot = SlotLayout.identifierSlot(slots, ident)
+
   protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] = {
     val optLabelId = label match {
       case Left(str)      => state.query.getOptLabelId(str).map(LabelId)
@@ -39,8 +42,8 @@ case class NodeByLabelScanPipe(ident: String, label: Either[String, LabelId])
     optLabelId match {
       case Some(labelId) =>
         val nodes = state.query.getNodesByLabel(labelId.id)
-        val baseContext = state.initialContext.getOrElse(ExecutionContext.empty)
-        nodes.map(n => baseContext.newWith1(ident, n))
+        val baseContext = state.initialContext.getOrElse(state.newExecutionContext())
+        nodes.map(n => identSlot.newWith(baseContext, n))
       case None =>
         Iterator.empty
     }
@@ -68,5 +71,5 @@ case class NodeByLabelScanPipe(ident: String, label: Either[String, LabelId])
 
   override def localEffects = Effects.READS_NODES
 
-  def withEstimatedCardinality(estimated: Long) = copy()(Some(estimated))
+  def withEstimatedCardinality(estimated: Long) = copy()(Some(estimated), slots)
 }
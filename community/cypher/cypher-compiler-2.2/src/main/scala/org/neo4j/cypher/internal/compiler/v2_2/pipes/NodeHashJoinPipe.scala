@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_2.pipes
 
+import org.neo4j.collection.primitive.Primitive
 import org.neo4j.cypher.internal.compiler.v2_2.{CypherTypeException, ExecutionContext}
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.Effects
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.InternalPlanDescription.Arguments.KeyNames
@@ -32,18 +33,54 @@ case class NodeHashJoinPipe(nodeIdentifiers: Set[String], left: Pipe, right: Pip
                            (val estimatedCardinality: Option[Long] = None)(implicit pipeMonitor: PipeMonitor)
   extends PipeWithSource(left, pipeMonitor) with RonjaPipe {
 
-  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
+  import NodeHashJoinPipe._
+
+  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] =
+    if (cachedIdentifiers.length == 1)
+      joinOnNode(cachedIdentifiers.head, input, state)
+    else
+      joinOnNodes(input, state)
+
+  /*
+  Joining on a single node is by far the most common case, so the build side is keyed directly on the node id in a
+  primitive map, without allocating a key per row.
+   */
+  private def joinOnNode(identifier: String, input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
+    val table = Primitive.longObjectMap[mutable.ArrayBuffer[ExecutionContext]](initialTableSize)
+
+    input.foreach { context =>
+      val id = nodeId(context, identifier)
+      if (id != NO_NODE) {
+        var rows = table.get(id)
+        if (rows == null) {
+          rows = new mutable.ArrayBuffer[ExecutionContext](1)
+          table.put(id, rows)
+        }
+        rows += context
+      }
+    }
+
+    right.createResults(state).flatMap { context =>
+      val id = nodeId(context, identifier)
+      val rows = if (id == NO_NODE) null else table.get(id)
+      if (rows == null) Iterator.empty else rows.iterator.map(context ++ _)
+    }
+  }
 
-    val table = buildProbeTable(input)
+  private def joinOnNodes(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
+    val table = new mutable.OpenHashMap[NodeIds, mutable.ArrayBuffer[ExecutionContext]](initialTableSize)
 
-    val result = for {context: ExecutionContext <- right.createResults(state)
-                      joinKey <- computeKey(context)}
-    yield {
-      val seq = table.getOrElse(joinKey, mutable.MutableList.empty)
-      seq.map(context ++ _)
+    for {context <- input
+         joinKey <- computeKey(context)} {
+      val rows = table.getOrElseUpdate(joinKey, new mutable.ArrayBuffer[ExecutionContext](1))
+      rows += context
     }
 
-    result.flatten
+    for {context <- right.createResults(state)
+         joinKey <- computeKey(context).iterator
+         rows <- table.get(joinKey).iterator
+         row <- rows.iterator}
+    yield context ++ row
   }
 
   def planDescription: InternalPlanDescription =
@@ -68,30 +105,46 @@ case class NodeHashJoinPipe(nodeIdentifiers: Set[String], left: Pipe, right: Pip
 
   def withEstimatedCardinality(estimated: Long) = copy()(Some(estimated))
 
-  private def buildProbeTable(input: Iterator[ExecutionContext]): mutable.HashMap[Vector[Long], mutable.MutableList[ExecutionContext]] = {
-    val table = new mutable.HashMap[Vector[Long], mutable.MutableList[ExecutionContext]]
-
-    for {context <- input
-         joinKey <- computeKey(context)} {
-      val seq = table.getOrElseUpdate(joinKey, mutable.MutableList.empty)
-      seq += context
-    }
-
-    table
+  // The planner's estimate of the build side, capped so that a bad estimate does not allocate a huge table up front
+  private def initialTableSize: Int = left match {
+    case pipe: RonjaPipe =>
+      pipe.estimatedCardinality.map(estimate => math.min(math.max(estimate, 1), MAX_INITIAL_TABLE_SIZE).toInt).
+        getOrElse(Primitive.DEFAULT_HEAP_CAPACITY)
+    case _ =>
+      Primitive.DEFAULT_HEAP_CAPACITY
   }
 
   private val cachedIdentifiers = nodeIdentifiers.toIndexedSeq
 
-  private def computeKey(context: ExecutionContext): Option[Vector[Long]] = {
+  private def nodeId(context: ExecutionContext, identifier: String): Long = context(identifier) match {
+    case n: Node => n.getId
+    case null => NO_NODE
+    case _ => throw new CypherTypeException("Created a plan that uses non-nodes when expecting a node")
+  }
+
+  private def computeKey(context: ExecutionContext): Option[NodeIds] = {
     val key = new Array[Long](cachedIdentifiers.length)
 
     for (idx <- 0 until cachedIdentifiers.length) {
-      key(idx) = context(cachedIdentifiers(idx)) match {
-        case n: Node => n.getId
-        case null => return None
-        case _ => throw new CypherTypeException("Created a plan that uses non-nodes when expecting a node")
-      }
+      key(idx) = nodeId(context, cachedIdentifiers(idx))
+      if (key(idx) == NO_NODE)
+        return None
+    }
+    Some(new NodeIds(key))
+  }
+}
+
+object NodeHashJoinPipe {
+  private val NO_NODE = -1L
+  private val MAX_INITIAL_TABLE_SIZE = 1L << 20
+
+  // The ids of the nodes a multi node join is keyed on, held in a plain array rather than a vector of boxed longs
+  private final class NodeIds(val ids: Array[Long]) {
+    override val hashCode: Int = java.util.Arrays.hashCode(ids)
+
+    override def equals(other: Any): Boolean = other match {
+      case that: NodeIds => java.util.Arrays.equals(ids, that.ids)
+      case _ => false
     }
-    Some(key.toVector)
   }
 }
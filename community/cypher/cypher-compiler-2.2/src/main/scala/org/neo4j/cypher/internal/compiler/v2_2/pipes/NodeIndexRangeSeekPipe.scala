@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes
+
+import org.neo4j.cypher.internal.compiler.v2_2._
+import org.neo4j.cypher.internal.compiler.v2_2.ast.{LabelToken, PropertyKeyToken}
+import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions.Expression
+import org.neo4j.cypher.internal.compiler.v2_2.commands.{Bound, InequalitySeekRange, LiteralPrefix, PrefixSeekRange, SeekRange}
+import org.neo4j.cypher.internal.compiler.v2_2.executionplan.Effects
+import org.neo4j.cypher.internal.compiler.v2_2.planDescription.InternalPlanDescription.Arguments.Index
+import org.neo4j.cypher.internal.compiler.v2_2.planDescription.{NoChildren, PlanDescriptionImpl}
+import org.neo4j.cypher.internal.compiler.v2_2.symbols.{CTNode, SymbolTable}
+import org.neo4j.graphdb.Node
+import org.neo4j.kernel.api.index.IndexDescriptor
+
+case class NodeIndexRangeSeekPipe(ident: String,
+                                  label: LabelToken,
+                                  propertyKey: PropertyKeyToken,
+                                  range: SeekRange[Expression])
+                                 (val estimatedCardinality: Option[Long] = None)(implicit pipeMonitor: PipeMonitor)
+  extends Pipe with RonjaPipe {
+
+  val descriptor = new IndexDescriptor(label.nameId.id, propertyKey.nameId.id)
+
+  protected def internalCreateResults(state: QueryState): Iterator[ExecutionContext] = {
+    val resultNodes = seek(state)
+    val baseContext = state.initialContext.getOrElse(state.newExecutionContext())
+    resultNodes.map(node => baseContext.newWith1(ident, node))
+  }
+
+  private def seek(state: QueryState): Iterator[Node] = range match {
+    case PrefixSeekRange(regexExpr) =>
+      regexExpr(ExecutionContext.empty)(state) match {
+        case LiteralPrefix(prefix) => state.query.indexSeekByPrefix(descriptor, prefix)
+        case null => Iterator.empty
+        // A regular expression without a literal prefix may match any string, and is filtered after the seek
+        case _ => state.query.getNodesByLabel(label.nameId.id)
+      }
+
+    case InequalitySeekRange(lowerExpr, upperExpr) =>
+      val lower = lowerExpr.map(_.map(_(ExecutionContext.empty)(state)))
+      val upper = upperExpr.map(_.map(_(ExecutionContext.empty)(state)))
+      val values = (lower ++ upper).map(_.value)
+
+      // Comparing with null, or with values of different types, never holds, so there is nothing to seek for
+      if (values.forall(_.isInstanceOf[Number]))
+        state.query.indexSeekByNumberRange(descriptor,
+          valueOf[Number](lower), inclusive(lower), valueOf[Number](upper), inclusive(upper))
+      else if (values.forall(_.isInstanceOf[String]))
+        state.query.indexSeekByStringRange(descriptor,
+          valueOf[String](lower), inclusive(lower), valueOf[String](upper), inclusive(upper))
+      else
+        Iterator.empty
+  }
+
+  private def valueOf[T](bound: Option[Bound[Any]]): T = bound.map(_.value).orNull.asInstanceOf[T]
+
+  private def inclusive(bound: Option[Bound[Any]]): Boolean = bound.exists(_.inclusive)
+
+  def exists(predicate: Pipe => Boolean): Boolean = predicate(this)
+
+  def planDescription =
+    new PlanDescriptionImpl(this, "NodeIndexRangeSeek", NoChildren, Seq(Index(label.name, propertyKey.name)), identifiers)
+
+  def symbols: SymbolTable = new SymbolTable(Map(ident -> CTNode))
+
+  override def monitor = pipeMonitor
+
+  def dup(sources: List[Pipe]): Pipe = {
+    require(sources.isEmpty)
+    this
+  }
+
+  def sources: Seq[Pipe] = Seq.empty
+
+  override def localEffects = Effects.READS_NODES
+
+  def withEstimatedCardinality(estimated: Long) = copy()(Some(estimated))
+}
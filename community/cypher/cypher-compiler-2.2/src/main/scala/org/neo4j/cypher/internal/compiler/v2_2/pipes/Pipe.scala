@@ -96,7 +96,7 @@ case class NullPipe(symbols: SymbolTable = SymbolTable())
 
   def internalCreateResults(state: QueryState) = {
     if (state.initialContext.isEmpty)
-      Iterator(ExecutionContext.empty)
+      Iterator(state.newExecutionContext())
     else
       Iterator(typeAssertions(state.initialContext.get))
   }
@@ -38,13 +38,13 @@ case class ProjectionNewPipe(source: Pipe, expressions: Map[String, Expression])
   protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState) =
     input.map {
       original =>
-        val m = MutableMaps.create(expressions.size)
+        val row = state.newExecutionContext()
         expressions.foreach {
           case (name, expression) =>
-            m.put(name, expression(original)(state))
+            row(name) = expression(original)(state)
         }
 
-        ExecutionContext(m)
+        row
     }
 
   override def planDescription =
@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes
+
+import java.io.File
+
+import scala.collection.mutable
+
+/*
+Keeps track of the memory that the eager pipes of a query use for the rows they hold on to, so that they can start
+spilling rows to disk once the query goes over its budget. Sizes are estimates, see RowSize, so the budget is a
+rough bound rather than an exact one.
+ */
+class QueryMemory(val budget: Long) {
+  private var allocated = 0L
+  private val files = mutable.Set[File]()
+  private val statistics = mutable.Map[Pipe, SpillStatistics]()
+
+  // Returns false when the query has gone over its budget
+  def allocate(bytes: Long): Boolean = {
+    allocated += bytes
+    allocated <= budget
+  }
+
+  def release(bytes: Long) {
+    allocated -= bytes
+  }
+
+  // A pipe only spills once it holds a fair share of the budget itself, so that pipes that hold rows at the same
+  // time do not end up spilling tiny runs
+  def shouldSpill(held: Long): Boolean = allocated > budget && held >= budget / QueryMemory.FAIR_SHARE
+
+  def newSpillFile(pipe: Pipe): File = {
+    val file = File.createTempFile("cypher-spill", ".tmp")
+    files += file
+    statisticsFor(pipe).files += 1
+    file
+  }
+
+  def spilled(pipe: Pipe, rows: Long) {
+    statisticsFor(pipe).rows += rows
+  }
+
+  def deleteSpillFile(file: File) {
+    files -= file
+    file.delete()
+  }
+
+  def spillStatistics(pipe: Pipe): Option[SpillStatistics] = statistics.get(pipe)
+
+  def close(success: Boolean) {
+    files.foreach(_.delete())
+    files.clear()
+  }
+
+  private def statisticsFor(pipe: Pipe) = statistics.getOrElseUpdate(pipe, new SpillStatistics)
+}
+
+object QueryMemory {
+  val FAIR_SHARE = 16
+
+  // A budget of zero means that queries hold all their rows in memory
+  def apply(budget: Long): QueryMemory = new QueryMemory(if (budget <= 0) Long.MaxValue else budget)
+
+  def unlimited: QueryMemory = new QueryMemory(Long.MaxValue)
+}
+
+class SpillStatistics {
+  var rows = 0L
+  var files = 0L
+}
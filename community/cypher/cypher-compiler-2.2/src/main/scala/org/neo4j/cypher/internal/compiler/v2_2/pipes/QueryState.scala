@@ -23,6 +23,7 @@ import org.neo4j.cypher.internal.compiler.v2_2._
 import org.neo4j.cypher.internal.compiler.v2_2.spi.QueryContext
 import org.neo4j.graphdb.GraphDatabaseService
 import org.neo4j.kernel.GraphDatabaseAPI
+import org.neo4j.kernel.impl.core.NodeManager
 import java.util.UUID
 
 case class QueryState(db: GraphDatabaseService,
@@ -32,9 +33,24 @@ case class QueryState(db: GraphDatabaseService,
                       decorator: PipeDecorator,
                       timeReader: TimeReader = new TimeReader,
                       var initialContext: Option[ExecutionContext] = None,
-                      queryId: AnyRef = UUID.randomUUID().toString) {
+                      queryId: AnyRef = UUID.randomUUID().toString,
+                      slots: Option[SlotLayout] = None,
+                      memory: QueryMemory = QueryMemory.unlimited) {
   def readTimeStamp(): Long = timeReader.getTime
 
+  def newExecutionContext(): ExecutionContext = slots match {
+    case Some(layout) => ExecutionContext(layout.newRow(entityProxies))
+    case None         => ExecutionContext.empty
+  }
+
+  private lazy val entityProxies: EntityProxyFactory = db match {
+    case api: GraphDatabaseAPI =>
+      val entities = api.getDependencyResolver.resolveDependency(classOf[NodeManager])
+      if (entities != null) EntityProxyFactory(entities) else EntityProxyFactory(query)
+    case _ =>
+      EntityProxyFactory(query)
+  }
+
   def graphDatabaseAPI: GraphDatabaseAPI = db match {
     case i: GraphDatabaseAPI => i
     case _                   => throw new IllegalStateException("Graph database does not implement GraphDatabaseAPI")
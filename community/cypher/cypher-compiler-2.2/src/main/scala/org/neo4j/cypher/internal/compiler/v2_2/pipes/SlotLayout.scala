@@ -0,0 +1,357 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes
+
+import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_2.spi.QueryContext
+import org.neo4j.graphdb.{Node, Relationship}
+import org.neo4j.kernel.impl.core.EntityFactory
+
+import scala.collection.mutable.{Map => MutableMap}
+
+/*
+Assigns every identifier of a plan a fixed slot in the rows that flow between its pipes, so that rows can be
+arrays that are copied instead of hash maps that are rebuilt whenever a pipe adds an identifier to a row.
+Identifiers that the plan binds to nodes or relationships get a slot in a long array, which holds only the id
+of the entity. Pipes and expressions look the slots of their identifiers up when they are built, see IdentifierSlot.
+ */
+final class SlotLayout(nodes: Seq[String], relationships: Seq[String], others: Seq[String]) {
+  private val slots = new java.util.HashMap[String, Slot]()
+
+  val longIdentifiers: IndexedSeq[String] = {
+    val nodeIdentifiers = nodes.distinct.filterNot(relationships.contains)
+    val relationshipIdentifiers = relationships.distinct.filterNot(nodes.contains)
+    nodeIdentifiers.foreach(identifier => slots.put(identifier, NodeSlot(slots.size())))
+    relationshipIdentifiers.foreach(identifier => slots.put(identifier, RelationshipSlot(slots.size())))
+    (nodeIdentifiers ++ relationshipIdentifiers).toIndexedSeq
+  }
+
+  val refIdentifiers: IndexedSeq[String] = {
+    val rest = (nodes ++ relationships ++ others).distinct.filterNot(slots.containsKey)
+    rest.foreach(identifier => slots.put(identifier, RefSlot(slots.size() - longIdentifiers.size)))
+    rest.toIndexedSeq
+  }
+
+  def size: Int = slots.size()
+
+  /* The slot of the identifier, or null if it has none. Meant for building pipes, not for every row */
+  def slot(identifier: String): Slot = slots.get(identifier)
+
+  def identifierSlot(identifier: String): IdentifierSlot = new IdentifierSlot(identifier, this, slot(identifier))
+
+  def newRow(entities: EntityProxyFactory): SlottedMap = new SlottedMap(this, entities)
+
+  override def toString =
+    s"SlotLayout(longs: ${longIdentifiers.mkString(", ")}; refs: ${refIdentifiers.mkString(", ")})"
+}
+
+object SlotLayout {
+  def apply(nodes: Seq[String], relationships: Seq[String], others: Seq[String]) =
+    new SlotLayout(nodes, relationships, others)
+
+  def identifierSlot(layout: Option[SlotLayout], identifier: String): IdentifierSlot = layout match {
+    case Some(slots) => slots.identifierSlot(identifier)
+    case None        => new IdentifierSlot(identifier, null, null)
+  }
+}
+
+sealed abstract class Slot {
+  def offset: Int
+}
+
+case class NodeSlot(offset: Int) extends Slot
+case class RelationshipSlot(offset: Int) extends Slot
+case class RefSlot(offset: Int) extends Slot
+
+/*
+The slot of an identifier, looked up when a pipe or an expression is built. Rows that are not laid out by the layout
+the slot was taken from, like rows from outside the plan, are read and written by name instead.
+ */
+final class IdentifierSlot(val identifier: String, layout: SlotLayout, slot: Slot) {
+
+  private def rowOf(ctx: ExecutionContext): SlottedMap =
+    if (slot == null) null
+    else ctx.m match {
+      case row: SlottedMap if row.layout eq layout => row
+      case _                                       => null
+    }
+
+  /* The value of the identifier in the row, or SlottedMap.Unset if it has none */
+  def get(ctx: ExecutionContext): Any = {
+    val row = rowOf(ctx)
+    if (row != null) row.valueAt(slot, identifier)
+    else ctx.m.getOrElse(identifier, SlottedMap.Unset)
+  }
+
+  def newWith(ctx: ExecutionContext, value: Any): ExecutionContext = {
+    val copy = ctx.clone()
+    set(copy, value)
+    copy
+  }
+
+  def set(ctx: ExecutionContext, value: Any) {
+    val row = rowOf(ctx)
+    if (row != null) row.setAt(slot, identifier, value)
+    else ctx.m.update(identifier, value)
+  }
+}
+
+/* Materializes the entities of the ids kept in slots */
+trait EntityProxyFactory {
+  def node(id: Long): Node
+
+  def relationship(id: Long): Relationship
+}
+
+object EntityProxyFactory {
+  // Creating proxies from the kernel does not check that the entities exist, unlike going through the query context
+  def apply(entities: EntityFactory): EntityProxyFactory = new EntityProxyFactory {
+    def node(id: Long) = entities.newNodeProxyById(id)
+
+    def relationship(id: Long) = entities.newRelationshipProxyById(id)
+  }
+
+  def apply(query: QueryContext): EntityProxyFactory = new EntityProxyFactory {
+    def node(id: Long) = query.nodeOps.getById(id)
+
+    def relationship(id: Long) = query.relationshipOps.getById(id)
+  }
+}
+
+/*
+A row with one slot per identifier of its layout. Identifiers the layout does not know about, like those introduced
+by nested pipes, and values that do not fit the long slot of their identifier are kept in an ordinary map on the side.
+ */
+final class SlottedMap private(val layout: SlotLayout,
+                               entities: EntityProxyFactory,
+                               longs: Array[Long],
+                               refs: Array[AnyRef],
+                               private var slotted: Int,
+                               private var fallback: MutableMap[String, Any])
+  extends MutableMap[String, Any] {
+
+  import SlottedMap._
+
+  def this(layout: SlotLayout, entities: EntityProxyFactory) =
+    this(layout, entities,
+      SlottedMap.unsetLongs(layout.longIdentifiers.size), SlottedMap.unsetRefs(layout.refIdentifiers.size), 0, null)
+
+  /* The value in the slot of the identifier, or Unset if it has none */
+  def valueAt(slot: Slot, identifier: String): Any = slot match {
+    case NodeSlot(offset) =>
+      val id = longs(offset)
+      if (id >= 0) entities.node(id) else longMarkerValue(id, identifier)
+
+    case RelationshipSlot(offset) =>
+      val id = longs(offset)
+      if (id >= 0) entities.relationship(id) else longMarkerValue(id, identifier)
+
+    case RefSlot(offset) =>
+      refs(offset)
+  }
+
+  def setAt(slot: Slot, identifier: String, value: Any) {
+    slot match {
+      case NodeSlot(offset) => value match {
+        case node: Node => setLong(offset, identifier, node.getId)
+        case null       => setLong(offset, identifier, NULL)
+        case _          => spill(offset, identifier, value)
+      }
+
+      case RelationshipSlot(offset) => value match {
+        case relationship: Relationship => setLong(offset, identifier, relationship.getId)
+        case null                       => setLong(offset, identifier, NULL)
+        case _                          => spill(offset, identifier, value)
+      }
+
+      case RefSlot(offset) =>
+        if (refs(offset) eq Unset)
+          slotted += 1
+        refs(offset) = value.asInstanceOf[AnyRef]
+    }
+  }
+
+  private def unset(slot: Slot, identifier: String) {
+    slot match {
+      case RefSlot(offset) =>
+        if (!(refs(offset) eq Unset)) {
+          refs(offset) = Unset
+          slotted -= 1
+        }
+
+      case _ =>
+        val offset = slot.offset
+        longs(offset) match {
+          case UNSET   =>
+          case SPILLED => fallback -= identifier
+          case _       => slotted -= 1
+        }
+        longs(offset) = UNSET
+    }
+  }
+
+  private def setLong(offset: Int, identifier: String, id: Long) {
+    longs(offset) match {
+      case UNSET   => slotted += 1
+      case SPILLED => fallback -= identifier; slotted += 1
+      case _       =>
+    }
+    longs(offset) = id
+  }
+
+  private def spill(offset: Int, identifier: String, value: Any) {
+    if (longs(offset) >= NULL)
+      slotted -= 1
+    longs(offset) = SPILLED
+    fallbackMap.update(identifier, value)
+  }
+
+  private def longMarkerValue(marker: Long, identifier: String): Any =
+    if (marker == NULL) null
+    else if (marker == SPILLED) fallback(identifier)
+    else Unset
+
+  private def fallbackMap = {
+    if (fallback == null)
+      fallback = MutableMaps.empty
+    fallback
+  }
+
+  def get(key: String): Option[Any] = {
+    val slot = layout.slot(key)
+    if (slot != null) {
+      val value = valueAt(slot, key)
+      if (value.asInstanceOf[AnyRef] eq Unset) None else Some(value)
+    } else if (fallback == null) None
+    else fallback.get(key)
+  }
+
+  // Avoids allocating an Option for every read of an identifier
+  override def apply(key: String): Any = {
+    val slot = layout.slot(key)
+    if (slot != null) {
+      val value = valueAt(slot, key)
+      if (value.asInstanceOf[AnyRef] eq Unset) default(key) else value
+    } else if (fallback == null) default(key)
+    else fallback.getOrElse(key, default(key))
+  }
+
+  override def contains(key: String): Boolean = {
+    val slot = layout.slot(key)
+    if (slot != null) !(valueAt(slot, key).asInstanceOf[AnyRef] eq Unset)
+    else fallback != null && fallback.contains(key)
+  }
+
+  override def update(key: String, value: Any) {
+    val slot = layout.slot(key)
+    if (slot != null)
+      setAt(slot, key, value)
+    else
+      fallbackMap.update(key, value)
+  }
+
+  override def put(key: String, value: Any): Option[Any] = {
+    val previous = get(key)
+    update(key, value)
+    previous
+  }
+
+  def +=(kv: (String, Any)) = {
+    update(kv._1, kv._2)
+    this
+  }
+
+  def -=(key: String) = {
+    val slot = layout.slot(key)
+    if (slot != null)
+      unset(slot, key)
+    else if (fallback != null)
+      fallback -= key
+    this
+  }
+
+  def iterator: Iterator[(String, Any)] = {
+    val slottedEntries = new Iterator[(String, Any)] {
+      private var seen = 0
+      private var offset = 0
+
+      def hasNext = seen < slotted
+
+      def next() = {
+        if (!hasNext)
+          throw new NoSuchElementException
+        var entry: (String, Any) = null
+        while (entry == null) {
+          entry = entryAt(offset)
+          offset += 1
+        }
+        seen += 1
+        entry
+      }
+    }
+    if (fallback == null) slottedEntries else slottedEntries ++ fallback.iterator
+  }
+
+  // Offsets past the long slots are those of the ref slots
+  private def entryAt(offset: Int): (String, Any) =
+    if (offset < longs.length) {
+      val id = longs(offset)
+      if (id < NULL) null
+      else {
+        val identifier = layout.longIdentifiers(offset)
+        identifier -> valueAt(layout.slot(identifier), identifier)
+      }
+    } else {
+      val value = refs(offset - longs.length)
+      if (value eq Unset) null else layout.refIdentifiers(offset - longs.length) -> value
+    }
+
+  override def size: Int = if (fallback == null) slotted else slotted + fallback.size
+
+  override def empty: MutableMap[String, Any] = new SlottedMap(layout, entities)
+
+  override def clone(): MutableMap[String, Any] =
+    new SlottedMap(layout, entities, longs.clone(), refs.clone(), slotted, if (fallback == null) null else fallback.clone())
+}
+
+object SlottedMap {
+  /* Marks slots without a value */
+  object Unset
+
+  def isUnset(value: Any) = value.asInstanceOf[AnyRef] eq Unset
+
+  // Markers in the long slots, where everything else is the id of an entity
+  private val NULL = -1L
+  private val UNSET = -2L
+  // The value did not fit the slot, and is kept on the side
+  private val SPILLED = -3L
+
+  private def unsetLongs(size: Int): Array[Long] = {
+    val longs = new Array[Long](size)
+    java.util.Arrays.fill(longs, UNSET)
+    longs
+  }
+
+  private def unsetRefs(size: Int): Array[AnyRef] = {
+    val refs = new Array[AnyRef](size)
+    java.util.Arrays.fill(refs, Unset)
+    refs
+  }
+}
@@ -20,6 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v2_2.pipes
 
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.Effects
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.spill.ExternalSorter
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.InternalPlanDescription.Arguments.KeyNames
 import org.neo4j.cypher.internal.compiler.v2_2.{Comparer, ExecutionContext}
 
@@ -32,9 +33,14 @@ case class Descending(id:String) extends SortDescription
 case class SortPipe(source: Pipe, orderBy: Seq[SortDescription])
                    (val estimatedCardinality: Option[Long] = None)(implicit monitor: PipeMonitor)
   extends PipeWithSource(source, monitor) with Comparer with RonjaPipe {
-  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] =
-    input.toList.
-      sortWith((a, b) => compareBy(a, b, orderBy)(state)).iterator
+  protected def internalCreateResults(input: Iterator[ExecutionContext], state: QueryState): Iterator[ExecutionContext] = {
+    val ordering = new Ordering[ExecutionContext] {
+      def compare(a: ExecutionContext, b: ExecutionContext): Int = compareBy(a, b, orderBy)(state)
+    }
+    val sorter = new ExternalSorter(this, state, ordering)
+    input.foreach(sorter.add)
+    sorter.sorted
+  }
 
   def planDescription = source.planDescription.andThen(this, "Sort", identifiers, KeyNames(orderBy.map(_.id)))
 
@@ -42,17 +48,16 @@ case class SortPipe(source: Pipe, orderBy: Seq[SortDescription])
 
   def symbols = source.symbols
 
-  private def compareBy(a: ExecutionContext, b: ExecutionContext, order: Seq[SortDescription])(implicit qtx: QueryState): Boolean = order match {
-    case Nil => false
+  private def compareBy(a: ExecutionContext, b: ExecutionContext, order: Seq[SortDescription])(implicit qtx: QueryState): Int = order match {
+    case Nil => 0
     case sort :: tail =>
       val column = sort.id
       val aVal = a(column)
       val bVal = b(column)
 
       Math.signum(compare(aVal, bVal)) match {
-        case 1 => sort.isInstanceOf[Descending]
-        case -1 => sort.isInstanceOf[Ascending]
         case 0 => compareBy(a, b, tail)
+        case result => if (sort.isInstanceOf[Descending]) -result.toInt else result.toInt
       }
   }
 
@@ -0,0 +1,105 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes.spill
+
+import java.util.{Comparator, PriorityQueue}
+
+import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.{Pipe, QueryState}
+
+import scala.collection.mutable
+
+/*
+Sorts rows within the memory budget of the query, by writing sorted runs to disk whenever the query goes over its
+budget, and merging the runs when the rows are read. Like a stable in memory sort, rows that compare as equal keep
+the order they were added in.
+ */
+class ExternalSorter(pipe: Pipe, state: QueryState, ordering: Ordering[ExecutionContext]) {
+  private val memory = state.memory
+  private val buffer = mutable.ArrayBuffer[ExecutionContext]()
+  private val runs = mutable.ArrayBuffer[SpillFile]()
+  private var held = 0L
+  private var canSpill = true
+
+  def add(row: ExecutionContext) {
+    val size = RowSize.estimate(row)
+    buffer += row
+    held += size
+    if (!memory.allocate(size) && canSpill && memory.shouldSpill(held))
+      spill()
+  }
+
+  def sorted: Iterator[ExecutionContext] = {
+    val inMemory = buffer.sorted(ordering)
+    buffer.clear()
+    memory.release(held)
+    held = 0
+
+    if (runs.isEmpty)
+      inMemory.iterator
+    else
+      merge(runs.map(_.read()) :+ inMemory.iterator)
+  }
+
+  private def spill() {
+    val run = new SpillFile(pipe, state)
+    if (buffer.sorted(ordering).forall(run.write)) {
+      runs += run
+      buffer.clear()
+      memory.release(held)
+      held = 0
+    } else {
+      // Some value in the rows can not be written to disk, so keep on sorting in memory
+      run.discard()
+      canSpill = false
+    }
+  }
+
+  private def merge(sources: Seq[Iterator[ExecutionContext]]): Iterator[ExecutionContext] = {
+    case class Head(row: ExecutionContext, source: Int)
+
+    // Earlier sources hold rows that were added earlier, which is what keeps the merge stable
+    val heads = new PriorityQueue[Head](sources.size, new Comparator[Head] {
+      def compare(a: Head, b: Head): Int = {
+        val result = ordering.compare(a.row, b.row)
+        if (result != 0) result else a.source - b.source
+      }
+    })
+
+    def advance(source: Int) {
+      if (sources(source).hasNext)
+        heads.add(Head(sources(source).next(), source))
+    }
+
+    sources.indices.foreach(advance)
+
+    new Iterator[ExecutionContext] {
+      def hasNext: Boolean = !heads.isEmpty
+
+      def next(): ExecutionContext = {
+        val head = heads.poll()
+        if (head == null)
+          Iterator.empty.next()
+        advance(head.source)
+        head.row
+      }
+    }
+  }
+}
@@ -0,0 +1,184 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes.spill
+
+import java.io.{DataInput, DataOutput}
+import java.nio.charset.StandardCharsets.UTF_8
+
+import org.neo4j.cypher.internal.PathImpl
+import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.{MutableMaps, QueryState}
+import org.neo4j.graphdb.{Node, Path, PropertyContainer, Relationship}
+
+import scala.collection.JavaConverters._
+
+/*
+Writes rows to spill files and reads them back. Nodes and relationships are written as ids and looked up again when
+read, so spilled rows only hold on to the values that the query computed.
+ */
+object RowSerializer {
+  private final val NULL = 0
+  private final val TRUE = 1
+  private final val FALSE = 2
+  private final val BYTE = 3
+  private final val SHORT = 4
+  private final val INT = 5
+  private final val LONG = 6
+  private final val FLOAT = 7
+  private final val DOUBLE = 8
+  private final val CHAR = 9
+  private final val STRING = 10
+  private final val NODE = 11
+  private final val RELATIONSHIP = 12
+  private final val PATH = 13
+  private final val COLLECTION = 14
+  private final val MAP = 15
+  private final val ARRAY = 16
+
+  def write(out: DataOutput, row: ExecutionContext) {
+    out.writeInt(row.size)
+    row.foreach {
+      case (key, value) =>
+        writeString(out, key)
+        writeValue(out, value)
+    }
+  }
+
+  def read(in: DataInput, state: QueryState): ExecutionContext = {
+    val size = in.readInt()
+    val map = MutableMaps.create(size)
+    var i = 0
+    while (i < size) {
+      map.put(readString(in), readValue(in, state))
+      i += 1
+    }
+    ExecutionContext(map)
+  }
+
+  private def writeValue(out: DataOutput, value: Any): Unit = value match {
+    case null                 => out.writeByte(NULL)
+    case x: Boolean           => out.writeByte(if (x) TRUE else FALSE)
+    case x: Byte              => out.writeByte(BYTE); out.writeByte(x)
+    case x: Short             => out.writeByte(SHORT); out.writeShort(x)
+    case x: Int               => out.writeByte(INT); out.writeInt(x)
+    case x: Long              => out.writeByte(LONG); out.writeLong(x)
+    case x: Float             => out.writeByte(FLOAT); out.writeFloat(x)
+    case x: Double            => out.writeByte(DOUBLE); out.writeDouble(x)
+    case x: Char              => out.writeByte(CHAR); out.writeChar(x)
+    case x: String            => out.writeByte(STRING); writeString(out, x)
+    case x: Node              => out.writeByte(NODE); out.writeLong(x.getId)
+    case x: Relationship      => out.writeByte(RELATIONSHIP); out.writeLong(x.getId)
+    case x: Path              => out.writeByte(PATH); writeCollection(out, x.iterator().asScala.toSeq)
+    case x: Array[_]          => out.writeByte(ARRAY); writeArray(out, x)
+    case x: collection.Map[_, _] => out.writeByte(MAP); writeMap(out, x)
+    case x: java.util.Map[_, _]  => out.writeByte(MAP); writeMap(out, x.asScala)
+    case x: Traversable[_]    => out.writeByte(COLLECTION); writeCollection(out, x.toSeq)
+    case x: java.lang.Iterable[_] => out.writeByte(COLLECTION); writeCollection(out, x.asScala.toSeq)
+    case x                    => throw new UnspillableValueException(x)
+  }
+
+  private def readValue(in: DataInput, state: QueryState): Any = in.readByte() match {
+    case NULL         => null
+    case TRUE         => true
+    case FALSE        => false
+    case BYTE         => in.readByte()
+    case SHORT        => in.readShort()
+    case INT          => in.readInt()
+    case LONG         => in.readLong()
+    case FLOAT        => in.readFloat()
+    case DOUBLE       => in.readDouble()
+    case CHAR         => in.readChar()
+    case STRING       => readString(in)
+    case NODE         => state.query.nodeOps.getById(in.readLong())
+    case RELATIONSHIP => state.query.relationshipOps.getById(in.readLong())
+    case PATH         => new PathImpl(readCollection(in, state).map(_.asInstanceOf[PropertyContainer]): _*)
+    case COLLECTION   => readCollection(in, state)
+    case MAP          => readMap(in, state)
+    case ARRAY        => readArray(in, state)
+  }
+
+  private def writeCollection(out: DataOutput, values: Seq[Any]) {
+    out.writeInt(values.size)
+    values.foreach(writeValue(out, _))
+  }
+
+  private def readCollection(in: DataInput, state: QueryState): List[Any] =
+    List.fill(in.readInt())(readValue(in, state))
+
+  private def writeMap(out: DataOutput, map: collection.Map[_, _]) {
+    out.writeInt(map.size)
+    map.foreach {
+      case (key: String, value) =>
+        writeString(out, key)
+        writeValue(out, value)
+      case (key, _) =>
+        throw new UnspillableValueException(key)
+    }
+  }
+
+  private def readMap(in: DataInput, state: QueryState): Map[String, Any] =
+    Seq.fill(in.readInt())(readString(in) -> readValue(in, state)).toMap
+
+  // Arrays come from properties, and are written with their element type so that they read back as the same type
+  private def writeArray(out: DataOutput, array: Array[_]) {
+    out.writeInt(array.length)
+    array match {
+      case x: Array[Boolean] => out.writeByte(TRUE); x.foreach(out.writeBoolean(_))
+      case x: Array[Byte]    => out.writeByte(BYTE); x.foreach(out.writeByte(_))
+      case x: Array[Short]   => out.writeByte(SHORT); x.foreach(out.writeShort(_))
+      case x: Array[Int]     => out.writeByte(INT); x.foreach(out.writeInt)
+      case x: Array[Long]    => out.writeByte(LONG); x.foreach(out.writeLong)
+      case x: Array[Float]   => out.writeByte(FLOAT); x.foreach(out.writeFloat)
+      case x: Array[Double]  => out.writeByte(DOUBLE); x.foreach(out.writeDouble)
+      case x: Array[Char]    => out.writeByte(CHAR); x.foreach(out.writeChar(_))
+      case x: Array[String]  => out.writeByte(STRING); x.foreach(writeString(out, _))
+      case x                 => throw new UnspillableValueException(x)
+    }
+  }
+
+  private def readArray(in: DataInput, state: QueryState): Array[_] = {
+    val length = in.readInt()
+    in.readByte() match {
+      case TRUE   => Array.fill(length)(in.readBoolean())
+      case BYTE   => Array.fill(length)(in.readByte())
+      case SHORT  => Array.fill(length)(in.readShort())
+      case INT    => Array.fill(length)(in.readInt())
+      case LONG   => Array.fill(length)(in.readLong())
+      case FLOAT  => Array.fill(length)(in.readFloat())
+      case DOUBLE => Array.fill(length)(in.readDouble())
+      case CHAR   => Array.fill(length)(in.readChar())
+      case STRING => Array.fill(length)(readString(in))
+    }
+  }
+
+  private def writeString(out: DataOutput, value: String) {
+    val bytes = value.getBytes(UTF_8)
+    out.writeInt(bytes.length)
+    out.write(bytes)
+  }
+
+  private def readString(in: DataInput): String = {
+    val bytes = new Array[Byte](in.readInt())
+    in.readFully(bytes)
+    new String(bytes, UTF_8)
+  }
+}
+
+class UnspillableValueException(value: Any) extends RuntimeException(s"Can not spill $value to disk")
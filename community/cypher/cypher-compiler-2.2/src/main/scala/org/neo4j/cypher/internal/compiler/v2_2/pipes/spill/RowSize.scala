@@ -0,0 +1,52 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes.spill
+
+import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext
+import org.neo4j.graphdb.{Path, PropertyContainer}
+
+/*
+A rough estimate of the heap that a row takes up, good enough to decide when to spill, but not meant to be exact.
+ */
+object RowSize {
+  private final val OBJECT = 16L
+  private final val ENTRY = 48L
+
+  def estimate(row: ExecutionContext): Long = {
+    var size = OBJECT * 4
+    row.foreach {
+      case (key, value) => size += ENTRY + stringSize(key) + valueSize(value)
+    }
+    size
+  }
+
+  private def valueSize(value: Any): Long = value match {
+    case null                    => 0
+    case x: String               => stringSize(x)
+    case x: PropertyContainer    => OBJECT * 2
+    case x: Path                 => OBJECT + x.length() * OBJECT * 4
+    case x: Array[_]             => OBJECT + x.length * 8L
+    case x: collection.Map[_, _] => OBJECT + x.foldLeft(0L) { case (acc, (k, v)) => acc + ENTRY + valueSize(k) + valueSize(v) }
+    case x: Traversable[_]       => OBJECT + x.foldLeft(0L)((acc, v) => acc + OBJECT + valueSize(v))
+    case _                       => OBJECT
+  }
+
+  private def stringSize(value: String): Long = OBJECT * 3 + value.length * 2L
+}
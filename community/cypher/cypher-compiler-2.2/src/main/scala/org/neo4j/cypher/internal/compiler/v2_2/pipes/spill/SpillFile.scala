@@ -0,0 +1,88 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes.spill
+
+import java.io._
+
+import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.{Pipe, QueryState}
+
+/*
+A file of spilled rows. Rows are written through a buffer first, so that a row holding a value that can not be
+spilled leaves the file as it was.
+ */
+class SpillFile(pipe: Pipe, state: QueryState) {
+  private val file = state.memory.newSpillFile(pipe)
+  private val out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), SpillFile.BUFFER_SIZE))
+  private val rowBytes = new ByteArrayOutputStream()
+  private val rowOut = new DataOutputStream(rowBytes)
+  private var rows = 0L
+
+  def size: Long = rows
+
+  // Returns false, and leaves the file untouched, if the row can not be spilled
+  def write(row: ExecutionContext): Boolean = {
+    rowBytes.reset()
+    try {
+      RowSerializer.write(rowOut, row)
+    } catch {
+      case _: UnspillableValueException => return false
+    }
+    rowBytes.writeTo(out)
+    rows += 1
+    state.memory.spilled(pipe, 1)
+    true
+  }
+
+  def discard() {
+    out.close()
+    state.memory.deleteSpillFile(file)
+  }
+
+  // Reads the rows back in the order they were written, and deletes the file once all rows have been read
+  def read(): Iterator[ExecutionContext] = {
+    out.close()
+    if (rows == 0) {
+      state.memory.deleteSpillFile(file)
+      Iterator.empty
+    } else new Iterator[ExecutionContext] {
+      private val in = new DataInputStream(new BufferedInputStream(new FileInputStream(file), SpillFile.BUFFER_SIZE))
+      private var left = rows
+
+      def hasNext: Boolean = left > 0
+
+      def next(): ExecutionContext = {
+        if (left == 0)
+          Iterator.empty.next()
+        val row = RowSerializer.read(in, state)
+        left -= 1
+        if (left == 0) {
+          in.close()
+          state.memory.deleteSpillFile(file)
+        }
+        row
+      }
+    }
+  }
+}
+
+object SpillFile {
+  val BUFFER_SIZE = 64 * 1024
+}
@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes.spill
+
+import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.{Pipe, QueryState}
+
+/*
+Spills rows to a fixed number of files by the hash of their key, so that all rows with the same key end up in the
+same partition, and each partition can be processed on its own once all rows have been seen.
+ */
+class SpillPartitions(pipe: Pipe, state: QueryState, count: Int = SpillPartitions.DEFAULT_COUNT) {
+  private val files = new Array[SpillFile](count)
+  private var spilled = 0L
+
+  def isEmpty: Boolean = spilled == 0
+
+  // Returns false if the row can not be spilled
+  def add(hash: Int, row: ExecutionContext): Boolean = {
+    val partition = (hash & Int.MaxValue) % count
+    if (files(partition) == null)
+      files(partition) = new SpillFile(pipe, state)
+    val written = files(partition).write(row)
+    if (written)
+      spilled += 1
+    written
+  }
+
+  // The rows of each partition in turn, each partition only being read once the previous one is done with
+  def partitions: Iterator[Iterator[ExecutionContext]] =
+    files.iterator.filter(_ != null).map(_.read())
+}
+
+object SpillPartitions {
+  val DEFAULT_COUNT = 16
+}
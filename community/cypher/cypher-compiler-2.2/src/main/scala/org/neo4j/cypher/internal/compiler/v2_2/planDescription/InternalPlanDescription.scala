@@ -73,6 +73,7 @@ object InternalPlanDescription {
   object Arguments {
     case class Rows(value: Long) extends Argument
     case class DbHits(value: Long) extends Argument
+    case class Spilled(rows: Long, files: Long) extends Argument
     case class ColumnsLeft(value: Seq[String]) extends Argument
     case class LegacyExpression(value: commands.expressions.Expression) extends Argument
     case class UpdateActionName(value: String) extends Argument
@@ -36,6 +36,7 @@ object PlanDescriptionArgumentSerializer {
       case KeyNames(keys) => keys.mkString(SEPARATOR)
       case KeyExpressions(expressions) => expressions.mkString(SEPARATOR)
       case DbHits(value) => value.toString
+      case Spilled(rows, files) => s"spilled $rows rows to $files files"
       case _: EntityByIdRhs => arg.toString
       case Rows(value) => value.toString
       case EstimatedRows(value) => value.toString
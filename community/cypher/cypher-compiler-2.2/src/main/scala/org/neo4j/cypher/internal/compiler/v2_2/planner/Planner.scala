@@ -51,7 +51,7 @@ case class Planner(monitors: Monitors,
         monitor.startedPlanning(inputQuery.queryText)
         val (logicalPlan, pipeBuildContext) = produceLogicalPlan(ast, inputQuery.semanticTable)(planContext)
         monitor.foundPlan(inputQuery.queryText, logicalPlan)
-        val result = executionPlanBuilder.build(logicalPlan)(pipeBuildContext, planContext)
+        val result = executionPlanBuilder.build(logicalPlan, inputQuery.runtime)(pipeBuildContext, planContext)
         monitor.successfulPlanning(inputQuery.queryText, result)
         result
 
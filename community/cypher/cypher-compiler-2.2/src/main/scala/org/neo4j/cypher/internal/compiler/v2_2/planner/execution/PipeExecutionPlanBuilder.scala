@@ -28,7 +28,8 @@ import org.neo4j.cypher.internal.compiler.v2_2.ast.convert.commands.PatternConve
 import org.neo4j.cypher.internal.compiler.v2_2.ast.convert.commands.StatementConverters
 import org.neo4j.cypher.internal.compiler.v2_2.ast.rewriters.projectNamedPaths
 import org.neo4j.cypher.internal.compiler.v2_2.ast.{Expression, Identifier, NodeStartItem, RelTypeName}
-import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions.{AggregationExpression, Expression => CommandExpression}
+import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions.{AggregationExpression, SlottedIdentifier, Expression => CommandExpression, Identifier => CommandIdentifier}
+import org.neo4j.cypher.internal.compiler.v2_2.codegen.{CodeGenerator, CompiledPipe, CompiledPlan}
 import org.neo4j.cypher.internal.compiler.v2_2.commands.{EntityProducerFactory, True, Predicate => CommandPredicate}
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.{PlanFingerprint, PipeInfo}
 import org.neo4j.cypher.internal.compiler.v2_2.executionplan.builders.prepare.KeyTokenResolver
@@ -49,9 +50,19 @@ class PipeExecutionPlanBuilder(monitors: Monitors) {
 
   val entityProducerFactory = new EntityProducerFactory
   val resolver = new KeyTokenResolver
+  val codeGenerator = new CodeGenerator
 
-  def build(plan: LogicalPlan)(implicit context: PipeExecutionBuilderContext, planContext: PlanContext): PipeInfo = {
+  def build(plan: LogicalPlan, runtime: RuntimeName = InterpretedRuntime)
+           (implicit context: PipeExecutionBuilderContext, planContext: PlanContext): PipeInfo = {
     val updating = false
+    val layout = slotLayoutOf(plan)
+    val slots = Some(layout)
+
+    // The largest subtree that can be compiled is run as a single pipe, the rest is interpreted
+    object Compiled {
+      def unapply(plan: LogicalPlan): Option[CompiledPlan] =
+        if (runtime == CompiledRuntime) codeGenerator.generate(plan) else None
+    }
 
     object buildPipeExpressions extends Rewriter {
       val instance = Rewriter.lift {
@@ -68,19 +79,28 @@ class PipeExecutionPlanBuilder(monitors: Monitors) {
     def buildExpression(expr: ast.Expression): CommandExpression = {
       val rewrittenExpr = expr.endoRewrite(buildPipeExpressions)
 
-      rewrittenExpr.asCommandExpression.rewrite(resolver.resolveExpressions(_, planContext))
+      rewrittenExpr.asCommandExpression.rewrite(resolver.resolveExpressions(_, planContext)).rewrite(slotIdentifiers)
     }
 
     def buildPredicate(expr: ast.Expression): CommandPredicate = {
       val rewrittenExpr: Expression = expr.endoRewrite(buildPipeExpressions)
 
-      rewrittenExpr.asCommandPredicate.rewrite(resolver.resolveExpressions(_, planContext)).asInstanceOf[CommandPredicate]
+      rewrittenExpr.asCommandPredicate.rewrite(resolver.resolveExpressions(_, planContext)).rewrite(slotIdentifiers).asInstanceOf[CommandPredicate]
+    }
+
+    def slotIdentifiers(expr: CommandExpression): CommandExpression = expr match {
+      case identifier: SlottedIdentifier => identifier
+      case CommandIdentifier(name) if layout.slot(name) != null => new SlottedIdentifier(name, layout.identifierSlot(name))
+      case _                                                    => expr
     }
 
     def buildPipe(plan: LogicalPlan): Pipe = {
       implicit val monitor = monitors.newMonitor[PipeMonitor]()
 
       val result: Pipe with RonjaPipe = plan match {
+        case Compiled(compiledPlan) =>
+          CompiledPipe(compiledPlan)()
+
         case Projection(left, expressions) =>
           ProjectionNewPipe(buildPipe(left), Eagerly.immutableMapValues(expressions, buildExpression))()
 
@@ -91,10 +111,10 @@ class PipeExecutionPlanBuilder(monitors: Monitors) {
           NullPipe(new SymbolTable(sr.typeInfo))
 
         case AllNodesScan(IdName(id), _) =>
-          AllNodesScanPipe(id)()
+          AllNodesScanPipe(id)(slots = slots)
 
         case NodeByLabelScan(IdName(id), label, _) =>
-          NodeByLabelScanPipe(id, label)()
+          NodeByLabelScanPipe(id, label)(slots = slots)
 
         case NodeByIdSeek(IdName(id), nodeIdExpr, _) =>
           NodeByIdSeekPipe(id, nodeIdExpr.asEntityByIdRhs)()
@@ -111,6 +131,12 @@ class PipeExecutionPlanBuilder(monitors: Monitors) {
         case NodeIndexUniqueSeek(IdName(id), label, propertyKey, valueExpr, _) =>
           NodeIndexSeekPipe(id, label, propertyKey, valueExpr.map(buildExpression), unique = true)()
 
+        case NodeIndexRangeSeek(IdName(id), label, propertyKey, range, _) =>
+          NodeIndexRangeSeekPipe(id, label, propertyKey, range.map(buildExpression))()
+
+        case NodeCompositeIndexSeek(IdName(id), label, propertyKeys, valueExprs, _) =>
+          NodeCompositeIndexSeekPipe(id, label, propertyKeys, valueExprs.map(buildExpression))()
+
         case Selection(predicates, left) =>
           FilterPipe(buildPipe(left), predicates.map(buildPredicate).reduce(_ ++ _))()
 
@@ -121,9 +147,9 @@ class PipeExecutionPlanBuilder(monitors: Monitors) {
           implicit val table: SemanticTable = context.semanticTable
 
           if (types.exists(_.id == None))
-            ExpandPipeForStringTypes(buildPipe(left), fromName, relName, toName, dir, types.map(_.name))()
+            ExpandPipeForStringTypes(buildPipe(left), fromName, relName, toName, dir, types.map(_.name))(slots = slots)
           else {
-            ExpandPipeForIntTypes(buildPipe(left), fromName, relName, toName, dir, types.flatMap(_.id).map(_.id))()
+            ExpandPipeForIntTypes(buildPipe(left), fromName, relName, toName, dir, types.flatMap(_.id).map(_.id))(slots = slots)
           }
 
         case Expand(left, IdName(fromName), dir, projectedDir, types, IdName(toName), IdName(relName), VarPatternLength(min, max), predicates) =>
@@ -243,6 +269,39 @@ class PipeExecutionPlanBuilder(monitors: Monitors) {
       case _ =>
         None
     }
-    PipeInfo(topLevelPipe, updating, None, fingerprint, Ronja)
+    PipeInfo(topLevelPipe, updating, None, fingerprint, Ronja, slots)
   }
+
+  // Identifiers that plans bind to nodes or relationships get long slots, which hold just the id of the entity
+  private def slotLayoutOf(plan: LogicalPlan): SlotLayout = {
+    val nodes = Seq.newBuilder[String]
+    val relationships = Seq.newBuilder[String]
+
+    def collect(plan: LogicalPlan) {
+      plan match {
+        case AllNodesScan(IdName(id), _) => nodes += id
+        case NodeByLabelScan(IdName(id), _, _) => nodes += id
+        case NodeByIdSeek(IdName(id), _, _) => nodes += id
+        case NodeIndexSeek(IdName(id), _, _, _, _) => nodes += id
+        case NodeIndexUniqueSeek(IdName(id), _, _, _, _) => nodes += id
+        case NodeIndexRangeSeek(IdName(id), _, _, _, _) => nodes += id
+        case NodeCompositeIndexSeek(IdName(id), _, _, _, _) => nodes += id
+        case Expand(_, IdName(from), _, _, _, IdName(to), IdName(rel), SimplePatternLength, _) =>
+          nodes += from += to
+          relationships += rel
+        case OptionalExpand(_, IdName(from), _, _, IdName(to), IdName(rel), SimplePatternLength, _) =>
+          nodes += from += to
+          relationships += rel
+        case _ =>
+      }
+      plan.lhs.foreach(collect)
+      plan.rhs.foreach(collect)
+    }
+
+    collect(plan)
+    SlotLayout(nodes.result(), relationships.result(), identifiersOf(plan))
+  }
+
+  private def identifiersOf(plan: LogicalPlan): Seq[String] =
+    plan.availableSymbols.toSeq.map(_.name) ++ plan.lhs.toSeq.flatMap(identifiersOf) ++ plan.rhs.toSeq.flatMap(identifiersOf)
 }
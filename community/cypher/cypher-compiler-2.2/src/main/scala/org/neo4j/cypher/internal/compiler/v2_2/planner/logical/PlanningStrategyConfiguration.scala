@@ -41,9 +41,15 @@ object PlanningStrategyConfiguration {
       // MATCH n WHERE n.prop = {val} RETURN n
       uniqueIndexSeekLeafPlanner,
 
+      // MATCH n WHERE n.prop1 = {val1} AND n.prop2 = {val2} RETURN n
+      compositeIndexSeekLeafPlanner,
+
       // MATCH n WHERE n.prop = {val} RETURN n
       indexSeekLeafPlanner,
 
+      // MATCH n WHERE n.prop > {val} RETURN n
+      indexRangeSeekLeafPlanner,
+
       // MATCH (n:Person) RETURN n
       labelScanLeafPlanner,
 
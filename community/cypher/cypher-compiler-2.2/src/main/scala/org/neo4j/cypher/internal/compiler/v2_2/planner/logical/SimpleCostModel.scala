@@ -64,6 +64,12 @@ class SimpleCostModel(cardinality: CardinalityModel) extends CostModel {
     case NodeIndexUniqueSeek(_, _, _, ManyQueryExpression(_), _) =>
       cardinality(plan) * INDEX_OVERHEAD_COST_PER_ROW * 10 // This is a wild guess.
 
+    case _: NodeIndexRangeSeek =>
+      cardinality(plan) * INDEX_OVERHEAD_COST_PER_ROW
+
+    case _: NodeCompositeIndexSeek =>
+      cardinality(plan) * INDEX_OVERHEAD_COST_PER_ROW
+
     case _: NodeByLabelScan =>
       cardinality(plan) * LABEL_INDEX_OVERHEAD_COST_PER_ROW
 
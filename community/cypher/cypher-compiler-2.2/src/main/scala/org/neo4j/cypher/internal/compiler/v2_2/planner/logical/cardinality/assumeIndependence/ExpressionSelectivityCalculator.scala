@@ -45,6 +45,17 @@ case class ExpressionSelectivityCalculator(stats: GraphStatistics, combiner: Sel
     case In(Property(Identifier(name), propertyKey), Collection(expressions)) =>
       calculateSelectivityForPropertyEquality(name, expressions, selections, propertyKey)
 
+    // WHERE x.prop > {value}, or any other inequality on a property
+    case LessThan(Property(_, _), _) | LessThanOrEqual(Property(_, _), _) |
+         GreaterThan(Property(_, _), _) | GreaterThanOrEqual(Property(_, _), _) |
+         LessThan(_, Property(_, _)) | LessThanOrEqual(_, Property(_, _)) |
+         GreaterThan(_, Property(_, _)) | GreaterThanOrEqual(_, Property(_, _)) =>
+      DEFAULT_RANGE_SELECTIVITY
+
+    // WHERE x.prop =~ {regex}
+    case RegexMatch(Property(_, _), _) =>
+      DEFAULT_RANGE_SELECTIVITY
+
     // WHERE NOT [...]
     case Not(inner) =>
       apply(inner).negate
@@ -20,7 +20,7 @@
 package org.neo4j.cypher.internal.compiler.v2_2.planner.logical.steps
 
 import org.neo4j.cypher.internal.compiler.v2_2.ast._
-import org.neo4j.cypher.internal.compiler.v2_2.commands.QueryExpression
+import org.neo4j.cypher.internal.compiler.v2_2.commands.{QueryExpression, SeekRange}
 import org.neo4j.cypher.internal.compiler.v2_2.pipes.SortDescription
 import org.neo4j.cypher.internal.compiler.v2_2.planner._
 import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.plans.{Limit => LimitPlan, Skip => SkipPlan, _}
@@ -146,6 +146,36 @@ object LogicalPlanProducer {
     )
   }
 
+  def planNodeIndexRangeSeek(idName: IdName,
+                             label: ast.LabelToken,
+                             propertyKey: ast.PropertyKeyToken,
+                             range: SeekRange[Expression],
+                             solvedPredicates: Seq[Expression] = Seq.empty,
+                             solvedHint: Option[UsingIndexHint] = None,
+                             argumentIds: Set[IdName]) =
+    NodeIndexRangeSeek(idName, label, propertyKey, range, argumentIds)(
+      PlannerQuery(graph = QueryGraph.empty
+        .addPatternNodes(idName)
+        .addPredicates(solvedPredicates: _*)
+        .addHints(solvedHint)
+        .addArgumentId(argumentIds.toSeq)
+      )
+    )
+
+  def planNodeCompositeIndexSeek(idName: IdName,
+                                 label: ast.LabelToken,
+                                 propertyKeys: Seq[ast.PropertyKeyToken],
+                                 valueExprs: Seq[Expression],
+                                 solvedPredicates: Seq[Expression] = Seq.empty,
+                                 argumentIds: Set[IdName]) =
+    NodeCompositeIndexSeek(idName, label, propertyKeys, valueExprs, argumentIds)(
+      PlannerQuery(graph = QueryGraph.empty
+        .addPatternNodes(idName)
+        .addPredicates(solvedPredicates: _*)
+        .addArgumentId(argumentIds.toSeq)
+      )
+    )
+
   def planLegacyHintSeek(idName: IdName, hint: LegacyIndexHint, argumentIds: Set[IdName]) = {
     LegacyIndexSeek(idName, hint, argumentIds)(
       PlannerQuery(graph = QueryGraph.empty
@@ -314,6 +344,24 @@ object LogicalPlanProducer {
          .withSortItems(items))))
     )
 
+  def planLimitOnSortedInput(inner: LogicalPlan, limit: Expression, items: Seq[ast.SortItem]) =
+    LimitPlan(inner, limit)(
+      inner.solved.updateTailOrSelf(_.updateQueryProjection(_.updateShuffle(
+        _.withLimitExpression(limit)
+         .withSortItems(items))))
+    )
+
+  def planSkipAndLimitOnSortedInput(inner: LogicalPlan, skip: Expression, limit: Expression, items: Seq[ast.SortItem]) =
+    planSkip(
+      LimitPlan(inner, ast.Add(limit, skip)(limit.position))(
+        inner.solved.updateTailOrSelf(_.updateQueryProjection(_.updateShuffle(
+          _.withSkipExpression(skip)
+           .withLimitExpression(limit)
+           .withSortItems(items))))
+      ),
+      skip
+    )
+
   def planSortedSkipAndLimit(inner: LogicalPlan, skip: Expression, limit: Expression, items: Seq[ast.SortItem]) =
     planSkip(
       SortedLimit(inner, ast.Add(limit, skip)(limit.position), items)(
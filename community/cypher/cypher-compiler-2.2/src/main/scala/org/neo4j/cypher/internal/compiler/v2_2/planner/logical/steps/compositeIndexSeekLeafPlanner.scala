@@ -0,0 +1,75 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.planner.logical.steps
+
+import org.neo4j.cypher.internal.compiler.v2_2.ast._
+import org.neo4j.cypher.internal.compiler.v2_2.planner.{QueryGraph, SemanticTable}
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.plans.IdName
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.steps.LogicalPlanProducer._
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.{LeafPlanner, LogicalPlanningContext}
+import org.neo4j.cypher.internal.compiler.v2_2.PropertyKeyId
+import org.neo4j.kernel.api.index.IndexDescriptor
+
+/*
+ * Plans composite index seeks when every property of a composite index is bound by an equality
+ * (MATCH n:Label WHERE n.a = {a} AND n.b = {b}).
+ *
+ * Equalities have already been rewritten to single element IN collections at this point.
+ */
+object compositeIndexSeekLeafPlanner extends LeafPlanner {
+
+  def apply(qg: QueryGraph)(implicit context: LogicalPlanningContext) = {
+    implicit val semanticTable = context.semanticTable
+    val labelPredicateMap: Map[IdName, Set[HasLabels]] = qg.selections.labelPredicates
+
+    val equalities = qg.selections.flatPredicates.collect {
+      case predicate @ In(Property(Identifier(name), propertyKeyName), Collection(Seq(ConstantExpression(value))))
+        if !qg.argumentIds.contains(IdName(name)) =>
+        name -> Equality(propertyKeyName, value, predicate)
+    }.groupBy(_._1).mapValues(_.map(_._2))
+
+    val plans = for ((name, bound) <- equalities.toSeq if bound.map(_.propertyKeyName).distinct.size > 1;
+                     labelPredicate <- labelPredicateMap.getOrElse(IdName(name), Set.empty).toSeq;
+                     labelName <- labelPredicate.labels;
+                     labelId <- labelName.id.toSeq;
+                     descriptor <- context.planContext.getCompositeIndexRules(labelName.name);
+                     keys <- equalitiesFor(descriptor, bound).toSeq)
+    yield {
+      planNodeCompositeIndexSeek(IdName(name), LabelToken(labelName, labelId),
+        keys.map(key => PropertyKeyToken(key.propertyKeyName, key.propertyKeyName.id.head)),
+        keys.map(_.value), keys.map(_.predicate) :+ labelPredicate, qg.argumentIds)
+    }
+
+    context.metrics.candidateListCreator(plans)
+  }
+
+  private case class Equality(propertyKeyName: PropertyKeyName, value: Expression, predicate: Expression)
+
+  /*
+   * The equalities binding the properties of the index, in the order of the index, if all of them are bound.
+   */
+  private def equalitiesFor(descriptor: IndexDescriptor, bound: Seq[Equality])
+                           (implicit semanticTable: SemanticTable): Option[Seq[Equality]] = {
+    val keys = descriptor.getPropertyKeyIds.toSeq.map {
+      id => bound.find(_.propertyKeyName.id == Some(PropertyKeyId(id)))
+    }
+    if (keys.forall(_.isDefined)) Some(keys.flatten) else None
+  }
+}
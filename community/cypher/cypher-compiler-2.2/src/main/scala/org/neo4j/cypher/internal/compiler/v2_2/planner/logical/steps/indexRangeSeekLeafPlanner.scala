@@ -0,0 +1,128 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.planner.logical.steps
+
+import org.neo4j.cypher.internal.compiler.v2_2.ast._
+import org.neo4j.cypher.internal.compiler.v2_2.commands.{Bound, InequalitySeekRange, LiteralPrefix, PrefixSeekRange}
+import org.neo4j.cypher.internal.compiler.v2_2.planner.QueryGraph
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.plans.{IdName, LogicalPlan}
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.steps.LogicalPlanProducer._
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.{LeafPlanner, LogicalPlanningContext}
+
+/*
+ * Plans index range seeks for inequalities on an indexed property (MATCH n WHERE n.prop > {val} AND n.prop < {val}),
+ * and for regular expressions that only match strings with a given prefix (MATCH n WHERE n.prop =~ 'prefix.*').
+ *
+ * All inequalities on the same property are planned as a single seek that uses at most one lower and one upper bound.
+ * Regular expressions are still evaluated on the result of the prefix seek, since '.' does not match line breaks,
+ * and since a regular expression given as a parameter may turn out not to have a literal prefix at all.
+ */
+object indexRangeSeekLeafPlanner extends LeafPlanner {
+
+  def apply(qg: QueryGraph)(implicit context: LogicalPlanningContext) = {
+    implicit val semanticTable = context.semanticTable
+    val labelPredicateMap: Map[IdName, Set[HasLabels]] = qg.selections.labelPredicates
+
+    def producePlansFor(name: String, propertyKeyName: PropertyKeyName)
+                       (plan: (IdName, LabelToken, PropertyKeyToken, HasLabels, Option[UsingIndexHint]) => LogicalPlan) = {
+      val idName = IdName(name)
+      for (labelPredicate <- labelPredicateMap.getOrElse(idName, Set.empty);
+           labelName <- labelPredicate.labels;
+           indexDescriptor <- context.planContext.getIndexRule(labelName.name, propertyKeyName.name);
+           labelId <- labelName.id)
+      yield {
+        val propertyName = propertyKeyName.name
+        val hint = qg.hints.collectFirst {
+          case hint @ UsingIndexHint(Identifier(`name`), `labelName`, Identifier(`propertyName`)) => hint
+        }
+        plan(idName, LabelToken(labelName, labelId), PropertyKeyToken(propertyKeyName, propertyKeyName.id.head), labelPredicate, hint)
+      }
+    }
+
+    val predicates = qg.selections.flatPredicates.filter {
+      case AsIndexedProperty(name, _) => !qg.argumentIds.contains(IdName(name))
+      case _ => false
+    }
+
+    val inequalityPlans = predicates.collect {
+      case predicate @ AsInequality(name, propertyKeyName, _) => (name, propertyKeyName, predicate)
+    }.groupBy {
+      case (name, propertyKeyName, _) => (name, propertyKeyName)
+    }.toSeq.flatMap {
+      case ((name, propertyKeyName), inequalities) =>
+        val bounds = inequalities.map { case (_, _, predicate @ AsInequality(_, _, bound)) => (predicate, bound) }
+        val lower = bounds.collectFirst { case (predicate, Left(bound)) => (predicate, bound) }
+        val upper = bounds.collectFirst { case (predicate, Right(bound)) => (predicate, bound) }
+        val range = InequalitySeekRange(lower.map(_._2), upper.map(_._2))
+        val solvedPredicates = (lower ++ upper).map(_._1).toSeq
+
+        producePlansFor(name, propertyKeyName) {
+          (idName, label, propertyKey, labelPredicate, hint) =>
+            planNodeIndexRangeSeek(idName, label, propertyKey, range, solvedPredicates :+ labelPredicate, hint, qg.argumentIds)
+        }
+    }
+
+    val prefixPlans = predicates.collect {
+      case predicate @ RegexMatch(Property(Identifier(name), propertyKeyName), regex @ PrefixRegex()) =>
+        producePlansFor(name, propertyKeyName) {
+          (idName, label, propertyKey, labelPredicate, hint) =>
+            val seek = planNodeIndexRangeSeek(idName, label, propertyKey, PrefixSeekRange(regex),
+              Seq(predicate, labelPredicate), hint, qg.argumentIds)
+            planSelection(Seq(predicate), seek)
+        }
+    }.flatten
+
+    context.metrics.candidateListCreator(inequalityPlans ++ prefixPlans)
+  }
+
+  private object AsIndexedProperty {
+    def unapply(predicate: Expression): Option[(String, PropertyKeyName)] = predicate match {
+      case AsInequality(name, propertyKeyName, _) => Some((name, propertyKeyName))
+      case RegexMatch(Property(Identifier(name), propertyKeyName), _) => Some((name, propertyKeyName))
+      case _ => None
+    }
+  }
+
+  /*
+   * Extracts the identifier, property and bound of an inequality between a property and a constant,
+   * where a lower bound is Left and an upper bound is Right.
+   */
+  private object AsInequality {
+    def unapply(predicate: Expression): Option[(String, PropertyKeyName, Either[Bound[Expression], Bound[Expression]])] = predicate match {
+      case GreaterThan(Property(Identifier(name), key), ConstantExpression(value)) => Some((name, key, Left(Bound(value, inclusive = false))))
+      case GreaterThanOrEqual(Property(Identifier(name), key), ConstantExpression(value)) => Some((name, key, Left(Bound(value, inclusive = true))))
+      case LessThan(Property(Identifier(name), key), ConstantExpression(value)) => Some((name, key, Right(Bound(value, inclusive = false))))
+      case LessThanOrEqual(Property(Identifier(name), key), ConstantExpression(value)) => Some((name, key, Right(Bound(value, inclusive = true))))
+      case GreaterThan(ConstantExpression(value), Property(Identifier(name), key)) => Some((name, key, Right(Bound(value, inclusive = false))))
+      case GreaterThanOrEqual(ConstantExpression(value), Property(Identifier(name), key)) => Some((name, key, Right(Bound(value, inclusive = true))))
+      case LessThan(ConstantExpression(value), Property(Identifier(name), key)) => Some((name, key, Left(Bound(value, inclusive = false))))
+      case LessThanOrEqual(ConstantExpression(value), Property(Identifier(name), key)) => Some((name, key, Left(Bound(value, inclusive = true))))
+      case _ => None
+    }
+  }
+
+  private object PrefixRegex {
+    def unapply(regex: Expression): Boolean = regex match {
+      case StringLiteral(LiteralPrefix(_)) => true
+      case _: Parameter => true
+      case _ => false
+    }
+  }
+}
@@ -21,6 +21,7 @@ package org.neo4j.cypher.internal.compiler.v2_2.planner.logical.steps
 
 import org.neo4j.cypher.internal.compiler.v2_2.ast
 import org.neo4j.cypher.internal.compiler.v2_2.ast.Identifier
+import org.neo4j.cypher.internal.compiler.v2_2.commands.{ManyQueryExpression, PrefixSeekRange, QueryExpression, SeekRange, SingleQueryExpression}
 import org.neo4j.cypher.internal.compiler.v2_2.pipes.{Ascending, Descending, SortDescription}
 import org.neo4j.cypher.internal.compiler.v2_2.planner.logical._
 import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.plans._
@@ -37,6 +38,12 @@ object sortSkipAndLimit extends PlanTransformer[PlannerQuery] {
         case (Nil, s, l) =>
           addLimit(l, addSkip(s, plan))
 
+        case (sortItems, None, Some(l)) if sortedBy(plan, sortItems) =>
+          planLimitOnSortedInput(plan, l, sortItems)
+
+        case (sortItems, Some(s), Some(l)) if sortedBy(plan, sortItems) =>
+          planSkipAndLimitOnSortedInput(plan, s, l, sortItems)
+
         case (sortItems, None, Some(l)) =>
           planSortedLimit(plan, l, sortItems)
 
@@ -55,6 +62,76 @@ object sortSkipAndLimit extends PlanTransformer[PlannerQuery] {
     case _ => plan
   }
 
+  /*
+   * Rows that come from an index seek are already sorted on the indexed property when every row has the same value,
+   * as after an equality seek, or when the index seeks in order and the sort is ascending. Selections, expands and
+   * projections keep the order of the rows they are given, and so does an apply, of the rows of its left hand side.
+   */
+  private def sortedBy(plan: LogicalPlan, sortItems: Seq[ast.SortItem])(implicit context: LogicalPlanningContext): Boolean =
+    sortItems match {
+      case Seq(ast.AscSortItem(expression)) => sortedBy(plan, expression, ascending = true)
+      case Seq(ast.DescSortItem(expression)) => sortedBy(plan, expression, ascending = false)
+      case _ => false
+    }
+
+  private def sortedBy(plan: LogicalPlan, expression: ast.Expression, ascending: Boolean)
+                      (implicit context: LogicalPlanningContext): Boolean = (plan, expression) match {
+    case (NodeIndexSeek(idName, _, key, SingleValue(), _), IndexedProperty(name, propertyKey)) =>
+      idName.name == name && key.name == propertyKey
+    case (NodeIndexUniqueSeek(idName, _, key, SingleValue(), _), IndexedProperty(name, propertyKey)) =>
+      idName.name == name && key.name == propertyKey
+    case (NodeIndexRangeSeek(idName, label, key, range, _), IndexedProperty(name, propertyKey)) =>
+      ascending && idName.name == name && key.name == propertyKey && seeksInOrder(range) &&
+        context.planContext.getIndexRule(label.name, key.name).exists(context.planContext.indexSeeksInOrder)
+    case (Projection(left, expressions), _) =>
+      projected(expression, expressions).exists(sortedBy(left, _, ascending))
+    case (Apply(left, _), _) if expression.dependencies.forall(id => left.availableSymbols(IdName(id.name))) =>
+      sortedBy(left, expression, ascending)
+    case (Selection(_, left), _) =>
+      sortedBy(left, expression, ascending)
+    case (expand: Expand, _) =>
+      sortedBy(expand.left, expression, ascending)
+    case (expand: OptionalExpand, _) =>
+      sortedBy(expand.left, expression, ascending)
+    case _ =>
+      false
+  }
+
+  // The expression in terms of the input of a projection
+  private def projected(expression: ast.Expression, expressions: Map[String, ast.Expression]): Option[ast.Expression] =
+    expression match {
+      case ast.Identifier(name) =>
+        expressions.get(name)
+      case property @ ast.Property(ast.Identifier(name), propertyKey) =>
+        expressions.get(name).collect {
+          case identifier: ast.Identifier => ast.Property(identifier, propertyKey)(property.position)
+        }
+      case _ =>
+        None
+    }
+
+  private object IndexedProperty {
+    def unapply(expression: ast.Expression): Option[(String, String)] = expression match {
+      case ast.Property(ast.Identifier(name), ast.PropertyKeyName(propertyKey)) => Some((name, propertyKey))
+      case _ => None
+    }
+  }
+
+  // Equalities are planned as seeks for a collection of one value
+  private object SingleValue {
+    def unapply(expression: QueryExpression[ast.Expression]): Boolean = expression match {
+      case SingleQueryExpression(_) => true
+      case ManyQueryExpression(ast.Collection(Seq(_))) => true
+      case _ => false
+    }
+  }
+
+  // A regular expression given as a parameter may have no literal prefix, and then the label is scanned instead
+  private def seeksInOrder(range: SeekRange[ast.Expression]) = range match {
+    case PrefixSeekRange(_: ast.Parameter) => false
+    case _ => true
+  }
+
   private def sortDescription(in: ast.SortItem): SortDescription = in match {
     case ast.AscSortItem(ast.Identifier(key)) => Ascending(key)
     case ast.DescSortItem(ast.Identifier(key)) => Descending(key)
@@ -19,10 +19,11 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_2.profiler
 
+import org.neo4j.collection.primitive.PrimitiveLongIterator
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.InternalPlanDescription
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.InternalPlanDescription.Arguments
 import org.neo4j.cypher.internal.compiler.v2_2._
-import org.neo4j.cypher.internal.compiler.v2_2.pipes.{NullPipe, Pipe, PipeDecorator, QueryState}
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.{NullPipe, Pipe, PipeDecorator, QueryMemory, QueryState}
 import org.neo4j.cypher.internal.compiler.v2_2.spi.{DelegatingOperations, DelegatingQueryContext, Operations, QueryContext}
 import org.neo4j.graphdb.{Node, PropertyContainer, Relationship}
 
@@ -32,6 +33,7 @@ class Profiler extends PipeDecorator {
 
   val dbHitsStats: mutable.Map[Pipe, ProfilingQueryContext] = mutable.Map.empty
   val rowStats: mutable.Map[Pipe, ProfilingIterator] = mutable.Map.empty
+  private var memory: Option[QueryMemory] = None
 
 
   def decorate(pipe: Pipe, iter: Iterator[ExecutionContext]): Iterator[ExecutionContext] = {
@@ -51,6 +53,7 @@ class Profiler extends PipeDecorator {
     }
 
     dbHitsStats(pipe) = decoratedContext
+    memory = Some(state.memory)
     state.copy(query = decoratedContext)
   }
 
@@ -65,9 +68,13 @@ class Profiler extends PipeDecorator {
         val rows = rowStats.get(pipe).map(_.count).getOrElse(0L)
         val dbhits = dbHitsStats.get(pipe).map(_.count).getOrElse(0L)
 
-        input
+        val profiled = input
           .addArgument(Arguments.Rows(rows))
           .addArgument(Arguments.DbHits(dbhits))
+
+        memory.flatMap(_.spillStatistics(pipe)).fold(profiled) {
+          spilled => profiled.addArgument(Arguments.Spilled(spilled.rows, spilled.files))
+        }
     }
   }
 }
@@ -102,6 +109,18 @@ final class ProfilingQueryContext(val inner: QueryContext, val p: Pipe, startVal
     }
   }
 
+  override protected def manyDbHits(value: PrimitiveLongIterator): PrimitiveLongIterator = {
+    increment()
+    new PrimitiveLongIterator {
+      def hasNext: Boolean = value.hasNext
+
+      def next(): Long = {
+        increment()
+        value.next()
+      }
+    }
+  }
+
   class ProfilerOperations[T <: PropertyContainer](inner: Operations[T]) extends DelegatingOperations[T](inner) {
     override protected def singleDbHit[A](value: A): A = self.singleDbHit(value)
     override protected def manyDbHits[A](value: Iterator[A]): Iterator[A] = self.manyDbHits(value)
@@ -19,6 +19,7 @@
  */
 package org.neo4j.cypher.internal.compiler.v2_2.spi
 
+import org.neo4j.collection.primitive.PrimitiveLongIterator
 import org.neo4j.graphdb.{Relationship, PropertyContainer, Direction, Node}
 import org.neo4j.kernel.api.index.IndexDescriptor
 
@@ -26,6 +27,7 @@ class DelegatingQueryContext(inner: QueryContext) extends QueryContext {
 
   protected def singleDbHit[A](value: A): A = value
   protected def manyDbHits[A](value: Iterator[A]): Iterator[A] = value
+  protected def manyDbHits(value: PrimitiveLongIterator): PrimitiveLongIterator = value
 
   def isOpen: Boolean = inner.isOpen
 
@@ -77,8 +79,30 @@ class DelegatingQueryContext(inner: QueryContext) extends QueryContext {
 
   def exactIndexSearch(index: IndexDescriptor, value: Any): Iterator[Node] = manyDbHits(inner.exactIndexSearch(index, value))
 
+  def indexSeekByNumberRange(index: IndexDescriptor, lower: Number, includeLower: Boolean, upper: Number, includeUpper: Boolean): Iterator[Node] =
+    manyDbHits(inner.indexSeekByNumberRange(index, lower, includeLower, upper, includeUpper))
+
+  def indexSeekByStringRange(index: IndexDescriptor, lower: String, includeLower: Boolean, upper: String, includeUpper: Boolean): Iterator[Node] =
+    manyDbHits(inner.indexSeekByStringRange(index, lower, includeLower, upper, includeUpper))
+
+  def indexSeekByPrefix(index: IndexDescriptor, prefix: String): Iterator[Node] =
+    manyDbHits(inner.indexSeekByPrefix(index, prefix))
+
   def getNodesByLabel(id: Int): Iterator[Node] = manyDbHits(inner.getNodesByLabel(id))
 
+  def getAllNodesPrimitive: PrimitiveLongIterator = manyDbHits(inner.getAllNodesPrimitive)
+
+  def getNodesByLabelPrimitive(id: Int): PrimitiveLongIterator = manyDbHits(inner.getNodesByLabelPrimitive(id))
+
+  def exactIndexSearchPrimitive(index: IndexDescriptor, value: Any): PrimitiveLongIterator =
+    manyDbHits(inner.exactIndexSearchPrimitive(index, value))
+
+  def getRelationshipsForIdsPrimitive(node: Long, dir: Direction, types: Array[Int]): PrimitiveLongIterator =
+    manyDbHits(inner.getRelationshipsForIdsPrimitive(node, dir, types))
+
+  def getOtherNodeIdPrimitive(relationship: Long, node: Long): Long =
+    singleDbHit(inner.getOtherNodeIdPrimitive(relationship, node))
+
   def upgrade(context: QueryContext): LockingQueryContext = inner.upgrade(context)
 
   def getOrCreateFromSchemaState[K, V](key: K, creator: => V): V = singleDbHit(inner.getOrCreateFromSchemaState(key, creator))
@@ -113,6 +137,7 @@ class DelegatingOperations[T <: PropertyContainer](protected val inner: Operatio
 
   protected def singleDbHit[A](value: A): A = value
   protected def manyDbHits[A](value: Iterator[A]): Iterator[A] = value
+  protected def manyDbHits(value: PrimitiveLongIterator): PrimitiveLongIterator = value
 
   def delete(obj: T): Unit = singleDbHit(inner.delete(obj))
 
@@ -34,8 +34,18 @@ trait PlanContext extends TokenContext {
 
   def getIndexRule(labelName: String, propertyKey: String): Option[IndexDescriptor]
 
+  /**
+   * All online composite (multi-property) indexes for the given label
+   */
+  def getCompositeIndexRules(labelName: String): Seq[IndexDescriptor]
+
   def getUniqueIndexRule(labelName: String, propertyKey: String): Option[IndexDescriptor]
 
+  /**
+   * Whether range seeks in the given index return nodes in the order of the indexed property
+   */
+  def indexSeeksInOrder(index: IndexDescriptor): Boolean
+
   def getUniquenessConstraint(labelName: String, propertyKey: String): Option[UniquenessConstraint]
 
   def checkNodeIndex(idxName: String)
@@ -20,6 +20,7 @@
 
 package org.neo4j.cypher.internal.compiler.v2_2.spi
 
+import org.neo4j.collection.primitive.PrimitiveLongIterator
 import org.neo4j.cypher.internal.compiler.v2_2.InternalQueryStatistics
 import org.neo4j.graphdb._
 import org.neo4j.kernel.api.constraints.UniquenessConstraint
@@ -76,8 +77,28 @@ trait QueryContext extends TokenContext {
 
   def exactUniqueIndexSearch(index: IndexDescriptor, value: Any): Option[Node]
 
+  // A null bound leaves that end of the range open
+  def indexSeekByNumberRange(index: IndexDescriptor, lower: Number, includeLower: Boolean, upper: Number, includeUpper: Boolean): Iterator[Node]
+
+  def indexSeekByStringRange(index: IndexDescriptor, lower: String, includeLower: Boolean, upper: String, includeUpper: Boolean): Iterator[Node]
+
+  def indexSeekByPrefix(index: IndexDescriptor, prefix: String): Iterator[Node]
+
   def getNodesByLabel(id: Int): Iterator[Node]
 
+  // Id based reads for the compiled runtime, that only turns ids into entities for the rows it returns
+
+  def getAllNodesPrimitive: PrimitiveLongIterator
+
+  def getNodesByLabelPrimitive(id: Int): PrimitiveLongIterator
+
+  def exactIndexSearchPrimitive(index: IndexDescriptor, value: Any): PrimitiveLongIterator
+
+  // An empty array of types means relationships of any type
+  def getRelationshipsForIdsPrimitive(node: Long, dir: Direction, types: Array[Int]): PrimitiveLongIterator
+
+  def getOtherNodeIdPrimitive(relationship: Long, node: Long): Long
+
   def upgradeToLockingQueryContext: LockingQueryContext = upgrade(this)
 
   def upgrade(context: QueryContext): LockingQueryContext
@@ -49,6 +49,15 @@ final class RepeatableReadQueryContext(inner: QueryContext, locker: Locker) exte
   override def exactIndexSearch(index: IndexDescriptor, value: Any): Iterator[Node] =
     lockAll(inner.exactIndexSearch(index, value))
 
+  override def indexSeekByNumberRange(index: IndexDescriptor, lower: Number, includeLower: Boolean, upper: Number, includeUpper: Boolean): Iterator[Node] =
+    lockAll(inner.indexSeekByNumberRange(index, lower, includeLower, upper, includeUpper))
+
+  override def indexSeekByStringRange(index: IndexDescriptor, lower: String, includeLower: Boolean, upper: String, includeUpper: Boolean): Iterator[Node] =
+    lockAll(inner.indexSeekByStringRange(index, lower, includeLower, upper, includeUpper))
+
+  override def indexSeekByPrefix(index: IndexDescriptor, prefix: String): Iterator[Node] =
+    lockAll(inner.indexSeekByPrefix(index, prefix))
+
   override def getNodesByLabel(id: Int): Iterator[Node] = lockAll(inner.getNodesByLabel(id))
 
   val nodeOpsValue = new RepeatableReadOperations[Node](inner.nodeOps)
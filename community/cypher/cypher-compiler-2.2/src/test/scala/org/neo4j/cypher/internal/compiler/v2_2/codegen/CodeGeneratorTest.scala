@@ -0,0 +1,87 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.codegen
+
+import org.neo4j.cypher.internal.commons.CypherFunSuite
+import org.neo4j.cypher.internal.compiler.v2_2.{LabelId, PropertyKeyId}
+import org.neo4j.cypher.internal.compiler.v2_2.ast._
+import org.neo4j.cypher.internal.compiler.v2_2.planner.LogicalPlanningTestSupport
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.plans._
+import org.neo4j.cypher.internal.compiler.v2_2.commands.ManyQueryExpression
+import org.neo4j.cypher.internal.compiler.v2_2.symbols._
+import org.neo4j.graphdb.Direction
+
+class CodeGeneratorTest extends CypherFunSuite with LogicalPlanningTestSupport {
+
+  val generator = new CodeGenerator
+
+  val scan = NodeByLabelScan(IdName("a"), Right(LabelId(1)), Set.empty)(solved)
+  val name: Expression = Property(Identifier("b")_, PropertyKeyName("name")_)_
+
+  test("compiles scans, expands, selections and projections") {
+    val expand = Expand(scan, IdName("a"), Direction.OUTGOING, Direction.OUTGOING, Seq(RelTypeName("KNOWS")_), IdName("b"), IdName("r"), SimplePatternLength)(solved)
+    val selection = Selection(Seq(Or(Equals(name, StringLiteral("x")_)_, Not(HasLabels(Identifier("b")_, Seq(LabelName("L")_))_)_)_), expand)(solved)
+    val plan = Projection(selection, Map("a" -> Identifier("a")_, "name" -> name))(solved)
+
+    val compiled = generator.generate(plan)
+
+    compiled should not be empty
+    compiled.get.operators should equal(Seq("Scan", "Expand", "Selection", "Projection"))
+    compiled.get.symbols should equal(SymbolTable(Map("a" -> CTNode, "name" -> CTAny)))
+  }
+
+  test("compiles collections of parameters") {
+    val collection = Collection(Seq(Parameter("x")_, StringLiteral("y")_))_
+    val plan = Selection(Seq(In(Property(Identifier("a")_, PropertyKeyName("name")_)_, collection)_), scan)(solved)
+
+    generator.generate(plan).map(_.operators) should equal(Some(Seq("Scan", "Selection")))
+  }
+
+  test("compiles index seeks on parameters") {
+    val plan = NodeIndexSeek(IdName("a"), LabelToken("L", LabelId(1)), PropertyKeyToken("name", PropertyKeyId(2)),
+      ManyQueryExpression(Collection(Seq(Parameter("x")_))_), Set.empty)(solved)
+
+    generator.generate(plan).map(_.operators) should equal(Some(Seq("Scan")))
+  }
+
+  test("compiles counting aggregations") {
+    val plan = Aggregation(scan, Map.empty, Map("count(*)" -> CountStar()_))(solved)
+
+    generator.generate(plan).map(_.operators) should equal(Some(Seq("Scan", "EagerAggregation")))
+  }
+
+  test("does not compile grouping aggregations") {
+    val plan = Aggregation(scan, Map("a" -> Identifier("a")_), Map("count(*)" -> CountStar()_))(solved)
+
+    generator.generate(plan) should equal(None)
+  }
+
+  test("does not compile unsupported expressions") {
+    val plan = Selection(Seq(GreaterThan(Property(Identifier("a")_, PropertyKeyName("age")_)_, SignedDecimalIntegerLiteral("3")_)_), scan)(solved)
+
+    generator.generate(plan) should equal(None)
+  }
+
+  test("does not compile plans with arguments") {
+    val plan = AllNodesScan(IdName("a"), Set(IdName("x")))(solved)
+
+    generator.generate(plan) should equal(None)
+  }
+}
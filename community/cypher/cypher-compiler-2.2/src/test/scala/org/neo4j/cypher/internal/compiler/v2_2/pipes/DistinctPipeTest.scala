@@ -61,6 +61,19 @@ class DistinctPipeTest extends CypherFunSuite {
     result.toList should equal( List(Map("x" -> 1)))
   }
 
+  test("distinct_spills_rows_that_do_not_fit_in_the_memory_budget") {
+    //GIVEN
+    val pipe = createDistinctPipe((0 until 200).map(i => Map("x" -> i % 50)).toList)
+    val memory = QueryMemory(1000)
+
+    //WHEN
+    val result = pipe.createResults(QueryStateHelper.emptyWith(memory = memory)).toList
+
+    //THEN
+    result.sortBy(_("x").asInstanceOf[Int]) should equal((0 until 50).map(i => Map("x" -> i)))
+    memory.spillStatistics(pipe).map(_.rows).getOrElse(0L) should be > 0L
+  }
+
   def createDistinctPipe(input: List[Map[String, Int]], expressions: Map[String, Expression] = Map("x" -> Identifier("x"))) = {
     val source = new FakePipe(input, "x" -> CTNumber)
     new DistinctPipe(source, expressions)()
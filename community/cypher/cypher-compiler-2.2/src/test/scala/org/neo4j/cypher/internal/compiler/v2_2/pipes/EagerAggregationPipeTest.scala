@@ -102,6 +102,32 @@ class EagerAggregationPipeTest extends CypherFunSuite {
     getResults(aggregationPipe) should equal(List(Map("count(name)" -> 3)))
   }
 
+  test("shouldSpillGroupsThatDoNotFitInTheMemoryBudget") {
+    val source = new FakePipe((0 until 200).map(i => Map("name" -> s"name${i % 50}")), createSymbolTableFor("name"))
+
+    val returnItems = createReturnItemsFor("name")
+    val grouping = Map("count(*)" -> CountStar())
+    val aggregationPipe = new EagerAggregationPipe(source, returnItems, grouping)()
+    val memory = QueryMemory(1000)
+
+    val result = aggregationPipe.createResults(QueryStateHelper.emptyWith(memory = memory)).map(_.m.toMap).toSet
+
+    result should equal((0 until 50).map(i => Map("name" -> s"name$i", "count(*)" -> 4)).toSet)
+    memory.spillStatistics(aggregationPipe).map(_.rows).getOrElse(0L) should be > 0L
+  }
+
+  test("shouldAggregateInMemoryWhenRowsCanNotBeSpilled") {
+    val source = new FakePipe((0 until 200).map(i => Map("name" -> s"name${i % 50}", "other" -> new Object)), createSymbolTableFor("name"))
+
+    val returnItems = createReturnItemsFor("name")
+    val grouping = Map("count(*)" -> CountStar())
+    val aggregationPipe = new EagerAggregationPipe(source, returnItems, grouping)()
+
+    val result = aggregationPipe.createResults(QueryStateHelper.emptyWith(memory = QueryMemory(1000))).map(_.m.toMap).toSet
+
+    result should equal((0 until 50).map(i => Map("name" -> s"name$i", "count(*)" -> 4)).toSet)
+  }
+
   private def createSymbolTableFor(name: String) = name -> CTNode
 
   private def getResults(p: Pipe) = p.createResults(QueryStateHelper.empty).map(_.m.toMap).toList
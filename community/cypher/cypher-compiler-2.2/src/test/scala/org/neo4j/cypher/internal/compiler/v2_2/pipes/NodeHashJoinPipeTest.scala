@@ -149,6 +149,55 @@ class NodeHashJoinPipeTest extends CypherFunSuite {
     ))
   }
 
+  test("should support joining on three identifiers") {
+    // given
+    val node0 = newMockedNode(0)
+    val node1 = newMockedNode(1)
+    val node2 = newMockedNode(2)
+    val queryState = QueryStateHelper.empty
+
+    val left = newMockedPipe(SymbolTable(Map("a" -> CTNode, "b" -> CTNode, "c" -> CTNode)))
+    when(left.createResults(queryState)).thenReturn(
+      Iterator(
+        row("a" -> node0, "b" -> node1, "c" -> node2, "x" -> 1),
+        row("a" -> node0, "b" -> node2, "c" -> node1, "x" -> 2),
+        row("a" -> node0, "b" -> node1, "c" -> null,  "x" -> 3)))
+
+    val right = newMockedPipe(SymbolTable(Map("a" -> CTNode, "b" -> CTNode, "c" -> CTNode)))
+    when(right.createResults(queryState)).thenReturn(
+      Iterator(
+        row("a" -> node0, "b" -> node1, "c" -> node2, "y" -> 1),
+        row("a" -> node0, "b" -> node1, "c" -> node1, "y" -> 2)))
+
+    // when
+    val result = NodeHashJoinPipe(Set("a", "b", "c"), left, right)().createResults(queryState).toList
+
+    // then
+    result should equal(List(
+      Map("a" -> node0, "b" -> node1, "c" -> node2, "x" -> 1, "y" -> 1)
+    ))
+  }
+
+  test("should join when the build side is estimated to be very large") {
+    // given
+    val nodes = (0 until 100).map(newMockedNode)
+    val queryState = QueryStateHelper.empty
+
+    val left = new FakePipe(nodes.map(node => Map("b" -> node)), "b" -> CTNode) with RonjaPipe {
+      def estimatedCardinality = Some(Long.MaxValue)
+      def withEstimatedCardinality(estimated: Long) = ???
+    }
+
+    val right = newMockedPipe(SymbolTable(Map("b" -> CTNode)))
+    when(right.createResults(queryState)).thenReturn(nodes.reverseIterator.map(node => row("b" -> node)))
+
+    // when
+    val result = NodeHashJoinPipe(Set("b"), left, right)().createResults(queryState)
+
+    // then
+    result.map(_("b")).toList should equal(nodes.reverse.toList)
+  }
+
 
   private def row(values: (String, Any)*) = ExecutionContext.from(values: _*)
 
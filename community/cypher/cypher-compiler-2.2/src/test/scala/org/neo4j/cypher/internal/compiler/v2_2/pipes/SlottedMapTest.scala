@@ -0,0 +1,154 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes
+
+import org.mockito.Mockito._
+import org.neo4j.cypher.internal.commons.CypherFunSuite
+import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext
+import org.neo4j.graphdb.{Node, Relationship}
+
+import scala.collection.mutable
+
+class SlottedMapTest extends CypherFunSuite {
+
+  val layout = SlotLayout(nodes = Seq("n"), relationships = Seq("r"), others = Seq("n", "a", "b", "c"))
+
+  test("reads back slotted and unknown identifiers") {
+    val row = layout.newRow(entities)
+    row("a") = 1
+    row("b") = null
+    row("x") = "x"
+
+    row.get("a") should equal(Some(1))
+    row("b") should equal(null.asInstanceOf[Any])
+    row.get("c") should equal(None)
+    row.get("x") should equal(Some("x"))
+    row.contains("b") should equal(true)
+    row.contains("c") should equal(false)
+    row.size should equal(3)
+    row.toMap should equal(Map("a" -> 1, "b" -> null, "x" -> "x"))
+  }
+
+  test("keeps the ids of nodes and relationships in long slots") {
+    val row = layout.newRow(entities)
+    row("n") = entities.node(42)
+    row("r") = entities.relationship(7)
+
+    row("n") should equal(entities.node(42))
+    row("r") should equal(entities.relationship(7))
+    row.size should equal(2)
+    row.toMap should equal(Map("n" -> entities.node(42), "r" -> entities.relationship(7)))
+  }
+
+  test("keeps null in long slots") {
+    val row = layout.newRow(entities)
+    row("n") = null
+
+    row.contains("n") should equal(true)
+    row("n") should equal(null.asInstanceOf[Any])
+    row.size should equal(1)
+  }
+
+  test("keeps values that do not fit their long slot on the side") {
+    val row = layout.newRow(entities)
+    row("n") = "not a node"
+    row("r") = entities.node(1)
+
+    row("n") should equal("not a node")
+    row("r") should equal(entities.node(1))
+    row.size should equal(2)
+
+    row("n") = entities.node(2)
+
+    row("n") should equal(entities.node(2))
+    row.size should equal(2)
+    row.toMap should equal(Map("n" -> entities.node(2), "r" -> entities.node(1)))
+  }
+
+  test("removes identifiers") {
+    val row = layout.newRow(entities)
+    row ++= Seq("a" -> 1, "n" -> entities.node(1), "r" -> "spilled", "x" -> 2)
+
+    row -= "a"
+    row -= "n"
+    row -= "r"
+    row -= "x"
+
+    row should be(empty)
+    row.size should equal(0)
+  }
+
+  test("does not share slots between a row and its copies") {
+    val original = ExecutionContext(layout.newRow(entities)).newWith2("a", 1, "n", entities.node(1))
+
+    val copy = original.newWith3("a", 2, "n", entities.node(2), "x", 3)
+
+    original.toMap should equal(Map("a" -> 1, "n" -> entities.node(1)))
+    copy.toMap should equal(Map("a" -> 2, "n" -> entities.node(2), "x" -> 3))
+  }
+
+  test("equals rows that are not slotted") {
+    val row = ExecutionContext(layout.newRow(entities)).newWith2("a", 1, "n", entities.node(1))
+
+    row should equal(ExecutionContext.from("a" -> 1, "n" -> entities.node(1)))
+  }
+
+  test("reads and writes rows of the layout by slot") {
+    val nodeSlot = layout.identifierSlot("n")
+    val refSlot = layout.identifierSlot("a")
+    val row = ExecutionContext(layout.newRow(entities))
+
+    val copy = nodeSlot.newWith(refSlot.newWith(row, 1), entities.node(3))
+
+    nodeSlot.get(copy) should equal(entities.node(3))
+    refSlot.get(copy) should equal(1)
+    SlottedMap.isUnset(nodeSlot.get(row)) should equal(true)
+    copy.toMap should equal(Map("a" -> 1, "n" -> entities.node(3)))
+  }
+
+  test("reads and writes rows of other layouts by name") {
+    val nodeSlot = layout.identifierSlot("n")
+    val otherLayout = SlotLayout(nodes = Seq("m", "n"), relationships = Seq.empty, others = Seq.empty)
+
+    for (row <- Seq(ExecutionContext.empty, ExecutionContext(otherLayout.newRow(entities)))) {
+      val copy = nodeSlot.newWith(row, entities.node(3))
+
+      nodeSlot.get(copy) should equal(entities.node(3))
+      copy.toMap should equal(Map("n" -> entities.node(3)))
+    }
+  }
+
+  object entities extends EntityProxyFactory {
+    private val nodes = mutable.Map[Long, Node]()
+    private val relationships = mutable.Map[Long, Relationship]()
+
+    def node(id: Long) = nodes.getOrElseUpdate(id, {
+      val node = mock[Node]
+      when(node.getId).thenReturn(id)
+      node
+    })
+
+    def relationship(id: Long) = relationships.getOrElseUpdate(id, {
+      val relationship = mock[Relationship]
+      when(relationship.getId).thenReturn(id)
+      relationship
+    })
+  }
+}
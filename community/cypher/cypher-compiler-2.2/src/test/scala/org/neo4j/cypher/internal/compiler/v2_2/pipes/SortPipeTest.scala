@@ -76,6 +76,28 @@ class SortPipeTest extends CypherFunSuite with MockitoSugar {
       MutableMap("x" -> "B", "y" -> 10)), sortPipe.createResults(QueryStateHelper.empty).toList)
   }
 
+  test("sorts rows that do not fit in the memory budget") {
+    val list: Seq[MutableMap[String, Any]] = (0 until 100).map(i => MutableMap[String, Any]("x" -> (i * 37) % 100))
+    val source = new FakePipe(list, "x" -> CTNumber)
+    val sortPipe = new SortPipe(source, List(Ascending("x")))()
+    val memory = QueryMemory(1000)
+
+    val result = sortPipe.createResults(QueryStateHelper.emptyWith(memory = memory)).toList
+
+    assertEquals((0 until 100).map(i => MutableMap("x" -> i)).toList, result)
+    assertTrue(memory.spillStatistics(sortPipe).exists(_.files > 1))
+  }
+
+  test("keeps the order of equal rows when spilling") {
+    val list: Seq[MutableMap[String, Any]] = (0 until 100).map(i => MutableMap[String, Any]("x" -> i % 3, "y" -> i))
+    val source = new FakePipe(list, "x" -> CTNumber, "y" -> CTNumber)
+    val sortPipe = new SortPipe(source, List(Descending("x")))()
+
+    val result = sortPipe.createResults(QueryStateHelper.emptyWith(memory = QueryMemory(1000))).toList
+
+    assertEquals(list.sortBy(row => -row("x").asInstanceOf[Int]).toList, result)
+  }
+
   test("should handle null values") {
     val list: Seq[MutableMap[String, Any]] = List(
       MutableMap("y" -> 1),
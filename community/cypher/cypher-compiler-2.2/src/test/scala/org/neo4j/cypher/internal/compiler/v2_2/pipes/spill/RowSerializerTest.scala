@@ -0,0 +1,64 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.pipes.spill
+
+import java.io.{ByteArrayInputStream, ByteArrayOutputStream, DataInputStream, DataOutputStream}
+
+import org.neo4j.cypher.internal.commons.CypherFunSuite
+import org.neo4j.cypher.internal.compiler.v2_2.ExecutionContext
+import org.neo4j.cypher.internal.compiler.v2_2.pipes.QueryStateHelper
+
+class RowSerializerTest extends CypherFunSuite {
+
+  test("reads back the values of a row") {
+    val row = ExecutionContext.from(
+      "null" -> null,
+      "bool" -> true,
+      "int" -> 42,
+      "long" -> 42L,
+      "double" -> 4.2,
+      "string" -> "åäö",
+      "collection" -> Seq(1, "two", Seq(3.0)),
+      "map" -> Map("a" -> 1, "b" -> List("c")))
+
+    roundTrip(row) should equal(row)
+  }
+
+  test("reads back arrays with their element type") {
+    val read = roundTrip(ExecutionContext.from("ints" -> Array(1, 2, 3), "strings" -> Array("a", "b")))
+
+    read("ints") shouldBe an [Array[Int]]
+    read("ints").asInstanceOf[Array[Int]].toSeq should equal(Seq(1, 2, 3))
+    read("strings").asInstanceOf[Array[String]].toSeq should equal(Seq("a", "b"))
+  }
+
+  test("does not spill values it can not read back") {
+    intercept[UnspillableValueException](write(ExecutionContext.from("x" -> new Object)))
+  }
+
+  private def roundTrip(row: ExecutionContext): ExecutionContext =
+    RowSerializer.read(new DataInputStream(new ByteArrayInputStream(write(row))), QueryStateHelper.empty)
+
+  private def write(row: ExecutionContext): Array[Byte] = {
+    val bytes = new ByteArrayOutputStream()
+    RowSerializer.write(new DataOutputStream(bytes), row)
+    bytes.toByteArray
+  }
+}
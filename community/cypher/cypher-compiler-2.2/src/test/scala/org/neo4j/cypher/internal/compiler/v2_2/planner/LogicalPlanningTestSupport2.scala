@@ -79,6 +79,8 @@ trait LogicalPlanningTestSupport2 extends CypherTestSupport with AstConstruction
     def graphStatistics: GraphStatistics
     def indexes: Set[(String, String)]
     def uniqueIndexes: Set[(String, String)]
+    def compositeIndexes: Set[(String, Seq[String])]
+    def orderedIndexes: Set[(String, String)]
     def labelCardinality: Map[String, Cardinality]
     def knownLabels: Set[String]
     def qg: QueryGraph
@@ -115,6 +117,8 @@ trait LogicalPlanningTestSupport2 extends CypherTestSupport with AstConstruction
       HardcodedGraphStatistics
     def indexes = Set.empty
     def uniqueIndexes = Set.empty
+    def compositeIndexes = Set.empty
+    def orderedIndexes = Set.empty
     def labelCardinality = Map.empty
     def knownLabels = Set.empty
     def qg: QueryGraph = ???
@@ -137,6 +141,15 @@ trait LogicalPlanningTestSupport2 extends CypherTestSupport with AstConstruction
     def uniqueIndexOn(label: String, property: String) {
       uniqueIndexes = uniqueIndexes + (label -> property)
     }
+    var compositeIndexes: Set[(String, Seq[String])] = Set.empty
+    def compositeIndexOn(label: String, properties: String*) {
+      compositeIndexes = compositeIndexes + (label -> properties)
+    }
+    var orderedIndexes: Set[(String, String)] = Set.empty
+    def orderedIndexOn(label: String, property: String) {
+      indexOn(label, property)
+      orderedIndexes = orderedIndexes + (label -> property)
+    }
 
     def costModel(cardinality: Metrics.CardinalityModel) =
       cost.orElse(parent.costModel(cardinality))
@@ -175,6 +188,13 @@ trait LogicalPlanningTestSupport2 extends CypherTestSupport with AstConstruction
         addLabelIfUnknown(label)
         table.resolvedPropertyKeyNames.put(property, PropertyKeyId(table.resolvedPropertyKeyNames.size))
       }
+      config.compositeIndexes.foreach { case (label, properties) =>
+        addLabelIfUnknown(label)
+        properties.foreach { property =>
+          if (!table.resolvedPropertyKeyNames.contains(property))
+            table.resolvedPropertyKeyNames.put(property, PropertyKeyId(table.resolvedPropertyKeyNames.size))
+        }
+      }
       config.labelCardinality.keys.foreach(addLabelIfUnknown)
       config.knownLabels.foreach(addLabelIfUnknown)
       table
@@ -216,6 +236,22 @@ trait LogicalPlanningTestSupport2 extends CypherTestSupport with AstConstruction
         else
           None
 
+      def indexSeeksInOrder(index: IndexDescriptor): Boolean =
+        config.orderedIndexes.exists {
+          case (label, property) =>
+            semanticTable.resolvedLabelIds(label).id == index.getLabelId &&
+            semanticTable.resolvedPropertyKeyNames(property).id == index.getPropertyKeyId
+        }
+
+      def getCompositeIndexRules(labelName: String): Seq[IndexDescriptor] =
+        config.compositeIndexes.toSeq.collect {
+          case (`labelName`, properties) =>
+            new IndexDescriptor(
+              semanticTable.resolvedLabelIds(labelName).id,
+              properties.map(semanticTable.resolvedPropertyKeyNames(_).id).toArray
+            )
+        }
+
       def getOptPropertyKeyId(propertyKeyName: String) =
         semanticTable.resolvedPropertyKeyNames.get(propertyKeyName).map(_.id)
       def getOptLabelId(labelName: String): Option[Int] =
@@ -25,7 +25,7 @@ import org.neo4j.cypher.internal.compiler.v2_2.ast._
 import org.neo4j.cypher.internal.compiler.v2_2.planner.{PlannerQuery, LogicalPlanningTestSupport2}
 import org.neo4j.cypher.internal.compiler.v2_2.{PropertyKeyId, LabelId}
 import org.neo4j.cypher.internal.compiler.v2_2.planner.BeLikeMatcher._
-import org.neo4j.cypher.internal.compiler.v2_2.commands.{ManyQueryExpression, SingleQueryExpression}
+import org.neo4j.cypher.internal.compiler.v2_2.commands.{Bound, InequalitySeekRange, ManyQueryExpression, SingleQueryExpression}
 
 class LeafPlanningIntegrationTest extends CypherFunSuite with LogicalPlanningTestSupport2 {
 
@@ -84,6 +84,21 @@ class LeafPlanningIntegrationTest extends CypherFunSuite with LogicalPlanningTes
     )
   }
 
+  test("should build plans for index range seek when there is an index on the property and an inequality predicate") {
+    implicit val plan = new given {
+      indexOn("Awesome", "prop")
+    } planFor "MATCH (n:Awesome) WHERE n.prop > 42 RETURN n"
+
+    plan.plan should equal(
+      NodeIndexRangeSeek(
+        "n",
+        LabelToken("Awesome", LabelId(0)),
+        PropertyKeyToken(PropertyKeyName("prop")_, PropertyKeyId(0)),
+        InequalitySeekRange(Some(Bound(SignedDecimalIntegerLiteral("42")_, inclusive = false)), None),
+        Set.empty)(PlannerQuery.empty)
+    )
+  }
+
   test("should build plans for unique index seek when there is an unique index on the property") {
     implicit val plan = new given {
       uniqueIndexOn("Awesome", "prop")
@@ -0,0 +1,120 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.internal.compiler.v2_2.planner.logical
+
+import org.neo4j.cypher.internal.commons.CypherFunSuite
+import org.neo4j.cypher.internal.compiler.v2_2.planner.BeLikeMatcher._
+import org.neo4j.cypher.internal.compiler.v2_2.planner.LogicalPlanningTestSupport2
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.plans._
+
+class SortAvoidingPlanningIntegrationTest extends CypherFunSuite with LogicalPlanningTestSupport2 {
+
+  test("should not sort rows of a range seek in an index that seeks in order") {
+    (new given {
+      orderedIndexOn("Awesome", "prop")
+    } planFor "MATCH (n:Awesome) WHERE n.prop > 42 RETURN n ORDER BY n.prop LIMIT 10").plan should beLike {
+      case Projection(Limit(Projection(_: NodeIndexRangeSeek, _), _), _) => ()
+    }
+  }
+
+  test("should sort rows of a range seek in an index that does not seek in order") {
+    (new given {
+      indexOn("Awesome", "prop")
+    } planFor "MATCH (n:Awesome) WHERE n.prop > 42 RETURN n ORDER BY n.prop LIMIT 10").plan should beLike {
+      case Projection(SortedLimit(Projection(_: NodeIndexRangeSeek, _), _, _), _) => ()
+    }
+  }
+
+  test("should sort rows of a range seek in descending order") {
+    (new given {
+      orderedIndexOn("Awesome", "prop")
+    } planFor "MATCH (n:Awesome) WHERE n.prop > 42 RETURN n ORDER BY n.prop DESC LIMIT 10").plan should beLike {
+      case Projection(SortedLimit(Projection(_: NodeIndexRangeSeek, _), _, _), _) => ()
+    }
+  }
+
+  test("should sort rows of a range seek on another property") {
+    (new given {
+      orderedIndexOn("Awesome", "prop")
+    } planFor "MATCH (n:Awesome) WHERE n.prop > 42 RETURN n ORDER BY n.other LIMIT 10").plan should beLike {
+      case Projection(SortedLimit(Projection(_: NodeIndexRangeSeek, _), _, _), _) => ()
+    }
+  }
+
+  test("should not sort rows of a range seek on a returned property") {
+    (new given {
+      orderedIndexOn("Awesome", "prop")
+    } planFor "MATCH (n:Awesome) WHERE n.prop > 42 RETURN n.prop AS p ORDER BY p LIMIT 10").plan should beLike {
+      case Limit(Projection(_: NodeIndexRangeSeek, _), _) => ()
+    }
+  }
+
+  test("should skip and limit rows of a range seek in an index that seeks in order without sorting them") {
+    (new given {
+      orderedIndexOn("Awesome", "prop")
+    } planFor "MATCH (n:Awesome) WHERE n.prop > 42 RETURN n ORDER BY n.prop SKIP 5 LIMIT 10").plan should beLike {
+      case Projection(Skip(Limit(Projection(_: NodeIndexRangeSeek, _), _), _), _) => ()
+    }
+  }
+
+  test("should not sort rows of an equality seek in any index") {
+    (new given {
+      indexOn("Awesome", "prop")
+    } planFor "MATCH (n:Awesome) WHERE n.prop = 42 RETURN n ORDER BY n.prop DESC LIMIT 10").plan should beLike {
+      case Projection(Limit(Projection(_: NodeIndexSeek, _), _), _) => ()
+    }
+  }
+
+  test("should sort rows of a seek for several values") {
+    (new given {
+      orderedIndexOn("Awesome", "prop")
+    } planFor "MATCH (n:Awesome) WHERE n.prop IN [42, 43] RETURN n ORDER BY n.prop LIMIT 10").plan should beLike {
+      case Projection(SortedLimit(Projection(_: NodeIndexSeek, _), _, _), _) => ()
+    }
+  }
+
+  test("should not sort rows of a prefix seek with a literal prefix") {
+    (new given {
+      orderedIndexOn("Awesome", "prop")
+    } planFor "MATCH (n:Awesome) WHERE n.prop =~ 'abc.*' RETURN n ORDER BY n.prop LIMIT 10").plan should beLike {
+      case Projection(Limit(Projection(Selection(_, _: NodeIndexRangeSeek), _), _), _) => ()
+    }
+  }
+
+  test("should sort rows of a prefix seek with a parameterised regular expression") {
+    (new given {
+      orderedIndexOn("Awesome", "prop")
+    } planFor "MATCH (n:Awesome) WHERE n.prop =~ {regex} RETURN n ORDER BY n.prop LIMIT 10").plan should beLike {
+      case Projection(SortedLimit(Projection(Selection(_, _: NodeIndexRangeSeek), _), _, _), _) => ()
+    }
+  }
+
+  test("should not sort rows that are expanded from a range seek in an index that seeks in order") {
+    (new given {
+      orderedIndexOn("Awesome", "prop")
+      cardinality = mapCardinality {
+        case _: NodeIndexRangeSeek => 10
+        case _ => 1000
+      }
+    } planFor "MATCH (n:Awesome)-[r]->(m) WHERE n.prop > 42 RETURN m ORDER BY n.prop LIMIT 10").plan should beLike {
+      case Projection(Limit(Projection(expand: Expand, _), _), _) if expand.left.isInstanceOf[NodeIndexRangeSeek] => ()
+    }
+  }
+}
@@ -22,10 +22,10 @@ package org.neo4j.cypher.internal.compiler.v2_2.planner.logical.plans
 import org.neo4j.cypher.internal.commons.CypherFunSuite
 import org.neo4j.cypher.internal.compiler.v2_2.planner._
 import org.neo4j.cypher.internal.compiler.v2_2.ast._
-import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.steps.{uniqueIndexSeekLeafPlanner, indexSeekLeafPlanner}
+import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.steps.{compositeIndexSeekLeafPlanner, indexRangeSeekLeafPlanner, uniqueIndexSeekLeafPlanner, indexSeekLeafPlanner}
 import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.LogicalPlanningContext
 import org.neo4j.cypher.internal.compiler.v2_2.planner.BeLikeMatcher._
-import org.neo4j.cypher.internal.compiler.v2_2.commands.ManyQueryExpression
+import org.neo4j.cypher.internal.compiler.v2_2.commands.{Bound, InequalitySeekRange, ManyQueryExpression, PrefixSeekRange}
 
 class IndexLeafPlannerTest extends CypherFunSuite with LogicalPlanningTestSupport2 {
 
@@ -166,6 +166,119 @@ class IndexLeafPlannerTest extends CypherFunSuite with LogicalPlanningTestSuppor
     }
   }
 
+  test("does not plan index range seek when no index exist") {
+    new given {
+      qg = queryGraph(GreaterThan(property, lit42)_, hasLabels)
+
+      withLogicalPlanningContext { (ctx) =>
+        // when
+        val resultPlans = indexRangeSeekLeafPlanner(qg)(ctx)
+
+        // then
+        resultPlans.plans shouldBe empty
+      }
+    }
+  }
+
+  test("plans a single index range seek for a lower and an upper bound on the property") {
+    val lowerBound: Expression = GreaterThan(property, lit6)_
+    val upperBound: Expression = LessThan(property, lit42)_
+
+    new given {
+      qg = queryGraph(lowerBound, upperBound, hasLabels)
+
+      indexOn("Awesome", "prop")
+
+      withLogicalPlanningContext { (ctx) =>
+        // when
+        val resultPlans = indexRangeSeekLeafPlanner(qg)(ctx)
+
+        // then
+        resultPlans.plans should beLike {
+          case Seq(NodeIndexRangeSeek(`idName`, _, _, InequalitySeekRange(
+            Some(Bound(SignedDecimalIntegerLiteral("6"), false)), Some(Bound(SignedDecimalIntegerLiteral("42"), false))), _)) => ()
+        }
+        resultPlans.plans.head.solved.graph.selections.flatPredicates.toSet should equal(Set[Expression](lowerBound, upperBound, hasLabels))
+      }
+    }
+  }
+
+  test("plans index range seek for a regular expression with a literal prefix") {
+    val regex: Expression = RegexMatch(property, StringLiteral("Jo.*")_)_
+
+    new given {
+      qg = queryGraph(regex, hasLabels)
+
+      indexOn("Awesome", "prop")
+
+      withLogicalPlanningContext { (ctx) =>
+        // when
+        val resultPlans = indexRangeSeekLeafPlanner(qg)(ctx)
+
+        // then
+        resultPlans.plans should beLike {
+          case Seq(Selection(Seq(`regex`), NodeIndexRangeSeek(`idName`, _, _, PrefixSeekRange(StringLiteral("Jo.*")), _))) => ()
+        }
+      }
+    }
+  }
+
+  test("does not plan index range seek for a regular expression without a literal prefix") {
+    new given {
+      qg = queryGraph(RegexMatch(property, StringLiteral("J[ao].*")_)_, hasLabels)
+
+      indexOn("Awesome", "prop")
+
+      withLogicalPlanningContext { (ctx) =>
+        // when
+        val resultPlans = indexRangeSeekLeafPlanner(qg)(ctx)
+
+        // then
+        resultPlans.plans shouldBe empty
+      }
+    }
+  }
+
+  test("plans composite index seek when all properties of the index are bound by equalities") {
+    val otherProperty = Property(ident("n"), PropertyKeyName("other") _) _
+    val propEquality: Expression = In(property, Collection(Seq(lit42)) _) _
+    val otherEquality: Expression = In(otherProperty, Collection(Seq(lit6)) _) _
+
+    new given {
+      qg = queryGraph(propEquality, otherEquality, hasLabels)
+
+      compositeIndexOn("Awesome", "other", "prop")
+
+      withLogicalPlanningContext { (ctx) =>
+        // when
+        val resultPlans = compositeIndexSeekLeafPlanner(qg)(ctx)
+
+        // then
+        resultPlans.plans should beLike {
+          case Seq(NodeCompositeIndexSeek(`idName`, _, _, Seq(SignedDecimalIntegerLiteral("6"), SignedDecimalIntegerLiteral("42")), _)) => ()
+        }
+        resultPlans.plans.head.asInstanceOf[NodeCompositeIndexSeek].propertyKeys.map(_.name) should equal(Seq("other", "prop"))
+        resultPlans.plans.head.solved.graph.selections.flatPredicates.toSet should equal(Set[Expression](propEquality, otherEquality, hasLabels))
+      }
+    }
+  }
+
+  test("does not plan composite index seek when a property of the index is not bound") {
+    new given {
+      qg = queryGraph(inCollectionValue, hasLabels)
+
+      compositeIndexOn("Awesome", "prop", "other")
+
+      withLogicalPlanningContext { (ctx) =>
+        // when
+        val resultPlans = compositeIndexSeekLeafPlanner(qg)(ctx)
+
+        // then
+        resultPlans.plans shouldBe empty
+      }
+    }
+  }
+
   private def queryGraph(predicates: Expression*) =
     QueryGraph(
       selections = Selections(predicates.map(Predicate(Set(idName), _)).toSet),
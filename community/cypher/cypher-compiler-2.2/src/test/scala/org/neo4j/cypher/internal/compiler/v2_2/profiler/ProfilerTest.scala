@@ -22,10 +22,10 @@ package org.neo4j.cypher.internal.compiler.v2_2.profiler
 import org.neo4j.cypher.internal.commons.CypherFunSuite
 import org.neo4j.cypher.internal.compiler.v2_2._
 import org.neo4j.cypher.internal.compiler.v2_2.pipes._
-import org.neo4j.cypher.internal.compiler.v2_2.planDescription.InternalPlanDescription.Arguments.{DbHits, Rows}
+import org.neo4j.cypher.internal.compiler.v2_2.planDescription.InternalPlanDescription.Arguments.{DbHits, Rows, Spilled}
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.{Argument, InternalPlanDescription}
 import org.neo4j.cypher.internal.compiler.v2_2.spi.QueryContext
-import org.neo4j.cypher.internal.compiler.v2_2.symbols.SymbolTable
+import org.neo4j.cypher.internal.compiler.v2_2.symbols._
 
 import scala.collection.immutable.::
 
@@ -98,6 +98,25 @@ class ProfilerTest extends CypherFunSuite {
     assertRecorded(decoratedResult, "rhs", expectedRows = 10*20, expectedDbHits = 10*30)
   }
 
+  test("should report rows spilled to disk") {
+    // GIVEN
+    val source = new FakePipe((0 until 100).map(i => Map("x" -> i)), "x" -> CTNumber)
+    val sort = new SortPipe(source, List(Descending("x")))()
+    val queryContext = mock[QueryContext]
+    val profiler = new Profiler
+    val queryState = QueryStateHelper.emptyWith(query = queryContext, decorator = profiler, memory = QueryMemory(1000))
+
+    // WHEN
+    materialize(sort.createResults(queryState))
+    val decoratedResult = profiler.decorate(sort.planDescription, isProfileReady = true)
+
+    // THEN
+    val spilled = decoratedResult.find("Sort").flatMap(_.arguments).collect { case s: Spilled => s }
+    spilled should have size 1
+    spilled.head.rows should be > 0L
+    spilled.head.files should be > 0L
+  }
+
   private def assertRecorded(result: InternalPlanDescription, name: String, expectedRows: Int, expectedDbHits: Int) {
     val pipeArgs: Seq[Argument] = result.find(name).flatMap(_.arguments)
 
@@ -21,6 +21,7 @@ package org.neo4j.cypher.internal
 
 import org.neo4j.cypher._
 import org.neo4j.cypher.internal.compatability._
+import org.neo4j.cypher.internal.compiler.v2_2.{CompiledRuntime, InterpretedRuntime, RuntimeName}
 import org.neo4j.graphdb.GraphDatabaseService
 import org.neo4j.graphdb.factory.GraphDatabaseSettings
 import org.neo4j.kernel.InternalAbstractGraphDatabase
@@ -31,7 +32,7 @@ object CypherCompiler {
   val DEFAULT_QUERY_CACHE_SIZE: Int = 128
 }
 
-case class PreParsedQuery(statement: String, version: CypherVersion, planType: PlanType)
+case class PreParsedQuery(statement: String, version: CypherVersion, planType: PlanType, runtime: RuntimeName = InterpretedRuntime)
 
 
 class CypherCompiler(graph: GraphDatabaseService,
@@ -53,11 +54,12 @@ class CypherCompiler(graph: GraphDatabaseService,
     val planType = preParsedQuery.planType
     val version = preParsedQuery.version
     val statementAsText = preParsedQuery.statement
+    val runtime = preParsedQuery.runtime
 
     version match {
-      case CypherVersion.`v2_2_cost` => compatibilityFor2_2Cost.produceParsedQuery(statementAsText, planType)
+      case CypherVersion.`v2_2_cost` => compatibilityFor2_2Cost.produceParsedQuery(statementAsText, planType, runtime)
       case CypherVersion.`v2_2_rule` => compatibilityFor2_2Rule.produceParsedQuery(statementAsText, planType)
-      case CypherVersion.v2_2 => compatibilityFor2_2Cost.produceParsedQuery(statementAsText, planType)
+      case CypherVersion.v2_2 => compatibilityFor2_2Cost.produceParsedQuery(statementAsText, planType, runtime)
       case CypherVersion.v2_1 => compatibilityFor2_1.parseQuery(statementAsText, planType == Profiled)
       case CypherVersion.v2_0 => compatibilityFor2_0.parseQuery(statementAsText, planType == Profiled)
       case CypherVersion.v1_9 => compatibilityFor1_9.parseQuery(statementAsText, planType == Profiled)
@@ -77,6 +79,16 @@ class CypherCompiler(graph: GraphDatabaseService,
       case Left(versions) => throw new SyntaxException(s"You must specify only one version for a query (found: $versions)")
     }
 
+    val runtimeOptions = queryWithOption.options.collectSingle {
+      case RuntimeOption("compiled") => CompiledRuntime
+      case RuntimeOption("interpreted") => InterpretedRuntime
+    }
+
+    val runtime: RuntimeName = runtimeOptions match {
+      case Right(r) => r.getOrElse(InterpretedRuntime)
+      case Left(runtimes) => throw new SyntaxException(s"You must specify only one runtime for a query (found: $runtimes)")
+    }
+
     val planType: PlanType = calculatePlanType(queryWithOption.options)
 
     if (planType == Explained &&
@@ -86,7 +98,13 @@ class CypherCompiler(graph: GraphDatabaseService,
       throw new InvalidArgumentException("EXPLAIN not supported in versions older than Neo4j v2.2")
     }
 
-    PreParsedQuery(queryWithOption.statement, cypherVersion, planType)
+    if (runtime == CompiledRuntime &&
+      cypherVersion != CypherVersion.v2_2 &&
+      cypherVersion != CypherVersion.v2_2_cost) {
+      throw new InvalidArgumentException("The compiled runtime is only supported by the cost based planner")
+    }
+
+    PreParsedQuery(queryWithOption.statement, cypherVersion, planType, runtime)
   }
 
   private def calculatePlanType(options: Seq[CypherOption]) = {
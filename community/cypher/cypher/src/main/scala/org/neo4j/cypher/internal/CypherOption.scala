@@ -22,6 +22,7 @@ package org.neo4j.cypher.internal
 sealed trait CypherOption
 
 final case class VersionOption(version: String) extends CypherOption
+final case class RuntimeOption(runtime: String) extends CypherOption
 case object ProfileOption extends CypherOption
 case object ExplainOption extends CypherOption
 
@@ -32,7 +32,7 @@ case class CypherOptionParser(monitor: ParserMonitor[CypherQueryWithOptions]) ex
 
   def AllOptions: Rule1[Seq[CypherOption]] = zeroOrMore(AnyCypherOption, WS)
 
-  def AnyCypherOption: Rule1[CypherOption] = Version | Explain | Profile
+  def AnyCypherOption: Rule1[CypherOption] = Version | Runtime | Explain | Profile
 
   def AnySomething: Rule1[String] = rule("Query") { oneOrMore(org.parboiled.scala.ANY) ~> identity }
 
@@ -44,6 +44,14 @@ case class CypherOptionParser(monitor: ParserMonitor[CypherQueryWithOptions]) ex
   def VersionNumber =
     rule("Version") { group(Digits ~ "." ~ Digits ~ optional(("." | "-") ~ VersionName) ) ~> VersionOption }
 
+  def Runtime: Rule1[RuntimeOption] =
+    rule("CYPHER runtime") {
+      keyword("CYPHER") ~ WS ~ keyword("runtime") ~ optional(WS) ~ "=" ~ optional(WS) ~ RuntimeName
+    }
+
+  def RuntimeName =
+    rule("Runtime") { group(keyword("compiled") | keyword("interpreted")) ~> (name => RuntimeOption(name.toLowerCase)) }
+
   def Digits =
     oneOrMore("0" - "9")
 
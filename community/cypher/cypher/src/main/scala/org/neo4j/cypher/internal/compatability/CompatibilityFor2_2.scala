@@ -29,7 +29,7 @@ import org.neo4j.cypher.internal.compiler.v2_2.executionplan.{InternalExecutionR
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.InternalPlanDescription.Arguments.{DbHits, Rows, Version}
 import org.neo4j.cypher.internal.compiler.v2_2.planDescription.{Argument, InternalPlanDescription, PlanDescriptionArgumentSerializer}
 import org.neo4j.cypher.internal.compiler.v2_2.spi.MapToPublicExceptions
-import org.neo4j.cypher.internal.compiler.v2_2.{CypherCompilerFactory, Legacy, PlannerName, Ronja, CypherException => CypherException_v2_2}
+import org.neo4j.cypher.internal.compiler.v2_2.{CypherCompilerFactory, InterpretedRuntime, Legacy, PlannerName, Ronja, RuntimeName, CypherException => CypherException_v2_2}
 import org.neo4j.cypher.internal.spi.v2_2.{TransactionBoundGraphStatistics, TransactionBoundPlanContext, TransactionBoundQueryContext}
 import org.neo4j.cypher.javacompat.ProfilerStatistics
 import org.neo4j.graphdb.{ResourceIterator, GraphDatabaseService}
@@ -111,8 +111,8 @@ trait CompatibilityFor2_2 {
 
   protected val compiler: v2_2.CypherCompiler
 
-  def produceParsedQuery(statementAsText: String, planType: PlanType) = new ParsedQuery {
-    val preparedQueryForV_2_2 = Try(compiler.prepareQuery(statementAsText, planType))
+  def produceParsedQuery(statementAsText: String, planType: PlanType, runtime: RuntimeName = InterpretedRuntime) = new ParsedQuery {
+    val preparedQueryForV_2_2 = Try(compiler.prepareQuery(statementAsText, planType, runtime))
 
     def isPeriodicCommit = preparedQueryForV_2_2.map(_.isPeriodicCommit).getOrElse(false)
 
@@ -22,13 +22,30 @@ package org.neo4j.cypher.internal.spi.v2_2
 import org.neo4j.cypher.internal.compiler.v2_2.planner.logical.{Cardinality, Selectivity}
 import org.neo4j.cypher.internal.compiler.v2_2.spi.GraphStatistics
 import org.neo4j.cypher.internal.compiler.v2_2.{LabelId, NameId, PropertyKeyId, RelTypeId}
+import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException
+import org.neo4j.kernel.api.index.IndexDescriptor
 import org.neo4j.kernel.api.{Statement => KernelStatement}
 
 class TransactionBoundGraphStatistics(statement: KernelStatement) extends GraphStatistics {
   import TransactionBoundGraphStatistics.toKernelEncode
 
-  def indexSelectivity(label: LabelId, property: PropertyKeyId): Option[Selectivity] =
-    HardcodedGraphStatistics.indexSelectivity(label, property)
+  /*
+  Uses the latest sample of the index, which gives the average number of nodes per value among the nodes in the index,
+  i.e. the labeled nodes that have the property. Indexes that are missing, or have not been sampled yet, fall back to
+  the hardcoded selectivity.
+   */
+  def indexSelectivity(label: LabelId, property: PropertyKeyId): Option[Selectivity] = try {
+    val sample = statement.readOperations().indexSample(new IndexDescriptor(label.id, property.id))
+    if (sample.sampleSize() == 0)
+      HardcodedGraphStatistics.indexSelectivity(label, property)
+    else {
+      val labeledNodes = math.max(statement.readOperations().countsForNode(label.id), sample.indexSize())
+      val withProperty = if (labeledNodes == 0) 1.0 else sample.indexSize().toDouble / labeledNodes
+      Some(Selectivity(sample.valueSelectivity() * withProperty))
+    }
+  } catch {
+    case _: IndexNotFoundKernelException => HardcodedGraphStatistics.indexSelectivity(label, property)
+  }
 
   def nodesWithLabelCardinality(labelId: Option[LabelId]): Cardinality =
     statement.readOperations().countsForNode(labelId)
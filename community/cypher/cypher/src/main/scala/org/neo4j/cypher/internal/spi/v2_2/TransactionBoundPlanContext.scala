@@ -26,10 +26,14 @@ import org.neo4j.kernel.GraphDatabaseAPI
 import org.neo4j.kernel.api.Statement
 import org.neo4j.kernel.api.constraints.UniquenessConstraint
 import org.neo4j.kernel.api.exceptions.KernelException
+import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException
 import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException
 import org.neo4j.kernel.api.index.{IndexDescriptor, InternalIndexState}
+import org.neo4j.kernel.impl.api.operations.KeyReadOperations
 import org.neo4j.kernel.impl.transaction.log.TransactionIdStore
 
+import scala.collection.JavaConverters._
+
 class TransactionBoundPlanContext(statement: Statement, val gdb: GraphDatabaseService)
   extends TransactionBoundTokenContext(statement) with PlanContext {
 
@@ -41,6 +45,16 @@ class TransactionBoundPlanContext(statement: Statement, val gdb: GraphDatabaseSe
     getOnlineIndex(statement.readOperations().indexesGetForLabelAndPropertyKey(labelId, propertyKeyId))
   }
 
+  def getCompositeIndexRules(labelName: String): Seq[IndexDescriptor] = {
+    val labelId = statement.readOperations().labelGetForName(labelName)
+    if (labelId == KeyReadOperations.NO_SUCH_LABEL)
+      Seq.empty
+    else
+      statement.readOperations().indexesGetForLabel(labelId).asScala.toList
+        .filter(_.isComposite)
+        .flatMap(getOnlineIndex)
+  }
+
   def getUniqueIndexRule(labelName: String, propertyKey: String): Option[IndexDescriptor] = evalOrNone {
     val labelId = statement.readOperations().labelGetForName(labelName)
     val propertyKeyId = statement.readOperations().propertyKeyGetForName(propertyKey)
@@ -48,6 +62,12 @@ class TransactionBoundPlanContext(statement: Statement, val gdb: GraphDatabaseSe
     Some(statement.readOperations().uniqueIndexGetForLabelAndPropertyKey(labelId, propertyKeyId))
   }
 
+  def indexSeeksInOrder(index: IndexDescriptor): Boolean = try {
+    statement.readOperations().indexSeeksInOrder(index)
+  } catch {
+    case _: IndexNotFoundKernelException => false
+  }
+
   private def evalOrNone[T](f: => Option[T]): Option[T] =
     try { f } catch { case _: SchemaRuleNotFoundException => None }
 
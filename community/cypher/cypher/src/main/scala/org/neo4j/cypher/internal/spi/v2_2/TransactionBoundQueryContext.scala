@@ -32,7 +32,7 @@ import org.neo4j.kernel.api._
 import org.neo4j.kernel.api.constraints.UniquenessConstraint
 import org.neo4j.kernel.api.exceptions.schema.{AlreadyConstrainedException, AlreadyIndexedException}
 import org.neo4j.kernel.api.index.{IndexDescriptor, InternalIndexState}
-import org.neo4j.kernel.impl.api.KernelStatement
+import org.neo4j.kernel.impl.api.{KernelStatement, RelationshipVisitor}
 import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge
 import org.neo4j.kernel.{GraphDatabaseAPI, InternalAbstractGraphDatabase}
 import org.neo4j.tooling.GlobalGraphOperations
@@ -121,6 +121,15 @@ final class TransactionBoundQueryContext(graph: GraphDatabaseAPI,
   def exactIndexSearch(index: IndexDescriptor, value: Any) =
     mapToScala(statement.readOperations().nodesGetFromIndexLookup(index, value))(nodeOps.getById)
 
+  def indexSeekByNumberRange(index: IndexDescriptor, lower: Number, includeLower: Boolean, upper: Number, includeUpper: Boolean) =
+    mapToScala(statement.readOperations().nodesGetFromIndexRangeSeekByNumber(index, lower, includeLower, upper, includeUpper))(nodeOps.getById)
+
+  def indexSeekByStringRange(index: IndexDescriptor, lower: String, includeLower: Boolean, upper: String, includeUpper: Boolean) =
+    mapToScala(statement.readOperations().nodesGetFromIndexRangeSeekByString(index, lower, includeLower, upper, includeUpper))(nodeOps.getById)
+
+  def indexSeekByPrefix(index: IndexDescriptor, prefix: String) =
+    mapToScala(statement.readOperations().nodesGetFromIndexRangeSeekByPrefix(index, prefix))(nodeOps.getById)
+
   def exactUniqueIndexSearch(index: IndexDescriptor, value: Any): Option[Node] = {
     val nodeId: Long = statement.readOperations().nodeGetUniqueFromIndexLookup(index, value)
     if (StatementConstants.NO_SUCH_NODE == nodeId) None else Some(nodeOps.getById(nodeId))
@@ -138,6 +147,36 @@ final class TransactionBoundQueryContext(graph: GraphDatabaseAPI,
   def getNodesByLabel(id: Int): Iterator[Node] =
     mapToScala(statement.readOperations().nodesGetForLabel(id))(nodeOps.getById)
 
+  def getAllNodesPrimitive: PrimitiveLongIterator =
+    statement.readOperations().nodesGetAll()
+
+  def getNodesByLabelPrimitive(id: Int): PrimitiveLongIterator =
+    statement.readOperations().nodesGetForLabel(id)
+
+  def exactIndexSearchPrimitive(index: IndexDescriptor, value: Any): PrimitiveLongIterator =
+    statement.readOperations().nodesGetFromIndexLookup(index, value)
+
+  def getRelationshipsForIdsPrimitive(node: Long, dir: Direction, types: Array[Int]): PrimitiveLongIterator =
+    if (types.isEmpty)
+      statement.readOperations().nodeGetRelationships(node, dir)
+    else
+      statement.readOperations().nodeGetRelationships(node, dir, types: _*)
+
+  def getOtherNodeIdPrimitive(relationship: Long, node: Long): Long = {
+    statement.readOperations().relationshipVisit(relationship, endNodes)
+    if (endNodes.start == node) endNodes.end else endNodes.start
+  }
+
+  private object endNodes extends RelationshipVisitor[RuntimeException] {
+    var start = -1L
+    var end = -1L
+
+    def visit(relId: Long, relType: Int, startNode: Long, endNode: Long) {
+      start = startNode
+      end = endNode
+    }
+  }
+
   private def kernelStatement: KernelStatement =
     txBridge
       .getKernelTransactionBoundToThisThread(true)
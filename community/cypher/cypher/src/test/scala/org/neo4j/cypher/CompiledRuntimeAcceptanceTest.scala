@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher
+
+class CompiledRuntimeAcceptanceTest extends ExecutionEngineFunSuite with NewPlannerTestSupport {
+
+  test("should compile label scans with filters and projections") {
+    // Given
+    createLabeledNode(Map("name" -> "Andres"), "Person")
+    createLabeledNode(Map("name" -> "Stefan"), "Person")
+    createLabeledNode(Map("name" -> "Jakub"), "Person")
+    createLabeledNode(Map("name" -> "Andres"), "Dog")
+
+    // When
+    val result = executeWithNewPlanner("CYPHER runtime=compiled MATCH (p:Person) WHERE p.name = 'Andres' OR p.name IN ['Jakub'] RETURN p.name AS name")
+
+    // Then
+    result.columnAs[String]("name").toSet should equal(Set("Andres", "Jakub"))
+    result.executionPlanDescription().toString should include("CompiledPlan")
+  }
+
+  test("should compile expands and aggregations") {
+    // Given
+    val a = createLabeledNode(Map("age" -> 10), "Person")
+    val b = createLabeledNode(Map("age" -> 20), "Person")
+    val c = createLabeledNode(Map("age" -> 30), "Person")
+    relate(a, b, "KNOWS")
+    relate(a, c, "KNOWS")
+    relate(b, c, "LIKES")
+
+    // When
+    val result = executeWithNewPlanner("CYPHER runtime=compiled MATCH (x:Person)-[:KNOWS]->(y) RETURN count(*) AS c, sum(y.age) AS s")
+
+    // Then
+    result.toList should equal(List(Map("c" -> 2, "s" -> 50)))
+    result.executionPlanDescription().toString should include("CompiledPlan")
+  }
+
+  test("should compile index seeks on parameters") {
+    // Given
+    graph.createIndex("Person", "name")
+    val andres = createLabeledNode(Map("name" -> "Andres"), "Person")
+    createLabeledNode(Map("name" -> "Stefan"), "Person")
+
+    // When
+    val result = executeWithNewPlanner("CYPHER runtime=compiled MATCH (p:Person) WHERE p.name = {name} RETURN p", "name" -> "Andres")
+
+    // Then
+    result.columnAs[Any]("p").toList should equal(List(andres))
+    result.executionPlanDescription().toString should include("CompiledPlan")
+  }
+
+  test("should interpret the parts of a plan that can not be compiled") {
+    // Given
+    createLabeledNode(Map("age" -> 10), "Person")
+    createLabeledNode(Map("age" -> 40), "Person")
+
+    // When
+    val result = executeWithNewPlanner("CYPHER runtime=compiled MATCH (p:Person) WHERE p.age > 20 RETURN p.age AS age ORDER BY age")
+
+    // Then
+    result.toList should equal(List(Map("age" -> 40)))
+  }
+
+  test("should not compile queries unless asked to") {
+    // Given
+    createLabeledNode("Person")
+
+    // When
+    val result = executeWithNewPlanner("MATCH (p:Person) RETURN count(*) AS c")
+
+    // Then
+    result.toList should equal(List(Map("c" -> 1)))
+    result.executionPlanDescription().toString should not include "CompiledPlan"
+  }
+}
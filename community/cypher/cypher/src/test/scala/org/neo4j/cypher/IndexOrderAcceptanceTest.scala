@@ -0,0 +1,56 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings
+
+class IndexOrderAcceptanceTest extends ExecutionEngineFunSuite with NewPlannerTestSupport {
+
+  override def databaseConfig(): Map[String,String] =
+    super.databaseConfig() + (GraphDatabaseSettings.native_schema_indexes.name() -> "true")
+
+  test("should not sort the nodes of a range seek in an index that seeks in order") {
+    // Given
+    Seq(7, 3, 9, 1, 5, 8, 2).foreach(i => createLabeledNode(Map("prop" -> i), "L"))
+    graph.createIndex("L", "prop")
+
+    // When
+    val result = executeWithNewPlanner("MATCH (n:L) WHERE n.prop > 2 RETURN n.prop AS p ORDER BY p LIMIT 3")
+
+    // Then
+    result.columnAs[Int]("p").toList should equal(List(3, 5, 7))
+    result.executionPlanDescription().toString should not include "Top"
+  }
+
+  test("should return nodes created in the same transaction in order from a range seek") {
+    // Given
+    Seq(7, 3, 9).foreach(i => createLabeledNode(Map("prop" -> i), "L"))
+    graph.createIndex("L", "prop")
+
+    // When
+    val result = graph.inTx {
+      execute("CREATE (:L {prop: 4}), (:L {prop: 8}), (:L {prop: 1})")
+      executeWithNewPlanner("MATCH (n:L) WHERE n.prop > 2 RETURN n.prop AS p ORDER BY p LIMIT 4").columnAs[Int]("p").toList
+    }
+
+    // Then
+    result should equal(List(3, 4, 7, 8))
+  }
+}
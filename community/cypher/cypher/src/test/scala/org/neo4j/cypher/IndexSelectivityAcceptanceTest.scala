@@ -0,0 +1,40 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher
+
+import org.neo4j.kernel.impl.api.index.IndexingService
+
+class IndexSelectivityAcceptanceTest extends ExecutionEngineFunSuite with NewPlannerTestSupport {
+
+  test("should seek the sampled index that is most selective") {
+    // Given
+    (0 until 200).foreach(i => createLabeledNode(Map("country" -> (if (i % 2 == 0) "SE" else "DE"), "email" -> s"p$i@example.com"), "Person"))
+    graph.createIndex("Person", "country")
+    graph.createIndex("Person", "email")
+    graph.getDependencyResolver.resolveDependency(classOf[IndexingService]).sampleIndexes()
+
+    // When
+    val result = executeWithNewPlanner("MATCH (p:Person) WHERE p.email = 'p42@example.com' AND p.country = 'SE' RETURN p.email AS e")
+
+    // Then
+    result.columnAs[String]("e").toList should equal(List("p42@example.com"))
+    result.executionPlanDescription().toString should include(":Person(email)")
+  }
+}
@@ -60,6 +60,58 @@ class IndexUsageAcceptanceTest extends ExecutionEngineFunSuite with NewPlannerTe
     result.executionPlanDescription.toString should include("NodeIndexSeek")
   }
 
+  test("should use index range seek for inequalities on the property") {
+    // Given
+    execute("CREATE (:Crew { name:'Trinity', age: 29 }),(:Crew { name:'Morpheus', age: 39 }),(:Crew { name:'Neo', age: 32.5 })")
+    graph.createIndex("Crew", "age")
+
+    // When
+    val result = executeWithNewPlanner("MATCH (n:Crew) WHERE n.age > 30 AND n.age <= 39 RETURN n.name")
+
+    // Then
+    result.columnAs[String]("n.name").toSet should equal(Set("Morpheus", "Neo"))
+    result.executionPlanDescription.toString should include("NodeIndexRangeSeek")
+  }
+
+  test("should use index prefix seek for regular expressions with a literal prefix") {
+    // Given
+    execute("CREATE (:Crew { name:'Trinity' }),(:Crew { name:'Morpheus' }),(:Crew { name:'Mouse' }),(:Crew { name:'Neo' })")
+    graph.createIndex("Crew", "name")
+
+    // When
+    val result = executeWithNewPlanner("MATCH (n:Crew) WHERE n.name =~ 'Mo.*' RETURN n.name")
+
+    // Then
+    result.columnAs[String]("n.name").toSet should equal(Set("Morpheus", "Mouse"))
+    result.executionPlanDescription.toString should include("NodeIndexRangeSeek")
+  }
+
+  test("should use composite index when all its properties are bound by equalities") {
+    // Given
+    execute("CREATE (:Crew { name:'Neo', age: 32 }),(:Crew { name:'Neo', age: 33 }),(:Crew { name:'Trinity', age: 32 })")
+    graph.createIndex("Crew", "name", "age")
+
+    // When
+    val result = executeWithNewPlanner("MATCH (n:Crew) WHERE n.name = 'Neo' AND n.age = 32 RETURN n.name, n.age")
+
+    // Then
+    result.toList should equal(List(Map("n.name" -> "Neo", "n.age" -> 32)))
+    result.executionPlanDescription.toString should include("NodeCompositeIndexSeek")
+  }
+
+  test("should not use composite index when only some of its properties are bound") {
+    // Given
+    execute("CREATE (:Crew { name:'Neo', age: 32 }),(:Crew { name:'Neo', age: 33 })")
+    graph.createIndex("Crew", "name", "age")
+
+    // When
+    val result = executeWithNewPlanner("MATCH (n:Crew) WHERE n.name = 'Neo' RETURN n.age")
+
+    // Then
+    result.columnAs[Int]("n.age").toSet should equal(Set(32, 33))
+    result.executionPlanDescription.toString should not include "NodeCompositeIndexSeek"
+  }
+
   test("should be able to use value coming from UNWIND for index seek") {
     // Given
     graph.createIndex("Prop", "id")
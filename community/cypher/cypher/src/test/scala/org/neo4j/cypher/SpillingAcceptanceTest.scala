@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings
+
+class SpillingAcceptanceTest extends ExecutionEngineFunSuite with NewPlannerTestSupport {
+
+  override def databaseConfig(): Map[String,String] =
+    super.databaseConfig() + (GraphDatabaseSettings.query_memory_budget.name() -> "4k")
+
+  test("should sort rows that do not fit in the memory budget") {
+    // Given
+    (0 until 200).foreach(i => createNode("prop" -> (i * 37) % 200))
+
+    // When
+    val result = executeWithNewPlanner("PROFILE MATCH (n) RETURN n, n.prop AS p ORDER BY p DESC")
+
+    // Then
+    result.columnAs[Int]("p").toList should equal((0 until 200).reverse.toList)
+    result.executionPlanDescription().toString should include("spilled")
+  }
+
+  test("should aggregate and make distinct rows that do not fit in the memory budget") {
+    // Given
+    (0 until 200).foreach(i => createNode("prop" -> s"value${i % 50}"))
+
+    // When
+    val counts = executeWithNewPlanner("MATCH (n) RETURN n.prop AS p, count(*) AS c")
+    val distinct = executeWithNewPlanner("MATCH (n) RETURN DISTINCT n.prop AS p")
+
+    // Then
+    counts.toSet should equal((0 until 50).map(i => Map("p" -> s"value$i", "c" -> 4)).toSet)
+    distinct.columnAs[String]("p").toList.sorted should equal((0 until 50).map(i => s"value$i").sorted.toList)
+  }
+}
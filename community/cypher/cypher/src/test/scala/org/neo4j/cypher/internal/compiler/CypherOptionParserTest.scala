@@ -44,9 +44,15 @@ class CypherOptionParserTest extends CypherFunSuite {
     parse("EXPLAIN THIS") should equal(CypherQueryWithOptions("THIS", Seq(ExplainOption)))
   }
 
+  test("should parse runtime") {
+    parse("CYPHER runtime=compiled MATCH") should equal(CypherQueryWithOptions("MATCH", Seq(RuntimeOption("compiled"))))
+    parse("CYPHER runtime = interpreted MATCH") should equal(CypherQueryWithOptions("MATCH", Seq(RuntimeOption("interpreted"))))
+  }
+
   test("should parse multiple options") {
     parse("CYPHER 2.2-cost PROFILE PATTERN") should equal(CypherQueryWithOptions("PATTERN", Seq(VersionOption("2.2-cost"), ProfileOption)))
     parse("EXPLAIN CYPHER 2.1 YALL") should equal(CypherQueryWithOptions("YALL", Seq(ExplainOption, VersionOption("2.1"))))
+    parse("CYPHER 2.2 CYPHER runtime=compiled RETURN") should equal(CypherQueryWithOptions("RETURN", Seq(VersionOption("2.2"), RuntimeOption("compiled"))))
   }
 
   test("should require whitespace between option and query") {
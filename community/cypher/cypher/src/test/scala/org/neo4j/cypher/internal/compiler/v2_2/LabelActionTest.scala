@@ -24,6 +24,7 @@ import org.neo4j.cypher.internal.compiler.v2_2.commands.expressions.Literal
 import org.neo4j.cypher.internal.compiler.v2_2.commands.values.{KeyToken, TokenType}
 import org.neo4j.cypher.internal.compiler.v2_2.commands.{LabelAction, LabelSetOp}
 import org.neo4j.cypher.internal.compiler.v2_2.spi.{IdempotentResult, LockingQueryContext, QueryContext}
+import org.neo4j.collection.primitive.PrimitiveLongIterator
 import org.neo4j.graphdb.{Relationship, Direction, Node}
 import org.neo4j.kernel.api.constraints.UniquenessConstraint
 import org.neo4j.kernel.api.index.IndexDescriptor
@@ -118,8 +119,24 @@ class SnitchingQueryContext extends QueryContext {
 
   def exactIndexSearch(index: IndexDescriptor, value: Any): Iterator[Node] = ???
 
+  def indexSeekByNumberRange(index: IndexDescriptor, lower: Number, includeLower: Boolean, upper: Number, includeUpper: Boolean): Iterator[Node] = ???
+
+  def indexSeekByStringRange(index: IndexDescriptor, lower: String, includeLower: Boolean, upper: String, includeUpper: Boolean): Iterator[Node] = ???
+
+  def indexSeekByPrefix(index: IndexDescriptor, prefix: String): Iterator[Node] = ???
+
   def getNodesByLabel(id: Int): Iterator[Node] = ???
 
+  def getAllNodesPrimitive: PrimitiveLongIterator = ???
+
+  def getNodesByLabelPrimitive(id: Int): PrimitiveLongIterator = ???
+
+  def exactIndexSearchPrimitive(index: IndexDescriptor, value: Any): PrimitiveLongIterator = ???
+
+  def getRelationshipsForIdsPrimitive(node: Long, dir: Direction, types: Array[Int]): PrimitiveLongIterator = ???
+
+  def getOtherNodeIdPrimitive(relationship: Long, node: Long): Long = ???
+
   def upgrade(context: QueryContext): LockingQueryContext = ???
 
   def getOrCreateFromSchemaState[K, V](key: K, creator: => V): V = ???
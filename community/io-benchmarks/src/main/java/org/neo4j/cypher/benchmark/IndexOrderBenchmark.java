@@ -0,0 +1,133 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.cypher.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.neo4j.cypher.javacompat.ExecutionEngine;
+import org.neo4j.cypher.javacompat.ExecutionResult;
+import org.neo4j.graphdb.DynamicLabel;
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseFactory;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.io.fs.FileUtils;
+
+import static org.neo4j.helpers.collection.MapUtil.map;
+
+/**
+ * Measures {@code ORDER BY n.prop LIMIT k} over an index range seek, which the cost planner plans without a sort
+ * when the index returns nodes in the order of the property, like the native schema index does. Compares the
+ * native index with the Lucene one, where all nodes of the range are sorted to find the first few.
+ */
+@State( Scope.Benchmark )
+public class IndexOrderBenchmark
+{
+    private static final int NODES = 100_000;
+    private static final int BATCH = 10_000;
+    private static final Label LABEL = DynamicLabel.label( "L" );
+    private static final String QUERY =
+            "MATCH (n:L) WHERE n.prop >= {from} RETURN n.prop AS prop ORDER BY n.prop LIMIT {limit}";
+
+    @Param( {"true", "false"} )
+    public boolean nativeIndexes;
+
+    @Param( {"10", "1000"} )
+    public int limit;
+
+    private File storeDir;
+    private GraphDatabaseService db;
+    private ExecutionEngine engine;
+    private Map<String, Object> params;
+
+    @Setup( Level.Trial )
+    public void createDatabase() throws IOException
+    {
+        storeDir = File.createTempFile( "neo4j-index-order-benchmark", "" );
+        FileUtils.deleteRecursively( storeDir );
+        db = new GraphDatabaseFactory().newEmbeddedDatabaseBuilder( storeDir.getPath() )
+                .setConfig( GraphDatabaseSettings.native_schema_indexes, String.valueOf( nativeIndexes ) )
+                .setConfig( GraphDatabaseSettings.cypher_parser_version, "2.2-cost" )
+                .newGraphDatabase();
+
+        IndexDefinition index;
+        try ( Transaction tx = db.beginTx() )
+        {
+            index = db.schema().indexFor( LABEL ).on( "prop" ).create();
+            tx.success();
+        }
+        for ( int batch = 0; batch < NODES; batch += BATCH )
+        {
+            try ( Transaction tx = db.beginTx() )
+            {
+                for ( int i = batch; i < batch + BATCH; i++ )
+                {
+                    // Scattered values, so that node id order is not the property order
+                    db.createNode( LABEL ).setProperty( "prop", (i * 7919L) % NODES );
+                }
+                tx.success();
+            }
+        }
+        try ( Transaction tx = db.beginTx() )
+        {
+            db.schema().awaitIndexOnline( index, 10, TimeUnit.MINUTES );
+            tx.success();
+        }
+
+        engine = new ExecutionEngine( db );
+        params = map( "from", NODES / 10, "limit", limit );
+    }
+
+    @TearDown( Level.Trial )
+    public void deleteDatabase() throws IOException
+    {
+        db.shutdown();
+        FileUtils.deleteRecursively( storeDir );
+    }
+
+    @Benchmark
+    public long orderByWithLimit()
+    {
+        long sum = 0;
+        try ( Transaction tx = db.beginTx() )
+        {
+            ExecutionResult result = engine.execute( QUERY, params );
+            for ( Map<String, Object> row : result )
+            {
+                sum += ((Number) row.get( "prop" )).longValue();
+            }
+            tx.success();
+        }
+        return sum;
+    }
+}
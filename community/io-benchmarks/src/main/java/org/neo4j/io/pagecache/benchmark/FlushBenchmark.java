@@ -0,0 +1,86 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Setup;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_EXCLUSIVE_LOCK;
+
+/**
+ * Measures the throughput of flushing a file where {@link #dirtyPercentage}
+ * percent of its pages have been dirtied since the last flush.
+ *
+ * The file fits in the page cache, so no flushing happens as part of
+ * eviction. The pages are dirtied in a per-invocation setup method, which is
+ * fine here because a flush takes milliseconds.
+ */
+public class FlushBenchmark extends PageCacheBenchmark
+{
+    /**
+     * The percentage of the file pages that are dirty when the flush begins.
+     */
+    @Param( {"10", "100"} )
+    public int dirtyPercentage;
+
+    @Override
+    protected int filePages()
+    {
+        return maxPages / 2;
+    }
+
+    @Setup( Level.Invocation )
+    public void dirtyPages() throws IOException
+    {
+        int step = Math.max( 1, 100 / dirtyPercentage );
+        try ( PageCursor cursor = pagedFile.io( 0, PF_EXCLUSIVE_LOCK ) )
+        {
+            for ( long pageId = 0; pageId < filePages(); pageId += step )
+            {
+                if ( cursor.next( pageId ) )
+                {
+                    do
+                    {
+                        cursor.putLong( 0, pageId );
+                    }
+                    while ( cursor.shouldRetry() );
+                }
+            }
+        }
+    }
+
+    @Benchmark
+    public void flushFile() throws IOException
+    {
+        pagedFile.flush();
+    }
+
+    @Benchmark
+    public void flushCache() throws IOException
+    {
+        pageCache.flush();
+    }
+}
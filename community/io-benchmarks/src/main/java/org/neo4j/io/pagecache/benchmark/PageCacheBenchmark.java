@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.FileUtils;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.impl.muninn.EvictionPolicies;
+import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
+import org.neo4j.io.pagecache.monitoring.PageCacheMonitor;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_EXCLUSIVE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_LOCK;
+
+/**
+ * The common fixture for the page cache benchmarks.
+ *
+ * A file of {@link #filePages()} pages is created in a temporary directory,
+ * and mapped into a {@link MuninnPageCache} of {@link #cachePages()} pages,
+ * with its eviction thread running in the background. Sub-classes decide on
+ * the relationship between the two sizes, and thereby whether or not the
+ * benchmark will be dominated by page faults.
+ */
+@State( Scope.Benchmark )
+public abstract class PageCacheBenchmark
+{
+    /**
+     * The size of the cache pages and the file pages, in bytes.
+     */
+    @Param( {"8192"} )
+    public int pageSize;
+
+    /**
+     * The number of pages in the page cache.
+     */
+    @Param( {"1000"} )
+    public int maxPages;
+
+    /**
+     * The name of the eviction policy to use.
+     */
+    @Param( {"clock"} )
+    public String evictionPolicy;
+
+    protected FileSystemAbstraction fs;
+    protected File storeDir;
+    protected File file;
+    protected MuninnPageCache pageCache;
+    protected PagedFile pagedFile;
+    private Thread evictionThread;
+
+    @Setup( Level.Trial )
+    public void setUpPageCache() throws IOException
+    {
+        fs = new DefaultFileSystemAbstraction();
+        storeDir = File.createTempFile( "neo4j-pagecache-benchmark", "" );
+        fs.deleteFile( storeDir );
+        fs.mkdirs( storeDir );
+        file = new File( storeDir, "pagedfile" );
+
+        pageCache = new MuninnPageCache( new SingleFilePageSwapperFactory( fs ), cachePages(), pageSize,
+                PageCacheMonitor.NULL, EvictionPolicies.forName( evictionPolicy ) );
+        evictionThread = new Thread( pageCache, "Page Cache Eviction Thread" );
+        evictionThread.setDaemon( true );
+        evictionThread.start();
+
+        pagedFile = pageCache.map( file, pageSize );
+        fillFile( filePages() );
+    }
+
+    @TearDown( Level.Trial )
+    public void tearDownPageCache() throws Exception
+    {
+        pageCache.unmap( file );
+        pageCache.close();
+        evictionThread.interrupt();
+        evictionThread.join();
+        FileUtils.deleteRecursively( storeDir );
+    }
+
+    /**
+     * The number of cache pages to allocate. Defaults to {@link #maxPages}.
+     */
+    protected int cachePages()
+    {
+        return maxPages;
+    }
+
+    /**
+     * The number of pages the mapped file should have.
+     */
+    protected abstract int filePages();
+
+    /**
+     * Write every page of the file once, so that they all exist on disk, and
+     * then flush it all out.
+     */
+    private void fillFile( int pageCount ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( 0, PF_EXCLUSIVE_LOCK ) )
+        {
+            for ( long pageId = 0; pageId < pageCount && cursor.next(); pageId++ )
+            {
+                do
+                {
+                    for ( int offset = 0; offset + 8 <= pageSize; offset += 8 )
+                    {
+                        cursor.putLong( offset, pageId );
+                    }
+                }
+                while ( cursor.shouldRetry() );
+            }
+        }
+        pagedFile.flush();
+    }
+
+    /**
+     * Pin the given page with a shared lock, and read a long from it.
+     */
+    protected long readPage( long pageId ) throws IOException
+    {
+        long value = 0;
+        try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_LOCK ) )
+        {
+            if ( cursor.next() )
+            {
+                do
+                {
+                    value = cursor.getLong( 0 );
+                }
+                while ( cursor.shouldRetry() );
+            }
+        }
+        return value;
+    }
+
+    /**
+     * Pin the given page with an exclusive lock, and write a long to it.
+     */
+    protected void writePage( long pageId, long value ) throws IOException
+    {
+        try ( PageCursor cursor = pagedFile.io( pageId, PF_EXCLUSIVE_LOCK ) )
+        {
+            if ( cursor.next() )
+            {
+                do
+                {
+                    cursor.putLong( 0, value );
+                }
+                while ( cursor.shouldRetry() );
+            }
+        }
+    }
+
+    protected long randomPageId()
+    {
+        return ThreadLocalRandom.current().nextInt( filePages() );
+    }
+}
@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.benchmark;
+
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the page cache benchmarks once for every thread count given in the
+ * comma separated "org.neo4j.io.pagecache.benchmark.threads" system property.
+ *
+ * All other arguments are passed on to JMH, so a run of the pin benchmarks
+ * with two page sizes, for one, four and sixteen threads, could look like this:
+ * <pre><code>
+ *     java -Dorg.neo4j.io.pagecache.benchmark.threads=1,4,16 -jar target/benchmarks.jar \
+ *          PinUnpinBenchmark -p pageSize=4096,8192
+ * </code></pre>
+ */
+public class PageCacheBenchmarks
+{
+    private static final String threadCounts = System.getProperty(
+            "org.neo4j.io.pagecache.benchmark.threads", "1,2,4,8" );
+
+    public static void main( String[] args ) throws Exception
+    {
+        CommandLineOptions commandLineOptions = new CommandLineOptions( args );
+        if ( commandLineOptions.getThreads().hasValue() )
+        {
+            // An explicit thread count on the command line overrides the property.
+            new Runner( commandLineOptions ).run();
+            return;
+        }
+
+        for ( String threadCount : threadCounts.split( "," ) )
+        {
+            Options options = new OptionsBuilder()
+                    .parent( commandLineOptions )
+                    .threads( Integer.parseInt( threadCount.trim() ) )
+                    .build();
+            new Runner( options ).run();
+        }
+    }
+}
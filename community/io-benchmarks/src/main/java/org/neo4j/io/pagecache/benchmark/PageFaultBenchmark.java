@@ -0,0 +1,62 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Measures the page fault throughput, when the working set is larger than
+ * the page cache.
+ *
+ * The file is {@link #overcommitFactor} times larger than the cache, so most
+ * pins will have to wait for the eviction thread to free up a page, and then
+ * read the page in from the file.
+ */
+public class PageFaultBenchmark extends PageCacheBenchmark
+{
+    /**
+     * How many times larger than the page cache the file is.
+     */
+    @Param( {"2", "10"} )
+    public int overcommitFactor;
+
+    @Override
+    protected int filePages()
+    {
+        return maxPages * overcommitFactor;
+    }
+
+    @Benchmark
+    public long faultReading() throws IOException
+    {
+        return readPage( randomPageId() );
+    }
+
+    @Benchmark
+    public void faultWriting() throws IOException
+    {
+        // Writing faults dirty the pages, so evicting them will also cost a flush.
+        writePage( randomPageId(), ThreadLocalRandom.current().nextLong() );
+    }
+}
@@ -0,0 +1,83 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Param;
+
+/**
+ * Measures the cost of pinning and unpinning pages that are already in
+ * memory, under various mixes of shared and exclusive locking.
+ *
+ * The working set of {@link #hotPages} pages always fits in the cache, so
+ * after warm-up, these benchmarks only exercise the translation tables and
+ * the sequence locks on the pages. Lowering {@link #hotPages} increases the
+ * contention on the individual pages.
+ */
+public class PinUnpinBenchmark extends PageCacheBenchmark
+{
+    /**
+     * The number of pages the threads pin at random. Must not exceed
+     * {@link #maxPages}.
+     */
+    @Param( {"10", "500"} )
+    public int hotPages;
+
+    @Override
+    protected int filePages()
+    {
+        return Math.min( hotPages, maxPages );
+    }
+
+    @Benchmark
+    @Group( "read" )
+    public long read() throws IOException
+    {
+        return readPage( randomPageId() );
+    }
+
+    @Benchmark
+    @Group( "write" )
+    public void write() throws IOException
+    {
+        writePage( randomPageId(), ThreadLocalRandom.current().nextLong() );
+    }
+
+    @Benchmark
+    @Group( "readMostly" )
+    @GroupThreads( 3 )
+    public long readMostlyReader() throws IOException
+    {
+        return readPage( randomPageId() );
+    }
+
+    @Benchmark
+    @Group( "readMostly" )
+    @GroupThreads( 1 )
+    public void readMostlyWriter() throws IOException
+    {
+        writePage( randomPageId(), ThreadLocalRandom.current().nextLong() );
+    }
+}
@@ -0,0 +1,98 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.benchmark;
+
+import java.io.IOException;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+
+import org.neo4j.io.pagecache.PageCursor;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_LOCK;
+
+/**
+ * Compares sequential and random scans of a file, where the file is
+ * {@link #fileToCacheRatio} percent the size of the page cache.
+ *
+ * Ratios below 100 measure scans over cached data, while ratios above 100
+ * measure scans that must continuously fault pages in. Results are reported
+ * per page visited.
+ */
+public class ScanBenchmark extends PageCacheBenchmark
+{
+    private static final int PAGES_PER_SCAN = 1000;
+
+    /**
+     * The size of the file, as a percentage of the size of the page cache.
+     */
+    @Param( {"50", "400"} )
+    public int fileToCacheRatio;
+
+    @Override
+    protected int filePages()
+    {
+        return Math.max( PAGES_PER_SCAN, (int) ((long) maxPages * fileToCacheRatio / 100) );
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( PAGES_PER_SCAN )
+    public long sequentialScan() throws IOException
+    {
+        long sum = 0;
+        long startPageId = randomPageId() % (filePages() - PAGES_PER_SCAN + 1);
+        try ( PageCursor cursor = pagedFile.io( startPageId, PF_SHARED_LOCK ) )
+        {
+            for ( int i = 0; i < PAGES_PER_SCAN && cursor.next(); i++ )
+            {
+                long value;
+                do
+                {
+                    value = cursor.getLong( 0 );
+                }
+                while ( cursor.shouldRetry() );
+                sum += value;
+            }
+        }
+        return sum;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( PAGES_PER_SCAN )
+    public long randomScan() throws IOException
+    {
+        long sum = 0;
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_LOCK ) )
+        {
+            for ( int i = 0; i < PAGES_PER_SCAN && cursor.next( randomPageId() ); i++ )
+            {
+                long value;
+                do
+                {
+                    value = cursor.getLong( 0 );
+                }
+                while ( cursor.shouldRetry() );
+                sum += value;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,100 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.state.benchmark;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.neo4j.kernel.api.TxState;
+import org.neo4j.kernel.api.properties.DefinedProperty;
+import org.neo4j.kernel.impl.api.state.LegacyIndexTransactionState;
+import org.neo4j.kernel.impl.api.state.TxStateImpl;
+
+import static org.neo4j.kernel.api.properties.Property.intProperty;
+import static org.neo4j.kernel.api.properties.Property.noNodeProperty;
+
+/**
+ * Measures building the transaction state of large write transactions, where every node is created, labeled and given
+ * a property, and then visited like at commit. Compares a fresh {@link TxStateImpl} per transaction with one that is
+ * {@link TxStateImpl#clear() cleared} and re-used, like pooled kernel transactions do.
+ *
+ * Results are reported per entity. Run with the JMH GC profiler, {@code -prof gc}, to see the allocation rate and the
+ * time spent in GC pauses.
+ */
+@State( Scope.Thread )
+public class TxStateBenchmark
+{
+    private static final int ENTITIES = 100_000;
+    private static final int LABEL = 1;
+    private static final int PROPERTY_KEY = 2;
+
+    @Param( {"true", "false"} )
+    public boolean reuse;
+
+    private final LegacyIndexTransactionState legacyIndexTransactionState =
+            new LegacyIndexTransactionState( null, null );
+    private TxStateImpl txState;
+
+    @Setup( Level.Invocation )
+    public void newTransaction()
+    {
+        if ( reuse && txState != null )
+        {
+            txState.clear();
+        }
+        else
+        {
+            txState = new TxStateImpl( legacyIndexTransactionState );
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( ENTITIES )
+    public long createLabeledNodes()
+    {
+        for ( long nodeId = 0; nodeId < ENTITIES; nodeId++ )
+        {
+            DefinedProperty property = intProperty( PROPERTY_KEY, (int) nodeId );
+            txState.nodeDoCreate( nodeId );
+            txState.nodeDoAddLabel( LABEL, nodeId );
+            txState.nodeDoReplaceProperty( nodeId, noNodeProperty( nodeId, PROPERTY_KEY ), property );
+        }
+
+        CountingVisitor visitor = new CountingVisitor();
+        txState.accept( visitor );
+        return visitor.count;
+    }
+
+    private static class CountingVisitor extends TxState.VisitorAdapter
+    {
+        long count;
+
+        @Override
+        public void visitCreatedNode( long id )
+        {
+            count++;
+        }
+    }
+}
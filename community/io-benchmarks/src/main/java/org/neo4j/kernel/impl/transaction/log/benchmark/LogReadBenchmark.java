@@ -0,0 +1,156 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log.benchmark;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import org.neo4j.io.fs.DefaultFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.FileUtils;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.CommandWriter;
+import org.neo4j.kernel.impl.transaction.log.LogVersionBridge;
+import org.neo4j.kernel.impl.transaction.log.LogVersionedStoreChannel;
+import org.neo4j.kernel.impl.transaction.log.MappedLogChannel;
+import org.neo4j.kernel.impl.transaction.log.PhysicalLogFile;
+import org.neo4j.kernel.impl.transaction.log.PhysicalLogFiles;
+import org.neo4j.kernel.impl.transaction.log.PhysicalLogVersionedStoreChannel;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionCursor;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.PhysicalWritableLogChannel;
+import org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel;
+import org.neo4j.kernel.impl.transaction.log.ReadableVersionableLogChannel;
+import org.neo4j.kernel.impl.transaction.log.ReaderLogVersionBridge;
+import org.neo4j.kernel.impl.transaction.log.TransactionLogWriter;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryReaderFactory;
+import org.neo4j.kernel.impl.transaction.log.entry.LogEntryWriterv1;
+
+import static org.neo4j.kernel.impl.transaction.log.ReadAheadLogChannel.DEFAULT_READ_AHEAD_SIZE;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderWriter.writeLogHeader;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogVersions.CURRENT_LOG_VERSION;
+
+/**
+ * Measures how fast transactions can be read back from rotated log files, which is what recovery and catching up
+ * from another instance spend their time on. Compares the {@link ReadAheadLogChannel read-ahead} reader with the
+ * {@link MappedLogChannel memory mapped} one. Results are reported per transaction.
+ */
+@State( Scope.Benchmark )
+public class LogReadBenchmark
+{
+    private static final int LOG_VERSIONS = 4;
+    private static final int TRANSACTIONS = 100_000;
+
+    @Param( {"read-ahead", "mapped"} )
+    public String reader;
+
+    /**
+     * The number of node commands in each transaction.
+     */
+    @Param( {"1", "10"} )
+    public int commandsPerTransaction;
+
+    private final FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+    private File directory;
+    private PhysicalLogFiles logFiles;
+
+    @Setup( Level.Trial )
+    public void writeLogs() throws IOException
+    {
+        directory = File.createTempFile( "neo4j-log-read-benchmark", "" );
+        fs.deleteFile( directory );
+        fs.mkdirs( directory );
+        logFiles = new PhysicalLogFiles( directory, "log", fs );
+        long txId = 1;
+        for ( int version = 0; version < LOG_VERSIONS; version++ )
+        {
+            try ( StoreChannel storeChannel = fs.create( logFiles.getLogFileForVersion( version ) ) )
+            {
+                storeChannel.writeAll( writeLogHeader( ByteBuffer.allocate( LOG_HEADER_SIZE ), version, txId - 1 ) );
+                PhysicalWritableLogChannel channel = new PhysicalWritableLogChannel(
+                        new PhysicalLogVersionedStoreChannel( storeChannel, version, CURRENT_LOG_VERSION ) );
+                TransactionLogWriter writer =
+                        new TransactionLogWriter( new LogEntryWriterv1( channel, new CommandWriter( channel ) ) );
+                for ( int i = 0; i < TRANSACTIONS / LOG_VERSIONS; i++, txId++ )
+                {
+                    writer.append( transaction( txId ), txId );
+                }
+                channel.emptyBufferIntoChannelAndClearIt();
+            }
+        }
+    }
+
+    private PhysicalTransactionRepresentation transaction( long txId )
+    {
+        List<Command> commands = new ArrayList<>( commandsPerTransaction );
+        for ( int i = 0; i < commandsPerTransaction; i++ )
+        {
+            long nodeId = txId * commandsPerTransaction + i;
+            commands.add( new Command.NodeCommand().init( new NodeRecord( nodeId, false, -1, -1, false ),
+                    new NodeRecord( nodeId, false, -1, -1, true ) ) );
+        }
+        PhysicalTransactionRepresentation transaction = new PhysicalTransactionRepresentation( commands );
+        transaction.setHeader( new byte[0], -1, -1, txId, txId - 1, txId, -1 );
+        return transaction;
+    }
+
+    @TearDown( Level.Trial )
+    public void deleteLogs() throws IOException
+    {
+        FileUtils.deleteRecursively( directory );
+    }
+
+    @Benchmark
+    @OperationsPerInvocation( TRANSACTIONS )
+    public long readAllTransactions() throws IOException
+    {
+        LogVersionedStoreChannel startingChannel = PhysicalLogFile.openForVersion( logFiles, fs, 0 );
+        LogVersionBridge bridge = new ReaderLogVersionBridge( fs, logFiles );
+        ReadableVersionableLogChannel channel = "mapped".equals( reader ) ?
+                new MappedLogChannel( startingChannel, bridge, DEFAULT_READ_AHEAD_SIZE, Long.MAX_VALUE ) :
+                new ReadAheadLogChannel( startingChannel, bridge, DEFAULT_READ_AHEAD_SIZE );
+
+        long sum = 0;
+        try ( PhysicalTransactionCursor<ReadableVersionableLogChannel> cursor =
+                new PhysicalTransactionCursor<>( channel, new LogEntryReaderFactory().versionable() ) )
+        {
+            while ( cursor.next() )
+            {
+                sum += cursor.get().getCommitEntry().getTxId();
+            }
+        }
+        return sum;
+    }
+}
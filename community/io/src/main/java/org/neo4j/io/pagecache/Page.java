@@ -20,6 +20,7 @@
 package org.neo4j.io.pagecache;
 
 import java.io.IOException;
+import java.nio.ByteBuffer;
 
 import org.neo4j.io.fs.StoreChannel;
 
@@ -152,6 +153,17 @@ public interface Page
      */
     void swapOut( StoreChannel channel, long offset, int length ) throws IOException;
 
+    /**
+     * Get a ByteBuffer that views the first <code>length</code> bytes of this
+     * page, with its position at zero. This is used for vectored IO, where the
+     * contents of several pages are read or written with a single call into
+     * the file system.
+     *
+     * The buffer must only be used while the page is locked, and must not be
+     * retained beyond that.
+     */
+    ByteBuffer asByteBuffer( int length );
+
     /**
      * Get the internal id of this cache page object.
      */
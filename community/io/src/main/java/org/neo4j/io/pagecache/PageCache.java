@@ -41,6 +41,19 @@ public interface PageCache
      */
     PagedFile map( File file, int pageSize ) throws IOException;
 
+    /**
+     * Ask for a handle to a paged file, like {@link #map(File, int)}, and reserve a share of the cache for it.
+     *
+     * The reservation is given as a percentage of the {@link #maxCachedPages() cached pages}. Pages that belong
+     * to the file will not be evicted, as long as the file has no more pages in the cache than it has reserved.
+     * This way, small and frequently used files can be protected from being evicted by large files that are
+     * accessed less often. If the file is already mapped, then the larger of the two reservations applies.
+     *
+     * Implementations are free to ignore the reservation, and may refuse reservations that would leave too
+     * little of the cache for the other mapped files.
+     */
+    PagedFile map( File file, int pageSize, int reservedPercentage ) throws IOException;
+
     /**
      * Release a handle to a paged file.
      *
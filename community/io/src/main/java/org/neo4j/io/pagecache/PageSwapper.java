@@ -47,6 +47,22 @@ public interface PageSwapper
      */
     int read( long filePageId, Page page ) throws IOException;
 
+    /**
+     * Read the consecutive file pages, starting at the given filePageId, into
+     * the given range of the pages array, with as few calls into the file
+     * system as possible.
+     *
+     * This should be implemented using the {@link Page#asByteBuffer(int)}
+     * method.
+     *
+     * Returns the total number of bytes read in from the file. Pages that are
+     * beyond the end of the file, will be filled with zeros.
+     *
+     * The same note on channels that have been asynchronously closed applies
+     * here, as with {@link #read(long, Page)}.
+     */
+    long read( long startFilePageId, Page[] pages, int arrayOffset, int length ) throws IOException;
+
     /**
      * Write the contents of the given page, to the concrete file on the file
      * system, at the located indicated by the given filePageId.
@@ -63,6 +79,21 @@ public interface PageSwapper
      */
     int write( long filePageId, Page page ) throws IOException;
 
+    /**
+     * Write the contents of the given range of the pages array, to the
+     * consecutive file pages starting at the given filePageId, with as few
+     * calls into the file system as possible.
+     *
+     * This should be implemented using the {@link Page#asByteBuffer(int)}
+     * method.
+     *
+     * Returns the total number of bytes written to the file.
+     *
+     * The same note on channels that have been asynchronously closed applies
+     * here, as with {@link #write(long, Page)}.
+     */
+    long write( long startFilePageId, Page[] pages, int arrayOffset, int length ) throws IOException;
+
     /**
      * Notification that a page has been evicted, used to clean up state in structures
      * outside the page table.
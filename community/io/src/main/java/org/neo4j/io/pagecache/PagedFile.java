@@ -52,9 +52,14 @@ public interface PagedFile
      */
     public static final int PF_NO_GROW = 1 << 2;
     /**
-     * Read-ahead hint for sequential forward scanning.
+     * Read-ahead hint for sequential forward scanning. When a cursor opened
+     * with this flag moves forward one page at a time, the page cache will
+     * load the pages ahead of it in the background, if it has free pages to
+     * spare. Scans that open a cursor of their own for every page also count,
+     * as long as all of their cursors are opened with this flag, by the same
+     * thread.
      */
-    public static final int PF_READ_AHEAD = 1 << 3; // TBD
+    public static final int PF_READ_AHEAD = 1 << 3;
     /**
      * Do not load in the page if it is not loaded already. Only useful with
      * exclusive locking when you want to overwrite the whole page anyway.
@@ -21,6 +21,7 @@ package org.neo4j.io.pagecache.impl;
 
 import java.io.File;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import java.nio.channels.ClosedChannelException;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
@@ -52,6 +53,11 @@ public class SingleFilePageSwapper implements PageSwapper
     // Guarded by synchronized(this). See tryReopen() and close().
     private boolean closed;
 
+    // Vectored IO goes through the channel position, so it has to be
+    // serialised. Single page IO uses positional reads and writes, and does
+    // not need this lock.
+    private final Object positionLock = new Object();
+
     // Accessed through unsafe
     private volatile long fileSize;
 
@@ -114,6 +120,65 @@ public class SingleFilePageSwapper implements PageSwapper
         return 0;
     }
 
+    @Override
+    public long read( long startFilePageId, Page[] pages, int arrayOffset, int length ) throws IOException
+    {
+        ByteBuffer[] buffers = new ByteBuffer[length];
+        for ( int i = 0; i < length; i++ )
+        {
+            buffers[i] = pages[arrayOffset + i].asByteBuffer( filePageSize );
+        }
+
+        long offset = pageIdToPosition( startFilePageId );
+        long bytesRead = 0;
+        try
+        {
+            if ( offset < getCurrentFileSize() )
+            {
+                long expectedBytes = (long) filePageSize * length;
+                synchronized ( positionLock )
+                {
+                    StoreChannel channel = this.channel;
+                    channel.position( offset );
+                    long readBytes;
+                    while ( bytesRead < expectedBytes && (readBytes = channel.read( buffers )) != -1 )
+                    {
+                        if ( readBytes == 0 )
+                        {
+                            // A scattering read that makes no progress would otherwise have us spin forever.
+                            throw new IOException( "Unable to read " + length + " pages from file page id " +
+                                    startFilePageId + " of " + file + ": read " + bytesRead + " of " +
+                                    expectedBytes + " bytes before the channel stopped making progress" );
+                        }
+                        bytesRead += readBytes;
+                    }
+                }
+            }
+        }
+        catch ( ClosedChannelException e )
+        {
+            // See the single page read method.
+            tryReopen( e );
+            boolean interrupted = Thread.interrupted();
+            long result = read( startFilePageId, pages, arrayOffset, length );
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+            return result;
+        }
+
+        // Zero-fill whatever the file did not cover.
+        for ( ByteBuffer buffer : buffers )
+        {
+            while ( buffer.hasRemaining() )
+            {
+                buffer.put( (byte) 0 );
+            }
+        }
+        return bytesRead;
+    }
+
     @Override
     public int write( long filePageId, Page page ) throws IOException
     {
@@ -141,6 +206,54 @@ public class SingleFilePageSwapper implements PageSwapper
         }
     }
 
+    @Override
+    public long write( long startFilePageId, Page[] pages, int arrayOffset, int length ) throws IOException
+    {
+        ByteBuffer[] buffers = new ByteBuffer[length];
+        for ( int i = 0; i < length; i++ )
+        {
+            buffers[i] = pages[arrayOffset + i].asByteBuffer( filePageSize );
+        }
+
+        long offset = pageIdToPosition( startFilePageId );
+        long expectedBytes = (long) filePageSize * length;
+        increaseFileSizeTo( offset + expectedBytes );
+        try
+        {
+            long bytesWritten = 0;
+            synchronized ( positionLock )
+            {
+                StoreChannel channel = this.channel;
+                channel.position( offset );
+                while ( bytesWritten < expectedBytes )
+                {
+                    long written = channel.write( buffers );
+                    if ( written == 0 )
+                    {
+                        // A gathering write that makes no progress would otherwise have us spin forever.
+                        throw new IOException( "Unable to write " + length + " pages from file page id " +
+                                startFilePageId + " to " + file + ": wrote " + bytesWritten + " of " +
+                                expectedBytes + " bytes before the channel stopped making progress" );
+                    }
+                    bytesWritten += written;
+                }
+            }
+            return bytesWritten;
+        }
+        catch ( ClosedChannelException e )
+        {
+            // See the single page write method.
+            tryReopen( e );
+            boolean interrupted = Thread.interrupted();
+            long result = write( startFilePageId, pages, arrayOffset, length );
+            if ( interrupted )
+            {
+                Thread.currentThread().interrupt();
+            }
+            return result;
+        }
+    }
+
     @Override
     public void evicted( long filePageId, Page page )
     {
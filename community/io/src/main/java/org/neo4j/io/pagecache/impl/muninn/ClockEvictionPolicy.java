@@ -0,0 +1,101 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.io.pagecache.PageSwapper;
+
+/**
+ * The classic CLOCK eviction policy, and the default policy for the
+ * {@link MuninnPageCache}.
+ *
+ * Every cache page has a usage counter, which is optimistically incremented
+ * to a max of 5 whenever the page is pinned, and decremented whenever the
+ * clock hand of the eviction thread passes it. Pages are evicted when their
+ * usage counter reaches zero.
+ *
+ * This policy is cheap and works well for random access, but it is not scan
+ * resistant. Consider the {@link ClockProEvictionPolicy} if large scans are
+ * mixed with workloads that have hot working sets.
+ */
+public final class ClockEvictionPolicy implements EvictionPolicy
+{
+    public static final EvictionPolicyFactory FACTORY = new EvictionPolicyFactory()
+    {
+        @Override
+        public String getImplementationName()
+        {
+            return "clock";
+        }
+
+        @Override
+        public EvictionPolicy createEvictionPolicy( int maxPages )
+        {
+            return new ClockEvictionPolicy( maxPages );
+        }
+    };
+
+    private static final byte MAX_USAGE = 5;
+
+    // Plain, racy reads and writes. Lost updates only make the policy a
+    // little less accurate, and the eviction thread will eventually see the
+    // changes, because it does volatile reads and CAS's between every call.
+    private final byte[] usageStamps;
+
+    public ClockEvictionPolicy( int maxPages )
+    {
+        usageStamps = new byte[maxPages];
+    }
+
+    @Override
+    public void pageFaulted( int cachePageId, PageSwapper swapper, long filePageId )
+    {
+        usageStamps[cachePageId] = 1;
+    }
+
+    @Override
+    public void pageHit( int cachePageId )
+    {
+        byte usage = usageStamps[cachePageId];
+        // Only write when we have to, to avoid pointless cache line invalidation.
+        if ( usage < MAX_USAGE )
+        {
+            usageStamps[cachePageId] = (byte) (usage + 1);
+        }
+    }
+
+    @Override
+    public boolean shouldEvict( int cachePageId )
+    {
+        byte usage = usageStamps[cachePageId];
+        if ( usage > 0 )
+        {
+            usage--;
+            usageStamps[cachePageId] = usage;
+            return usage == 0;
+        }
+        return true;
+    }
+
+    @Override
+    public void pageEvicted( int cachePageId, PageSwapper swapper, long filePageId )
+    {
+        usageStamps[cachePageId] = 0;
+    }
+}
@@ -0,0 +1,236 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.io.pagecache.PageSwapper;
+
+/**
+ * A scan resistant eviction policy, modelled on CLOCK-Pro.
+ *
+ * Loaded pages are either hot or cold. Pages enter the cache as cold, and
+ * only cold pages are ever evicted. A cold page is promoted to hot if it is
+ * referenced again after the first time the clock hand has passed it. The
+ * references made between the page fault and the first pass of the clock
+ * hand are considered correlated; a scan that pins the same page once for
+ * every record on it, will not make that page hot. Hot pages are demoted to
+ * cold when they have not been referenced for a full sweep, and the number of
+ * hot pages exceeds the hot target.
+ *
+ * The ids of recently evicted cold pages are remembered in a ghost table.
+ * If a page is faulted in while its ghost is still remembered, then it was
+ * evicted too soon. It then skips the correlated reference period, and the
+ * cold target grows, giving cold pages a longer time to prove themselves.
+ * Ghosts that are forgotten without being faulted back in, shrink the cold
+ * target again.
+ *
+ * The upshot is that a large scan, where every page is used once, only ever
+ * displaces cold pages, while the hot working set stays in memory.
+ *
+ * If the clock hand makes a full sweep without finding anything to evict,
+ * then the reference bits are ignored until it does, so that page faults
+ * cannot starve when every page in the cache is in constant use.
+ */
+public final class ClockProEvictionPolicy implements EvictionPolicy
+{
+    public static final EvictionPolicyFactory FACTORY = new EvictionPolicyFactory()
+    {
+        @Override
+        public String getImplementationName()
+        {
+            return "clock-pro";
+        }
+
+        @Override
+        public EvictionPolicy createEvictionPolicy( int maxPages )
+        {
+            return new ClockProEvictionPolicy( maxPages );
+        }
+    };
+
+    private static final byte COLD_NEW = 0;
+    private static final byte COLD = 1;
+    private static final byte HOT = 2;
+
+    private final int minColdTarget;
+    private final int maxColdTarget;
+    private final int maxPages;
+
+    // Written by the eviction thread, and by faulting threads for the pages
+    // they have just faulted in, which the eviction thread will not look at
+    // until the fault has completed.
+    private final byte[] status;
+
+    // Plain, racy reads and writes, like in the ClockEvictionPolicy.
+    private final boolean[] referenced;
+
+    // The ghost table is direct mapped, and accessed without synchronisation.
+    // Racing updates can make us forget or misremember a ghost, which only
+    // affects how quickly the cold target adapts.
+    private final long[] ghosts;
+    private final int ghostMask;
+
+    private final AtomicInteger coldTarget;
+
+    // Only accessed by the eviction thread.
+    private int hotPages;
+    private int pagesSinceLastEviction;
+
+    public ClockProEvictionPolicy( int maxPages )
+    {
+        this.maxPages = maxPages;
+        this.minColdTarget = Math.max( 1, maxPages / 100 );
+        this.maxColdTarget = Math.max( minColdTarget, maxPages / 2 );
+        this.coldTarget = new AtomicInteger( Math.max( minColdTarget, maxPages / 10 ) );
+        this.status = new byte[maxPages];
+        this.referenced = new boolean[maxPages];
+
+        int ghostTableSize = Integer.highestOneBit( Math.max( 1, maxPages ) - 1 ) << 1;
+        this.ghosts = new long[Math.max( 2, ghostTableSize )];
+        this.ghostMask = ghosts.length - 1;
+    }
+
+    @Override
+    public void pageFaulted( int cachePageId, PageSwapper swapper, long filePageId )
+    {
+        long key = ghostKey( swapper, filePageId );
+        int slot = ghostSlot( key );
+        referenced[cachePageId] = false;
+        if ( ghosts[slot] == key )
+        {
+            // This page was evicted too soon.
+            ghosts[slot] = 0;
+            adjustColdTarget( 1 );
+            status[cachePageId] = COLD;
+            referenced[cachePageId] = true;
+        }
+        else
+        {
+            status[cachePageId] = COLD_NEW;
+        }
+    }
+
+    @Override
+    public void pageHit( int cachePageId )
+    {
+        // Only write when we have to, to avoid pointless cache line invalidation.
+        if ( !referenced[cachePageId] )
+        {
+            referenced[cachePageId] = true;
+        }
+    }
+
+    @Override
+    public boolean shouldEvict( int cachePageId )
+    {
+        boolean wasReferenced = referenced[cachePageId];
+        if ( wasReferenced )
+        {
+            referenced[cachePageId] = false;
+        }
+
+        boolean evict = decide( cachePageId, wasReferenced, pagesSinceLastEviction >= maxPages );
+        pagesSinceLastEviction = evict? 0 : pagesSinceLastEviction + 1;
+        return evict;
+    }
+
+    private boolean decide( int cachePageId, boolean wasReferenced, boolean starving )
+    {
+        switch ( status[cachePageId] )
+        {
+        case HOT:
+            if ( starving || (!wasReferenced && hotPages > maxPages - coldTarget.get()) )
+            {
+                status[cachePageId] = COLD;
+                hotPages--;
+            }
+            return false;
+        case COLD:
+            if ( starving || !wasReferenced )
+            {
+                return true;
+            }
+            if ( hotPages < maxPages - coldTarget.get() )
+            {
+                status[cachePageId] = HOT;
+                hotPages++;
+            }
+            return false;
+        default: // COLD_NEW
+            if ( starving || !wasReferenced )
+            {
+                // Used once, and never again; typical of a scan.
+                return true;
+            }
+            // The references so far have been correlated with the fault.
+            status[cachePageId] = COLD;
+            return false;
+        }
+    }
+
+    @Override
+    public void pageEvicted( int cachePageId, PageSwapper swapper, long filePageId )
+    {
+        // A page fault that fails will leave the page loaded, without telling
+        // us about it, so pages must be new and cold when they are freed.
+        status[cachePageId] = COLD_NEW;
+        referenced[cachePageId] = false;
+
+        long key = ghostKey( swapper, filePageId );
+        int slot = ghostSlot( key );
+        long forgotten = ghosts[slot];
+        ghosts[slot] = key;
+        if ( forgotten != 0 && forgotten != key )
+        {
+            // The forgotten page was not faulted back in while we remembered
+            // it, so it was right to evict it.
+            adjustColdTarget( -1 );
+        }
+    }
+
+    private void adjustColdTarget( int delta )
+    {
+        int current;
+        int update;
+        do
+        {
+            current = coldTarget.get();
+            update = Math.min( maxColdTarget, Math.max( minColdTarget, current + delta ) );
+        }
+        while ( update != current && !coldTarget.compareAndSet( current, update ) );
+    }
+
+    private static long ghostKey( PageSwapper swapper, long filePageId )
+    {
+        long key = (filePageId * 0x9E3779B97F4A7C15L) ^ System.identityHashCode( swapper );
+        return key == 0? 1 : key;
+    }
+
+    private int ghostSlot( long key )
+    {
+        return (int) (key ^ (key >>> 32)) & ghostMask;
+    }
+
+    int coldTarget()
+    {
+        return coldTarget.get();
+    }
+}
@@ -0,0 +1,65 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+/**
+ * The eviction policies available to the {@link MuninnPageCache}.
+ */
+public final class EvictionPolicies
+{
+    private static final EvictionPolicyFactory[] policies = {
+            ClockEvictionPolicy.FACTORY,
+            ClockProEvictionPolicy.FACTORY
+    };
+
+    // The eviction policy used when none is explicitly given to the page cache.
+    private static final String defaultPolicyName = System.getProperty(
+            "org.neo4j.io.pagecache.impl.muninn.evictionPolicy",
+            ClockEvictionPolicy.FACTORY.getImplementationName() );
+
+    private EvictionPolicies()
+    {
+    }
+
+    /**
+     * Get the factory for the eviction policy with the given implementation name.
+     *
+     * @throws IllegalArgumentException if there is no eviction policy by that name.
+     */
+    public static EvictionPolicyFactory forName( String name )
+    {
+        for ( EvictionPolicyFactory policy : policies )
+        {
+            if ( policy.getImplementationName().equals( name ) )
+            {
+                return policy;
+            }
+        }
+        throw new IllegalArgumentException( "No eviction policy named '" + name + "'" );
+    }
+
+    /**
+     * Get the factory for the default eviction policy.
+     */
+    public static EvictionPolicyFactory defaultPolicy()
+    {
+        return forName( defaultPolicyName );
+    }
+}
@@ -0,0 +1,66 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.neo4j.io.pagecache.PageSwapper;
+
+/**
+ * An EvictionPolicy decides which of the loaded pages the background eviction
+ * thread of the {@link MuninnPageCache} should evict, when the page cache
+ * runs low on free pages.
+ *
+ * The eviction thread sweeps over all the cache pages in a circle, and asks
+ * the policy about every loaded page it comes across. The policy in turn
+ * learns about page accesses through the {@link #pageFaulted} and
+ * {@link #pageHit} notifications. Cache pages are identified by their
+ * cache page id, which is a number between zero, inclusive, and the
+ * max number of pages in the cache, exclusive.
+ *
+ * <strong>Implementation note:</strong> The {@link #pageHit(int)} method is
+ * called by every thread, on every pin of a page that is already in memory,
+ * so it must be as cheap as possible. The {@link #shouldEvict(int)} and
+ * {@link #pageEvicted} methods are only ever called by the eviction thread.
+ */
+public interface EvictionPolicy
+{
+    /**
+     * The given file page has been faulted into the given cache page.
+     * Called by the page faulting thread.
+     */
+    public void pageFaulted( int cachePageId, PageSwapper swapper, long filePageId );
+
+    /**
+     * The given cache page was pinned, and was found to already contain the
+     * desired file page. Called by the pinning thread, unless the pin was made
+     * with the {@link org.neo4j.io.pagecache.PagedFile#PF_TRANSIENT} flag.
+     */
+    public void pageHit( int cachePageId );
+
+    /**
+     * The clock hand of the eviction thread has reached the given loaded cache
+     * page. Return {@code true} if the page should be evicted now.
+     */
+    public boolean shouldEvict( int cachePageId );
+
+    /**
+     * The given file page has been evicted from the given cache page.
+     */
+    public void pageEvicted( int cachePageId, PageSwapper swapper, long filePageId );
+}
@@ -40,7 +40,6 @@ import static org.neo4j.io.pagecache.impl.muninn.UnsafeUtil.storeByteOrderIsNati
 final class MuninnPage extends StampedLock implements Page
 {
     private static final Constructor<?> directBufferCtor;
-    private static final long usageStampOffset = UnsafeUtil.getFieldOffset( MuninnPage.class, "usageStamp" );
     static {
         Constructor<?> ctor = null;
         try
@@ -65,10 +64,6 @@ final class MuninnPage extends StampedLock implements Page
 
     private long pointer;
 
-    // Optimistically incremented; occasionally truncated to a max of 5.
-    // accessed through unsafe
-    private volatile byte usageStamp;
-
     // Next pointer in the freelist of available pages. This is either a
     // MuninnPage object, or a FreePage object. See the comment on the
     // MuninnPageCache.freelist field.
@@ -270,37 +265,6 @@ final class MuninnPage extends StampedLock implements Page
         }
     }
 
-    /** Increment the usage stamp to at most 5. */
-    public void incrementUsage()
-    {
-        byte usage = UnsafeUtil.getByteVolatile( this, usageStampOffset );
-        if ( usage < 5 )
-        {
-            // A Java 8 alternative:
-//            UnsafeUtil.getAndAddInt( this, usageStampOffset, 1 );
-
-            // Java 7:
-            UnsafeUtil.putByteVolatile( this, usageStampOffset, (byte) (usage + 1) );
-        }
-    }
-
-    /** Decrement the usage stamp. Returns true if it reaches 0. */
-    public boolean decrementUsage()
-    {
-        byte usage = UnsafeUtil.getByteVolatile( this, usageStampOffset );
-        if ( usage > 0 )
-        {
-            // A Java 8 alternative:
-//            return UnsafeUtil.getAndAddInt( this, usageStampOffset, -1 ) <= 1;
-
-            // Java 7:
-            usage--;
-            UnsafeUtil.putByteVolatile( this, usageStampOffset, usage );
-            return usage == 0;
-        }
-        return true;
-    }
-
     /**
      * NOTE: This method must be called while holding the page write lock.
      * This method assumes that initBuffer() has already been called at least once.
@@ -343,6 +307,27 @@ final class MuninnPage extends StampedLock implements Page
         }
     }
 
+    /**
+     * NOTE: This method must be called while holding the page lock.
+     * This method assumes that initBuffer() has already been called at least once.
+     */
+    @Override
+    public ByteBuffer asByteBuffer( int length )
+    {
+        try
+        {
+            ByteBuffer bufferProxy = (ByteBuffer) directBufferCtor.newInstance(
+                    pointer, cachePageSize );
+            bufferProxy.clear();
+            bufferProxy.limit( length );
+            return bufferProxy;
+        }
+        catch ( Exception e )
+        {
+            throw new IllegalStateException( "Cannot create a ByteBuffer view of " + this, e );
+        }
+    }
+
     /**
      * NOTE: This method must be called while holding at least the page read lock.
      * This method assumes that initBuffer() has already been called at least once.
@@ -421,6 +406,25 @@ final class MuninnPage extends StampedLock implements Page
         dirty = true;
     }
 
+    /**
+     * NOTE: This method must be called while holding a pessimistic lock on the page.
+     */
+    public boolean isDirty()
+    {
+        return dirty;
+    }
+
+    /**
+     * Mark the page as clean, once its contents have been written out as part
+     * of a vectored flush.
+     *
+     * NOTE: This method must be called while holding a pessimistic lock on the page.
+     */
+    public void markAsClean()
+    {
+        dirty = false;
+    }
+
     /**
      * NOTE: This method MUST be called while holding the page write lock.
      */
@@ -428,6 +432,23 @@ final class MuninnPage extends StampedLock implements Page
             PageSwapper swapper,
             long filePageId,
             PageFaultEvent faultEvent ) throws IOException
+    {
+        beginFault( swapper, filePageId );
+        int bytesRead = swapper.read( filePageId, this );
+        faultEvent.addBytesRead( bytesRead );
+        faultEvent.setCachePageId( cachePageId );
+        completeFault( swapper );
+    }
+
+    /**
+     * Prepare this page for having the contents of the given file page read
+     * into it, as part of a vectored read that covers several pages. Once the
+     * read has succeeded, the fault must be completed with
+     * {@link #completeFault(PageSwapper)}.
+     *
+     * NOTE: This method MUST be called while holding the page write lock.
+     */
+    public void beginFault( PageSwapper swapper, long filePageId )
     {
         assert isWriteLocked(): "Cannot fault page without write-lock";
         if ( this.swapper != null || this.filePageId != PageCursor.UNBOUND_PAGE_ID )
@@ -448,9 +469,14 @@ final class MuninnPage extends StampedLock implements Page
         // the file page, so any subsequent thread that finds the page in their
         // translation table will re-do the page fault.
         this.filePageId = filePageId; // Page now considered isLoaded()
-        int bytesRead = swapper.read( filePageId, this );
-        faultEvent.addBytesRead( bytesRead );
-        faultEvent.setCachePageId( cachePageId );
+    }
+
+    /**
+     * NOTE: This method MUST be called while holding the page write lock.
+     */
+    public void completeFault( PageSwapper swapper )
+    {
+        assert isWriteLocked(): "Cannot fault page without write-lock";
         this.swapper = swapper; // Page now considered isBoundTo( swapper, filePageId )
     }
 
@@ -21,15 +21,20 @@ package org.neo4j.io.pagecache.impl.muninn;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.locks.LockSupport;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.FileUtils;
+import org.neo4j.io.pagecache.monitoring.BackgroundFlushEvent;
 import org.neo4j.io.pagecache.monitoring.EvictionEvent;
 import org.neo4j.io.pagecache.monitoring.EvictionRunEvent;
 import org.neo4j.io.pagecache.monitoring.MajorFlushEvent;
 import org.neo4j.io.pagecache.monitoring.PageCacheMonitor;
+import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.RunnablePageCache;
@@ -100,6 +105,22 @@ public class MuninnPageCache implements RunnablePageCache
     private static final int pagesToKeepFree = Integer.getInteger(
             "org.neo4j.io.pagecache.impl.muninn.pagesToKeepFree", 30 );
 
+    // The number of background threads that serve PF_READ_AHEAD requests.
+    private static final int readAheadThreads = Integer.getInteger(
+            "org.neo4j.io.pagecache.impl.muninn.readAheadThreads", 1 );
+
+    // The number of read-ahead requests that can be queued up, before new
+    // requests are dropped on the floor.
+    private static final int readAheadQueueSize = Integer.getInteger(
+            "org.neo4j.io.pagecache.impl.muninn.readAheadQueueSize", 16 );
+
+    // The maximum number of dirty pages the eviction thread will flush in the
+    // background, every time it wakes up and finds that no eviction is
+    // needed. This trickles dirty pages out between the major flushes, which
+    // makes the major flushes shorter. Zero disables background flushing.
+    private static final int backgroundFlushPages = Integer.getInteger(
+            "org.neo4j.io.pagecache.impl.muninn.backgroundFlushPages", 16 );
+
     // This is a pre-allocated constant, so we can throw it without allocating any objects:
     private static final IOException oomException = new IOException(
             "OutOfMemoryError encountered in the page cache background eviction thread" );
@@ -117,8 +138,10 @@ public class MuninnPageCache implements RunnablePageCache
     private final PageSwapperFactory swapperFactory;
     private final int cachePageSize;
     private final int keepFree;
+    private final int readAheadReserve;
     private final MuninnCursorPool cursorPool;
     private final PageCacheMonitor monitor;
+    final EvictionPolicy evictionPolicy;
     final MuninnPage[] pages;
 
     // The freelist takes a bit of explanation. It is a thread-safe linked-list
@@ -145,14 +168,26 @@ public class MuninnPageCache implements RunnablePageCache
     // Linked list of mappings - guarded by synchronized(this)
     private volatile FileMapping mappedFiles;
 
+    // The sum of the pages reserved by the mapped files. Writes guarded by
+    // synchronized(this), reads by the eviction thread are unsynchronized.
+    private volatile int reservedPages;
+
     // The thread that runs the eviction algorithm. We unpark this when we've run out of
     // free pages to grab.
     private volatile Thread evictorThread;
+
+    // The position of the background flusher in the pages array. Only
+    // accessed by the eviction thread.
+    private int flushArm;
     private volatile IOException evictorException;
 
     // Flag for when page cache is closed - writes guarded by synchronized(this), reads can be unsynchronized
     private volatile boolean closed;
 
+    // Serves the PF_READ_AHEAD requests. Created on first use. Writes guarded
+    // by synchronized(this), reads can be unsynchronized.
+    private volatile ThreadPoolExecutor readAheadExecutor;
+
     public MuninnPageCache(
             FileSystemAbstraction fs,
             int maxPages,
@@ -167,14 +202,26 @@ public class MuninnPageCache implements RunnablePageCache
             int maxPages,
             int cachePageSize,
             PageCacheMonitor monitor )
+    {
+        this( swapperFactory, maxPages, cachePageSize, monitor, EvictionPolicies.defaultPolicy() );
+    }
+
+    public MuninnPageCache(
+            PageSwapperFactory swapperFactory,
+            int maxPages,
+            int cachePageSize,
+            PageCacheMonitor monitor,
+            EvictionPolicyFactory evictionPolicyFactory )
     {
         verifyHacks();
 
         this.swapperFactory = swapperFactory;
         this.cachePageSize = cachePageSize;
         this.keepFree = Math.min( pagesToKeepFree, maxPages / 2 );
+        this.readAheadReserve = keepFree - keepFree / 2;
         this.cursorPool = new MuninnCursorPool();
         this.monitor = monitor;
+        this.evictionPolicy = evictionPolicyFactory.createEvictionPolicy( maxPages );
         this.pages = new MuninnPage[maxPages];
 
         MemoryReleaser memoryReleaser = new MemoryReleaser( maxPages );
@@ -218,6 +265,12 @@ public class MuninnPageCache implements RunnablePageCache
 
     @Override
     public synchronized PagedFile map( File file, int filePageSize ) throws IOException
+    {
+        return map( file, filePageSize, 0 );
+    }
+
+    @Override
+    public synchronized PagedFile map( File file, int filePageSize, int reservedPercentage ) throws IOException
     {
         assertHealthy();
         if ( filePageSize > cachePageSize )
@@ -226,6 +279,12 @@ public class MuninnPageCache implements RunnablePageCache
                     filePageSize + ") that is greater than the cachePageSize (" +
                     cachePageSize + ")" );
         }
+        if ( reservedPercentage < 0 || reservedPercentage > 100 )
+        {
+            throw new IllegalArgumentException( "The reservedPercentage must be between 0 and 100, but was " +
+                    reservedPercentage );
+        }
+        int filePagesToReserve = (int) ((long) pages.length * reservedPercentage / 100);
 
         FileMapping current = mappedFiles;
 
@@ -244,6 +303,12 @@ public class MuninnPageCache implements RunnablePageCache
                             " bytes.";
                     throw new IllegalArgumentException( msg );
                 }
+                int alreadyReserved = pagedFile.getReservedPages();
+                if ( filePagesToReserve > alreadyReserved )
+                {
+                    reservePages( file, filePagesToReserve - alreadyReserved );
+                    pagedFile.setReservedPages( filePagesToReserve );
+                }
                 pagedFile.incrementRefCount();
                 return pagedFile;
             }
@@ -251,13 +316,24 @@ public class MuninnPageCache implements RunnablePageCache
         }
 
         // there was no existing mapping
-        MuninnPagedFile pagedFile = new MuninnPagedFile(
-                file,
-                this,
-                filePageSize,
-                swapperFactory,
-                cursorPool,
-                monitor );
+        reservePages( file, filePagesToReserve );
+        MuninnPagedFile pagedFile;
+        try
+        {
+            pagedFile = new MuninnPagedFile(
+                    file,
+                    this,
+                    filePageSize,
+                    swapperFactory,
+                    cursorPool,
+                    monitor );
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            reservedPages -= filePagesToReserve;
+            throw e;
+        }
+        pagedFile.setReservedPages( filePagesToReserve );
         pagedFile.incrementRefCount();
         current = new FileMapping( file, pagedFile );
         current.next = mappedFiles;
@@ -266,6 +342,21 @@ public class MuninnPageCache implements RunnablePageCache
         return pagedFile;
     }
 
+    private void reservePages( File file, int filePagesToReserve )
+    {
+        // At least half of the cache must be left for the pages that are not
+        // protected by any reservation, or we risk starving the page faults.
+        int maxReservedPages = pages.length / 2;
+        if ( reservedPages + filePagesToReserve > maxReservedPages )
+        {
+            throw new IllegalArgumentException( "Cannot reserve " + filePagesToReserve + " pages for " +
+                    "file " + file + ", because " + reservedPages + " of the " + pages.length +
+                    " pages in the cache are already reserved, and at most " + maxReservedPages +
+                    " pages can be reserved in total." );
+        }
+        reservedPages += filePagesToReserve;
+    }
+
     @Override
     public synchronized void unmap( File file ) throws IOException
     {
@@ -289,6 +380,7 @@ public class MuninnPageCache implements RunnablePageCache
                     {
                         prev.next = current.next;
                     }
+                    reservedPages -= pagedFile.getReservedPages();
                     monitor.unmappedFile( file );
                     pagedFile.close();
                 }
@@ -311,18 +403,13 @@ public class MuninnPageCache implements RunnablePageCache
     {
         try ( MajorFlushEvent cacheFlush = monitor.beginCacheFlush() )
         {
-            for ( int i = 0; i < pages.length; i++ )
+            // Flushing file by file lets us write the dirty pages in file
+            // order, and coalesce the adjacent ones into single IOs.
+            FileMapping current = mappedFiles;
+            while ( current != null )
             {
-                MuninnPage page = pages[i];
-                long stamp = page.writeLock();
-                try
-                {
-                    page.flush( cacheFlush.flushEventOpportunity() );
-                }
-                finally
-                {
-                    page.unlockWrite( stamp );
-                }
+                current.pagedFile.flushDirtyPages( cacheFlush );
+                current = current.next;
             }
         }
     }
@@ -354,6 +441,23 @@ public class MuninnPageCache implements RunnablePageCache
 
         closed = true;
 
+        ThreadPoolExecutor executor = readAheadExecutor;
+        if ( executor != null )
+        {
+            readAheadExecutor = null;
+            executor.shutdownNow();
+            try
+            {
+                // Read-ahead tasks still hold write locks on the pages they
+                // claimed, so let them finish before we let go of the pages.
+                executor.awaitTermination( 10, TimeUnit.SECONDS );
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+
         for ( int i = 0; i < pages.length; i++ )
         {
             pages[i] = null;
@@ -493,6 +597,107 @@ public class MuninnPageCache implements RunnablePageCache
         }
     }
 
+    /**
+     * Grab a free page if one is immediately available, or return null
+     * otherwise. Unlike {@link #grabFreePage(PageFaultEvent)}, this method
+     * never spins or blocks, which makes it suitable for speculative work like
+     * read-ahead. The eviction thread only ever frees pages until keepFree of
+     * them are free, so on a warm cache we have to dig into those, but we
+     * always leave half of them alone, such that read-ahead never competes
+     * with real page faults. Taking one of the pages kept free wakes up the
+     * eviction thread, so it can make room for the next read-ahead.
+     */
+    MuninnPage tryGrabFreePage()
+    {
+        for (;;)
+        {
+            Object current = getFreelistHead();
+            if ( current instanceof MuninnPage )
+            {
+                // MuninnPages only sit in front of the keepFree FreePages
+                // that the freelist was initialised with, so this one is
+                // surplus.
+                MuninnPage page = (MuninnPage) current;
+                if ( compareAndSetFreelistHead( page, page.nextFree ) )
+                {
+                    return page;
+                }
+            }
+            else if ( current instanceof FreePage && ((FreePage) current).count > readAheadReserve )
+            {
+                FreePage freePage = (FreePage) current;
+                if ( compareAndSetFreelistHead( freePage, freePage.next ) )
+                {
+                    if ( freePage.count <= keepFree )
+                    {
+                        unparkEvictor();
+                    }
+                    return freePage.page;
+                }
+            }
+            else
+            {
+                // The freelist is either empty, down to the pages we reserve
+                // for page faults, or threads are already queued up waiting
+                // for free pages.
+                unparkEvictor();
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Asynchronously load the given range of file pages into the cache, if
+     * they are not already there, and if there are free pages available.
+     * The request is silently dropped if the read-ahead threads are busy.
+     */
+    void readAhead( MuninnPagedFile pagedFile, long startFilePageId, int pageCount )
+    {
+        if ( closed || pageCount <= 0 )
+        {
+            return;
+        }
+        ThreadPoolExecutor executor = readAheadExecutor;
+        if ( executor == null )
+        {
+            executor = createReadAheadExecutor();
+            if ( executor == null )
+            {
+                return;
+            }
+        }
+        executor.execute( new ReadAhead( pagedFile, startFilePageId, pageCount ) );
+    }
+
+    private synchronized ThreadPoolExecutor createReadAheadExecutor()
+    {
+        if ( closed )
+        {
+            return null;
+        }
+        if ( readAheadExecutor == null )
+        {
+            ThreadFactory threadFactory = new ThreadFactory()
+            {
+                private int threadCounter;
+
+                @Override
+                public Thread newThread( Runnable runnable )
+                {
+                    Thread thread = new Thread( runnable, "Page cache read-ahead " + (threadCounter++) );
+                    thread.setDaemon( true );
+                    return thread;
+                }
+            };
+            readAheadExecutor = new ThreadPoolExecutor(
+                    readAheadThreads, readAheadThreads, 10, TimeUnit.SECONDS,
+                    new ArrayBlockingQueue<Runnable>( readAheadQueueSize ),
+                    threadFactory, new ThreadPoolExecutor.DiscardPolicy() );
+            readAheadExecutor.allowCoreThreadTimeOut( true );
+        }
+        return readAheadExecutor;
+    }
+
     private void unparkEvictor()
     {
         LockSupport.unpark( evictorThread );
@@ -521,9 +726,10 @@ public class MuninnPageCache implements RunnablePageCache
     @Override
     public void run()
     {
-        // We scan through all the pages, one by one, and decrement their usage stamps.
-        // If a usage reaches zero, we try-write-locking it, and if we get that lock,
-        // we evict the page. If we don't, we move on to the next page.
+        // We scan through all the pages, one by one, and ask the eviction policy
+        // about them. If the policy says a page should go, we try-write-locking
+        // it, and if we get that lock, we evict the page. If we don't, we move
+        // on to the next page.
         // Once we have enough free pages, we park our thread. Page-faulting will
         // unpark our thread as needed.
         evictorThread = Thread.currentThread();
@@ -569,8 +775,15 @@ public class MuninnPageCache implements RunnablePageCache
         // Park until we're either interrupted, or the number of free pages drops
         // bellow keepFree.
         long parkNanos = TimeUnit.MILLISECONDS.toNanos( 10 );
+        boolean checkedFreelist = false;
         for (;;)
         {
+            if ( checkedFreelist )
+            {
+                flushArm = backgroundFlush( flushArm );
+            }
+            checkedFreelist = true;
+
             LockSupport.parkNanos( parkNanos );
             if ( Thread.currentThread().isInterrupted() || closed )
             {
@@ -594,6 +807,88 @@ public class MuninnPageCache implements RunnablePageCache
         }
     }
 
+    /**
+     * Flush up to backgroundFlushPages dirty pages, starting the search at the
+     * given flush arm, and looking at no more than a few times as many pages.
+     * Pages that are locked are skipped; we'll get them next time around.
+     * Returns the new position of the flush arm.
+     */
+    int backgroundFlush( int flushArm )
+    {
+        if ( backgroundFlushPages <= 0 )
+        {
+            return flushArm;
+        }
+        int pagesToFlush = backgroundFlushPages;
+        int pagesToVisit = Math.min( pages.length, backgroundFlushPages * 8 );
+        BackgroundFlushEvent flushEvent = null;
+        try
+        {
+            while ( pagesToVisit > 0 && pagesToFlush > 0 )
+            {
+                pagesToVisit--;
+                if ( flushArm >= pages.length )
+                {
+                    flushArm = 0;
+                }
+                MuninnPage page = pages[flushArm++];
+                // An unsynchronised peek, to avoid locking clean pages.
+                if ( page == null || !page.isDirty() )
+                {
+                    continue;
+                }
+                long stamp = page.tryReadLock();
+                if ( stamp == 0 )
+                {
+                    continue;
+                }
+                try
+                {
+                    if ( !page.isDirty() )
+                    {
+                        // Flushed by someone else since we peeked.
+                        continue;
+                    }
+                    if ( flushEvent == null )
+                    {
+                        flushEvent = monitor.beginBackgroundFlush();
+                    }
+                    page.flush( flushEvent.flushEventOpportunity() );
+                    pagesToFlush--;
+                }
+                finally
+                {
+                    page.unlockRead( stamp );
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            // Background flushing is only an optimisation, so the failure is
+            // only recorded here. The page stays dirty, and the next eviction
+            // or major flush of it will run into the same problem, and throw.
+            flushEvent.threwException( e );
+        }
+        catch ( Throwable throwable )
+        {
+            // It must never take the eviction thread down with it, either.
+            if ( flushEvent == null )
+            {
+                flushEvent = monitor.beginBackgroundFlush();
+            }
+            flushEvent.threwException( new IOException(
+                    "Background flush threw unexpected exception", throwable ) );
+        }
+        finally
+        {
+            if ( flushEvent != null )
+            {
+                flushEvent.close();
+            }
+        }
+        return flushArm;
+    }
+
     int evictPages( int pageCountToEvict, int clockArm, EvictionRunEvent evictionRunEvent )
     {
         FreePageWaiter waiters = grabFreePageWaitersIfAny();
@@ -614,7 +909,10 @@ public class MuninnPageCache implements RunnablePageCache
                 return 0;
             }
 
-            if ( page.isLoaded() && page.decrementUsage() )
+            // The reservation is checked first, so the eviction policy only
+            // ever sees the pages that are actually up for eviction, and does
+            // not age or reset its state for a decision that would be vetoed.
+            if ( page.isLoaded() && !isProtectedByReservation( page ) && evictionPolicy.shouldEvict( clockArm ) )
             {
                 long stamp = page.tryWriteLock();
                 if ( stamp != 0 )
@@ -705,11 +1003,37 @@ public class MuninnPageCache implements RunnablePageCache
         return clockArm;
     }
 
+    private boolean isProtectedByReservation( MuninnPage page )
+    {
+        if ( reservedPages == 0 )
+        {
+            return false;
+        }
+
+        // This is racy, since we don't hold the page lock yet, but at worst we
+        // evict a page that we should have kept, or keep one for another sweep.
+        PageSwapper swapper = page.getSwapper();
+        FileMapping current = mappedFiles;
+        while ( current != null )
+        {
+            MuninnPagedFile pagedFile = current.pagedFile;
+            if ( pagedFile.swapper == swapper )
+            {
+                return pagedFile.isWithinReservation();
+            }
+            current = current.next;
+        }
+        return false;
+    }
+
     private boolean evictPage( MuninnPage page, EvictionEvent evictionEvent )
     {
         try
         {
+            PageSwapper swapper = page.getSwapper();
+            long filePageId = page.getFilePageId();
             page.evict( evictionEvent );
+            evictionPolicy.pageEvicted( page.getCachePageId(), swapper, filePageId );
             clearEvictorException();
             return true;
         }
@@ -25,12 +25,18 @@ import java.lang.Override;
 import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.io.pagecache.PageCursor;
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.impl.muninn.jsr166e.StampedLock;
 import org.neo4j.io.pagecache.monitoring.PageFaultEvent;
 import org.neo4j.io.pagecache.monitoring.PinEvent;
 
 abstract class MuninnPageCursor implements PageCursor
 {
+    // The number of pages that PF_READ_AHEAD cursors will try to keep loaded
+    // ahead of their current position, when they scan sequentially.
+    private static final int readAheadWindow = Integer.getInteger(
+            "org.neo4j.io.pagecache.impl.muninn.readAheadWindow", 32 );
+
     protected MuninnPagedFile pagedFile;
     protected MuninnPage page;
     protected PinEvent pinEvent;
@@ -44,6 +50,15 @@ abstract class MuninnPageCursor implements PageCursor
     private boolean claimed;
     private int offset;
 
+    // Read-ahead state: the file, the last page we pinned in it, and the last
+    // page we have asked the page cache to read ahead. Cursors are pooled per
+    // thread, so this outlives the cursor being closed and opened again. That
+    // way scans that open a cursor for every page, or every record, are seen
+    // to be sequential as well.
+    private MuninnPagedFile readAheadFile;
+    private long lastPinnedPageId = UNBOUND_PAGE_ID;
+    private long readAheadUntil = UNBOUND_PAGE_ID;
+
     public final void initialise( MuninnPagedFile pagedFile, long pageId, int pf_flags )
     {
         this.pagedFile = pagedFile;
@@ -102,6 +117,41 @@ abstract class MuninnPageCursor implements PageCursor
         return currentPageId;
     }
 
+    /**
+     * Called after the given page has been pinned. If this cursor was opened
+     * with PF_READ_AHEAD, and the PF_READ_AHEAD cursors of this thread are
+     * moving forward one page at a time, then we ask the page cache to load
+     * the pages ahead of us, once we have consumed half of what we previously
+     * asked it to load.
+     */
+    protected final void readAheadIfSequential( long filePageId )
+    {
+        if ( (pf_flags & PagedFile.PF_READ_AHEAD) == 0 || readAheadWindow <= 0 )
+        {
+            return;
+        }
+        if ( readAheadFile != pagedFile || filePageId < lastPinnedPageId )
+        {
+            // A scan of another file, or one that started over
+            readAheadFile = pagedFile;
+            lastPinnedPageId = UNBOUND_PAGE_ID;
+            readAheadUntil = UNBOUND_PAGE_ID;
+        }
+        long previousPageId = lastPinnedPageId;
+        lastPinnedPageId = filePageId;
+        if ( filePageId != previousPageId + 1 || readAheadUntil - filePageId > readAheadWindow / 2 )
+        {
+            return;
+        }
+        long start = Math.max( readAheadUntil, filePageId ) + 1;
+        long end = Math.min( filePageId + readAheadWindow, pagedFile.getLastPageId() );
+        if ( start <= end )
+        {
+            pagedFile.pageCache.readAhead( pagedFile, start, (int) (end - start + 1) );
+            readAheadUntil = end;
+        }
+    }
+
     /**
      * NOTE: Must be called while holding the right translationTableLock.writeLock
      * for the given translationTable!!!
@@ -145,6 +195,8 @@ abstract class MuninnPageCursor implements PageCursor
         {
             page.initBuffer();
             page.fault( swapper, filePageId, faultEvent );
+            pagedFile.pageCache.evictionPolicy.pageFaulted( page.getCachePageId(), swapper, filePageId );
+            pagedFile.residentPageAdded();
         }
         catch ( Throwable throwable )
         {
@@ -157,6 +209,18 @@ abstract class MuninnPageCursor implements PageCursor
         faultEvent.done();
     }
 
+    /**
+     * The page we wanted to pin was already in memory, and bound to our file.
+     */
+    protected final void pageHit( MuninnPage page )
+    {
+        pinEvent.hit();
+        if ( (pf_flags & PagedFile.PF_TRANSIENT) == 0 )
+        {
+            pagedFile.pageCache.evictionPolicy.pageHit( page.getCachePageId() );
+        }
+    }
+
     protected abstract void unpinCurrentPage();
 
     protected abstract void convertPageFaultLock( MuninnPage page, long stamp );
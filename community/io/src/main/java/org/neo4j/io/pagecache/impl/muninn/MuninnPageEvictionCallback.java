@@ -26,13 +26,16 @@ import org.neo4j.io.pagecache.impl.muninn.jsr166e.StampedLock;
 
 final class MuninnPageEvictionCallback implements PageEvictionCallback
 {
+    private final MuninnPagedFile pagedFile;
     private final PrimitiveLongObjectMap<MuninnPage>[] translationTables;
     private final StampedLock[] translationTableLocks;
 
     public MuninnPageEvictionCallback(
+            MuninnPagedFile pagedFile,
             PrimitiveLongObjectMap<MuninnPage>[] translationTables,
             StampedLock[] translationTableLocks )
     {
+        this.pagedFile = pagedFile;
         this.translationTables = translationTables;
         this.translationTableLocks = translationTableLocks;
     }
@@ -40,6 +43,8 @@ final class MuninnPageEvictionCallback implements PageEvictionCallback
     @Override
     public void onEvict( long pageId, Page page )
     {
+        pagedFile.residentPageRemoved();
+
         int stripe = (int) (pageId & MuninnPagedFile.translationTableStripeMask);
         StampedLock translationTableLock = translationTableLocks[stripe];
         PrimitiveLongObjectMap<MuninnPage> translationTable = translationTables[stripe];
@@ -45,6 +45,8 @@ final class MuninnPagedFile implements PagedFile
             UnsafeUtil.getFieldOffset( MuninnPagedFile.class, "referenceCounter" );
     private static final long lastPageIdOffset =
             UnsafeUtil.getFieldOffset( MuninnPagedFile.class, "lastPageId" );
+    private static final long residentPagesOffset =
+            UnsafeUtil.getFieldOffset( MuninnPagedFile.class, "residentPages" );
 
     final MuninnPageCache pageCache;
     // This is the table where we translate file-page-ids to cache-page-ids:
@@ -60,6 +62,11 @@ final class MuninnPagedFile implements PagedFile
     // Accessed via Unsafe
     private volatile int referenceCounter;
     private volatile long lastPageId;
+    private volatile int residentPages;
+
+    // The number of cache pages reserved for this file. Written by the page
+    // cache, while it holds its own monitor.
+    private volatile int reservedPages;
 
     MuninnPagedFile(
             File file,
@@ -87,7 +94,7 @@ final class MuninnPagedFile implements PagedFile
             translationTableLocks[i] = new StampedLock();
         }
         PageEvictionCallback onEviction = new MuninnPageEvictionCallback(
-                translationTables, translationTableLocks );
+                this, translationTables, translationTableLocks );
         swapper = swapperFactory.createPageSwapper( file, pageSize, onEviction );
         initialiseLastPageId( swapper.getLastPageId() );
     }
@@ -144,24 +151,34 @@ final class MuninnPagedFile implements PagedFile
     {
         try ( MajorFlushEvent flushEvent = monitor.beginFileFlush( swapper ) )
         {
-            PageFlusher flusher = new PageFlusher( swapper, flushEvent );
-            for ( int i = 0; i < translationTableStripeLevel; i++ )
+            flushDirtyPages( flushEvent );
+            force();
+        }
+    }
+
+    /**
+     * Write out all the dirty pages of this file, coalescing the pages that
+     * are adjacent in the file into single IOs. This does not force the file.
+     */
+    void flushDirtyPages( MajorFlushEvent flushEvent ) throws IOException
+    {
+        PageFlusher flusher = new PageFlusher( swapper, pageSize, flushEvent );
+        for ( int i = 0; i < translationTableStripeLevel; i++ )
+        {
+            PrimitiveLongObjectMap<MuninnPage> translationTable = translationTables[i];
+            StampedLock translationTableLock = translationTableLocks[i];
+
+            long stamp = translationTableLock.readLock();
+            try
             {
-                PrimitiveLongObjectMap<MuninnPage> translationTable = translationTables[i];
-                StampedLock translationTableLock = translationTableLocks[i];
-
-                long stamp = translationTableLock.readLock();
-                try
-                {
-                    translationTable.visitEntries( flusher );
-                }
-                finally
-                {
-                    translationTableLock.unlockRead( stamp );
-                }
+                translationTable.visitEntries( flusher );
+            }
+            finally
+            {
+                translationTableLock.unlockRead( stamp );
             }
-            force();
         }
+        flusher.flush();
     }
 
     @Override
@@ -224,6 +241,46 @@ final class MuninnPagedFile implements PagedFile
         return UnsafeUtil.getIntVolatile( this, referenceCounterOffset );
     }
 
+    int getResidentPages()
+    {
+        return residentPages;
+    }
+
+    int getReservedPages()
+    {
+        return reservedPages;
+    }
+
+    void setReservedPages( int reservedPages )
+    {
+        this.reservedPages = reservedPages;
+    }
+
+    /**
+     * Called when a page has been faulted into the cache for this file.
+     */
+    void residentPageAdded()
+    {
+        UnsafeUtil.getAndAddInt( this, residentPagesOffset, 1 );
+    }
+
+    /**
+     * Called when a page that belongs to this file has been evicted.
+     */
+    void residentPageRemoved()
+    {
+        UnsafeUtil.getAndAddInt( this, residentPagesOffset, -1 );
+    }
+
+    /**
+     * Returns true if this file holds no more pages in the cache than it has
+     * reserved, meaning that none of its pages should be evicted.
+     */
+    boolean isWithinReservation()
+    {
+        return residentPages <= reservedPages;
+    }
+
     /**
      * Grab a free page for the purpose of page faulting. Possibly blocking if
      * none are immediately available.
@@ -64,6 +64,7 @@ final class MuninnReadPageCursor extends MuninnPageCursor
         unpinCurrentPage();
         pin( nextPageId );
         currentPageId = nextPageId;
+        readAheadIfSequential( currentPageId );
         nextPageId++;
         return true;
     }
@@ -121,6 +122,7 @@ final class MuninnReadPageCursor extends MuninnPageCursor
             // Our translation table was also up to date, and the page is bound to
             // our file, and we could pin it since its not in the process of
             // eviction.
+            pageHit( page );
             pinCursorToPage( page, filePageId, swapper );
             optimisticLock = true;
             return;
@@ -148,6 +150,7 @@ final class MuninnReadPageCursor extends MuninnPageCursor
             if ( page.isBoundTo( swapper, filePageId ) )
             {
                 translationTableLock.unlockWrite( stamp );
+                pageHit( page );
                 pinCursorToPage( page, filePageId, swapper );
                 optimisticLock = false;
                 return;
@@ -165,7 +168,6 @@ final class MuninnReadPageCursor extends MuninnPageCursor
     protected void pinCursorToPage( MuninnPage page, long filePageId, PageSwapper swapper )
     {
         reset( page );
-        page.incrementUsage();
     }
 
     @Override
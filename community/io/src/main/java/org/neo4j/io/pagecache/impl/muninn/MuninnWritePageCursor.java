@@ -63,6 +63,7 @@ final class MuninnWritePageCursor extends MuninnPageCursor
         unpinCurrentPage();
         pin( nextPageId );
         currentPageId = nextPageId;
+        readAheadIfSequential( currentPageId );
         nextPageId++;
         return true;
     }
@@ -120,6 +121,7 @@ final class MuninnWritePageCursor extends MuninnPageCursor
             // Our translation table was also up to date, and the page is bound to
             // our file, and we could pin it since its not in the process of
             // eviction.
+            pageHit( page );
             pinCursorToPage( page, filePageId, swapper );
             return;
         }
@@ -147,6 +149,7 @@ final class MuninnWritePageCursor extends MuninnPageCursor
             if ( page.isBoundTo( swapper, filePageId ) )
             {
                 translationTableLock.unlockWrite( stamp );
+                pageHit( page );
                 pinCursorToPage( page, filePageId, swapper );
                 return;
             }
@@ -163,7 +166,6 @@ final class MuninnWritePageCursor extends MuninnPageCursor
     protected void pinCursorToPage( MuninnPage page, long filePageId, PageSwapper swapper )
     {
         reset( page );
-        page.incrementUsage();
         page.markAsDirty();
     }
 
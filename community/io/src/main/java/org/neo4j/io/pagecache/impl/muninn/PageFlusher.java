@@ -20,39 +20,137 @@
 package org.neo4j.io.pagecache.impl.muninn;
 
 import java.io.IOException;
+import java.util.Arrays;
 
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
 import org.neo4j.collection.primitive.PrimitiveLongObjectVisitor;
 import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.FlushEvent;
 import org.neo4j.io.pagecache.monitoring.FlushEventOpportunity;
 import org.neo4j.io.pagecache.monitoring.MajorFlushEvent;
 
+/**
+ * Flushes the dirty pages of a file in file page order, and writes every run
+ * of pages that are adjacent in the file with a single gathering write.
+ *
+ * The translation tables are first visited to collect the pages that look
+ * dirty, and then {@link #flush()} sorts them and writes them out. Whether
+ * a page is dirty, and still bound to the file page it was collected for,
+ * is re-checked once we hold its read lock.
+ */
 final class PageFlusher implements PrimitiveLongObjectVisitor<MuninnPage>
 {
+    // The maximum number of pages we will read lock and write out in one IO.
+    private static final int maxPagesPerIO = Integer.getInteger(
+            "org.neo4j.io.pagecache.impl.muninn.maxPagesPerFlushIO", 64 );
+
     private final PageSwapper swapper;
+    private final int filePageSize;
+    private final MajorFlushEvent flushEvent;
     private final FlushEventOpportunity flushOpportunity;
+    private final PrimitiveLongObjectMap<MuninnPage> dirtyPages;
+    private long[] dirtyPageIds;
+    private int dirtyPageCount;
 
-    public PageFlusher( PageSwapper swapper, MajorFlushEvent flushEvent )
+    public PageFlusher( PageSwapper swapper, int filePageSize, MajorFlushEvent flushEvent )
     {
         this.swapper = swapper;
+        this.filePageSize = filePageSize;
+        this.flushEvent = flushEvent;
         this.flushOpportunity = flushEvent.flushEventOpportunity();
+        this.dirtyPages = Primitive.longObjectMap();
+        this.dirtyPageIds = new long[32];
     }
 
     @Override
     public void visited( long filePageId, MuninnPage page )
     {
-        long stamp = page.readLock();
+        // This is an unsynchronised peek, so we might miss pages that are
+        // being made dirty right now. That's fine, because such changes were
+        // not part of what this flush was asked to make durable.
+        if ( page.isDirty() )
+        {
+            if ( dirtyPageCount == dirtyPageIds.length )
+            {
+                dirtyPageIds = Arrays.copyOf( dirtyPageIds, dirtyPageCount * 2 );
+            }
+            dirtyPageIds[dirtyPageCount++] = filePageId;
+            dirtyPages.put( filePageId, page );
+        }
+    }
+
+    public void flush() throws IOException
+    {
+        Arrays.sort( dirtyPageIds, 0, dirtyPageCount );
+
+        MuninnPage[] run = new MuninnPage[Math.min( dirtyPageCount, maxPagesPerIO )];
+        long[] stamps = new long[run.length];
+        long runStart = 0;
+        int runLength = 0;
+        for ( int i = 0; i < dirtyPageCount; i++ )
+        {
+            long filePageId = dirtyPageIds[i];
+            MuninnPage page = dirtyPages.get( filePageId );
+            // Write out the run before locking the next page, so that a failed write leaves no page locked
+            if ( runLength > 0 && (runStart + runLength != filePageId || runLength == run.length) )
+            {
+                writeRun( runStart, run, stamps, runLength );
+                runLength = 0;
+            }
+
+            long stamp = page.readLock();
+            if ( !page.isDirty() || !page.isBoundTo( swapper, filePageId ) )
+            {
+                // Flushed, or evicted, by someone else in the mean time.
+                page.unlockRead( stamp );
+                continue;
+            }
+
+            if ( runLength == 0 )
+            {
+                runStart = filePageId;
+            }
+            run[runLength] = page;
+            stamps[runLength] = stamp;
+            runLength++;
+        }
+        if ( runLength > 0 )
+        {
+            writeRun( runStart, run, stamps, runLength );
+        }
+    }
+
+    private void writeRun( long runStart, MuninnPage[] run, long[] stamps, int runLength ) throws IOException
+    {
         try
         {
-            page.flush( swapper, filePageId, flushOpportunity );
+            long bytesWritten = swapper.write( runStart, run, 0, runLength );
+            flushEvent.ioPerformed( bytesWritten );
+            for ( int i = 0; i < runLength; i++ )
+            {
+                MuninnPage page = run[i];
+                page.markAsClean();
+                FlushEvent event = flushOpportunity.beginFlush( runStart + i, page.getCachePageId(), swapper );
+                event.addBytesWritten( filePageSize );
+                event.done();
+            }
         }
         catch ( IOException e )
         {
-            // TODO throw something better, here...
-            throw new RuntimeException( e );
+            for ( int i = 0; i < runLength; i++ )
+            {
+                flushOpportunity.beginFlush( runStart + i, run[i].getCachePageId(), swapper ).done( e );
+            }
+            throw e;
         }
         finally
         {
-            page.unlockRead( stamp );
+            for ( int i = 0; i < runLength; i++ )
+            {
+                run[i].unlockRead( stamps[i] );
+                run[i] = null;
+            }
         }
     }
 }
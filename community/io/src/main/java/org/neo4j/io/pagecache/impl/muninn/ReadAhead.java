@@ -0,0 +1,189 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.impl.muninn.jsr166e.StampedLock;
+
+/**
+ * Loads a range of file pages into the cache in the background, on behalf of
+ * a cursor that has been opened with
+ * {@link org.neo4j.io.pagecache.PagedFile#PF_READ_AHEAD}.
+ *
+ * Read-ahead is purely an optimisation, so this task backs off as soon as it
+ * runs into anything that would make it compete with real page faults: it
+ * only uses pages that are already on the freelist, it only try-locks the
+ * translation tables, and it skips any file page that is already present in
+ * them. When it runs out of free pages, it briefly waits for the eviction
+ * thread to make room a few times, before giving up on the rest of the range.
+ * Consecutive runs of absent pages are read with a single vectored read.
+ */
+final class ReadAhead implements Runnable
+{
+    private static final int CLAIMED = 0;
+    private static final int SKIPPED = 1;
+    private static final int NO_FREE_PAGES = 2;
+    private static final int MAX_FREE_PAGE_WAITS = 10;
+    private static final long FREE_PAGE_WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos( 100 );
+
+    private final MuninnPagedFile pagedFile;
+    private final long startFilePageId;
+    private final int pageCount;
+
+    public ReadAhead( MuninnPagedFile pagedFile, long startFilePageId, int pageCount )
+    {
+        this.pagedFile = pagedFile;
+        this.startFilePageId = startFilePageId;
+        this.pageCount = pageCount;
+    }
+
+    @Override
+    public void run()
+    {
+        MuninnPage[] run = new MuninnPage[pageCount];
+        long[] stamps = new long[pageCount];
+        long filePageId = startFilePageId;
+        long endFilePageId = startFilePageId + pageCount;
+        int freePageWaits = 0;
+
+        while ( filePageId < endFilePageId && pagedFile.getRefCount() > 0 )
+        {
+            long runStart = filePageId;
+            int runLength = 0;
+            boolean outOfFreePages = false;
+            while ( filePageId < endFilePageId )
+            {
+                int claim = claimPage( filePageId, run, stamps, runLength );
+                if ( claim == CLAIMED )
+                {
+                    runLength++;
+                    filePageId++;
+                }
+                else
+                {
+                    outOfFreePages = claim == NO_FREE_PAGES;
+                    break;
+                }
+            }
+
+            if ( runLength > 0 )
+            {
+                loadRun( runStart, run, stamps, runLength );
+            }
+            if ( outOfFreePages )
+            {
+                if ( freePageWaits++ == MAX_FREE_PAGE_WAITS )
+                {
+                    return;
+                }
+                // Retry the same file page once the eviction thread, which
+                // tryGrabFreePage has woken up, has had a chance to run.
+                LockSupport.parkNanos( FREE_PAGE_WAIT_NANOS );
+                continue;
+            }
+            // Skip past the page that was already present, or busy.
+            filePageId++;
+        }
+    }
+
+    /**
+     * Put a free, write locked page into the translation table for the given
+     * file page, so that cursors that want it will wait for our read to finish
+     * instead of faulting it in themselves.
+     */
+    private int claimPage( long filePageId, MuninnPage[] run, long[] stamps, int index )
+    {
+        int stripe = (int) (filePageId & MuninnPagedFile.translationTableStripeMask);
+        StampedLock translationTableLock = pagedFile.translationTableLocks[stripe];
+        PrimitiveLongObjectMap<MuninnPage> translationTable = pagedFile.translationTables[stripe];
+
+        long stamp = translationTableLock.tryWriteLock();
+        if ( stamp == 0 )
+        {
+            return SKIPPED;
+        }
+        try
+        {
+            if ( translationTable.get( filePageId ) != null )
+            {
+                // Either already loaded, or in the process of being faulted
+                // or evicted. Either way, it is none of our business.
+                return SKIPPED;
+            }
+            MuninnPage page = pagedFile.pageCache.tryGrabFreePage();
+            if ( page == null )
+            {
+                return NO_FREE_PAGES;
+            }
+            stamps[index] = page.writeLock();
+            translationTable.put( filePageId, page );
+            run[index] = page;
+            return CLAIMED;
+        }
+        finally
+        {
+            translationTableLock.unlockWrite( stamp );
+        }
+    }
+
+    private void loadRun( long runStart, MuninnPage[] run, long[] stamps, int runLength )
+    {
+        PageSwapper swapper = pagedFile.swapper;
+        try
+        {
+            for ( int i = 0; i < runLength; i++ )
+            {
+                run[i].beginFault( swapper, runStart + i );
+            }
+            for ( int i = 0; i < runLength; i++ )
+            {
+                run[i].initBuffer();
+            }
+            swapper.read( runStart, run, 0, runLength );
+            for ( int i = 0; i < runLength; i++ )
+            {
+                MuninnPage page = run[i];
+                page.completeFault( swapper );
+                pagedFile.pageCache.evictionPolicy.pageFaulted( page.getCachePageId(), swapper, runStart + i );
+                pagedFile.residentPageAdded();
+            }
+        }
+        catch ( IOException | RuntimeException ignore )
+        {
+            // Read-ahead is best effort. Pages that were not completely
+            // faulted in are left unbound, so any cursor that wants them will
+            // fault them in itself, and the eviction thread will eventually
+            // return them to the freelist.
+        }
+        finally
+        {
+            for ( int i = 0; i < runLength; i++ )
+            {
+                run[i].unlockWrite( stamps[i] );
+                run[i] = null;
+            }
+        }
+    }
+}
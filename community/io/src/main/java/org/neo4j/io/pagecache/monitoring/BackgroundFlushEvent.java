@@ -0,0 +1,41 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.monitoring;
+
+import java.io.IOException;
+
+/**
+ * The eviction thread flushes a few dirty pages in the background, while it waits for
+ * the next eviction run. Unlike a {@link MajorFlushEvent}, this is not a request to
+ * flush everything, and it does not coalesce adjacent pages into single IOs.
+ */
+public interface BackgroundFlushEvent extends AutoCloseablePageCacheMonitorEvent
+{
+    /**
+     * Background flushing implies flushing opportunities.
+     */
+    public FlushEventOpportunity flushEventOpportunity();
+
+    /**
+     * Indicates that a background flush caused an exception to be thrown.
+     * The page stays dirty, and will be flushed by the next eviction or major flush.
+     */
+    public void threwException( IOException exception );
+}
@@ -25,12 +25,22 @@ import java.lang.invoke.MethodHandle;
 import java.lang.invoke.MethodHandles;
 import java.lang.invoke.MethodType;
 import java.lang.invoke.SwitchPoint;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.neo4j.io.pagecache.PageSwapper;
 
 /**
  * The default PageCacheMonitor implementation, that just increments counters.
+ *
+ * Page faults and hits are always counted, so the hit ratio is known even when pin and unpin monitoring is
+ * disabled. Hits happen on every pin of a page that is already in memory, so they are counted in a
+ * {@link StripedCounter}, rather than in a single contended counter.
+ *
+ * When pin and unpin monitoring is enabled, pins and unpins are counted as well, and page faults and hits are also
+ * counted for each file, by the {@link PageSwapper#fileName() name} of the file.
  */
 public class DefaultPageCacheMonitor implements PageCacheMonitor
 {
@@ -44,7 +54,7 @@ public class DefaultPageCacheMonitor implements PageCacheMonitor
             boolean alwaysEnabled = Boolean.getBoolean(
                     "org.neo4j.io.pagecache.monitoring.monitorPinUnpin" );
 
-            MethodType type = MethodType.methodType( PinEvent.class );
+            MethodType type = MethodType.methodType( PinEvent.class, PageSwapper.class );
             MethodHandles.Lookup lookup = MethodHandles.lookup();
             MethodHandle monitoredPinMH = lookup.findVirtual( DefaultPageCacheMonitor.class, "beginMonitoredPin", type );
             if ( alwaysEnabled )
@@ -83,13 +93,18 @@ public class DefaultPageCacheMonitor implements PageCacheMonitor
     protected final AtomicLong faults = new AtomicLong();
     protected final AtomicLong evictions = new AtomicLong();
     protected final AtomicLong pins = new AtomicLong();
+    protected final StripedCounter hits = new StripedCounter();
     protected final AtomicLong unpins = new AtomicLong();
     protected final AtomicLong flushes = new AtomicLong();
+    protected final AtomicLong flushIOs = new AtomicLong();
+    protected final AtomicLong flushIOBytes = new AtomicLong();
     protected final AtomicLong bytesRead = new AtomicLong();
     protected final AtomicLong bytesWritten = new AtomicLong();
     protected final AtomicLong filesMapped = new AtomicLong();
     protected final AtomicLong filesUnmapped = new AtomicLong();
     protected final AtomicLong evictionExceptions = new AtomicLong();
+    protected final AtomicLong backgroundFlushExceptions = new AtomicLong();
+    private final ConcurrentMap<String,FileCounters> fileCounters = new ConcurrentHashMap<>();
 
     private final FlushEvent flushEvent = new FlushEvent()
     {
@@ -209,6 +224,12 @@ public class DefaultPageCacheMonitor implements PageCacheMonitor
         {
         }
 
+        @Override
+        public void hit()
+        {
+            hits.increment();
+        }
+
         @Override
         public PageFaultEvent beginPageFault()
         {
@@ -218,10 +239,74 @@ public class DefaultPageCacheMonitor implements PageCacheMonitor
         @Override
         public void done()
         {
-            unpins.getAndIncrement();
         }
     };
 
+    private final class FileCounters
+    {
+        private final AtomicLong faults = new AtomicLong();
+        private final AtomicLong hits = new AtomicLong();
+
+        private final PageFaultEvent filePageFaultEvent = new PageFaultEvent()
+        {
+            @Override
+            public void addBytesRead( int bytes )
+            {
+                pageFaultEvent.addBytesRead( bytes );
+            }
+
+            @Override
+            public void done()
+            {
+                faults.getAndIncrement();
+                pageFaultEvent.done();
+            }
+
+            @Override
+            public void done( Throwable throwable )
+            {
+                done();
+            }
+
+            @Override
+            public void setCachePageId( int cachePageId )
+            {
+            }
+
+            @Override
+            public void setParked( boolean parked )
+            {
+            }
+        };
+
+        private final PinEvent filePinEvent = new PinEvent()
+        {
+            @Override
+            public void setCachePageId( int cachePageId )
+            {
+            }
+
+            @Override
+            public void hit()
+            {
+                hits.getAndIncrement();
+                DefaultPageCacheMonitor.this.hits.increment();
+            }
+
+            @Override
+            public PageFaultEvent beginPageFault()
+            {
+                return filePageFaultEvent;
+            }
+
+            @Override
+            public void done()
+            {
+                unpins.getAndIncrement();
+            }
+        };
+    }
+
     private final MajorFlushEvent majorFlushEvent = new MajorFlushEvent()
     {
         @Override
@@ -230,6 +315,33 @@ public class DefaultPageCacheMonitor implements PageCacheMonitor
             return flushEventOpportunity;
         }
 
+        @Override
+        public void ioPerformed( long bytesWritten )
+        {
+            flushIOs.getAndIncrement();
+            flushIOBytes.getAndAdd( bytesWritten );
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    };
+
+    private final BackgroundFlushEvent backgroundFlushEvent = new BackgroundFlushEvent()
+    {
+        @Override
+        public FlushEventOpportunity flushEventOpportunity()
+        {
+            return flushEventOpportunity;
+        }
+
+        @Override
+        public void threwException( IOException exception )
+        {
+            backgroundFlushExceptions.getAndIncrement();
+        }
+
         @Override
         public void close()
         {
@@ -259,7 +371,7 @@ public class DefaultPageCacheMonitor implements PageCacheMonitor
     {
         try
         {
-            return (PinEvent) beginPinMH.invokeExact( this );
+            return (PinEvent) beginPinMH.invokeExact( this, swapper );
         }
         catch ( Throwable throwable )
         {
@@ -268,22 +380,36 @@ public class DefaultPageCacheMonitor implements PageCacheMonitor
     }
 
     /**
-     * Invoked through beginPinMH.
+     * Invoked through beginPinMH, when pin and unpin monitoring is disabled. Only counts page faults and hits.
      */
-    @SuppressWarnings( "UnusedDeclaration" )
-    private PinEvent beginNullPin()
+    PinEvent beginNullPin( PageSwapper swapper )
     {
-        return NULL_PIN_EVENT;
+        return pinEvent;
     }
 
     /**
      * Invoked through beginPinMH.
      */
     @SuppressWarnings( "UnusedDeclaration" )
-    private PinEvent beginMonitoredPin()
+    private PinEvent beginMonitoredPin( PageSwapper swapper )
     {
         pins.getAndIncrement();
-        return pinEvent;
+        return getFileCounters( swapper.fileName() ).filePinEvent;
+    }
+
+    private FileCounters getFileCounters( String fileName )
+    {
+        FileCounters counters = fileCounters.get( fileName );
+        if ( counters == null )
+        {
+            FileCounters newCounters = new FileCounters();
+            counters = fileCounters.putIfAbsent( fileName, newCounters );
+            if ( counters == null )
+            {
+                counters = newCounters;
+            }
+        }
+        return counters;
     }
 
     @Override
@@ -298,12 +424,27 @@ public class DefaultPageCacheMonitor implements PageCacheMonitor
         return majorFlushEvent;
     }
 
+    @Override
+    public BackgroundFlushEvent beginBackgroundFlush()
+    {
+        return backgroundFlushEvent;
+    }
+
     @Override
     public long countFaults()
     {
         return faults.get();
     }
 
+    /**
+     * Get the number of page faults for the file with the given name.
+     */
+    public long countFaults( String fileName )
+    {
+        FileCounters counters = fileCounters.get( fileName );
+        return counters == null? 0 : counters.faults.get();
+    }
+
     @Override
     public long countEvictions()
     {
@@ -316,6 +457,21 @@ public class DefaultPageCacheMonitor implements PageCacheMonitor
         return pins.get();
     }
 
+    @Override
+    public long countHits()
+    {
+        return hits.sum();
+    }
+
+    /**
+     * Get the number of pins that found the page already in memory, for the file with the given name.
+     */
+    public long countHits( String fileName )
+    {
+        FileCounters counters = fileCounters.get( fileName );
+        return counters == null? 0 : counters.hits.get();
+    }
+
     @Override
     public long countUnpins()
     {
@@ -328,6 +484,23 @@ public class DefaultPageCacheMonitor implements PageCacheMonitor
         return flushes.get();
     }
 
+    /**
+     * Get the number of write IOs done by mass-flushes. Adjacent dirty pages are written with a single IO, so this
+     * can be smaller than the number of page flushes.
+     */
+    public long countFlushIOs()
+    {
+        return flushIOs.get();
+    }
+
+    /**
+     * Get the number of bytes written by the write IOs counted by {@link #countFlushIOs()}.
+     */
+    public long countFlushIOBytes()
+    {
+        return flushIOBytes.get();
+    }
+
     @Override
     public long countBytesRead()
     {
@@ -357,4 +530,39 @@ public class DefaultPageCacheMonitor implements PageCacheMonitor
     {
         return evictionExceptions.get();
     }
+
+    @Override
+    public long countBackgroundFlushExceptions()
+    {
+        return backgroundFlushExceptions.get();
+    }
+
+    /**
+     * A counter that is incremented in one of a number of stripes, picked by the id of the incrementing thread, so
+     * that threads that pin pages concurrently don't all contend on the same cache line. The stripes are spaced a
+     * cache line apart.
+     */
+    protected static final class StripedCounter
+    {
+        private static final int STRIPES = Integer.highestOneBit( Runtime.getRuntime().availableProcessors() * 4 - 1 );
+        private static final int STRIPE_MASK = STRIPES - 1;
+        private static final int STRIPE_SHIFT = 3; // 8 longs, or 64 bytes, per stripe
+
+        private final AtomicLongArray stripes = new AtomicLongArray( STRIPES << STRIPE_SHIFT );
+
+        public void increment()
+        {
+            stripes.getAndIncrement( ((int) Thread.currentThread().getId() & STRIPE_MASK) << STRIPE_SHIFT );
+        }
+
+        public long sum()
+        {
+            long sum = 0;
+            for ( int i = 0; i < STRIPES; i++ )
+            {
+                sum += stripes.get( i << STRIPE_SHIFT );
+            }
+            return sum;
+        }
+    }
 }
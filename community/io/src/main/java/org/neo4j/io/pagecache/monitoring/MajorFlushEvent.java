@@ -28,4 +28,11 @@ public interface MajorFlushEvent extends AutoCloseablePageCacheMonitorEvent
      * Mass-flushing obviously imply flushing opportunities.
      */
     public FlushEventOpportunity flushEventOpportunity();
+
+    /**
+     * A single write IO of the given number of bytes has been issued as part
+     * of this flush. Dirty pages that are adjacent in the file are coalesced
+     * into one IO, so there can be fewer IOs than there are page flushes.
+     */
+    public void ioPerformed( long bytesWritten );
 }
@@ -75,6 +75,33 @@ public interface PageCacheMonitor
             return NULL_FLUSH_EVENT_OPPORTUNITY;
         }
 
+        @Override
+        public void ioPerformed( long bytesWritten )
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    };
+
+    /**
+     * A BackgroundFlushEvent that only returns the NULL_FLUSH_EVENT_OPPORTUNITY.
+     */
+    public static final BackgroundFlushEvent NULL_BACKGROUND_FLUSH_EVENT = new BackgroundFlushEvent()
+    {
+        @Override
+        public FlushEventOpportunity flushEventOpportunity()
+        {
+            return NULL_FLUSH_EVENT_OPPORTUNITY;
+        }
+
+        @Override
+        public void threwException( IOException exception )
+        {
+        }
+
         @Override
         public void close()
         {
@@ -159,6 +186,11 @@ public interface PageCacheMonitor
         {
         }
 
+        @Override
+        public void hit()
+        {
+        }
+
         @Override
         public PageFaultEvent beginPageFault()
         {
@@ -228,6 +260,12 @@ public interface PageCacheMonitor
             return NULL_MAJOR_FLUSH_EVENT;
         }
 
+        @Override
+        public BackgroundFlushEvent beginBackgroundFlush()
+        {
+            return NULL_BACKGROUND_FLUSH_EVENT;
+        }
+
         @Override
         public long countFaults()
         {
@@ -246,6 +284,12 @@ public interface PageCacheMonitor
             return 0;
         }
 
+        @Override
+        public long countHits()
+        {
+            return 0;
+        }
+
         @Override
         public long countUnpins()
         {
@@ -287,6 +331,12 @@ public interface PageCacheMonitor
         {
             return 0;
         }
+
+        @Override
+        public long countBackgroundFlushExceptions()
+        {
+            return 0;
+        }
     };
 
     /**
@@ -323,6 +373,11 @@ public interface PageCacheMonitor
      */
     public MajorFlushEvent beginCacheFlush();
 
+    /**
+     * The eviction thread is flushing some dirty pages in the background. Called from the background eviction thread.
+     */
+    public BackgroundFlushEvent beginBackgroundFlush();
+
     /**
      * @return The number of page faults observed thus far.
      */
@@ -338,6 +393,12 @@ public interface PageCacheMonitor
      */
     public long countPins();
 
+    /**
+     * @return The number of page pins that found the page already in memory, observed thus far.
+     * The hit ratio of the page cache is the number of hits divided by the number of hits and page faults.
+     */
+    public long countHits();
+
     /**
      * @return The number of page unpins observed thus far.
      */
@@ -372,4 +433,9 @@ public interface PageCacheMonitor
      * @return The number of page evictions that have thrown exceptions thus far.
      */
     public long countEvictionExceptions();
+
+    /**
+     * @return The number of background flushes that have thrown exceptions thus far.
+     */
+    public long countBackgroundFlushExceptions();
 }
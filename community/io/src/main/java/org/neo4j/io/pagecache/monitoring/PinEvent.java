@@ -29,6 +29,11 @@ public interface PinEvent
      */
     public void setCachePageId( int cachePageId );
 
+    /**
+     * The page we want to pin was already in memory, so no page fault was needed.
+     */
+    public void hit();
+
     /**
      * The page we want to pin is not in memory, so being a page fault to load it in.
      */
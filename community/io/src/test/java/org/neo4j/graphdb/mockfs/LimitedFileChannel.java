@@ -53,7 +53,7 @@ public class LimitedFileChannel implements StoreChannel
     @Override
     public long read( ByteBuffer[] dsts ) throws IOException
     {
-        return 0;
+        return inner.read( dsts );
     }
 
     @Override
@@ -73,7 +73,8 @@ public class LimitedFileChannel implements StoreChannel
     @Override
     public long write( ByteBuffer[] srcs ) throws IOException
     {
-        return 0;
+        fs.ensureHasSpace();
+        return inner.write( srcs );
     }
 
     @Override
@@ -2069,6 +2069,7 @@ public abstract class PageCacheTest<T extends RunnablePageCache>
         // have observed *at least* the countedPages number of faults.
         long faults = monitor.countFaults();
         assertThat( "wrong count of faults", faults, greaterThanOrEqualTo( countedPages ) );
+        assertThat( "every pin must either hit or fault", monitor.countHits() + faults, is( countedPages * 2 ) );
         // Every page we move forward can put the freelist behind so the cache
         // wants to evict more pages. Plus, every page fault we do could also
         // block and get a page directly transferred to it, and these kinds of
@@ -27,6 +27,7 @@ import java.util.concurrent.BlockingQueue;
 import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.LinkedBlockingQueue;
 
+import org.neo4j.io.pagecache.monitoring.BackgroundFlushEvent;
 import org.neo4j.io.pagecache.monitoring.EvictionEvent;
 import org.neo4j.io.pagecache.monitoring.EvictionRunEvent;
 import org.neo4j.io.pagecache.monitoring.FlushEventOpportunity;
@@ -134,6 +135,11 @@ public class RecordingPageCacheMonitor implements PageCacheMonitor
             {
             }
 
+            @Override
+            public void hit()
+            {
+            }
+
             @Override
             public PageFaultEvent beginPageFault()
             {
@@ -186,6 +192,12 @@ public class RecordingPageCacheMonitor implements PageCacheMonitor
         return PageCacheMonitor.NULL_MAJOR_FLUSH_EVENT;
     }
 
+    @Override
+    public BackgroundFlushEvent beginBackgroundFlush()
+    {
+        return PageCacheMonitor.NULL_BACKGROUND_FLUSH_EVENT;
+    }
+
     @Override
     public long countFaults()
     {
@@ -204,6 +216,12 @@ public class RecordingPageCacheMonitor implements PageCacheMonitor
         return 0;
     }
 
+    @Override
+    public long countHits()
+    {
+        return 0;
+    }
+
     @Override
     public long countUnpins()
     {
@@ -246,6 +264,12 @@ public class RecordingPageCacheMonitor implements PageCacheMonitor
         return 0;
     }
 
+    @Override
+    public long countBackgroundFlushExceptions()
+    {
+        return 0;
+    }
+
     public <T extends Event> T observe( Class<T> type ) throws InterruptedException
     {
         return type.cast( record.take() );
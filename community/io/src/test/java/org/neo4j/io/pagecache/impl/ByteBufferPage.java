@@ -120,6 +120,15 @@ public class ByteBufferPage implements Page
         return bytesRead;
     }
 
+    @Override
+    public ByteBuffer asByteBuffer( int length )
+    {
+        ByteBuffer duplicate = buffer.duplicate();
+        duplicate.position( 0 );
+        duplicate.limit( length );
+        return duplicate;
+    }
+
     @Override
     public void swapOut( StoreChannel channel, long offset, int length ) throws IOException
     {
@@ -28,10 +28,14 @@ import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
+import org.neo4j.graphdb.mockfs.DelegatingFileSystemAbstraction;
+import org.neo4j.graphdb.mockfs.DelegatingStoreChannel;
 import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.io.pagecache.Page;
 import org.neo4j.io.pagecache.PageSwapper;
 
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 
 import static org.neo4j.test.ByteArrayMatcher.byteArray;
@@ -93,6 +97,71 @@ public class SingleFilePageSwapperTest
         assertThat( target.array(), byteArray( new byte[]{ 5, 6, 0, 0 } ) );
     }
 
+    @Test
+    public void vectoredReadMustFillConsecutivePagesAndZeroFillBeyondEndOfFile() throws IOException
+    {
+        byte[] bytes = new byte[] {
+                // --- page 0:
+                1, 2, 3, 4,
+                // --- page 1:
+                5, 6, 7, 8,
+                // --- page 2:
+                9, 10
+        };
+        StoreChannel channel = fs.create( file );
+        channel.writeAll( ByteBuffer.wrap( bytes ) );
+        channel.close();
+
+        PageSwapper swapper = factory.createPageSwapper( file, 4, null );
+        ByteBuffer[] targets = new ByteBuffer[4];
+        Page[] pages = new Page[4];
+        for ( int i = 0; i < pages.length; i++ )
+        {
+            targets[i] = ByteBuffer.allocate( 4 );
+            targets[i].put( new byte[] { -1, -1, -1, -1 } );
+            pages[i] = new ByteBufferPage( targets[i] );
+        }
+        long bytesRead = swapper.read( 1, pages, 1, 3 );
+
+        assertThat( bytesRead, is( 6L ) );
+        assertThat( targets[0].array(), byteArray( new byte[]{ -1, -1, -1, -1 } ) );
+        assertThat( targets[1].array(), byteArray( new byte[]{ 5, 6, 7, 8 } ) );
+        assertThat( targets[2].array(), byteArray( new byte[]{ 9, 10, 0, 0 } ) );
+        assertThat( targets[3].array(), byteArray( new byte[]{ 0, 0, 0, 0 } ) );
+    }
+
+    @Test( expected = IOException.class )
+    public void vectoredReadMustFailWhenChannelMakesNoProgress() throws IOException
+    {
+        StoreChannel channel = fs.create( file );
+        channel.writeAll( ByteBuffer.wrap( new byte[] { 1, 2, 3, 4, 5, 6, 7, 8 } ) );
+        channel.close();
+        SingleFilePageSwapperFactory stallingFactory = new SingleFilePageSwapperFactory(
+                new DelegatingFileSystemAbstraction( fs )
+                {
+                    @Override
+                    public StoreChannel open( File fileName, String mode ) throws IOException
+                    {
+                        return new DelegatingStoreChannel( super.open( fileName, mode ) )
+                        {
+                            @Override
+                            public long read( ByteBuffer[] dsts ) throws IOException
+                            {
+                                return 0;
+                            }
+                        };
+                    }
+                } );
+
+        Page[] pages = new Page[] {
+                new ByteBufferPage( ByteBuffer.allocate( 4 ) ),
+                new ByteBufferPage( ByteBuffer.allocate( 4 ) )
+        };
+
+        PageSwapper swapper = stallingFactory.createPageSwapper( file, 4, null );
+        swapper.read( 0, pages, 0, 2 );
+    }
+
     @Test
     public void swappingOutMustWritePageToFile() throws IOException
     {
@@ -111,6 +180,59 @@ public class SingleFilePageSwapperTest
         assertThat( actual, byteArray( expected ) );
     }
 
+    @Test
+    public void vectoredWriteMustWriteConsecutivePagesToFile() throws IOException
+    {
+        fs.create( file ).close();
+
+        Page[] pages = new Page[] {
+                new ByteBufferPage( ByteBuffer.wrap( new byte[] { 1, 2, 3, 4 } ) ),
+                new ByteBufferPage( ByteBuffer.wrap( new byte[] { 5, 6, 7, 8 } ) ),
+                new ByteBufferPage( ByteBuffer.wrap( new byte[] { 9, 10, 11, 12 } ) )
+        };
+
+        PageSwapper swapper = factory.createPageSwapper( file, 4, null );
+        long bytesWritten = swapper.write( 1, pages, 1, 2 );
+
+        assertThat( bytesWritten, is( 8L ) );
+        InputStream stream = fs.openAsInputStream( file );
+        byte[] actual = new byte[(int) fs.getFileSize( file )];
+        stream.read( actual );
+
+        assertThat( actual, byteArray( new byte[] { 0, 0, 0, 0, 5, 6, 7, 8, 9, 10, 11, 12 } ) );
+        assertThat( swapper.getLastPageId(), is( 2L ) );
+    }
+
+    @Test( expected = IOException.class )
+    public void vectoredWriteMustFailWhenChannelMakesNoProgress() throws IOException
+    {
+        fs.create( file ).close();
+        SingleFilePageSwapperFactory stallingFactory = new SingleFilePageSwapperFactory(
+                new DelegatingFileSystemAbstraction( fs )
+                {
+                    @Override
+                    public StoreChannel open( File fileName, String mode ) throws IOException
+                    {
+                        return new DelegatingStoreChannel( super.open( fileName, mode ) )
+                        {
+                            @Override
+                            public long write( ByteBuffer[] srcs ) throws IOException
+                            {
+                                return 0;
+                            }
+                        };
+                    }
+                } );
+
+        Page[] pages = new Page[] {
+                new ByteBufferPage( ByteBuffer.wrap( new byte[] { 1, 2, 3, 4 } ) ),
+                new ByteBufferPage( ByteBuffer.wrap( new byte[] { 5, 6, 7, 8 } ) )
+        };
+
+        PageSwapper swapper = stallingFactory.createPageSwapper( file, 4, null );
+        swapper.write( 0, pages, 0, 2 );
+    }
+
     @Test
     public void swappingOutMustNotOverwriteDataBeyondPage() throws IOException
     {
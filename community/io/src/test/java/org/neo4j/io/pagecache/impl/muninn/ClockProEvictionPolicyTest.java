@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.io.pagecache.impl.muninn;
+
+import org.junit.Test;
+
+import org.neo4j.io.pagecache.PageSwapper;
+import org.neo4j.io.pagecache.monitoring.DummyPageSwapper;
+
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class ClockProEvictionPolicyTest
+{
+    private final int maxPages = 100;
+    private final ClockProEvictionPolicy policy = new ClockProEvictionPolicy( maxPages );
+    private final PageSwapper swapper = new DummyPageSwapper( "file" );
+
+    @Test
+    public void pageUsedOnlyOnceMustBeEvictedOnFirstSweep()
+    {
+        policy.pageFaulted( 0, swapper, 0 );
+        assertTrue( policy.shouldEvict( 0 ) );
+    }
+
+    @Test
+    public void referencesRightAfterFaultMustNotKeepPageAroundForLong()
+    {
+        policy.pageFaulted( 0, swapper, 0 );
+        policy.pageHit( 0 );
+        policy.pageHit( 0 );
+        policy.pageHit( 0 );
+
+        assertFalse( policy.shouldEvict( 0 ) );
+        assertTrue( policy.shouldEvict( 0 ) );
+    }
+
+    @Test
+    public void scanMustNotEvictHotPages()
+    {
+        int hotPages = 10;
+        for ( int i = 0; i < hotPages; i++ )
+        {
+            policy.pageFaulted( i, swapper, i );
+            policy.pageHit( i );
+        }
+        sweep( hotPages ); // end of the correlated reference period
+        hitAll( hotPages );
+        sweep( hotPages ); // promoted to hot
+
+        // A scan through the rest of the cache, many times over
+        for ( int round = 0; round < 10; round++ )
+        {
+            for ( int i = hotPages; i < maxPages; i++ )
+            {
+                policy.pageFaulted( i, swapper, 1000 + round * maxPages + i );
+            }
+            for ( int i = 0; i < maxPages; i++ )
+            {
+                boolean isScanPage = i >= hotPages;
+                assertThat( "page " + i + " in round " + round, policy.shouldEvict( i ), is( isScanPage ) );
+                if ( isScanPage )
+                {
+                    policy.pageEvicted( i, swapper, 1000 + round * maxPages + i );
+                }
+            }
+            hitAll( hotPages );
+        }
+    }
+
+    @Test
+    public void faultingRecentlyEvictedPageMustGrowColdTarget()
+    {
+        int coldTarget = policy.coldTarget();
+        policy.pageFaulted( 0, swapper, 42 );
+        assertTrue( policy.shouldEvict( 0 ) );
+        policy.pageEvicted( 0, swapper, 42 );
+
+        policy.pageFaulted( 0, swapper, 42 );
+
+        assertThat( policy.coldTarget(), greaterThan( coldTarget ) );
+        assertFalse( "page was evicted too soon last time", policy.shouldEvict( 0 ) );
+    }
+
+    @Test
+    public void mustEvictSomePageEvenIfAllPagesAreReferencedOnEverySweep()
+    {
+        for ( int i = 0; i < maxPages; i++ )
+        {
+            policy.pageFaulted( i, swapper, i );
+        }
+        for ( int sweep = 0; sweep < 3; sweep++ )
+        {
+            hitAll( maxPages );
+            for ( int i = 0; i < maxPages; i++ )
+            {
+                if ( policy.shouldEvict( i ) )
+                {
+                    return;
+                }
+            }
+        }
+        fail( "Expected some page to be evicted" );
+    }
+
+    private void sweep( int pages )
+    {
+        for ( int i = 0; i < pages; i++ )
+        {
+            assertFalse( policy.shouldEvict( i ) );
+        }
+    }
+
+    private void hitAll( int pages )
+    {
+        for ( int i = 0; i < pages; i++ )
+        {
+            policy.pageHit( i );
+        }
+    }
+}
@@ -24,11 +24,14 @@ import org.junit.Test;
 import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveLongIntMap;
@@ -38,19 +41,26 @@ import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.fs.StoreChannel;
 import org.neo4j.io.pagecache.PageCacheTest;
 import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PageSwapper;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.RecordingPageCacheMonitor;
+import org.neo4j.io.pagecache.impl.SingleFilePageSwapperFactory;
+import org.neo4j.io.pagecache.monitoring.BackgroundFlushEvent;
+import org.neo4j.io.pagecache.monitoring.DefaultPageCacheMonitor;
+import org.neo4j.io.pagecache.monitoring.MajorFlushEvent;
 import org.neo4j.io.pagecache.monitoring.PageCacheMonitor;
 
 import static org.hamcrest.Matchers.instanceOf;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.neo4j.io.pagecache.PagedFile.PF_EXCLUSIVE_LOCK;
 import static org.neo4j.io.pagecache.PagedFile.PF_NO_GROW;
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
 import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_LOCK;
 import static org.neo4j.io.pagecache.RecordingPageCacheMonitor.Evict;
 import static org.neo4j.io.pagecache.RecordingPageCacheMonitor.Fault;
@@ -203,6 +213,522 @@ public class MuninnPageCacheTest extends PageCacheTest<MuninnPageCache>
         assertThat( buf.getLong(), is( 0L ) );
     }
 
+    @Test
+    public void mustNotEvictPagesOfFileWithinItsReservation() throws Exception
+    {
+        File reservedFile = new File( "reserved" );
+        writeInitialDataTo( file );
+        writeInitialDataTo( reservedFile );
+        RecordingPageCacheMonitor monitor = new RecordingPageCacheMonitor();
+
+        MuninnPageCache pageCache = new MuninnPageCache( fs, 4, 8, monitor );
+        PagedFile reservedPagedFile = pageCache.map( reservedFile, 8, 50 );
+        PagedFile pagedFile = pageCache.map( file, 8 );
+
+        for ( PagedFile pf : new PagedFile[] { reservedPagedFile, pagedFile } )
+        {
+            try ( PageCursor cursor = pf.io( 0, PF_SHARED_LOCK | PF_NO_GROW ) )
+            {
+                assertTrue( cursor.next() );
+                assertTrue( cursor.next() );
+            }
+            assertNotNull( monitor.observe( Fault.class ) );
+            assertNotNull( monitor.observe( Fault.class ) );
+        }
+
+        pageCache.evictPages( 2, 0, monitor.beginPageEvictions( 2 ) );
+        assertThat( monitor.observe( Evict.class ).io.fileName(), is( file.getName() ) );
+        assertThat( monitor.observe( Evict.class ).io.fileName(), is( file.getName() ) );
+    }
+
+    @Test
+    public void mustNotConsultEvictionPolicyAboutPagesWithinReservation() throws Exception
+    {
+        File reservedFile = new File( "reserved" );
+        writeInitialDataTo( file );
+        writeInitialDataTo( reservedFile );
+        final Set<Integer> reservedCachePages = new HashSet<>();
+        final Set<Integer> consultedCachePages = new HashSet<>();
+        EvictionPolicyFactory policyFactory = new EvictionPolicyFactory()
+        {
+            @Override
+            public String getImplementationName()
+            {
+                return "recording";
+            }
+
+            @Override
+            public EvictionPolicy createEvictionPolicy( int maxPages )
+            {
+                final EvictionPolicy policy = new ClockEvictionPolicy( maxPages );
+                return new EvictionPolicy()
+                {
+                    @Override
+                    public void pageFaulted( int cachePageId, PageSwapper swapper, long filePageId )
+                    {
+                        if ( swapper.fileName().equals( "reserved" ) )
+                        {
+                            reservedCachePages.add( cachePageId );
+                        }
+                        policy.pageFaulted( cachePageId, swapper, filePageId );
+                    }
+
+                    @Override
+                    public void pageHit( int cachePageId )
+                    {
+                        policy.pageHit( cachePageId );
+                    }
+
+                    @Override
+                    public boolean shouldEvict( int cachePageId )
+                    {
+                        consultedCachePages.add( cachePageId );
+                        return policy.shouldEvict( cachePageId );
+                    }
+
+                    @Override
+                    public void pageEvicted( int cachePageId, PageSwapper swapper, long filePageId )
+                    {
+                        policy.pageEvicted( cachePageId, swapper, filePageId );
+                    }
+                };
+            }
+        };
+
+        MuninnPageCache pageCache = new MuninnPageCache(
+                new SingleFilePageSwapperFactory( fs ), 4, 8, PageCacheMonitor.NULL, policyFactory );
+        PagedFile reservedPagedFile = pageCache.map( reservedFile, 8, 50 );
+        PagedFile pagedFile = pageCache.map( file, 8 );
+
+        for ( PagedFile pf : new PagedFile[] { reservedPagedFile, pagedFile } )
+        {
+            try ( PageCursor cursor = pf.io( 0, PF_SHARED_LOCK | PF_NO_GROW ) )
+            {
+                assertTrue( cursor.next() );
+                assertTrue( cursor.next() );
+            }
+        }
+
+        pageCache.evictPages( 2, 0, PageCacheMonitor.NULL_EVICTION_RUN_EVENT );
+        assertThat( reservedCachePages.size(), is( 2 ) );
+        assertFalse( consultedCachePages.isEmpty() );
+        for ( Integer cachePageId : reservedCachePages )
+        {
+            assertFalse( consultedCachePages.contains( cachePageId ) );
+        }
+    }
+
+    @Test
+    public void mustNotReserveMoreThanHalfTheCache() throws Exception
+    {
+        File otherFile = new File( "other" );
+        writeInitialDataTo( file );
+        writeInitialDataTo( otherFile );
+        MuninnPageCache pageCache = new MuninnPageCache( fs, 10, 8, PageCacheMonitor.NULL );
+        pageCache.map( file, 8, 30 );
+        try
+        {
+            pageCache.map( otherFile, 8, 30 );
+            fail( "expected the reservation to be refused" );
+        }
+        catch ( IllegalArgumentException ignore )
+        {
+            // this is expected
+        }
+
+        // Mapping the same file twice keeps the largest reservation
+        pageCache.map( file, 8, 50 );
+        pageCache.map( file, 8, 10 );
+        pageCache.unmap( file );
+        pageCache.unmap( file );
+        pageCache.unmap( file );
+        pageCache.map( otherFile, 8, 50 );
+    }
+
+    @Test
+    public void mustReadAheadWhenScanningSequentially() throws Exception
+    {
+        int filePages = 16;
+        StoreChannel channel = fs.create( file );
+        ByteBuffer buf = ByteBuffer.allocate( filePages * 8 );
+        for ( int i = 0; i < filePages; i++ )
+        {
+            buf.putLong( x + i );
+        }
+        buf.flip();
+        channel.writeAll( buf );
+        channel.close();
+        DefaultPageCacheMonitor monitor = new DefaultPageCacheMonitor();
+
+        MuninnPageCache pageCache = new MuninnPageCache( fs, 32, 8, monitor );
+        MuninnPagedFile pagedFile = (MuninnPagedFile) pageCache.map( file, 8 );
+
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_LOCK | PF_READ_AHEAD ) )
+        {
+            assertTrue( cursor.next() );
+        }
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis( 10 );
+        while ( pagedFile.getResidentPages() < filePages && System.currentTimeMillis() < deadline )
+        {
+            Thread.sleep( 1 );
+        }
+        assertThat( pagedFile.getResidentPages(), is( filePages ) );
+
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_LOCK ) )
+        {
+            for ( int i = 0; i < filePages; i++ )
+            {
+                assertTrue( cursor.next() );
+                long value;
+                do
+                {
+                    value = cursor.getLong();
+                }
+                while ( cursor.shouldRetry() );
+                assertThat( value, is( x + i ) );
+            }
+        }
+        assertThat( monitor.countFaults( file.getName() ), is( 1L ) );
+        pageCache.unmap( file );
+    }
+
+    @Test
+    public void mustReadAheadWhenScanningSequentiallyWithACursorForEveryPage() throws Exception
+    {
+        int filePages = 16;
+        StoreChannel channel = fs.create( file );
+        channel.writeAll( ByteBuffer.allocate( filePages * 8 ) );
+        channel.close();
+        File otherFile = new File( "other" );
+        writeInitialDataTo( otherFile );
+        MuninnPageCache pageCache = new MuninnPageCache( fs, 32, 8, PageCacheMonitor.NULL );
+        MuninnPagedFile pagedFile = (MuninnPagedFile) pageCache.map( file, 8 );
+        MuninnPagedFile otherPagedFile = (MuninnPagedFile) pageCache.map( otherFile, 8 );
+
+        for ( long pageId = 3; pageId <= 4; pageId++ )
+        {
+            try ( PageCursor cursor = pagedFile.io( pageId, PF_SHARED_LOCK | PF_READ_AHEAD ) )
+            {
+                assertTrue( cursor.next() );
+            }
+            // Cursors opened without the hint, on other files, don't get in the way
+            try ( PageCursor cursor = otherPagedFile.io( 0, PF_EXCLUSIVE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+            }
+        }
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis( 10 );
+        while ( pagedFile.getResidentPages() < filePages - 3 && System.currentTimeMillis() < deadline )
+        {
+            Thread.sleep( 1 );
+        }
+        assertThat( pagedFile.getResidentPages(), is( filePages - 3 ) );
+        pageCache.unmap( file );
+        pageCache.unmap( otherFile );
+    }
+
+    @Test
+    public void mustReadAheadWhenOnlyThePagesKeptFreeForPageFaultsAreLeft() throws Exception
+    {
+        int filePages = 8;
+        int maxPages = 32;
+        int keepFree = maxPages / 2;
+        StoreChannel channel = fs.create( file );
+        channel.writeAll( ByteBuffer.allocate( filePages * 8 ) );
+        channel.close();
+        File otherFile = new File( "other" );
+        channel = fs.create( otherFile );
+        channel.writeAll( ByteBuffer.allocate( (maxPages - keepFree) * 8 ) );
+        channel.close();
+        MuninnPageCache pageCache = new MuninnPageCache( fs, maxPages, 8, PageCacheMonitor.NULL );
+        MuninnPagedFile pagedFile = (MuninnPagedFile) pageCache.map( file, 8 );
+        MuninnPagedFile otherPagedFile = (MuninnPagedFile) pageCache.map( otherFile, 8 );
+
+        // Warm up the cache, until only the pages kept free for page faults are left
+        try ( PageCursor cursor = otherPagedFile.io( 0, PF_SHARED_LOCK ) )
+        {
+            while ( cursor.next() )
+            {
+                // Just fault the pages in
+            }
+        }
+        assertThat( otherPagedFile.getResidentPages(), is( maxPages - keepFree ) );
+
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_LOCK | PF_READ_AHEAD ) )
+        {
+            assertTrue( cursor.next() );
+        }
+        long deadline = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis( 10 );
+        while ( pagedFile.getResidentPages() < filePages && System.currentTimeMillis() < deadline )
+        {
+            Thread.sleep( 1 );
+        }
+        assertThat( pagedFile.getResidentPages(), is( filePages ) );
+        pageCache.unmap( file );
+        pageCache.unmap( otherFile );
+    }
+
+    @Test
+    public void readAheadMustLeaveHalfThePagesKeptFreeForPageFaults() throws Exception
+    {
+        int maxPages = 20;
+        MuninnPageCache pageCache = new MuninnPageCache( fs, maxPages, 8, PageCacheMonitor.NULL );
+        int keepFree = maxPages / 2;
+
+        for ( int i = 0; i < maxPages - keepFree / 2; i++ )
+        {
+            assertNotNull( pageCache.tryGrabFreePage() );
+        }
+        assertNull( pageCache.tryGrabFreePage() );
+        pageCache.close();
+    }
+
+    @Test
+    public void mustCoalesceAdjacentDirtyPagesWhenFlushing() throws Exception
+    {
+        DefaultPageCacheMonitor monitor = new DefaultPageCacheMonitor();
+        MuninnPageCache pageCache = new MuninnPageCache( fs, 16, 8, monitor );
+        PagedFile pagedFile = pageCache.map( file, 8 );
+
+        // Dirty pages 0 to 4 and 6 to 7, in a scrambled order.
+        long[] pageIds = new long[] { 3, 7, 0, 4, 1, 6, 2 };
+        for ( long pageId : pageIds )
+        {
+            try ( PageCursor cursor = pagedFile.io( pageId, PF_EXCLUSIVE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( x + pageId );
+            }
+        }
+        pagedFile.flush();
+
+        assertThat( monitor.countFlushes(), is( 7L ) );
+        assertThat( monitor.countFlushIOs(), is( 2L ) );
+        assertThat( monitor.countFlushIOBytes(), is( 7L * 8 ) );
+        assertThat( monitor.countBytesWritten(), is( 7L * 8 ) );
+
+        ByteBuffer buf = ByteBuffer.allocate( 8 * 8 );
+        StoreChannel channel = fs.open( file, "r" );
+        channel.read( buf );
+        channel.close();
+        buf.flip();
+        for ( long pageId = 0; pageId < 8; pageId++ )
+        {
+            assertThat( buf.getLong(), is( pageId == 5 ? 0L : x + pageId ) );
+        }
+
+        pagedFile.flush();
+        assertThat( "nothing should be dirty after a flush", monitor.countFlushIOs(), is( 2L ) );
+        pageCache.unmap( file );
+    }
+
+    @Test
+    public void backgroundFlushMustWriteOutDirtyPages() throws Exception
+    {
+        writeInitialDataTo( file );
+        DefaultPageCacheMonitor monitor = new DefaultPageCacheMonitor();
+        MuninnPageCache pageCache = new MuninnPageCache( fs, 4, 8, monitor );
+        PagedFile pagedFile = pageCache.map( file, 8 );
+
+        try ( PageCursor cursor = pagedFile.io( 0, PF_EXCLUSIVE_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+            cursor.putLong( y );
+            assertTrue( cursor.next() );
+            cursor.putLong( x );
+        }
+        pageCache.backgroundFlush( 0 );
+        assertThat( monitor.countFlushes(), is( 2L ) );
+
+        ByteBuffer buf = ByteBuffer.allocate( 16 );
+        StoreChannel channel = fs.open( file, "r" );
+        channel.read( buf );
+        channel.close();
+        buf.flip();
+        assertThat( buf.getLong(), is( y ) );
+        assertThat( buf.getLong(), is( x ) );
+
+        // The pages are clean now, so unmapping must not flush them again.
+        pageCache.unmap( file );
+        assertThat( monitor.countFlushes(), is( 2L ) );
+    }
+
+    @Test
+    public void backgroundFlushMustNotBeginAnEventWhenNoPagesAreDirty() throws Exception
+    {
+        writeInitialDataTo( file );
+        final AtomicInteger backgroundFlushes = new AtomicInteger();
+        DefaultPageCacheMonitor monitor = new DefaultPageCacheMonitor()
+        {
+            @Override
+            public BackgroundFlushEvent beginBackgroundFlush()
+            {
+                backgroundFlushes.getAndIncrement();
+                return super.beginBackgroundFlush();
+            }
+        };
+        MuninnPageCache pageCache = new MuninnPageCache( fs, 4, 8, monitor );
+        PagedFile pagedFile = pageCache.map( file, 8 );
+
+        try ( PageCursor cursor = pagedFile.io( 0, PF_SHARED_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+            assertTrue( cursor.next() );
+        }
+        pageCache.backgroundFlush( 0 );
+
+        assertThat( backgroundFlushes.get(), is( 0 ) );
+        assertThat( monitor.countFlushes(), is( 0L ) );
+        pageCache.unmap( file );
+    }
+
+    @Test
+    public void backgroundFlushMustNotBeReportedAsCacheFlush() throws Exception
+    {
+        writeInitialDataTo( file );
+        final AtomicInteger cacheFlushes = new AtomicInteger();
+        final AtomicInteger backgroundFlushes = new AtomicInteger();
+        DefaultPageCacheMonitor monitor = new DefaultPageCacheMonitor()
+        {
+            @Override
+            public MajorFlushEvent beginCacheFlush()
+            {
+                cacheFlushes.getAndIncrement();
+                return super.beginCacheFlush();
+            }
+
+            @Override
+            public BackgroundFlushEvent beginBackgroundFlush()
+            {
+                backgroundFlushes.getAndIncrement();
+                return super.beginBackgroundFlush();
+            }
+        };
+        MuninnPageCache pageCache = new MuninnPageCache( fs, 4, 8, monitor );
+        PagedFile pagedFile = pageCache.map( file, 8 );
+
+        try ( PageCursor cursor = pagedFile.io( 0, PF_EXCLUSIVE_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+            cursor.putLong( x );
+        }
+        pageCache.backgroundFlush( 0 );
+
+        assertThat( cacheFlushes.get(), is( 0 ) );
+        assertThat( backgroundFlushes.get(), is( 1 ) );
+        assertThat( monitor.countFlushes(), is( 1L ) );
+        pageCache.unmap( file );
+    }
+
+    @Test
+    public void backgroundFlushMustRecordExceptionsAndLeaveThePageDirty() throws Exception
+    {
+        writeInitialDataTo( file );
+        final AtomicInteger writesToFail = new AtomicInteger( 1 );
+        FileSystemAbstraction fs = new DelegatingFileSystemAbstraction( this.fs )
+        {
+            @Override
+            public StoreChannel open( File fileName, String mode ) throws IOException
+            {
+                return new DelegatingStoreChannel( super.open( fileName, mode ) )
+                {
+                    @Override
+                    public void writeAll( ByteBuffer src, long position ) throws IOException
+                    {
+                        if ( writesToFail.getAndDecrement() > 0 )
+                        {
+                            throw new IOException( "uh-oh..." );
+                        }
+                        super.writeAll( src, position );
+                    }
+                };
+            }
+        };
+        DefaultPageCacheMonitor monitor = new DefaultPageCacheMonitor();
+        MuninnPageCache pageCache = new MuninnPageCache( fs, 4, 8, monitor );
+        PagedFile pagedFile = pageCache.map( file, 8 );
+
+        try ( PageCursor cursor = pagedFile.io( 0, PF_EXCLUSIVE_LOCK ) )
+        {
+            assertTrue( cursor.next() );
+            cursor.putLong( x );
+        }
+        pageCache.backgroundFlush( 0 );
+        assertThat( monitor.countBackgroundFlushExceptions(), is( 1L ) );
+
+        // The page is still dirty, so the next flush writes it out.
+        pageCache.unmap( file );
+        ByteBuffer buf = ByteBuffer.allocate( 8 );
+        StoreChannel channel = this.fs.open( file, "r" );
+        channel.read( buf );
+        channel.close();
+        buf.flip();
+        assertThat( buf.getLong(), is( x ) );
+    }
+
+    @Test
+    public void flushMustNotLeavePagesLockedWhenWritingARunFails() throws Exception
+    {
+        writeInitialDataTo( file );
+        final AtomicInteger writesToFail = new AtomicInteger( 1 );
+        FileSystemAbstraction fs = new DelegatingFileSystemAbstraction( this.fs )
+        {
+            @Override
+            public StoreChannel open( File fileName, String mode ) throws IOException
+            {
+                return new DelegatingStoreChannel( super.open( fileName, mode ) )
+                {
+                    @Override
+                    public long write( ByteBuffer[] srcs ) throws IOException
+                    {
+                        if ( writesToFail.getAndDecrement() > 0 )
+                        {
+                            throw new IOException( "uh-oh..." );
+                        }
+                        return super.write( srcs );
+                    }
+                };
+            }
+        };
+        MuninnPageCache pageCache = new MuninnPageCache( fs, 4, 8, PageCacheMonitor.NULL );
+        final PagedFile pagedFile = pageCache.map( file, 8 );
+
+        // Two runs, so that the first one is written while the second one is being gathered
+        for ( long pageId : new long[]{0, 2} )
+        {
+            try ( PageCursor cursor = pagedFile.io( pageId, PF_EXCLUSIVE_LOCK ) )
+            {
+                assertTrue( cursor.next() );
+                cursor.putLong( x );
+            }
+        }
+        try
+        {
+            pagedFile.flush();
+            fail( "expected the flush to fail" );
+        }
+        catch ( IOException e )
+        {
+            // this is expected
+        }
+
+        Future<?> task = executor.submit( new Callable<Object>()
+        {
+            @Override
+            public Object call() throws Exception
+            {
+                try ( PageCursor cursor = pagedFile.io( 2, PF_EXCLUSIVE_LOCK ) )
+                {
+                    assertTrue( cursor.next() );
+                    cursor.putLong( y );
+                }
+                return null;
+            }
+        } );
+        task.get( 10, TimeUnit.SECONDS );
+        pageCache.unmap( file );
+    }
+
     @Test
     public void closingTheCursorMustUnlockModifiedPage() throws Exception
     {
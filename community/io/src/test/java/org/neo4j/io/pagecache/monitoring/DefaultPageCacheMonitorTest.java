@@ -19,6 +19,11 @@
  */
 package org.neo4j.io.pagecache.monitoring;
 
+import org.junit.Test;
+
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThat;
+
 public class DefaultPageCacheMonitorTest extends PageCacheMonitorTest
 {
     @Override
@@ -27,4 +32,57 @@ public class DefaultPageCacheMonitorTest extends PageCacheMonitorTest
         DefaultPageCacheMonitor.enablePinUnpinMonitoring();
         return new DefaultPageCacheMonitor();
     }
+
+    @Test
+    public void mustCountFaultsAndHitsPerFile()
+    {
+        DefaultPageCacheMonitor monitor = createMonitor();
+        DummyPageSwapper a = new DummyPageSwapper( "a" );
+        DummyPageSwapper b = new DummyPageSwapper( "b" );
+
+        PinEvent pinEvent = monitor.beginPin( false, 0, a );
+        pinEvent.beginPageFault().done();
+        pinEvent.done();
+        pinEvent = monitor.beginPin( false, 0, a );
+        pinEvent.hit();
+        pinEvent.done();
+        pinEvent = monitor.beginPin( true, 1, a );
+        pinEvent.hit();
+        pinEvent.done();
+        pinEvent = monitor.beginPin( true, 0, b );
+        pinEvent.beginPageFault().done();
+        pinEvent.done();
+
+        assertThat( monitor.countFaults( "a" ), is( 1L ) );
+        assertThat( monitor.countHits( "a" ), is( 2L ) );
+        assertThat( monitor.countFaults( "b" ), is( 1L ) );
+        assertThat( monitor.countHits( "b" ), is( 0L ) );
+        assertThat( monitor.countFaults( "c" ), is( 0L ) );
+        assertThat( monitor.countFaults(), is( 2L ) );
+        assertThat( monitor.countHits(), is( 2L ) );
+    }
+
+    @Test
+    public void mustCountFaultsAndHitsWhenPinMonitoringIsDisabled()
+    {
+        DefaultPageCacheMonitor monitor = new DefaultPageCacheMonitor();
+        DummyPageSwapper swapper = new DummyPageSwapper( "a" );
+
+        PinEvent pinEvent = monitor.beginNullPin( swapper );
+        PageFaultEvent pageFaultEvent = pinEvent.beginPageFault();
+        pageFaultEvent.addBytesRead( 42 );
+        pageFaultEvent.done();
+        pinEvent.done();
+        for ( int i = 0; i < 3; i++ )
+        {
+            pinEvent = monitor.beginNullPin( swapper );
+            pinEvent.hit();
+            pinEvent.done();
+        }
+
+        assertThat( monitor.countFaults(), is( 1L ) );
+        assertThat( monitor.countBytesRead(), is( 42L ) );
+        assertThat( monitor.countHits(), is( 3L ) );
+        assertThat( monitor.countPins(), is( 0L ) );
+    }
 }
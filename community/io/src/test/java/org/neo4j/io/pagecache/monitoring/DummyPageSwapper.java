@@ -39,12 +39,24 @@ public class DummyPageSwapper implements PageSwapper
         return 0;
     }
 
+    @Override
+    public long read( long startFilePageId, Page[] pages, int arrayOffset, int length ) throws IOException
+    {
+        return 0;
+    }
+
     @Override
     public int write( long filePageId, Page page ) throws IOException
     {
         return 0;
     }
 
+    @Override
+    public long write( long startFilePageId, Page[] pages, int arrayOffset, int length ) throws IOException
+    {
+        return 0;
+    }
+
     @Override
     public void evicted( long pageId, Page page )
     {
@@ -70,6 +70,20 @@ public abstract class PageCacheMonitorTest
         assertThat( "countFilesUnmapped", monitor.countFilesUnmapped(), is( filesUnmapped ) );
     }
 
+    @Test
+    public void mustCountHits()
+    {
+        PinEvent pinEvent = monitor.beginPin( true, 0, swapper );
+        pinEvent.hit();
+        pinEvent.done();
+        pinEvent = monitor.beginPin( true, 0, swapper );
+        pinEvent.beginPageFault().done();
+        pinEvent.done();
+
+        assertCounts( 2, 2, 1, 0, 0, 0, 0, 0, 0, 0 );
+        assertThat( "countHits", monitor.countHits(), is( 1L ) );
+    }
+
     @Test
     public void mustCountPageFaults()
     {
@@ -24,6 +24,8 @@ import java.util.ArrayList;
 import java.util.List;
 
 import org.neo4j.graphdb.config.Setting;
+import org.neo4j.helpers.Function;
+import org.neo4j.helpers.Function2;
 import org.neo4j.helpers.Service;
 import org.neo4j.helpers.Settings;
 import org.neo4j.kernel.configuration.ConfigurationMigrator;
@@ -39,6 +41,7 @@ import org.neo4j.kernel.impl.cache.MonitorGc;
 import static org.neo4j.helpers.Settings.ANY;
 import static org.neo4j.helpers.Settings.BOOLEAN;
 import static org.neo4j.helpers.Settings.BYTES;
+import static org.neo4j.helpers.Settings.DURATION;
 import static org.neo4j.helpers.Settings.FALSE;
 import static org.neo4j.helpers.Settings.INTEGER;
 import static org.neo4j.helpers.Settings.NO_DEFAULT;
@@ -51,6 +54,7 @@ import static org.neo4j.helpers.Settings.matches;
 import static org.neo4j.helpers.Settings.min;
 import static org.neo4j.helpers.Settings.options;
 import static org.neo4j.helpers.Settings.port;
+import static org.neo4j.helpers.Settings.range;
 import static org.neo4j.helpers.Settings.setting;
 import static org.neo4j.helpers.Settings.DirectMemoryUsage.directMemoryUsage;
 
@@ -101,6 +105,11 @@ public abstract class GraphDatabaseSettings
     @Description("The minimum lifetime of a query plan before a query is considered for replanning")
     public static Setting<Integer> query_plan_ttl = setting( "query_plan_ttl", INTEGER, "1000", min( 0 ) );
 
+    @Description( "The amount of memory a single Cypher query may use for the rows it sorts, aggregates or makes "
+                  + "distinct, before it starts spilling those rows to temporary files. A value of 0 keeps all rows in "
+                  + "memory." )
+    public static final Setting<Long> query_memory_budget = setting( "query_memory_budget", BYTES, "100M", min( 0L ) );
+
     @Description( "Determines if Cypher will allow using file URLs when loading data using `LOAD CSV`. Setting this "
                   + "value to `false` will cause Neo4j to fail `LOAD CSV` clauses that load data from the file system." )
     public static Setting<Boolean> allow_file_urls = setting( "allow_file_urls", BOOLEAN, TRUE );
@@ -168,6 +177,35 @@ public abstract class GraphDatabaseSettings
     @Internal
     public static final Setting<Boolean> rebuild_idgenerators_fast = setting("rebuild_idgenerators_fast", BOOLEAN, TRUE );
 
+    @Description("Recover transactions in a pipeline, where the record stores, the schema indexes and the label " +
+            "scan store are updated by separate threads, and index updates are batched across transactions.")
+    @Internal
+    public static final Setting<Boolean> pipelined_recovery = setting("pipelined_recovery", BOOLEAN, FALSE );
+
+    @Description("Keep new schema indexes in B+trees in the page cache, instead of in Lucene. Indexes that " +
+            "already exist keep the provider they were created with. String values and arrays of more than " +
+            "about a quarter of a page cannot be indexed this way.")
+    @Internal
+    public static final Setting<Boolean> native_schema_indexes = setting("native_schema_indexes", BOOLEAN, FALSE );
+
+    @Description("Keep the label scan store in a B+tree in the page cache, instead of in Lucene. The store is " +
+            "rebuilt from the node store on the first start with this setting, and after any unclean shutdown.")
+    @Internal
+    public static final Setting<Boolean> native_label_scan_store = setting("native_label_scan_store", BOOLEAN, FALSE );
+
+    @Description("How often the updates of schema indexes that do not back uniqueness constraints are applied in " +
+            "the background, in batches, instead of as part of each commit. Queries still see the updates of " +
+            "committed transactions right away. A value of 0 applies the updates as part of each commit.")
+    @Internal
+    public static final Setting<Long> deferred_index_updates_interval =
+            setting("deferred_index_updates_interval", DURATION, "0ms" );
+
+    @Description("How often the values of online schema indexes are sampled in the background, to estimate how " +
+            "selective the indexes are for the cost based planner. A value of 0 turns sampling off.")
+    @Internal
+    public static final Setting<Long> index_sampling_interval =
+            setting("index_sampling_interval", DURATION, "60s" );
+
     // NeoStore memory settings
     /**
      * @deprecated This configuration has been obsoleted. Neo4j no longer relies on the memory-mapping capabilities of the operating system.
@@ -181,6 +219,29 @@ public abstract class GraphDatabaseSettings
     @Internal
     public static final Setting<Long> mapped_memory_page_size = setting("mapped_memory_page_size", BYTES, "8192" );
 
+    @Description("The eviction policy of the page cache. The 'clock-pro' policy is scan resistant, and keeps the " +
+            "frequently used pages in memory when large parts of the store are scanned.")
+    @Internal
+    public static final Setting<String> mapped_memory_eviction_policy = setting("mapped_memory_eviction_policy", options( "clock", "clock-pro" ), "clock" );
+
+    @Description("The percentage of the page cache that is reserved for the node store. Pages of the node store " +
+            "are not evicted while the store holds fewer pages in the cache than it has reserved. At most half of " +
+            "the page cache can be reserved, in total.")
+    @Internal
+    public static final Setting<Integer> nodestore_mapped_memory_reservation = setting("neostore.nodestore.db.mapped_memory_reservation", INTEGER, "0", range( 0, 50 ), totalMappedMemoryReservation() );
+
+    @Description("The percentage of the page cache that is reserved for the relationship store. Pages of the " +
+            "relationship store are not evicted while the store holds fewer pages in the cache than it has " +
+            "reserved. At most half of the page cache can be reserved, in total.")
+    @Internal
+    public static final Setting<Integer> relationshipstore_mapped_memory_reservation = setting("neostore.relationshipstore.db.mapped_memory_reservation", INTEGER, "0", range( 0, 50 ), totalMappedMemoryReservation() );
+
+    @Description("The percentage of the page cache that is reserved for the relationship group store. Pages of " +
+            "the relationship group store are not evicted while the store holds fewer pages in the cache than it " +
+            "has reserved. At most half of the page cache can be reserved, in total.")
+    @Internal
+    public static final Setting<Integer> relationshipgroupstore_mapped_memory_reservation = setting("neostore.relationshipgroupstore.db.mapped_memory_reservation", INTEGER, "0", range( 0, 50 ), totalMappedMemoryReservation() );
+
     @Description("The amount of memory to use for mapping the store files, either in bytes or" +
             " as a percentage of available memory. This will be clipped at the amount of" +
             " free memory observed when the database starts, and automatically be rounded" +
@@ -307,6 +368,59 @@ public abstract class GraphDatabaseSettings
     @Description("Whether or not transactions are appended to the log in batches")
     public static final Setting<Boolean> batched_writes = setting( "batched_writes", BOOLEAN, Boolean.TRUE.toString() );
 
+    @Description( "The longest time a batch of transactions may be held back before it is forced to the log, to " +
+            "let more concurrently committing transactions join it. The actual wait adapts to the observed force " +
+            "latency and rate of commits, and is zero when commits are infrequent. Only applies to batched writes. " +
+            "A value of 0 forces every batch as soon as possible." )
+    public static final Setting<Long> batched_writes_max_added_latency =
+            setting( "batched_writes_max_added_latency", DURATION, "0ms" );
+
+    /**
+     * The page cache refuses to reserve more than half of its pages in total, so check that the reservations of all
+     * the stores add up to at most 50 percent, rather than failing when the stores are mapped. The raw values are
+     * looked up by name, since the settings cannot refer to each other while they are being initialised.
+     */
+    private static Function2<Integer, Function<String, String>, Integer> totalMappedMemoryReservation()
+    {
+        final String[] reservations = {
+                "neostore.nodestore.db.mapped_memory_reservation",
+                "neostore.relationshipstore.db.mapped_memory_reservation",
+                "neostore.relationshipgroupstore.db.mapped_memory_reservation"};
+        return new Function2<Integer, Function<String, String>, Integer>()
+        {
+            @Override
+            public Integer apply( Integer value, Function<String, String> settings )
+            {
+                int total = 0;
+                for ( String reservation : reservations )
+                {
+                    String percentage = settings.apply( reservation );
+                    try
+                    {
+                        total += percentage == null ? 0 : Integer.parseInt( percentage.trim() );
+                    }
+                    catch ( NumberFormatException e )
+                    {
+                        // Reported by the setting itself
+                    }
+                }
+                if ( total > 50 )
+                {
+                    throw new IllegalArgumentException( String.format( "the node, relationship and relationship " +
+                            "group stores together reserve %d%% of the page cache, but at most 50%% can be " +
+                            "reserved in total", total ) );
+                }
+                return value;
+            }
+
+            @Override
+            public String toString()
+            {
+                return "adds up to at most `50` with the reservations of the other stores";
+            }
+        };
+    }
+
     private static String[] availableCaches()
     {
         List<String> available = new ArrayList<>();
@@ -143,6 +143,7 @@ import org.neo4j.kernel.impl.pagecache.LifecycledPageCache;
 import org.neo4j.kernel.impl.store.NeoStore;
 import org.neo4j.kernel.impl.store.StoreFactory;
 import org.neo4j.kernel.impl.store.StoreId;
+import org.neo4j.kernel.impl.store.id.ConcurrentIdGeneratorFactory;
 import org.neo4j.kernel.impl.storemigration.ConfigMapUpgradeConfiguration;
 import org.neo4j.kernel.impl.storemigration.StoreMigrator;
 import org.neo4j.kernel.impl.storemigration.StoreUpgrader;
@@ -154,6 +155,7 @@ import org.neo4j.kernel.impl.transaction.RecoveryVerifier;
 import org.neo4j.kernel.impl.transaction.TransactionCounters;
 import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
 import org.neo4j.kernel.impl.transaction.TransactionMonitor;
+import org.neo4j.kernel.impl.transaction.log.GroupCommitStatistics;
 import org.neo4j.kernel.impl.transaction.log.LogicalTransactionStore;
 import org.neo4j.kernel.impl.transaction.log.PhysicalLogFile;
 import org.neo4j.kernel.impl.transaction.state.DataSourceManager;
@@ -288,6 +290,7 @@ public abstract class InternalAbstractGraphDatabase
     protected UpdateableSchemaState updateableSchemaState;
     protected Monitors monitors;
     protected TransactionCounters transactionMonitor;
+    protected GroupCommitStatistics groupCommitStatistics;
     protected PageCacheMonitor pageCacheMonitor;
     protected AvailabilityGuard availabilityGuard;
     protected long accessTimeout;
@@ -457,6 +460,8 @@ public abstract class InternalAbstractGraphDatabase
         }
 
         transactionMonitor = createTransactionCounters();
+        groupCommitStatistics = new GroupCommitStatistics();
+        monitors.addMonitorListener( groupCommitStatistics );
 
         storeMigrationProcess = new StoreUpgrader( createUpgradeConfiguration(), fileSystem,
                 monitors.newMonitor( StoreUpgrader.Monitor.class ), logging );
@@ -851,6 +856,10 @@ public abstract class InternalAbstractGraphDatabase
 
     protected IdGeneratorFactory createIdGeneratorFactory()
     {
+        if ( config.get( Configuration.concurrent_id_generators ) )
+        {
+            return new ConcurrentIdGeneratorFactory();
+        }
         return new DefaultIdGeneratorFactory();
     }
 
@@ -1322,6 +1331,8 @@ public abstract class InternalAbstractGraphDatabase
         public static final Setting<String> lock_manager = setting( "lock_manager", STRING, "" );
         public static final Setting<Boolean> statistics_enabled =
                 setting( "statistics_enabled", Settings.BOOLEAN, Settings.FALSE );
+        public static final Setting<Boolean> concurrent_id_generators =
+                setting( "concurrent_id_generators", Settings.BOOLEAN, Settings.FALSE );
 
         public static final Setting<String> log_configuration_file = setting( "log.configuration", STRING,
                 "neo4j-logback.xml" );
@@ -1603,6 +1614,10 @@ public abstract class InternalAbstractGraphDatabase
             {
                 return type.cast( pageCacheMonitor );
             }
+            else if ( GroupCommitStatistics.class.isAssignableFrom( type ) )
+            {
+                return type.cast( groupCommitStatistics );
+            }
             else if ( Caches.class.isAssignableFrom( type ) )
             {
                 return type.cast( caches );
@@ -97,8 +97,10 @@ import org.neo4j.kernel.impl.store.StoreId;
 import org.neo4j.kernel.impl.store.record.IndexRule;
 import org.neo4j.kernel.impl.store.record.SchemaRule;
 import org.neo4j.kernel.impl.storemigration.StoreUpgrader;
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
 import org.neo4j.kernel.impl.transaction.TransactionHeaderInformationFactory;
 import org.neo4j.kernel.impl.transaction.TransactionMonitor;
+import org.neo4j.kernel.impl.transaction.log.BatchingPhysicalTransactionAppender;
 import org.neo4j.kernel.impl.transaction.log.LogFile;
 import org.neo4j.kernel.impl.transaction.log.LogFileInformation;
 import org.neo4j.kernel.impl.transaction.log.LogFileRecoverer;
@@ -125,6 +127,7 @@ import org.neo4j.kernel.impl.transaction.state.NeoStoreIndexStoreView;
 import org.neo4j.kernel.impl.transaction.state.NeoStoreInjectedTransactionValidator;
 import org.neo4j.kernel.impl.transaction.state.NeoStoreProvider;
 import org.neo4j.kernel.impl.transaction.state.NeoStoreTransactionContextSupplier;
+import org.neo4j.kernel.impl.transaction.state.PipelinedRecoveryVisitor;
 import org.neo4j.kernel.impl.transaction.state.RecoveryVisitor;
 import org.neo4j.kernel.impl.transaction.state.RelationshipChainLoader;
 import org.neo4j.kernel.impl.util.Dependencies;
@@ -141,6 +144,8 @@ import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 import org.neo4j.kernel.logging.Logging;
 import org.neo4j.kernel.monitoring.Monitors;
 
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
 import static org.neo4j.helpers.collection.IteratorUtil.loop;
 import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
 import static org.neo4j.kernel.impl.transaction.state.CacheLoaders.nodeLoader;
@@ -385,7 +390,8 @@ public class NeoStoreDataSource implements NeoStoreProvider, Lifecycle, LogRotat
         {
             indexingService = new IndexingService( scheduler, providerMap, new NeoStoreIndexStoreView(
                     lockService, neoStore ), tokenNameLookup, updateableSchemaState, indexRuleLoader(), logging,
-                    indexingServiceMonitor );
+                    indexingServiceMonitor, config.get( GraphDatabaseSettings.deferred_index_updates_interval ),
+                    config.get( GraphDatabaseSettings.index_sampling_interval ) );
             final IntegrityValidator integrityValidator = new IntegrityValidator( neoStore, indexingService );
             labelScanStore = dependencyResolver.resolveDependency( LabelScanStoreProvider.class,
                     LabelScanStoreProvider.HIGHEST_PRIORITIZED ).getLabelScanStore();
@@ -467,8 +473,12 @@ public class NeoStoreDataSource implements NeoStoreProvider, Lifecycle, LogRotat
 
             monitors.addMonitorListener( loggingLogMonitor );
 
-            RecoveryVisitor recoveryVisitor = new RecoveryVisitor( neoStore, storeRecoverer,
-                    recoveredCount, loggingLogMonitor );
+            Visitor<CommittedTransactionRepresentation,IOException> recoveryVisitor =
+                    config.get( GraphDatabaseSettings.pipelined_recovery )
+                            ? new PipelinedRecoveryVisitor( neoStore, storeRecoverer, indexingService, labelScanStore,
+                                    neoStore, cacheAccess, recoveredCount, loggingLogMonitor,
+                                    PipelinedRecoveryVisitor.DEFAULT_BATCH_SIZE )
+                            : new RecoveryVisitor( neoStore, storeRecoverer, recoveredCount, loggingLogMonitor );
             LogEntryReader<ReadableVersionableLogChannel> logEntryReader = new LogEntryReaderFactory().versionable();
             Visitor<ReadableVersionableLogChannel,IOException> logFileRecoverer =
                     new LogFileRecoverer( logEntryReader, recoveryVisitor );
@@ -479,7 +489,9 @@ public class NeoStoreDataSource implements NeoStoreProvider, Lifecycle, LogRotat
             final LogicalTransactionStore logicalTransactionStore = dependencies.satisfyDependency(
                     new PhysicalLogicalTransactionStore( logFile,
                             transactionMetadataCache, neoStore, legacyIndexTransactionOrdering,
-                            config.get( GraphDatabaseSettings.batched_writes ) ) );
+                            config.get( GraphDatabaseSettings.batched_writes ),
+                            MILLISECONDS.toNanos( config.get( GraphDatabaseSettings.batched_writes_max_added_latency ) ),
+                            monitors.newMonitor( BatchingPhysicalTransactionAppender.Monitor.class ) ) );
 
             TransactionCommitProcess transactionCommitProcess = dependencies.satisfyDependency(
                     commitProcessFactory.create( logicalTransactionStore, kernelHealth, neoStore, storeApplier,
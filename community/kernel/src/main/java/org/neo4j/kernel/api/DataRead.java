@@ -52,6 +52,39 @@ interface DataRead
     PrimitiveLongIterator nodesGetFromIndexLookup( IndexDescriptor index, Object value )
             throws IndexNotFoundKernelException;
 
+    /**
+     * Returns an iterator with the nodes whose indexed value is a number between {@code lower} and
+     * {@code upper}. A {@code null} bound leaves that end of the range open.
+     *
+     * @throws org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException
+     *          if no such index found.
+     */
+    PrimitiveLongIterator nodesGetFromIndexRangeSeekByNumber( IndexDescriptor index,
+                                                              Number lower, boolean includeLower,
+                                                              Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException;
+
+    /**
+     * Returns an iterator with the nodes whose indexed value is a string between {@code lower} and
+     * {@code upper}. A {@code null} bound leaves that end of the range open.
+     *
+     * @throws org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException
+     *          if no such index found.
+     */
+    PrimitiveLongIterator nodesGetFromIndexRangeSeekByString( IndexDescriptor index,
+                                                              String lower, boolean includeLower,
+                                                              String upper, boolean includeUpper )
+            throws IndexNotFoundKernelException;
+
+    /**
+     * Returns an iterator with the nodes whose indexed value is a string starting with {@code prefix}.
+     *
+     * @throws org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException
+     *          if no such index found.
+     */
+    PrimitiveLongIterator nodesGetFromIndexRangeSeekByPrefix( IndexDescriptor index, String prefix )
+            throws IndexNotFoundKernelException;
+
     /**
      * @return an iterator over all nodes in the database.
      */
@@ -26,6 +26,7 @@ import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
 import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexSample;
 
 interface SchemaRead
 {
@@ -55,6 +56,18 @@ interface SchemaRead
     /** Returns the failure description of a failed index. */
     String indexGetFailure( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
 
+    /**
+     * Whether range seeks in the given index return nodes in the order of their property values, numbers by
+     * numeric value and strings in {@link String} order, also when combined with the changes of this transaction.
+     */
+    boolean indexSeeksInOrder( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
+
+    /**
+     * Returns the latest sample of the values in the given index, which is taken in the background now and then,
+     * or {@link IndexSample#NONE} if the index has not been sampled yet. Changes of this transaction are not included.
+     */
+    IndexSample indexSample( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
+
     /**
      * Get all constraints applicable to label and propertyKey. There are only {@link
      * org.neo4j.kernel.api.constraints.UniquenessConstraint}
@@ -37,6 +37,13 @@ interface SchemaWrite
     IndexDescriptor indexCreate( int labelId, int propertyKeyId )
             throws AddIndexFailureException, AlreadyIndexedException, AlreadyConstrainedException;
 
+    /**
+     * Creates an index, indexing the tuple of values of the given {@code propertyKeyIds}, in order, for nodes with
+     * the given {@code labelId}. More than one property key gives a composite index.
+     */
+    IndexDescriptor indexCreate( int labelId, int[] propertyKeyIds )
+            throws AddIndexFailureException, AlreadyIndexedException, AlreadyConstrainedException;
+
     /** Drops a {@link IndexDescriptor} from the database */
     void indexDrop( IndexDescriptor descriptor ) throws DropIndexFailureException;
 
@@ -26,6 +26,7 @@ import java.util.Set;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.graphdb.Direction;
+import org.neo4j.helpers.Predicate;
 import org.neo4j.kernel.api.constraints.UniquenessConstraint;
 import org.neo4j.kernel.api.exceptions.legacyindex.LegacyIndexNotFoundKernelException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
@@ -408,5 +409,23 @@ public interface TxState
 
     DiffSets<Long> indexUpdates( IndexDescriptor index, Object value );
 
+    /**
+     * The combined index changes for all values of the given index that are accepted by the filter.
+     */
+    DiffSets<Long> indexUpdatesForRangeSeek( IndexDescriptor index, Predicate<Object> valueFilter );
+
     void indexUpdateProperty( IndexDescriptor descriptor, long nodeId, DefinedProperty before, DefinedProperty after );
+
+    /**
+     * The index changes for the given composite index, for the values that encode to the given
+     * {@link org.neo4j.kernel.api.index.CompositeValues composite value}.
+     */
+    DiffSets<Long> compositeIndexUpdates( IndexDescriptor index, String compositeValue );
+
+    /**
+     * Moves the node between the entries of the given composite index, where either of the encoded composite values
+     * may be null if the node has no entry for it.
+     */
+    void compositeIndexUpdate( IndexDescriptor index, long nodeId, String compositeValueBefore,
+                               String compositeValueAfter );
 }
@@ -28,7 +28,6 @@ import org.neo4j.kernel.impl.util.Charsets;
 
 public class ArrayEncoder
 {
-    private static final BASE64Encoder base64Encoder = new BASE64Encoder();
     private static final BASE64Decoder base64Decoder = new BASE64Decoder();
 
     public static String encode( Object array )
@@ -38,6 +37,8 @@ public class ArrayEncoder
             throw new IllegalArgumentException( "Only works with arrays" );
         }
 
+        // Not shared between calls, since the encoder keeps state while encoding and isn't thread safe
+        BASE64Encoder base64Encoder = null;
         StringBuilder builder = new StringBuilder();
         int length = Array.getLength( array );
         String type = "";
@@ -58,6 +59,10 @@ public class ArrayEncoder
             {
                 type = "L";
                 String str = o.toString();
+                if ( base64Encoder == null )
+                {
+                    base64Encoder = new BASE64Encoder();
+                }
                 builder.append( base64Encoder.encode( str.getBytes( Charsets.UTF_8 ) ) );
             }
             builder.append( "|" );
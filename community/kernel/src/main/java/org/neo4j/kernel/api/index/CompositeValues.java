@@ -0,0 +1,80 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.index;
+
+/**
+ * Encodes the values a node has for the property keys of a composite {@link IndexDescriptor} into the single
+ * value that is given to the {@link SchemaIndexProvider}. Index providers thereby store and look up composite
+ * entries as plain string values, exactly like they do for single property indexes.
+ * <p/>
+ * Numbers are encoded by their double value, to give the same equality semantics as single property indexes.
+ * Strings and arrays are escaped, so that a {@code '|'} in them can't be taken for the end of the value.
+ */
+public class CompositeValues
+{
+    public static String encode( Object[] values )
+    {
+        StringBuilder builder = new StringBuilder();
+        for ( Object value : values )
+        {
+            if ( value == null )
+            {
+                throw new IllegalArgumentException( "Composite index values cannot be null" );
+            }
+            if ( value instanceof Number )
+            {
+                builder.append( 'D' ).append( ((Number) value).doubleValue() );
+            }
+            else if ( value instanceof Boolean )
+            {
+                builder.append( 'Z' ).append( value );
+            }
+            else if ( value.getClass().isArray() )
+            {
+                builder.append( 'A' ).append( escape( ArrayEncoder.encode( value ) ) );
+            }
+            else
+            {
+                builder.append( 'L' ).append( escape( value.toString() ) );
+            }
+            builder.append( '|' );
+        }
+        return builder.toString();
+    }
+
+    private static CharSequence escape( String value )
+    {
+        if ( value.indexOf( '|' ) == -1 && value.indexOf( '\\' ) == -1 )
+        {
+            return value;
+        }
+        StringBuilder escaped = new StringBuilder( value.length() + 8 );
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            char c = value.charAt( i );
+            if ( c == '|' || c == '\\' )
+            {
+                escaped.append( '\\' );
+            }
+            escaped.append( c );
+        }
+        return escaped;
+    }
+}
@@ -19,6 +19,8 @@
  */
 package org.neo4j.kernel.api.index;
 
+import java.util.Arrays;
+
 import org.neo4j.kernel.api.TokenNameLookup;
 
 import static java.lang.String.format;
@@ -27,16 +29,28 @@ import static java.lang.String.format;
  * Description of a single index as needed by the {@link org.neo4j.kernel.impl.api.index.IndexProxy} cake
  * <p/>
  * This is a IndexContext cake level representation of {@link org.neo4j.kernel.impl.store.record.IndexRule}
+ * <p/>
+ * A descriptor with more than one property key describes a composite index, where each node is indexed by
+ * the tuple of its values for all of the property keys, in the given order. See {@link CompositeValues}.
  */
 public class IndexDescriptor
 {
     private final int labelId;
-    private final int propertyKeyId;
+    private final int[] propertyKeyIds;
 
     public IndexDescriptor( int labelId, int propertyKeyId )
     {
+        this( labelId, new int[]{propertyKeyId} );
+    }
+
+    public IndexDescriptor( int labelId, int[] propertyKeyIds )
+    {
+        if ( propertyKeyIds.length == 0 )
+        {
+            throw new IllegalArgumentException( "An index needs at least one property key" );
+        }
         this.labelId = labelId;
-        this.propertyKeyId = propertyKeyId;
+        this.propertyKeyIds = propertyKeyIds.clone();
     }
 
     @Override
@@ -50,7 +64,7 @@ public class IndexDescriptor
         {
             IndexDescriptor that = (IndexDescriptor) obj;
             return this.labelId == that.labelId &&
-                    this.propertyKeyId == that.propertyKeyId;
+                    Arrays.equals( this.propertyKeyIds, that.propertyKeyIds );
         }
         return false;
     }
@@ -59,7 +73,7 @@ public class IndexDescriptor
     public int hashCode()
     {
         int result = labelId;
-        result = 31 * result + propertyKeyId;
+        result = 31 * result + Arrays.hashCode( propertyKeyIds );
         return result;
     }
 
@@ -68,20 +82,42 @@ public class IndexDescriptor
         return labelId;
     }
 
+    /**
+     * @return the property key of a single property index, or the first property key of a composite index.
+     */
     public int getPropertyKeyId()
     {
-        return propertyKeyId;
+        return propertyKeyIds[0];
+    }
+
+    public int[] getPropertyKeyIds()
+    {
+        return propertyKeyIds.clone();
+    }
+
+    public boolean isComposite()
+    {
+        return propertyKeyIds.length > 1;
     }
 
     @Override
     public String toString()
     {
-        return format( ":label[%d](property[%d])", labelId, propertyKeyId );
+        StringBuilder properties = new StringBuilder();
+        for ( int i = 0; i < propertyKeyIds.length; i++ )
+        {
+            properties.append( i == 0 ? "" : ", " ).append( format( "property[%d]", propertyKeyIds[i] ) );
+        }
+        return format( ":label[%d](%s)", labelId, properties );
     }
 
     public String userDescription( TokenNameLookup tokenNameLookup )
     {
-        return format( ":%s(%s)",
-                tokenNameLookup.labelGetName( labelId ), tokenNameLookup.propertyKeyGetName( propertyKeyId ) );
+        StringBuilder properties = new StringBuilder();
+        for ( int i = 0; i < propertyKeyIds.length; i++ )
+        {
+            properties.append( i == 0 ? "" : ", " ).append( tokenNameLookup.propertyKeyGetName( propertyKeyIds[i] ) );
+        }
+        return format( ":%s(%s)", tokenNameLookup.labelGetName( labelId ), properties );
     }
 }
@@ -32,6 +32,29 @@ public interface IndexReader extends Resource
 {
     PrimitiveLongIterator lookup( Object value );
 
+    /**
+     * Returns the nodes indexed with a number between {@code lower} and {@code upper}. A {@code null} bound
+     * leaves that end of the range open. Values that are not numbers never match.
+     */
+    PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower, Number upper, boolean includeUpper );
+
+    /**
+     * Returns the nodes indexed with a string between {@code lower} and {@code upper}, in {@link String}
+     * order. A {@code null} bound leaves that end of the range open. Values that are not strings never match.
+     */
+    PrimitiveLongIterator rangeSeekByString( String lower, boolean includeLower, String upper, boolean includeUpper );
+
+    /**
+     * Returns the nodes indexed with a string that starts with the given prefix.
+     */
+    PrimitiveLongIterator rangeSeekByPrefix( String prefix );
+
+    /**
+     * Counts the entries of this index, and the distinct values among at least the first {@code sampleSizeLimit} of
+     * them, or all of them if that is as cheap.
+     */
+    IndexSample sampleIndex( long sampleSizeLimit );
+
     IndexReader EMPTY = new IndexReader()
     {
         @Override
@@ -40,6 +63,32 @@ public interface IndexReader extends Resource
             return PrimitiveLongCollections.emptyIterator();
         }
 
+        @Override
+        public PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower,
+                                                        Number upper, boolean includeUpper )
+        {
+            return PrimitiveLongCollections.emptyIterator();
+        }
+
+        @Override
+        public PrimitiveLongIterator rangeSeekByString( String lower, boolean includeLower,
+                                                        String upper, boolean includeUpper )
+        {
+            return PrimitiveLongCollections.emptyIterator();
+        }
+
+        @Override
+        public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+        {
+            return PrimitiveLongCollections.emptyIterator();
+        }
+
+        @Override
+        public IndexSample sampleIndex( long sampleSizeLimit )
+        {
+            return IndexSample.NONE;
+        }
+
         @Override
         public int getIndexedCount( long nodeId, Object propertyValue )
         {
@@ -0,0 +1,113 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.index;
+
+import static java.lang.String.format;
+
+/**
+ * Statistics about the values in an index, taken by {@link IndexReader#sampleIndex(long) sampling} it.
+ * <p/>
+ * The {@link #indexSize() size} covers the whole index, while the number of {@link #uniqueValues() unique values}
+ * is counted among the entries of the {@link #sampleSize() sample}, which may be all of them. The two numbers of
+ * the sample together give the average number of nodes per value.
+ */
+public final class IndexSample
+{
+    public static final IndexSample NONE = new IndexSample( 0, 0, 0 );
+
+    private final long indexSize;
+    private final long uniqueValues;
+    private final long sampleSize;
+
+    public IndexSample( long indexSize, long uniqueValues, long sampleSize )
+    {
+        if ( uniqueValues < 0 || uniqueValues > sampleSize || (sampleSize > 0 && uniqueValues == 0) )
+        {
+            throw new IllegalArgumentException( format(
+                    "%d unique values in a sample of %d entries", uniqueValues, sampleSize ) );
+        }
+        this.indexSize = indexSize;
+        this.uniqueValues = uniqueValues;
+        this.sampleSize = sampleSize;
+    }
+
+    /**
+     * @return the number of entries in the index.
+     */
+    public long indexSize()
+    {
+        return indexSize;
+    }
+
+    /**
+     * @return the number of distinct values among the entries of the sample.
+     */
+    public long uniqueValues()
+    {
+        return uniqueValues;
+    }
+
+    /**
+     * @return the number of entries that the sample looked at.
+     */
+    public long sampleSize()
+    {
+        return sampleSize;
+    }
+
+    /**
+     * @return the estimated fraction of the entries of the index that have any one value, or {@code 1.0} for an
+     * empty sample.
+     */
+    public double valueSelectivity()
+    {
+        return sampleSize == 0 ? 1.0 : Math.min( 1.0, (double) sampleSize / uniqueValues / indexSize );
+    }
+
+    @Override
+    public boolean equals( Object obj )
+    {
+        if ( this == obj )
+        {
+            return true;
+        }
+        if ( obj instanceof IndexSample )
+        {
+            IndexSample that = (IndexSample) obj;
+            return indexSize == that.indexSize && uniqueValues == that.uniqueValues && sampleSize == that.sampleSize;
+        }
+        return false;
+    }
+
+    @Override
+    public int hashCode()
+    {
+        int result = (int) (indexSize ^ (indexSize >>> 32));
+        result = 31 * result + (int) (uniqueValues ^ (uniqueValues >>> 32));
+        result = 31 * result + (int) (sampleSize ^ (sampleSize >>> 32));
+        return result;
+    }
+
+    @Override
+    public String toString()
+    {
+        return format( "IndexSample[size=%d, uniqueValues=%d, sampleSize=%d]", indexSize, uniqueValues, sampleSize );
+    }
+}
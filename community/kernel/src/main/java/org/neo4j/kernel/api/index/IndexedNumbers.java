@@ -0,0 +1,67 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.index;
+
+/**
+ * Schema indexes keep numbers as doubles, which can't hold every long: longs above 2^53 round to the same double
+ * as their neighbours. Comparing through here tells them apart again, for range seeks to include or exclude the
+ * values at their bounds exactly, and to keep such values in order.
+ */
+public final class IndexedNumbers
+{
+    private static final double TWO_TO_THE_63 = 0x1p63;
+
+    private IndexedNumbers()
+    {
+    }
+
+    /**
+     * Compares the exact values of two numbers, ordering doubles the way {@link Double#compare(double, double)}
+     * does.
+     */
+    public static int compare( Number a, Number b )
+    {
+        int comparison = Double.compare( a.doubleValue(), b.doubleValue() );
+        return comparison != 0 ? comparison : Long.compare( offsetFromDouble( a ), offsetFromDouble( b ) );
+    }
+
+    /**
+     * @return whether the double value of the given number is the number itself.
+     */
+    public static boolean isExactDouble( Number value )
+    {
+        return offsetFromDouble( value ) == 0;
+    }
+
+    /**
+     * @return how much larger the number is than its double value, which is only ever non-zero for longs.
+     */
+    public static long offsetFromDouble( Number value )
+    {
+        if ( !(value instanceof Long) )
+        {
+            return 0;
+        }
+        long exact = value.longValue();
+        double rounded = exact;
+        // Rounding may give 2^63, which no long holds, but subtracting it is the same as adding Long.MIN_VALUE
+        return rounded >= TWO_TO_THE_63 ? exact + Long.MIN_VALUE : exact - (long) rounded;
+    }
+}
@@ -181,6 +181,26 @@ public abstract class SchemaIndexProvider extends LifecycleAdapter
      */
     public abstract InternalIndexState getInitialState( long indexId );
 
+    /**
+     * Whether the readers of this provider's indexes return the nodes of range seeks in the order of their values,
+     * numbers by numeric value and strings in {@link String} order. Cypher uses this to avoid sorting the rows of
+     * such seeks on the indexed property.
+     */
+    public boolean seeksInOrder()
+    {
+        return false;
+    }
+
+    /**
+     * Called for each value that a transaction is about to index, before it commits, so that values this provider
+     * cannot index fail the transaction up front rather than when its updates are applied to the index.
+     *
+     * @throws IllegalArgumentException if the value cannot be indexed by this provider.
+     */
+    public void validateValue( Object value )
+    {
+    }
+
     /**
      * @return a description of this index provider
      */
@@ -108,6 +108,25 @@ public class DataIntegrityValidatingStatementOperations implements
         return schemaWriteDelegate.indexCreate( state, labelId, propertyKey );
     }
 
+    @Override
+    public IndexDescriptor indexCreate( KernelStatement state, int labelId, int[] propertyKeys )
+            throws AddIndexFailureException, AlreadyIndexedException, AlreadyConstrainedException
+    {
+        if ( propertyKeys.length == 1 )
+        {
+            return indexCreate( state, labelId, propertyKeys[0] );
+        }
+        IndexDescriptor composite = new IndexDescriptor( labelId, propertyKeys );
+        for ( IndexDescriptor descriptor : loop( schemaReadDelegate.indexesGetForLabel( state, labelId ) ) )
+        {
+            if ( descriptor.equals( composite ) )
+            {
+                throw new AlreadyIndexedException( descriptor );
+            }
+        }
+        return schemaWriteDelegate.indexCreate( state, labelId, propertyKeys );
+    }
+
     @Override
     public void indexDrop( KernelStatement state, IndexDescriptor descriptor ) throws DropIndexFailureException
     {
@@ -167,7 +186,7 @@ public class DataIntegrityValidatingStatementOperations implements
     {
         for ( IndexDescriptor descriptor : loop( schemaReadDelegate.indexesGetForLabel( state, labelId ) ) )
         {
-            if ( descriptor.getPropertyKeyId() == propertyKey )
+            if ( !descriptor.isComposite() && descriptor.getPropertyKeyId() == propertyKey )
             {
                 throw new AlreadyIndexedException( descriptor );
             }
@@ -198,7 +217,7 @@ public class DataIntegrityValidatingStatementOperations implements
         while ( uniqueIndexes.hasNext() )
         {
             IndexDescriptor uniqueIndex = uniqueIndexes.next();
-            if ( uniqueIndex.getPropertyKeyId() == descriptor.getPropertyKeyId() )
+            if ( uniqueIndex.equals( descriptor ) )
             {
                 throw new IndexBelongsToConstraintException( descriptor );
             }
@@ -210,7 +229,7 @@ public class DataIntegrityValidatingStatementOperations implements
     {
         for ( IndexDescriptor existing : loop( indexes ) )
         {
-            if ( existing.getPropertyKeyId() == descriptor.getPropertyKeyId() )
+            if ( existing.equals( descriptor ) )
             {
                 return;
             }
@@ -137,6 +137,8 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     private final TransactionToRecordStateVisitor txStateToRecordStateVisitor = new TransactionToRecordStateVisitor();
     private final Collection<Command> extractedCommands = new ArrayCollection<>( 20 );
     private TxStateImpl txState;
+    /** Cleared and re-used as {@link #txState} by the transactions this instance is pooled for. */
+    private TxStateImpl reusableTxState;
     private TransactionType transactionType = TransactionType.ANY;
     private TransactionHooks.TransactionHooksState hooksState;
     private Locks.Client locks;
@@ -194,7 +196,11 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         this.terminated = closing = closed = failure = success = false;
         this.transactionType = TransactionType.ANY;
         this.hooksState = null;
-        this.txState = null; // TODO: Implement txState.clear() instead, to re-use data structures
+        if ( txState != null )
+        {
+            txState.clear();
+            txState = null;
+        }
         this.legacyIndexTransactionState.initialize();
         this.recordState.initialize( lastCommittedTx );
         this.counts.initialize();
@@ -302,7 +308,11 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
     {
         if ( !hasTxState() )
         {
-            txState = new TxStateImpl( legacyIndexTransactionState );
+            if ( reusableTxState == null )
+            {
+                reusableTxState = new TxStateImpl( legacyIndexTransactionState );
+            }
+            txState = reusableTxState;
         }
         return txState;
     }
@@ -422,6 +432,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
         this.transactionType = null;
         this.hooksState = null;
         this.txState = null;
+        this.reusableTxState = null;
     }
 
     private void commit() throws TransactionFailureException
@@ -797,7 +808,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             else
             {
                 rule = IndexRule.indexRule( schemaStorage.newRuleId(), element.getLabelId(),
-                        element.getPropertyKeyId(), providerDescriptor );
+                        element.getPropertyKeyIds(), providerDescriptor );
             }
             recordState.createSchemaRule( rule );
         }
@@ -808,7 +819,7 @@ public class KernelTransactionImplementation implements KernelTransaction, TxSta
             SchemaStorage.IndexRuleKind kind = isConstraintIndex ?
                                                SchemaStorage.IndexRuleKind.CONSTRAINT
                                                                  : SchemaStorage.IndexRuleKind.INDEX;
-            IndexRule rule = schemaStorage.indexRule( element.getLabelId(), element.getPropertyKeyId(), kind );
+            IndexRule rule = schemaStorage.indexRule( element.getLabelId(), element.getPropertyKeyIds(), kind );
             recordState.dropSchemaRule( rule );
         }
 
@@ -35,6 +35,7 @@ import org.neo4j.kernel.api.exceptions.schema.DropConstraintFailureException;
 import org.neo4j.kernel.api.exceptions.schema.DropIndexFailureException;
 import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.properties.DefinedProperty;
 import org.neo4j.kernel.api.properties.Property;
@@ -113,6 +114,14 @@ public class LockingStatementOperations implements
         return schemaWriteDelegate.indexCreate( state, labelId, propertyKey );
     }
 
+    @Override
+    public IndexDescriptor indexCreate( KernelStatement state, int labelId, int[] propertyKeys )
+            throws AddIndexFailureException, AlreadyIndexedException, AlreadyConstrainedException
+    {
+        state.locks().acquireExclusive( ResourceTypes.SCHEMA, schemaResource() );
+        return schemaWriteDelegate.indexCreate( state, labelId, propertyKeys );
+    }
+
     @Override
     public void indexDrop( KernelStatement state, IndexDescriptor descriptor ) throws DropIndexFailureException
     {
@@ -379,4 +388,18 @@ public class LockingStatementOperations implements
     {
         return schemaReadDelegate.indexGetFailure( state, descriptor );
     }
+
+    @Override
+    public boolean indexSeeksInOrder( KernelStatement state, IndexDescriptor descriptor )
+            throws IndexNotFoundKernelException
+    {
+        return schemaReadDelegate.indexSeeksInOrder( state, descriptor );
+    }
+
+    @Override
+    public IndexSample indexSample( KernelStatement state, IndexDescriptor descriptor )
+            throws IndexNotFoundKernelException
+    {
+        return schemaReadDelegate.indexSample( state, descriptor );
+    }
 }
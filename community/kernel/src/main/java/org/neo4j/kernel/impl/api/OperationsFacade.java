@@ -52,6 +52,7 @@ import org.neo4j.kernel.api.exceptions.schema.IndexBrokenKernelException;
 import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException;
 import org.neo4j.kernel.api.exceptions.schema.TooManyLabelsException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.properties.DefinedProperty;
 import org.neo4j.kernel.api.properties.Property;
@@ -172,6 +173,36 @@ public class OperationsFacade implements ReadOperations, DataWriteOperations, Sc
         return dataRead().nodesGetFromIndexLookup( statement, index, value );
     }
 
+    @Override
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByNumber( IndexDescriptor index,
+                                                                     Number lower, boolean includeLower,
+                                                                     Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        statement.assertOpen();
+        return dataRead().nodesGetFromIndexRangeSeekByNumber( statement, index, lower, includeLower,
+                upper, includeUpper );
+    }
+
+    @Override
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByString( IndexDescriptor index,
+                                                                     String lower, boolean includeLower,
+                                                                     String upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        statement.assertOpen();
+        return dataRead().nodesGetFromIndexRangeSeekByString( statement, index, lower, includeLower,
+                upper, includeUpper );
+    }
+
+    @Override
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByPrefix( IndexDescriptor index, String prefix )
+            throws IndexNotFoundKernelException
+    {
+        statement.assertOpen();
+        return dataRead().nodesGetFromIndexRangeSeekByPrefix( statement, index, prefix );
+    }
+
     @Override
     public long nodeGetUniqueFromIndexLookup( IndexDescriptor index, Object value )
             throws IndexNotFoundKernelException, IndexBrokenKernelException
@@ -361,7 +392,7 @@ public class OperationsFacade implements ReadOperations, DataWriteOperations, Sc
         while ( indexes.hasNext() )
         {
             IndexDescriptor index = indexes.next();
-            if ( index.getPropertyKeyId() == propertyKeyId )
+            if ( !index.isComposite() && index.getPropertyKeyId() == propertyKeyId )
             {
                 if ( null == result )
                 {
@@ -417,6 +448,20 @@ public class OperationsFacade implements ReadOperations, DataWriteOperations, Sc
         return schemaRead().indexGetFailure( statement, descriptor );
     }
 
+    @Override
+    public boolean indexSeeksInOrder( IndexDescriptor descriptor ) throws IndexNotFoundKernelException
+    {
+        statement.assertOpen();
+        return schemaRead().indexSeeksInOrder( statement, descriptor );
+    }
+
+    @Override
+    public IndexSample indexSample( IndexDescriptor descriptor ) throws IndexNotFoundKernelException
+    {
+        statement.assertOpen();
+        return schemaRead().indexSample( statement, descriptor );
+    }
+
     @Override
     public Iterator<UniquenessConstraint> constraintsGetForLabelAndPropertyKey( int labelId, int propertyKeyId )
     {
@@ -657,6 +702,14 @@ public class OperationsFacade implements ReadOperations, DataWriteOperations, Sc
         return schemaWrite().indexCreate( statement, labelId, propertyKeyId );
     }
 
+    @Override
+    public IndexDescriptor indexCreate( int labelId, int[] propertyKeyIds )
+            throws AddIndexFailureException, AlreadyIndexedException, AlreadyConstrainedException
+    {
+        statement.assertOpen();
+        return schemaWrite().indexCreate( statement, labelId, propertyKeyIds );
+    }
+
     @Override
     public void indexDrop( IndexDescriptor descriptor ) throws DropIndexFailureException
     {
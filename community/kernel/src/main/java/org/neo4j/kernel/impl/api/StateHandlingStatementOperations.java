@@ -19,9 +19,13 @@
  */
 package org.neo4j.kernel.impl.api;
 
+import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -32,6 +36,7 @@ import org.neo4j.collection.primitive.PrimitiveLongIterator;
 import org.neo4j.cursor.Cursor;
 import org.neo4j.function.primitive.PrimitiveLongPredicate;
 import org.neo4j.graphdb.Direction;
+import org.neo4j.helpers.Pair;
 import org.neo4j.helpers.Predicate;
 import org.neo4j.helpers.ThisShouldNotHappenError;
 import org.neo4j.kernel.api.EntityType;
@@ -54,7 +59,10 @@ import org.neo4j.kernel.api.exceptions.schema.IllegalTokenNameException;
 import org.neo4j.kernel.api.exceptions.schema.IndexBrokenKernelException;
 import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException;
 import org.neo4j.kernel.api.exceptions.schema.TooManyLabelsException;
+import org.neo4j.kernel.api.index.CompositeValues;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.kernel.api.index.IndexedNumbers;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.properties.DefinedProperty;
 import org.neo4j.kernel.api.properties.Property;
@@ -85,6 +93,9 @@ import static org.neo4j.helpers.collection.IteratorUtil.iterator;
 import static org.neo4j.helpers.collection.IteratorUtil.resourceIterator;
 import static org.neo4j.helpers.collection.IteratorUtil.singleOrNull;
 import static org.neo4j.kernel.api.StatementConstants.NO_SUCH_NODE;
+import static org.neo4j.kernel.impl.api.index.IndexValuePredicates.numberRange;
+import static org.neo4j.kernel.impl.api.index.IndexValuePredicates.prefix;
+import static org.neo4j.kernel.impl.api.index.IndexValuePredicates.stringRange;
 
 public class StateHandlingStatementOperations implements
         KeyReadOperations,
@@ -344,6 +355,14 @@ public class StateHandlingStatementOperations implements
         return rule;
     }
 
+    @Override
+    public IndexDescriptor indexCreate( KernelStatement state, int labelId, int[] propertyKeys )
+    {
+        IndexDescriptor rule = new IndexDescriptor( labelId, propertyKeys );
+        state.txState().indexRuleDoAdd( rule );
+        return rule;
+    }
+
     @Override
     public void indexDrop( KernelStatement state, IndexDescriptor descriptor ) throws DropIndexFailureException
     {
@@ -495,7 +514,7 @@ public class StateHandlingStatementOperations implements
             @Override
             public boolean accept( IndexDescriptor item )
             {
-                return item.getPropertyKeyId() == propertyKey;
+                return !item.isComposite() && item.getPropertyKeyId() == propertyKey;
             }
         };
         return filter( predicate, descriptorIterator );
@@ -601,12 +620,128 @@ public class StateHandlingStatementOperations implements
                                                           final Object value )
             throws IndexNotFoundKernelException
     {
+        if ( index.isComposite() )
+        {
+            return nodesGetFromCompositeIndexLookup( state, index, compositeValues( index, value ) );
+        }
         PrimitiveLongResourceIterator committed = storeLayer.nodesGetFromIndexLookup( state, index, value );
         PrimitiveLongIterator exactMatches = filterExactIndexMatches( state, index, value, committed );
         PrimitiveLongIterator changeFilteredMatches = filterIndexStateChanges( state, index, value, exactMatches );
         return resourceIterator( changeFilteredMatches, committed );
     }
 
+    /**
+     * Composite index entries are looked up by their encoded value, both in the index and in the transaction state.
+     * Since numbers are encoded by their double value, matches are filtered by their exact values when numbers or
+     * arrays are involved.
+     */
+    private PrimitiveLongIterator nodesGetFromCompositeIndexLookup( KernelStatement state, IndexDescriptor index,
+                                                                    Object[] values )
+            throws IndexNotFoundKernelException
+    {
+        String compositeValue = CompositeValues.encode( values );
+        PrimitiveLongResourceIterator committed =
+                storeLayer.nodesGetFromIndexLookup( state, index, compositeValue );
+        PrimitiveLongIterator matches = committed;
+        if ( state.hasTxStateWithChanges() )
+        {
+            DiffSets<Long> compositeChanges = state.txState().compositeIndexUpdates( index, compositeValue );
+            DiffSets<Long> nodes = state.txState().addedAndRemovedNodes();
+            matches = nodes.augmentWithRemovals( compositeChanges.augment( committed ) );
+        }
+        for ( Object value : values )
+        {
+            if ( isNumberOrArray( value ) )
+            {
+                matches = PrimitiveLongCollections.filter( matches, compositeMatch( state, index, values ) );
+                break;
+            }
+        }
+        return resourceIterator( matches, committed );
+    }
+
+    private static Object[] compositeValues( IndexDescriptor index, Object value )
+    {
+        if ( !(value instanceof Object[]) || ((Object[]) value).length != index.getPropertyKeyIds().length )
+        {
+            throw new IllegalArgumentException( String.format(
+                    "Composite index %s must be looked up by one value per property key, got %s",
+                    index, value instanceof Object[] ? Arrays.toString( (Object[]) value ) : value ) );
+        }
+        return (Object[]) value;
+    }
+
+    private PrimitiveLongPredicate compositeMatch( final KernelStatement state, final IndexDescriptor index,
+                                                   final Object[] values )
+    {
+        final int[] propertyKeyIds = index.getPropertyKeyIds();
+        return new PrimitiveLongPredicate()
+        {
+            @Override
+            public boolean accept( long nodeId )
+            {
+                try
+                {
+                    if ( !nodeHasLabel( state, nodeId, index.getLabelId() ) )
+                    {
+                        return false;
+                    }
+                    for ( int i = 0; i < propertyKeyIds.length; i++ )
+                    {
+                        if ( !nodeGetProperty( state, nodeId, propertyKeyIds[i] ).valueEquals( values[i] ) )
+                        {
+                            return false;
+                        }
+                    }
+                    return true;
+                }
+                catch ( EntityNotFoundException e )
+                {
+                    // Deleted in this transaction
+                    return false;
+                }
+            }
+        };
+    }
+
+    @Override
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByNumber( KernelStatement state, IndexDescriptor index,
+                                                                     Number lower, boolean includeLower,
+                                                                     Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        PrimitiveLongResourceIterator committed = storeLayer.nodesGetFromIndexRangeSeekByNumber( state, index,
+                lower, includeLower, upper, includeUpper );
+        PrimitiveLongIterator changeFilteredMatches = filterIndexStateChangesForRangeSeek( state, index,
+                numberRange( lower, includeLower, upper, includeUpper ), committed );
+        return resourceIterator( changeFilteredMatches, committed );
+    }
+
+    @Override
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByString( KernelStatement state, IndexDescriptor index,
+                                                                     String lower, boolean includeLower,
+                                                                     String upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        PrimitiveLongResourceIterator committed = storeLayer.nodesGetFromIndexRangeSeekByString( state, index,
+                lower, includeLower, upper, includeUpper );
+        PrimitiveLongIterator changeFilteredMatches = filterIndexStateChangesForRangeSeek( state, index,
+                stringRange( lower, includeLower, upper, includeUpper ), committed );
+        return resourceIterator( changeFilteredMatches, committed );
+    }
+
+    @Override
+    public PrimitiveLongIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state, IndexDescriptor index,
+                                                                     String prefix )
+            throws IndexNotFoundKernelException
+    {
+        PrimitiveLongResourceIterator committed = storeLayer.nodesGetFromIndexRangeSeekByPrefix( state, index,
+                prefix );
+        PrimitiveLongIterator changeFilteredMatches = filterIndexStateChangesForRangeSeek( state, index,
+                prefix( prefix ), committed );
+        return resourceIterator( changeFilteredMatches, committed );
+    }
+
     private PrimitiveLongIterator filterExactIndexMatches(
             KernelStatement state,
             IndexDescriptor index,
@@ -662,6 +797,130 @@ public class StateHandlingStatementOperations implements
         return nodeIds;
     }
 
+    private PrimitiveLongIterator filterIndexStateChangesForRangeSeek( KernelStatement state, IndexDescriptor index,
+            Predicate<Object> valueFilter, PrimitiveLongIterator nodeIds ) throws IndexNotFoundKernelException
+    {
+        if ( state.hasTxStateWithChanges() )
+        {
+            DiffSets<Long> labelPropertyChanges = state.txState().indexUpdatesForRangeSeek( index, valueFilter );
+            DiffSets<Long> nodes = state.txState().addedAndRemovedNodes();
+
+            if ( !labelPropertyChanges.getAdded().isEmpty() && storeLayer.indexSeeksInOrder( index ) )
+            {
+                // Keep the order of the index, by merging in the added nodes by their values. A committed node
+                // that is added again has moved within the range, so it is only returned at its new value.
+                final Set<Long> added = labelPropertyChanges.getAdded();
+                PrimitiveLongIterator committed = nodes.augmentWithRemovals( labelPropertyChanges.augmentWithRemovals(
+                        PrimitiveLongCollections.filter( nodeIds, new PrimitiveLongPredicate()
+                        {
+                            @Override
+                            public boolean accept( long nodeId )
+                            {
+                                return !added.contains( nodeId );
+                            }
+                        } ) ) );
+                return mergeInValueOrder( state, index.getPropertyKeyId(), committed,
+                        addedInValueOrder( state, index.getPropertyKeyId(), labelPropertyChanges, nodes ) );
+            }
+
+            // Apply to actual index lookup
+            return nodes.augmentWithRemovals( labelPropertyChanges.augment( nodeIds ) );
+        }
+        return nodeIds;
+    }
+
+    private List<Pair<Long,Object>> addedInValueOrder( KernelStatement state, int propertyKeyId,
+            DiffSets<Long> labelPropertyChanges, DiffSets<Long> nodes )
+    {
+        List<Pair<Long,Object>> added = new ArrayList<>( labelPropertyChanges.getAdded().size() );
+        for ( Long nodeId : labelPropertyChanges.getAdded() )
+        {
+            if ( !nodes.isRemoved( nodeId ) )
+            {
+                added.add( Pair.of( nodeId, indexedValue( state, nodeId, propertyKeyId ) ) );
+            }
+        }
+        Collections.sort( added, new Comparator<Pair<Long,Object>>()
+        {
+            @Override
+            public int compare( Pair<Long,Object> a, Pair<Long,Object> b )
+            {
+                return compareIndexedValues( a.other(), b.other() );
+            }
+        } );
+        return added;
+    }
+
+    /**
+     * Merges nodes, that are in value order, from an index that {@link StoreReadLayer#indexSeeksInOrder seeks in
+     * order} with the nodes added to the index in this transaction. Values of nodes from the index are only read
+     * while there are added nodes left to place among them.
+     */
+    private PrimitiveLongIterator mergeInValueOrder( final KernelStatement state, final int propertyKeyId,
+            final PrimitiveLongIterator committed, final List<Pair<Long,Object>> added )
+    {
+        return new PrimitiveLongCollections.PrimitiveLongBaseIterator()
+        {
+            private int addedIndex;
+            private boolean hasCommitted;
+            private long committedNode;
+            private Object committedValue;
+
+            @Override
+            protected boolean fetchNext()
+            {
+                if ( addedIndex == added.size() )
+                {
+                    if ( hasCommitted )
+                    {
+                        hasCommitted = false;
+                        return next( committedNode );
+                    }
+                    return committed.hasNext() && next( committed.next() );
+                }
+                if ( !hasCommitted && committed.hasNext() )
+                {
+                    committedNode = committed.next();
+                    committedValue = indexedValue( state, committedNode, propertyKeyId );
+                    hasCommitted = true;
+                }
+                Pair<Long,Object> nextAdded = added.get( addedIndex );
+                if ( hasCommitted && compareIndexedValues( committedValue, nextAdded.other() ) <= 0 )
+                {
+                    hasCommitted = false;
+                    return next( committedNode );
+                }
+                addedIndex++;
+                return next( nextAdded.first() );
+            }
+        };
+    }
+
+    private Object indexedValue( KernelStatement state, long nodeId, int propertyKeyId )
+    {
+        try
+        {
+            return nodeGetProperty( state, nodeId, propertyKeyId ).value( null );
+        }
+        catch ( EntityNotFoundException e )
+        {
+            throw new IllegalStateException( "An index claims a node by id " + nodeId +
+                    " has a value. However, it looks like that node does not exist.", e );
+        }
+    }
+
+    /**
+     * Compares values of a single range seek, which are either all numbers or all strings.
+     */
+    private static int compareIndexedValues( Object a, Object b )
+    {
+        if ( a instanceof Number && b instanceof Number )
+        {
+            return IndexedNumbers.compare( (Number) a, (Number) b );
+        }
+        return a.toString().compareTo( b.toString() );
+    }
+
     @Override
     public Property nodeSetProperty( KernelStatement state, long nodeId, DefinedProperty property )
             throws EntityNotFoundException
@@ -757,13 +1016,102 @@ public class StateHandlingStatementOperations implements
     }
 
     private void indexUpdateProperty( KernelStatement state, long nodeId, int labelId, int propertyKey,
-                                      DefinedProperty before, DefinedProperty after )
+                                      DefinedProperty before, DefinedProperty after ) throws EntityNotFoundException
     {
         IndexDescriptor descriptor = indexesGetForLabelAndPropertyKey( state, labelId, propertyKey );
         if ( descriptor != null )
         {
+            if ( after != null )
+            {
+                validateIndexValue( state, descriptor, after.value() );
+            }
             state.txState().indexUpdateProperty( descriptor, nodeId, before, after );
         }
+        compositeIndexesUpdateProperty( state, nodeId, labelId, propertyKey, before, after );
+    }
+
+    /**
+     * Moves the node between the entries of the composite indexes that cover the changed property, in the
+     * transaction state, and validates the value of its new entry. A node only has an entry in a composite index
+     * while all of the properties of the index are set.
+     */
+    private void compositeIndexesUpdateProperty( KernelStatement state, long nodeId, int labelId, int propertyKey,
+                                                 DefinedProperty before, DefinedProperty after )
+            throws EntityNotFoundException
+    {
+        for ( Iterator<IndexDescriptor> indexes = indexesGetForLabel( state, labelId ); indexes.hasNext(); )
+        {
+            IndexDescriptor index = indexes.next();
+            if ( !index.isComposite() || !contains( index.getPropertyKeyIds(), propertyKey ) )
+            {
+                continue;
+            }
+            String compositeValueBefore = compositeValue( state, nodeId, index, before );
+            String compositeValueAfter = compositeValue( state, nodeId, index, after );
+            if ( compositeValueAfter != null )
+            {
+                validateIndexValue( state, index, compositeValueAfter );
+            }
+            state.txState().compositeIndexUpdate( index, nodeId, compositeValueBefore, compositeValueAfter );
+        }
+    }
+
+    /**
+     * The encoded value of the entry of the node in the given composite index, with the given property in place of
+     * the current value of its key, or null if the property is null or any of the other properties are not set.
+     */
+    private String compositeValue( KernelStatement state, long nodeId, IndexDescriptor index,
+                                   DefinedProperty property ) throws EntityNotFoundException
+    {
+        if ( property == null )
+        {
+            return null;
+        }
+        int[] propertyKeyIds = index.getPropertyKeyIds();
+        Object[] values = new Object[propertyKeyIds.length];
+        for ( int i = 0; i < propertyKeyIds.length; i++ )
+        {
+            values[i] = propertyKeyIds[i] == property.propertyKeyId() ? property.value()
+                        : nodeGetProperty( state, nodeId, propertyKeyIds[i] ).value( null );
+            if ( values[i] == null )
+            {
+                return null;
+            }
+        }
+        return CompositeValues.encode( values );
+    }
+
+    private static boolean contains( int[] propertyKeyIds, int propertyKeyId )
+    {
+        for ( int candidate : propertyKeyIds )
+        {
+            if ( candidate == propertyKeyId )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Has the provider of the index reject values it cannot index while the transaction can still fail, rather than
+     * when the updates are applied to the index at commit. Indexes created in this transaction are populated from
+     * the store after commit, which fails the index and not the transaction.
+     */
+    private void validateIndexValue( KernelStatement state, IndexDescriptor descriptor, Object value )
+    {
+        if ( state.txState().indexDiffSetsByLabel( descriptor.getLabelId() ).isAdded( descriptor ) )
+        {
+            return;
+        }
+        try
+        {
+            storeLayer.indexValidateValue( descriptor, value );
+        }
+        catch ( IndexNotFoundKernelException e )
+        {
+            // Dropped in the mean time, so there is no index to validate the value for
+        }
     }
 
     @Override
@@ -1127,6 +1475,20 @@ public class StateHandlingStatementOperations implements
         return storeLayer.indexGetFailure( descriptor );
     }
 
+    @Override
+    public boolean indexSeeksInOrder( KernelStatement state, IndexDescriptor descriptor )
+            throws IndexNotFoundKernelException
+    {
+        return storeLayer.indexSeeksInOrder( descriptor );
+    }
+
+    @Override
+    public IndexSample indexSample( KernelStatement state, IndexDescriptor descriptor )
+            throws IndexNotFoundKernelException
+    {
+        return storeLayer.indexSample( descriptor );
+    }
+
     @Override
     public int labelGetForName( Statement state, String labelName )
     {
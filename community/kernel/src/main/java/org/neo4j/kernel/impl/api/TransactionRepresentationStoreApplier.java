@@ -35,6 +35,7 @@ import org.neo4j.kernel.impl.transaction.command.HighIdTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.IndexTransactionApplier;
 import org.neo4j.kernel.impl.transaction.command.NeoCommandHandler;
 import org.neo4j.kernel.impl.transaction.command.NeoStoreTransactionApplier;
+import org.neo4j.kernel.impl.transaction.state.PipelinedRecoveryVisitor;
 import org.neo4j.kernel.impl.transaction.state.PropertyLoader;
 import org.neo4j.kernel.impl.util.IdOrderingQueue;
 
@@ -74,6 +75,25 @@ public class TransactionRepresentationStoreApplier
     public void apply( TransactionRepresentation representation, LockGroup locks,
                        long transactionId, TransactionApplicationMode mode )
             throws IOException
+    {
+        apply( representation, locks, transactionId, mode, true );
+    }
+
+    /**
+     * Like {@link #apply(TransactionRepresentation, LockGroup, long, TransactionApplicationMode)}, but leaves
+     * the schema indexes and the label scan store alone. The caller is responsible for updating those,
+     * which lets {@link PipelinedRecoveryVisitor recovery} update them in batches, in other threads.
+     */
+    public void applyToStores( TransactionRepresentation representation, LockGroup locks,
+                               long transactionId, TransactionApplicationMode mode )
+            throws IOException
+    {
+        apply( representation, locks, transactionId, mode, false );
+    }
+
+    private void apply( TransactionRepresentation representation, LockGroup locks,
+                        long transactionId, TransactionApplicationMode mode, boolean includeIndexes )
+            throws IOException
     {
         // Graph store application. The order of the decorated store appliers is irrelevant
         NeoCommandHandler storeApplier = new NeoStoreTransactionApplier(
@@ -91,9 +111,10 @@ public class TransactionRepresentationStoreApplier
         NeoCommandHandler countsStoreApplier = getCountsStoreApplier( transactionId, mode );
 
         // Schema index application
-        IndexTransactionApplier indexApplier = new IndexTransactionApplier( indexingService,
-                labelScanStore, neoStore.getNodeStore(), neoStore.getPropertyStore(), cacheAccess,
-                propertyLoader, mode );
+        NeoCommandHandler indexApplier = includeIndexes
+                ? new IndexTransactionApplier( indexingService, labelScanStore, neoStore.getNodeStore(),
+                        neoStore.getPropertyStore(), cacheAccess, propertyLoader, mode )
+                : NeoCommandHandler.EMPTY;
 
         // Legacy index application
         LegacyIndexApplier legacyIndexApplier = new LegacyIndexApplier( indexConfigStore,
@@ -0,0 +1,165 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
+import org.neo4j.kernel.api.exceptions.PropertyNotFoundException;
+import org.neo4j.kernel.api.index.CompositeValues;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.api.index.PropertyAccessor;
+import org.neo4j.kernel.api.properties.Property;
+
+/**
+ * Converts the property updates of a transaction into the updates of a composite index, where each node is
+ * indexed by the {@link CompositeValues encoded} tuple of its values for all the property keys of the index.
+ * <p/>
+ * The property updates of a node only mention the keys that changed, or all keys of the node if one of its
+ * labels changed. The value of a key that is not mentioned is the same before and after the transaction,
+ * and is read through the given {@link PropertyAccessor}.
+ */
+class CompositeIndexUpdates
+{
+    private final IndexDescriptor descriptor;
+    private final int[] propertyKeyIds;
+    private final long[] labels;
+
+    CompositeIndexUpdates( IndexDescriptor descriptor )
+    {
+        this.descriptor = descriptor;
+        this.propertyKeyIds = descriptor.getPropertyKeyIds();
+        this.labels = new long[]{descriptor.getLabelId()};
+    }
+
+    Collection<NodePropertyUpdate> convert( Iterable<NodePropertyUpdate> updates, PropertyAccessor propertyAccessor )
+    {
+        Map<Long, NodePropertyUpdate[]> updatesByNode = new HashMap<>();
+        for ( NodePropertyUpdate update : updates )
+        {
+            int key = keyIndex( update.getPropertyKeyId() );
+            if ( key != -1 && update.forLabel( descriptor.getLabelId() ) )
+            {
+                NodePropertyUpdate[] nodeUpdates = updatesByNode.get( update.getNodeId() );
+                if ( nodeUpdates == null )
+                {
+                    updatesByNode.put( update.getNodeId(), nodeUpdates = new NodePropertyUpdate[propertyKeyIds.length] );
+                }
+                nodeUpdates[key] = update;
+            }
+        }
+
+        Collection<NodePropertyUpdate> result = new ArrayList<>( updatesByNode.size() );
+        for ( Map.Entry<Long, NodePropertyUpdate[]> entry : updatesByNode.entrySet() )
+        {
+            long nodeId = entry.getKey();
+            NodePropertyUpdate[] nodeUpdates = entry.getValue();
+            Object[] before = new Object[propertyKeyIds.length];
+            Object[] after = new Object[propertyKeyIds.length];
+            for ( int i = 0; i < propertyKeyIds.length; i++ )
+            {
+                NodePropertyUpdate update = nodeUpdates[i];
+                if ( update == null )
+                {
+                    before[i] = after[i] = valueOf( propertyAccessor, nodeId, propertyKeyIds[i] );
+                    continue;
+                }
+                switch ( update.getUpdateMode() )
+                {
+                case ADDED:
+                    after[i] = update.getValueAfter();
+                    break;
+                case REMOVED:
+                    before[i] = update.getValueBefore();
+                    break;
+                case CHANGED:
+                    before[i] = update.getValueBefore();
+                    after[i] = update.getValueAfter();
+                    break;
+                }
+            }
+
+            String valueBefore = encode( before );
+            String valueAfter = encode( after );
+            int propertyKeyId = propertyKeyIds[0];
+            if ( valueBefore != null && valueAfter != null )
+            {
+                if ( !valueBefore.equals( valueAfter ) )
+                {
+                    result.add( NodePropertyUpdate.change( nodeId, propertyKeyId, valueBefore, labels,
+                            valueAfter, labels ) );
+                }
+            }
+            else if ( valueBefore != null )
+            {
+                result.add( NodePropertyUpdate.remove( nodeId, propertyKeyId, valueBefore, labels ) );
+            }
+            else if ( valueAfter != null )
+            {
+                result.add( NodePropertyUpdate.add( nodeId, propertyKeyId, valueAfter, labels ) );
+            }
+        }
+        return result;
+    }
+
+    private int keyIndex( int propertyKeyId )
+    {
+        for ( int i = 0; i < propertyKeyIds.length; i++ )
+        {
+            if ( propertyKeyIds[i] == propertyKeyId )
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static Object valueOf( PropertyAccessor propertyAccessor, long nodeId, int propertyKeyId )
+    {
+        try
+        {
+            Property property = propertyAccessor.getProperty( nodeId, propertyKeyId );
+            return property.isDefined() ? property.value() : null;
+        }
+        catch ( EntityNotFoundException | PropertyNotFoundException e )
+        {
+            return null;
+        }
+    }
+
+    /**
+     * @return the encoded tuple, or {@code null} if the node is missing any of the values.
+     */
+    private static String encode( Object[] values )
+    {
+        for ( Object value : values )
+        {
+            if ( value == null )
+            {
+                return null;
+            }
+        }
+        return CompositeValues.encode( values );
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
+import org.neo4j.kernel.api.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+
+/**
+ * Takes the updates of committing transactions off the commit path of an online index that does not back a
+ * uniqueness constraint. The updates of each transaction are queued as a batch, and applied in order by
+ * {@link #applyQueuedUpdates()}, which {@link IndexingService} calls periodically from the background, all queued
+ * batches at the time through a single updater. Readers {@link DeferredIndexReader merge in} the updates that are
+ * still queued, so a committed transaction is seen by all reads that come after it.
+ * <p>
+ * Queued updates are applied before the index is forced, closed, snapshotted or updated in recovery mode, and by
+ * the committing transaction itself when too many batches are waiting.
+ */
+class DeferredIndexProxy extends DelegatingIndexProxy
+{
+    static final int MAX_QUEUED_BATCHES = 1000;
+
+    private final Queue<List<NodePropertyUpdate>> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queuedBatches = new AtomicInteger();
+    private final Set<DeferredIndexProxy> deferredIndexes;
+    private boolean closed;
+    private boolean applyFailed;
+
+    DeferredIndexProxy( IndexProxy delegate, Set<DeferredIndexProxy> deferredIndexes )
+    {
+        super( delegate );
+        this.deferredIndexes = deferredIndexes;
+        deferredIndexes.add( this );
+    }
+
+    @Override
+    public IndexUpdater newUpdater( IndexUpdateMode mode )
+    {
+        if ( mode == IndexUpdateMode.ONLINE )
+        {
+            return new QueueingUpdater();
+        }
+        try
+        {
+            applyQueuedUpdates();
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+        return super.newUpdater( mode );
+    }
+
+    @Override
+    public IndexReader newReader() throws IndexNotFoundKernelException
+    {
+        // The queue has to be read first, see DeferredIndexReader
+        List<NodePropertyUpdate> queuedUpdates = new ArrayList<>();
+        for ( List<NodePropertyUpdate> batch : queue )
+        {
+            queuedUpdates.addAll( batch );
+        }
+        IndexReader reader = super.newReader();
+        return queuedUpdates.isEmpty() ? reader : new DeferredIndexReader( queuedUpdates, reader );
+    }
+
+    @Override
+    public void force() throws IOException
+    {
+        applyQueuedUpdates();
+        super.force();
+    }
+
+    @Override
+    public ResourceIterator<File> snapshotFiles() throws IOException
+    {
+        applyQueuedUpdates();
+        return super.snapshotFiles();
+    }
+
+    @Override
+    public synchronized Future<Void> close() throws IOException
+    {
+        applyQueuedUpdates();
+        closed = true;
+        deferredIndexes.remove( this );
+        return super.close();
+    }
+
+    @Override
+    public synchronized Future<Void> drop() throws IOException
+    {
+        closed = true;
+        deferredIndexes.remove( this );
+        queue.clear();
+        return super.drop();
+    }
+
+    /**
+     * Applies the batches that are queued, in the order they were committed. The batches are taken off the queue
+     * only after they are visible to new readers of the index. If applying them fails, they stay queued and are
+     * applied again in {@link IndexUpdateMode#RECOVERY recovery mode} the next time, since some of them may already
+     * be in the index.
+     */
+    synchronized void applyQueuedUpdates() throws IOException
+    {
+        if ( closed || queue.isEmpty() )
+        {
+            return;
+        }
+        int batches = 0;
+        IndexUpdateMode mode = applyFailed ? IndexUpdateMode.RECOVERY : IndexUpdateMode.ONLINE;
+        applyFailed = true;
+        try ( IndexUpdater updater = super.newUpdater( mode ) )
+        {
+            for ( List<NodePropertyUpdate> batch : queue )
+            {
+                for ( NodePropertyUpdate update : batch )
+                {
+                    updater.process( update );
+                }
+                batches++;
+            }
+        }
+        catch ( IndexEntryConflictException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+        applyFailed = false;
+        for ( int i = 0; i < batches; i++ )
+        {
+            queue.poll();
+        }
+        queuedBatches.addAndGet( -batches );
+    }
+
+    private class QueueingUpdater implements IndexUpdater
+    {
+        private final List<NodePropertyUpdate> batch = new ArrayList<>();
+
+        @Override
+        public void process( NodePropertyUpdate update )
+        {
+            batch.add( update );
+        }
+
+        @Override
+        public void close() throws IOException
+        {
+            if ( batch.isEmpty() )
+            {
+                return;
+            }
+            queue.add( batch );
+            if ( queuedBatches.incrementAndGet() > MAX_QUEUED_BATCHES )
+            {
+                applyQueuedUpdates();
+            }
+        }
+
+        @Override
+        public void remove( Iterable<Long> nodeIds )
+        {
+            throw new UnsupportedOperationException( "Nodes are only removed in recovery mode" );
+        }
+    }
+}
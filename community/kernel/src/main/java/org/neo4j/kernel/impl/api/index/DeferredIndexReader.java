@@ -0,0 +1,153 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
+import org.neo4j.collection.primitive.PrimitiveLongObjectVisitor;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.function.primitive.PrimitiveLongPredicate;
+import org.neo4j.helpers.Predicate;
+import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+
+import static org.neo4j.helpers.collection.IteratorUtil.iterator;
+import static org.neo4j.kernel.impl.api.index.IndexValuePredicates.equalTo;
+import static org.neo4j.kernel.impl.api.index.IndexValuePredicates.numberRange;
+import static org.neo4j.kernel.impl.api.index.IndexValuePredicates.prefix;
+import static org.neo4j.kernel.impl.api.index.IndexValuePredicates.stringRange;
+
+/**
+ * Reads an index that has updates {@link DeferredIndexProxy queued} for it, as if they were applied. The nodes of
+ * the queued updates are left out of the results of the index, and matched against the value that the last queued
+ * update gave them instead.
+ * <p>
+ * The queued updates must be collected before the reader of the index is opened. Updates that are applied to the
+ * index in between are then both in the index and queued, and the queued value wins.
+ */
+class DeferredIndexReader implements IndexReader
+{
+    private static final Object REMOVED = new Object();
+
+    private final IndexReader reader;
+    private final PrimitiveLongObjectMap<Object> queuedValues;
+
+    DeferredIndexReader( Iterable<NodePropertyUpdate> queuedUpdates, IndexReader reader )
+    {
+        this.reader = reader;
+        this.queuedValues = Primitive.longObjectMap();
+        for ( NodePropertyUpdate update : queuedUpdates )
+        {
+            switch ( update.getUpdateMode() )
+            {
+            case ADDED:
+            case CHANGED:
+                queuedValues.put( update.getNodeId(), update.getValueAfter() );
+                break;
+            case REMOVED:
+                queuedValues.put( update.getNodeId(), REMOVED );
+                break;
+            }
+        }
+    }
+
+    @Override
+    public PrimitiveLongIterator lookup( Object value )
+    {
+        return merge( reader.lookup( value ), equalTo( value ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower,
+                                                    Number upper, boolean includeUpper )
+    {
+        return merge( reader.rangeSeekByNumber( lower, includeLower, upper, includeUpper ),
+                numberRange( lower, includeLower, upper, includeUpper ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByString( String lower, boolean includeLower,
+                                                    String upper, boolean includeUpper )
+    {
+        return merge( reader.rangeSeekByString( lower, includeLower, upper, includeUpper ),
+                stringRange( lower, includeLower, upper, includeUpper ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+    {
+        return merge( reader.rangeSeekByPrefix( prefix ), prefix( prefix ) );
+    }
+
+    @Override
+    public IndexSample sampleIndex( long sampleSizeLimit )
+    {   // The queued updates are too few to matter to a sample
+        return reader.sampleIndex( sampleSizeLimit );
+    }
+
+    @Override
+    public int getIndexedCount( long nodeId, Object propertyValue )
+    {
+        Object queued = queuedValues.get( nodeId );
+        if ( queued == null )
+        {
+            return reader.getIndexedCount( nodeId, propertyValue );
+        }
+        return queued != REMOVED && equalTo( propertyValue ).accept( queued ) ? 1 : 0;
+    }
+
+    @Override
+    public void close()
+    {
+        reader.close();
+    }
+
+    private PrimitiveLongIterator merge( PrimitiveLongIterator indexed, final Predicate<Object> filter )
+    {
+        if ( queuedValues.isEmpty() )
+        {
+            return indexed;
+        }
+        PrimitiveLongIterator notQueued = PrimitiveLongCollections.filter( indexed, new PrimitiveLongPredicate()
+        {
+            @Override
+            public boolean accept( long nodeId )
+            {
+                return !queuedValues.containsKey( nodeId );
+            }
+        } );
+        final PrimitiveLongSet queuedMatches = Primitive.longSet();
+        queuedValues.visitEntries( new PrimitiveLongObjectVisitor<Object>()
+        {
+            @Override
+            public void visited( long nodeId, Object value )
+            {
+                if ( value != REMOVED && filter.accept( value ) )
+                {
+                    queuedMatches.add( nodeId );
+                }
+            }
+        } );
+        return PrimitiveLongCollections.concat( iterator( notQueued, queuedMatches.iterator() ) );
+    }
+}
@@ -24,8 +24,11 @@ import java.util.Iterator;
 import java.util.Map;
 
 import org.neo4j.helpers.BiConsumer;
+import org.neo4j.helpers.Predicate;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 
+import static org.neo4j.helpers.collection.Iterables.filter;
+
 /**
  * Bundles various mappings to IndexProxy. Used by IndexingService via IndexMapReference.
  *
@@ -104,4 +107,16 @@ public final class IndexMap implements Cloneable
     {
         return indexesByDescriptor.keySet().iterator();
     }
+
+    public Iterable<IndexDescriptor> compositeDescriptors()
+    {
+        return filter( new Predicate<IndexDescriptor>()
+        {
+            @Override
+            public boolean accept( IndexDescriptor descriptor )
+            {
+                return descriptor.isComposite();
+            }
+        }, indexesByDescriptor.keySet() );
+    }
 }
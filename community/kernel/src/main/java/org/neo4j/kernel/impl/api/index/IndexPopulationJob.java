@@ -20,10 +20,15 @@
 package org.neo4j.kernel.impl.api.index;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Queue;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
 
 import org.neo4j.helpers.collection.Visitor;
@@ -34,42 +39,52 @@ import org.neo4j.kernel.api.index.IndexPopulator;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.index.NodePropertyUpdate;
 import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
 import org.neo4j.kernel.impl.api.UpdateableSchemaState;
 import org.neo4j.kernel.impl.util.StringLogger;
 import org.neo4j.kernel.logging.Logging;
 
 import static java.lang.String.format;
 import static java.lang.Thread.currentThread;
+import static java.util.concurrent.Executors.newFixedThreadPool;
 
 import static org.neo4j.helpers.FutureAdapter.latchGuardedValue;
+import static org.neo4j.helpers.NamedThreadFactory.daemon;
 import static org.neo4j.helpers.ValueGetter.NO_VALUE;
 import static org.neo4j.kernel.impl.api.index.IndexPopulationFailure.failure;
 
 /**
- * Represents one job of initially populating an index over existing data in the database.
+ * Represents one job of initially populating one or more indexes over existing data in the database.
  * Scans the store directly.
+ * <p>
+ * A job populating a single index only visits the nodes relevant to that index. A job populating several
+ * indexes visits the store once, for all of them, and hands the updates over in batches to a pool of worker
+ * threads, so that the populators can do their work in parallel while the scan goes on. The batches of any
+ * one populator are applied in the order they were read from the store.
  *
  * @author Mattias Persson
  */
 public class IndexPopulationJob implements Runnable
 {
-    private final IndexStoreView storeView;
-    private final String indexUserDescription;
-
-    // NOTE: unbounded queue expected here
-    private final Queue<NodePropertyUpdate> queue = new ConcurrentLinkedQueue<>();
+    static final int BATCH_SIZE = 1_000;
 
-    private final IndexDescriptor descriptor;
-    private final FailedIndexProxyFactory failureDelegate;
-    private final IndexPopulator populator;
-    private final FlippableIndexProxy flipper;
+    private final IndexStoreView storeView;
     private final UpdateableSchemaState updateableSchemaState;
     private final StringLogger log;
+    private final List<IndexPopulation> populations = new CopyOnWriteArrayList<>();
     private final CountDownLatch doneSignal = new CountDownLatch( 1 );
 
     private volatile StoreScan<IndexPopulationFailedKernelException> storeScan;
-    private volatile boolean cancelled;
-    private final SchemaIndexProvider.Descriptor providerDescriptor;
+    private volatile boolean started;
+    private ExecutorService workers;
+
+    public IndexPopulationJob( IndexStoreView storeView, UpdateableSchemaState updateableSchemaState,
+                               Logging logging )
+    {
+        this.storeView = storeView;
+        this.updateableSchemaState = updateableSchemaState;
+        this.log = logging.getMessagesLog( getClass() );
+    }
 
     public IndexPopulationJob(IndexDescriptor descriptor, SchemaIndexProvider.Descriptor providerDescriptor,
                               String indexUserDescription,
@@ -78,195 +93,517 @@ public class IndexPopulationJob implements Runnable
                               IndexStoreView storeView, UpdateableSchemaState updateableSchemaState,
                               Logging logging)
     {
-        this.descriptor = descriptor;
-        this.providerDescriptor = providerDescriptor;
-        this.populator = populator;
-        this.flipper = flipper;
-        this.storeView = storeView;
-        this.updateableSchemaState = updateableSchemaState;
-        this.indexUserDescription = indexUserDescription;
-        this.failureDelegate = failureDelegateFactory;
-        this.log = logging.getMessagesLog( getClass() );
+        this( storeView, updateableSchemaState, logging );
+        addPopulation( descriptor, providerDescriptor, indexUserDescription, failureDelegateFactory, populator,
+                flipper );
+    }
+
+    /**
+     * Adds an index to be populated by this job. Composite indexes need to see all their properties at once
+     * and can therefore not share a job with other indexes.
+     *
+     * @throws IllegalStateException if this job has already started.
+     */
+    public IndexPopulation addPopulation( IndexDescriptor descriptor,
+                                          SchemaIndexProvider.Descriptor providerDescriptor,
+                                          String indexUserDescription,
+                                          FailedIndexProxyFactory failureDelegateFactory,
+                                          IndexPopulator populator, FlippableIndexProxy flipper )
+    {
+        if ( started )
+        {
+            throw new IllegalStateException( "Cannot add an index to " + this + ", it has already started" );
+        }
+        if ( !populations.isEmpty() && (descriptor.isComposite() || populations.get( 0 ).descriptor.isComposite()) )
+        {
+            throw new IllegalArgumentException( "A composite index needs a population job of its own, " +
+                    "cannot add " + indexUserDescription + " to " + this );
+        }
+        IndexPopulation population = new IndexPopulation( descriptor, providerDescriptor, indexUserDescription,
+                failureDelegateFactory, populator, flipper );
+        populations.add( population );
+        return population;
+    }
+
+    public boolean hasPopulations()
+    {
+        return !populations.isEmpty();
     }
 
     @Override
     public void run()
     {
+        started = true;
         String oldThreadName = currentThread().getName();
-        currentThread().setName( format( "Index populator on %s [runs on: %s]", indexUserDescription, oldThreadName ) );
-        boolean success = false;
-        Throwable failureCause = null;
+        currentThread().setName( format( "Index populator on %s [runs on: %s]", userDescriptions(), oldThreadName ) );
         try
         {
-            try
+            List<IndexPopulation> created = new ArrayList<>( populations.size() );
+            for ( IndexPopulation population : populations )
             {
-                log.info( format("Index population started: [%s]", indexUserDescription) );
-                log.flush();
-                populator.create();
-
-                indexAllNodes();
-                if ( cancelled )
+                if ( population.create() )
                 {
-                    // We remain in POPULATING state
-                    return;
+                    created.add( population );
                 }
-
-                Callable<Void> duringFlip = new Callable<Void>()
-                {
-                    @Override
-                    public Void call() throws Exception
-                    {
-                        populateFromQueueIfAvailable( Long.MAX_VALUE );
-                        populator.close( true );
-                        updateableSchemaState.clear();
-                        return null;
-                    }
-                };
-
-                flipper.flip( duringFlip, failureDelegate );
-                success = true;
-                log.info( format("Index population completed. Index is now online: [%s]", indexUserDescription) );
-                log.flush();
             }
-            catch ( Throwable t )
+
+            try
             {
-                // If the cause of index population failure is a conflict in a (unique) index, the conflict is the
-                // failure
-                if ( t instanceof IndexPopulationFailedKernelException )
+                if ( created.size() == 1 )
                 {
-                    Throwable cause = t.getCause();
-                    if ( cause instanceof IndexEntryConflictException )
-                    {
-                        t = cause;
-                    }
+                    indexAllNodes( created.get( 0 ) );
                 }
-
-                // Index conflicts are expected (for unique indexes) so we don't need to log them.
-                if ( !(t instanceof IndexEntryConflictException) /*TODO: && this is a unique index...*/ )
+                else if ( created.size() > 1 )
                 {
-                    log.error( format("Failed to populate index: [%s]", indexUserDescription), t );
-                    log.flush();
+                    indexAllNodes( created );
                 }
-
-                // Set failure cause to be stored persistently
-                failureCause = t;
-
-                // The flipper will have already flipped to a failed index context here, but
-                // it will not include the cause of failure, so we do another flip to a failed
-                // context that does.
-
-                // The reason for having the flipper transition to the failed index context in the first
-                // place is that we would otherwise introduce a race condition where updates could come
-                // in to the old context, if something failed in the job we send to the flipper.
-                flipper.flipTo( new FailedIndexProxy( descriptor, providerDescriptor, indexUserDescription,
-                                                      populator, failure( t ) ) );
             }
-            finally
+            catch ( Throwable t )
             {
-                try
+                for ( IndexPopulation population : created )
                 {
-                    if ( !success )
-                    {
-                        if ( failureCause != null )
-                        {
-                            populator.markAsFailed( failure( failureCause ).asString() );
-                        }
-
-                        populator.close( false );
-                    }
-                }
-                catch ( Throwable e )
-                {
-                    log.error( format("Unable to close failed populator for index: [%s]", indexUserDescription), e );
-                    log.flush();
+                    population.recordFailure( t );
                 }
             }
+
+            for ( IndexPopulation population : created )
+            {
+                population.complete();
+            }
         }
         finally
         {
+            if ( workers != null )
+            {
+                workers.shutdown();
+            }
             doneSignal.countDown();
             currentThread().setName( oldThreadName );
         }
     }
 
-    private void indexAllNodes() throws IndexPopulationFailedKernelException
+    private void indexAllNodes( final IndexPopulation population ) throws IndexPopulationFailedKernelException
     {
-        storeScan = storeView.visitNodesWithPropertyAndLabel( descriptor, new Visitor<NodePropertyUpdate,
-                IndexPopulationFailedKernelException>()
+        storeScan = storeView.visitNodesWithPropertyAndLabel( population.descriptor,
+                new Visitor<NodePropertyUpdate, IndexPopulationFailedKernelException>()
         {
             @Override
             public boolean visit( NodePropertyUpdate update ) throws IndexPopulationFailedKernelException
             {
-                try
-                {
-                    populator.add( update.getNodeId(), update.getValueAfter() );
-                    populateFromQueueIfAvailable( update.getNodeId() );
-                }
-                catch ( IndexEntryConflictException | IOException conflict )
-                {
-                    throw new IndexPopulationFailedKernelException( descriptor, indexUserDescription, conflict );
-                }
+                population.apply( update );
                 return false;
             }
         });
-        storeScan.run();
-        try
+        if ( !population.cancelled )
         {
-            populator.verifyDeferredConstraints( storeView );
-        }
-        catch ( Exception conflict )
-        {
-            throw new IndexPopulationFailedKernelException( descriptor, indexUserDescription, conflict );
+            storeScan.run();
         }
     }
 
-    private void populateFromQueueIfAvailable( final long highestIndexedNodeId )
-            throws IndexEntryConflictException, IOException
+    private void indexAllNodes( final List<IndexPopulation> populations ) throws IndexPopulationFailedKernelException
     {
-        if ( !queue.isEmpty() )
+        int[] labelIds = new int[populations.size()];
+        int[] propertyKeyIds = new int[populations.size()];
+        for ( int i = 0; i < labelIds.length; i++ )
+        {
+            IndexDescriptor descriptor = populations.get( i ).descriptor;
+            labelIds[i] = descriptor.getLabelId();
+            propertyKeyIds[i] = descriptor.getPropertyKeyId();
+        }
+
+        workers = newFixedThreadPool( Math.min( populations.size(), Runtime.getRuntime().availableProcessors() ),
+                daemon( "Index populator" ) );
+        storeScan = storeView.visitNodes( labelIds, propertyKeyIds,
+                new Visitor<NodePropertyUpdate, IndexPopulationFailedKernelException>()
         {
-            try ( IndexUpdater updater = populator.newPopulatingUpdater( storeView ) )
+            @Override
+            public boolean visit( NodePropertyUpdate update )
             {
-                for ( NodePropertyUpdate update : queue )
+                for ( IndexPopulation population : populations )
                 {
-                    if ( update.getNodeId() <= highestIndexedNodeId )
+                    if ( population.accepts( update ) )
                     {
-                        updater.process( update );
+                        population.add( update );
                     }
                 }
+                return false;
+            }
+        }, new Visitor<NodeLabelUpdate, IndexPopulationFailedKernelException>()
+        {
+            @Override
+            public boolean visit( NodeLabelUpdate element )
+            {
+                return false;
             }
+        } );
+        if ( !allCancelled() )
+        {
+            storeScan.run();
+        }
+        for ( IndexPopulation population : populations )
+        {
+            population.flush();
+            population.awaitPendingBatch();
         }
     }
 
-    public Future<Void> cancel()
+    private boolean allCancelled()
     {
-        // Stop the population
-        if ( storeScan != null )
+        for ( IndexPopulation population : populations )
         {
-            cancelled = true;
-            storeScan.stop();
+            if ( !population.cancelled )
+            {
+                return false;
+            }
         }
+        return true;
+    }
+
+    private void stopScanIfAllCancelled()
+    {
+        StoreScan<IndexPopulationFailedKernelException> scan = storeScan;
+        if ( scan != null && allCancelled() )
+        {
+            scan.stop();
+        }
+    }
 
+    public Future<Void> cancel()
+    {
+        for ( IndexPopulation population : populations )
+        {
+            population.cancelled = true;
+        }
+        stopScanIfAllCancelled();
         return latchGuardedValue( NO_VALUE, doneSignal, "Index population job cancel" );
     }
 
     /**
      * A transaction happened that produced the given updates. Let this job incorporate its data,
-     * feeding it to the {@link IndexPopulator}.
+     * feeding it to the {@link IndexPopulator populators} of this job.
      */
     public void update( NodePropertyUpdate update )
     {
-        queue.add( update );
+        for ( IndexPopulation population : populations )
+        {
+            population.update( update );
+        }
+    }
+
+    private String userDescriptions()
+    {
+        StringBuilder builder = new StringBuilder();
+        for ( IndexPopulation population : populations )
+        {
+            builder.append( builder.length() == 0 ? "" : ", " ).append( population.indexUserDescription );
+        }
+        return builder.toString();
     }
 
     @Override
     public String toString()
     {
-        return getClass().getSimpleName() + "[populator:" + populator + ", descriptor:" + indexUserDescription + "]";
+        return getClass().getSimpleName() + "[populators:" + populations.size() + ", descriptors:" +
+               userDescriptions() + "]";
     }
 
     public void awaitCompletion() throws InterruptedException
     {
         doneSignal.await();
     }
+
+    /**
+     * The population of one of the indexes of an {@link IndexPopulationJob}.
+     */
+    public class IndexPopulation
+    {
+        private final IndexDescriptor descriptor;
+        private final SchemaIndexProvider.Descriptor providerDescriptor;
+        private final String indexUserDescription;
+        private final FailedIndexProxyFactory failureDelegate;
+        private final IndexPopulator populator;
+        private final FlippableIndexProxy flipper;
+        private final CountDownLatch doneSignal = new CountDownLatch( 1 );
+
+        // NOTE: unbounded queue expected here
+        private final Queue<NodePropertyUpdate> queue = new ConcurrentLinkedQueue<>();
+
+        private volatile boolean cancelled;
+        private volatile Throwable failure;
+
+        // Only accessed by the scanning thread
+        private List<NodePropertyUpdate> batch = new ArrayList<>( BATCH_SIZE );
+        private Future<Void> pendingBatch;
+
+        private IndexPopulation( IndexDescriptor descriptor, SchemaIndexProvider.Descriptor providerDescriptor,
+                                 String indexUserDescription, FailedIndexProxyFactory failureDelegate,
+                                 IndexPopulator populator, FlippableIndexProxy flipper )
+        {
+            this.descriptor = descriptor;
+            this.providerDescriptor = providerDescriptor;
+            this.indexUserDescription = indexUserDescription;
+            this.failureDelegate = failureDelegate;
+            this.populator = populator;
+            this.flipper = flipper;
+        }
+
+        /**
+         * A transaction happened that produced the given updates. Let this population incorporate its data,
+         * feeding it to the {@link IndexPopulator}.
+         */
+        public void update( NodePropertyUpdate update )
+        {
+            queue.add( update );
+        }
+
+        public Future<Void> cancel()
+        {
+            cancelled = true;
+            stopScanIfAllCancelled();
+            return latchGuardedValue( NO_VALUE, doneSignal, "Index population job cancel" );
+        }
+
+        public void awaitCompletion() throws InterruptedException
+        {
+            doneSignal.await();
+        }
+
+        private boolean create()
+        {
+            try
+            {
+                log.info( format("Index population started: [%s]", indexUserDescription) );
+                log.flush();
+                populator.create();
+                return true;
+            }
+            catch ( Throwable t )
+            {
+                closeFailed( fail( t ) );
+                doneSignal.countDown();
+                return false;
+            }
+        }
+
+        private boolean accepts( NodePropertyUpdate update )
+        {
+            return !cancelled && failure == null && update.getPropertyKeyId() == descriptor.getPropertyKeyId() &&
+                   update.forLabel( descriptor.getLabelId() );
+        }
+
+        private void add( NodePropertyUpdate update )
+        {
+            batch.add( update );
+            if ( batch.size() >= BATCH_SIZE )
+            {
+                flush();
+            }
+        }
+
+        private void flush()
+        {
+            if ( batch.isEmpty() )
+            {
+                return;
+            }
+            // Wait for the previous batch, so that the populator sees the updates in store order
+            awaitPendingBatch();
+            final List<NodePropertyUpdate> updates = batch;
+            batch = new ArrayList<>( BATCH_SIZE );
+            if ( cancelled || failure != null )
+            {
+                return;
+            }
+            pendingBatch = workers.submit( new Callable<Void>()
+            {
+                @Override
+                public Void call() throws Exception
+                {
+                    for ( NodePropertyUpdate update : updates )
+                    {
+                        apply( update );
+                    }
+                    return null;
+                }
+            } );
+        }
+
+        private void awaitPendingBatch()
+        {
+            if ( pendingBatch != null )
+            {
+                try
+                {
+                    pendingBatch.get();
+                }
+                catch ( ExecutionException e )
+                {
+                    recordFailure( e.getCause() );
+                }
+                catch ( InterruptedException e )
+                {
+                    currentThread().interrupt();
+                    recordFailure( e );
+                }
+                pendingBatch = null;
+            }
+        }
+
+        private void apply( NodePropertyUpdate update ) throws IndexPopulationFailedKernelException
+        {
+            try
+            {
+                populator.add( update.getNodeId(), update.getValueAfter() );
+                populateFromQueueIfAvailable( update.getNodeId() );
+            }
+            catch ( IndexEntryConflictException | IOException conflict )
+            {
+                throw new IndexPopulationFailedKernelException( descriptor, indexUserDescription, conflict );
+            }
+        }
+
+        private void populateFromQueueIfAvailable( final long highestIndexedNodeId )
+                throws IndexEntryConflictException, IOException
+        {
+            if ( !queue.isEmpty() )
+            {
+                try ( IndexUpdater updater = populator.newPopulatingUpdater( storeView ) )
+                {
+                    for ( NodePropertyUpdate update : queue )
+                    {
+                        if ( update.getNodeId() <= highestIndexedNodeId )
+                        {
+                            updater.process( update );
+                        }
+                    }
+                }
+            }
+        }
+
+        private void recordFailure( Throwable t )
+        {
+            if ( failure == null )
+            {
+                failure = t;
+            }
+        }
+
+        private void complete()
+        {
+            boolean success = false;
+            Throwable failureCause = null;
+            try
+            {
+                try
+                {
+                    if ( cancelled )
+                    {
+                        // We remain in POPULATING state
+                        return;
+                    }
+                    if ( failure != null )
+                    {
+                        throw failure;
+                    }
+                    try
+                    {
+                        populator.verifyDeferredConstraints( storeView );
+                    }
+                    catch ( Exception conflict )
+                    {
+                        throw new IndexPopulationFailedKernelException( descriptor, indexUserDescription, conflict );
+                    }
+
+                    Callable<Void> duringFlip = new Callable<Void>()
+                    {
+                        @Override
+                        public Void call() throws Exception
+                        {
+                            populateFromQueueIfAvailable( Long.MAX_VALUE );
+                            populator.close( true );
+                            updateableSchemaState.clear();
+                            return null;
+                        }
+                    };
+
+                    flipper.flip( duringFlip, failureDelegate );
+                    success = true;
+                    log.info( format("Index population completed. Index is now online: [%s]", indexUserDescription) );
+                    log.flush();
+                }
+                catch ( Throwable t )
+                {
+                    failureCause = fail( t );
+                }
+                finally
+                {
+                    if ( !success )
+                    {
+                        closeFailed( failureCause );
+                    }
+                }
+            }
+            finally
+            {
+                doneSignal.countDown();
+            }
+        }
+
+        private Throwable fail( Throwable t )
+        {
+            // If the cause of index population failure is a conflict in a (unique) index, the conflict is the
+            // failure
+            if ( t instanceof IndexPopulationFailedKernelException )
+            {
+                Throwable cause = t.getCause();
+                if ( cause instanceof IndexEntryConflictException )
+                {
+                    t = cause;
+                }
+            }
+
+            // Index conflicts are expected (for unique indexes) so we don't need to log them.
+            if ( !(t instanceof IndexEntryConflictException) /*TODO: && this is a unique index...*/ )
+            {
+                log.error( format("Failed to populate index: [%s]", indexUserDescription), t );
+                log.flush();
+            }
+
+            // The flipper will have already flipped to a failed index context here, but
+            // it will not include the cause of failure, so we do another flip to a failed
+            // context that does.
+
+            // The reason for having the flipper transition to the failed index context in the first
+            // place is that we would otherwise introduce a race condition where updates could come
+            // in to the old context, if something failed in the job we send to the flipper.
+            flipper.flipTo( new FailedIndexProxy( descriptor, providerDescriptor, indexUserDescription,
+                                                  populator, failure( t ) ) );
+            return t;
+        }
+
+        private void closeFailed( Throwable failureCause )
+        {
+            try
+            {
+                if ( failureCause != null )
+                {
+                    populator.markAsFailed( failure( failureCause ).asString() );
+                }
+
+                populator.close( false );
+            }
+            catch ( Throwable e )
+            {
+                log.error( format("Unable to close failed populator for index: [%s]", indexUserDescription), e );
+                log.flush();
+            }
+        }
+
+        @Override
+        public String toString()
+        {
+            return IndexPopulationJob.class.getSimpleName() + "[populator:" + populator + ", descriptor:" +
+                   indexUserDescription + "]";
+        }
+    }
 }
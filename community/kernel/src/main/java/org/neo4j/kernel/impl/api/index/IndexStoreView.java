@@ -19,8 +19,11 @@
  */
 package org.neo4j.kernel.impl.api.index;
 
+import java.io.IOException;
+
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.NodePropertyUpdate;
 import org.neo4j.kernel.api.index.PropertyAccessor;
 import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
@@ -47,4 +50,16 @@ public interface IndexStoreView extends PropertyAccessor
             Visitor<NodeLabelUpdate, FAILURE> labelUpdateVisitor );
 
     Iterable<NodePropertyUpdate> nodeAsUpdates( long nodeId );
+
+    /**
+     * Keeps the given sample as the latest one of the index, to be read through the counts of the store.
+     */
+    void replaceIndexSample( IndexDescriptor descriptor, IndexSample sample );
+
+    void removeIndexSample( IndexDescriptor descriptor );
+
+    /**
+     * Makes the latest samples durable, so that they don't have to be taken again after a restart.
+     */
+    void writeIndexSamples() throws IOException;
 }
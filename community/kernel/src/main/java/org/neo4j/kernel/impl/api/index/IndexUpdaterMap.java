@@ -71,6 +71,15 @@ public class IndexUpdaterMap implements AutoCloseable, Iterable<IndexUpdater>
         return updater;
     }
 
+    /**
+     * @return the descriptors of the composite indexes in the index map, for which updates need to be converted
+     * with {@link CompositeIndexUpdates} before they are given to the updaters.
+     */
+    public Iterable<IndexDescriptor> compositeDescriptors()
+    {
+        return indexMap.compositeDescriptors();
+    }
+
     @Override
     public void close() throws UnderlyingStorageException
     {
@@ -0,0 +1,173 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index;
+
+import org.neo4j.helpers.Predicate;
+import org.neo4j.kernel.api.index.ArrayEncoder;
+import org.neo4j.kernel.api.index.IndexedNumbers;
+
+/**
+ * Predicates over property values that match the same values as the corresponding schema index queries, for
+ * filtering updates that are not in the index yet. Like the indexes, numbers are equal as doubles, but compared
+ * {@link IndexedNumbers exactly} in ranges, arrays by their {@link ArrayEncoder encoding}, and other values that are
+ * not booleans by their string form.
+ */
+public final class IndexValuePredicates
+{
+    private IndexValuePredicates()
+    {
+    }
+
+    public static Predicate<Object> equalTo( Object value )
+    {
+        final Object indexed = indexed( value );
+        return new Predicate<Object>()
+        {
+            @Override
+            public boolean accept( Object value )
+            {
+                return indexed.equals( indexed( value ) );
+            }
+        };
+    }
+
+    public static Predicate<Object> numberRange( final Number lower, final boolean includeLower,
+                                                 final Number upper, final boolean includeUpper )
+    {
+        return new Predicate<Object>()
+        {
+            @Override
+            public boolean accept( Object value )
+            {
+                if ( !(value instanceof Number) )
+                {
+                    return false;
+                }
+                Number number = (Number) value;
+                if ( lower != null )
+                {
+                    int comparison = IndexedNumbers.compare( number, lower );
+                    if ( comparison < 0 || (comparison == 0 && !includeLower) )
+                    {
+                        return false;
+                    }
+                }
+                if ( upper != null )
+                {
+                    int comparison = IndexedNumbers.compare( number, upper );
+                    if ( comparison > 0 || (comparison == 0 && !includeUpper) )
+                    {
+                        return false;
+                    }
+                }
+                return true;
+            }
+        };
+    }
+
+    public static Predicate<Object> stringRange( final String lower, final boolean includeLower,
+                                                 final String upper, final boolean includeUpper )
+    {
+        return new Predicate<Object>()
+        {
+            @Override
+            public boolean accept( Object value )
+            {
+                return value instanceof String && inRange( (String) value, lower, includeLower, upper, includeUpper );
+            }
+        };
+    }
+
+    public static Predicate<Object> prefix( final String prefix )
+    {
+        return new Predicate<Object>()
+        {
+            @Override
+            public boolean accept( Object value )
+            {
+                return value instanceof String && ((String) value).startsWith( prefix );
+            }
+        };
+    }
+
+    private static Object indexed( Object value )
+    {
+        if ( value instanceof Number )
+        {
+            return ((Number) value).doubleValue();
+        }
+        if ( value instanceof Boolean )
+        {
+            return value;
+        }
+        if ( value.getClass().isArray() )
+        {
+            return new ArrayValue( ArrayEncoder.encode( value ) );
+        }
+        return value.toString();
+    }
+
+    private static <T extends Comparable<T>> boolean inRange( T value, T lower, boolean includeLower,
+                                                              T upper, boolean includeUpper )
+    {
+        if ( lower != null )
+        {
+            int comparison = value.compareTo( lower );
+            if ( comparison < 0 || (comparison == 0 && !includeLower) )
+            {
+                return false;
+            }
+        }
+        if ( upper != null )
+        {
+            int comparison = value.compareTo( upper );
+            if ( comparison > 0 || (comparison == 0 && !includeUpper) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Keeps encoded arrays apart from strings that happen to look the same.
+     */
+    private static final class ArrayValue
+    {
+        private final String encoded;
+
+        ArrayValue( String encoded )
+        {
+            this.encoded = encoded;
+        }
+
+        @Override
+        public boolean equals( Object other )
+        {
+            return other instanceof ArrayValue && encoded.equals( ((ArrayValue) other).encoded );
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return encoded.hashCode();
+        }
+    }
+}
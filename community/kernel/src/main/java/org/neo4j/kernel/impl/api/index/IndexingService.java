@@ -25,8 +25,10 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
 import java.util.concurrent.Future;
 
 import org.neo4j.graphdb.ResourceIterator;
@@ -42,6 +44,8 @@ import org.neo4j.kernel.api.index.IndexConfiguration;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.api.index.IndexEntryConflictException;
 import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.index.NodePropertyUpdate;
@@ -56,11 +60,15 @@ import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 import org.neo4j.kernel.logging.Logging;
 
 import static java.lang.String.format;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.MINUTES;
 
 import static org.neo4j.helpers.Exceptions.launderedException;
 import static org.neo4j.helpers.collection.Iterables.concatResourceIterators;
 import static org.neo4j.kernel.impl.api.index.IndexPopulationFailure.failure;
+import static org.neo4j.kernel.impl.util.JobScheduler.Group.indexPopulation;
+import static org.neo4j.kernel.impl.util.JobScheduler.Group.indexSampling;
+import static org.neo4j.kernel.impl.util.JobScheduler.Group.indexUpdates;
 
 /**
  * Manages the indexes that were introduced in 2.0. These indexes depend on the normal neo4j logical log for
@@ -79,6 +87,11 @@ import static org.neo4j.kernel.impl.api.index.IndexPopulationFailure.failure;
  */
 public class IndexingService extends LifecycleAdapter
 {
+    /**
+     * How many entries of each index {@link #sampleIndexes() sampling} looks at, at least.
+     */
+    static final long SAMPLE_SIZE_LIMIT = 100_000;
+
     private final IndexMapReference indexMapReference = new IndexMapReference();
 
     private final JobScheduler scheduler;
@@ -91,6 +104,11 @@ public class IndexingService extends LifecycleAdapter
     private final UpdateableSchemaState updateableSchemaState;
     private final Set<Long> recoveredNodeIds = new HashSet<>();
     private final Monitor monitor;
+    private final long deferredUpdatesInterval;
+    private final Set<DeferredIndexProxy> deferredIndexes = new CopyOnWriteArraySet<>();
+    private JobScheduler.JobHandle deferredUpdatesJob;
+    private final long indexSamplingInterval;
+    private JobScheduler.JobHandle indexSamplingJob;
 
     enum State
     {
@@ -133,7 +151,8 @@ public class IndexingService extends LifecycleAdapter
                             TokenNameLookup tokenNameLookup,
                             UpdateableSchemaState updateableSchemaState,
                             Iterable<IndexRule> indexRules,
-                            Logging logging, Monitor monitor )
+                            Logging logging, Monitor monitor, long deferredUpdatesInterval,
+                            long indexSamplingInterval )
     {
         this.scheduler = scheduler;
         this.providerMap = providerMap;
@@ -141,6 +160,8 @@ public class IndexingService extends LifecycleAdapter
         this.indexRules = indexRules;
         this.logging = logging;
         this.monitor = monitor;
+        this.deferredUpdatesInterval = deferredUpdatesInterval;
+        this.indexSamplingInterval = indexSamplingInterval;
         this.logger = logging.getMessagesLog( getClass() );
         this.updateableSchemaState = updateableSchemaState;
         this.tokenNameLookup = tokenNameLookup;
@@ -240,7 +261,8 @@ public class IndexingService extends LifecycleAdapter
         // Drop placeholder proxies for indexes that need to be rebuilt
         dropRecoveringIndexes( indexMap, rebuildingDescriptors );
 
-        // Rebuild indexes by recreating and repopulating them
+        // Rebuild indexes by recreating and repopulating them, with a single store scan where possible
+        List<IndexPopulationJob> populationJobs = newPopulationJobs();
         for ( Map.Entry<Long, Pair<IndexDescriptor, SchemaIndexProvider.Descriptor>> entry :
                 rebuildingDescriptors.entrySet() )
         {
@@ -255,19 +277,54 @@ public class IndexingService extends LifecycleAdapter
              * be in a state where they didn't finish populating, and despite the fact that we re-create them here,
              * they will get dropped as soon as recovery is completed by the constraint system.
              */
-            IndexProxy indexProxy =
-                createAndStartPopulatingIndexProxy( indexId, indexDescriptor, providerDescriptor, false );
+            IndexProxy indexProxy = createAndStartPopulatingIndexProxy(
+                    populationJobFor( indexDescriptor, populationJobs ), indexId, indexDescriptor,
+                    providerDescriptor, false );
             indexMap.putIndexProxy( indexId, indexProxy );
         }
 
         indexMapReference.setIndexMap( indexMap );
         state = State.RUNNING;
+        startPopulationJobs( populationJobs );
+
+        if ( deferredUpdatesInterval > 0 )
+        {
+            deferredUpdatesJob = scheduler.scheduleRecurring( indexUpdates, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    applyDeferredUpdates();
+                }
+            }, deferredUpdatesInterval, MILLISECONDS );
+        }
+        if ( indexSamplingInterval > 0 )
+        {
+            indexSamplingJob = scheduler.scheduleRecurring( indexSampling, new Runnable()
+            {
+                @Override
+                public void run()
+                {
+                    sampleIndexes();
+                }
+            }, indexSamplingInterval, indexSamplingInterval, MILLISECONDS );
+        }
     }
 
     @Override
     public void stop()
     {
         state = State.STOPPED;
+        if ( deferredUpdatesJob != null )
+        {
+            deferredUpdatesJob.cancel( false );
+            deferredUpdatesJob = null;
+        }
+        if ( indexSamplingJob != null )
+        {
+            indexSamplingJob.cancel( false );
+            indexSamplingJob = null;
+        }
         closeAllIndexes();
     }
 
@@ -281,45 +338,112 @@ public class IndexingService extends LifecycleAdapter
         return indexProxy;
     }
 
+    /**
+     * Whether the provider of the given index {@link SchemaIndexProvider#seeksInOrder() seeks in order}, and the
+     * updates of the index are not deferred. Deferred updates are merged into the results out of order.
+     */
+    public boolean seeksInOrder( long indexId ) throws IndexNotFoundKernelException
+    {
+        IndexProxy index = getProxyForRule( indexId );
+        for ( DeferredIndexProxy deferredIndex : deferredIndexes )
+        {
+            if ( deferredIndex.getDescriptor().equals( index.getDescriptor() ) )
+            {
+                return false;
+            }
+        }
+        return providerMap.apply( index.getProviderDescriptor() ).seeksInOrder();
+    }
+
+    /**
+     * Has the provider of the given index {@link SchemaIndexProvider#validateValue(Object) validate} a value that a
+     * transaction is about to index.
+     */
+    public void validateValue( long indexId, Object value ) throws IndexNotFoundKernelException
+    {
+        IndexProxy index = getProxyForRule( indexId );
+        providerMap.apply( index.getProviderDescriptor() ).validateValue( value );
+    }
+
     /*
-     * Creates an index.
+     * Creates indexes. Indexes created together, typically in the same transaction, are populated by a single
+     * store scan.
      *
      * This code is called from the transaction infrastructure during transaction commits, which means that
      * it is *vital* that it is stable, and handles errors very well. Failing here means that the entire db
      * will shut down.
      */
-    public void createIndex( IndexRule rule )
+    public void createIndexes( IndexRule... rules )
     {
         IndexMap indexMap = indexMapReference.getIndexMapCopy();
+        List<IndexPopulationJob> populationJobs = newPopulationJobs();
 
-        long ruleId = rule.getId();
-        IndexProxy index = indexMap.getIndexProxy( ruleId );
-        if (index != null)
-        {
-            // We already have this index
-            return;
-        }
-        final IndexDescriptor descriptor = createDescriptor( rule );
-        SchemaIndexProvider.Descriptor providerDescriptor = rule.getProviderDescriptor();
-        boolean constraint = rule.isConstraintIndex();
-        if ( state == State.RUNNING )
+        for ( IndexRule rule : rules )
         {
-            try
+            long ruleId = rule.getId();
+            IndexProxy index = indexMap.getIndexProxy( ruleId );
+            if (index != null)
             {
-                index = createAndStartPopulatingIndexProxy( ruleId, descriptor, providerDescriptor, constraint );
+                // We already have this index
+                continue;
             }
-            catch ( IOException e )
+            final IndexDescriptor descriptor = createDescriptor( rule );
+            SchemaIndexProvider.Descriptor providerDescriptor = rule.getProviderDescriptor();
+            boolean constraint = rule.isConstraintIndex();
+            if ( state == State.RUNNING )
             {
-                throw new RuntimeException( e );
+                try
+                {
+                    index = createAndStartPopulatingIndexProxy( populationJobFor( descriptor, populationJobs ),
+                            ruleId, descriptor, providerDescriptor, constraint );
+                }
+                catch ( IOException e )
+                {
+                    throw new RuntimeException( e );
+                }
             }
+            else
+            {
+                index = createAndStartRecoveringIndexProxy( descriptor, providerDescriptor );
+            }
+
+            indexMap.putIndexProxy( rule.getId(), index );
         }
-        else
+
+        indexMapReference.setIndexMap( indexMap );
+        startPopulationJobs( populationJobs );
+    }
+
+    /**
+     * The first job is shared by all plain indexes, composite indexes get a job each.
+     */
+    private List<IndexPopulationJob> newPopulationJobs()
+    {
+        List<IndexPopulationJob> populationJobs = new ArrayList<>();
+        populationJobs.add( new IndexPopulationJob( storeView, updateableSchemaState, logging ) );
+        return populationJobs;
+    }
+
+    private IndexPopulationJob populationJobFor( IndexDescriptor descriptor, List<IndexPopulationJob> populationJobs )
+    {
+        if ( descriptor.isComposite() )
         {
-            index = createAndStartRecoveringIndexProxy( descriptor, providerDescriptor );
+            IndexPopulationJob populationJob = new IndexPopulationJob( storeView, updateableSchemaState, logging );
+            populationJobs.add( populationJob );
+            return populationJob;
         }
+        return populationJobs.get( 0 );
+    }
 
-        indexMap.putIndexProxy( rule.getId(), index );
-        indexMapReference.setIndexMap( indexMap );
+    private void startPopulationJobs( List<IndexPopulationJob> populationJobs )
+    {
+        for ( IndexPopulationJob populationJob : populationJobs )
+        {
+            if ( populationJob.hasPopulations() )
+            {
+                scheduler.schedule( indexPopulation, populationJob );
+            }
+        }
     }
 
     private String indexUserDescription( final IndexDescriptor descriptor,
@@ -430,12 +554,90 @@ public class IndexingService extends LifecycleAdapter
                 break;
             }
         }
+
+        for ( IndexDescriptor descriptor : updaterMap.compositeDescriptors() )
+        {
+            for ( NodePropertyUpdate update : new CompositeIndexUpdates( descriptor ).convert( updates, storeView ) )
+            {
+                processUpdate( updaterMap, update, descriptor );
+            }
+        }
+    }
+
+    private void applyDeferredUpdates()
+    {
+        for ( DeferredIndexProxy index : deferredIndexes )
+        {
+            try
+            {
+                index.applyQueuedUpdates();
+            }
+            catch ( IOException | UnderlyingStorageException e )
+            {
+                logger.error( "Unable to apply deferred updates to " + index, e );
+            }
+        }
+    }
+
+    /**
+     * Samples all online indexes, and keeps the samples in the store for the cost based planner to read.
+     */
+    public void sampleIndexes()
+    {
+        for ( IndexProxy index : indexMapReference.getAllIndexProxies() )
+        {
+            if ( index.getState() != InternalIndexState.ONLINE )
+            {
+                continue;
+            }
+            IndexSample sample;
+            try ( IndexReader reader = index.newReader() )
+            {
+                sample = reader.sampleIndex( SAMPLE_SIZE_LIMIT );
+            }
+            catch ( IndexNotFoundKernelException | RuntimeException e )
+            {
+                if ( isActive( index ) )
+                {
+                    logger.warn( "Unable to sample " + index, e );
+                }
+                continue;
+            }
+            if ( isActive( index ) )
+            {   // otherwise it was dropped while we sampled it
+                storeView.replaceIndexSample( index.getDescriptor(), sample );
+            }
+        }
+        try
+        {
+            storeView.writeIndexSamples();
+        }
+        catch ( IOException e )
+        {   // They'll be written at the next rotation of the counts instead
+            logger.warn( "Unable to write index samples", e );
+        }
+    }
+
+    private boolean isActive( IndexProxy index )
+    {
+        for ( IndexProxy activeIndex : indexMapReference.getAllIndexProxies() )
+        {
+            if ( activeIndex == index )
+            {
+                return true;
+            }
+        }
+        return false;
     }
 
     private void processUpdateIfIndexExists( IndexUpdaterMap updaterMap, NodePropertyUpdate update,
                                              int propertyKeyId, int labelId )
     {
-        IndexDescriptor descriptor = new IndexDescriptor( labelId, propertyKeyId );
+        processUpdate( updaterMap, update, new IndexDescriptor( labelId, propertyKeyId ) );
+    }
+
+    private void processUpdate( IndexUpdaterMap updaterMap, NodePropertyUpdate update, IndexDescriptor descriptor )
+    {
         try
         {
             IndexUpdater updater = updaterMap.getUpdater( descriptor );
@@ -461,6 +663,7 @@ public class IndexingService extends LifecycleAdapter
             {
                 Future<Void> dropFuture = index.drop();
                 awaitIndexFuture( dropFuture );
+                storeView.removeIndexSample( index.getDescriptor() );
             }
             catch ( Exception e )
             {
@@ -469,7 +672,8 @@ public class IndexingService extends LifecycleAdapter
         }
     }
 
-    private IndexProxy createAndStartPopulatingIndexProxy( final long ruleId,
+    private IndexProxy createAndStartPopulatingIndexProxy( IndexPopulationJob populationJob,
+                                                           final long ruleId,
                                                            final IndexDescriptor descriptor,
                                                            final SchemaIndexProvider.Descriptor providerDescriptor,
                                                            final boolean constraint ) throws IOException
@@ -484,10 +688,9 @@ public class IndexingService extends LifecycleAdapter
         FailedIndexProxyFactory failureDelegateFactory =
             new FailedPopulatingIndexProxyFactory( descriptor, providerDescriptor, populator, indexUserDescription );
 
-        PopulatingIndexProxy populatingIndex =
-            new PopulatingIndexProxy( scheduler, descriptor, providerDescriptor,
-                    failureDelegateFactory, populator, flipper, storeView,
-                indexUserDescription, updateableSchemaState, logging );
+        PopulatingIndexProxy populatingIndex = new PopulatingIndexProxy( descriptor, providerDescriptor,
+                populationJob.addPopulation( descriptor, providerDescriptor, indexUserDescription,
+                        failureDelegateFactory, populator, flipper ) );
         flipper.flipTo( populatingIndex );
 
         // Prepare for flipping to online mode
@@ -506,7 +709,7 @@ public class IndexingService extends LifecycleAdapter
                     {
                         return new TentativeConstraintIndexProxy( flipper, onlineProxy );
                     }
-                    return onlineProxy;
+                    return deferredIfEnabled( onlineProxy );
                 }
                 catch ( IOException e )
                 {
@@ -532,6 +735,10 @@ public class IndexingService extends LifecycleAdapter
             IndexAccessor onlineAccessor = getOnlineAccessorFromProvider( providerDescriptor, ruleId,
                                                                           new IndexConfiguration( unique ) );
             IndexProxy result = new OnlineIndexProxy( descriptor, providerDescriptor, onlineAccessor );
+            if ( !unique )
+            {
+                result = deferredIfEnabled( result );
+            }
             result = contractCheckedProxy( result, true );
             return result;
         }
@@ -579,6 +786,11 @@ public class IndexingService extends LifecycleAdapter
         return indexProvider.getOnlineAccessor( ruleId, config );
     }
 
+    private IndexProxy deferredIfEnabled( IndexProxy onlineProxy )
+    {
+        return deferredUpdatesInterval > 0 ? new DeferredIndexProxy( onlineProxy, deferredIndexes ) : onlineProxy;
+    }
+
     private IndexProxy contractCheckedProxy( IndexProxy result, boolean started )
     {
         result = new ContractCheckingIndexProxy( result, started );
@@ -587,7 +799,7 @@ public class IndexingService extends LifecycleAdapter
 
     private IndexDescriptor createDescriptor( IndexRule rule )
     {
-        return new IndexDescriptor( rule.getLabel(), rule.getPropertyKey() );
+        return new IndexDescriptor( rule.getLabel(), rule.getPropertyKeys() );
     }
 
     private void awaitIndexFuture( Future<Void> future ) throws Exception
@@ -28,6 +28,7 @@ import org.neo4j.kernel.api.exceptions.index.IndexNotFoundKernelException;
 import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.impl.store.SchemaStorage;
 
 public interface SchemaReadOperations
@@ -67,6 +68,14 @@ public interface SchemaReadOperations
      */
     String indexGetFailure( Statement state, IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
 
+    /**
+     * Whether range seeks in the given index return nodes in the order of their property values.
+     */
+    boolean indexSeeksInOrder( KernelStatement state, IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
+
+    /** @see org.neo4j.kernel.api.SchemaRead#indexSample(IndexDescriptor) */
+    IndexSample indexSample( KernelStatement state, IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
+
     /**
      * Get all constraints applicable to label and propertyKey. There are only {@link UniquenessConstraint}
      * for the time being.
@@ -38,6 +38,13 @@ public interface SchemaWriteOperations
     IndexDescriptor indexCreate( KernelStatement state, int labelId, int propertyKeyId )
             throws AddIndexFailureException, AlreadyIndexedException, AlreadyConstrainedException;
 
+    /**
+     * Creates an index, indexing the tuple of values of the given {@code propertyKeyIds}, in order, for nodes with
+     * the given {@code labelId}. More than one property key gives a composite index.
+     */
+    IndexDescriptor indexCreate( KernelStatement state, int labelId, int[] propertyKeyIds )
+            throws AddIndexFailureException, AlreadyIndexedException, AlreadyConstrainedException;
+
     /** Drops a {@link IndexDescriptor} from the database */
     void indexDrop( KernelStatement state, IndexDescriptor descriptor ) throws DropIndexFailureException;
 
@@ -30,7 +30,11 @@ import org.neo4j.collection.primitive.Primitive;
 import org.neo4j.collection.primitive.PrimitiveIntCollections;
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveIntObjectMap;
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.function.primitive.FunctionFromPrimitiveLong;
 import org.neo4j.graphdb.Direction;
 import org.neo4j.helpers.Function;
 import org.neo4j.helpers.Predicate;
@@ -89,9 +93,15 @@ public final class TxStateImpl implements TxState
         }
     };
 
-    private Map<Long/*Node ID*/, NodeState> nodeStatesMap;
-    private Map<Long/*Relationship ID*/, RelationshipState> relationshipStatesMap;
-    private Map<Long/*Label ID*/, LabelState> labelStatesMap;
+    /**
+     * The largest number of entity states kept in a map across {@link #clear()}, which is enough for transactions
+     * touching around a hundred thousand entities to re-use their maps.
+     */
+    private static final int MAX_RETAINED_STATES = 1 << 17;
+
+    private PrimitiveLongObjectMap<NodeState> nodeStatesMap;
+    private PrimitiveLongObjectMap<RelationshipState> relationshipStatesMap;
+    private PrimitiveLongObjectMap<LabelState> labelStatesMap;
 
     private Map<Integer/*Token ID*/,String> createdLabelTokens;
     private Map<Integer/*Token ID*/,String> createdPropertyKeyTokens;
@@ -113,8 +123,8 @@ public final class TxStateImpl implements TxState
     // This is temporary. It is needed until we've removed nodes and rels from the global cache, to tell
     // that they were created and then deleted in the same tx. This is here just to set a save point to
     // get a large set of changes in, and is meant to be removed in the coming days in a follow-up commit.
-    private final Set<Long> nodesCreatedAndDeletedInTx = new HashSet<>();
-    private final Set<Long> relsCreatedAndDeletedInTx = new HashSet<>();
+    private final PrimitiveLongSet nodesCreatedAndDeletedInTx = Primitive.longSet();
+    private final PrimitiveLongSet relsCreatedAndDeletedInTx = Primitive.longSet();
 
     private Map<UniquenessConstraint, Long> createdConstraintIndexesByConstraint;
 
@@ -125,6 +135,7 @@ public final class TxStateImpl implements TxState
     private Map<String, LegacyIndex> nodeLegacyIndexChanges;
     private Map<String, LegacyIndex> relationshipLegacyIndexChanges;
     private PrimitiveIntObjectMap<Map<DefinedProperty, DiffSets<Long>>> indexUpdates;
+    private Map<IndexDescriptor, Map<String, DiffSets<Long>>> compositeIndexUpdates;
 
     private boolean hasChanges;
 
@@ -133,6 +144,49 @@ public final class TxStateImpl implements TxState
         this.legacyChangesIndexProvider = legacyChangesIndexProvider;
     }
 
+    /**
+     * Forget all changes, so that this instance can be used as the state of another transaction. The entity state
+     * maps are kept for re-use, unless they grew larger than {@link #MAX_RETAINED_STATES}, in order to not have a
+     * pooled transaction hold on to the memory of the largest transaction it ever saw.
+     */
+    public void clear()
+    {
+        nodeStatesMap = cleared( nodeStatesMap );
+        relationshipStatesMap = cleared( relationshipStatesMap );
+        labelStatesMap = cleared( labelStatesMap );
+        nodesCreatedAndDeletedInTx.clear();
+        relsCreatedAndDeletedInTx.clear();
+
+        createdLabelTokens = null;
+        createdPropertyKeyTokens = null;
+        createdRelationshipTypeTokens = null;
+        graphState = null;
+        indexChanges = null;
+        constraintIndexChanges = null;
+        constraintsChanges = null;
+        propertyChangesForNodes = null;
+        nodes = null;
+        relationships = null;
+        createdConstraintIndexesByConstraint = null;
+        createdNodeLegacyIndexes = null;
+        createdRelationshipLegacyIndexes = null;
+        nodeLegacyIndexChanges = null;
+        relationshipLegacyIndexChanges = null;
+        indexUpdates = null;
+        compositeIndexUpdates = null;
+        hasChanges = false;
+    }
+
+    private static <STATE> PrimitiveLongObjectMap<STATE> cleared( PrimitiveLongObjectMap<STATE> states )
+    {
+        if ( states == null || states.size() > MAX_RETAINED_STATES )
+        {
+            return null;
+        }
+        states.clear();
+        return states;
+    }
+
     @Override
     public void accept( final Visitor visitor )
     {
@@ -363,7 +417,7 @@ public final class TxStateImpl implements TxState
     @Override
     public Iterable<NodeState> modifiedNodes()
     {
-        return hasNodeStatesMap() ? nodeStatesMap().values() : Iterables.<NodeState>empty();
+        return hasNodeStatesMap() ? values( nodeStatesMap ) : Iterables.<NodeState>empty();
     }
 
     @Override
@@ -936,7 +990,7 @@ public final class TxStateImpl implements TxState
     @Override
     public Iterable<RelationshipState> modifiedRelationships()
     {
-        return relationshipStatesMap != null ? relationshipStatesMap.values() : Iterables.<RelationshipState>empty();
+        return relationshipStatesMap != null ? values( relationshipStatesMap ) : Iterables.<RelationshipState>empty();
     }
 
     private boolean hasDeletedRelationshipsDiffSets()
@@ -968,12 +1022,31 @@ public final class TxStateImpl implements TxState
         return graphState;
     }
 
+    private static <STATE> Iterable<STATE> values( final PrimitiveLongObjectMap<STATE> states )
+    {
+        return new Iterable<STATE>()
+        {
+            @Override
+            public Iterator<STATE> iterator()
+            {
+                return PrimitiveLongCollections.map( new FunctionFromPrimitiveLong<STATE>()
+                {
+                    @Override
+                    public STATE apply( long id )
+                    {
+                        return states.get( id );
+                    }
+                }, states.iterator() );
+            }
+        };
+    }
+
     private interface StateCreator<STATE>
     {
         STATE newState( long id );
     }
 
-    private <STATE> STATE getState( Map<Long, STATE> states, long id, StateCreator<STATE> creator )
+    private <STATE> STATE getState( PrimitiveLongObjectMap<STATE> states, long id, StateCreator<STATE> creator )
     {
         STATE result = states.get( id );
         if ( result != null )
@@ -1102,47 +1175,122 @@ public final class TxStateImpl implements TxState
         return diffs == null ? DiffSets.<Long>emptyDiffSets() : diffs;
     }
 
+    @Override
+    public DiffSets<Long> indexUpdatesForRangeSeek( IndexDescriptor descriptor, Predicate<Object> valueFilter )
+    {
+        Map<DefinedProperty, DiffSets<Long>> updates =
+                indexUpdates == null ? null : indexUpdates.get( descriptor.getLabelId() );
+        if ( updates == null )
+        {
+            return DiffSets.emptyDiffSets();
+        }
+        Set<Long> added = new HashSet<>();
+        Set<Long> removed = new HashSet<>();
+        for ( Map.Entry<DefinedProperty, DiffSets<Long>> entry : updates.entrySet() )
+        {
+            DefinedProperty property = entry.getKey();
+            if ( property.propertyKeyId() == descriptor.getPropertyKeyId() && valueFilter.accept( property.value() ) )
+            {
+                added.addAll( entry.getValue().getAdded() );
+                removed.addAll( entry.getValue().getRemoved() );
+            }
+        }
+        // A node that moved between two values in the range is still in the range
+        removed.removeAll( added );
+        return new DiffSets<>( added, removed );
+    }
+
     @Override
     public void indexUpdateProperty( IndexDescriptor descriptor, long nodeId, DefinedProperty propertyBefore, DefinedProperty propertyAfter )
     {
+        indexRemoveNode( getIndexUpdates( descriptor.getLabelId(), true, propertyBefore ), nodeId );
+        indexAddNode( getIndexUpdates( descriptor.getLabelId(), true, propertyAfter ), nodeId );
+    }
+
+    @Override
+    public DiffSets<Long> compositeIndexUpdates( IndexDescriptor index, String compositeValue )
+    {
+        DiffSets<Long> diffs = getCompositeIndexUpdates( index, false, compositeValue );
+        return diffs == null ? DiffSets.<Long>emptyDiffSets() : diffs;
+    }
+
+    @Override
+    public void compositeIndexUpdate( IndexDescriptor index, long nodeId, String compositeValueBefore,
+                                      String compositeValueAfter )
+    {
+        indexRemoveNode( getCompositeIndexUpdates( index, true, compositeValueBefore ), nodeId );
+        indexAddNode( getCompositeIndexUpdates( index, true, compositeValueAfter ), nodeId );
+    }
+
+    private void indexRemoveNode( DiffSets<Long> before, long nodeId )
+    {
+        if ( before != null )
         {
-            DiffSets<Long> before = getIndexUpdates( descriptor.getLabelId(), true, propertyBefore );
-            if ( before != null )
+            before.remove( nodeId );
+            //if ( hasNodesAddedOrRemoved() && addedAndRemovedNodes().getAdded().contains( nodeId ) )
             {
-                before.remove( nodeId );
-                //if ( hasNodesAddedOrRemoved() && addedAndRemovedNodes().getAdded().contains( nodeId ) )
+                if ( before.getRemoved().contains( nodeId ) )
                 {
-                    if ( before.getRemoved().contains( nodeId ) )
-                    {
-                        getOrCreateNodeState( nodeId ).addIndexDiff( before );
-                    }
-                    else
-                    {
-                        getOrCreateNodeState( nodeId ).removeIndexDiff( before );
-                    }
+                    getOrCreateNodeState( nodeId ).addIndexDiff( before );
+                }
+                else
+                {
+                    getOrCreateNodeState( nodeId ).removeIndexDiff( before );
                 }
             }
         }
+    }
+
+    private void indexAddNode( DiffSets<Long> after, long nodeId )
+    {
+        if ( after != null )
         {
-            DiffSets<Long> after = getIndexUpdates( descriptor.getLabelId(), true, propertyAfter );
-            if ( after != null )
+            after.add( nodeId );
+            //if ( hasNodesAddedOrRemoved() && addedAndRemovedNodes().getAdded().contains( nodeId ) )
             {
-                after.add( nodeId );
-                //if ( hasNodesAddedOrRemoved() && addedAndRemovedNodes().getAdded().contains( nodeId ) )
+                if ( after.getAdded().contains( nodeId ) )
                 {
-                    if ( after.getAdded().contains( nodeId ) )
-                    {
-                        getOrCreateNodeState( nodeId ).addIndexDiff( after );
-                    }
-                    else
-                    {
-                        getOrCreateNodeState( nodeId ).removeIndexDiff( after );
-                    }
+                    getOrCreateNodeState( nodeId ).addIndexDiff( after );
+                }
+                else
+                {
+                    getOrCreateNodeState( nodeId ).removeIndexDiff( after );
                 }
             }
         }
     }
 
+    private DiffSets<Long> getCompositeIndexUpdates( IndexDescriptor index, boolean create, String compositeValue )
+    {
+        if ( compositeValue == null )
+        {
+            return null;
+        }
+        if ( compositeIndexUpdates == null )
+        {
+            if ( !create )
+            {
+                return null;
+            }
+            compositeIndexUpdates = new HashMap<>();
+        }
+        Map<String, DiffSets<Long>> updates = compositeIndexUpdates.get( index );
+        if ( updates == null )
+        {
+            if ( !create )
+            {
+                return null;
+            }
+            compositeIndexUpdates.put( index, updates = new HashMap<>() );
+        }
+        DiffSets<Long> diffs = updates.get( compositeValue );
+        if ( diffs == null && create )
+        {
+            updates.put( compositeValue, diffs = new DiffSets<>() );
+        }
+        return diffs;
+    }
+
     private DiffSets<Long> getIndexUpdates( int label, boolean create, DefinedProperty property )
     {
         if ( property == null )
@@ -1193,11 +1341,11 @@ public final class TxStateImpl implements TxState
         return hasNodeStatesMap() && nodeStatesMap().containsKey( nodeId );
     }
 
-    private Map<Long, NodeState> nodeStatesMap()
+    private PrimitiveLongObjectMap<NodeState> nodeStatesMap()
     {
         if ( !hasNodeStatesMap() )
         {
-            nodeStatesMap = new HashMap<>();
+            nodeStatesMap = Primitive.longObjectMap();
         }
         return nodeStatesMap;
     }
@@ -1207,11 +1355,11 @@ public final class TxStateImpl implements TxState
         return null != nodeStatesMap;
     }
 
-    private Map<Long, RelationshipState> relationshipStatesMap()
+    private PrimitiveLongObjectMap<RelationshipState> relationshipStatesMap()
     {
         if ( !hasRelationshipsStatesMap() )
         {
-            relationshipStatesMap = new HashMap<>();
+            relationshipStatesMap = Primitive.longObjectMap();
         }
         return relationshipStatesMap;
     }
@@ -1221,11 +1369,11 @@ public final class TxStateImpl implements TxState
         return null != relationshipStatesMap;
     }
 
-    private Map<Long, LabelState> labelStatesMap()
+    private PrimitiveLongObjectMap<LabelState> labelStatesMap()
     {
         if ( !hasLabelStatesMap() )
         {
-            labelStatesMap = new HashMap<>();
+            labelStatesMap = Primitive.longObjectMap();
         }
         return labelStatesMap;
     }
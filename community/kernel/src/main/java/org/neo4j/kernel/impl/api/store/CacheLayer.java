@@ -38,7 +38,10 @@
  */
 package org.neo4j.kernel.impl.api.store;
 
+import java.util.Arrays;
+import java.util.EnumSet;
 import java.util.Iterator;
+import java.util.Set;
 
 import org.neo4j.collection.primitive.PrimitiveIntIterator;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
@@ -56,6 +59,7 @@ import org.neo4j.kernel.api.exceptions.schema.IndexBrokenKernelException;
 import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException;
 import org.neo4j.kernel.api.exceptions.schema.TooManyLabelsException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.properties.DefinedProperty;
 import org.neo4j.kernel.api.properties.Property;
@@ -95,7 +99,7 @@ public class CacheLayer implements StoreReadLayer
         {
             IndexRule rule = (IndexRule) from;
             // We know that we only have int range of property key ids.
-            return new IndexDescriptor( rule.getLabel(), rule.getPropertyKey() );
+            return new IndexDescriptor( rule.getLabel(), rule.getPropertyKeys() );
         }
     };
 
@@ -173,13 +177,15 @@ public class CacheLayer implements StoreReadLayer
     @Override
     public Iterator<IndexDescriptor> indexesGetForLabel( int labelId )
     {
-        return toIndexDescriptors( schemaCache.schemaRulesForLabel( labelId ), SchemaRule.Kind.INDEX_RULE );
+        return toIndexDescriptors( schemaCache.schemaRulesForLabel( labelId ), SchemaRule.Kind.INDEX_RULE,
+                SchemaRule.Kind.COMPOSITE_INDEX_RULE );
     }
 
     @Override
     public Iterator<IndexDescriptor> indexesGetAll()
     {
-        return toIndexDescriptors( schemaCache.schemaRules(), SchemaRule.Kind.INDEX_RULE );
+        return toIndexDescriptors( schemaCache.schemaRules(), SchemaRule.Kind.INDEX_RULE,
+                SchemaRule.Kind.COMPOSITE_INDEX_RULE );
     }
 
     @Override
@@ -196,14 +202,15 @@ public class CacheLayer implements StoreReadLayer
     }
 
     private static Iterator<IndexDescriptor> toIndexDescriptors( Iterable<SchemaRule> rules,
-                                                                 final SchemaRule.Kind kind )
+                                                                 SchemaRule.Kind kind, SchemaRule.Kind... moreKinds )
     {
+        final Set<SchemaRule.Kind> kinds = EnumSet.of( kind, moreKinds );
         Iterator<SchemaRule> filteredRules = filter( new Predicate<SchemaRule>()
         {
             @Override
             public boolean accept( SchemaRule item )
             {
-                return item.getKind() == kind;
+                return kinds.contains( item.getKind() );
             }
         }, rules.iterator() );
         return map( TO_INDEX_RULE, filteredRules );
@@ -241,7 +248,8 @@ public class CacheLayer implements StoreReadLayer
             if ( rule instanceof IndexRule )
             {
                 IndexRule indexRule = (IndexRule) rule;
-                if ( kind.isOfKind( indexRule ) && indexRule.getPropertyKey() == index.getPropertyKeyId() )
+                if ( kind.isOfKind( indexRule ) &&
+                     Arrays.equals( indexRule.getPropertyKeys(), index.getPropertyKeyIds() ) )
                 {
                     return indexRule;
                 }
@@ -349,6 +357,36 @@ public class CacheLayer implements StoreReadLayer
         return diskLayer.nodesGetFromIndexLookup( state, schemaCache.indexId( index ), value );
     }
 
+    @Override
+    public PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByNumber( KernelStatement state,
+                                                                             IndexDescriptor index,
+                                                                             Number lower, boolean includeLower,
+                                                                             Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        return diskLayer.nodesGetFromIndexRangeSeekByNumber( state, schemaCache.indexId( index ),
+                lower, includeLower, upper, includeUpper );
+    }
+
+    @Override
+    public PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByString( KernelStatement state,
+                                                                             IndexDescriptor index,
+                                                                             String lower, boolean includeLower,
+                                                                             String upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        return diskLayer.nodesGetFromIndexRangeSeekByString( state, schemaCache.indexId( index ),
+                lower, includeLower, upper, includeUpper );
+    }
+
+    @Override
+    public PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state,
+                                                                             IndexDescriptor index, String prefix )
+            throws IndexNotFoundKernelException
+    {
+        return diskLayer.nodesGetFromIndexRangeSeekByPrefix( state, schemaCache.indexId( index ), prefix );
+    }
+
     @Override
     public IndexDescriptor indexesGetForLabelAndPropertyKey( int labelId, int propertyKey )
     {
@@ -368,6 +406,24 @@ public class CacheLayer implements StoreReadLayer
         return diskLayer.indexGetFailure( descriptor );
     }
 
+    @Override
+    public boolean indexSeeksInOrder( IndexDescriptor descriptor ) throws IndexNotFoundKernelException
+    {
+        return indexingService.seeksInOrder( schemaCache.indexId( descriptor ) );
+    }
+
+    @Override
+    public void indexValidateValue( IndexDescriptor descriptor, Object value ) throws IndexNotFoundKernelException
+    {
+        indexingService.validateValue( schemaCache.indexId( descriptor ), value );
+    }
+
+    @Override
+    public IndexSample indexSample( IndexDescriptor descriptor ) throws IndexNotFoundKernelException
+    {
+        return diskLayer.indexSample( descriptor );
+    }
+
     @Override
     public int labelGetForName( String labelName )
     {
@@ -48,6 +48,7 @@ import org.neo4j.kernel.api.exceptions.schema.IndexBrokenKernelException;
 import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException;
 import org.neo4j.kernel.api.exceptions.schema.TooManyLabelsException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.IndexReader;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.properties.DefinedProperty;
@@ -105,6 +106,12 @@ public class DiskLayer implements StoreReadLayer
         }
     };
 
+    /**
+     * The fraction of all nodes that a label must have, according to the counts store, for
+     * {@link #nodesGetForLabel(KernelStatement, int)} to scan the node store instead of the label scan store.
+     */
+    static final double NODE_STORE_SCAN_LABEL_FRACTION = 0.5;
+
     // These token holders should perhaps move to the cache layer.. not really any reason to have them here?
     private final PropertyKeyTokenHolder propertyKeyTokenHolder;
     private final LabelTokenHolder labelTokenHolder;
@@ -292,9 +299,21 @@ public class DiskLayer implements StoreReadLayer
     @Override
     public PrimitiveLongIterator nodesGetForLabel( KernelStatement state, int labelId )
     {
+        if ( mostNodesHave( labelId ) )
+        {
+            // Reading all node records in order is then cheaper than reading the label scan store, and then
+            // reading the records of almost all nodes anyway, one at the time
+            return nodeStore.scanForLabel( labelId );
+        }
         return state.getLabelScanReader().nodesWithLabel( labelId );
     }
 
+    private boolean mostNodesHave( int labelId )
+    {
+        long nodes = counts.countsForNode( ANY_LABEL );
+        return nodes > 0 && counts.countsForNode( labelId ) >= nodes * NODE_STORE_SCAN_LABEL_FRACTION;
+    }
+
     @Override
     public PrimitiveLongResourceIterator nodesGetFromIndexLookup( KernelStatement state, IndexDescriptor index, Object value
     ) throws IndexNotFoundKernelException
@@ -302,6 +321,34 @@ public class DiskLayer implements StoreReadLayer
         throw new UnsupportedOperationException();
     }
 
+    @Override
+    public PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByNumber( KernelStatement state,
+                                                                             IndexDescriptor index,
+                                                                             Number lower, boolean includeLower,
+                                                                             Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByString( KernelStatement state,
+                                                                             IndexDescriptor index,
+                                                                             String lower, boolean includeLower,
+                                                                             String upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state,
+                                                                             IndexDescriptor index, String prefix )
+            throws IndexNotFoundKernelException
+    {
+        throw new UnsupportedOperationException();
+    }
+
     @Override
     public IndexDescriptor indexesGetForLabelAndPropertyKey( int labelId, int propertyKey )
     {
@@ -310,7 +357,7 @@ public class DiskLayer implements StoreReadLayer
 
     private static IndexDescriptor descriptor( IndexRule ruleRecord )
     {
-        return new IndexDescriptor( ruleRecord.getLabel(), ruleRecord.getPropertyKey() );
+        return new IndexDescriptor( ruleRecord.getLabel(), ruleRecord.getPropertyKeys() );
     }
 
     @Override
@@ -345,7 +392,7 @@ public class DiskLayer implements StoreReadLayer
             @Override
             public boolean accept( SchemaRule rule )
             {
-                return rule.getLabel() == labelId && rule.getKind() == SchemaRule.Kind.INDEX_RULE;
+                return rule.getLabel() == labelId && INDEX_RULES.accept( rule );
             }
         };
     }
@@ -369,7 +416,8 @@ public class DiskLayer implements StoreReadLayer
         @Override
         public boolean accept( SchemaRule rule )
         {
-            return rule.getKind() == SchemaRule.Kind.INDEX_RULE;
+            return rule.getKind() == SchemaRule.Kind.INDEX_RULE ||
+                   rule.getKind() == SchemaRule.Kind.COMPOSITE_INDEX_RULE;
         }
     }, CONSTRAINT_INDEX_RULES = new Predicate<SchemaRule>()
     {
@@ -412,7 +460,8 @@ public class DiskLayer implements StoreReadLayer
     public Long indexGetOwningUniquenessConstraintId( IndexDescriptor index )
             throws SchemaRuleNotFoundException
     {
-        return schemaStorage.indexRule( index.getLabelId(), index.getPropertyKeyId() ).getOwningConstraint();
+        return schemaStorage.indexRule( index.getLabelId(), index.getPropertyKeyIds(),
+                SchemaStorage.IndexRuleKind.ALL ).getOwningConstraint();
     }
 
     @Override
@@ -425,7 +474,8 @@ public class DiskLayer implements StoreReadLayer
     public long indexGetCommittedId( IndexDescriptor index, SchemaStorage.IndexRuleKind kind )
             throws SchemaRuleNotFoundException
     {
-        return schemaStorage.indexRule( index.getLabelId(), index.getPropertyKeyId() ).getId();
+        return schemaStorage.indexRule( index.getLabelId(), index.getPropertyKeyIds(),
+                SchemaStorage.IndexRuleKind.ALL ).getId();
     }
 
     @Override
@@ -441,9 +491,33 @@ public class DiskLayer implements StoreReadLayer
         return indexService.getProxyForRule( indexId( descriptor ) ).getPopulationFailure().asString();
     }
 
+    @Override
+    public boolean indexSeeksInOrder( IndexDescriptor descriptor ) throws IndexNotFoundKernelException
+    {
+        return indexService.seeksInOrder( indexId( descriptor ) );
+    }
+
+    @Override
+    public void indexValidateValue( IndexDescriptor descriptor, Object value ) throws IndexNotFoundKernelException
+    {
+        indexService.validateValue( indexId( descriptor ), value );
+    }
+
+    @Override
+    public IndexSample indexSample( IndexDescriptor descriptor ) throws IndexNotFoundKernelException
+    {
+        if ( schemaStorage.indexRule( descriptor.getLabelId(), descriptor.getPropertyKeyIds(),
+                SchemaStorage.IndexRuleKind.ALL ) == null )
+        {
+            throw new IndexNotFoundKernelException( "No index for " + descriptor );
+        }
+        return counts.indexSample( descriptor );
+    }
+
     private long indexId( IndexDescriptor descriptor )
     {
-        return schemaStorage.indexRule( descriptor.getLabelId(), descriptor.getPropertyKeyId() ).getId();
+        return schemaStorage.indexRule( descriptor.getLabelId(), descriptor.getPropertyKeyIds(),
+                SchemaStorage.IndexRuleKind.ALL ).getId();
     }
 
     @Override
@@ -597,6 +671,32 @@ public class DiskLayer implements StoreReadLayer
         return resourceIterator( reader.lookup( value ), reader );
     }
 
+    public PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByNumber( KernelStatement state, long index,
+                                                                             Number lower, boolean includeLower,
+                                                                             Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        IndexReader reader = state.getIndexReader( index );
+        return resourceIterator( reader.rangeSeekByNumber( lower, includeLower, upper, includeUpper ), reader );
+    }
+
+    public PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByString( KernelStatement state, long index,
+                                                                             String lower, boolean includeLower,
+                                                                             String upper, boolean includeUpper )
+            throws IndexNotFoundKernelException
+    {
+        IndexReader reader = state.getIndexReader( index );
+        return resourceIterator( reader.rangeSeekByString( lower, includeLower, upper, includeUpper ), reader );
+    }
+
+    public PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state, long index,
+                                                                             String prefix )
+            throws IndexNotFoundKernelException
+    {
+        IndexReader reader = state.getIndexReader( index );
+        return resourceIterator( reader.rangeSeekByPrefix( prefix ), reader );
+    }
+
     private Iterator<DefinedProperty> loadAllPropertiesOf( PrimitiveRecord primitiveRecord )
     {
         Collection<PropertyRecord> records = propertyStore.getPropertyRecordChain( primitiveRecord.getNextProp() );
@@ -685,6 +785,7 @@ public class DiskLayer implements StoreReadLayer
                         {
                             try
                             {
+                                store.readAhead( currentId );
                                 NodeRecord record = store.getRecord( currentId, reusableNodeRecord );
                                 if ( record != null && record.inUse() )
                                 {
@@ -739,6 +840,7 @@ public class DiskLayer implements StoreReadLayer
                         {
                             try
                             {
+                                store.readAhead( currentId );
                                 if ( store.fillRecord( currentId, reusableRecord, CHECK ) && reusableRecord.inUse() )
                                 {
                                     return next( reusableRecord.getId() );
@@ -35,6 +35,7 @@ import org.neo4j.kernel.api.exceptions.schema.IndexBrokenKernelException;
 import org.neo4j.kernel.api.exceptions.schema.SchemaRuleNotFoundException;
 import org.neo4j.kernel.api.exceptions.schema.TooManyLabelsException;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.properties.DefinedProperty;
 import org.neo4j.kernel.api.properties.Property;
@@ -132,12 +133,32 @@ public interface StoreReadLayer
     PrimitiveLongResourceIterator nodesGetFromIndexLookup( KernelStatement state, IndexDescriptor index, Object value )
             throws IndexNotFoundKernelException;
 
+    PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByNumber( KernelStatement state, IndexDescriptor index,
+                                                                      Number lower, boolean includeLower,
+                                                                      Number upper, boolean includeUpper )
+            throws IndexNotFoundKernelException;
+
+    PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByString( KernelStatement state, IndexDescriptor index,
+                                                                      String lower, boolean includeLower,
+                                                                      String upper, boolean includeUpper )
+            throws IndexNotFoundKernelException;
+
+    PrimitiveLongResourceIterator nodesGetFromIndexRangeSeekByPrefix( KernelStatement state, IndexDescriptor index,
+                                                                      String prefix )
+            throws IndexNotFoundKernelException;
+
     IndexDescriptor indexesGetForLabelAndPropertyKey( int labelId, int propertyKey );
 
     InternalIndexState indexGetState( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
 
     String indexGetFailure( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
 
+    boolean indexSeeksInOrder( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
+
+    void indexValidateValue( IndexDescriptor descriptor, Object value ) throws IndexNotFoundKernelException;
+
+    IndexSample indexSample( IndexDescriptor descriptor ) throws IndexNotFoundKernelException;
+
     int labelGetForName( String labelName );
 
     String labelGetName( int labelId ) throws LabelNotFoundKernelException;
@@ -59,15 +59,17 @@ import org.neo4j.kernel.impl.api.operations.KeyReadOperations;
 import org.neo4j.kernel.impl.core.ThreadToStatementContextBridge;
 
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.neo4j.graphdb.DynamicLabel.label;
 import static org.neo4j.graphdb.schema.Schema.IndexState.FAILED;
 import static org.neo4j.graphdb.schema.Schema.IndexState.ONLINE;
 import static org.neo4j.graphdb.schema.Schema.IndexState.POPULATING;
+import static org.neo4j.helpers.collection.Iterables.join;
 import static org.neo4j.helpers.collection.Iterables.map;
 import static org.neo4j.helpers.collection.IteratorUtil.addToCollection;
 import static org.neo4j.helpers.collection.IteratorUtil.asCollection;
-import static org.neo4j.helpers.collection.IteratorUtil.single;
+import static org.neo4j.helpers.collection.IteratorUtil.loop;
 
 public class SchemaImpl implements Schema
 {
@@ -132,8 +134,13 @@ public class SchemaImpl implements Schema
                 try
                 {
                     Label label = label( statement.labelGetName( rule.getLabelId() ) );
-                    String propertyKey = statement.propertyKeyGetName( rule.getPropertyKeyId() );
-                    return new IndexDefinitionImpl( actions, label, propertyKey, constraintIndex );
+                    int[] propertyKeyIds = rule.getPropertyKeyIds();
+                    String[] propertyKeys = new String[propertyKeyIds.length];
+                    for ( int i = 0; i < propertyKeyIds.length; i++ )
+                    {
+                        propertyKeys[i] = statement.propertyKeyGetName( propertyKeyIds[i] );
+                    }
+                    return new IndexDefinitionImpl( actions, label, propertyKeys, constraintIndex );
                 }
                 catch ( LabelNotFoundKernelException | PropertyKeyIdNotFoundKernelException e )
                 {
@@ -203,23 +210,10 @@ public class SchemaImpl implements Schema
     {
         assertInUnterminatedTransaction();
 
-        String propertyKey = single( index.getPropertyKeys() );
+        String propertyKey = join( ", ", index.getPropertyKeys() );
         try ( Statement statement = statementContextProvider.instance() )
         {
-            int labelId = statement.readOperations().labelGetForName( index.getLabel().name() );
-            int propertyKeyId = statement.readOperations().propertyKeyGetForName( propertyKey );
-
-            if ( labelId == KeyReadOperations.NO_SUCH_LABEL )
-            {
-                throw new NotFoundException( format( "Label %s not found", index.getLabel().name() ) );
-            }
-
-            if ( propertyKeyId == KeyReadOperations.NO_SUCH_PROPERTY_KEY )
-            {
-                throw new NotFoundException( format( "Property key %s not found", propertyKey ) );
-            }
-
-            IndexDescriptor descriptor = statement.readOperations().indexesGetForLabelAndPropertyKey( labelId, propertyKeyId );
+            IndexDescriptor descriptor = getIndexDescriptor( statement.readOperations(), index );
             InternalIndexState indexState = statement.readOperations().indexGetState( descriptor );
             switch ( indexState )
             {
@@ -245,30 +239,62 @@ public class SchemaImpl implements Schema
     {
         assertInUnterminatedTransaction();
 
-        String propertyKey = single( index.getPropertyKeys() );
+        String propertyKey = join( ", ", index.getPropertyKeys() );
         try ( Statement statement = statementContextProvider.instance() )
         {
-            int labelId = statement.readOperations().labelGetForName( index.getLabel().name() );
-            int propertyKeyId = statement.readOperations().propertyKeyGetForName( propertyKey );
+            IndexDescriptor indexId = getIndexDescriptor( statement.readOperations(), index );
+            return statement.readOperations().indexGetFailure( indexId );
+        }
+        catch ( SchemaRuleNotFoundException | IndexNotFoundKernelException e )
+        {
+            throw new NotFoundException( format( "No index for label %s on property %s",
+                    index.getLabel().name(), propertyKey ) );
+        }
+    }
 
-            if ( labelId == KeyReadOperations.NO_SUCH_LABEL )
-            {
-                throw new NotFoundException( format( "Label %s not found", index.getLabel().name() ) );
-            }
+    private static IndexDescriptor getIndexDescriptor( ReadOperations readOperations, IndexDefinition index )
+            throws SchemaRuleNotFoundException
+    {
+        int labelId = readOperations.labelGetForName( index.getLabel().name() );
+        if ( labelId == KeyReadOperations.NO_SUCH_LABEL )
+        {
+            throw new NotFoundException( format( "Label %s not found", index.getLabel().name() ) );
+        }
 
+        List<Integer> propertyKeyIds = new ArrayList<>();
+        for ( String propertyKey : index.getPropertyKeys() )
+        {
+            int propertyKeyId = readOperations.propertyKeyGetForName( propertyKey );
             if ( propertyKeyId == KeyReadOperations.NO_SUCH_PROPERTY_KEY )
             {
                 throw new NotFoundException( format( "Property key %s not found", propertyKey ) );
             }
+            propertyKeyIds.add( propertyKeyId );
+        }
 
-            IndexDescriptor indexId = statement.readOperations().indexesGetForLabelAndPropertyKey( labelId, propertyKeyId );
-            return statement.readOperations().indexGetFailure( indexId );
+        if ( propertyKeyIds.size() == 1 )
+        {
+            return readOperations.indexesGetForLabelAndPropertyKey( labelId, propertyKeyIds.get( 0 ) );
         }
-        catch ( SchemaRuleNotFoundException | IndexNotFoundKernelException e )
+        IndexDescriptor composite = new IndexDescriptor( labelId, toIntArray( propertyKeyIds ) );
+        for ( IndexDescriptor descriptor : loop( readOperations.indexesGetForLabel( labelId ) ) )
         {
-            throw new NotFoundException( format( "No index for label %s on property %s",
-                    index.getLabel().name(), propertyKey ) );
+            if ( descriptor.equals( composite ) )
+            {
+                return descriptor;
+            }
         }
+        throw new SchemaRuleNotFoundException( format( "No composite index %s found", composite ) );
+    }
+
+    private static int[] toIntArray( List<Integer> values )
+    {
+        int[] result = new int[values.size()];
+        for ( int i = 0; i < result.length; i++ )
+        {
+            result[i] = values.get( i );
+        }
+        return result;
     }
 
     @Override
@@ -352,16 +378,22 @@ public class SchemaImpl implements Schema
         }
 
         @Override
-        public IndexDefinition createIndexDefinition( Label label, String propertyKey )
+        public IndexDefinition createIndexDefinition( Label label, String... propertyKeys )
         {
+            String propertyKey = join( ", ", asList( propertyKeys ) );
             try ( Statement statement = ctxProvider.instance() )
             {
                 try
                 {
                     int labelId = statement.schemaWriteOperations().labelGetOrCreateForName( label.name() );
-                    int propertyKeyId = statement.schemaWriteOperations().propertyKeyGetOrCreateForName( propertyKey );
-                    statement.schemaWriteOperations().indexCreate( labelId, propertyKeyId );
-                    return new IndexDefinitionImpl( this, label, propertyKey, false );
+                    int[] propertyKeyIds = new int[propertyKeys.length];
+                    for ( int i = 0; i < propertyKeys.length; i++ )
+                    {
+                        propertyKeyIds[i] =
+                                statement.schemaWriteOperations().propertyKeyGetOrCreateForName( propertyKeys[i] );
+                    }
+                    statement.schemaWriteOperations().indexCreate( labelId, propertyKeyIds );
+                    return new IndexDefinitionImpl( this, label, propertyKeys, false );
                 }
                 catch ( AlreadyIndexedException e )
                 {
@@ -396,18 +428,23 @@ public class SchemaImpl implements Schema
         }
 
         @Override
-        public void dropIndexDefinitions( Label label, String propertyKey )
+        public void dropIndexDefinitions( Label label, String... propertyKeys )
         {
+            String propertyKey = join( ", ", asList( propertyKeys ) );
             try ( Statement statement = ctxProvider.instance() )
             {
-                int labelId = statement.readOperations().labelGetForName( label.name() );
-                int propertyKeyId = statement.readOperations().propertyKeyGetForName( propertyKey );
-
-                if ( labelId != KeyReadOperations.NO_SUCH_LABEL && propertyKeyId != KeyReadOperations
-                        .NO_SUCH_PROPERTY_KEY )
+                IndexDefinition index = new IndexDefinitionImpl( this, label, propertyKeys, false );
+                IndexDescriptor descriptor;
+                try
+                {
+                    descriptor = getIndexDescriptor( statement.readOperations(), index );
+                }
+                catch ( NotFoundException e )
                 {
-                    statement.schemaWriteOperations().indexDrop( statement.readOperations().indexesGetForLabelAndPropertyKey( labelId, propertyKeyId ) );
+                    // No such label or property key, so there is no index to drop
+                    return;
                 }
+                statement.schemaWriteOperations().indexDrop( descriptor );
             }
             catch ( SchemaRuleNotFoundException | DropIndexFailureException e )
             {
@@ -0,0 +1,673 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.gbptree;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.neo4j.graphdb.Resource;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.io.pagecache.PagedFile;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_EXCLUSIVE_LOCK;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_LOCK;
+import static org.neo4j.kernel.impl.index.gbptree.TreeNode.NO_NODE;
+
+/**
+ * A B+tree that maps byte[] keys to byte[] values, kept in a file that is accessed through the {@link PageCache}.
+ * Keys are ordered as unsigned bytes, see {@link #compareKeys(byte[], byte[])}, and the sum of the lengths of a
+ * key and its value can be at most {@link #maxEntrySize()}.
+ * <p>
+ * Changes are made by one writer at the time, and readers never see a change half-way through. A {@link Seeker}
+ * reads one leaf at the time, and positions itself by key before reading the next, so it sees the changes that
+ * were made to the leaves that it has not reached yet, and does not keep anyone from changing the tree while it
+ * is open. Nodes are not merged when entries are removed, and pages are only given back by rebuilding the tree.
+ * <p>
+ * The first page of the file holds the meta data of the tree, and a small header where the user of the tree can
+ * keep its own state. It also holds a flag telling whether all changes to the tree have been {@link #flush()
+ * flushed}. A tree that was not cleanly flushed after its last change may have had only some of its pages written
+ * to disk, and should not be trusted; see {@link #wasCleanOnOpen()}.
+ */
+public class GBPTree implements Closeable
+{
+    private static final long MAGIC = 0x4742_5054_7265_6531L;
+    private static final int FORMAT_VERSION = 1;
+    private static final long META_PAGE = 0;
+    private static final int BYTE_MAGIC = 0;
+    private static final int BYTE_FORMAT_VERSION = 8;
+    private static final int BYTE_ROOT = 12;
+    private static final int BYTE_LAST_PAGE = 20;
+    private static final int BYTE_CLEAN = 28;
+    private static final int BYTE_HEADER_LENGTH = 29;
+    private static final int BYTE_HEADER = 33;
+    private static final int MAX_DEPTH = 64;
+
+    private final PageCache pageCache;
+    private final File file;
+    private final PagedFile pagedFile;
+    private final int pageSize;
+    private final ReadWriteLock lock = new ReentrantReadWriteLock();
+    private final boolean wasCleanOnOpen;
+
+    // Guarded by the write lock, readers only need the root
+    private volatile long root;
+    private long lastPage;
+    private boolean clean;
+    private byte[] header;
+
+    public GBPTree( PageCache pageCache, File file ) throws IOException
+    {
+        this.pageCache = pageCache;
+        this.file = file;
+        this.pageSize = pageCache.pageSize();
+        if ( pageSize > TreeNode.MAX_PAGE_SIZE )
+        {
+            throw new IllegalArgumentException( "Page size " + pageSize + " is too large for a tree, " +
+                    "the maximum is " + TreeNode.MAX_PAGE_SIZE );
+        }
+        this.pagedFile = pageCache.map( file, pageSize );
+        try
+        {
+            if ( pagedFile.getLastPageId() < META_PAGE )
+            {
+                create();
+            }
+            else
+            {
+                readMeta();
+            }
+        }
+        catch ( IOException | RuntimeException e )
+        {
+            pageCache.unmap( file );
+            throw e;
+        }
+        this.wasCleanOnOpen = clean;
+    }
+
+    private void create() throws IOException
+    {
+        ByteBuffer page = newPage();
+        TreeNode.initializeLeaf( page );
+        root = META_PAGE + 1;
+        lastPage = root;
+        clean = true;
+        header = new byte[0];
+        try ( PageCursor cursor = pagedFile.io( META_PAGE, PF_EXCLUSIVE_LOCK ) )
+        {
+            writePage( cursor, root, page );
+            writeMeta( cursor );
+        }
+        pagedFile.flush();
+    }
+
+    private void readMeta() throws IOException
+    {
+        ByteBuffer page = newPage();
+        try ( PageCursor cursor = pagedFile.io( META_PAGE, PF_SHARED_LOCK ) )
+        {
+            readPage( cursor, META_PAGE, page );
+        }
+        if ( page.getLong( BYTE_MAGIC ) != MAGIC )
+        {
+            throw new IOException( file + " is not a tree file" );
+        }
+        if ( page.getInt( BYTE_FORMAT_VERSION ) != FORMAT_VERSION )
+        {
+            throw new IOException( file + " has unsupported format version " + page.getInt( BYTE_FORMAT_VERSION ) );
+        }
+        root = page.getLong( BYTE_ROOT );
+        lastPage = page.getLong( BYTE_LAST_PAGE );
+        clean = page.get( BYTE_CLEAN ) != 0;
+        header = new byte[page.getInt( BYTE_HEADER_LENGTH )];
+        System.arraycopy( page.array(), BYTE_HEADER, header, 0, header.length );
+    }
+
+    private void writeMeta( PageCursor cursor ) throws IOException
+    {
+        ByteBuffer page = newPage();
+        page.putLong( BYTE_MAGIC, MAGIC );
+        page.putInt( BYTE_FORMAT_VERSION, FORMAT_VERSION );
+        page.putLong( BYTE_ROOT, root );
+        page.putLong( BYTE_LAST_PAGE, lastPage );
+        page.put( BYTE_CLEAN, (byte) (clean ? 1 : 0) );
+        page.putInt( BYTE_HEADER_LENGTH, header.length );
+        System.arraycopy( header, 0, page.array(), BYTE_HEADER, header.length );
+        writePage( cursor, META_PAGE, page );
+    }
+
+    /**
+     * @return whether all changes to the tree had been flushed when it was last closed. If not, then the tree may
+     * be broken, and should be rebuilt.
+     */
+    public boolean wasCleanOnOpen()
+    {
+        return wasCleanOnOpen;
+    }
+
+    /**
+     * @return the header that was last written with {@link #writeHeader(byte[])}, empty for a new tree.
+     */
+    public byte[] readHeader()
+    {
+        lock.readLock().lock();
+        try
+        {
+            return header.clone();
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Writes a header, which is made durable by the next {@link #flush()}.
+     */
+    public void writeHeader( byte[] header ) throws IOException
+    {
+        if ( BYTE_HEADER + header.length > pageSize )
+        {
+            throw new IllegalArgumentException( "Header of " + header.length + " bytes does not fit in a page" );
+        }
+        lock.writeLock().lock();
+        try ( PageCursor cursor = pagedFile.io( META_PAGE, PF_EXCLUSIVE_LOCK ) )
+        {
+            this.header = header.clone();
+            writeMeta( cursor );
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * The largest {@code key.length + value.length} that this tree accepts.
+     */
+    public int maxEntrySize()
+    {
+        return maxEntrySize( pageSize );
+    }
+
+    /**
+     * The largest {@code key.length + value.length} that a tree with pages of the given size accepts.
+     */
+    public static int maxEntrySize( int pageSize )
+    {
+        return TreeNode.maxEntrySize( pageSize );
+    }
+
+    /**
+     * Maps the given key to the given value, replacing the value it had, if any.
+     */
+    public void put( byte[] key, byte[] value ) throws IOException
+    {
+        if ( key.length + value.length > maxEntrySize() )
+        {
+            throw new IllegalArgumentException( "Entry of " + (key.length + value.length) + " bytes is larger " +
+                    "than the " + maxEntrySize() + " bytes that fit in the tree" );
+        }
+        lock.writeLock().lock();
+        try
+        {
+            markDirty();
+            try ( PageCursor cursor = pagedFile.io( root, PF_EXCLUSIVE_LOCK ) )
+            {
+                ByteBuffer[] path = new ByteBuffer[MAX_DEPTH];
+                long[] pathIds = new long[MAX_DEPTH];
+                int depth = descend( cursor, key, path, pathIds );
+                ByteBuffer leaf = path[depth];
+                int pos = TreeNode.search( leaf, key );
+                if ( pos < TreeNode.keyCount( leaf ) && TreeNode.compareKeyAt( leaf, pos, key ) == 0 )
+                {
+                    if ( TreeNode.valueEquals( leaf, pos, value ) )
+                    {
+                        return;
+                    }
+                    TreeNode.removeEntry( leaf, pos );
+                }
+                if ( TreeNode.insertLeafEntry( leaf, pos, key, value ) )
+                {
+                    writePage( cursor, pathIds[depth], leaf );
+                    return;
+                }
+                splitLeaf( cursor, path, pathIds, depth, pos, key, value );
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Removes the given key.
+     *
+     * @return whether the key was in the tree.
+     */
+    public boolean remove( byte[] key ) throws IOException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            markDirty();
+            try ( PageCursor cursor = pagedFile.io( root, PF_EXCLUSIVE_LOCK ) )
+            {
+                ByteBuffer[] path = new ByteBuffer[MAX_DEPTH];
+                long[] pathIds = new long[MAX_DEPTH];
+                int depth = descend( cursor, key, path, pathIds );
+                ByteBuffer leaf = path[depth];
+                int pos = TreeNode.search( leaf, key );
+                if ( pos == TreeNode.keyCount( leaf ) || TreeNode.compareKeyAt( leaf, pos, key ) != 0 )
+                {
+                    return false;
+                }
+                TreeNode.removeEntry( leaf, pos );
+                writePage( cursor, pathIds[depth], leaf );
+                return true;
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * @return the value of the given key, or {@code null} if the key is not in the tree.
+     */
+    public byte[] get( byte[] key ) throws IOException
+    {
+        lock.readLock().lock();
+        try ( PageCursor cursor = pagedFile.io( root, PF_SHARED_LOCK ) )
+        {
+            ByteBuffer page = newPage();
+            long pageId = root;
+            readPage( cursor, pageId, page );
+            while ( !TreeNode.isLeaf( page ) )
+            {
+                pageId = TreeNode.childAt( page, TreeNode.childPosition( page, key ) );
+                readPage( cursor, pageId, page );
+            }
+            int pos = TreeNode.search( page, key );
+            if ( pos < TreeNode.keyCount( page ) && TreeNode.compareKeyAt( page, pos, key ) == 0 )
+            {
+                return TreeNode.valueAt( page, pos );
+            }
+            return null;
+        }
+        finally
+        {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Seeks the entries with keys from {@code fromInclusive} up to, but not including, {@code toExclusive}.
+     * A {@code null} bound leaves that end of the range open.
+     */
+    public Seeker seek( byte[] fromInclusive, byte[] toExclusive )
+    {
+        return new Seeker( fromInclusive == null ? new byte[0] : fromInclusive, toExclusive );
+    }
+
+    /**
+     * Writes all changes to disk and marks the tree as clean, until the next change.
+     */
+    public void flush() throws IOException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            pagedFile.flush();
+            if ( !clean )
+            {
+                clean = true;
+                try ( PageCursor cursor = pagedFile.io( META_PAGE, PF_EXCLUSIVE_LOCK ) )
+                {
+                    writeMeta( cursor );
+                }
+                pagedFile.flush();
+            }
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Unmaps the tree file. Changes made since the last {@link #flush()} are written out by the page cache,
+     * but the tree is not marked as clean.
+     */
+    @Override
+    public void close() throws IOException
+    {
+        lock.writeLock().lock();
+        try
+        {
+            pageCache.unmap( file );
+        }
+        finally
+        {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /**
+     * Compares keys as sequences of unsigned bytes, where a key that is a prefix of another key is the smaller.
+     */
+    public static int compareKeys( byte[] left, byte[] right )
+    {
+        return TreeNode.compare( left, 0, left.length, right, 0, right.length );
+    }
+
+    /**
+     * Marks the tree as not clean, and makes sure that the mark is on disk before any change to the tree can be.
+     */
+    private void markDirty() throws IOException
+    {
+        if ( clean )
+        {
+            clean = false;
+            try ( PageCursor cursor = pagedFile.io( META_PAGE, PF_EXCLUSIVE_LOCK ) )
+            {
+                writeMeta( cursor );
+            }
+            pagedFile.flush();
+        }
+    }
+
+    private int descend( PageCursor cursor, byte[] key, ByteBuffer[] path, long[] pathIds ) throws IOException
+    {
+        int depth = 0;
+        long pageId = root;
+        while ( true )
+        {
+            ByteBuffer page = newPage();
+            readPage( cursor, pageId, page );
+            path[depth] = page;
+            pathIds[depth] = pageId;
+            if ( TreeNode.isLeaf( page ) )
+            {
+                return depth;
+            }
+            pageId = TreeNode.childAt( page, TreeNode.childPosition( page, key ) );
+            depth++;
+        }
+    }
+
+    private void splitLeaf( PageCursor cursor, ByteBuffer[] path, long[] pathIds, int depth, int pos,
+                            byte[] key, byte[] value ) throws IOException
+    {
+        ByteBuffer leaf = path[depth];
+        int count = TreeNode.keyCount( leaf );
+        List<byte[]> keys = new ArrayList<>( count + 1 );
+        List<byte[]> values = new ArrayList<>( count + 1 );
+        int totalSize = 0;
+        for ( int i = 0; i < count; i++ )
+        {
+            keys.add( TreeNode.keyAt( leaf, i ) );
+            values.add( TreeNode.valueAt( leaf, i ) );
+            totalSize += TreeNode.leafEntrySize( keys.get( i ), values.get( i ) );
+        }
+        keys.add( pos, key );
+        values.add( pos, value );
+        totalSize += TreeNode.leafEntrySize( key, value );
+
+        int middle = 0;
+        for ( int size = 0; middle < keys.size() - 1 && size < totalSize / 2; middle++ )
+        {
+            size += TreeNode.leafEntrySize( keys.get( middle ), values.get( middle ) );
+        }
+        middle = Math.max( middle, 1 );
+
+        long rightId = ++lastPage;
+        ByteBuffer right = newPage();
+        TreeNode.initializeLeaf( right );
+        TreeNode.setRightSibling( right, TreeNode.rightSibling( leaf ) );
+        TreeNode.writeLeaf( right, keys, values, middle, keys.size() );
+        TreeNode.writeLeaf( leaf, keys, values, 0, middle );
+        TreeNode.setRightSibling( leaf, rightId );
+        writePage( cursor, rightId, right );
+        writePage( cursor, pathIds[depth], leaf );
+
+        insertInParent( cursor, path, pathIds, depth - 1, keys.get( middle ), rightId );
+    }
+
+    private void insertInParent( PageCursor cursor, ByteBuffer[] path, long[] pathIds, int depth,
+                                 byte[] separator, long rightChild ) throws IOException
+    {
+        if ( depth < 0 )
+        {
+            long newRoot = ++lastPage;
+            ByteBuffer page = newPage();
+            TreeNode.initializeInternal( page, root );
+            TreeNode.insertInternalEntry( page, 0, separator, rightChild );
+            writePage( cursor, newRoot, page );
+            root = newRoot;
+            writeMeta( cursor );
+            return;
+        }
+
+        ByteBuffer node = path[depth];
+        int pos = TreeNode.childPosition( node, separator );
+        if ( TreeNode.insertInternalEntry( node, pos, separator, rightChild ) )
+        {
+            writePage( cursor, pathIds[depth], node );
+            writeMeta( cursor );
+            return;
+        }
+
+        int count = TreeNode.keyCount( node );
+        List<byte[]> keys = new ArrayList<>( count + 1 );
+        List<Long> children = new ArrayList<>( count + 2 );
+        children.add( TreeNode.childAt( node, 0 ) );
+        int totalSize = 0;
+        for ( int i = 0; i < count; i++ )
+        {
+            keys.add( TreeNode.keyAt( node, i ) );
+            children.add( TreeNode.childAt( node, i + 1 ) );
+            totalSize += TreeNode.internalEntrySize( keys.get( i ) );
+        }
+        keys.add( pos, separator );
+        children.add( pos + 1, rightChild );
+        totalSize += TreeNode.internalEntrySize( separator );
+
+        int middle = 0;
+        for ( int size = 0; middle < keys.size() - 2 && size < totalSize / 2; middle++ )
+        {
+            size += TreeNode.internalEntrySize( keys.get( middle ) );
+        }
+        middle = Math.max( middle, 1 );
+
+        // The middle key moves up to the parent, its right child becomes the leftmost child of the new node
+        long rightId = ++lastPage;
+        ByteBuffer right = newPage();
+        TreeNode.writeInternal( right, keys, children, middle + 1, keys.size() );
+        TreeNode.writeInternal( node, keys, children, 0, middle );
+        writePage( cursor, rightId, right );
+        writePage( cursor, pathIds[depth], node );
+
+        insertInParent( cursor, path, pathIds, depth - 1, keys.get( middle ), rightId );
+    }
+
+    private ByteBuffer newPage()
+    {
+        return ByteBuffer.wrap( new byte[pageSize] );
+    }
+
+    /**
+     * Reads a page into the given buffer, retrying until the read is consistent.
+     */
+    private void readPage( PageCursor cursor, long pageId, ByteBuffer into ) throws IOException
+    {
+        if ( !cursor.next( pageId ) )
+        {
+            throw new IllegalStateException( "Could not read page " + pageId + " of " + file );
+        }
+        do
+        {
+            cursor.setOffset( 0 );
+            cursor.getBytes( into.array() );
+        }
+        while ( cursor.shouldRetry() );
+        if ( pageId != META_PAGE && !TreeNode.isNode( into ) )
+        {
+            throw new IllegalStateException( "Page " + pageId + " of " + file + " is not a tree node" );
+        }
+    }
+
+    private void writePage( PageCursor cursor, long pageId, ByteBuffer page ) throws IOException
+    {
+        if ( !cursor.next( pageId ) )
+        {
+            throw new IllegalStateException( "Could not write page " + pageId + " of " + file );
+        }
+        cursor.setOffset( 0 );
+        cursor.putBytes( page.array() );
+    }
+
+    /**
+     * A cursor over a range of entries, see {@link #seek(byte[], byte[])}. Each call to {@link #next()} that
+     * reaches the end of a leaf reads the next leaf, positioned after the last key it has seen.
+     */
+    public class Seeker implements Resource
+    {
+        private final byte[] toExclusive;
+        private final List<byte[]> keys = new ArrayList<>();
+        private final List<byte[]> values = new ArrayList<>();
+        private byte[] from;
+        private boolean fromInclusive = true;
+        private int position;
+        private boolean exhausted;
+
+        private Seeker( byte[] from, byte[] toExclusive )
+        {
+            this.from = from;
+            this.toExclusive = toExclusive;
+        }
+
+        /**
+         * Moves to the next entry.
+         *
+         * @return {@code false} if there are no more entries in the range.
+         */
+        public boolean next() throws IOException
+        {
+            position++;
+            while ( position >= keys.size() )
+            {
+                if ( exhausted )
+                {
+                    return false;
+                }
+                readLeaf();
+            }
+            return true;
+        }
+
+        public byte[] key()
+        {
+            return keys.get( position );
+        }
+
+        public byte[] value()
+        {
+            return values.get( position );
+        }
+
+        private void readLeaf() throws IOException
+        {
+            keys.clear();
+            values.clear();
+            position = 0;
+            lock.readLock().lock();
+            try ( PageCursor cursor = pagedFile.io( root, PF_SHARED_LOCK ) )
+            {
+                ByteBuffer page = newPage();
+                readPage( cursor, root, page );
+                while ( !TreeNode.isLeaf( page ) )
+                {
+                    readPage( cursor, TreeNode.childAt( page, TreeNode.childPosition( page, from ) ), page );
+                }
+
+                // Continue through leaves that have nothing left for us, until one that has or the end of the tree
+                int pos = TreeNode.search( page, from );
+                if ( !fromInclusive && pos < TreeNode.keyCount( page ) && TreeNode.compareKeyAt( page, pos, from ) == 0 )
+                {
+                    pos++;
+                }
+                while ( pos == TreeNode.keyCount( page ) && TreeNode.rightSibling( page ) != NO_NODE )
+                {
+                    readPage( cursor, TreeNode.rightSibling( page ), page );
+                    pos = 0;
+                }
+
+                for ( int count = TreeNode.keyCount( page ); pos < count; pos++ )
+                {
+                    if ( toExclusive != null && TreeNode.compareKeyAt( page, pos, toExclusive ) >= 0 )
+                    {
+                        exhausted = true;
+                        return;
+                    }
+                    keys.add( TreeNode.keyAt( page, pos ) );
+                    values.add( TreeNode.valueAt( page, pos ) );
+                }
+                if ( TreeNode.rightSibling( page ) == NO_NODE )
+                {
+                    exhausted = true;
+                }
+                else if ( !keys.isEmpty() )
+                {
+                    from = keys.get( keys.size() - 1 );
+                    fromInclusive = false;
+                }
+            }
+            finally
+            {
+                lock.readLock().unlock();
+            }
+        }
+
+        @Override
+        public void close()
+        {
+            keys.clear();
+            values.clear();
+            exhausted = true;
+        }
+
+        @Override
+        public String toString()
+        {
+            return "Seeker[from:" + Arrays.toString( from ) + ", to:" + Arrays.toString( toExclusive ) + "]";
+        }
+    }
+}
@@ -0,0 +1,401 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.gbptree;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * The layout of a tree node, as it is kept in a page of the tree file. All methods work on an image of
+ * the page, read into a {@link ByteBuffer}, which the tree writes back to its page once it has been changed.
+ * <p>
+ * A node starts with a header:
+ * <pre>
+ * [type:1][keyCount:2][dataStart:4][rightSibling:8]
+ * </pre>
+ * An internal node follows the header with the id of its leftmost child. Then comes an array of 2-byte slots,
+ * one per entry and in key order, each pointing to where its entry is in the page. The entries themselves are
+ * written from the end of the page and downwards, {@code dataStart} being the lowest offset in use. A leaf entry
+ * is {@code [keyLength:2][valueLength:2][key][value]} and an internal entry is
+ * {@code [keyLength:2][key][rightChild:8]}, where the right child holds the keys that are greater than or
+ * equal to the key of the entry.
+ * <p>
+ * Removing an entry only removes its slot, the space of the entry is reclaimed by compacting the node when an
+ * insertion would otherwise not fit.
+ */
+class TreeNode
+{
+    static final byte LEAF = 1;
+    static final byte INTERNAL = 2;
+    static final long NO_NODE = -1;
+
+    private static final int BYTE_TYPE = 0;
+    private static final int BYTE_KEY_COUNT = 1;
+    private static final int BYTE_DATA_START = 3;
+    private static final int BYTE_RIGHT_SIBLING = 7;
+    private static final int HEADER_SIZE = 15;
+    private static final int BYTE_LEFTMOST_CHILD = HEADER_SIZE;
+    private static final int LEAF_SLOTS = HEADER_SIZE;
+    private static final int INTERNAL_SLOTS = HEADER_SIZE + 8;
+    private static final int SLOT_SIZE = 2;
+
+    /**
+     * The largest page size that the 2-byte slots can address.
+     */
+    static final int MAX_PAGE_SIZE = 1 << 16;
+
+    private TreeNode()
+    {
+    }
+
+    /**
+     * The largest entry, {@code key.length + value.length}, that a tree with the given page size accepts. It is
+     * small enough for the two halves of a split node, and the separator key of the split, to always fit.
+     */
+    static int maxEntrySize( int pageSize )
+    {
+        return (pageSize - INTERNAL_SLOTS) / 4 - SLOT_SIZE - 12;
+    }
+
+    static void initializeLeaf( ByteBuffer page )
+    {
+        page.put( BYTE_TYPE, LEAF );
+        setKeyCount( page, 0 );
+        page.putInt( BYTE_DATA_START, page.capacity() );
+        page.putLong( BYTE_RIGHT_SIBLING, NO_NODE );
+    }
+
+    static void initializeInternal( ByteBuffer page, long leftmostChild )
+    {
+        page.put( BYTE_TYPE, INTERNAL );
+        setKeyCount( page, 0 );
+        page.putInt( BYTE_DATA_START, page.capacity() );
+        page.putLong( BYTE_RIGHT_SIBLING, NO_NODE );
+        page.putLong( BYTE_LEFTMOST_CHILD, leftmostChild );
+    }
+
+    static boolean isNode( ByteBuffer page )
+    {
+        byte type = page.get( BYTE_TYPE );
+        return type == LEAF || type == INTERNAL;
+    }
+
+    static boolean isLeaf( ByteBuffer page )
+    {
+        return page.get( BYTE_TYPE ) == LEAF;
+    }
+
+    static int keyCount( ByteBuffer page )
+    {
+        return page.getShort( BYTE_KEY_COUNT ) & 0xFFFF;
+    }
+
+    private static void setKeyCount( ByteBuffer page, int count )
+    {
+        page.putShort( BYTE_KEY_COUNT, (short) count );
+    }
+
+    static long rightSibling( ByteBuffer page )
+    {
+        return page.getLong( BYTE_RIGHT_SIBLING );
+    }
+
+    static void setRightSibling( ByteBuffer page, long rightSibling )
+    {
+        page.putLong( BYTE_RIGHT_SIBLING, rightSibling );
+    }
+
+    private static int slots( ByteBuffer page )
+    {
+        return isLeaf( page ) ? LEAF_SLOTS : INTERNAL_SLOTS;
+    }
+
+    private static int entryOffset( ByteBuffer page, int pos )
+    {
+        return page.getShort( slots( page ) + pos * SLOT_SIZE ) & 0xFFFF;
+    }
+
+    private static int keyLength( ByteBuffer page, int offset )
+    {
+        return page.getShort( offset ) & 0xFFFF;
+    }
+
+    private static int keyStart( ByteBuffer page, int offset )
+    {
+        return offset + (isLeaf( page ) ? 4 : 2);
+    }
+
+    static byte[] keyAt( ByteBuffer page, int pos )
+    {
+        int offset = entryOffset( page, pos );
+        byte[] key = new byte[keyLength( page, offset )];
+        System.arraycopy( page.array(), keyStart( page, offset ), key, 0, key.length );
+        return key;
+    }
+
+    static byte[] valueAt( ByteBuffer page, int pos )
+    {
+        int offset = entryOffset( page, pos );
+        int keyLength = keyLength( page, offset );
+        byte[] value = new byte[page.getShort( offset + 2 ) & 0xFFFF];
+        System.arraycopy( page.array(), offset + 4 + keyLength, value, 0, value.length );
+        return value;
+    }
+
+    static boolean valueEquals( ByteBuffer page, int pos, byte[] value )
+    {
+        int offset = entryOffset( page, pos );
+        int valueLength = page.getShort( offset + 2 ) & 0xFFFF;
+        return valueLength == value.length &&
+               compare( page.array(), offset + 4 + keyLength( page, offset ), valueLength,
+                        value, 0, value.length ) == 0;
+    }
+
+    /**
+     * @return the child at the given position, where position 0 is the leftmost child and position {@code i}
+     * is the right child of the entry at position {@code i - 1}.
+     */
+    static long childAt( ByteBuffer page, int pos )
+    {
+        if ( pos == 0 )
+        {
+            return page.getLong( BYTE_LEFTMOST_CHILD );
+        }
+        int offset = entryOffset( page, pos - 1 );
+        return page.getLong( offset + 2 + keyLength( page, offset ) );
+    }
+
+    static int compareKeyAt( ByteBuffer page, int pos, byte[] key )
+    {
+        int offset = entryOffset( page, pos );
+        return compare( page.array(), keyStart( page, offset ), keyLength( page, offset ), key, 0, key.length );
+    }
+
+    /**
+     * @return the position of the first entry with a key greater than or equal to the given key, or the key count
+     * if there is no such entry.
+     */
+    static int search( ByteBuffer page, byte[] key )
+    {
+        int low = 0;
+        int high = keyCount( page );
+        while ( low < high )
+        {
+            int mid = (low + high) >>> 1;
+            if ( compareKeyAt( page, mid, key ) < 0 )
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * @return the position of the child of an internal node that covers the given key.
+     */
+    static int childPosition( ByteBuffer page, byte[] key )
+    {
+        int low = 0;
+        int high = keyCount( page );
+        while ( low < high )
+        {
+            int mid = (low + high) >>> 1;
+            if ( compareKeyAt( page, mid, key ) <= 0 )
+            {
+                low = mid + 1;
+            }
+            else
+            {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Inserts an entry into a leaf, at the given position.
+     *
+     * @return {@code false} if the entry does not fit, in which case the leaf has to be split.
+     */
+    static boolean insertLeafEntry( ByteBuffer page, int pos, byte[] key, byte[] value )
+    {
+        int offset = allocate( page, 4 + key.length + value.length );
+        if ( offset == -1 )
+        {
+            return false;
+        }
+        page.putShort( offset, (short) key.length );
+        page.putShort( offset + 2, (short) value.length );
+        System.arraycopy( key, 0, page.array(), offset + 4, key.length );
+        System.arraycopy( value, 0, page.array(), offset + 4 + key.length, value.length );
+        insertSlot( page, pos, offset );
+        return true;
+    }
+
+    /**
+     * Inserts an entry into an internal node, at the given position.
+     *
+     * @return {@code false} if the entry does not fit, in which case the node has to be split.
+     */
+    static boolean insertInternalEntry( ByteBuffer page, int pos, byte[] key, long rightChild )
+    {
+        int offset = allocate( page, 2 + key.length + 8 );
+        if ( offset == -1 )
+        {
+            return false;
+        }
+        page.putShort( offset, (short) key.length );
+        System.arraycopy( key, 0, page.array(), offset + 2, key.length );
+        page.putLong( offset + 2 + key.length, rightChild );
+        insertSlot( page, pos, offset );
+        return true;
+    }
+
+    static void removeEntry( ByteBuffer page, int pos )
+    {
+        int count = keyCount( page );
+        int slot = slots( page ) + pos * SLOT_SIZE;
+        System.arraycopy( page.array(), slot + SLOT_SIZE, page.array(), slot, (count - pos - 1) * SLOT_SIZE );
+        setKeyCount( page, count - 1 );
+    }
+
+    /**
+     * Replaces the content of a leaf with the given entries, keeping its right sibling.
+     */
+    static void writeLeaf( ByteBuffer page, List<byte[]> keys, List<byte[]> values, int from, int to )
+    {
+        long rightSibling = rightSibling( page );
+        initializeLeaf( page );
+        setRightSibling( page, rightSibling );
+        for ( int i = from; i < to; i++ )
+        {
+            insertLeafEntry( page, i - from, keys.get( i ), values.get( i ) );
+        }
+    }
+
+    /**
+     * Replaces the content of an internal node with the given entries, where {@code children} has one more
+     * element than {@code keys}: the child to the left of {@code keys[from]} comes first.
+     */
+    static void writeInternal( ByteBuffer page, List<byte[]> keys, List<Long> children, int from, int to )
+    {
+        initializeInternal( page, children.get( from ) );
+        for ( int i = from; i < to; i++ )
+        {
+            insertInternalEntry( page, i - from, keys.get( i ), children.get( i + 1 ) );
+        }
+    }
+
+    static int leafEntrySize( byte[] key, byte[] value )
+    {
+        return SLOT_SIZE + 4 + key.length + value.length;
+    }
+
+    static int internalEntrySize( byte[] key )
+    {
+        return SLOT_SIZE + 2 + key.length + 8;
+    }
+
+    /**
+     * @return the offset of a free area of the given size, or -1 if there is not room for it and a slot.
+     */
+    private static int allocate( ByteBuffer page, int size )
+    {
+        int slotsEnd = slots( page ) + (keyCount( page ) + 1) * SLOT_SIZE;
+        int dataStart = page.getInt( BYTE_DATA_START );
+        if ( dataStart - size < slotsEnd )
+        {
+            if ( liveDataSize( page ) + size > page.capacity() - slotsEnd )
+            {
+                return -1;
+            }
+            compact( page );
+            dataStart = page.getInt( BYTE_DATA_START );
+        }
+        dataStart -= size;
+        page.putInt( BYTE_DATA_START, dataStart );
+        return dataStart;
+    }
+
+    private static void insertSlot( ByteBuffer page, int pos, int offset )
+    {
+        int count = keyCount( page );
+        int slot = slots( page ) + pos * SLOT_SIZE;
+        System.arraycopy( page.array(), slot, page.array(), slot + SLOT_SIZE, (count - pos) * SLOT_SIZE );
+        page.putShort( slot, (short) offset );
+        setKeyCount( page, count + 1 );
+    }
+
+    private static int entrySize( ByteBuffer page, int offset )
+    {
+        int keyLength = keyLength( page, offset );
+        return isLeaf( page ) ? 4 + keyLength + (page.getShort( offset + 2 ) & 0xFFFF) : 2 + keyLength + 8;
+    }
+
+    private static int liveDataSize( ByteBuffer page )
+    {
+        int size = 0;
+        for ( int i = 0, count = keyCount( page ); i < count; i++ )
+        {
+            size += entrySize( page, entryOffset( page, i ) );
+        }
+        return size;
+    }
+
+    /**
+     * Moves all entries to the end of the page, dropping the space of removed entries.
+     */
+    private static void compact( ByteBuffer page )
+    {
+        byte[] copy = page.array().clone();
+        ByteBuffer source = ByteBuffer.wrap( copy );
+        int dataStart = page.capacity();
+        for ( int i = 0, count = keyCount( page ); i < count; i++ )
+        {
+            int offset = entryOffset( source, i );
+            int size = entrySize( source, offset );
+            dataStart -= size;
+            System.arraycopy( copy, offset, page.array(), dataStart, size );
+            page.putShort( slots( page ) + i * SLOT_SIZE, (short) dataStart );
+        }
+        page.putInt( BYTE_DATA_START, dataStart );
+    }
+
+    /**
+     * Compares two byte sequences as unsigned bytes, a sequence that is a prefix of another being the smaller.
+     */
+    static int compare( byte[] left, int leftStart, int leftLength, byte[] right, int rightStart, int rightLength )
+    {
+        int length = Math.min( leftLength, rightLength );
+        for ( int i = 0; i < length; i++ )
+        {
+            int difference = (left[leftStart + i] & 0xFF) - (right[rightStart + i] & 0xFF);
+            if ( difference != 0 )
+            {
+                return difference;
+            }
+        }
+        return leftLength - rightLength;
+    }
+}
@@ -0,0 +1,231 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+
+import org.neo4j.helpers.collection.PrefetchingIterator;
+import org.neo4j.kernel.api.direct.AllEntriesLabelScanReader;
+import org.neo4j.kernel.api.direct.NodeLabelRange;
+import org.neo4j.kernel.impl.index.gbptree.GBPTree;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+
+import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanLayout.bits;
+import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanLayout.key;
+import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanLayout.labelId;
+import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanLayout.rangeId;
+
+/**
+ * Presents the bitmaps of all labels one node range at the time, in order of range, by merging one
+ * {@link GBPTree.Seeker} per label.
+ */
+class NativeAllEntriesLabelScanReader implements AllEntriesLabelScanReader
+{
+    private final GBPTree tree;
+
+    NativeAllEntriesLabelScanReader( GBPTree tree )
+    {
+        this.tree = tree;
+    }
+
+    @Override
+    public long maxCount()
+    {
+        try
+        {
+            long count = 0;
+            GBPTree.Seeker seeker = tree.seek( null, null );
+            while ( seeker.next() )
+            {
+                count++;
+            }
+            return count;
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
+    @Override
+    public void close()
+    {   // Nothing is held between reads
+    }
+
+    @Override
+    public Iterator<NodeLabelRange> iterator()
+    {
+        try
+        {
+            final List<LabelCursor> cursors = new ArrayList<>();
+            for ( long labelId = nextLabel( 0 ); labelId != -1; labelId = nextLabel( labelId + 1 ) )
+            {
+                LabelCursor cursor = new LabelCursor( labelId );
+                if ( cursor.next() )
+                {
+                    cursors.add( cursor );
+                }
+            }
+            return new PrefetchingIterator<NodeLabelRange>()
+            {
+                @Override
+                protected NodeLabelRange fetchNextOrNull()
+                {
+                    try
+                    {
+                        return nextRange( cursors );
+                    }
+                    catch ( IOException e )
+                    {
+                        throw new UnderlyingStorageException( e );
+                    }
+                }
+            };
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
+    private long nextLabel( long fromLabelId ) throws IOException
+    {
+        GBPTree.Seeker seeker = tree.seek( key( fromLabelId, 0 ), null );
+        return seeker.next() ? labelId( seeker.key() ) : -1;
+    }
+
+    private static NodeLabelRange nextRange( List<LabelCursor> cursors ) throws IOException
+    {
+        if ( cursors.isEmpty() )
+        {
+            return null;
+        }
+        long range = Long.MAX_VALUE;
+        for ( LabelCursor cursor : cursors )
+        {
+            range = Math.min( range, cursor.range );
+        }
+
+        long[] labelIds = new long[cursors.size()];
+        long[] bitmaps = new long[cursors.size()];
+        int count = 0;
+        for ( Iterator<LabelCursor> iterator = cursors.iterator(); iterator.hasNext(); )
+        {
+            LabelCursor cursor = iterator.next();
+            if ( cursor.range == range )
+            {
+                labelIds[count] = cursor.labelId;
+                bitmaps[count++] = cursor.bits;
+                if ( !cursor.next() )
+                {
+                    iterator.remove();
+                }
+            }
+        }
+        return new NativeNodeLabelRange( range, Arrays.copyOf( labelIds, count ), Arrays.copyOf( bitmaps, count ) );
+    }
+
+    private class LabelCursor
+    {
+        private final long labelId;
+        private final GBPTree.Seeker seeker;
+        private long range;
+        private long bits;
+
+        LabelCursor( long labelId )
+        {
+            this.labelId = labelId;
+            this.seeker = tree.seek( key( labelId, 0 ), key( labelId + 1, 0 ) );
+        }
+
+        boolean next() throws IOException
+        {
+            if ( !seeker.next() )
+            {
+                return false;
+            }
+            range = rangeId( seeker.key() );
+            bits = bits( seeker.value() );
+            return true;
+        }
+    }
+
+    /**
+     * The labels of the nodes of one range, with the range as id.
+     */
+    private static class NativeNodeLabelRange implements NodeLabelRange
+    {
+        private final long range;
+        private final long[] labelIds;
+        private final long[] bitmaps;
+        private final long[] nodeIds;
+
+        NativeNodeLabelRange( long range, long[] labelIds, long[] bitmaps )
+        {
+            this.range = range;
+            this.labelIds = labelIds;
+            this.bitmaps = bitmaps;
+            long union = 0;
+            for ( long bitmap : bitmaps )
+            {
+                union |= bitmap;
+            }
+            this.nodeIds = NativeLabelScanLayout.nodeIds( range, union );
+        }
+
+        @Override
+        public int id()
+        {
+            return (int) range;
+        }
+
+        @Override
+        public long[] nodes()
+        {
+            return nodeIds;
+        }
+
+        @Override
+        public long[] labels( long nodeId )
+        {
+            long bit = NativeLabelScanLayout.bitOf( nodeId );
+            long[] labels = new long[labelIds.length];
+            int count = 0;
+            for ( int i = 0; i < labelIds.length; i++ )
+            {
+                if ( (bitmaps[i] & bit) != 0 )
+                {
+                    labels[count++] = labelIds[i];
+                }
+            }
+            return Arrays.copyOf( labels, count );
+        }
+
+        @Override
+        public String toString()
+        {
+            return "NodeLabelRange[range=" + range + ", labels=" + Arrays.toString( labelIds ) + "]";
+        }
+    }
+}
@@ -0,0 +1,111 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+/**
+ * How the label scan store keeps its bitmaps in a {@link org.neo4j.kernel.impl.index.gbptree.GBPTree}: nodes are
+ * grouped into ranges of {@link #RANGE_SIZE} consecutive ids, and each range that has nodes with a certain label
+ * has an entry with the key {@code (labelId, rangeId)} and a bitmap of those nodes as value. Both parts of the key
+ * are big-endian, so the entries of a label are next to each other, in order of node id.
+ */
+final class NativeLabelScanLayout
+{
+    static final int RANGE_SHIFT = 6;
+    static final int RANGE_SIZE = 1 << RANGE_SHIFT;
+
+    private static final int KEY_SIZE = 4 + 8;
+    private static final int VALUE_SIZE = 8;
+
+    private NativeLabelScanLayout()
+    {
+    }
+
+    static long rangeOf( long nodeId )
+    {
+        return nodeId >>> RANGE_SHIFT;
+    }
+
+    static long bitOf( long nodeId )
+    {
+        return 1L << (nodeId & (RANGE_SIZE - 1));
+    }
+
+    static byte[] key( long labelId, long rangeId )
+    {
+        byte[] key = new byte[KEY_SIZE];
+        write( key, 0, labelId, 4 );
+        write( key, 4, rangeId, 8 );
+        return key;
+    }
+
+    static int labelId( byte[] key )
+    {
+        return (int) read( key, 0, 4 );
+    }
+
+    static long rangeId( byte[] key )
+    {
+        return read( key, 4, 8 );
+    }
+
+    static byte[] bitmap( long bits )
+    {
+        byte[] value = new byte[VALUE_SIZE];
+        write( value, 0, bits, VALUE_SIZE );
+        return value;
+    }
+
+    static long bits( byte[] value )
+    {
+        return value == null ? 0 : read( value, 0, VALUE_SIZE );
+    }
+
+    /**
+     * @return the ids of the nodes in the given bitmap of the given range, in ascending order.
+     */
+    static long[] nodeIds( long rangeId, long bits )
+    {
+        long[] nodeIds = new long[Long.bitCount( bits )];
+        for ( int i = 0; bits != 0; i++ )
+        {
+            nodeIds[i] = (rangeId << RANGE_SHIFT) + Long.numberOfTrailingZeros( bits );
+            bits &= bits - 1;
+        }
+        return nodeIds;
+    }
+
+    private static void write( byte[] target, int offset, long value, int size )
+    {
+        for ( int i = 0; i < size; i++ )
+        {
+            target[offset + i] = (byte) (value >>> ((size - 1 - i) * 8));
+        }
+    }
+
+    private static long read( byte[] source, int offset, int size )
+    {
+        long value = 0;
+        for ( int i = 0; i < size; i++ )
+        {
+            value = (value << 8) | (source[offset + i] & 0xFF);
+        }
+        return value;
+    }
+}
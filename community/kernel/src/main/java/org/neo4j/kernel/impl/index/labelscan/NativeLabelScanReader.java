@@ -0,0 +1,132 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections.PrimitiveLongBaseIterator;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.kernel.api.labelscan.LabelScanReader;
+import org.neo4j.kernel.impl.index.gbptree.GBPTree;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+
+import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanLayout.bitOf;
+import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanLayout.bits;
+import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanLayout.key;
+import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanLayout.labelId;
+import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanLayout.rangeId;
+import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanLayout.rangeOf;
+import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanLayout.RANGE_SHIFT;
+
+/**
+ * Reads the bitmaps straight from the tree, one leaf at the time, so there is nothing to acquire or release.
+ */
+class NativeLabelScanReader implements LabelScanReader
+{
+    private final GBPTree tree;
+
+    NativeLabelScanReader( GBPTree tree )
+    {
+        this.tree = tree;
+    }
+
+    @Override
+    public PrimitiveLongIterator nodesWithLabel( int labelId )
+    {
+        final GBPTree.Seeker seeker = tree.seek( key( labelId, 0 ), key( labelId + 1L, 0 ) );
+        return new PrimitiveLongBaseIterator()
+        {
+            private long base;
+            private long bits;
+
+            @Override
+            protected boolean fetchNext()
+            {
+                try
+                {
+                    while ( bits == 0 )
+                    {
+                        if ( !seeker.next() )
+                        {
+                            return false;
+                        }
+                        base = rangeId( seeker.key() ) << RANGE_SHIFT;
+                        bits = bits( seeker.value() );
+                    }
+                    long nodeId = base + Long.numberOfTrailingZeros( bits );
+                    bits &= bits - 1;
+                    return next( nodeId );
+                }
+                catch ( IOException e )
+                {
+                    throw new UnderlyingStorageException( e );
+                }
+            }
+        };
+    }
+
+    /**
+     * Finds the labels of a node by visiting each label in the tree, and looking for the range of the node there.
+     */
+    @Override
+    public Iterator<Long> labelsForNode( long nodeId )
+    {
+        long range = rangeOf( nodeId );
+        long bit = bitOf( nodeId );
+        List<Long> labelIds = new ArrayList<>();
+        try
+        {
+            byte[] from = key( 0, range );
+            while ( true )
+            {
+                GBPTree.Seeker seeker = tree.seek( from, null );
+                if ( !seeker.next() )
+                {
+                    break;
+                }
+                long labelId = labelId( seeker.key() );
+                long rangeId = rangeId( seeker.key() );
+                if ( rangeId < range )
+                {   // A label that we have not seen before, but that has no entry for the range of this node
+                    from = key( labelId, range );
+                    continue;
+                }
+                if ( rangeId == range && (bits( seeker.value() ) & bit) != 0 )
+                {
+                    labelIds.add( labelId );
+                }
+                from = key( labelId + 1, range );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+        return labelIds.iterator();
+    }
+
+    @Override
+    public void close()
+    {   // Nothing is held between reads
+    }
+}
@@ -0,0 +1,174 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.direct.AllEntriesLabelScanReader;
+import org.neo4j.kernel.api.labelscan.LabelScanReader;
+import org.neo4j.kernel.api.labelscan.LabelScanStore;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider.FullStoreChangeStream;
+import org.neo4j.kernel.impl.index.gbptree.GBPTree;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.unsafe.batchinsert.LabelScanWriter;
+
+import static java.util.Collections.singletonList;
+
+import static org.neo4j.helpers.collection.IteratorUtil.asResourceIterator;
+
+/**
+ * A {@link LabelScanStore} that keeps the same 64 node bitmaps as the Lucene label scan store, in a
+ * {@link GBPTree} in the {@link PageCache}, see {@link NativeLabelScanLayout}. Writes change the tree directly,
+ * and reads see them without any searcher to refresh.
+ * <p>
+ * A store that was not cleanly flushed when the database stopped is rebuilt from the node store on start,
+ * since its tree may have been only partly written to disk.
+ */
+public class NativeLabelScanStore implements LabelScanStore
+{
+    private final PageCache pageCache;
+    private final FileSystemAbstraction fs;
+    private final File file;
+    // We get in a full store stream here in case we need to fully rebuild the store if it's missing or broken.
+    private final FullStoreChangeStream fullStoreStream;
+    private final StringLogger logger;
+    private GBPTree tree;
+    private boolean needsRebuild;
+
+    public NativeLabelScanStore( PageCache pageCache, FileSystemAbstraction fs, File file,
+                                 FullStoreChangeStream fullStoreStream, StringLogger logger )
+    {
+        this.pageCache = pageCache;
+        this.fs = fs;
+        this.file = file;
+        this.fullStoreStream = fullStoreStream;
+        this.logger = logger;
+    }
+
+    @Override
+    public LabelScanReader newReader()
+    {
+        return new NativeLabelScanReader( tree );
+    }
+
+    @Override
+    public LabelScanWriter newWriter()
+    {
+        return new NativeLabelScanWriter( tree );
+    }
+
+    @Override
+    public void recover( Iterator<NodeLabelUpdate> updates ) throws IOException
+    {
+        // Writing an update sets and clears the bits given by its labels, so writing it again changes nothing
+        write( updates );
+    }
+
+    @Override
+    public void force() throws UnderlyingStorageException
+    {
+        try
+        {
+            tree.flush();
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
+    @Override
+    public AllEntriesLabelScanReader newAllEntriesReader()
+    {
+        return new NativeAllEntriesLabelScanReader( tree );
+    }
+
+    @Override
+    public ResourceIterator<File> snapshotStoreFiles() throws IOException
+    {
+        tree.flush();
+        return asResourceIterator( singletonList( file ).iterator() );
+    }
+
+    @Override
+    public void init() throws IOException
+    {
+        fs.mkdirs( file.getParentFile() );
+        if ( !fs.fileExists( file ) )
+        {
+            logger.info( "No native label scan store found, this might just be first use. Preparing to rebuild." );
+            needsRebuild = true;
+        }
+        tree = new GBPTree( pageCache, file );
+        if ( !needsRebuild && !tree.wasCleanOnOpen() )
+        {
+            logger.info( "Native label scan store was not cleanly shut down. Preparing to rebuild." );
+            tree.close();
+            fs.deleteFile( file );
+            tree = new GBPTree( pageCache, file );
+            needsRebuild = true;
+        }
+    }
+
+    @Override
+    public void start() throws IOException
+    {
+        if ( needsRebuild )
+        {   // we saw in init() that we need to rebuild the store, so do it here after the
+            // neostore has been properly started.
+            logger.info( "Rebuilding native label scan store, this may take a while" );
+            write( fullStoreStream.iterator() );
+            tree.flush();
+            logger.info( "Native label scan store rebuilt (roughly " + fullStoreStream.highestNodeId() + " nodes)" );
+            needsRebuild = false;
+        }
+    }
+
+    private void write( Iterator<NodeLabelUpdate> updates ) throws IOException
+    {
+        try ( LabelScanWriter writer = newWriter() )
+        {
+            while ( updates.hasNext() )
+            {
+                writer.write( updates.next() );
+            }
+        }
+    }
+
+    @Override
+    public void stop()
+    {   // Not needed
+    }
+
+    @Override
+    public void shutdown() throws IOException
+    {
+        tree.flush();
+        tree.close();
+        tree = null;
+    }
+}
@@ -0,0 +1,81 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import java.io.File;
+
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.helpers.Service;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.extension.KernelExtensionFactory;
+import org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider;
+import org.neo4j.kernel.impl.transaction.state.NeoStoreProvider;
+import org.neo4j.kernel.logging.Logging;
+
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.native_label_scan_store;
+import static org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider.fullStoreLabelUpdateStream;
+
+@Service.Implementation(KernelExtensionFactory.class)
+public class NativeLabelScanStoreExtension extends KernelExtensionFactory<NativeLabelScanStoreExtension.Dependencies>
+{
+    /**
+     * Above the Lucene label scan store when enabled, and below every other label scan store when not.
+     */
+    static final int ENABLED_PRIORITY = 20;
+    static final int DISABLED_PRIORITY = -1;
+
+    public interface Dependencies
+    {
+        Config getConfig();
+
+        PageCache getPageCache();
+
+        FileSystemAbstraction getFileSystem();
+
+        NeoStoreProvider getNeoStoreProvider();
+
+        Logging getLogging();
+    }
+
+    public NativeLabelScanStoreExtension()
+    {
+        super( "native-scan-store" );
+    }
+
+    @Override
+    public LabelScanStoreProvider newKernelExtension( Dependencies dependencies ) throws Throwable
+    {
+        Config config = dependencies.getConfig();
+        File storeDir = config.get( GraphDatabaseSettings.store_dir );
+        NativeLabelScanStore scanStore = new NativeLabelScanStore(
+                dependencies.getPageCache(), dependencies.getFileSystem(),
+
+                // <db>/schema/label/native/labels.db
+                new File( new File( new File( new File( storeDir, "schema" ), "label" ), "native" ), "labels.db" ),
+
+                fullStoreLabelUpdateStream( dependencies.getNeoStoreProvider() ),
+                dependencies.getLogging().getMessagesLog( NativeLabelScanStore.class ) );
+
+        int priority = config.get( native_label_scan_store ) ? ENABLED_PRIORITY : DISABLED_PRIORITY;
+        return new LabelScanStoreProvider( scanStore, priority );
+    }
+}
@@ -0,0 +1,124 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import java.io.IOException;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.impl.index.gbptree.GBPTree;
+import org.neo4j.unsafe.batchinsert.LabelScanWriter;
+
+import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanLayout.bitOf;
+import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanLayout.bitmap;
+import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanLayout.bits;
+import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanLayout.key;
+import static org.neo4j.kernel.impl.index.labelscan.NativeLabelScanLayout.rangeOf;
+
+/**
+ * Collects the updates of one node range at the time, like the Lucene label scan writer, and then changes the
+ * bitmap of each label that was added to or removed from any node in the range, once. Only one writer may be
+ * used at the time, since a bitmap is read and written back.
+ * <p>
+ * Labels are cleared and set according to the labels before and after of each update, so writing an update
+ * again changes nothing, which makes the writer usable for recovery as well.
+ */
+class NativeLabelScanWriter implements LabelScanWriter
+{
+    private static final int SET = 0;
+    private static final int CLEAR = 1;
+
+    private final GBPTree tree;
+    private final PrimitiveLongObjectMap<long[]> changesByLabel = Primitive.longObjectMap();
+    private long currentRange = -1;
+
+    NativeLabelScanWriter( GBPTree tree )
+    {
+        this.tree = tree;
+    }
+
+    @Override
+    public void write( NodeLabelUpdate update ) throws IOException
+    {
+        long range = rangeOf( update.getNodeId() );
+        if ( range != currentRange )
+        {
+            flush();
+            currentRange = range;
+        }
+
+        long bit = bitOf( update.getNodeId() );
+        for ( long labelId : update.getLabelsBefore() )
+        {
+            long[] changes = changes( labelId );
+            changes[SET] &= ~bit;
+            changes[CLEAR] |= bit;
+        }
+        for ( long labelId : update.getLabelsAfter() )
+        {
+            long[] changes = changes( labelId );
+            changes[CLEAR] &= ~bit;
+            changes[SET] |= bit;
+        }
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        flush();
+    }
+
+    private long[] changes( long labelId )
+    {
+        long[] changes = changesByLabel.get( labelId );
+        if ( changes == null )
+        {
+            changesByLabel.put( labelId, changes = new long[2] );
+        }
+        return changes;
+    }
+
+    private void flush() throws IOException
+    {
+        for ( PrimitiveLongIterator labelIds = changesByLabel.iterator(); labelIds.hasNext(); )
+        {
+            long labelId = labelIds.next();
+            long[] changes = changesByLabel.get( labelId );
+            byte[] key = key( labelId, currentRange );
+            long before = bits( tree.get( key ) );
+            long after = (before & ~changes[CLEAR]) | changes[SET];
+            if ( after == before )
+            {
+                continue;
+            }
+            if ( after == 0 )
+            {
+                tree.remove( key );
+            }
+            else
+            {
+                tree.put( key, bitmap( after ) );
+            }
+        }
+        changesByLabel.clear();
+    }
+}
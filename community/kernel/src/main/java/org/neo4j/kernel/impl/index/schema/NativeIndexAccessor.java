@@ -0,0 +1,143 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Iterator;
+
+import org.neo4j.graphdb.ResourceIterator;
+import org.neo4j.helpers.collection.PrefetchingIterator;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.direct.BoundedIterable;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
+import org.neo4j.kernel.impl.index.gbptree.GBPTree;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+
+import static java.util.Collections.singletonList;
+
+import static org.neo4j.helpers.collection.IteratorUtil.asResourceIterator;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.nodeId;
+
+class NativeIndexAccessor implements IndexAccessor
+{
+    private final FileSystemAbstraction fileSystem;
+    private final File file;
+    private final GBPTree tree;
+    private boolean closed;
+
+    NativeIndexAccessor( PageCache pageCache, FileSystemAbstraction fileSystem, File file ) throws IOException
+    {
+        this.fileSystem = fileSystem;
+        this.file = file;
+        this.tree = new GBPTree( pageCache, file );
+    }
+
+    @Override
+    public void drop() throws IOException
+    {
+        close();
+        fileSystem.deleteFile( file );
+    }
+
+    @Override
+    public IndexUpdater newUpdater( IndexUpdateMode mode )
+    {
+        // Updates are idempotent, so recovered updates need no special treatment
+        return new NativeIndexUpdater( tree );
+    }
+
+    @Override
+    public void force() throws IOException
+    {
+        tree.flush();
+    }
+
+    @Override
+    public synchronized void close() throws IOException
+    {
+        if ( !closed )
+        {
+            closed = true;
+            tree.close();
+        }
+    }
+
+    @Override
+    public IndexReader newReader()
+    {
+        return new NativeIndexReader( tree );
+    }
+
+    @Override
+    public BoundedIterable<Long> newAllEntriesReader()
+    {
+        return new BoundedIterable<Long>()
+        {
+            @Override
+            public long maxCount()
+            {
+                long count = 0;
+                for ( Iterator<Long> nodeIds = iterator(); nodeIds.hasNext(); nodeIds.next() )
+                {
+                    count++;
+                }
+                return count;
+            }
+
+            @Override
+            public void close()
+            {
+            }
+
+            @Override
+            public Iterator<Long> iterator()
+            {
+                final GBPTree.Seeker seeker = tree.seek( null, null );
+                return new PrefetchingIterator<Long>()
+                {
+                    @Override
+                    protected Long fetchNextOrNull()
+                    {
+                        try
+                        {
+                            return seeker.next() ? nodeId( seeker.key() ) : null;
+                        }
+                        catch ( IOException e )
+                        {
+                            throw new UnderlyingStorageException( e );
+                        }
+                    }
+                };
+            }
+        };
+    }
+
+    @Override
+    public ResourceIterator<File> snapshotFiles() throws IOException
+    {
+        tree.flush();
+        return asResourceIterator( singletonList( file ).iterator() );
+    }
+}
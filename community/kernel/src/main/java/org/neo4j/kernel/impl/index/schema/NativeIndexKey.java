@@ -0,0 +1,225 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+
+import org.neo4j.kernel.api.index.ArrayEncoder;
+import org.neo4j.kernel.api.index.IndexedNumbers;
+
+/**
+ * Encodes property values and node ids into {@link org.neo4j.kernel.impl.index.gbptree.GBPTree} keys, so that
+ * the unsigned byte order of the keys is the order of the values, and all entries of a value are next to each other.
+ * <p>
+ * A key starts with a type byte, grouping the values the same way as the Lucene schema index does: numbers together,
+ * arrays by their {@link ArrayEncoder encoding}, and all other values by their string form. Numbers are then written
+ * as eight sortable bytes of their double value, and eight more of how much larger than that a long is, so that longs
+ * which round to the same double are still apart and in order. Strings and arrays are written one char at the time,
+ * like UTF-8 but with surrogates encoded separately, with every zero byte escaped as {@code 00 FF} and a
+ * {@code 00 00} terminator, so that no encoded value is a prefix of another. The node id comes last, as eight
+ * big-endian bytes.
+ */
+final class NativeIndexKey
+{
+    static final byte NUMBER = 1;
+    static final byte ARRAY = 2;
+    static final byte BOOLEAN = 3;
+    static final byte STRING = 4;
+
+    /**
+     * Appended to a value key, this makes a key that is larger than every entry key of that value.
+     */
+    private static final byte AFTER = (byte) 0xFF;
+    private static final int NODE_ID_SIZE = 8;
+
+    private NativeIndexKey()
+    {
+    }
+
+    static byte[] entryKey( Object value, long nodeId )
+    {
+        return entryKey( valueKey( value ), nodeId );
+    }
+
+    static byte[] entryKey( byte[] valueKey, long nodeId )
+    {
+        byte[] key = Arrays.copyOf( valueKey, valueKey.length + NODE_ID_SIZE );
+        for ( int i = 0; i < NODE_ID_SIZE; i++ )
+        {
+            key[valueKey.length + i] = (byte) (nodeId >>> (56 - i * 8));
+        }
+        return key;
+    }
+
+    /**
+     * @return the size of the entry keys of the given value.
+     */
+    static int entryKeySize( Object value )
+    {
+        return valueKey( value ).length + NODE_ID_SIZE;
+    }
+
+    static long nodeId( byte[] entryKey )
+    {
+        long nodeId = 0;
+        for ( int i = entryKey.length - NODE_ID_SIZE; i < entryKey.length; i++ )
+        {
+            nodeId = (nodeId << 8) | (entryKey[i] & 0xFF);
+        }
+        return nodeId;
+    }
+
+    /**
+     * @return the value part of an entry key, which is equal for entries of equal values.
+     */
+    static byte[] valueKeyOf( byte[] entryKey )
+    {
+        return Arrays.copyOf( entryKey, entryKey.length - NODE_ID_SIZE );
+    }
+
+    /**
+     * @return whether the two entry keys are of the same value.
+     */
+    static boolean sameValue( byte[] entryKey, byte[] otherEntryKey )
+    {
+        if ( entryKey.length != otherEntryKey.length )
+        {
+            return false;
+        }
+        for ( int i = 0; i < entryKey.length - NODE_ID_SIZE; i++ )
+        {
+            if ( entryKey[i] != otherEntryKey[i] )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    static byte[] valueKey( Object value )
+    {
+        if ( value instanceof Number )
+        {
+            return numberKey( (Number) value );
+        }
+        if ( value instanceof Boolean )
+        {
+            return new byte[]{BOOLEAN, (byte) ((Boolean) value ? 1 : 0)};
+        }
+        if ( value.getClass().isArray() )
+        {
+            return stringKey( ARRAY, ArrayEncoder.encode( value ), true );
+        }
+        return stringKey( STRING, value.toString(), true );
+    }
+
+    static byte[] numberKey( Number value )
+    {
+        long bits = Double.doubleToLongBits( value.doubleValue() );
+        // Flip all bits of negative numbers and only the sign bit of positive ones, to make them sort as unsigned
+        bits ^= bits < 0 ? -1L : Long.MIN_VALUE;
+        long offset = IndexedNumbers.offsetFromDouble( value ) ^ Long.MIN_VALUE;
+        byte[] key = new byte[1 + 8 + 8];
+        key[0] = NUMBER;
+        for ( int i = 0; i < 8; i++ )
+        {
+            key[1 + i] = (byte) (bits >>> (56 - i * 8));
+            key[1 + 8 + i] = (byte) (offset >>> (56 - i * 8));
+        }
+        return key;
+    }
+
+    static byte[] stringKey( String value )
+    {
+        return stringKey( STRING, value, true );
+    }
+
+    /**
+     * @return a key that every string key starting with the given prefix starts with.
+     */
+    static byte[] prefixKey( String prefix )
+    {
+        return stringKey( STRING, prefix, false );
+    }
+
+    /**
+     * @return the smallest key of the given type.
+     */
+    static byte[] lowest( byte type )
+    {
+        return new byte[]{type};
+    }
+
+    /**
+     * @return a key larger than all keys of the given type.
+     */
+    static byte[] highest( byte type )
+    {
+        return new byte[]{(byte) (type + 1)};
+    }
+
+    /**
+     * @return a key that is larger than all keys starting with the given key.
+     */
+    static byte[] after( byte[] key )
+    {
+        byte[] after = Arrays.copyOf( key, key.length + 1 );
+        after[key.length] = AFTER;
+        return after;
+    }
+
+    private static byte[] stringKey( byte type, String value, boolean terminated )
+    {
+        ByteArrayOutputStream key = new ByteArrayOutputStream( value.length() + 3 );
+        key.write( type );
+        for ( int i = 0; i < value.length(); i++ )
+        {
+            // Each char on its own, surrogates too, so that keys sort like String.compareTo() and not by code point
+            char c = value.charAt( i );
+            if ( c == 0 )
+            {
+                key.write( 0 );
+                key.write( AFTER );
+            }
+            else if ( c < 0x80 )
+            {
+                key.write( c );
+            }
+            else if ( c < 0x800 )
+            {
+                key.write( 0xC0 | (c >> 6) );
+                key.write( 0x80 | (c & 0x3F) );
+            }
+            else
+            {
+                key.write( 0xE0 | (c >> 12) );
+                key.write( 0x80 | ((c >> 6) & 0x3F) );
+                key.write( 0x80 | (c & 0x3F) );
+            }
+        }
+        if ( terminated )
+        {
+            key.write( 0 );
+            key.write( 0 );
+        }
+        return key.toByteArray();
+    }
+}
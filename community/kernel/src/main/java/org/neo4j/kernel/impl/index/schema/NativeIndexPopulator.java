@@ -0,0 +1,242 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.exceptions.KernelException;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.api.index.PreexistingIndexEntryConflictException;
+import org.neo4j.kernel.api.index.PropertyAccessor;
+import org.neo4j.kernel.api.properties.DefinedProperty;
+import org.neo4j.kernel.api.properties.Property;
+import org.neo4j.kernel.impl.api.index.UpdateMode;
+import org.neo4j.kernel.impl.index.gbptree.GBPTree;
+
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.after;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.entryKey;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.nodeId;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.valueKey;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.valueKeyOf;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexUpdater.NO_VALUE;
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaIndexProvider.ONLINE;
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaIndexProvider.POPULATING;
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaIndexProvider.failedHeader;
+import static org.neo4j.kernel.impl.index.schema.NativeSchemaIndexProvider.header;
+
+/**
+ * Populates a tree from scratch. Uniqueness is verified after the fact, like for the Lucene index: entries of
+ * equal value keys are next to each other in the tree, and the values of the nodes are compared through the
+ * {@link PropertyAccessor}, since different values, such as large longs, can have the same key.
+ */
+class NativeIndexPopulator implements IndexPopulator
+{
+    private final PageCache pageCache;
+    private final FileSystemAbstraction fileSystem;
+    private final File file;
+    private final IndexDescriptor descriptor;
+    private final boolean unique;
+    private GBPTree tree;
+
+    NativeIndexPopulator( PageCache pageCache, FileSystemAbstraction fileSystem, File file,
+                          IndexDescriptor descriptor, boolean unique )
+    {
+        this.pageCache = pageCache;
+        this.fileSystem = fileSystem;
+        this.file = file;
+        this.descriptor = descriptor;
+        this.unique = unique;
+    }
+
+    @Override
+    public void create() throws IOException
+    {
+        closeTree();
+        fileSystem.deleteFile( file );
+        openTree();
+        tree.writeHeader( header( POPULATING ) );
+        tree.flush();
+    }
+
+    @Override
+    public void drop() throws IOException
+    {
+        closeTree();
+        fileSystem.deleteFile( file );
+    }
+
+    @Override
+    public void add( long nodeId, Object propertyValue ) throws IndexEntryConflictException, IOException
+    {
+        tree.put( entryKey( propertyValue, nodeId ), NO_VALUE );
+    }
+
+    @Override
+    public void verifyDeferredConstraints( PropertyAccessor accessor )
+            throws IndexEntryConflictException, IOException
+    {
+        if ( unique )
+        {
+            verifyUniqueness( tree.seek( null, null ), accessor );
+        }
+    }
+
+    @Override
+    public IndexUpdater newPopulatingUpdater( final PropertyAccessor accessor ) throws IOException
+    {
+        return new NativeIndexUpdater( tree )
+        {
+            private final List<Object> updatedValues = new ArrayList<>();
+
+            @Override
+            public void process( NodePropertyUpdate update ) throws IOException, IndexEntryConflictException
+            {
+                super.process( update );
+                if ( unique && update.getUpdateMode() != UpdateMode.REMOVED )
+                {
+                    updatedValues.add( update.getValueAfter() );
+                }
+            }
+
+            @Override
+            public void close() throws IOException, IndexEntryConflictException
+            {
+                for ( Object value : updatedValues )
+                {
+                    byte[] valueKey = valueKey( value );
+                    verifyUniqueness( tree.seek( valueKey, after( valueKey ) ), accessor );
+                }
+            }
+
+            @Override
+            public void remove( Iterable<Long> nodeIds )
+            {
+                throw new UnsupportedOperationException( "should not remove() from populating index" );
+            }
+        };
+    }
+
+    @Override
+    public void close( boolean populationCompletedSuccessfully ) throws IOException
+    {
+        if ( populationCompletedSuccessfully )
+        {
+            tree.writeHeader( header( ONLINE ) );
+            tree.flush();
+        }
+        closeTree();
+    }
+
+    @Override
+    public void markAsFailed( String failure ) throws IOException
+    {
+        if ( tree == null )
+        {
+            openTree();
+        }
+        tree.writeHeader( failedHeader( failure ) );
+        tree.flush();
+    }
+
+    private void openTree() throws IOException
+    {
+        fileSystem.mkdirs( file.getParentFile() );
+        tree = new GBPTree( pageCache, file );
+    }
+
+    private void closeTree() throws IOException
+    {
+        if ( tree != null )
+        {
+            tree.close();
+            tree = null;
+        }
+    }
+
+    /**
+     * Compares the values of all nodes that share a value key, and fails on the first two that are equal.
+     * Values are only fetched for keys that more than one node has.
+     */
+    private void verifyUniqueness( GBPTree.Seeker seeker, PropertyAccessor accessor )
+            throws IndexEntryConflictException, IOException
+    {
+        try
+        {
+            byte[] currentValueKey = null;
+            List<Long> nodeIds = new ArrayList<>();
+            List<Object> values = new ArrayList<>();
+            while ( seeker.next() )
+            {
+                byte[] valueKey = valueKeyOf( seeker.key() );
+                long nodeId = nodeId( seeker.key() );
+                if ( !Arrays.equals( valueKey, currentValueKey ) )
+                {
+                    currentValueKey = valueKey;
+                    nodeIds.clear();
+                    values.clear();
+                    nodeIds.add( nodeId );
+                    continue;
+                }
+                if ( values.isEmpty() )
+                {
+                    values.add( property( accessor, nodeIds.get( 0 ) ).value() );
+                }
+                DefinedProperty property = property( accessor, nodeId );
+                for ( int i = 0; i < values.size(); i++ )
+                {
+                    if ( property.valueEquals( values.get( i ) ) )
+                    {
+                        throw new PreexistingIndexEntryConflictException( values.get( i ), nodeIds.get( i ), nodeId );
+                    }
+                }
+                nodeIds.add( nodeId );
+                values.add( property.value() );
+            }
+        }
+        finally
+        {
+            seeker.close();
+        }
+    }
+
+    private DefinedProperty property( PropertyAccessor accessor, long nodeId )
+    {
+        try
+        {
+            return Property.property( descriptor.getPropertyKeyId(),
+                    accessor.getProperty( nodeId, descriptor.getPropertyKeyId() ).value() );
+        }
+        catch ( KernelException e )
+        {
+            throw new IllegalStateException(
+                    "Indexed node " + nodeId + " should exist and have the indexed property", e );
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections.PrimitiveLongBaseIterator;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.kernel.impl.index.gbptree.GBPTree;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.NUMBER;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.STRING;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.after;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.entryKey;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.highest;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.lowest;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.nodeId;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.numberKey;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.prefixKey;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.sameValue;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.stringKey;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.valueKey;
+
+/**
+ * Reads straight from the tree, so it sees all updates that were applied before each leaf is read.
+ */
+class NativeIndexReader implements IndexReader
+{
+    private final GBPTree tree;
+
+    NativeIndexReader( GBPTree tree )
+    {
+        this.tree = tree;
+    }
+
+    @Override
+    public PrimitiveLongIterator lookup( Object value )
+    {
+        byte[] valueKey = valueKey( value );
+        return seek( valueKey, after( valueKey ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower,
+                                                    Number upper, boolean includeUpper )
+    {
+        return seek(
+                lower == null ? lowest( NUMBER ) : lowerBound( numberKey( lower ), includeLower ),
+                upper == null ? highest( NUMBER ) : upperBound( numberKey( upper ), includeUpper ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByString( String lower, boolean includeLower,
+                                                    String upper, boolean includeUpper )
+    {
+        return seek(
+                lower == null ? lowest( STRING ) : lowerBound( stringKey( lower ), includeLower ),
+                upper == null ? highest( STRING ) : upperBound( stringKey( upper ), includeUpper ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+    {
+        byte[] prefixKey = prefixKey( prefix );
+        return seek( prefixKey, after( prefixKey ) );
+    }
+
+    /**
+     * Counting the entries means reading all of them, so the distinct values are counted among all of them too.
+     */
+    @Override
+    public IndexSample sampleIndex( long sampleSizeLimit )
+    {
+        try ( GBPTree.Seeker seeker = tree.seek( lowest( NUMBER ), highest( STRING ) ) )
+        {
+            long entries = 0, uniqueValues = 0;
+            byte[] previous = null;
+            while ( seeker.next() )
+            {
+                byte[] key = seeker.key();
+                if ( previous == null || !sameValue( previous, key ) )
+                {
+                    uniqueValues++;
+                }
+                entries++;
+                previous = key;
+            }
+            return new IndexSample( entries, uniqueValues, entries );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
+    @Override
+    public int getIndexedCount( long nodeId, Object propertyValue )
+    {
+        try
+        {
+            return tree.get( entryKey( propertyValue, nodeId ) ) != null ? 1 : 0;
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
+    @Override
+    public void close()
+    {   // Nothing is held between seeks
+    }
+
+    private static byte[] lowerBound( byte[] valueKey, boolean inclusive )
+    {
+        return inclusive ? valueKey : after( valueKey );
+    }
+
+    private static byte[] upperBound( byte[] valueKey, boolean inclusive )
+    {
+        return inclusive ? after( valueKey ) : valueKey;
+    }
+
+    private PrimitiveLongIterator seek( byte[] from, byte[] to )
+    {
+        final GBPTree.Seeker seeker = tree.seek( from, to );
+        return new PrimitiveLongBaseIterator()
+        {
+            @Override
+            protected boolean fetchNext()
+            {
+                try
+                {
+                    return seeker.next() && next( nodeId( seeker.key() ) );
+                }
+                catch ( IOException e )
+                {
+                    throw new UnderlyingStorageException( e );
+                }
+            }
+        };
+    }
+}
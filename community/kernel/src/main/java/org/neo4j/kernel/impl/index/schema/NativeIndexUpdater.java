@@ -0,0 +1,107 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.IOException;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongSet;
+import org.neo4j.kernel.api.index.IndexEntryConflictException;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.impl.index.gbptree.GBPTree;
+
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.entryKey;
+import static org.neo4j.kernel.impl.index.schema.NativeIndexKey.nodeId;
+
+/**
+ * Applies updates directly to the tree. Updates are idempotent, since an entry is the value and the node id,
+ * so updates can be applied again in recovery.
+ */
+class NativeIndexUpdater implements IndexUpdater
+{
+    static final byte[] NO_VALUE = new byte[0];
+
+    protected final GBPTree tree;
+
+    NativeIndexUpdater( GBPTree tree )
+    {
+        this.tree = tree;
+    }
+
+    @Override
+    public void process( NodePropertyUpdate update ) throws IOException, IndexEntryConflictException
+    {
+        long nodeId = update.getNodeId();
+        switch ( update.getUpdateMode() )
+        {
+            case ADDED:
+                tree.put( entryKey( update.getValueAfter(), nodeId ), NO_VALUE );
+                break;
+            case CHANGED:
+                tree.remove( entryKey( update.getValueBefore(), nodeId ) );
+                tree.put( entryKey( update.getValueAfter(), nodeId ), NO_VALUE );
+                break;
+            case REMOVED:
+                tree.remove( entryKey( update.getValueBefore(), nodeId ) );
+                break;
+            default:
+                throw new IllegalStateException( "Unknown update mode " + update.getUpdateMode() );
+        }
+    }
+
+    @Override
+    public void close() throws IOException, IndexEntryConflictException
+    {   // Updates are applied as they come
+    }
+
+    /**
+     * Removes all entries of the given nodes. The values of the entries are not known, so this scans the whole tree.
+     */
+    @Override
+    public void remove( Iterable<Long> nodeIds ) throws IOException
+    {
+        PrimitiveLongSet nodes = Primitive.longSet();
+        for ( long nodeId : nodeIds )
+        {
+            nodes.add( nodeId );
+        }
+        if ( nodes.isEmpty() )
+        {
+            return;
+        }
+
+        GBPTree.Seeker seeker = tree.seek( null, null );
+        try
+        {
+            while ( seeker.next() )
+            {
+                if ( nodes.contains( nodeId( seeker.key() ) ) )
+                {
+                    tree.remove( seeker.key() );
+                }
+            }
+        }
+        finally
+        {
+            seeker.close();
+        }
+    }
+}
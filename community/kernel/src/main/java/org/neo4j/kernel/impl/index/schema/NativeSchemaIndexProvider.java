@@ -0,0 +1,190 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexConfiguration;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.InternalIndexState;
+import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.impl.index.gbptree.GBPTree;
+import org.neo4j.kernel.impl.util.Charsets;
+
+/**
+ * A {@link SchemaIndexProvider} that keeps each index in a {@link GBPTree}, in a file of its own that is accessed
+ * through the {@link PageCache}. Updates go straight into the tree, and are seen by the readers that come after,
+ * without any searcher to refresh.
+ * <p>
+ * The state of an index is kept in the header of its tree. An index that was not cleanly flushed before shutdown
+ * is reported as {@link InternalIndexState#POPULATING}, and thereby rebuilt from the store.
+ */
+public class NativeSchemaIndexProvider extends SchemaIndexProvider
+{
+    public static final String KEY = "native-gbptree";
+
+    public static final SchemaIndexProvider.Descriptor PROVIDER_DESCRIPTOR =
+            new SchemaIndexProvider.Descriptor( KEY, "1.0" );
+
+    static final byte POPULATING = 0;
+    static final byte ONLINE = 1;
+    static final byte FAILED = 2;
+
+    private final PageCache pageCache;
+    private final FileSystemAbstraction fileSystem;
+    private final File rootDirectory;
+    private final Map<Long, String> failures = new HashMap<>();
+
+    public NativeSchemaIndexProvider( PageCache pageCache, FileSystemAbstraction fileSystem, File storeDir,
+                                      int priority )
+    {
+        super( PROVIDER_DESCRIPTOR, priority );
+        this.pageCache = pageCache;
+        this.fileSystem = fileSystem;
+        this.rootDirectory = getRootDirectory( storeDir, KEY );
+    }
+
+    @Override
+    public IndexPopulator getPopulator( long indexId, IndexDescriptor descriptor, IndexConfiguration config )
+    {
+        return new NativeIndexPopulator( pageCache, fileSystem, indexFile( indexId ), descriptor, config.isUnique() );
+    }
+
+    @Override
+    public IndexAccessor getOnlineAccessor( long indexId, IndexConfiguration config ) throws IOException
+    {
+        return new NativeIndexAccessor( pageCache, fileSystem, indexFile( indexId ) );
+    }
+
+    @Override
+    public boolean seeksInOrder()
+    {
+        // Entries are sorted by value in the tree, see NativeIndexKey
+        return true;
+    }
+
+    /**
+     * The entry of a value, its key and the node id, has to fit in a tree page, see {@link GBPTree#maxEntrySize()}.
+     */
+    @Override
+    public void validateValue( Object value )
+    {
+        int entrySize = NativeIndexKey.entryKeySize( value ) + NativeIndexUpdater.NO_VALUE.length;
+        int maxEntrySize = GBPTree.maxEntrySize( pageCache.pageSize() );
+        if ( entrySize > maxEntrySize )
+        {
+            throw new IllegalArgumentException( "Property value is too large to index: its index entry would be " +
+                    entrySize + " bytes, but at most " + maxEntrySize + " bytes fit in an entry of a " + KEY +
+                    " index" );
+        }
+    }
+
+    @Override
+    public InternalIndexState getInitialState( long indexId )
+    {
+        File file = indexFile( indexId );
+        if ( !fileSystem.fileExists( file ) )
+        {
+            return InternalIndexState.POPULATING;
+        }
+        try ( GBPTree tree = new GBPTree( pageCache, file ) )
+        {
+            byte[] header = tree.readHeader();
+            byte state = header.length == 0 ? POPULATING : header[0];
+            switch ( state )
+            {
+                case FAILED:
+                    return InternalIndexState.FAILED;
+                case ONLINE:
+                    // Changes that were not flushed may be missing from the tree, so it has to be built again
+                    return tree.wasCleanOnOpen() ? InternalIndexState.ONLINE : InternalIndexState.POPULATING;
+                default:
+                    return InternalIndexState.POPULATING;
+            }
+        }
+        catch ( IOException e )
+        {
+            failures.put( indexId, "Could not open index: " + e.getMessage() );
+            return InternalIndexState.FAILED;
+        }
+    }
+
+    @Override
+    public String getPopulationFailure( long indexId ) throws IllegalStateException
+    {
+        String failure = null;
+        File file = indexFile( indexId );
+        if ( fileSystem.fileExists( file ) )
+        {
+            try ( GBPTree tree = new GBPTree( pageCache, file ) )
+            {
+                failure = failure( tree.readHeader() );
+            }
+            catch ( IOException e )
+            {
+                // The failure to open it is kept among the failures below
+            }
+        }
+        if ( failure == null )
+        {
+            failure = failures.get( indexId );
+        }
+        if ( failure == null )
+        {
+            throw new IllegalStateException( "Index " + indexId + " isn't failed" );
+        }
+        return failure;
+    }
+
+    private File indexFile( long indexId )
+    {
+        return new File( rootDirectory, indexId + ".db" );
+    }
+
+    static byte[] header( byte state )
+    {
+        return new byte[]{state};
+    }
+
+    static byte[] failedHeader( String failure )
+    {
+        byte[] message = failure.getBytes( Charsets.UTF_8 );
+        byte[] header = new byte[1 + message.length];
+        header[0] = FAILED;
+        System.arraycopy( message, 0, header, 1, message.length );
+        return header;
+    }
+
+    private static String failure( byte[] header )
+    {
+        if ( header.length == 0 || header[0] != FAILED )
+        {
+            return null;
+        }
+        return new String( header, 1, header.length - 1, Charsets.UTF_8 );
+    }
+}
@@ -0,0 +1,63 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import org.neo4j.helpers.Service;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.extension.KernelExtensionFactory;
+
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.native_schema_indexes;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.store_dir;
+
+@Service.Implementation(KernelExtensionFactory.class)
+public class NativeSchemaIndexProviderFactory extends
+        KernelExtensionFactory<NativeSchemaIndexProviderFactory.Dependencies>
+{
+    /**
+     * Above the Lucene provider when enabled, and below every other provider when not.
+     */
+    static final int ENABLED_PRIORITY = 2;
+    static final int DISABLED_PRIORITY = -1;
+
+    public interface Dependencies
+    {
+        Config getConfig();
+
+        PageCache getPageCache();
+
+        FileSystemAbstraction getFileSystem();
+    }
+
+    public NativeSchemaIndexProviderFactory()
+    {
+        super( NativeSchemaIndexProvider.KEY );
+    }
+
+    @Override
+    public NativeSchemaIndexProvider newKernelExtension( Dependencies dependencies ) throws Throwable
+    {
+        Config config = dependencies.getConfig();
+        int priority = config.get( native_schema_indexes ) ? ENABLED_PRIORITY : DISABLED_PRIORITY;
+        return new NativeSchemaIndexProvider( dependencies.getPageCache(), dependencies.getFileSystem(),
+                config.get( store_dir ), priority );
+    }
+}
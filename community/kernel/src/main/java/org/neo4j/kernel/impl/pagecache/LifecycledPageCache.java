@@ -28,12 +28,14 @@ import org.neo4j.io.pagecache.monitoring.PageCacheMonitor;
 import org.neo4j.io.pagecache.PageSwapperFactory;
 import org.neo4j.io.pagecache.PagedFile;
 import org.neo4j.io.pagecache.RunnablePageCache;
+import org.neo4j.io.pagecache.impl.muninn.EvictionPolicies;
 import org.neo4j.io.pagecache.impl.muninn.MuninnPageCache;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.util.JobScheduler;
 import org.neo4j.kernel.impl.util.StringLogger;
 import org.neo4j.kernel.lifecycle.LifecycleAdapter;
 
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.mapped_memory_eviction_policy;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.mapped_memory_page_size;
 import static org.neo4j.graphdb.factory.GraphDatabaseSettings.mapped_memory_total_size;
 
@@ -54,7 +56,8 @@ public class LifecycledPageCache extends LifecycleAdapter implements PageCache
                 swapperFactory,
                 calculateMaxPages( config ),
                 calculatePageSize( config ),
-                monitor );
+                monitor,
+                EvictionPolicies.forName( config.get( mapped_memory_eviction_policy ) ) );
     }
 
     private static int calculateMaxPages( Config config )
@@ -105,6 +108,12 @@ public class LifecycledPageCache extends LifecycleAdapter implements PageCache
         return pageCache.map( file, filePageSize );
     }
 
+    @Override
+    public PagedFile map( File file, int filePageSize, int reservedPercentage ) throws IOException
+    {
+        return pageCache.map( file, filePageSize, reservedPercentage );
+    }
+
     @Override
     public void flush() throws IOException
     {
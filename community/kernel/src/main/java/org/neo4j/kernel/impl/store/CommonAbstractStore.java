@@ -218,7 +218,7 @@ public abstract class CommonAbstractStore implements IdSequence, AutoCloseable
             try
             {
                 int filePageSize = pageCache.pageSize() - pageCache.pageSize() % getEffectiveRecordSize();
-                storeFile = pageCache.map( getStorageFileName(), filePageSize );
+                storeFile = pageCache.map( getStorageFileName(), filePageSize, getPageCacheReservation() );
             }
             catch ( IOException e )
             {
@@ -233,6 +233,16 @@ public abstract class CommonAbstractStore implements IdSequence, AutoCloseable
         }
     }
 
+    /**
+     * Returns the percentage of the page cache to reserve for this store, when it is mapped. Small and frequently
+     * used stores can override this, to keep their pages from being evicted by the larger stores.
+     * This method is called by constructors, through {@link #loadStorage()}.
+     */
+    protected int getPageCacheReservation()
+    {
+        return 0;
+    }
+
     protected long pageIdForRecord( long id )
     {
         return id * getEffectiveRecordSize() / storeFile.pageSize();
@@ -248,6 +258,28 @@ public abstract class CommonAbstractStore implements IdSequence, AutoCloseable
         return storeFile.pageSize() / getEffectiveRecordSize();
     }
 
+    /**
+     * Pins the page of the given record with {@link PagedFile#PF_READ_AHEAD}, if it is the first record of its page.
+     * Scans that read one record at a time open a cursor for every record, but as long as the pages these read-ahead
+     * cursors land on follow one another, the page cache sees a sequential scan.
+     */
+    public void readAhead( long id )
+    {
+        long pageId = pageIdForRecord( id );
+        if ( id > 0 && pageIdForRecord( id - 1 ) == pageId )
+        {
+            return;
+        }
+        try ( PageCursor cursor = storeFile.io( pageId, PF_SHARED_LOCK | PF_READ_AHEAD ) )
+        {
+            cursor.next();
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+    }
+
     protected abstract int getEffectiveRecordSize();
 
     /**
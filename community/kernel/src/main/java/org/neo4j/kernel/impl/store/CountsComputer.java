@@ -58,6 +58,7 @@ public class CountsComputer
         // count nodes
         for ( long id = 0, highId = nodes.getHighId(); id <= highId; id++ )
         {
+            nodes.readAhead( id );
             NodeRecord record = nodes.forceGetRecord( id );
             if ( record.inUse() )
             {
@@ -67,6 +68,7 @@ public class CountsComputer
         // count relationships
         for ( long id = 0, highId = relationships.getHighId(); id <= highId; id++ )
         {
+            relationships.readAhead( id );
             RelationshipRecord record = relationships.forceGetRecord( id );
             if ( record.inUse() )
             {
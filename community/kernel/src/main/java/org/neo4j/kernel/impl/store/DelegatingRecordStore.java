@@ -139,4 +139,10 @@ public class DelegatingRecordStore<R extends AbstractBaseRecord> implements Reco
     {
         return delegate.getNumberOfReservedLowIds();
     }
+
+    @Override
+    public void readAhead( long id )
+    {
+        delegate.readAhead( id );
+    }
 }
@@ -163,6 +163,31 @@ public class InlineNodeLabels implements NodeLabels
         return result;
     }
 
+    /**
+     * @return whether the given in-lined label field contains the given label, without parsing the labels into
+     * an array.
+     */
+    public static boolean inlinedContains( long labelField, long labelId )
+    {
+        byte numberOfLabels = labelCount( labelField );
+        if ( numberOfLabels == 0 )
+        {
+            return false;
+        }
+
+        long body = parseLabelsBody( labelField );
+        int bitsPerLabel = LABEL_BITS / numberOfLabels;
+        long mask = (1L << bitsPerLabel) - 1;
+        for ( int i = 0; i < numberOfLabels; i++ )
+        {
+            if ( ((body >>> (i * bitsPerLabel)) & mask) == labelId )
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     private static long combineLabelCountAndLabelStorage( byte labelCount, long labelBits )
     {
         return ((((long)labelCount) << 36) | labelBits);
@@ -27,6 +27,9 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Iterator;
 
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.graphdb.config.Setting;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.helpers.Pair;
 import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.io.fs.FileSystemAbstraction;
@@ -70,6 +73,8 @@ public class NodeStore extends AbstractRecordStore<NodeRecord> implements Store
     public static abstract class Configuration
         extends AbstractStore.Configuration
     {
+        public static final Setting<Integer> mapped_memory_reservation =
+                GraphDatabaseSettings.nodestore_mapped_memory_reservation;
     }
 
     public static final String TYPE_DESCRIPTOR = "NodeStore";
@@ -101,6 +106,12 @@ public class NodeStore extends AbstractRecordStore<NodeRecord> implements Store
         processor.processNode( this, record );
     }
 
+    @Override
+    protected int getPageCacheReservation()
+    {
+        return configuration.get( Configuration.mapped_memory_reservation );
+    }
+
     @Override
     public String getTypeDescriptor()
     {
@@ -339,6 +350,15 @@ public class NodeStore extends AbstractRecordStore<NodeRecord> implements Store
         record.setLabelField( labels, Collections.<DynamicRecord>emptyList() );
     }
 
+    /**
+     * @return the ids of the nodes with the given label, found by reading through the whole store, see
+     * {@link NodeStoreLabelScan}. Cheaper than the label scan store when most nodes have the label.
+     */
+    public PrimitiveLongIterator scanForLabel( int labelId )
+    {
+        return new NodeStoreLabelScan( this, labelId );
+    }
+
     public DynamicArrayStore getDynamicLabelStore()
     {
         return dynamicLabelStore;
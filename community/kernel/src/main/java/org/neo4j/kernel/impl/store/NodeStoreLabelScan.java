@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store;
+
+import java.io.IOException;
+import java.util.Collections;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections.PrimitiveLongBaseIterator;
+import org.neo4j.io.pagecache.PageCursor;
+import org.neo4j.kernel.impl.store.record.DynamicRecord;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+
+import static org.neo4j.io.pagecache.PagedFile.PF_READ_AHEAD;
+import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_LOCK;
+import static org.neo4j.kernel.impl.store.NodeLabelsField.fieldPointsToDynamicRecordOfLabels;
+
+/**
+ * Finds the nodes with a given label by reading the node store sequentially, one page at the time, and checking the
+ * in-lined labels of each record where it lies in the page, without loading it into a {@link NodeRecord}. Only nodes
+ * with too many labels to in-line have their labels loaded from the dynamic label store. Nodes come in id order.
+ * <p>
+ * No page is kept pinned between calls, so the iterator need not be closed. Like the scan over all nodes, it reads
+ * up to the highest id in use, and goes on if that has grown by the time it gets there.
+ */
+class NodeStoreLabelScan extends PrimitiveLongBaseIterator
+{
+    // in_use(byte)+next_rel_id(int)+next_prop_id(int)
+    private static final int LABELS_OFFSET = 9;
+    private static final long INLINED_MATCH = -1;
+
+    private final NodeStore store;
+    private final long labelId;
+    private final int recordSize;
+    private final int recordsPerPage;
+    private final long[] candidateIds;
+    private final long[] candidateLabelFields;
+    private final long[] matches;
+    private int matchCount;
+    private int matchIndex;
+    private long nextPageId;
+    private long highId;
+
+    NodeStoreLabelScan( NodeStore store, long labelId )
+    {
+        this.store = store;
+        this.labelId = labelId;
+        this.recordSize = store.getEffectiveRecordSize();
+        this.recordsPerPage = store.recordsPerPage();
+        this.candidateIds = new long[recordsPerPage];
+        this.candidateLabelFields = new long[recordsPerPage];
+        this.matches = new long[recordsPerPage];
+        this.highId = store.getHighestPossibleIdInUse();
+    }
+
+    @Override
+    protected boolean fetchNext()
+    {
+        while ( matchIndex >= matchCount )
+        {
+            if ( nextPageId * recordsPerPage > highId )
+            {
+                long newHighId = store.getHighestPossibleIdInUse();
+                if ( newHighId <= highId )
+                {
+                    return false;
+                }
+                highId = newHighId;
+            }
+            scanPage( nextPageId++ );
+        }
+        return next( matches[matchIndex++] );
+    }
+
+    private void scanPage( long pageId )
+    {
+        int candidates = 0;
+        try ( PageCursor cursor = store.storeFile.io( pageId, PF_SHARED_LOCK | PF_READ_AHEAD ) )
+        {
+            if ( cursor.next() )
+            {
+                do
+                {
+                    candidates = 0;
+                    long firstId = pageId * recordsPerPage;
+                    for ( int i = 0; i < recordsPerPage && firstId + i <= highId; i++ )
+                    {
+                        int offset = i * recordSize;
+                        cursor.setOffset( offset );
+                        if ( !store.isInUse( cursor.getByte() ) )
+                        {
+                            continue;
+                        }
+                        cursor.setOffset( offset + LABELS_OFFSET );
+                        long lsbLabels = cursor.getUnsignedInt();
+                        long hsbLabels = cursor.getByte() & 0xFF;
+                        long labelField = lsbLabels | (hsbLabels << 32);
+                        if ( fieldPointsToDynamicRecordOfLabels( labelField ) )
+                        {
+                            candidateIds[candidates] = firstId + i;
+                            candidateLabelFields[candidates++] = labelField;
+                        }
+                        else if ( InlineNodeLabels.inlinedContains( labelField, labelId ) )
+                        {
+                            candidateIds[candidates] = firstId + i;
+                            candidateLabelFields[candidates++] = INLINED_MATCH;
+                        }
+                    }
+                }
+                while ( cursor.shouldRetry() );
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( e );
+        }
+
+        // The dynamic labels are read after the page is let go, and outside of its retry loop
+        matchCount = 0;
+        matchIndex = 0;
+        for ( int i = 0; i < candidates; i++ )
+        {
+            if ( candidateLabelFields[i] == INLINED_MATCH || hasDynamicLabel( candidateIds[i], candidateLabelFields[i] ) )
+            {
+                matches[matchCount++] = candidateIds[i];
+            }
+        }
+    }
+
+    private boolean hasDynamicLabel( long nodeId, long labelField )
+    {
+        NodeRecord node = new NodeRecord( nodeId );
+        node.setLabelField( labelField, Collections.<DynamicRecord>emptyList() );
+        try
+        {
+            for ( long label : DynamicNodeLabels.get( node, store ) )
+            {
+                if ( label == labelId )
+                {
+                    return true;
+                }
+            }
+        }
+        catch ( InvalidRecordException e )
+        {
+            // The node was changed after its record was read, and its labels are gone
+        }
+        return false;
+    }
+}
@@ -74,6 +74,12 @@ public interface RecordStore<R extends AbstractBaseRecord> extends IdSequence
 
     int getNumberOfReservedLowIds();
 
+    /**
+     * Tells the store that records are being read in id order, one at a time, and that the record with the given id
+     * is the next one. Such scans get the pages ahead of them loaded in the background.
+     */
+    void readAhead( long id );
+
     Predicate<AbstractBaseRecord> IN_USE = new Predicate<AbstractBaseRecord>()
     {
         @Override
@@ -23,6 +23,8 @@ import java.io.File;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
+import org.neo4j.graphdb.config.Setting;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCursor;
@@ -39,6 +41,13 @@ import static org.neo4j.io.pagecache.PagedFile.PF_SHARED_LOCK;
 
 public class RelationshipGroupStore extends AbstractRecordStore<RelationshipGroupRecord> implements Store
 {
+    public static abstract class Configuration
+        extends AbstractStore.Configuration
+    {
+        public static final Setting<Integer> mapped_memory_reservation =
+                GraphDatabaseSettings.relationshipgroupstore_mapped_memory_reservation;
+    }
+
     /* Record layout
      *
      * [type+inUse+highbits,next,firstOut,firstIn,firstLoop,owningNode] = 25B
@@ -283,6 +292,12 @@ public class RelationshipGroupStore extends AbstractRecordStore<RelationshipGrou
         return RECORD_SIZE;
     }
 
+    @Override
+    protected int getPageCacheReservation()
+    {
+        return configuration.get( Configuration.mapped_memory_reservation );
+    }
+
     @Override
     public String getTypeDescriptor()
     {
@@ -22,6 +22,8 @@ package org.neo4j.kernel.impl.store;
 import java.io.File;
 import java.io.IOException;
 
+import org.neo4j.graphdb.config.Setting;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.io.pagecache.PageCursor;
@@ -45,6 +47,8 @@ public class RelationshipStore extends AbstractRecordStore<RelationshipRecord> i
     public static abstract class Configuration
         extends AbstractStore.Configuration
     {
+        public static final Setting<Integer> mapped_memory_reservation =
+                GraphDatabaseSettings.relationshipstore_mapped_memory_reservation;
     }
 
     public static final String TYPE_DESCRIPTOR = "RelationshipStore";
@@ -75,6 +79,12 @@ public class RelationshipStore extends AbstractRecordStore<RelationshipRecord> i
         processor.processRelationship( this, record );
     }
 
+    @Override
+    protected int getPageCacheReservation()
+    {
+        return configuration.get( Configuration.mapped_memory_reservation );
+    }
+
     @Override
     public String getTypeDescriptor()
     {
@@ -19,6 +19,7 @@
  */
 package org.neo4j.kernel.impl.store;
 
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
 
@@ -90,7 +91,17 @@ public class SchemaStorage implements SchemaRuleAccess
      *
      * Otherwise throw if there are not exactly one matching candidate rule.
      */
-    public IndexRule indexRule( int labelId, final int propertyKeyId, IndexRuleKind kind )
+    public IndexRule indexRule( int labelId, int propertyKeyId, IndexRuleKind kind )
+    {
+        return indexRule( labelId, new int[]{propertyKeyId}, kind );
+    }
+
+    /**
+     * Find an IndexRule of the given kind, for the given label and exactly the given properties, in order.
+     *
+     * Otherwise throw if there are not exactly one matching candidate rule.
+     */
+    public IndexRule indexRule( int labelId, final int[] propertyKeyIds, IndexRuleKind kind )
     {
         Iterator<IndexRule> rules = schemaRules(
                 IndexRule.class, labelId,
@@ -99,7 +110,7 @@ public class SchemaStorage implements SchemaRuleAccess
                     @Override
                     public boolean accept( IndexRule item )
                     {
-                        return item.getPropertyKey() == propertyKeyId;
+                        return Arrays.equals( item.getPropertyKeys(), propertyKeyIds );
                     }
                 } );
 
@@ -61,6 +61,7 @@ public class StoreIdIterator implements PrimitiveLongIterator
             throw new NoSuchElementException(
                     format( "ID [%s] has exceeded the high ID [%s] of %s.", id, highId, store ) );
         }
+        store.readAhead( id );
         return id++;
     }
 }
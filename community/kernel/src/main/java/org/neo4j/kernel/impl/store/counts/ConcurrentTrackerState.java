@@ -19,28 +19,55 @@
  */
 package org.neo4j.kernel.impl.store.counts;
 
+import static org.neo4j.kernel.impl.api.CountsKey.nodeKey;
+import static org.neo4j.kernel.impl.api.CountsKey.relationshipKey;
 import static org.neo4j.register.Register.LongRegister;
 
 import java.io.File;
 import java.io.IOException;
 import java.util.Arrays;
-import java.util.ConcurrentModificationException;
-import java.util.Iterator;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 import org.neo4j.kernel.impl.api.CountsKey;
 import org.neo4j.kernel.impl.store.kvstore.KeyValueRecordVisitor;
 import org.neo4j.kernel.impl.store.kvstore.SortedKeyValueStore;
 import org.neo4j.register.Registers;
 
+/**
+ * Keeps the changes to the counts since the last rotation, as deltas on top of the values in the store.
+ *
+ * The delta of each count is kept in a {@link StripedCount}, much like a {@code LongAdder}: each updating thread
+ * adds to the stripe picked by its thread id, so concurrent transactions rarely contend on the same stripe, even when
+ * they update the same counts. The counts are keyed by a primitive encoding of the {@link CountsKey}, so that no key
+ * objects are created on update. Reading a count sums up its stripes with plain volatile reads, without taking any
+ * locks, and so does writing the state out on rotation.
+ *
+ * The few relationship counts whose ids are too large to fit in the encoding go through a map keyed by
+ * {@link CountsKey} objects instead.
+ *
+ * Since reading a count means summing up all the stripes, and concurrent updates to different stripes can make
+ * such a sum briefly negative, counts are only asserted not to be negative when they are merged with the store on
+ * rotation, where the updates have stopped.
+ */
 class ConcurrentTrackerState implements CountsTracker.State
 {
     private static final int INITIAL_CHANGES_CAPACITY = 1024;
+    private static final int STRIPES = Integer.highestOneBit( Runtime.getRuntime().availableProcessors() * 4 - 1 );
+    private static final int STRIPE_MASK = STRIPES - 1;
+
+    // Relationship keys are encoded as three 21 bit fields, holding the ids plus one, so that ANY (-1) becomes zero.
+    private static final int FIELD_BITS = 21;
+    private static final long FIELD_MASK = (1L << FIELD_BITS) - 1;
+    private static final long RELATIONSHIP_KEY_TAG = Long.MIN_VALUE;
+    private static final long UNENCODABLE = Long.MAX_VALUE;
+
     private final SortedKeyValueStore<CountsKey, LongRegister> store;
-    private final ConcurrentMap<CountsKey, AtomicLong> state = new ConcurrentHashMap<>( INITIAL_CHANGES_CAPACITY );
+    private final ConcurrentMap<Long, StripedCount> deltas = new ConcurrentHashMap<>( INITIAL_CHANGES_CAPACITY );
+    private final ConcurrentMap<CountsKey, AtomicLong> unencodable = new ConcurrentHashMap<>();
 
     ConcurrentTrackerState( SortedKeyValueStore<CountsKey, LongRegister> store )
     {
@@ -55,7 +82,7 @@ class ConcurrentTrackerState implements CountsTracker.State
 
     public boolean hasChanges()
     {
-        return !state.isEmpty();
+        return !deltas.isEmpty() || !unencodable.isEmpty();
     }
 
     @Override
@@ -63,36 +90,65 @@ class ConcurrentTrackerState implements CountsTracker.State
     {
         /*
          * no need to copy values in the state since we delegate the caching to the page cache in CountStore.get(key)
-         * moreover it will be faster to sort entries in the state if we do not add extra value when reading there
-         * (see Merger)
          */
-        final AtomicLong count = state.get( key );
-        if ( count != null )
+        final LongRegister value = Registers.newLongRegister();
+        store.get( key, value );
+        long count = value.read();
+
+        long encoded = encode( key );
+        if ( encoded == UNENCODABLE )
         {
-            return count.get();
+            AtomicLong delta = unencodable.get( key );
+            return delta == null ? count : count + delta.get();
         }
+        StripedCount delta = deltas.get( encoded );
+        return delta == null ? count : count + delta.sum();
+    }
 
-        final LongRegister value = Registers.newLongRegister();
-        store.get( key, value );
-        return value.read();
+    @Override
+    public void updateNodeCount( int labelId, long delta )
+    {
+        stripedCount( encodeNodeKey( labelId ) ).add( delta );
     }
 
     @Override
-    public long updateCount( CountsKey key, long delta )
+    public void updateRelationshipCount( int startLabelId, int typeId, int endLabelId, long delta )
     {
-        AtomicLong count = state.get( key );
+        long encoded = encodeRelationshipKey( startLabelId, typeId, endLabelId );
+        if ( encoded == UNENCODABLE )
+        {
+            CountsKey key = relationshipKey( startLabelId, typeId, endLabelId );
+            AtomicLong count = unencodable.get( key );
+            if ( count == null )
+            {
+                AtomicLong proposal = new AtomicLong();
+                count = unencodable.putIfAbsent( key, proposal );
+                if ( count == null )
+                {
+                    count = proposal;
+                }
+            }
+            count.addAndGet( delta );
+        }
+        else
+        {
+            stripedCount( encoded ).add( delta );
+        }
+    }
+
+    private StripedCount stripedCount( long encoded )
+    {
+        StripedCount count = deltas.get( encoded );
         if ( count == null )
         {
-            final LongRegister value = Registers.newLongRegister();
-            store.get( key, value );
-            AtomicLong proposal = new AtomicLong( value.read() );
-            count = state.putIfAbsent( key, proposal );
+            StripedCount proposal = new StripedCount();
+            count = deltas.putIfAbsent( encoded, proposal );
             if ( count == null )
             {
                 count = proposal;
             }
         }
-        return count.addAndGet( delta );
+        return count;
     }
 
     @Override
@@ -117,7 +173,7 @@ class ConcurrentTrackerState implements CountsTracker.State
     @Override
     public void accept( KeyValueRecordVisitor<CountsKey, LongRegister> visitor )
     {
-        try ( Merger<CountsKey> merger = new Merger<>( visitor, sortedUpdates( state ) ) )
+        try ( Merger<CountsKey> merger = new Merger<>( visitor, sortedUpdates() ) )
         {
             store.accept( merger );
         }
@@ -129,27 +185,88 @@ class ConcurrentTrackerState implements CountsTracker.State
         store.close();
     }
 
-    private static Update<CountsKey>[] sortedUpdates( ConcurrentMap<CountsKey, AtomicLong> updates )
+    /**
+     * Sum up the stripes of all the deltas. Must not be called concurrently with updates.
+     */
+    private Update<CountsKey>[] sortedUpdates()
     {
         @SuppressWarnings( "unchecked" )
-        Update<CountsKey>[] result = new Update[updates.size()];
-        Iterator<Map.Entry<CountsKey, AtomicLong>> iterator = updates.entrySet().iterator();
-        for ( int i = 0; i < result.length; i++ )
+        Update<CountsKey>[] result = new Update[deltas.size() + unencodable.size()];
+        int next = 0;
+        for ( Map.Entry<Long, StripedCount> entry : deltas.entrySet() )
         {
-            if ( !iterator.hasNext() )
-            {
-                throw new ConcurrentModificationException( "fewer entries than expected" );
-            }
-            result[i] = new Update<>( iterator.next() );
+            result[next++] = new Update<>( decode( entry.getKey() ), entry.getValue().sum() );
         }
-        if ( iterator.hasNext() )
+        for ( Map.Entry<CountsKey, AtomicLong> entry : unencodable.entrySet() )
         {
-            throw new ConcurrentModificationException( "more entries than expected" );
+            result[next++] = new Update<>( entry );
         }
         Arrays.sort( result );
         return result;
     }
 
+    static long encode( CountsKey key )
+    {
+        if ( key instanceof CountsKey.NodeKey )
+        {
+            return encodeNodeKey( ((CountsKey.NodeKey) key).labelId() );
+        }
+        CountsKey.RelationshipKey relationshipKey = (CountsKey.RelationshipKey) key;
+        return encodeRelationshipKey(
+                relationshipKey.startLabelId(), relationshipKey.typeId(), relationshipKey.endLabelId() );
+    }
+
+    static long encodeNodeKey( int labelId )
+    {
+        return labelId & 0xFFFF_FFFFL;
+    }
+
+    static long encodeRelationshipKey( int startLabelId, int typeId, int endLabelId )
+    {
+        long start = startLabelId + 1L, type = typeId + 1L, end = endLabelId + 1L;
+        if ( ((start | type | end) & ~FIELD_MASK) != 0 )
+        {
+            return UNENCODABLE;
+        }
+        return RELATIONSHIP_KEY_TAG | start << (2 * FIELD_BITS) | type << FIELD_BITS | end;
+    }
+
+    static CountsKey decode( long encoded )
+    {
+        if ( (encoded & RELATIONSHIP_KEY_TAG) == 0 )
+        {
+            return nodeKey( (int) encoded );
+        }
+        int startLabelId = (int) ((encoded >>> (2 * FIELD_BITS)) & FIELD_MASK) - 1;
+        int typeId = (int) ((encoded >>> FIELD_BITS) & FIELD_MASK) - 1;
+        int endLabelId = (int) (encoded & FIELD_MASK) - 1;
+        return relationshipKey( startLabelId, typeId, endLabelId );
+    }
+
+    /**
+     * The delta of a single count, split up into stripes that are updated by the threads that map to them, and summed
+     * up without locking when read.
+     */
+    private static final class StripedCount
+    {
+        private final AtomicLongArray stripes = new AtomicLongArray( STRIPES );
+
+        void add( long delta )
+        {
+            stripes.getAndAdd( (int) Thread.currentThread().getId() & STRIPE_MASK, delta );
+        }
+
+        long sum()
+        {
+            long sum = 0;
+            for ( int i = 0; i < STRIPES; i++ )
+            {
+                sum += stripes.get( i );
+            }
+            return sum;
+        }
+    }
+
     private static final class Merger<K extends Comparable<K>> implements KeyValueRecordVisitor<K, LongRegister>,
             AutoCloseable
     {
@@ -179,15 +296,17 @@ class ConcurrentTrackerState implements CountsTracker.State
                 Update<K> nextUpdate = updates[next];
                 int cmp = key.compareTo( nextUpdate.key );
                 if ( cmp == 0 )
-                { // overwrite the value in the store
+                { // add the delta to the value in the store
                     next++;
-                    valueRegister.write( nextUpdate.value );
+                    valueRegister.write( valueRegister.read() + nextUpdate.delta );
+                    assert assertNotNegative( key );
                 }
                 else if ( cmp > 0 )
                 { // write this before writing the entry from the store
                     next++;
                     long original = valueRegister.read();
-                    valueRegister.write( nextUpdate.value );
+                    valueRegister.write( nextUpdate.delta );
+                    assert assertNotNegative( nextUpdate.key );
                     target.visit( nextUpdate.key );
                     valueRegister.write( original );
                     continue; // then see if there are more entries to consider from the updates...
@@ -201,32 +320,40 @@ class ConcurrentTrackerState implements CountsTracker.State
         {
             for ( int i = next; i < updates.length; i++ )
             {
-                valueRegister.write( updates[i].value );
+                valueRegister.write( updates[i].delta );
+                assert assertNotNegative( updates[i].key );
                 target.visit( updates[i].key );
             }
         }
+
+        private boolean assertNotNegative( K key )
+        {
+            long value = valueRegister.read();
+            assert value >= 0 : String.format( "rotate(key=%s) -> value=%d", key, value );
+            return true;
+        }
     }
 
     private static final class Update<K extends Comparable<K>> implements Comparable<Update<K>>
     {
         final K key;
-        final long value;
+        final long delta;
 
         Update( Map.Entry<K, AtomicLong> entry )
         {
             this( entry.getKey(), entry.getValue().longValue() );
         }
 
-        Update( K key, long value )
+        Update( K key, long delta )
         {
             this.key = key;
-            this.value = value;
+            this.delta = delta;
         }
 
         @Override
         public String toString()
         {
-            return String.format( "Update{key=%s, value=%d}", key, value );
+            return String.format( "Update{key=%s, delta=%d}", key, delta );
         }
 
         @Override
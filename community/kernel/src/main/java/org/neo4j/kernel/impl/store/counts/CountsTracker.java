@@ -30,6 +30,8 @@ import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.impl.api.CountsAcceptor;
 import org.neo4j.kernel.impl.api.CountsKey;
 import org.neo4j.kernel.impl.api.CountsVisitor;
@@ -45,6 +47,9 @@ import org.neo4j.register.Registers;
  * {@link #updateLock} is used to ensure that no updates happen while we rotate from one file to another. Reads are
  * still ok though, they just read whatever the current state is. The state is assigned atomically at the end of
  * rotation.
+ *
+ * The latest samples of the schema indexes are kept here as well, and written to the {@link #indexSamplesFile} when
+ * rotating, or when a round of sampling completes.
  */
 public class CountsTracker implements CountsVisitor.Visitable, AutoCloseable, CountsAcceptor
 {
@@ -58,7 +63,9 @@ public class CountsTracker implements CountsVisitor.Visitable, AutoCloseable, Co
 
         long getCount( CountsKey key );
 
-        long updateCount( CountsKey key, long delta );
+        void updateNodeCount( int labelId, long delta );
+
+        void updateRelationshipCount( int startLabelId, int typeId, int endLabelId, long delta );
 
         File storeFile();
 
@@ -68,16 +75,21 @@ public class CountsTracker implements CountsVisitor.Visitable, AutoCloseable, Co
         void accept( KeyValueRecordVisitor<CountsKey, Register.LongRegister> visitor );
     }
 
-    public static final String ALPHA = ".alpha", BETA = ".beta";
-    private final File alphaFile, betaFile;
+    public static final String ALPHA = ".alpha", BETA = ".beta", INDEX_SAMPLES = ".indexsamples";
+    private final FileSystemAbstraction fs;
+    private final File alphaFile, betaFile, indexSamplesFile;
+    private final IndexSamples indexSamples = new IndexSamples();
     private final ReadWriteLock updateLock = new ReentrantReadWriteLock( /*fair=*/true );
     private volatile State state;
 
     public CountsTracker( FileSystemAbstraction fs, PageCache pageCache, File storeFileBase )
     {
+        this.fs = fs;
         this.alphaFile = storeFile( storeFileBase, ALPHA );
         this.betaFile = storeFile( storeFileBase, BETA );
+        this.indexSamplesFile = storeFile( storeFileBase, INDEX_SAMPLES );
         this.state = new ConcurrentTrackerState( openStore( fs, pageCache, this.alphaFile, this.betaFile ) );
+        this.indexSamples.read( fs, indexSamplesFile );
     }
 
     private static CountsStore openStore( FileSystemAbstraction fs, PageCache pageCache, File alpha, File beta )
@@ -138,7 +150,13 @@ public class CountsTracker implements CountsVisitor.Visitable, AutoCloseable, Co
     @Override
     public void updateCountsForNode( int labelId, long delta )
     {
-        update( nodeKey( labelId ), delta );
+        if ( delta != 0 )
+        {
+            try ( LockWrapper _ = new LockWrapper( updateLock.readLock() ) )
+            {
+                state.updateNodeCount( labelId, delta );
+            }
+        }
     }
 
     public long countsForRelationship( int startLabelId, int typeId, int endLabelId )
@@ -149,7 +167,39 @@ public class CountsTracker implements CountsVisitor.Visitable, AutoCloseable, Co
     @Override
     public void updateCountsForRelationship( int startLabelId, int typeId, int endLabelId, long delta )
     {
-        update( relationshipKey( startLabelId, typeId, endLabelId ), delta );
+        if ( delta != 0 )
+        {
+            try ( LockWrapper _ = new LockWrapper( updateLock.readLock() ) )
+            {
+                state.updateRelationshipCount( startLabelId, typeId, endLabelId, delta );
+            }
+        }
+    }
+
+    /**
+     * @return the latest sample of the given index, or {@link IndexSample#NONE} if it has not been sampled.
+     */
+    public IndexSample indexSample( IndexDescriptor descriptor )
+    {
+        return indexSamples.get( descriptor );
+    }
+
+    public void replaceIndexSample( IndexDescriptor descriptor, IndexSample sample )
+    {
+        indexSamples.replace( descriptor, sample );
+    }
+
+    public void removeIndexSample( IndexDescriptor descriptor )
+    {
+        indexSamples.remove( descriptor );
+    }
+
+    /**
+     * Writes the samples right away, instead of at the next rotation, if any of them changed.
+     */
+    public void writeIndexSamples() throws IOException
+    {
+        indexSamples.writeIfChanged( fs, indexSamplesFile );
     }
 
     public void accept( final CountsVisitor visitor )
@@ -177,18 +227,6 @@ public class CountsTracker implements CountsVisitor.Visitable, AutoCloseable, Co
         return state.getCount( key );
     }
 
-    private void update( CountsKey key, long delta )
-    {
-        if ( delta != 0 )
-        {
-            try ( LockWrapper _ = new LockWrapper( updateLock.readLock() ) )
-            {
-                long value = state.updateCount( key, delta );
-                assert value >= 0 : String.format( "update(key=%s, delta=%d) -> value=%d", key, delta, value );
-            }
-        }
-    }
-
     public void close()
     {
         try
@@ -223,6 +261,7 @@ public class CountsTracker implements CountsVisitor.Visitable, AutoCloseable, Co
                 // close the old store
                 state.close();
             }
+            indexSamples.writeIfChanged( fs, indexSamplesFile );
         }
     }
 
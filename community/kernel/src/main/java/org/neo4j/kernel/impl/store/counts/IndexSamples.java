@@ -0,0 +1,142 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.counts;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexSample;
+
+/**
+ * The latest {@link IndexSample samples} of the schema indexes, which the {@link CountsTracker} keeps in a file next
+ * to the counts. A sample replaces the previous one of its index instead of adding to it, and it can always be
+ * taken again, so the whole file is simply rewritten after any sample changed, once a round of sampling completes
+ * or when the counts are rotated. A file that is missing or cannot be read just means that the indexes have not
+ * been sampled yet.
+ */
+class IndexSamples
+{
+    private static final int FORMAT_VERSION = 1;
+
+    private final ConcurrentMap<IndexDescriptor, IndexSample> samples = new ConcurrentHashMap<>();
+    private volatile boolean changed;
+
+    IndexSample get( IndexDescriptor descriptor )
+    {
+        IndexSample sample = samples.get( descriptor );
+        return sample == null ? IndexSample.NONE : sample;
+    }
+
+    void replace( IndexDescriptor descriptor, IndexSample sample )
+    {
+        samples.put( descriptor, sample );
+        changed = true;
+    }
+
+    void remove( IndexDescriptor descriptor )
+    {
+        if ( samples.remove( descriptor ) != null )
+        {
+            changed = true;
+        }
+    }
+
+    void read( FileSystemAbstraction fs, File file )
+    {
+        samples.clear();
+        if ( !fs.fileExists( file ) )
+        {
+            return;
+        }
+        try ( DataInputStream in = new DataInputStream( fs.openAsInputStream( file ) ) )
+        {
+            if ( in.readInt() != FORMAT_VERSION )
+            {
+                return;
+            }
+            for ( int count = in.readInt(); count > 0; count-- )
+            {
+                int labelId = in.readInt();
+                int[] propertyKeyIds = new int[in.readInt()];
+                for ( int i = 0; i < propertyKeyIds.length; i++ )
+                {
+                    propertyKeyIds[i] = in.readInt();
+                }
+                IndexSample sample = new IndexSample( in.readLong(), in.readLong(), in.readLong() );
+                samples.put( new IndexDescriptor( labelId, propertyKeyIds ), sample );
+            }
+        }
+        catch ( IOException | IllegalArgumentException e )
+        {
+            samples.clear();
+        }
+    }
+
+    /**
+     * Writes all samples to the given file, through a temporary file, if any of them changed since last time.
+     * Rotation and sampling may both write, so one at a time.
+     */
+    synchronized void writeIfChanged( FileSystemAbstraction fs, File file ) throws IOException
+    {
+        if ( !changed )
+        {
+            return;
+        }
+        // Samples replaced from here on make the next rotation write them again
+        changed = false;
+        File tempFile = new File( file.getParentFile(), file.getName() + ".tmp" );
+        try ( DataOutputStream out = new DataOutputStream( fs.openAsOutputStream( tempFile, false ) ) )
+        {
+            Map<IndexDescriptor, IndexSample> snapshot = new HashMap<>( samples );
+            out.writeInt( FORMAT_VERSION );
+            out.writeInt( snapshot.size() );
+            for ( Map.Entry<IndexDescriptor, IndexSample> entry : snapshot.entrySet() )
+            {
+                IndexDescriptor descriptor = entry.getKey();
+                IndexSample sample = entry.getValue();
+                int[] propertyKeyIds = descriptor.getPropertyKeyIds();
+                out.writeInt( descriptor.getLabelId() );
+                out.writeInt( propertyKeyIds.length );
+                for ( int propertyKeyId : propertyKeyIds )
+                {
+                    out.writeInt( propertyKeyId );
+                }
+                out.writeLong( sample.indexSize() );
+                out.writeLong( sample.uniqueValues() );
+                out.writeLong( sample.sampleSize() );
+            }
+        }
+        catch ( IOException e )
+        {
+            changed = true;
+            throw e;
+        }
+        fs.deleteFile( file );
+        fs.renameFile( tempFile, file );
+    }
+}
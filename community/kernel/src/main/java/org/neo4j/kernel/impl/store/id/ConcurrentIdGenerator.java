@@ -0,0 +1,633 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.impl.store.InvalidIdGeneratorException;
+import org.neo4j.kernel.impl.store.UnderlyingStorageException;
+
+import static java.lang.Math.max;
+import static java.lang.Math.min;
+
+import static org.neo4j.kernel.impl.store.id.IdGeneratorImpl.CLEAN_GENERATOR;
+import static org.neo4j.kernel.impl.store.id.IdGeneratorImpl.HEADER_SIZE;
+import static org.neo4j.kernel.impl.store.id.IdGeneratorImpl.INTEGER_MINUS_ONE;
+import static org.neo4j.kernel.impl.store.id.IdGeneratorImpl.STICKY_GENERATOR;
+import static org.neo4j.kernel.impl.store.id.IdGeneratorImpl.readHighIdFromHeader;
+
+/**
+ * An {@link IdGenerator} that, unlike {@link IdGeneratorImpl}, does not serialize all callers on a single monitor.
+ * <p>
+ * New ids are handed out from small per-thread batches, that are carved off a shared atomic high id. Freed and
+ * defragged ids are kept in lock-free queues. Only the file I/O, reading defragged ids in batches of
+ * {@code grabSize} and appending freed ids to the end of the file, is done while holding a lock, and that lock is
+ * only taken once per {@code grabSize} ids.
+ * <p>
+ * The id file has the same format as the one maintained by {@link IdGeneratorImpl}, so the two implementations can
+ * be used interchangeably on the same store. When closed, the ids that remain in the per-thread batches are written
+ * to the file as free ids, so no ids are lost across sessions. Likewise, the ids that remain in the batches that are
+ * invalidated by {@link #setHighId(long)} are released as free ids, if they are below the new high id.
+ */
+public class ConcurrentIdGenerator implements IdGenerator
+{
+    static final int DEFAULT_BATCH_SIZE = 64;
+
+    private final FileSystemAbstraction fs;
+    private final File fileName;
+    private final int grabSize;
+    private final int batchSize;
+    private final long max;
+    private final boolean aggressiveReuse;
+
+    private final AtomicLong highId = new AtomicLong( -1 );
+    // used to calculate number of ids actually in use
+    private final AtomicLong defraggedIdCount = new AtomicLong();
+    // defragged ids ready to be handed out; read from file, or freed in this session if aggressiveReuse
+    private final Queue<Long> reusableIds = new ConcurrentLinkedQueue<>();
+    // ids freed in this session that haven't been flushed to disk yet
+    private final Queue<Long> releasedIds = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger releasedIdCount = new AtomicInteger();
+
+    // the batches that still have ids left, so that setHighId() and close() can reclaim them. A batch is removed
+    // when its last id is handed out, or when it is invalidated, so this holds at most one batch per live thread,
+    // plus the unfinished batches of threads that have ended.
+    private final Set<Batch> batches = Collections.newSetFromMap( new ConcurrentHashMap<Batch,Boolean>() );
+    private final ThreadLocal<Batch> threadBatch = new ThreadLocal<Batch>()
+    {
+        @Override
+        protected Batch initialValue()
+        {
+            return Batch.EMPTY;
+        }
+    };
+    // bumped by setHighId, making all outstanding batches invalid
+    private final AtomicInteger batchGeneration = new AtomicInteger();
+
+    // the fields below, and all file access, are guarded by fileLock
+    private final Object fileLock = new Object();
+    private StoreChannel fileChannel;
+    // total bytes read from file
+    private long readPosition;
+    // marks how much this session is allowed to read from previously released id batches.
+    private long maxReadPosition;
+    private volatile boolean canReadMoreIdBatches;
+    private volatile boolean closed;
+
+    public ConcurrentIdGenerator( FileSystemAbstraction fs, File fileName, int grabSize, long max,
+            boolean aggressiveReuse, long highId )
+    {
+        this( fs, fileName, grabSize, DEFAULT_BATCH_SIZE, max, aggressiveReuse, highId );
+    }
+
+    /**
+     * @param batchSize the number of new ids each thread reserves from the high id at a time.
+     * @see IdGeneratorImpl#IdGeneratorImpl(FileSystemAbstraction, File, int, long, boolean, long)
+     */
+    public ConcurrentIdGenerator( FileSystemAbstraction fs, File fileName, int grabSize, int batchSize, long max,
+            boolean aggressiveReuse, long highId )
+    {
+        if ( grabSize < 1 )
+        {
+            throw new IllegalArgumentException( "Illegal grabSize: " + grabSize );
+        }
+        if ( batchSize < 1 )
+        {
+            throw new IllegalArgumentException( "Illegal batchSize: " + batchSize );
+        }
+        this.fs = fs;
+        this.fileName = fileName;
+        this.grabSize = grabSize;
+        this.batchSize = batchSize;
+        this.max = max;
+        this.aggressiveReuse = aggressiveReuse;
+        initGenerator();
+        this.highId.set( max( this.highId.get(), highId ) );
+    }
+
+    private void initGenerator()
+    {
+        try
+        {
+            fileChannel = fs.open( fileName, "rw" );
+            ByteBuffer buffer;
+            try
+            {
+                buffer = readHighIdFromHeader( fileChannel, fileName );
+            }
+            catch ( InvalidIdGeneratorException e )
+            {
+                fileChannel.close();
+                throw e;
+            }
+            highId.set( buffer.getLong() );
+            buffer.clear();
+            buffer.put( STICKY_GENERATOR ).flip();
+            fileChannel.position( 0 );
+            fileChannel.write( buffer );
+
+            readPosition = HEADER_SIZE;
+            maxReadPosition = fileChannel.size();
+            canReadMoreIdBatches = readPosition < maxReadPosition;
+            defraggedIdCount.set( (maxReadPosition - HEADER_SIZE) / 8 );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to init id generator " + fileName, e );
+        }
+    }
+
+    @Override
+    public long nextId()
+    {
+        assertStillOpen();
+        long id = nextIdFromDefragList();
+        if ( id != -1 )
+        {
+            return id;
+        }
+
+        Batch batch = threadBatch.get();
+        while ( true )
+        {
+            if ( batch.generation == batchGeneration.get() )
+            {
+                id = batch.next.getAndIncrement();
+                if ( id < batch.end )
+                {
+                    if ( id == batch.end - 1 )
+                    {
+                        batches.remove( batch );
+                    }
+                    if ( id != INTEGER_MINUS_ONE )
+                    {
+                        // Skip the integer -1 (0xFFFFFFFF) because it represents
+                        // special values, f.ex. the end of a relationships/property chain.
+                        return id;
+                    }
+                    continue;
+                }
+            }
+            batch = newBatch();
+            threadBatch.set( batch );
+        }
+    }
+
+    private Batch newBatch()
+    {
+        int generation = batchGeneration.get();
+        long start;
+        long end;
+        do
+        {
+            start = highId.get();
+            assertIdWithinCapacity( start );
+            end = max - start < batchSize ? max + 1 : start + batchSize;
+        }
+        while ( !highId.compareAndSet( start, end ) );
+        Batch batch = new Batch( start, end, generation );
+        batches.add( batch );
+        if ( generation != batchGeneration.get() )
+        {
+            // Invalidated by a concurrent setHighId, that may already have looked for batches to reclaim
+            batches.remove( batch );
+        }
+        return batch;
+    }
+
+    private long nextIdFromDefragList()
+    {
+        while ( true )
+        {
+            Long id = reusableIds.poll();
+            if ( id != null )
+            {
+                defraggedIdCount.decrementAndGet();
+                return id;
+            }
+            if ( !canReadMoreIdBatches )
+            {
+                return -1;
+            }
+            synchronized ( fileLock )
+            {
+                if ( reusableIds.isEmpty() )
+                {
+                    readIdBatch();
+                }
+            }
+        }
+    }
+
+    @Override
+    public IdRange nextIdBatch( int size )
+    {
+        assertStillOpen();
+
+        // Get from defrag list
+        int count = 0;
+        long[] defragIds = new long[size];
+        while ( count < size )
+        {
+            long id = nextIdFromDefragList();
+            if ( id == -1 )
+            {
+                break;
+            }
+            defragIds[count++] = id;
+        }
+
+        // Shrink the array to actual size
+        long[] tmpArray = defragIds;
+        defragIds = new long[count];
+        System.arraycopy( tmpArray, 0, defragIds, 0, count );
+
+        int sizeLeftForRange = size - count;
+        long start;
+        do
+        {
+            start = highId.get();
+            assertIdWithinCapacity( start + sizeLeftForRange );
+        }
+        while ( !highId.compareAndSet( start, start + sizeLeftForRange ) );
+        return new IdRange( defragIds, start, sizeLeftForRange );
+    }
+
+    private void assertIdWithinCapacity( long id )
+    {
+        if ( id > max || id < 0 )
+        {
+            throw new UnderlyingStorageException( "Id capacity exceeded" );
+        }
+    }
+
+    private void assertStillOpen()
+    {
+        if ( closed )
+        {
+            throw new IllegalStateException( "Closed id generator " + fileName );
+        }
+    }
+
+    /**
+     * Sets the next free "high" id. The batches of all threads are invalidated, and the ids remaining in them that
+     * are below {@code id} are released as free ids. Once those are used up, subsequent calls to {@link #nextId()}
+     * will be served from {@code id} and upwards.
+     */
+    @Override
+    public void setHighId( long id )
+    {
+        assertIdWithinCapacity( id );
+        // The high id is set before the generation is bumped, so a batch carved off the old high id can never be
+        // stamped with the new generation. At worst a batch carved off the new high id is discarded as well.
+        highId.set( id );
+        int generation = batchGeneration.incrementAndGet();
+        for ( Batch batch : batches )
+        {
+            if ( batch.generation < generation )
+            {
+                batches.remove( batch );
+                long from = batch.takeRemaining();
+                for ( long unused = from; unused < min( batch.end, id ); unused++ )
+                {
+                    if ( unused != INTEGER_MINUS_ONE )
+                    {
+                        defraggedIdCount.incrementAndGet();
+                        // These ids have never been handed out, so there is no need to hold back their reuse
+                        reusableIds.add( unused );
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the next "high" id, which includes the ids that have been reserved by threads but not yet handed out.
+     */
+    @Override
+    public long getHighId()
+    {
+        return highId.get();
+    }
+
+    @Override
+    public long getHighestPossibleIdInUse()
+    {
+        return getHighId() - 1;
+    }
+
+    @Override
+    public void freeId( long id )
+    {
+        if ( id == INTEGER_MINUS_ONE )
+        {
+            return;
+        }
+
+        if ( closed )
+        {
+            throw new IllegalStateException( "Generator closed " + fileName );
+        }
+        if ( id < 0 || id >= highId.get() )
+        {
+            throw new IllegalArgumentException( "Illegal id[" + id + "], highId is " + highId.get() );
+        }
+        defraggedIdCount.incrementAndGet();
+        if ( aggressiveReuse )
+        {
+            reusableIds.add( id );
+            return;
+        }
+        releasedIds.add( id );
+        if ( releasedIdCount.incrementAndGet() >= grabSize )
+        {
+            synchronized ( fileLock )
+            {
+                if ( releasedIdCount.get() >= grabSize && !closed )
+                {
+                    writeIdBatch();
+                }
+            }
+        }
+    }
+
+    // reads a batch of defragged ids from file, must hold fileLock
+    private void readIdBatch()
+    {
+        if ( readPosition >= maxReadPosition )
+        {
+            canReadMoreIdBatches = false;
+            return;
+        }
+
+        try
+        {
+            int howMuchToRead = (int) min( grabSize*8, maxReadPosition-readPosition );
+            ByteBuffer readBuffer = ByteBuffer.allocate( howMuchToRead );
+            fileChannel.position( readPosition );
+            while ( readBuffer.hasRemaining() && fileChannel.read( readBuffer ) > 0 )
+            {
+                // keep reading
+            }
+            int bytesRead = readBuffer.position();
+            readPosition += bytesRead;
+            canReadMoreIdBatches = readPosition < maxReadPosition;
+            readBuffer.flip();
+            assert (bytesRead % 8) == 0;
+            int idsRead = bytesRead / 8;
+            for ( int i = 0; i < idsRead; i++ )
+            {
+                long id = readBuffer.getLong();
+                if ( id != INTEGER_MINUS_ONE )
+                {
+                    reusableIds.add( id );
+                }
+                else
+                {
+                    defraggedIdCount.decrementAndGet();
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Failed reading defragged id batch", e );
+        }
+    }
+
+    // appends the released ids to the end of the file, must hold fileLock
+    private void writeIdBatch()
+    {
+        try
+        {
+            fileChannel.position( fileChannel.size() );
+            ByteBuffer writeBuffer = ByteBuffer.allocate( grabSize*8 );
+            Long id;
+            while ( (id = releasedIds.poll()) != null )
+            {
+                releasedIdCount.decrementAndGet();
+                writeBuffer.putLong( id );
+                if ( !writeBuffer.hasRemaining() )
+                {
+                    writeFully( writeBuffer );
+                }
+            }
+            writeFully( writeBuffer );
+        }
+        catch ( IOException e )
+        {
+            throw new UnderlyingStorageException( "Unable to write defragged id batch", e );
+        }
+    }
+
+    private void writeFully( ByteBuffer buffer ) throws IOException
+    {
+        buffer.flip();
+        while ( buffer.hasRemaining() )
+        {
+            fileChannel.write( buffer );
+        }
+        buffer.clear();
+    }
+
+    /**
+     * Closes the id generator. Defragged ids in memory, and the ids left in the per-thread batches, are written
+     * to the file, which is then compacted and marked as clean. This must not be called concurrently with
+     * {@link #nextId()} or {@link #freeId(long)}.
+     */
+    @Override
+    public void close()
+    {
+        synchronized ( fileLock )
+        {
+            if ( closed )
+            {
+                return;
+            }
+            closed = true;
+
+            int generation = batchGeneration.get();
+            for ( Batch batch : batches )
+            {
+                batches.remove( batch );
+                if ( batch.generation == generation )
+                {
+                    for ( long id = batch.takeRemaining(); id < batch.end; id++ )
+                    {
+                        if ( id != INTEGER_MINUS_ONE )
+                        {
+                            releasedIds.add( id );
+                            defraggedIdCount.incrementAndGet();
+                        }
+                    }
+                }
+            }
+            Long id;
+            while ( (id = reusableIds.poll()) != null )
+            {
+                releasedIds.add( id );
+            }
+
+            try
+            {
+                writeIdBatch();
+
+                ByteBuffer buffer = ByteBuffer.allocate( HEADER_SIZE );
+                buffer.put( STICKY_GENERATOR ).putLong( highId.get() ).flip();
+                fileChannel.position( 0 );
+                fileChannel.write( buffer );
+                defragReusableIdsInFile();
+                fileChannel.force( false );
+
+                buffer.clear();
+                buffer.put( CLEAN_GENERATOR ).flip();
+                fileChannel.position( 0 );
+                fileChannel.write( buffer );
+
+                fileChannel.force( false );
+                fileChannel.close();
+                fileChannel = null;
+                highId.set( -1 );
+            }
+            catch ( IOException e )
+            {
+                throw new UnderlyingStorageException( "Unable to close id generator " + fileName, e );
+            }
+        }
+    }
+
+    // moves the ids that have not been read by this session to the start of the file, and truncates it
+    private void defragReusableIdsInFile() throws IOException
+    {
+        if ( readPosition > HEADER_SIZE )
+        {
+            ByteBuffer buffer = ByteBuffer.allocate( grabSize*8 );
+            long writePosition = HEADER_SIZE;
+            long position = min( readPosition, maxReadPosition );
+            int bytesRead;
+            do
+            {
+                buffer.clear();
+                fileChannel.position( position );
+                bytesRead = fileChannel.read( buffer );
+                position += max( bytesRead, 0 );
+                buffer.flip();
+                fileChannel.position( writePosition );
+                writePosition += fileChannel.write( buffer );
+            }
+            while ( bytesRead > 0 );
+            fileChannel.truncate( writePosition );
+        }
+    }
+
+    /**
+     * Returns the number of ids below the high id that are neither free, nor reserved by a thread but not yet
+     * handed out.
+     */
+    @Override
+    public long getNumberOfIdsInUse()
+    {
+        return highId.get() - defraggedIdCount.get() - reservedIdCount();
+    }
+
+    // the ids left in the valid batches of all threads, which is racy, but fine for a statistic
+    private long reservedIdCount()
+    {
+        int generation = batchGeneration.get();
+        long reserved = 0;
+        for ( Batch batch : batches )
+        {
+            if ( batch.generation == generation )
+            {
+                reserved += max( 0, batch.end - batch.next.get() );
+            }
+        }
+        return reserved;
+    }
+
+    // the number of batches that still have ids left, for testing
+    int getNumberOfReservedBatches()
+    {
+        return batches.size();
+    }
+
+    @Override
+    public long getDefragCount()
+    {
+        return defraggedIdCount.get();
+    }
+
+    @Override
+    public void delete()
+    {
+        if ( !closed )
+        {
+            throw new RuntimeException( "Must be closed to delete" );
+        }
+        if ( !fs.deleteFile( fileName ) )
+        {
+            throw new UnderlyingStorageException( "Unable to delete id generator " + fileName );
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ConcurrentIdGenerator " + hashCode() + " [highId=" + highId + ", defragged=" + defraggedIdCount +
+               ", fileName=" + fileName + ", max=" + max + ", aggressive=" + aggressiveReuse + "]";
+    }
+
+    /**
+     * A range of new ids reserved from the high id by a single thread. Only the owning thread hands out ids from it,
+     * but {@link #setHighId(long)} and {@link #close()} may take the remaining ids away from under it, so the next
+     * id is claimed atomically by both.
+     */
+    private static final class Batch
+    {
+        static final Batch EMPTY = new Batch( 0, 0, -1 );
+
+        final AtomicLong next;
+        final long end;
+        final int generation;
+
+        Batch( long start, long end, int generation )
+        {
+            this.next = new AtomicLong( start );
+            this.end = end;
+            this.generation = generation;
+        }
+
+        // returns the first of the remaining ids, if it is below end, leaving none for the owner
+        long takeRemaining()
+        {
+            return next.getAndSet( end );
+        }
+    }
+}
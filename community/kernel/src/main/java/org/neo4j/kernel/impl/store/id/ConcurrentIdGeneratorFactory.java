@@ -0,0 +1,58 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.kernel.IdGeneratorFactory;
+import org.neo4j.kernel.IdType;
+
+/**
+ * Opens {@link ConcurrentIdGenerator concurrent id generators}, for databases where many transactions
+ * allocate ids at the same time.
+ */
+public class ConcurrentIdGeneratorFactory implements IdGeneratorFactory
+{
+    private final Map<IdType, IdGenerator> generators = new ConcurrentHashMap<>();
+
+    @Override
+    public IdGenerator open( FileSystemAbstraction fs, File fileName, int grabSize, IdType idType, long highId )
+    {
+        IdGenerator generator = new ConcurrentIdGenerator( fs, fileName, grabSize, idType.getMaxValue(),
+                idType.allowAggressiveReuse(), highId );
+        generators.put( idType, generator );
+        return generator;
+    }
+
+    @Override
+    public IdGenerator get( IdType idType )
+    {
+        return generators.get( idType );
+    }
+
+    @Override
+    public void create( FileSystemAbstraction fs, File fileName, long highId )
+    {
+        IdGeneratorImpl.createGenerator( fs, fileName, highId );
+    }
+}
@@ -20,6 +20,7 @@
 package org.neo4j.kernel.impl.store.record;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 
 import org.neo4j.graphdb.Label;
 import org.neo4j.helpers.UTF8;
@@ -35,7 +36,7 @@ public class IndexRule extends AbstractSchemaRule
 {
     private static final long NO_OWNING_CONSTRAINT = -1;
     private final SchemaIndexProvider.Descriptor providerDescriptor;
-    private final int propertyKey;
+    private final int[] propertyKeys;
     /**
      * Non-null for constraint indexes, equal to {@link #NO_OWNING_CONSTRAINT} for
      * constraint indexes with no owning constraint record.
@@ -45,15 +46,15 @@ public class IndexRule extends AbstractSchemaRule
     static IndexRule readIndexRule( long id, boolean constraintIndex, int label, ByteBuffer serialized )
     {
         SchemaIndexProvider.Descriptor providerDescriptor = readProviderDescriptor( serialized );
-        int propertyKeyId = readPropertyKey( serialized );
+        int[] propertyKeyIds = readPropertyKeys( serialized );
         if ( constraintIndex )
         {
             long owningConstraint = readOwningConstraint( serialized );
-            return constraintIndexRule( id, label, propertyKeyId, providerDescriptor, owningConstraint );
+            return constraintIndexRule( id, label, propertyKeyIds[0], providerDescriptor, owningConstraint );
         }
         else
         {
-            return indexRule( id, label, propertyKeyId, providerDescriptor );
+            return indexRule( id, label, propertyKeyIds, providerDescriptor );
         }
     }
 
@@ -63,6 +64,16 @@ public class IndexRule extends AbstractSchemaRule
         return new IndexRule( id, label, propertyKeyId, providerDescriptor, null );
     }
 
+    /**
+     * An index rule over one or more property keys, where more than one key makes it a
+     * {@link Kind#COMPOSITE_INDEX_RULE composite index rule}.
+     */
+    public static IndexRule indexRule( long id, int label, int[] propertyKeyIds,
+                                       SchemaIndexProvider.Descriptor providerDescriptor )
+    {
+        return new IndexRule( id, label, propertyKeyIds, providerDescriptor, null );
+    }
+
     public static IndexRule constraintIndexRule( long id, int label, int propertyKeyId,
                                                  SchemaIndexProvider.Descriptor providerDescriptor,
                                                  Long owningConstraint )
@@ -74,21 +85,40 @@ public class IndexRule extends AbstractSchemaRule
     public IndexRule( long id, int label, int propertyKey, SchemaIndexProvider.Descriptor providerDescriptor,
                        Long owningConstraint )
     {
-        super( id, label, indexKind( owningConstraint ) );
+        this( id, label, new int[]{propertyKey}, providerDescriptor, owningConstraint );
+    }
+
+    private IndexRule( long id, int label, int[] propertyKeys, SchemaIndexProvider.Descriptor providerDescriptor,
+                       Long owningConstraint )
+    {
+        super( id, label, indexKind( propertyKeys, owningConstraint ) );
         this.owningConstraint = owningConstraint;
 
+        if ( propertyKeys.length == 0 )
+        {
+            throw new IllegalArgumentException( "an index rule needs at least one property key" );
+        }
+        if ( propertyKeys.length > 1 && owningConstraint != null )
+        {
+            throw new IllegalArgumentException( "constraint indexes can only have a single property key" );
+        }
+
         if ( providerDescriptor == null )
         {
             throw new IllegalArgumentException( "null provider descriptor prohibited" );
         }
 
         this.providerDescriptor = providerDescriptor;
-        this.propertyKey = propertyKey;
+        this.propertyKeys = propertyKeys.clone();
     }
 
-    private static Kind indexKind( Long owningConstraint )
+    private static Kind indexKind( int[] propertyKeys, Long owningConstraint )
     {
-        return owningConstraint == null ? Kind.INDEX_RULE : Kind.CONSTRAINT_INDEX_RULE;
+        if ( owningConstraint != null )
+        {
+            return Kind.CONSTRAINT_INDEX_RULE;
+        }
+        return propertyKeys.length > 1 ? Kind.COMPOSITE_INDEX_RULE : Kind.INDEX_RULE;
     }
 
     private static SchemaIndexProvider.Descriptor readProviderDescriptor( ByteBuffer serialized )
@@ -98,14 +128,17 @@ public class IndexRule extends AbstractSchemaRule
         return new SchemaIndexProvider.Descriptor( providerKey, providerVersion );
     }
 
-    private static int readPropertyKey( ByteBuffer serialized )
+    private static int[] readPropertyKeys( ByteBuffer serialized )
     {
-        // Currently only one key is supported although the data format supports multiple
+        // Only composite index rules have more than one key
         int count = serialized.getShort();
-        assert count == 1;
-
-        // Changed from being a long to an int 2013-09-10, but keeps reading a long to not change the store format.
-        return safeCastLongToInt( serialized.getLong() );
+        int[] propertyKeys = new int[count];
+        for ( int i = 0; i < count; i++ )
+        {
+            // Changed from being a long to an int 2013-09-10, but keeps reading a long to not change the store format.
+            propertyKeys[i] = safeCastLongToInt( serialized.getLong() );
+        }
+        return propertyKeys;
     }
 
     private static long readOwningConstraint( ByteBuffer serialized )
@@ -118,9 +151,22 @@ public class IndexRule extends AbstractSchemaRule
         return providerDescriptor;
     }
 
+    /**
+     * @return the property key of a single property index, or the first property key of a composite index.
+     */
     public int getPropertyKey()
     {
-        return propertyKey;
+        return propertyKeys[0];
+    }
+
+    public int[] getPropertyKeys()
+    {
+        return propertyKeys.clone();
+    }
+
+    public boolean isComposite()
+    {
+        return propertyKeys.length > 1;
     }
 
     public boolean isConstraintIndex()
@@ -147,8 +193,8 @@ public class IndexRule extends AbstractSchemaRule
         return super.length()
                + UTF8.computeRequiredByteBufferSize( providerDescriptor.getKey() )
                + UTF8.computeRequiredByteBufferSize( providerDescriptor.getVersion() )
-               + 2 * 1                              /* number of property keys, for now always 1 */
-               + 8                                  /* the property keys */
+               + 2 * 1                              /* number of property keys */
+               + 8 * propertyKeys.length            /* the property keys */
                + (isConstraintIndex() ? 8 : 0)      /* constraint indexes have an owner field */;
     }
 
@@ -158,8 +204,11 @@ public class IndexRule extends AbstractSchemaRule
         super.serialize( target );
         UTF8.putEncodedStringInto( providerDescriptor.getKey(), target );
         UTF8.putEncodedStringInto( providerDescriptor.getVersion(), target );
-        target.putShort( (short) 1 /*propertyKeys.length*/ );
-        target.putLong( propertyKey );
+        target.putShort( (short) propertyKeys.length );
+        for ( int propertyKey : propertyKeys )
+        {
+            target.putLong( propertyKey );
+        }
         if ( isConstraintIndex() )
         {
             target.putLong( owningConstraint );
@@ -170,7 +219,7 @@ public class IndexRule extends AbstractSchemaRule
     public int hashCode()
     {
         // TODO: Think if this needs to be extended with providerDescriptor
-        return 31 * super.hashCode() + propertyKey;
+        return 31 * super.hashCode() + Arrays.hashCode( propertyKeys );
     }
 
     @Override
@@ -189,14 +238,14 @@ public class IndexRule extends AbstractSchemaRule
             return false;
         }
         IndexRule other = (IndexRule) obj;
-        return propertyKey == other.propertyKey;
+        return Arrays.equals( propertyKeys, other.propertyKeys );
     }
 
     @Override
     protected String innerToString()
     {
         StringBuilder result = new StringBuilder( ", provider=" ).append( providerDescriptor ).append( ", properties=" )
-                                                                 .append( propertyKey );
+                                                                 .append( propertiesToString() );
         if ( owningConstraint != null )
         {
             result.append( ", owner=" );
@@ -212,6 +261,15 @@ public class IndexRule extends AbstractSchemaRule
         return result.toString();
     }
 
+    private String propertiesToString()
+    {
+        if ( propertyKeys.length == 1 )
+        {
+            return String.valueOf( propertyKeys[0] );
+        }
+        return Arrays.toString( propertyKeys );
+    }
+
     public IndexRule withOwningConstraint( long constraintId )
     {
         if ( !isConstraintIndex() )
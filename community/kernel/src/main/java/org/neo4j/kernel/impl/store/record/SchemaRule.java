@@ -66,6 +66,14 @@ public interface SchemaRule extends RecordSerializable
             {
                 return UniquenessConstraintRule.readUniquenessConstraintRule( id, labelId, buffer );
             }
+        },
+        COMPOSITE_INDEX_RULE( 4, IndexRule.class )
+        {
+            @Override
+            protected SchemaRule newRule( long id, int labelId, ByteBuffer buffer )
+            {
+                return IndexRule.readIndexRule( id, false, labelId, buffer );
+            }
         };
 
         private final byte id;
@@ -118,6 +126,7 @@ public interface SchemaRule extends RecordSerializable
             case 1: return INDEX_RULE;
             case 2: return CONSTRAINT_INDEX_RULE;
             case 3: return UNIQUENESS_CONSTRAINT;
+            case 4: return COMPOSITE_INDEX_RULE;
             default:
                 throw new MalformedSchemaRuleException( null, "Unknown kind id %d", id );
             }
@@ -69,6 +69,7 @@ public class IndexTransactionApplier extends NeoCommandHandler.Adapter
     private final Map<Long,NodeCommand> nodeCommands = new HashMap<>();
     private final Map<Long,List<PropertyCommand>> propertyCommands = new HashMap<>();
     private final List<NodeLabelUpdate> labelUpdates = new ArrayList<>();
+    private final List<IndexRule> createdIndexes = new ArrayList<>();
 
     private final IndexingService indexingService;
     private final NodeStore nodeStore;
@@ -94,9 +95,11 @@ public class IndexTransactionApplier extends NeoCommandHandler.Adapter
     @Override
     public void apply()
     {
+        createIndexes();
+
         if ( !labelUpdates.isEmpty() )
         {
-            updateLabelScanStore();
+            updateLabelScanStore( labelScanStore, labelUpdates );
             cacheAccess.applyLabelUpdates( labelUpdates );
         }
 
@@ -106,6 +109,19 @@ public class IndexTransactionApplier extends NeoCommandHandler.Adapter
         }
     }
 
+    /**
+     * Indexes created by the same transaction are created together, so that they get populated by a single
+     * store scan.
+     */
+    private void createIndexes()
+    {
+        if ( !createdIndexes.isEmpty() )
+        {
+            indexingService.createIndexes( createdIndexes.toArray( new IndexRule[createdIndexes.size()] ) );
+            createdIndexes.clear();
+        }
+    }
+
     private void updateIndexes()
     {
         LazyIndexUpdates updates = new LazyIndexUpdates(
@@ -118,7 +134,11 @@ public class IndexTransactionApplier extends NeoCommandHandler.Adapter
         }
     }
 
-    private void updateLabelScanStore()
+    /**
+     * Writes the given label updates to the label scan store, in order of node id. Updates to the same node
+     * are written in the order they appear in the list.
+     */
+    public static void updateLabelScanStore( LabelScanStore labelScanStore, List<NodeLabelUpdate> labelUpdates )
     {
         Collections.sort( labelUpdates, nodeLabelUpdateComparator );
 
@@ -145,10 +165,25 @@ public class IndexTransactionApplier extends NeoCommandHandler.Adapter
         // for index updates
         nodeCommands.put( command.getKey(), command );
 
+        // for label store updates
+        NodeLabelUpdate labelUpdate = labelUpdate( command );
+        if ( labelUpdate != null )
+        {
+            labelUpdates.add( labelUpdate );
+        }
+
+        return false;
+    }
+
+    /**
+     * @return the change the command makes to the labels of its node, or {@code null} if the labels
+     * are unchanged or not available from the command alone.
+     */
+    public static NodeLabelUpdate labelUpdate( NodeCommand command )
+    {
         NodeRecord before = command.getBefore();
         NodeRecord after = command.getAfter();
 
-        // for label store updates
         NodeLabels labelFieldBefore = parseLabelsField( before );
         NodeLabels labelFieldAfter = parseLabelsField( after );
         if ( !(labelFieldBefore.isInlined() && labelFieldAfter.isInlined()
@@ -158,11 +193,10 @@ public class IndexTransactionApplier extends NeoCommandHandler.Adapter
             long[] labelsAfter = labelFieldAfter.getIfLoaded();
             if ( labelsBefore != null && labelsAfter != null )
             {
-                labelUpdates.add( NodeLabelUpdate.labelChanges( command.getKey(), labelsBefore, labelsAfter ) );
+                return NodeLabelUpdate.labelChanges( command.getKey(), labelsBefore, labelsAfter );
             }
         }
-
-        return false;
+        return null;
     }
 
     @Override
@@ -184,6 +218,21 @@ public class IndexTransactionApplier extends NeoCommandHandler.Adapter
 
     @Override
     public boolean visitSchemaRuleCommand( SchemaRuleCommand command ) throws IOException
+    {
+        if ( command.getSchemaRule() instanceof IndexRule && command.getMode() == Command.Mode.CREATE )
+        {
+            createdIndexes.add( (IndexRule) command.getSchemaRule() );
+            return false;
+        }
+        createIndexes();
+        applySchemaRuleCommand( indexingService, command );
+        return false;
+    }
+
+    /**
+     * Creates, drops or activates the schema index that the command affects, if any.
+     */
+    public static void applySchemaRuleCommand( IndexingService indexingService, SchemaRuleCommand command )
     {
         if ( command.getSchemaRule() instanceof IndexRule )
         {
@@ -207,7 +256,7 @@ public class IndexTransactionApplier extends NeoCommandHandler.Adapter
                 }
                 break;
             case CREATE:
-                indexingService.createIndex( (IndexRule) command.getSchemaRule() );
+                indexingService.createIndexes( (IndexRule) command.getSchemaRule() );
                 break;
             case DELETE:
                 indexingService.dropIndex( (IndexRule) command.getSchemaRule() );
@@ -216,6 +265,5 @@ public class IndexTransactionApplier extends NeoCommandHandler.Adapter
                 throw new IllegalStateException( command.getMode().name() );
             }
         }
-        return false;
     }
 }
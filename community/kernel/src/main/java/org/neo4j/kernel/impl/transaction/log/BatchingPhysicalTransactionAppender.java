@@ -45,6 +45,25 @@ public class BatchingPhysicalTransactionAppender extends AbstractPhysicalTransac
      */
     public static final WaitStrategy DEFAULT_WAIT_STRATEGY = new WaitStrategy.Park( 10 /*ms*/ );
 
+    public interface Monitor
+    {
+        /**
+         * Called by the force thread after each force.
+         *
+         * @param transactions the number of transactions made durable by the force.
+         * @param forceTimeNanos the time the force took.
+         */
+        void batchForced( long transactions, long forceTimeNanos );
+
+        public class Adapter implements Monitor
+        {
+            @Override
+            public void batchForced( long transactions, long forceTimeNanos )
+            {
+            }
+        }
+    }
+
     /**
      * Incremented for every call to {@link #append(org.neo4j.kernel.impl.transaction.TransactionRepresentation)}
      * and used by the appending thread to know when its transaction have been forced to disk.
@@ -82,8 +101,26 @@ public class BatchingPhysicalTransactionAppender extends AbstractPhysicalTransac
             IdOrderingQueue legacyIndexTransactionOrdering,
             Factory<Counter> counting,
             WaitStrategy idleBackoffStrategy )
+    {
+        this( logFile, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering, counting,
+                idleBackoffStrategy, 0, new Monitor.Adapter() );
+    }
+
+    /**
+     * @param maxGroupCommitWindowNanos upper bound on the time to hold off a force to let more transactions join
+     * it, see {@link GroupCommitWindow}. {@code 0} means forcing as soon as there's anything to force.
+     * @param monitor notified about every force.
+     */
+    public BatchingPhysicalTransactionAppender( final LogFile logFile,
+            TransactionMetadataCache transactionMetadataCache, final TransactionIdStore transactionIdStore,
+            IdOrderingQueue legacyIndexTransactionOrdering,
+            Factory<Counter> counting,
+            WaitStrategy idleBackoffStrategy,
+            long maxGroupCommitWindowNanos,
+            final Monitor monitor )
     {
         super( logFile, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering );
+        final GroupCommitWindow groupCommitWindow = new GroupCommitWindow( maxGroupCommitWindowNanos );
         appenderTicket = counting.newInstance();
         forceTicket = counting.newInstance();
         forceThread = new BatchingForceThread( new BatchingForceThread.Operation()
@@ -95,17 +132,38 @@ public class BatchingPhysicalTransactionAppender extends AbstractPhysicalTransac
             public boolean perform() throws IOException
             {
                 long currentAppenderTicket = appenderTicket.get();
-                if ( forceTicket.get() == currentAppenderTicket )
+                long lastForcedTicket = forceTicket.get();
+                if ( lastForcedTicket == currentAppenderTicket )
                 {
                     return false;
                 }
 
+                long window = groupCommitWindow.windowNanos();
+                if ( window > 0 )
+                {
+                    // Give more committers a chance to join this force. Appenders unpark us while they wait,
+                    // so keep parking until the window has passed.
+                    long deadline = System.nanoTime() + window;
+                    long remaining;
+                    while ( (remaining = deadline - System.nanoTime()) > 0 )
+                    {
+                        LockSupport.parkNanos( remaining );
+                    }
+                    currentAppenderTicket = appenderTicket.get();
+                }
+
+                long forceStart = System.nanoTime();
                 force();
+                long forceTime = System.nanoTime() - forceStart;
 
                 // Mark that we've forced at least the ticket we saw when waking up previously.
                 // It's on the pessimistic, but better safe than sorry.
                 forceTicket.set( currentAppenderTicket );
 
+                long transactions = currentAppenderTicket - lastForcedTicket;
+                groupCommitWindow.forced( transactions, forceStart, forceTime );
+                monitor.batchForced( transactions, forceTime );
+
                 ThreadLink linkedOut = threadLinkHead.getAndSet( ThreadLink.END );
 
                 while ( linkedOut != ThreadLink.END )
@@ -0,0 +1,93 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * A {@link BatchingPhysicalTransactionAppender.Monitor} that keeps track of how many transactions each force
+ * covers, and how long the forces take. Each database registers one with its
+ * {@link org.neo4j.kernel.monitoring.Monitors}, which is available through the dependency resolver, and published
+ * through JMX by the transactions management bean.
+ * <p>
+ * Force latencies are kept in a histogram where bucket {@code i} counts the forces that took less than
+ * {@code 2^i} microseconds, but at least {@code 2^(i-1)}.
+ */
+public class GroupCommitStatistics implements BatchingPhysicalTransactionAppender.Monitor
+{
+    public static final int LATENCY_BUCKETS = 32;
+
+    private final AtomicLong forces = new AtomicLong();
+    private final AtomicLong transactions = new AtomicLong();
+    private final AtomicLong forceNanos = new AtomicLong();
+    private final AtomicLongArray latencyHistogram = new AtomicLongArray( LATENCY_BUCKETS );
+
+    @Override
+    public void batchForced( long transactionsInBatch, long forceTimeNanos )
+    {
+        forces.incrementAndGet();
+        transactions.addAndGet( transactionsInBatch );
+        forceNanos.addAndGet( forceTimeNanos );
+        latencyHistogram.incrementAndGet( bucketOf( forceTimeNanos ) );
+    }
+
+    static int bucketOf( long nanos )
+    {
+        long micros = TimeUnit.NANOSECONDS.toMicros( nanos );
+        return Math.min( LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros( micros ) );
+    }
+
+    public long forces()
+    {
+        return forces.get();
+    }
+
+    public long transactions()
+    {
+        return transactions.get();
+    }
+
+    public double averageTransactionsPerForce()
+    {
+        long forces = this.forces.get();
+        return forces == 0 ? 0 : transactions.get() / (double) forces;
+    }
+
+    public long averageForceNanos()
+    {
+        long forces = this.forces.get();
+        return forces == 0 ? 0 : forceNanos.get() / forces;
+    }
+
+    /**
+     * @return a copy of the force latency histogram.
+     */
+    public long[] forceLatencyHistogram()
+    {
+        long[] histogram = new long[LATENCY_BUCKETS];
+        for ( int i = 0; i < histogram.length; i++ )
+        {
+            histogram[i] = latencyHistogram.get( i );
+        }
+        return histogram;
+    }
+}
@@ -0,0 +1,96 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import static java.lang.Math.min;
+
+/**
+ * Decides how long the {@link BatchingForceThread} should hold off a force, to let more committers join the batch
+ * that is about to be forced. This trades a little bit of commit latency for fewer forces when the log is busy.
+ * <p>
+ * The window is based on moving averages of the force latency and of the time between two transactions being
+ * appended. It never exceeds the average force latency, nor the configured maximum, and it is zero unless at least
+ * two more transactions are expected to arrive within it. An idle or lightly loaded database will therefore still
+ * force as soon as possible.
+ * <p>
+ * Instances are not thread safe, they are only meant to be used by the force thread.
+ */
+class GroupCommitWindow
+{
+    // weight of new samples in the moving averages, as a power of two
+    private static final int SMOOTHING_SHIFT = 3;
+
+    private final long maxWindowNanos;
+    private long averageForceNanos = -1;
+    private long averageArrivalNanos = -1;
+    private long lastForceStartNanos = -1;
+
+    /**
+     * @param maxWindowNanos the longest time to wait before forcing, or {@code 0} to never wait.
+     */
+    GroupCommitWindow( long maxWindowNanos )
+    {
+        this.maxWindowNanos = maxWindowNanos;
+    }
+
+    /**
+     * @return the number of nanoseconds to wait before starting the next force.
+     */
+    long windowNanos()
+    {
+        if ( maxWindowNanos <= 0 || averageForceNanos == -1 || averageArrivalNanos == -1 )
+        {
+            return 0;
+        }
+        long window = min( maxWindowNanos, averageForceNanos );
+        return averageArrivalNanos * 2 <= window ? window : 0;
+    }
+
+    /**
+     * Called after each force.
+     *
+     * @param transactions the number of transactions that were made durable by the force.
+     * @param forceStartNanos {@link System#nanoTime()} when the force started.
+     * @param forceNanos the time the force took.
+     */
+    void forced( long transactions, long forceStartNanos, long forceNanos )
+    {
+        if ( maxWindowNanos <= 0 )
+        {
+            return;
+        }
+        if ( lastForceStartNanos != -1 && transactions > 0 )
+        {
+            long arrivalNanos = (forceStartNanos - lastForceStartNanos) / transactions;
+            averageArrivalNanos = average( averageArrivalNanos, arrivalNanos );
+        }
+        averageForceNanos = average( averageForceNanos, forceNanos );
+        lastForceStartNanos = forceStartNanos;
+    }
+
+    private static long average( long average, long sample )
+    {
+        if ( average == -1 )
+        {
+            return sample;
+        }
+        return average + ((sample - average) >> SMOOTHING_SHIFT);
+    }
+}
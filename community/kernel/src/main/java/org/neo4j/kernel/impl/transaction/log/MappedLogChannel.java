@@ -0,0 +1,284 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel.MapMode;
+
+import static java.lang.Math.min;
+
+/**
+ * A {@link ReadableVersionableLogChannel} that reads log versions which can no longer change, i.e. rotated
+ * versions, directly from memory mapped buffers instead of copying them through a read-ahead buffer on the heap.
+ * <p>
+ * Versions higher than the given {@code highestImmutableVersion}, such as the log currently being appended to,
+ * are read the same way as {@link ReadAheadLogChannel} does. This is also used for the few bytes of a value that
+ * happens to straddle the end of one mapped region and the start of the next, and for all channels of a file
+ * system that doesn't support memory mapping, or of a JVM that cannot {@link MappedRegionUnmapper unmap}.
+ * <p>
+ * A mapped region is unmapped as soon as it has been read, when moving on to the next version, and on close, so
+ * that the log file can be pruned or truncated after that.
+ */
+public class MappedLogChannel implements ReadableVersionableLogChannel
+{
+    private final LogVersionBridge bridge;
+    private final long highestImmutableVersion;
+    private final int readAheadSize;
+    private final ByteBuffer aheadBuffer;
+    private final MappedRegionUnmapper unmapper;
+    private LogVersionedStoreChannel channel;
+    private boolean mappingSupported;
+    // the currently mapped region of the channel, if any
+    private MappedByteBuffer region;
+    // either the aheadBuffer or the mapped region, what's remaining of it hasn't been read yet
+    private ByteBuffer buffer;
+
+    public MappedLogChannel( LogVersionedStoreChannel startingChannel, LogVersionBridge bridge, int readAheadSize,
+            long highestImmutableVersion )
+    {
+        this( startingChannel, bridge, readAheadSize, highestImmutableVersion, MappedRegionUnmapper.INSTANCE );
+    }
+
+    MappedLogChannel( LogVersionedStoreChannel startingChannel, LogVersionBridge bridge, int readAheadSize,
+            long highestImmutableVersion, MappedRegionUnmapper unmapper )
+    {
+        this.channel = startingChannel;
+        this.unmapper = unmapper;
+        this.mappingSupported = unmapper.isSupported();
+        this.bridge = bridge;
+        this.readAheadSize = readAheadSize;
+        this.highestImmutableVersion = highestImmutableVersion;
+        this.aheadBuffer = ByteBuffer.allocate( readAheadSize );
+        aheadBuffer.position( aheadBuffer.capacity() );
+        this.buffer = aheadBuffer;
+    }
+
+    @Override
+    public long getVersion()
+    {
+        return channel.getVersion();
+    }
+
+    @Override
+    public byte getLogFormatVersion()
+    {
+        return channel.getLogFormatVersion();
+    }
+
+    @Override
+    public byte get() throws IOException
+    {
+        ensureDataExists( 1 );
+        return buffer.get();
+    }
+
+    @Override
+    public short getShort() throws IOException
+    {
+        ensureDataExists( 2 );
+        return buffer.getShort();
+    }
+
+    @Override
+    public int getInt() throws IOException
+    {
+        ensureDataExists( 4 );
+        return buffer.getInt();
+    }
+
+    @Override
+    public long getLong() throws IOException
+    {
+        ensureDataExists( 8 );
+        return buffer.getLong();
+    }
+
+    @Override
+    public float getFloat() throws IOException
+    {
+        ensureDataExists( 4 );
+        return buffer.getFloat();
+    }
+
+    @Override
+    public double getDouble() throws IOException
+    {
+        ensureDataExists( 8 );
+        return buffer.getDouble();
+    }
+
+    @Override
+    public void get( byte[] bytes, int length ) throws IOException
+    {
+        assert length <= bytes.length;
+
+        int bytesGotten = 0;
+        while ( bytesGotten < length )
+        {
+            int chunkSize = length - bytesGotten;
+            if ( buffer.remaining() < chunkSize )
+            {   // get max 1024 bytes at the time, so that ensureDataExists functions as it should
+                chunkSize = min( readAheadSize >> 2, chunkSize );
+                ensureDataExists( chunkSize );
+            }
+            buffer.get( bytes, bytesGotten, chunkSize );
+            bytesGotten += chunkSize;
+        }
+    }
+
+    private void ensureDataExists( int requestedNumberOfBytes ) throws IOException
+    {
+        if ( buffer.remaining() >= requestedNumberOfBytes )
+        {
+            return;
+        }
+
+        if ( !buffer.hasRemaining() && mapNextRegion() && buffer.remaining() >= requestedNumberOfBytes )
+        {
+            return;
+        }
+
+        // We ran out, and the next region couldn't be mapped, or the value straddles two regions.
+        // Start by copying the remaining bytes to the beginning of the read-ahead buffer.
+        int remaining = buffer.remaining();
+        if ( buffer == aheadBuffer )
+        {
+            aheadBuffer.compact();
+        }
+        else
+        {
+            aheadBuffer.clear();
+            aheadBuffer.put( buffer );
+            buffer = aheadBuffer;
+            unmapRegion();
+        }
+
+        // fill the buffer (preferably to the brim)
+        aheadBuffer.limit( aheadBuffer.capacity() ).position( remaining );
+        while ( aheadBuffer.position() < aheadBuffer.capacity() )
+        {   // read from the current channel to try and fill the buffer
+            int read = channel.read( aheadBuffer );
+            if ( read == -1 )
+            {
+                // current channel ran out...
+                if ( aheadBuffer.position() >= requestedNumberOfBytes )
+                {   // ...although we have satisfied the request
+                    break;
+                }
+
+                // ... we need to read even further, into the next version
+                if ( !nextChannel() )
+                {
+                    // no more channels so we cannot satisfy the requested number of bytes
+                    throw ReadPastEndException.INSTANCE;
+                }
+            }
+        }
+        // prepare for reading
+        aheadBuffer.flip();
+    }
+
+    /**
+     * Maps the unread part of the current channel, or of the next one if the current channel has been read
+     * to its end, if that log version is immutable.
+     *
+     * @return {@code true} if {@link #buffer} now is a mapped region of the current channel.
+     */
+    private boolean mapNextRegion() throws IOException
+    {
+        while ( mappingSupported && channel.getVersion() <= highestImmutableVersion )
+        {
+            long position = channel.position();
+            long size = channel.size();
+            if ( position < size )
+            {
+                unmapRegion();
+                long length = min( size - position, Integer.MAX_VALUE );
+                try
+                {
+                    region = channel.map( MapMode.READ_ONLY, position, length );
+                    buffer = region;
+                }
+                catch ( IOException | UnsupportedOperationException e )
+                {   // Not all file systems support memory mapping, read those the usual way
+                    mappingSupported = false;
+                    return false;
+                }
+                channel.position( position + length );
+                return true;
+            }
+            if ( !nextChannel() )
+            {
+                return false;
+            }
+        }
+        return false;
+    }
+
+    private boolean nextChannel() throws IOException
+    {
+        LogVersionedStoreChannel nextChannel = bridge.next( channel );
+        assert nextChannel != null;
+        if ( nextChannel == channel )
+        {
+            return false;
+        }
+        unmapRegion();
+        channel = nextChannel;
+        return true;
+    }
+
+    /**
+     * Unmaps the current region, which must have been read to its end, or copied to the read-ahead buffer.
+     */
+    private void unmapRegion()
+    {
+        if ( region == null )
+        {
+            return;
+        }
+        if ( buffer == region )
+        {
+            aheadBuffer.limit( aheadBuffer.capacity() ).position( aheadBuffer.capacity() );
+            buffer = aheadBuffer;
+        }
+        if ( !unmapper.unmap( region ) )
+        {   // Don't map any more regions that would linger until they are garbage collected
+            mappingSupported = false;
+        }
+        region = null;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        unmapRegion();
+        channel.close();
+    }
+
+    @Override
+    public LogPositionMarker getCurrentPosition( LogPositionMarker positionMarker ) throws IOException
+    {
+        positionMarker.mark( channel.getVersion(), channel.position()-buffer.remaining() );
+        return positionMarker;
+    }
+}
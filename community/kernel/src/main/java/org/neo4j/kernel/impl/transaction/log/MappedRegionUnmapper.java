@@ -0,0 +1,115 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+
+/**
+ * Unmaps memory mapped regions right away, instead of when they happen to be garbage collected. Until then the
+ * file stays mapped, which on Windows means that it can be neither deleted nor truncated, so logs couldn't be pruned.
+ * <p>
+ * There's no public API for this, so it's done the way the running JVM allows: with {@code Unsafe.invokeCleaner}
+ * on Java 9 and later, and with the cleaner of the buffer before that. A region must never be accessed after it
+ * has been unmapped.
+ */
+class MappedRegionUnmapper
+{
+    static final MappedRegionUnmapper INSTANCE = new MappedRegionUnmapper();
+
+    private final Object unsafe;
+    private final Method invokeCleaner;
+    private final Method cleaner;
+    private final Method clean;
+
+    MappedRegionUnmapper()
+    {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        Method cleaner = null;
+        Method clean = null;
+        try
+        {
+            Class<?> unsafeClass = Class.forName( "sun.misc.Unsafe" );
+            invokeCleaner = unsafeClass.getMethod( "invokeCleaner", ByteBuffer.class );
+            Field unsafeField = unsafeClass.getDeclaredField( "theUnsafe" );
+            unsafeField.setAccessible( true );
+            unsafe = unsafeField.get( null );
+        }
+        catch ( ReflectiveOperationException | RuntimeException e )
+        {
+            invokeCleaner = null;
+            try
+            {
+                cleaner = Class.forName( "sun.nio.ch.DirectBuffer" ).getMethod( "cleaner" );
+                clean = cleaner.getReturnType().getMethod( "clean" );
+                cleaner.setAccessible( true );
+                clean.setAccessible( true );
+            }
+            catch ( ReflectiveOperationException | RuntimeException e2 )
+            {
+                cleaner = null;
+                clean = null;
+            }
+        }
+        this.unsafe = unsafe;
+        this.invokeCleaner = invokeCleaner;
+        this.cleaner = cleaner;
+        this.clean = clean;
+    }
+
+    /**
+     * @return whether regions can be unmapped in this JVM. If not, they should be read some other way.
+     */
+    boolean isSupported()
+    {
+        return invokeCleaner != null || cleaner != null;
+    }
+
+    /**
+     * @return {@code true} if the region was unmapped, {@code false} if it is left for the garbage collector.
+     */
+    boolean unmap( MappedByteBuffer region )
+    {
+        try
+        {
+            if ( invokeCleaner != null )
+            {
+                invokeCleaner.invoke( unsafe, region );
+                return true;
+            }
+            if ( cleaner != null )
+            {
+                Object regionCleaner = cleaner.invoke( region );
+                if ( regionCleaner != null )
+                {
+                    clean.invoke( regionCleaner );
+                }
+                return true;
+            }
+        }
+        catch ( ReflectiveOperationException | RuntimeException e )
+        {   // Left for the garbage collector then
+        }
+        return false;
+    }
+}
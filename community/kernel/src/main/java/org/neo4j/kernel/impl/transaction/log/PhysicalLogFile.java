@@ -250,7 +250,9 @@ public class PhysicalLogFile extends LifecycleAdapter implements LogFile
     {
         PhysicalLogVersionedStoreChannel logChannel = openForVersion( logFiles, fileSystem, position.getLogVersion() );
         logChannel.position( position.getByteOffset() );
-        return new ReadAheadLogChannel( logChannel, readerLogVersionBridge, DEFAULT_READ_AHEAD_SIZE );
+        // Only versions that have been rotated away are mapped, the current one is still being appended to
+        return new MappedLogChannel( logChannel, readerLogVersionBridge, DEFAULT_READ_AHEAD_SIZE,
+                logVersionRepository.getCurrentLogVersion() - 1 );
     }
 
     public static PhysicalLogVersionedStoreChannel openForVersion( PhysicalLogFiles logFiles,
@@ -71,7 +71,7 @@ public class PhysicalLogVersionedStoreChannel implements LogVersionedStoreChanne
     @Override
     public MappedByteBuffer map( FileChannel.MapMode mode, long position, long size ) throws IOException
     {
-        throw new UnsupportedOperationException( "Not needed" );
+        return delegateChannel.map( mode, position, size );
     }
 
     @Override
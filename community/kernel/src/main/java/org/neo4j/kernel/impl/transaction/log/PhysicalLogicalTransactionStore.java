@@ -47,17 +47,31 @@ public class PhysicalLogicalTransactionStore extends LifecycleAdapter implements
     private final TransactionIdStore transactionIdStore;
     private final boolean batchedWrites;
     private final IdOrderingQueue legacyIndexTransactionOrdering;
+    private final long maxGroupCommitWindowNanos;
+    private final BatchingPhysicalTransactionAppender.Monitor batchingMonitor;
 
     public PhysicalLogicalTransactionStore( LogFile logFile,
             TransactionMetadataCache transactionMetadataCache,
             TransactionIdStore transactionIdStore, IdOrderingQueue legacyIndexTransactionOrdering,
             boolean batchedWrites )
+    {
+        this( logFile, transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering, batchedWrites,
+                0, new BatchingPhysicalTransactionAppender.Monitor.Adapter() );
+    }
+
+    public PhysicalLogicalTransactionStore( LogFile logFile,
+            TransactionMetadataCache transactionMetadataCache,
+            TransactionIdStore transactionIdStore, IdOrderingQueue legacyIndexTransactionOrdering,
+            boolean batchedWrites, long maxGroupCommitWindowNanos,
+            BatchingPhysicalTransactionAppender.Monitor batchingMonitor )
     {
         this.logFile = logFile;
         this.transactionMetadataCache = transactionMetadataCache;
         this.transactionIdStore = transactionIdStore;
         this.legacyIndexTransactionOrdering = legacyIndexTransactionOrdering;
         this.batchedWrites = batchedWrites;
+        this.maxGroupCommitWindowNanos = maxGroupCommitWindowNanos;
+        this.batchingMonitor = batchingMonitor;
     }
 
     @Override
@@ -65,7 +79,8 @@ public class PhysicalLogicalTransactionStore extends LifecycleAdapter implements
     {
         this.appender = batchedWrites ?
                 new BatchingPhysicalTransactionAppender( logFile, transactionMetadataCache, transactionIdStore,
-                        legacyIndexTransactionOrdering, ATOMIC_LONG, DEFAULT_WAIT_STRATEGY ) :
+                        legacyIndexTransactionOrdering, ATOMIC_LONG, DEFAULT_WAIT_STRATEGY,
+                        maxGroupCommitWindowNanos, batchingMonitor ) :
                 new PhysicalTransactionAppender( logFile,
                         transactionMetadataCache, transactionIdStore, legacyIndexTransactionOrdering );
     }
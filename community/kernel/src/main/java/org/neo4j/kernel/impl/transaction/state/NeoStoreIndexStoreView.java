@@ -23,6 +23,7 @@ import static org.neo4j.kernel.api.index.NodePropertyUpdate.EMPTY_LONG_ARRAY;
 import static org.neo4j.kernel.api.labelscan.NodeLabelUpdate.labelChanges;
 import static org.neo4j.kernel.impl.store.NodeLabelsField.parseLabelsField;
 
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
@@ -35,7 +36,9 @@ import org.neo4j.helpers.collection.Visitor;
 import org.neo4j.kernel.api.EntityType;
 import org.neo4j.kernel.api.exceptions.EntityNotFoundException;
 import org.neo4j.kernel.api.exceptions.PropertyNotFoundException;
+import org.neo4j.kernel.api.index.CompositeValues;
 import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.NodePropertyUpdate;
 import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
 import org.neo4j.kernel.api.properties.Property;
@@ -47,6 +50,7 @@ import org.neo4j.kernel.impl.store.NeoStore;
 import org.neo4j.kernel.impl.store.NodeStore;
 import org.neo4j.kernel.impl.store.PropertyStore;
 import org.neo4j.kernel.impl.store.StoreIdIterator;
+import org.neo4j.kernel.impl.store.counts.CountsTracker;
 import org.neo4j.kernel.impl.store.record.NodeRecord;
 import org.neo4j.kernel.impl.store.record.PropertyBlock;
 import org.neo4j.kernel.impl.store.record.PropertyRecord;
@@ -56,24 +60,49 @@ public class NeoStoreIndexStoreView implements IndexStoreView
 {
     private final PropertyStore propertyStore;
     private final NodeStore nodeStore;
+    private final CountsTracker counts;
     private final LockService locks;
 
     public NeoStoreIndexStoreView( LockService locks, NeoStore neoStore )
     {
-        this( locks, neoStore.getNodeStore(), neoStore.getPropertyStore() );
+        this( locks, neoStore.getNodeStore(), neoStore.getPropertyStore(), neoStore.getCounts() );
     }
 
-    public NeoStoreIndexStoreView( LockService locks, NodeStore nodeStore, PropertyStore propertyStore )
+    public NeoStoreIndexStoreView( LockService locks, NodeStore nodeStore, PropertyStore propertyStore,
+                                   CountsTracker counts )
     {
         this.locks = locks;
         this.propertyStore = propertyStore;
         this.nodeStore = nodeStore;
+        this.counts = counts;
+    }
+
+    @Override
+    public void replaceIndexSample( IndexDescriptor descriptor, IndexSample sample )
+    {
+        counts.replaceIndexSample( descriptor, sample );
+    }
+
+    @Override
+    public void removeIndexSample( IndexDescriptor descriptor )
+    {
+        counts.removeIndexSample( descriptor );
+    }
+
+    @Override
+    public void writeIndexSamples() throws IOException
+    {
+        counts.writeIndexSamples();
     }
 
     @Override
     public <FAILURE extends Exception> StoreScan<FAILURE> visitNodesWithPropertyAndLabel(
             IndexDescriptor descriptor, final Visitor<NodePropertyUpdate, FAILURE> visitor )
     {
+        if ( descriptor.isComposite() )
+        {
+            return visitNodesWithCompositeValueAndLabel( descriptor, visitor );
+        }
         final int soughtLabelId = descriptor.getLabelId();
         final int soughtPropertyKeyId = descriptor.getPropertyKeyId();
         return new NodeStoreScan<NodePropertyUpdate, FAILURE>()
@@ -105,6 +134,55 @@ public class NeoStoreIndexStoreView implements IndexStoreView
         };
     }
 
+    /**
+     * Visits the nodes that have the label and all the property keys of the given composite index, as updates
+     * with the {@link CompositeValues encoded} tuple of their values.
+     */
+    private <FAILURE extends Exception> StoreScan<FAILURE> visitNodesWithCompositeValueAndLabel(
+            IndexDescriptor descriptor, final Visitor<NodePropertyUpdate, FAILURE> visitor )
+    {
+        final int soughtLabelId = descriptor.getLabelId();
+        final int[] soughtPropertyKeyIds = descriptor.getPropertyKeyIds();
+        return new NodeStoreScan<NodePropertyUpdate, FAILURE>()
+        {
+            @Override
+            protected NodePropertyUpdate read( NodeRecord node )
+            {
+                long[] labels = parseLabelsField( node ).get( nodeStore );
+                if ( !containsLabel( soughtLabelId, labels ) )
+                {
+                    return null;
+                }
+                Object[] values = new Object[soughtPropertyKeyIds.length];
+                int found = 0;
+                for ( PropertyBlock property : properties( node ) )
+                {
+                    int propertyKeyId = property.getKeyIndexId();
+                    for ( int i = 0; i < soughtPropertyKeyIds.length; i++ )
+                    {
+                        if ( soughtPropertyKeyIds[i] == propertyKeyId )
+                        {
+                            values[i] = valueOf( property );
+                            found++;
+                        }
+                    }
+                }
+                if ( found < soughtPropertyKeyIds.length )
+                {
+                    return null;
+                }
+                return NodePropertyUpdate.add( node.getId(), soughtPropertyKeyIds[0], CompositeValues.encode( values ),
+                        labels );
+            }
+
+            @Override
+            protected void process( NodePropertyUpdate update ) throws FAILURE
+            {
+                visitor.visit( update );
+            }
+        };
+    }
+
     @Override
     public <FAILURE extends Exception> StoreScan<FAILURE> visitNodes(
             final int[] labelIds, final int[] propertyKeyIds,
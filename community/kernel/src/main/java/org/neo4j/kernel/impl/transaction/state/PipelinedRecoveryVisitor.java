@@ -0,0 +1,403 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.state;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.neo4j.helpers.collection.Visitor;
+import org.neo4j.kernel.api.labelscan.LabelScanStore;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.impl.api.TransactionApplicationMode;
+import org.neo4j.kernel.impl.api.TransactionRepresentationStoreApplier;
+import org.neo4j.kernel.impl.api.index.IndexingService;
+import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.store.NeoStore;
+import org.neo4j.kernel.impl.store.record.PropertyRecord;
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command.NodeCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.PropertyCommand;
+import org.neo4j.kernel.impl.transaction.command.Command.SchemaRuleCommand;
+import org.neo4j.kernel.impl.transaction.command.IndexTransactionApplier;
+import org.neo4j.kernel.impl.transaction.command.NeoCommandHandler;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Recovers transactions like {@link RecoveryVisitor} does, but as a pipeline. The thread reading and
+ * deserializing the log hands every transaction over to three stages, each running in its own thread:
+ * <ol>
+ * <li>the record stores, counts store and legacy indexes, which are updated one transaction at a time,
+ * in commit order</li>
+ * <li>the schema indexes, which are handed the changes of many transactions at once</li>
+ * <li>the label scan store, where the label changes of many transactions are written with a single writer</li>
+ * </ol>
+ *
+ * Recovery runs before the {@link IndexingService} is started, and up until then it only remembers which
+ * nodes have changed, in order to refresh them from the store when it starts. Neither of the index stages
+ * therefore read anything from the record stores, which is what allows them to run ahead of, or behind,
+ * the store stage.
+ *
+ * {@link #close()} waits for all stages to finish, and then marks the last recovered transaction as
+ * committed and closed. A failure in any stage fails recovery, at the latest when closing.
+ */
+public class PipelinedRecoveryVisitor implements Visitor<CommittedTransactionRepresentation,IOException>, Closeable
+{
+    public static final int DEFAULT_BATCH_SIZE = 100;
+
+    private static final CommittedTransactionRepresentation END = new CommittedTransactionRepresentation( null, null,
+            null );
+
+    private final TransactionIdStore store;
+    private final TransactionRepresentationStoreApplier storeApplier;
+    private final IndexingService indexingService;
+    private final LabelScanStore labelScanStore;
+    private final NeoStore neoStore;
+    private final CacheAccessBackDoor cacheAccess;
+    private final AtomicInteger recoveredCount;
+    private final RecoveryVisitor.Monitor monitor;
+    private final int batchSize;
+    private final AtomicReference<Throwable> failure = new AtomicReference<>();
+    private final Stage[] stages;
+    private boolean started;
+    // Written by the store stage, read after it has been joined
+    private long lastTransactionIdApplied = -1;
+
+    public PipelinedRecoveryVisitor( TransactionIdStore store, TransactionRepresentationStoreApplier storeApplier,
+                                     IndexingService indexingService, LabelScanStore labelScanStore,
+                                     NeoStore neoStore, CacheAccessBackDoor cacheAccess,
+                                     AtomicInteger recoveredCount, RecoveryVisitor.Monitor monitor, int batchSize )
+    {
+        this.store = store;
+        this.storeApplier = storeApplier;
+        this.indexingService = indexingService;
+        this.labelScanStore = labelScanStore;
+        this.neoStore = neoStore;
+        this.cacheAccess = cacheAccess;
+        this.recoveredCount = recoveredCount;
+        this.monitor = monitor;
+        this.batchSize = batchSize;
+        this.stages = new Stage[] {new StoreStage(), new SchemaIndexStage(), new LabelScanStage()};
+    }
+
+    @Override
+    public boolean visit( CommittedTransactionRepresentation transaction ) throws IOException
+    {
+        if ( !started )
+        {
+            // Only spend threads on recovery if there's anything to recover
+            for ( Stage stage : stages )
+            {
+                stage.start();
+            }
+            started = true;
+        }
+
+        try
+        {
+            for ( Stage stage : stages )
+            {
+                stage.offer( transaction );
+            }
+        }
+        catch ( IOException e )
+        {
+            stopStages();
+            throw e;
+        }
+        return false;
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+        if ( !started )
+        {
+            return;
+        }
+
+        try
+        {
+            for ( Stage stage : stages )
+            {
+                stage.offer( END );
+            }
+            awaitStages();
+        }
+        catch ( IOException e )
+        {
+            stopStages();
+            throw e;
+        }
+        checkFailure();
+
+        if ( lastTransactionIdApplied != -1 )
+        {
+            store.setLastCommittedAndClosedTransactionId( lastTransactionIdApplied );
+        }
+    }
+
+    private void stopStages() throws IOException
+    {
+        for ( Stage stage : stages )
+        {
+            stage.interrupt();
+        }
+        awaitStages();
+    }
+
+    private void awaitStages() throws IOException
+    {
+        for ( Stage stage : stages )
+        {
+            try
+            {
+                stage.join();
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException( "Interrupted while waiting for recovery to complete" );
+            }
+        }
+    }
+
+    private void checkFailure() throws IOException
+    {
+        Throwable cause = failure.get();
+        if ( cause != null )
+        {
+            throw new IOException( "Recovery failed", cause );
+        }
+    }
+
+    /**
+     * A thread taking transactions off of its queue until it sees {@link #END}. Transactions are handed to
+     * {@link #process(CommittedTransactionRepresentation)} one by one, and {@link #flush()} is called after
+     * every {@link #batchSize} transactions, and at the end.
+     */
+    private abstract class Stage extends Thread
+    {
+        private final BlockingQueue<CommittedTransactionRepresentation> queue =
+                new ArrayBlockingQueue<>( batchSize * 2 );
+
+        Stage( String name )
+        {
+            super( "Recovery " + name );
+            setDaemon( true );
+        }
+
+        void offer( CommittedTransactionRepresentation transaction ) throws IOException
+        {
+            try
+            {
+                while ( !queue.offer( transaction, 10, MILLISECONDS ) )
+                {
+                    checkFailure();
+                }
+            }
+            catch ( InterruptedException e )
+            {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException( "Interrupted while recovering" );
+            }
+            checkFailure();
+        }
+
+        @Override
+        public void run()
+        {
+            try
+            {
+                int batched = 0;
+                CommittedTransactionRepresentation transaction;
+                while ( (transaction = queue.take()) != END )
+                {
+                    process( transaction );
+                    if ( ++batched == batchSize )
+                    {
+                        flush();
+                        batched = 0;
+                    }
+                }
+                flush();
+            }
+            catch ( Throwable e )
+            {
+                failure.compareAndSet( null, e );
+            }
+        }
+
+        abstract void process( CommittedTransactionRepresentation transaction ) throws IOException;
+
+        void flush() throws IOException
+        {
+        }
+    }
+
+    private class StoreStage extends Stage
+    {
+        StoreStage()
+        {
+            super( "store applier" );
+        }
+
+        @Override
+        void process( CommittedTransactionRepresentation transaction ) throws IOException
+        {
+            long txId = transaction.getCommitEntry().getTxId();
+            try ( LockGroup locks = new LockGroup() )
+            {
+                storeApplier.applyToStores( transaction.getTransactionRepresentation(), locks, txId,
+                        TransactionApplicationMode.RECOVERY );
+            }
+            recoveredCount.incrementAndGet();
+            lastTransactionIdApplied = txId;
+            monitor.transactionRecovered( txId );
+        }
+    }
+
+    private class SchemaIndexStage extends Stage
+    {
+        private final NeoCommandHandler.HandlerVisitor visitor;
+        private final PropertyLoader propertyLoader;
+        private Map<Long,NodeCommand> nodeCommands = new HashMap<>();
+        private Map<Long,List<PropertyCommand>> propertyCommands = new HashMap<>();
+
+        SchemaIndexStage()
+        {
+            super( "schema index applier" );
+            this.propertyLoader = new PropertyLoader( neoStore );
+            this.visitor = new NeoCommandHandler.HandlerVisitor( new NeoCommandHandler.Adapter()
+            {
+                @Override
+                public boolean visitNodeCommand( NodeCommand command )
+                {
+                    nodeCommands.put( command.getKey(), command );
+                    return false;
+                }
+
+                @Override
+                public boolean visitPropertyCommand( PropertyCommand command )
+                {
+                    PropertyRecord record = command.getAfter();
+                    if ( record.isNodeSet() )
+                    {
+                        List<PropertyCommand> group = propertyCommands.get( record.getNodeId() );
+                        if ( group == null )
+                        {
+                            propertyCommands.put( record.getNodeId(), group = new ArrayList<>() );
+                        }
+                        group.add( command );
+                    }
+                    return false;
+                }
+
+                @Override
+                public boolean visitSchemaRuleCommand( SchemaRuleCommand command )
+                {
+                    // Index changes must be seen in order with the updates, so flush what we have first
+                    flush();
+                    IndexTransactionApplier.applySchemaRuleCommand( indexingService, command );
+                    return false;
+                }
+            } );
+        }
+
+        @Override
+        void process( CommittedTransactionRepresentation transaction ) throws IOException
+        {
+            transaction.getTransactionRepresentation().accept( visitor );
+        }
+
+        @Override
+        void flush()
+        {
+            if ( nodeCommands.isEmpty() && propertyCommands.isEmpty() )
+            {
+                return;
+            }
+
+            LazyIndexUpdates updates = new LazyIndexUpdates( neoStore.getNodeStore(), neoStore.getPropertyStore(),
+                    propertyCommands, nodeCommands, propertyLoader );
+            synchronized ( indexingService )
+            {
+                indexingService.updateIndexes( updates, true );
+            }
+            nodeCommands = new HashMap<>();
+            propertyCommands = new HashMap<>();
+        }
+    }
+
+    private class LabelScanStage extends Stage
+    {
+        private final NeoCommandHandler.HandlerVisitor visitor;
+        private List<NodeLabelUpdate> labelUpdates = new ArrayList<>();
+
+        LabelScanStage()
+        {
+            super( "label scan applier" );
+            this.visitor = new NeoCommandHandler.HandlerVisitor( new NeoCommandHandler.Adapter()
+            {
+                @Override
+                public boolean visitNodeCommand( NodeCommand command )
+                {
+                    NodeLabelUpdate labelUpdate = IndexTransactionApplier.labelUpdate( command );
+                    if ( labelUpdate != null )
+                    {
+                        labelUpdates.add( labelUpdate );
+                    }
+                    return false;
+                }
+            } );
+        }
+
+        @Override
+        void process( CommittedTransactionRepresentation transaction ) throws IOException
+        {
+            transaction.getTransactionRepresentation().accept( visitor );
+        }
+
+        @Override
+        void flush()
+        {
+            if ( labelUpdates.isEmpty() )
+            {
+                return;
+            }
+
+            // Updates to the same node keep their commit order, since the sort is stable
+            IndexTransactionApplier.updateLabelScanStore( labelScanStore, labelUpdates );
+            cacheAccess.applyLabelUpdates( labelUpdates );
+            labelUpdates = new ArrayList<>();
+        }
+    }
+}
@@ -60,6 +60,16 @@ public interface JobScheduler extends Lifecycle
          */
         heuristics,
         pageCacheEviction,
+
+        /**
+         * Applies the deferred updates of schema indexes.
+         */
+        indexUpdates,
+
+        /**
+         * Samples the values of schema indexes, for the cost based planner.
+         */
+        indexSampling,
     }
 
     interface JobHandle
@@ -137,6 +137,7 @@ import static org.neo4j.collection.primitive.PrimitiveLongCollections.map;
 import static org.neo4j.graphdb.DynamicLabel.label;
 import static org.neo4j.helpers.collection.Iterables.map;
 import static org.neo4j.helpers.collection.IteratorUtil.first;
+import static org.neo4j.kernel.api.StatementConstants.NO_SUCH_PROPERTY_KEY;
 import static org.neo4j.kernel.impl.store.NodeLabelsField.parseLabelsField;
 import static org.neo4j.kernel.impl.store.PropertyStore.encodeString;
 import static org.neo4j.kernel.impl.util.IoPrimitiveUtils.safeCastLongToInt;
@@ -348,13 +349,18 @@ public class BatchInserterImpl implements BatchInserter
         return new IndexCreatorImpl( actions, label );
     }
 
-    private void createIndexRule( Label label, String propertyKey )
+    private void createIndexRule( Label label, String... propertyKeys )
     {
         // TODO: Do not create duplicate index
 
+        int[] propertyKeyIds = new int[propertyKeys.length];
+        for ( int i = 0; i < propertyKeys.length; i++ )
+        {
+            propertyKeyIds[i] = getOrCreatePropertyKeyId( propertyKeys[i] );
+        }
         SchemaStore schemaStore = getSchemaStore();
         IndexRule schemaRule = IndexRule.indexRule( schemaStore.nextId(), getOrCreateLabelId( label.name() ),
-                                                    getOrCreatePropertyKeyId( propertyKey ),
+                                                    propertyKeyIds,
                                                     this.schemaIndexProviders.getDefaultProvider()
                                                                              .getProviderDescriptor() );
         for ( DynamicRecord record : schemaStore.allocateFrom( schemaRule ) )
@@ -386,11 +392,11 @@ public class BatchInserterImpl implements BatchInserter
         {
             IndexRule rule = rules[i];
             int labelId = rule.getLabel();
-            int propertyKeyId = rule.getPropertyKey();
             labelIds[i] = labelId;
-            propertyKeyIds[i] = propertyKeyId;
+            // Composite indexes are populated by a scan of their own below, so keep them out of this one
+            propertyKeyIds[i] = rule.isComposite() ? NO_SUCH_PROPERTY_KEY : rule.getPropertyKey();
 
-            IndexDescriptor descriptor = new IndexDescriptor( labelId, propertyKeyId );
+            IndexDescriptor descriptor = new IndexDescriptor( labelId, rule.getPropertyKeys() );
             populators[i] = schemaIndexProviders.apply( rule.getProviderDescriptor() ).getPopulator(
                     rule.getId(), descriptor, new IndexConfiguration( rule.isConstraintIndex() ) );
             populators[i].create();
@@ -429,6 +435,31 @@ public class BatchInserterImpl implements BatchInserter
                 propertyUpdateVisitor, labelUpdateVisitor );
         storeScan.run();
 
+        for ( int i = 0; i < rules.length; i++ )
+        {
+            if ( rules[i].isComposite() )
+            {
+                final IndexPopulator populator = populators[i];
+                IndexDescriptor descriptor = new IndexDescriptor( labelIds[i], rules[i].getPropertyKeys() );
+                storeView.visitNodesWithPropertyAndLabel( descriptor, new Visitor<NodePropertyUpdate, IOException>()
+                {
+                    @Override
+                    public boolean visit( NodePropertyUpdate update ) throws IOException
+                    {
+                        try
+                        {
+                            populator.add( update.getNodeId(), update.getValueAfter() );
+                        }
+                        catch ( IndexEntryConflictException e )
+                        {
+                            throw new IllegalStateException( "Composite indexes are never unique", e );
+                        }
+                        return true;
+                    }
+                } ).run();
+            }
+        }
+
         for ( IndexPopulator populator : populators )
         {
             populator.close( true );
@@ -992,14 +1023,14 @@ public class BatchInserterImpl implements BatchInserter
     private class BatchSchemaActions implements InternalSchemaActions
     {
         @Override
-        public IndexDefinition createIndexDefinition( Label label, String propertyKey )
+        public IndexDefinition createIndexDefinition( Label label, String... propertyKeys )
         {
-            createIndexRule( label, propertyKey );
-            return new IndexDefinitionImpl( this, label, propertyKey, false );
+            createIndexRule( label, propertyKeys );
+            return new IndexDefinitionImpl( this, label, propertyKeys, false );
         }
 
         @Override
-        public void dropIndexDefinitions( Label label, String propertyKey )
+        public void dropIndexDefinitions( Label label, String... propertyKeys )
         {
             throw unsupportedException();
         }
@@ -161,6 +161,13 @@ public class BatchingPageCache implements PageCache
         return pageFile;
     }
 
+    @Override
+    public PagedFile map( File file, int pageSize, int reservedPercentage ) throws IOException
+    {
+        // Every mapped file has its own page, so there is nothing to reserve
+        return map( file, pageSize );
+    }
+
     @Override
     public void unmap( File file ) throws IOException
     {
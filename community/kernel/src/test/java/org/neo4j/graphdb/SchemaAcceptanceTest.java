@@ -19,6 +19,7 @@
  */
 package org.neo4j.graphdb;
 
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
 import org.junit.Before;
@@ -46,6 +47,7 @@ import static org.neo4j.graphdb.Neo4jMatchers.getIndexes;
 import static org.neo4j.graphdb.Neo4jMatchers.isEmpty;
 import static org.neo4j.graphdb.Neo4jMatchers.waitForIndex;
 import static org.neo4j.helpers.collection.Iterables.count;
+import static org.neo4j.helpers.collection.IteratorUtil.asList;
 import static org.neo4j.helpers.collection.IteratorUtil.asSet;
 
 public class SchemaAcceptanceTest
@@ -165,26 +167,46 @@ public class SchemaAcceptanceTest
     }
 
     @Test
-    public void shouldThrowConstraintViolationIfAskedToCreateCompoundIndex() throws Exception
+    public void shouldCreateAndDropCompositeIndex() throws Exception
     {
         // WHEN
-        Transaction tx = db.beginTx();
-        try
+        IndexDefinition index;
+        try ( Transaction tx = db.beginTx() )
         {
-            Schema schema = db.schema();
-            schema.indexFor( label )
+            index = db.schema().indexFor( label )
                     .on( "my_property_key" )
                     .on( "other_property" ).create();
             tx.success();
-            fail( "Should not be able to create index on multiple propertyKey keys" );
         }
-        catch ( UnsupportedOperationException e )
+        waitForIndex( db, index );
+
+        // THEN
+        assertThat( getIndexes( db, label ), containsOnly( index ) );
+        try ( Transaction tx = db.beginTx() )
         {
-            assertThat( e.getMessage(), containsString( "Compound indexes" ) );
+            assertEquals( Arrays.asList( "my_property_key", "other_property" ), asList( index.getPropertyKeys() ) );
+            assertEquals( Schema.IndexState.ONLINE, db.schema().getIndexState( index ) );
         }
-        finally
+
+        // AND WHEN
+        dropIndex( index );
+
+        // THEN
+        assertThat( getIndexes( db, label ), isEmpty() );
+    }
+
+    @Test
+    public void shouldThrowIfAskedToUseSamePropertyKeyTwiceInAnIndex() throws Exception
+    {
+        // WHEN
+        try ( Transaction tx = db.beginTx() )
         {
-            tx.finish();
+            db.schema().indexFor( label ).on( propertyKey ).on( propertyKey );
+            fail( "Should not be able to use the same property key twice" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            assertThat( e.getMessage(), containsString( propertyKey ) );
         }
     }
 
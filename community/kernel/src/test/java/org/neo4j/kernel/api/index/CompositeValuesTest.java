@@ -0,0 +1,46 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.index;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+
+public class CompositeValuesTest
+{
+    @Test
+    public void shouldEncodeValuesOfAllTypes() throws Exception
+    {
+        assertEquals( "D1.0|Ztrue|Lali|", CompositeValues.encode( new Object[]{1, true, "ali"} ) );
+        assertEquals( "D1.0|D1.0|", CompositeValues.encode( new Object[]{1L, 1.0f} ) );
+        assertEquals( "AD1.0\\|2.0\\||Lok|", CompositeValues.encode( new Object[]{new int[]{1, 2}, "ok"} ) );
+    }
+
+    @Test
+    public void shouldNotMistakeSeparatorsInStringsForTheEndOfTheValue() throws Exception
+    {
+        assertEquals( "La\\|b|L\\\\|", CompositeValues.encode( new Object[]{"a|b", "\\"} ) );
+        assertNotEquals( CompositeValues.encode( new Object[]{"a|Lb", "c"} ),
+                CompositeValues.encode( new Object[]{"a", "b|Lc"} ) );
+        assertNotEquals( CompositeValues.encode( new Object[]{"a\\", "b"} ),
+                CompositeValues.encode( new Object[]{"a\\|Lb"} ) );
+    }
+}
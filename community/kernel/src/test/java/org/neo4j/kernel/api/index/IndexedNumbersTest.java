@@ -0,0 +1,55 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.api.index;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class IndexedNumbersTest
+{
+    @Test
+    public void shouldCompareLongsThatRoundToTheSameDoubleExactly() throws Exception
+    {
+        long large = 1L << 53;
+        assertEquals( (double) large, (double) (large + 1), 0 );
+
+        assertTrue( IndexedNumbers.compare( large, large + 1 ) < 0 );
+        assertTrue( IndexedNumbers.compare( large + 1, (double) large ) > 0 );
+        assertEquals( 0, IndexedNumbers.compare( large, (double) large ) );
+        assertEquals( 0, IndexedNumbers.compare( 3, 3.0d ) );
+        assertTrue( IndexedNumbers.compare( Long.MAX_VALUE, Math.pow( 2, 63 ) ) < 0 );
+        assertTrue( IndexedNumbers.compare( Long.MAX_VALUE - 1, Long.MAX_VALUE ) < 0 );
+        assertTrue( IndexedNumbers.compare( Long.MIN_VALUE, Long.MIN_VALUE + 1 ) < 0 );
+    }
+
+    @Test
+    public void shouldTellWhichNumbersAreExactDoubles() throws Exception
+    {
+        assertTrue( IndexedNumbers.isExactDouble( 1L << 53 ) );
+        assertFalse( IndexedNumbers.isExactDouble( (1L << 53) + 1 ) );
+        assertTrue( IndexedNumbers.isExactDouble( Long.MIN_VALUE ) );
+        assertFalse( IndexedNumbers.isExactDouble( Long.MAX_VALUE ) );
+        assertTrue( IndexedNumbers.isExactDouble( 0.1d ) );
+        assertTrue( IndexedNumbers.isExactDouble( Integer.MAX_VALUE ) );
+    }
+}
@@ -0,0 +1,198 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import org.neo4j.kernel.api.index.IndexConfiguration;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.index.NodePropertyUpdate;
+import org.neo4j.kernel.impl.api.index.inmemory.InMemoryIndexProvider;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+import static org.neo4j.kernel.api.index.NodePropertyUpdate.add;
+import static org.neo4j.kernel.api.index.NodePropertyUpdate.change;
+import static org.neo4j.kernel.api.index.NodePropertyUpdate.remove;
+
+public class DeferredIndexProxyTest
+{
+    private static final int PROPERTY_KEY_ID = 2;
+    private static final long[] LABELS = {1};
+
+    private final IndexDescriptor descriptor = new IndexDescriptor( 1, PROPERTY_KEY_ID );
+    private final Set<DeferredIndexProxy> deferredIndexes = new CopyOnWriteArraySet<>();
+    private OnlineIndexProxy index;
+    private DeferredIndexProxy deferred;
+
+    @Before
+    public void createIndex() throws Exception
+    {
+        InMemoryIndexProvider provider = new InMemoryIndexProvider();
+        IndexConfiguration config = new IndexConfiguration( false );
+        IndexPopulator populator = provider.getPopulator( 1, descriptor, config );
+        populator.create();
+        populator.add( 1, "a" );
+        populator.add( 2, "b" );
+        populator.add( 3, 10L );
+        populator.close( true );
+        index = new OnlineIndexProxy( descriptor, provider.getProviderDescriptor(),
+                provider.getOnlineAccessor( 1, config ) );
+        deferred = new DeferredIndexProxy( index, deferredIndexes );
+    }
+
+    @Test
+    public void shouldQueueUpdatesUntilApplied() throws Exception
+    {
+        // when
+        commit( add( 4, PROPERTY_KEY_ID, "c", LABELS ) );
+
+        // then
+        try ( IndexReader reader = index.newReader() )
+        {
+            assertEquals( asSet(), asSet( reader.lookup( "c" ) ) );
+        }
+        try ( IndexReader reader = deferred.newReader() )
+        {
+            assertEquals( asSet( 4L ), asSet( reader.lookup( "c" ) ) );
+        }
+
+        // when
+        deferred.applyQueuedUpdates();
+
+        // then
+        try ( IndexReader reader = index.newReader() )
+        {
+            assertEquals( asSet( 4L ), asSet( reader.lookup( "c" ) ) );
+        }
+    }
+
+    @Test
+    public void shouldReadQueuedChangesAndRemovalsInsteadOfIndexedValues() throws Exception
+    {
+        // when
+        commit( change( 1, PROPERTY_KEY_ID, "a", LABELS, "ab", LABELS ) );
+        commit( remove( 2, PROPERTY_KEY_ID, "b", LABELS ), add( 4, PROPERTY_KEY_ID, "b", LABELS ) );
+        commit( change( 3, PROPERTY_KEY_ID, 10L, LABELS, 12, LABELS ) );
+
+        // then
+        try ( IndexReader reader = deferred.newReader() )
+        {
+            assertEquals( asSet(), asSet( reader.lookup( "a" ) ) );
+            assertEquals( asSet( 1L ), asSet( reader.lookup( "ab" ) ) );
+            assertEquals( asSet( 4L ), asSet( reader.lookup( "b" ) ) );
+            assertEquals( asSet( 1L ), asSet( reader.rangeSeekByPrefix( "a" ) ) );
+            assertEquals( asSet( 1L, 4L ), asSet( reader.rangeSeekByString( "a", true, "b", true ) ) );
+            assertEquals( asSet( 3L ), asSet( reader.lookup( 12.0d ) ) );
+            assertEquals( asSet(), asSet( reader.rangeSeekByNumber( null, true, 11, true ) ) );
+            assertEquals( 0, reader.getIndexedCount( 2, "b" ) );
+            assertEquals( 1, reader.getIndexedCount( 4, "b" ) );
+        }
+    }
+
+    @Test
+    public void shouldApplyQueuedUpdatesBeforeRecoveryUpdates() throws Exception
+    {
+        // given
+        commit( add( 4, PROPERTY_KEY_ID, "c", LABELS ) );
+
+        // when
+        try ( IndexUpdater updater = deferred.newUpdater( IndexUpdateMode.RECOVERY ) )
+        {
+            updater.process( change( 4, PROPERTY_KEY_ID, "c", LABELS, "d", LABELS ) );
+        }
+
+        // then
+        try ( IndexReader reader = index.newReader() )
+        {
+            assertEquals( asSet(), asSet( reader.lookup( "c" ) ) );
+            assertEquals( asSet( 4L ), asSet( reader.lookup( "d" ) ) );
+        }
+    }
+
+    @Test
+    public void shouldApplyQueuedUpdatesOnForceAndClose() throws Exception
+    {
+        // given
+        commit( add( 4, PROPERTY_KEY_ID, "c", LABELS ) );
+
+        // when
+        deferred.force();
+        commit( add( 5, PROPERTY_KEY_ID, "c", LABELS ) );
+        deferred.close();
+
+        // then
+        try ( IndexReader reader = index.newReader() )
+        {
+            assertEquals( asSet( 4L, 5L ), asSet( reader.lookup( "c" ) ) );
+        }
+        assertFalse( deferredIndexes.contains( deferred ) );
+    }
+
+    @Test
+    public void shouldApplyQueuedUpdatesWhenTooManyBatchesAreQueued() throws Exception
+    {
+        // when
+        for ( int i = 0; i <= DeferredIndexProxy.MAX_QUEUED_BATCHES; i++ )
+        {
+            commit( add( 10 + i, PROPERTY_KEY_ID, "c", LABELS ) );
+        }
+
+        // then
+        try ( IndexReader reader = index.newReader() )
+        {
+            assertEquals( DeferredIndexProxy.MAX_QUEUED_BATCHES + 1, asSet( reader.lookup( "c" ) ).size() );
+        }
+    }
+
+    @Test
+    public void shouldForgetQueuedUpdatesOnDrop() throws Exception
+    {
+        // given
+        assertTrue( deferredIndexes.contains( deferred ) );
+        commit( add( 4, PROPERTY_KEY_ID, "c", LABELS ) );
+
+        // when
+        deferred.drop();
+
+        // then
+        assertFalse( deferredIndexes.contains( deferred ) );
+    }
+
+    private void commit( NodePropertyUpdate... updates ) throws Exception
+    {
+        try ( IndexUpdater updater = deferred.newUpdater( IndexUpdateMode.ONLINE ) )
+        {
+            for ( NodePropertyUpdate update : updates )
+            {
+                updater.process( update );
+            }
+        }
+    }
+}
@@ -0,0 +1,126 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.index;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseBuilder;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.test.DatabaseRule;
+import org.neo4j.test.ImpermanentDatabaseRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.neo4j.graphdb.DynamicLabel.label;
+import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+
+public class DeferredIndexUpdatesIT
+{
+    @Rule
+    public final DatabaseRule dbRule = new ImpermanentDatabaseRule()
+    {
+        @Override
+        protected void configure( GraphDatabaseBuilder builder )
+        {
+            // Long enough for the updates of the test to still be queued when they are read
+            builder.setConfig( GraphDatabaseSettings.deferred_index_updates_interval, "3600s" );
+        }
+    };
+
+    private final Label label = label( "Person" );
+
+    @Test
+    public void shouldFindNodesOfCommittedTransactionsRightAway() throws Exception
+    {
+        // given
+        GraphDatabaseService db = dbRule.getGraphDatabaseService();
+        createIndex( db );
+        Set<Node> alices = new HashSet<>();
+
+        for ( int i = 0; i < 20; i++ )
+        {
+            // when
+            try ( Transaction tx = db.beginTx() )
+            {
+                alices.add( db.createNode( label ) );
+                for ( Node alice : alices )
+                {
+                    alice.setProperty( "name", "Alice" );
+                }
+                Node bob = db.createNode( label );
+                bob.setProperty( "name", "Bob" );
+                bob.delete();
+                tx.success();
+            }
+
+            // then
+            assertEquals( alices, findNodes( db, "Alice" ) );
+            assertEquals( asSet(), findNodes( db, "Bob" ) );
+        }
+
+        // when
+        try ( Transaction tx = db.beginTx() )
+        {
+            for ( Node alice : alices )
+            {
+                alice.setProperty( "name", "Alicia" );
+            }
+            tx.success();
+        }
+
+        // then
+        assertEquals( asSet(), findNodes( db, "Alice" ) );
+        assertEquals( alices, findNodes( db, "Alicia" ) );
+    }
+
+    private void createIndex( GraphDatabaseService db )
+    {
+        IndexDefinition index;
+        try ( Transaction tx = db.beginTx() )
+        {
+            index = db.schema().indexFor( label ).on( "name" ).create();
+            tx.success();
+        }
+        try ( Transaction tx = db.beginTx() )
+        {
+            db.schema().awaitIndexOnline( index, 10, TimeUnit.SECONDS );
+            tx.success();
+        }
+    }
+
+    private Set<Node> findNodes( GraphDatabaseService db, String name )
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            Set<Node> nodes = asSet( db.findNodesByLabelAndProperty( label, "name", name ) );
+            tx.success();
+            return nodes;
+        }
+    }
+}
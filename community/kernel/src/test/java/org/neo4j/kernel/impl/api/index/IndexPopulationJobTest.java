@@ -66,6 +66,7 @@ import org.neo4j.test.OtherThreadExecutor.WorkerCommand;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
 import static java.lang.String.format;
+import static java.util.Arrays.asList;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.core.IsEqual.equalTo;
@@ -75,6 +76,8 @@ import static org.mockito.Matchers.anyLong;
 import static org.mockito.Mockito.RETURNS_MOCKS;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
@@ -112,6 +115,46 @@ public class IndexPopulationJobTest
         verifyNoMoreInteractions( populator );
     }
 
+    @Test
+    public void shouldPopulateSeveralIndexesFromASingleStoreScan() throws Exception
+    {
+        // GIVEN
+        long taylor = createNode( map( name, "Taylor", age, 42 ), FIRST );
+        long john = createNode( map( name, "John" ), SECOND );
+        long both = createNode( map( name, "Bob", age, 7 ), FIRST, SECOND );
+        IndexPopulator firstName = mock( IndexPopulator.class );
+        IndexPopulator firstAge = mock( IndexPopulator.class );
+        IndexPopulator secondName = mock( IndexPopulator.class );
+        IndexStoreView storeView = spy( indexStoreView );
+        IndexPopulationJob job = new IndexPopulationJob( storeView, stateHolder,
+                new SingleLoggingService( StringLogger.DEV_NULL ) );
+        addPopulation( job, FIRST, name, firstName );
+        addPopulation( job, FIRST, age, firstAge );
+        addPopulation( job, SECOND, name, secondName );
+
+        // WHEN
+        job.run();
+
+        // THEN
+        verify( storeView ).visitNodes( any( int[].class ), any( int[].class ), any( Visitor.class ),
+                any( Visitor.class ) );
+        verify( storeView, never() ).visitNodesWithPropertyAndLabel( any( IndexDescriptor.class ),
+                any( Visitor.class ) );
+        verify( firstName ).add( taylor, "Taylor" );
+        verify( firstName ).add( both, "Bob" );
+        verify( firstAge ).add( taylor, 42 );
+        verify( firstAge ).add( both, 7 );
+        verify( secondName ).add( john, "John" );
+        verify( secondName ).add( both, "Bob" );
+        for ( IndexPopulator populator : asList( firstName, firstAge, secondName ) )
+        {
+            verify( populator ).create();
+            verify( populator ).verifyDeferredConstraints( storeView );
+            verify( populator ).close( true );
+            verifyNoMoreInteractions( populator );
+        }
+    }
+
     @Test
     public void shouldFlushSchemaStateAfterPopulation() throws Exception
     {
@@ -598,6 +641,25 @@ public class IndexPopulationJobTest
                 stateHolder, new SingleLoggingService( logger ) );
     }
 
+    private void addPopulation( IndexPopulationJob job, Label label, String propertyKey, IndexPopulator populator )
+    {
+        FlippableIndexProxy flipper = new FlippableIndexProxy();
+        flipper.setFlipTarget( mock( IndexProxyFactory.class ) );
+        job.addPopulation( new IndexDescriptor( labelId( label ), getPropertyKeyForName( propertyKey ) ),
+                PROVIDER_DESCRIPTOR, format( ":%s(%s)", label.name(), propertyKey ),
+                mock( FailedIndexProxyFactory.class ), populator, flipper );
+    }
+
+    private int labelId( Label label )
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            int result = ctxProvider.instance().readOperations().labelGetForName( label.name() );
+            tx.success();
+            return result;
+        }
+    }
+
     private long createNode( Map<String, Object> properties, Label... labels )
     {
         try ( Transaction tx = db.beginTx() )
@@ -41,6 +41,8 @@ import org.neo4j.kernel.api.index.IndexAccessor;
 import org.neo4j.kernel.api.index.IndexConfiguration;
 import org.neo4j.kernel.api.index.IndexDescriptor;
 import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.index.InternalIndexState;
 import org.neo4j.kernel.api.index.NodePropertyUpdate;
@@ -66,10 +68,12 @@ import static org.junit.Assert.assertThat;
 import static org.junit.Assert.fail;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyZeroInteractions;
@@ -79,6 +83,7 @@ import static org.neo4j.helpers.collection.IteratorUtil.asCollection;
 import static org.neo4j.helpers.collection.IteratorUtil.asResourceIterator;
 import static org.neo4j.helpers.collection.IteratorUtil.iterator;
 import static org.neo4j.helpers.collection.IteratorUtil.loop;
+import static org.neo4j.kernel.api.index.InternalIndexState.FAILED;
 import static org.neo4j.kernel.api.index.InternalIndexState.ONLINE;
 import static org.neo4j.kernel.api.index.InternalIndexState.POPULATING;
 import static org.neo4j.kernel.impl.api.index.TestSchemaIndexProviderDescriptor.PROVIDER_DESCRIPTOR;
@@ -122,7 +127,7 @@ public class IndexingServiceTest
         life.start();
 
         // when
-        indexingService.createIndex( indexRule( 0, labelId, propertyKeyId, PROVIDER_DESCRIPTOR ) );
+        indexingService.createIndexes( indexRule( 0, labelId, propertyKeyId, PROVIDER_DESCRIPTOR ) );
         IndexProxy proxy = indexingService.getProxyForRule( 0 );
 
         verify( populator, timeout( 1000 ) ).close( true );
@@ -153,8 +158,8 @@ public class IndexingServiceTest
         life.start();
 
         // when
-        indexingService.createIndex( IndexRule.indexRule( 0, labelId, propertyKeyId, PROVIDER_DESCRIPTOR ) );
-        indexingService.createIndex( IndexRule.indexRule( 0, labelId, propertyKeyId, PROVIDER_DESCRIPTOR ) );
+        indexingService.createIndexes( IndexRule.indexRule( 0, labelId, propertyKeyId, PROVIDER_DESCRIPTOR ) );
+        indexingService.createIndexes( IndexRule.indexRule( 0, labelId, propertyKeyId, PROVIDER_DESCRIPTOR ) );
 
         // We are asserting that the second call to createIndex does not throw an exception.
     }
@@ -173,7 +178,7 @@ public class IndexingServiceTest
         life.start();
 
         // when
-        indexingService.createIndex( indexRule( 0, labelId, propertyKeyId, PROVIDER_DESCRIPTOR ) );
+        indexingService.createIndexes( indexRule( 0, labelId, propertyKeyId, PROVIDER_DESCRIPTOR ) );
         IndexProxy proxy = indexingService.getProxyForRule( 0 );
         assertEquals( InternalIndexState.POPULATING, proxy.getState() );
 
@@ -219,7 +224,7 @@ public class IndexingServiceTest
         life.start();
 
         // when
-        indexingService.createIndex( IndexRule.constraintIndexRule( 0, labelId, propertyKeyId, PROVIDER_DESCRIPTOR,
+        indexingService.createIndexes( IndexRule.constraintIndexRule( 0, labelId, propertyKeyId, PROVIDER_DESCRIPTOR,
                                                                     null ) );
         IndexProxy proxy = indexingService.getProxyForRule( 0 );
 
@@ -249,7 +254,7 @@ public class IndexingServiceTest
         life.start();
 
         // when
-        indexingService.createIndex( IndexRule.constraintIndexRule( 0, labelId, propertyKeyId, PROVIDER_DESCRIPTOR,
+        indexingService.createIndexes( IndexRule.constraintIndexRule( 0, labelId, propertyKeyId, PROVIDER_DESCRIPTOR,
                                                                     null ) );
         IndexProxy proxy = indexingService.getProxyForRule( 0 );
 
@@ -282,7 +287,7 @@ public class IndexingServiceTest
                 mock( IndexStoreView.class ),
                 mockLookup,
                 mock( UpdateableSchemaState.class ), asList( onlineIndex, populatingIndex, failedIndex ),
-                mockLogging( logger ), IndexingService.NO_MONITOR ));
+                mockLogging( logger ), IndexingService.NO_MONITOR, 0, 0 ));
 
 
         when( provider.getInitialState( onlineIndex.getId() ) ).thenReturn( ONLINE );
@@ -325,7 +330,7 @@ public class IndexingServiceTest
                 mock( IndexStoreView.class ),
                 mockLookup,
                 mock( UpdateableSchemaState.class ), asList( onlineIndex, populatingIndex, failedIndex ),
-                mockLogging( logger ), IndexingService.NO_MONITOR );
+                mockLogging( logger ), IndexingService.NO_MONITOR, 0, 0 );
 
         when( provider.getInitialState( onlineIndex.getId() ) ).thenReturn( ONLINE );
         when( provider.getInitialState( populatingIndex.getId() ) ).thenReturn( InternalIndexState.POPULATING );
@@ -407,6 +412,40 @@ public class IndexingServiceTest
         assertThat( asCollection( files ), equalTo( asCollection( iterator( theFile, theFile ) ) ) );
     }
 
+    @Test
+    public void shouldKeepSamplesOfOnlineIndexesInTheStore() throws Exception
+    {
+        // GIVEN
+        IndexRule onlineRule = indexRule( 1, 2, 3, PROVIDER_DESCRIPTOR );
+        IndexRule failedRule = indexRule( 2, 4, 5, PROVIDER_DESCRIPTOR );
+        IndexAccessor indexAccessor = mock( IndexAccessor.class );
+        IndexReader reader = mock( IndexReader.class );
+        IndexSample sample = new IndexSample( 100, 10, 100 );
+        when( indexAccessor.newReader() ).thenReturn( reader );
+        when( reader.sampleIndex( anyLong() ) ).thenReturn( sample );
+        IndexingService indexing = newIndexingServiceWithMockedDependencies(
+                mock( IndexPopulator.class ), indexAccessor,
+                new DataUpdates( new NodePropertyUpdate[0] ), iterator( onlineRule, failedRule ) );
+        when( indexProvider.getInitialState( 1 ) ).thenReturn( ONLINE );
+        when( indexProvider.getInitialState( 2 ) ).thenReturn( FAILED );
+        life.start();
+
+        // WHEN
+        indexing.sampleIndexes();
+
+        // THEN
+        verify( storeView ).replaceIndexSample( new IndexDescriptor( 2, 3 ), sample );
+        verify( reader ).close();
+        verify( storeView, never() ).replaceIndexSample( eq( new IndexDescriptor( 4, 5 ) ), any( IndexSample.class ) );
+        verify( storeView ).writeIndexSamples();
+
+        // WHEN
+        indexing.dropIndex( onlineRule );
+
+        // THEN
+        verify( storeView ).removeIndexSample( new IndexDescriptor( 2, 3 ) );
+    }
+
     @Test
     public void shouldNotSnapshotPopulatingIndexes() throws Exception
     {
@@ -503,7 +542,7 @@ public class IndexingServiceTest
         return life.add( new IndexingService(
                 life.add( new Neo4jJobScheduler() ), new DefaultSchemaIndexProviderMap( indexProvider ),
                 storeView, mock( TokenNameLookup.class ), schemaState, loop( rules ), mockLogging( logger ),
-                IndexingService.NO_MONITOR ) );
+                IndexingService.NO_MONITOR, 0, 0 ) );
     }
 
     private DataUpdates withData( NodePropertyUpdate... updates )
@@ -28,6 +28,7 @@ import java.util.Set;
 
 import org.neo4j.collection.primitive.PrimitiveLongCollections;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.kernel.api.index.IndexSample;
 
 import static org.neo4j.collection.primitive.PrimitiveLongCollections.toPrimitiveIterator;
 
@@ -54,6 +55,91 @@ class HashBasedIndex extends InMemoryIndexImplementation
         return nodes == null ? PrimitiveLongCollections.emptyIterator() : toPrimitiveIterator( nodes.iterator() );
     }
 
+    @Override
+    public PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower,
+                                                    Number upper, boolean includeUpper )
+    {
+        Set<Long> nodeIds = new HashSet<>();
+        for ( Map.Entry<Object,Set<Long>> entry : data.entrySet() )
+        {
+            if ( entry.getKey() instanceof Double &&
+                 inRange( (Double) entry.getKey(),
+                          lower == null ? null : lower.doubleValue(), includeLower,
+                          upper == null ? null : upper.doubleValue(), includeUpper ) )
+            {
+                nodeIds.addAll( entry.getValue() );
+            }
+        }
+        return toPrimitiveIterator( nodeIds.iterator() );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByString( String lower, boolean includeLower,
+                                                    String upper, boolean includeUpper )
+    {
+        Set<Long> nodeIds = new HashSet<>();
+        for ( Map.Entry<Object,Set<Long>> entry : data.entrySet() )
+        {
+            if ( entry.getKey() instanceof String &&
+                 inRange( (String) entry.getKey(), lower, includeLower, upper, includeUpper ) )
+            {
+                nodeIds.addAll( entry.getValue() );
+            }
+        }
+        return toPrimitiveIterator( nodeIds.iterator() );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+    {
+        Set<Long> nodeIds = new HashSet<>();
+        for ( Map.Entry<Object,Set<Long>> entry : data.entrySet() )
+        {
+            if ( entry.getKey() instanceof String && ((String) entry.getKey()).startsWith( prefix ) )
+            {
+                nodeIds.addAll( entry.getValue() );
+            }
+        }
+        return toPrimitiveIterator( nodeIds.iterator() );
+    }
+
+    @Override
+    public IndexSample sampleIndex( long sampleSizeLimit )
+    {
+        long entries = 0, uniqueValues = 0;
+        for ( Set<Long> nodes : data.values() )
+        {
+            if ( !nodes.isEmpty() )
+            {
+                uniqueValues++;
+                entries += nodes.size();
+            }
+        }
+        return new IndexSample( entries, uniqueValues, entries );
+    }
+
+    private static <T extends Comparable<T>> boolean inRange( T value, T lower, boolean includeLower,
+                                                              T upper, boolean includeUpper )
+    {
+        if ( lower != null )
+        {
+            int comparison = value.compareTo( lower );
+            if ( comparison < 0 || (comparison == 0 && !includeLower) )
+            {
+                return false;
+            }
+        }
+        if ( upper != null )
+        {
+            int comparison = value.compareTo( upper );
+            if ( comparison > 0 || (comparison == 0 && !includeUpper) )
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     @Override
     void doAdd( Object propertyValue, long nodeId, boolean applyIdempotently )
     {
@@ -0,0 +1,166 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.api.integrationtest;
+
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Test;
+
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.kernel.api.DataWriteOperations;
+import org.neo4j.kernel.api.ReadOperations;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+
+import static org.junit.Assert.assertEquals;
+import static org.neo4j.graphdb.DynamicLabel.label;
+import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+import static org.neo4j.kernel.api.properties.Property.intProperty;
+import static org.neo4j.kernel.api.properties.Property.stringProperty;
+
+public class CompositeIndexIT extends KernelIntegrationTest
+{
+    @Test
+    public void shouldPopulateAndLookupCompositeIndex() throws Exception
+    {
+        // GIVEN
+        long match = createPerson( "Smith", 42 );
+        createPerson( "Smith", 43 );
+        createPerson( "Jones", 42 );
+
+        // WHEN
+        IndexDescriptor index = createCompositeIndex();
+
+        // THEN
+        ReadOperations statement = readOperationsInNewTransaction();
+        assertEquals( asSet( match ), asSet( statement.nodesGetFromIndexLookup( index, new Object[]{"Smith", 42} ) ) );
+        assertEquals( asSet(), asSet( statement.nodesGetFromIndexLookup( index, new Object[]{"Smith", 44} ) ) );
+    }
+
+    @Test
+    public void shouldUpdateCompositeIndexWhenPropertiesChange() throws Exception
+    {
+        // GIVEN
+        IndexDescriptor index = createCompositeIndex();
+        long node = createPerson( "Smith", 42 );
+
+        // WHEN
+        {
+            DataWriteOperations statement = dataWriteOperationsInNewTransaction();
+            statement.nodeSetProperty( node, intProperty( index.getPropertyKeyIds()[1], 43 ) );
+            commit();
+        }
+
+        // THEN
+        ReadOperations statement = readOperationsInNewTransaction();
+        assertEquals( asSet(), asSet( statement.nodesGetFromIndexLookup( index, new Object[]{"Smith", 42} ) ) );
+        assertEquals( asSet( node ), asSet( statement.nodesGetFromIndexLookup( index, new Object[]{"Smith", 43} ) ) );
+    }
+
+    @Test
+    public void shouldSeeTransactionStateChangesInCompositeIndexLookup() throws Exception
+    {
+        // GIVEN
+        IndexDescriptor index = createCompositeIndex();
+        long changed = createPerson( "Smith", 42 );
+        long untouched = createPerson( "Smith", 42 );
+
+        // WHEN
+        DataWriteOperations statement = dataWriteOperationsInNewTransaction();
+        int name = index.getPropertyKeyIds()[0];
+        int age = index.getPropertyKeyIds()[1];
+        statement.nodeSetProperty( changed, intProperty( age, 43 ) );
+        long created = statement.nodeCreate();
+        statement.nodeAddLabel( created, index.getLabelId() );
+        statement.nodeSetProperty( created, stringProperty( name, "Smith" ) );
+        statement.nodeSetProperty( created, intProperty( age, 42 ) );
+
+        // THEN
+        assertEquals( asSet( untouched, created ),
+                asSet( statement.nodesGetFromIndexLookup( index, new Object[]{"Smith", 42} ) ) );
+        assertEquals( asSet( changed ),
+                asSet( statement.nodesGetFromIndexLookup( index, new Object[]{"Smith", 43} ) ) );
+        rollback();
+    }
+
+    @Test
+    public void shouldNotSeeNodesThatLostTheirCompositeIndexEntryInTransactionState() throws Exception
+    {
+        // GIVEN
+        IndexDescriptor index = createCompositeIndex();
+        long unlabeled = createPerson( "Smith", 42 );
+        long propertyRemoved = createPerson( "Smith", 42 );
+        long deleted = createPerson( "Smith", 42 );
+        long movedBack = createPerson( "Smith", 42 );
+
+        // WHEN
+        DataWriteOperations statement = dataWriteOperationsInNewTransaction();
+        int name = index.getPropertyKeyIds()[0];
+        int age = index.getPropertyKeyIds()[1];
+        statement.nodeRemoveLabel( unlabeled, index.getLabelId() );
+        statement.nodeRemoveProperty( propertyRemoved, name );
+        statement.nodeDelete( deleted );
+        statement.nodeSetProperty( movedBack, intProperty( age, 43 ) );
+        statement.nodeSetProperty( movedBack, intProperty( age, 42 ) );
+        long createdAndDeleted = statement.nodeCreate();
+        statement.nodeAddLabel( createdAndDeleted, index.getLabelId() );
+        statement.nodeSetProperty( createdAndDeleted, stringProperty( name, "Smith" ) );
+        statement.nodeSetProperty( createdAndDeleted, intProperty( age, 42 ) );
+        statement.nodeDelete( createdAndDeleted );
+
+        // THEN
+        assertEquals( asSet( movedBack ),
+                asSet( statement.nodesGetFromIndexLookup( index, new Object[]{"Smith", 42} ) ) );
+        assertEquals( asSet(), asSet( statement.nodesGetFromIndexLookup( index, new Object[]{"Smith", 43} ) ) );
+        rollback();
+    }
+
+    private IndexDescriptor createCompositeIndex() throws Exception
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            db.schema().indexFor( label( "Person" ) ).on( "name" ).on( "age" ).create();
+            tx.success();
+        }
+        try ( Transaction tx = db.beginTx() )
+        {
+            db.schema().awaitIndexesOnline( 10, TimeUnit.SECONDS );
+            tx.success();
+        }
+        ReadOperations statement = readOperationsInNewTransaction();
+        IndexDescriptor index = new IndexDescriptor( statement.labelGetForName( "Person" ), new int[]{
+                statement.propertyKeyGetForName( "name" ), statement.propertyKeyGetForName( "age" )} );
+        assertEquals( asSet( index ), asSet( statement.indexesGetForLabel( index.getLabelId() ) ) );
+        commit();
+        return index;
+    }
+
+    private long createPerson( String name, int age )
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node node = db.createNode( label( "Person" ) );
+            node.setProperty( "name", name );
+            node.setProperty( "age", age );
+            tx.success();
+            return node.getId();
+        }
+    }
+}
@@ -48,6 +48,7 @@ import org.neo4j.kernel.impl.util.PrimitiveLongResourceIterator;
 import static java.util.Arrays.asList;
 
 import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Matchers.anyLong;
 import static org.mockito.Matchers.eq;
@@ -301,6 +302,141 @@ public class IndexQueryTransactionStateTest
         assertNoSuchNode( result );
     }
 
+    @Test
+    public void shouldIncludeCreatedNodesInRangeInIndexRangeSeek() throws Exception
+    {
+        // Given
+        when( store.nodesGetFromIndexRangeSeekByNumber( state, indexDescriptor, 10, true, 20, false ) )
+                .thenReturn( asPrimitiveResourceIterator( 2l, 3l ) );
+        when( store.nodeGetProperty( anyLong(), eq( propertyKeyId ) ) ).thenReturn(
+                noNodeProperty( 1, propertyKeyId ) );
+        when( store.nodeGetAllProperties( anyLong() ) ).thenReturn( IteratorUtil
+                .<DefinedProperty>emptyIterator() );
+        when( store.nodeHasLabel( anyLong(), eq( labelId ) ) ).thenReturn( false );
+
+        state.txState().nodeDoReplaceProperty( 1l, noNodeProperty( 1l, propertyKeyId ),
+                                               Property.intProperty( propertyKeyId, 15 ) );
+        state.txState().nodeDoReplaceProperty( 4l, noNodeProperty( 4l, propertyKeyId ),
+                                               Property.intProperty( propertyKeyId, 20 ) );
+        txContext.nodeAddLabel( state, 1l, labelId );
+        txContext.nodeAddLabel( state, 4l, labelId );
+
+        // When
+        PrimitiveLongIterator result = txContext.nodesGetFromIndexRangeSeekByNumber( state, indexDescriptor,
+                10, true, 20, false );
+
+        // Then
+        assertThat( asSet( result ), equalTo( asSet( 1l, 2l, 3l ) ) );
+    }
+
+    @Test
+    public void shouldCompareLongsThatRoundToTheSameDoubleExactlyInIndexRangeSeek() throws Exception
+    {
+        // Given
+        long large = 1L << 53;
+        when( store.nodesGetFromIndexRangeSeekByNumber( state, indexDescriptor, large, false, null, false ) )
+                .thenReturn( asPrimitiveResourceIterator() );
+        when( store.nodeGetProperty( anyLong(), eq( propertyKeyId ) ) ).thenReturn(
+                noNodeProperty( 1, propertyKeyId ) );
+        when( store.nodeGetAllProperties( anyLong() ) ).thenReturn( IteratorUtil
+                .<DefinedProperty>emptyIterator() );
+        when( store.nodeHasLabel( anyLong(), eq( labelId ) ) ).thenReturn( false );
+
+        state.txState().nodeDoReplaceProperty( 1l, noNodeProperty( 1l, propertyKeyId ),
+                                               Property.longProperty( propertyKeyId, large ) );
+        state.txState().nodeDoReplaceProperty( 2l, noNodeProperty( 2l, propertyKeyId ),
+                                               Property.longProperty( propertyKeyId, large + 1 ) );
+        txContext.nodeAddLabel( state, 1l, labelId );
+        txContext.nodeAddLabel( state, 2l, labelId );
+
+        // When
+        PrimitiveLongIterator result = txContext.nodesGetFromIndexRangeSeekByNumber( state, indexDescriptor,
+                large, false, null, false );
+
+        // Then
+        assertThat( asSet( result ), equalTo( asSet( 2l ) ) );
+    }
+
+    @Test
+    public void shouldMergeCreatedNodesInValueOrderIntoRangeSeekOfIndexThatSeeksInOrder() throws Exception
+    {
+        // Given
+        when( store.indexSeeksInOrder( indexDescriptor ) ).thenReturn( true );
+        when( store.nodesGetFromIndexRangeSeekByNumber( state, indexDescriptor, 10, true, 20, false ) )
+                .thenReturn( asPrimitiveResourceIterator( 2l, 3l ) );
+        when( store.nodeGetProperty( anyLong(), eq( propertyKeyId ) ) ).thenReturn(
+                noNodeProperty( 1, propertyKeyId ) );
+        when( store.nodeGetAllProperties( anyLong() ) ).thenReturn( IteratorUtil
+                .<DefinedProperty>emptyIterator() );
+        when( store.nodeGetAllProperties( 2l ) ).then( answerAsIteratorFrom(
+                asList( Property.intProperty( propertyKeyId, 12 ) ) ) );
+        when( store.nodeGetAllProperties( 3l ) ).then( answerAsIteratorFrom(
+                asList( Property.intProperty( propertyKeyId, 18 ) ) ) );
+        when( store.nodeHasLabel( anyLong(), eq( labelId ) ) ).thenReturn( false );
+
+        state.txState().nodeDoReplaceProperty( 1l, noNodeProperty( 1l, propertyKeyId ),
+                                               Property.intProperty( propertyKeyId, 15 ) );
+        state.txState().nodeDoReplaceProperty( 4l, noNodeProperty( 4l, propertyKeyId ),
+                                               Property.intProperty( propertyKeyId, 10 ) );
+        txContext.nodeAddLabel( state, 1l, labelId );
+        txContext.nodeAddLabel( state, 4l, labelId );
+
+        // When
+        PrimitiveLongIterator result = txContext.nodesGetFromIndexRangeSeekByNumber( state, indexDescriptor,
+                10, true, 20, false );
+
+        // Then
+        assertArrayEquals( new long[]{4l, 2l, 1l, 3l}, PrimitiveLongCollections.asArray( result ) );
+    }
+
+    @Test
+    public void shouldReturnNodeMovedWithinRangeOnceAtItsNewValueInRangeSeekOfIndexThatSeeksInOrder()
+            throws Exception
+    {
+        // Given
+        when( store.indexSeeksInOrder( indexDescriptor ) ).thenReturn( true );
+        when( store.nodesGetFromIndexRangeSeekByNumber( state, indexDescriptor, 10, true, 20, false ) )
+                .thenReturn( asPrimitiveResourceIterator( 2l, 3l ) );
+        when( store.nodeGetProperty( anyLong(), eq( propertyKeyId ) ) ).thenReturn(
+                noNodeProperty( 1, propertyKeyId ) );
+        when( store.nodeGetAllProperties( anyLong() ) ).thenReturn( IteratorUtil
+                .<DefinedProperty>emptyIterator() );
+        when( store.nodeGetAllProperties( 2l ) ).then( answerAsIteratorFrom(
+                asList( Property.intProperty( propertyKeyId, 12 ) ) ) );
+        when( store.nodeGetAllProperties( 3l ) ).then( answerAsIteratorFrom(
+                asList( Property.intProperty( propertyKeyId, 18 ) ) ) );
+        when( store.nodeHasLabel( anyLong(), eq( labelId ) ) ).thenReturn( false );
+
+        state.txState().nodeDoReplaceProperty( 2l, Property.intProperty( propertyKeyId, 12 ),
+                                               Property.intProperty( propertyKeyId, 19 ) );
+        state.txState().indexUpdateProperty( indexDescriptor, 2l, Property.intProperty( propertyKeyId, 12 ),
+                                             Property.intProperty( propertyKeyId, 19 ) );
+
+        // When
+        PrimitiveLongIterator result = txContext.nodesGetFromIndexRangeSeekByNumber( state, indexDescriptor,
+                10, true, 20, false );
+
+        // Then
+        assertArrayEquals( new long[]{3l, 2l}, PrimitiveLongCollections.asArray( result ) );
+    }
+
+    @Test
+    public void shouldExcludeNodesChangedToValueWithoutPrefixFromIndexPrefixSeek() throws Exception
+    {
+        // Given
+        when( store.nodesGetFromIndexRangeSeekByPrefix( state, indexDescriptor, "My" ) )
+                .thenReturn( asPrimitiveResourceIterator( 1l, 2l ) );
+
+        state.txState().indexUpdateProperty( indexDescriptor, 1l, stringProperty( propertyKeyId, value ),
+                                             stringProperty( propertyKeyId, "Other Value" ) );
+
+        // When
+        PrimitiveLongIterator result = txContext.nodesGetFromIndexRangeSeekByPrefix( state, indexDescriptor, "My" );
+
+        // Then
+        assertThat( asSet( result ), equalTo( asSet( 2l ) ) );
+    }
+
     // exists
     int labelId = 2;
     int propertyKeyId = 3;
@@ -324,6 +460,7 @@ public class IndexQueryTransactionStateTest
                 .<IndexDescriptor>emptyList() ) );
         when( store.indexesGetForLabel( labelId2 ) ).then( answerAsIteratorFrom( Collections
                 .<IndexDescriptor>emptyList() ) );
+        when( store.indexesGetForLabel( labelId ) ).then( answerAsIteratorFrom( asList( indexDescriptor ) ) );
         when( store.indexesGetAll() ).then( answerAsIteratorFrom( Collections.<IndexDescriptor>emptyList() ) );
         when( store.constraintsGetForLabel( labelId ) ).thenReturn( Collections.<UniquenessConstraint>emptyIterator() );
         when( store.nodeExists( anyLong() ) ).thenReturn( true );
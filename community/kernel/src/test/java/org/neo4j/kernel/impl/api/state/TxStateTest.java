@@ -35,6 +35,7 @@ import org.neo4j.kernel.impl.util.DiffSets;
 
 import static org.hamcrest.core.IsEqual.equalTo;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
@@ -417,6 +418,37 @@ public class TxStateTest
         } );
     }
 
+    @Test
+    public void shouldForgetAllChangesWhenCleared() throws Exception
+    {
+        // GIVEN
+        state.nodeDoCreate( 0 );
+        state.nodeDoAddLabel( 1, 0 );
+        state.nodeDoReplaceProperty( 0, noNodeProperty( 0, 2 ), stringProperty( 2, "value" ) );
+        state.nodeDoCreate( 1 );
+        state.nodeDoDelete( 1 );
+        state.relationshipDoCreate( 2, 0, 0, 0 );
+
+        // WHEN
+        ((TxStateImpl) state).clear();
+
+        // THEN
+        assertFalse( state.hasChanges() );
+        assertFalse( state.nodeIsAddedInThisTx( 0 ) );
+        assertFalse( state.nodeIsDeletedInThisTx( 1 ) );
+        assertFalse( state.relationshipIsAddedInThisTx( 2 ) );
+        assertEquals( emptySet, state.nodesWithLabelAdded( 1 ) );
+        assertFalse( state.modifiedNodes().iterator().hasNext() );
+        assertFalse( state.addedAndChangedNodeProperties( 0 ).hasNext() );
+
+        // AND WHEN
+        state.nodeDoAddLabel( 3, 4 );
+
+        // THEN
+        assertTrue( state.hasChanges() );
+        assertEquals( asSet( 4L ), state.nodesWithLabelAdded( 3 ) );
+    }
+
     private TxState state;
     private final Set<Long> emptySet = Collections.emptySet();
 
@@ -28,6 +28,7 @@ import org.neo4j.graphdb.GraphDatabaseService;
 import org.neo4j.graphdb.Node;
 import org.neo4j.graphdb.Transaction;
 import org.neo4j.helpers.collection.IteratorUtil;
+import org.neo4j.kernel.impl.api.KernelStatement;
 import org.neo4j.test.TestGraphDatabaseFactory;
 
 import static java.util.Arrays.asList;
@@ -115,4 +116,22 @@ public class DiskLayerLabelTest extends DiskLayerTest
         assertEquals( asSet( node1.getId(), node2.getId() ), IteratorUtil.asSet( nodesForLabel1 ) );
         assertEquals( asSet( node2.getId() ), IteratorUtil.asSet( nodesForLabel2 ) );
     }
+
+    @Test
+    public void should_scan_node_store_for_label_that_most_nodes_have() throws Exception
+    {
+        // GIVEN
+        Node node1 = createLabeledNode( db, map(), label1 );
+        Node node2 = createLabeledNode( db, map(), label1, label2 );
+        createLabeledNode( db, map() );
+        int labelId1 = disk.labelGetForName( label1.name() );
+
+        // WHEN
+        // a statement without a label scan store, which must not be needed
+        KernelStatement statement = new KernelStatement( null, null, null, null, null, null, null );
+        PrimitiveLongIterator nodesForLabel1 = disk.nodesGetForLabel( statement, labelId1 );
+
+        // THEN
+        assertEquals( asSet( node1.getId(), node2.getId() ), IteratorUtil.asSet( nodesForLabel1 ) );
+    }
 }
@@ -0,0 +1,273 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.gbptree;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.Random;
+import java.util.TreeMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.test.EphemeralFileSystemRule;
+import org.neo4j.test.PageCacheRule;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.mapped_memory_page_size;
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
+
+public class GBPTreeTest
+{
+    @Rule
+    public final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    @Rule
+    public final PageCacheRule pageCacheRule = new PageCacheRule();
+
+    private final File file = new File( "tree" );
+    private PageCache pageCache;
+    private GBPTree tree;
+
+    @Before
+    public void openTree() throws IOException
+    {
+        // Small pages make for deep trees with few entries
+        EphemeralFileSystemAbstraction fs = fsRule.get();
+        pageCache = pageCacheRule.getPageCache( fs, new Config( stringMap( mapped_memory_page_size.name(), "512" ) ) );
+        tree = new GBPTree( pageCache, file );
+    }
+
+    @After
+    public void closeTree() throws IOException
+    {
+        tree.close();
+    }
+
+    @Test
+    public void shouldGetWhatWasPut() throws Exception
+    {
+        // when
+        tree.put( key( 3 ), value( 30 ) );
+        tree.put( key( 1 ), value( 10 ) );
+
+        // then
+        assertArrayEquals( value( 10 ), tree.get( key( 1 ) ) );
+        assertArrayEquals( value( 30 ), tree.get( key( 3 ) ) );
+        assertNull( tree.get( key( 2 ) ) );
+    }
+
+    @Test
+    public void shouldReplaceValueOfExistingKey() throws Exception
+    {
+        // given
+        tree.put( key( 1 ), value( 10 ) );
+
+        // when
+        tree.put( key( 1 ), value( 11 ) );
+
+        // then
+        assertArrayEquals( value( 11 ), tree.get( key( 1 ) ) );
+        assertEquals( 1, count( tree.seek( null, null ) ) );
+    }
+
+    @Test
+    public void shouldRemoveKeys() throws Exception
+    {
+        // given
+        tree.put( key( 1 ), value( 10 ) );
+
+        // when/then
+        assertTrue( tree.remove( key( 1 ) ) );
+        assertFalse( tree.remove( key( 1 ) ) );
+        assertNull( tree.get( key( 1 ) ) );
+    }
+
+    @Test
+    public void shouldSeekRangeOverManyLeaves() throws Exception
+    {
+        // given
+        for ( int i = 0; i < 10_000; i++ )
+        {
+            tree.put( key( i ), value( i ) );
+        }
+
+        // when
+        GBPTree.Seeker seeker = tree.seek( key( 1_000 ), key( 9_000 ) );
+
+        // then
+        for ( int i = 1_000; i < 9_000; i++ )
+        {
+            assertTrue( seeker.next() );
+            assertArrayEquals( key( i ), seeker.key() );
+            assertArrayEquals( value( i ), seeker.value() );
+        }
+        assertFalse( seeker.next() );
+    }
+
+    @Test
+    public void shouldAgreeWithSortedMapOnRandomChanges() throws Exception
+    {
+        // given
+        long seed = System.currentTimeMillis();
+        Random random = new Random( seed );
+        TreeMap<Long,byte[]> expected = new TreeMap<>();
+
+        // when
+        for ( int i = 0; i < 50_000; i++ )
+        {
+            long key = random.nextInt( 10_000 );
+            if ( random.nextInt( 3 ) == 0 )
+            {
+                assertEquals( "seed " + seed, expected.remove( key ) != null, tree.remove( key( key ) ) );
+            }
+            else
+            {
+                byte[] value = new byte[random.nextInt( 50 )];
+                random.nextBytes( value );
+                expected.put( key, value );
+                tree.put( key( key ), value );
+            }
+        }
+
+        // then
+        for ( int i = 0; i < 100; i++ )
+        {
+            long from = random.nextInt( 10_000 );
+            long to = from + random.nextInt( 2_000 );
+            GBPTree.Seeker seeker = tree.seek( key( from ), key( to ) );
+            for ( Map.Entry<Long,byte[]> entry : expected.subMap( from, to ).entrySet() )
+            {
+                assertTrue( "seed " + seed, seeker.next() );
+                assertArrayEquals( "seed " + seed, key( entry.getKey() ), seeker.key() );
+                assertArrayEquals( "seed " + seed, entry.getValue(), seeker.value() );
+            }
+            assertFalse( "seed " + seed, seeker.next() );
+        }
+    }
+
+    @Test
+    public void shouldOrderKeysAsUnsignedBytes() throws Exception
+    {
+        // given
+        for ( byte[] key : asList( new byte[]{(byte) 0xFF}, new byte[]{1, 0}, new byte[]{1}, new byte[0] ) )
+        {
+            tree.put( key, new byte[0] );
+        }
+
+        // when
+        GBPTree.Seeker seeker = tree.seek( null, null );
+
+        // then
+        for ( byte[] key : asList( new byte[0], new byte[]{1}, new byte[]{1, 0}, new byte[]{(byte) 0xFF} ) )
+        {
+            assertTrue( seeker.next() );
+            assertArrayEquals( key, seeker.key() );
+        }
+        assertFalse( seeker.next() );
+    }
+
+    @Test
+    public void shouldKeepEntriesAndHeaderWhenReopened() throws Exception
+    {
+        // given
+        for ( int i = 0; i < 1_000; i++ )
+        {
+            tree.put( key( i ), value( i ) );
+        }
+        tree.writeHeader( new byte[]{4, 2} );
+        tree.flush();
+        tree.close();
+
+        // when
+        tree = new GBPTree( pageCache, file );
+
+        // then
+        assertTrue( tree.wasCleanOnOpen() );
+        assertArrayEquals( new byte[]{4, 2}, tree.readHeader() );
+        assertEquals( 1_000, count( tree.seek( null, null ) ) );
+    }
+
+    @Test
+    public void shouldNotBeCleanWhenReopenedWithoutFlushAfterChange() throws Exception
+    {
+        // given
+        tree.put( key( 1 ), value( 1 ) );
+        tree.flush();
+        tree.put( key( 2 ), value( 2 ) );
+        tree.close();
+
+        // when
+        tree = new GBPTree( pageCache, file );
+
+        // then
+        assertFalse( tree.wasCleanOnOpen() );
+    }
+
+    @Test
+    public void shouldRefuseTooLargeEntries() throws Exception
+    {
+        try
+        {
+            tree.put( new byte[tree.maxEntrySize()], new byte[1] );
+            fail( "Should have refused the entry" );
+        }
+        catch ( IllegalArgumentException e )
+        {   // Good
+        }
+        tree.put( new byte[tree.maxEntrySize() - 1], new byte[1] );
+    }
+
+    private static int count( GBPTree.Seeker seeker ) throws IOException
+    {
+        int count = 0;
+        while ( seeker.next() )
+        {
+            count++;
+        }
+        return count;
+    }
+
+    private static byte[] key( long key )
+    {
+        byte[] bytes = new byte[8];
+        for ( int i = 0; i < 8; i++ )
+        {
+            bytes[i] = (byte) (key >>> (56 - i * 8));
+        }
+        return bytes;
+    }
+
+    private static byte[] value( long value )
+    {
+        return Long.toString( value ).getBytes();
+    }
+}
@@ -0,0 +1,386 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.labelscan;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.direct.AllEntriesLabelScanReader;
+import org.neo4j.kernel.api.direct.NodeLabelRange;
+import org.neo4j.kernel.api.labelscan.LabelScanReader;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.scan.LabelScanStoreProvider.FullStoreChangeStream;
+import org.neo4j.kernel.impl.util.StringLogger;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+import org.neo4j.test.EphemeralFileSystemRule;
+import org.neo4j.test.PageCacheRule;
+import org.neo4j.unsafe.batchinsert.LabelScanWriter;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.neo4j.graphdb.factory.GraphDatabaseSettings.mapped_memory_page_size;
+import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+import static org.neo4j.helpers.collection.IteratorUtil.iterator;
+import static org.neo4j.helpers.collection.IteratorUtil.single;
+import static org.neo4j.helpers.collection.MapUtil.stringMap;
+import static org.neo4j.kernel.api.labelscan.NodeLabelUpdate.labelChanges;
+
+public class NativeLabelScanStoreTest
+{
+    private static final long[] NO_LABELS = new long[0];
+
+    @Rule
+    public final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    @Rule
+    public final PageCacheRule pageCacheRule = new PageCacheRule();
+
+    private final File file = new File( new File( "label" ), "labels.db" );
+    private FileSystemAbstraction fs;
+    private PageCache pageCache;
+    private LifeSupport life;
+    private NativeLabelScanStore store;
+
+    @Before
+    public void setUp()
+    {
+        // Small pages make for deep trees with few ranges
+        fs = fsRule.get();
+        pageCache = pageCacheRule.getPageCache( fs, new Config( stringMap( mapped_memory_page_size.name(), "512" ) ) );
+    }
+
+    @After
+    public void shutdown()
+    {
+        life.shutdown();
+    }
+
+    @Test
+    public void shouldUpdateStoreOnLabelChange() throws Exception
+    {
+        // GIVEN
+        int labelId = 1;
+        long nodeId = 10;
+        start();
+
+        // WHEN
+        write( iterator( labelChanges( nodeId, NO_LABELS, new long[]{labelId} ) ) );
+
+        // THEN
+        assertNodesForLabel( labelId, nodeId );
+    }
+
+    @Test
+    public void shouldUpdateStoreOnAddedAndRemovedLabels() throws Exception
+    {
+        // GIVEN
+        int labelId1 = 1, labelId2 = 2;
+        long nodeId = 10;
+        start();
+        write( iterator( labelChanges( nodeId, NO_LABELS, new long[]{labelId1} ) ) );
+        assertNodesForLabel( labelId2 );
+
+        // WHEN
+        write( iterator( labelChanges( nodeId, new long[]{labelId1}, new long[]{labelId2} ) ) );
+
+        // THEN
+        assertNodesForLabel( labelId1 );
+        assertNodesForLabel( labelId2, nodeId );
+    }
+
+    @Test
+    public void shouldDeleteFromStoreWhenDeletedNode() throws Exception
+    {
+        // GIVEN
+        int labelId = 1;
+        long nodeId = 10;
+        start();
+        write( iterator( labelChanges( nodeId, NO_LABELS, new long[]{labelId} ) ) );
+
+        // WHEN
+        write( iterator( labelChanges( nodeId, new long[]{labelId}, NO_LABELS ) ) );
+
+        // THEN
+        assertNodesForLabel( labelId );
+        assertFalse( store.newAllEntriesReader().iterator().hasNext() );
+    }
+
+    @Test
+    public void shouldNotChangeAnythingWhenWritingTheSameUpdatesAgain() throws Exception
+    {
+        // GIVEN
+        List<NodeLabelUpdate> updates = asList(
+                labelChanges( 1, NO_LABELS, new long[]{1} ),
+                labelChanges( 2, NO_LABELS, new long[]{1, 2} ),
+                labelChanges( 1, new long[]{1}, new long[]{2} ) );
+        start();
+        write( updates.iterator() );
+
+        // WHEN
+        store.recover( updates.iterator() );
+
+        // THEN
+        assertNodesForLabel( 1, 2 );
+        assertNodesForLabel( 2, 1, 2 );
+    }
+
+    @Test
+    public void shouldScanSingleRange() throws Exception
+    {
+        // GIVEN
+        int labelId1 = 1, labelId2 = 2;
+        long nodeId1 = 10, nodeId2 = 11;
+        start( asList(
+                labelChanges( nodeId1, NO_LABELS, new long[]{labelId1} ),
+                labelChanges( nodeId2, NO_LABELS, new long[]{labelId1, labelId2} ) ) );
+
+        // WHEN
+        AllEntriesLabelScanReader reader = store.newAllEntriesReader();
+        NodeLabelRange range = single( reader.iterator() );
+
+        // THEN
+        assertArrayEquals( new long[]{nodeId1, nodeId2}, sorted( range.nodes() ) );
+        assertArrayEquals( new long[]{labelId1}, sorted( range.labels( nodeId1 ) ) );
+        assertArrayEquals( new long[]{labelId1, labelId2}, sorted( range.labels( nodeId2 ) ) );
+    }
+
+    @Test
+    public void shouldScanMultipleRangesInOrder() throws Exception
+    {
+        // GIVEN
+        int labelId1 = 1, labelId2 = 2;
+        long nodeId1 = 10, nodeId2 = 1280, nodeId3 = 200;
+        start( asList(
+                labelChanges( nodeId1, NO_LABELS, new long[]{labelId1} ),
+                labelChanges( nodeId2, NO_LABELS, new long[]{labelId1, labelId2} ),
+                labelChanges( nodeId3, NO_LABELS, new long[]{labelId2} ) ) );
+
+        // WHEN
+        AllEntriesLabelScanReader reader = store.newAllEntriesReader();
+        Iterator<NodeLabelRange> iterator = reader.iterator();
+        NodeLabelRange range1 = iterator.next();
+        NodeLabelRange range2 = iterator.next();
+        NodeLabelRange range3 = iterator.next();
+        assertFalse( iterator.hasNext() );
+
+        // THEN
+        assertArrayEquals( new long[]{nodeId1}, sorted( range1.nodes() ) );
+        assertArrayEquals( new long[]{nodeId3}, sorted( range2.nodes() ) );
+        assertArrayEquals( new long[]{nodeId2}, sorted( range3.nodes() ) );
+        assertArrayEquals( new long[]{labelId1}, sorted( range1.labels( nodeId1 ) ) );
+        assertArrayEquals( new long[]{labelId2}, sorted( range2.labels( nodeId3 ) ) );
+        assertArrayEquals( new long[]{labelId1, labelId2}, sorted( range3.labels( nodeId2 ) ) );
+    }
+
+    @Test
+    public void shouldWorkWithFullRanges() throws Exception
+    {
+        // GIVEN
+        long labelId = 0;
+        List<NodeLabelUpdate> updates = new ArrayList<>();
+        for ( int i = 0; i < 64 * 3; i++ )
+        {
+            updates.add( labelChanges( i, NO_LABELS, new long[]{labelId} ) );
+        }
+        start( updates );
+
+        // WHEN
+        LabelScanReader reader = store.newReader();
+        Set<Long> nodesWithLabel = asSet( reader.nodesWithLabel( (int) labelId ) );
+
+        // THEN
+        assertEquals( 64 * 3, nodesWithLabel.size() );
+        for ( long i = 0; i < 64 * 3; i++ )
+        {
+            assertTrue( nodesWithLabel.contains( i ) );
+            assertEquals( asSet( labelId ), asSet( reader.labelsForNode( i ) ) );
+        }
+    }
+
+    @Test
+    public void shouldReadNodesInOrderAcrossManyRangesAndLabels() throws Exception
+    {
+        // GIVEN
+        List<NodeLabelUpdate> updates = new ArrayList<>();
+        Set<Long> expected = new HashSet<>();
+        for ( long nodeId = 0; nodeId < 10_000; nodeId += 7 )
+        {
+            updates.add( labelChanges( nodeId, NO_LABELS, new long[]{nodeId % 3, 5} ) );
+            if ( nodeId % 3 == 1 )
+            {
+                expected.add( nodeId );
+            }
+        }
+        start( updates );
+
+        // WHEN
+        PrimitiveLongIterator nodes = store.newReader().nodesWithLabel( 1 );
+
+        // THEN
+        long previous = -1;
+        Set<Long> found = new HashSet<>();
+        while ( nodes.hasNext() )
+        {
+            long nodeId = nodes.next();
+            assertTrue( nodeId > previous );
+            found.add( previous = nodeId );
+        }
+        assertEquals( expected, found );
+    }
+
+    @Test
+    public void shouldFindAllLabelsForGivenNode() throws Exception
+    {
+        // GIVEN
+        long labelId1 = 1, labelId2 = 2, labelId3 = 87;
+        start();
+        int nodeId = 42;
+        write( iterator( labelChanges( nodeId, NO_LABELS, new long[]{labelId1, labelId2} ) ) );
+        write( iterator( labelChanges( 41, NO_LABELS, new long[]{labelId3, labelId2} ) ) );
+
+        // WHEN
+        LabelScanReader reader = store.newReader();
+
+        // THEN
+        assertThat( asSet( reader.labelsForNode( nodeId ) ), equalTo( asSet( labelId1, labelId2 ) ) );
+        reader.close();
+    }
+
+    @Test
+    public void shouldRebuildFromScratchIfStoreMissing() throws Exception
+    {
+        // WHEN
+        start( asList(
+                labelChanges( 1, NO_LABELS, new long[]{1} ),
+                labelChanges( 2, NO_LABELS, new long[]{1, 2} ) ) );
+
+        // THEN
+        assertTrue( fs.fileExists( file ) );
+        assertNodesForLabel( 1, 1, 2 );
+        assertNodesForLabel( 2, 2 );
+    }
+
+    @Test
+    public void shouldKeepEntriesOverCleanRestart() throws Exception
+    {
+        // GIVEN
+        start();
+        write( iterator( labelChanges( 1, NO_LABELS, new long[]{1} ) ) );
+        life.shutdown();
+
+        // WHEN starting with a full store stream that would have given something else
+        start( asList( labelChanges( 2, NO_LABELS, new long[]{1} ) ) );
+
+        // THEN
+        assertNodesForLabel( 1, 1 );
+    }
+
+    private void write( Iterator<NodeLabelUpdate> updates ) throws IOException
+    {
+        try ( LabelScanWriter writer = store.newWriter() )
+        {
+            while ( updates.hasNext() )
+            {
+                writer.write( updates.next() );
+            }
+        }
+    }
+
+    private long[] sorted( long[] input )
+    {
+        Arrays.sort( input );
+        return input;
+    }
+
+    private void assertNodesForLabel( int labelId, long... expectedNodeIds )
+    {
+        Set<Long> nodeSet = asSet( store.newReader().nodesWithLabel( labelId ) );
+        for ( long expectedNodeId : expectedNodeIds )
+        {
+            assertTrue( "Expected node " + expectedNodeId + " not found in scan store",
+                    nodeSet.remove( expectedNodeId ) );
+        }
+        assertTrue( "Unexpected nodes in scan store " + nodeSet, nodeSet.isEmpty() );
+    }
+
+    private void start()
+    {
+        start( noData() );
+    }
+
+    private void start( List<NodeLabelUpdate> existingData )
+    {
+        life = new LifeSupport();
+        store = life.add( new NativeLabelScanStore( pageCache, fs, file, asStream( existingData ),
+                StringLogger.DEV_NULL ) );
+        life.start();
+    }
+
+    private List<NodeLabelUpdate> noData()
+    {
+        return emptyList();
+    }
+
+    private FullStoreChangeStream asStream( final List<NodeLabelUpdate> existingData )
+    {
+        return new FullStoreChangeStream()
+        {
+            @Override
+            public Iterator<NodeLabelUpdate> iterator()
+            {
+                return existingData.iterator();
+            }
+
+            @Override
+            public long highestNodeId()
+            {
+                return existingData.size(); // Well... not really
+            }
+
+            @Override
+            public PrimitiveLongIterator labelIds()
+            {
+                return PrimitiveLongCollections.emptyIterator();
+            }
+        };
+    }
+}
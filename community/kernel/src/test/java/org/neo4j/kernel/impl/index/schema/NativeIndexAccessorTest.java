@@ -0,0 +1,311 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.util.Arrays;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.index.IndexAccessor;
+import org.neo4j.kernel.api.index.IndexConfiguration;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexPopulator;
+import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexSample;
+import org.neo4j.kernel.api.index.IndexUpdater;
+import org.neo4j.kernel.api.index.InternalIndexState;
+import org.neo4j.kernel.configuration.Config;
+import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
+import org.neo4j.kernel.impl.index.gbptree.GBPTree;
+import org.neo4j.test.EphemeralFileSystemRule;
+import org.neo4j.test.PageCacheRule;
+
+import static java.util.Arrays.asList;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.asArray;
+import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+import static org.neo4j.kernel.api.index.NodePropertyUpdate.add;
+import static org.neo4j.kernel.api.index.NodePropertyUpdate.change;
+import static org.neo4j.kernel.api.index.NodePropertyUpdate.remove;
+
+public class NativeIndexAccessorTest
+{
+    @Rule
+    public final EphemeralFileSystemRule fsRule = new EphemeralFileSystemRule();
+    @Rule
+    public final PageCacheRule pageCacheRule = new PageCacheRule();
+
+    private static final int PROPERTY_KEY_ID = 2;
+    private final IndexConfiguration config = new IndexConfiguration( false );
+    private PageCache pageCache;
+    private NativeSchemaIndexProvider provider;
+    private IndexAccessor accessor;
+
+    @Before
+    public void createIndex() throws Exception
+    {
+        pageCache = pageCacheRule.getPageCache( fsRule.get(), new Config() );
+        provider = new NativeSchemaIndexProvider( pageCache, fsRule.get(), new File( "store" ),
+                NativeSchemaIndexProviderFactory.ENABLED_PRIORITY );
+        IndexPopulator populator = provider.getPopulator( 1, new IndexDescriptor( 1, PROPERTY_KEY_ID ), config );
+        populator.create();
+        populator.add( 1, -10 );
+        populator.add( 2, -1.5d );
+        populator.add( 3, 0 );
+        populator.add( 4, 2.5f );
+        populator.add( 5, 10L );
+        populator.add( 6, "a" );
+        populator.add( 7, "ab" );
+        populator.add( 8, "abc" );
+        populator.add( 9, "b" );
+        populator.add( 10, "a\u0000b" );
+        populator.add( 11, true );
+        populator.add( 12, new int[]{1, 2} );
+        populator.close( true );
+        accessor = provider.getOnlineAccessor( 1, config );
+    }
+
+    @After
+    public void closeIndex() throws Exception
+    {
+        accessor.close();
+    }
+
+    @Test
+    public void shouldLookupValuesOfAllTypes() throws Exception
+    {
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            assertEquals( asSet( 1L ), asSet( reader.lookup( -10.0d ) ) );
+            assertEquals( asSet( 5L ), asSet( reader.lookup( (byte) 10 ) ) );
+            assertEquals( asSet( 6L ), asSet( reader.lookup( "a" ) ) );
+            assertEquals( asSet( 10L ), asSet( reader.lookup( "a\u0000b" ) ) );
+            assertEquals( asSet( 11L ), asSet( reader.lookup( true ) ) );
+            assertEquals( asSet( 12L ), asSet( reader.lookup( new int[]{1, 2} ) ) );
+            assertEquals( asSet(), asSet( reader.lookup( false ) ) );
+        }
+    }
+
+    @Test
+    public void shouldSeekNumberRanges() throws Exception
+    {
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            assertEquals( asSet( 2L, 3L, 4L ), asSet( reader.rangeSeekByNumber( -1.5, true, 2.5, true ) ) );
+            assertEquals( asSet( 3L ), asSet( reader.rangeSeekByNumber( -1.5, false, 2.5, false ) ) );
+            assertEquals( asSet( 1L, 2L ), asSet( reader.rangeSeekByNumber( null, false, 0, false ) ) );
+            assertEquals( asSet( 4L, 5L ), asSet( reader.rangeSeekByNumber( 0, false, null, false ) ) );
+        }
+    }
+
+    @Test
+    public void shouldSeekLongsThatRoundToTheSameDoubleExactlyAndInOrder() throws Exception
+    {
+        // given
+        long large = 1L << 53;
+        try ( IndexUpdater updater = accessor.newUpdater( IndexUpdateMode.ONLINE ) )
+        {
+            updater.process( add( 20, PROPERTY_KEY_ID, large + 1, new long[]{1} ) );
+            updater.process( add( 21, PROPERTY_KEY_ID, large, new long[]{1} ) );
+            updater.process( add( 22, PROPERTY_KEY_ID, (double) large, new long[]{1} ) );
+            updater.process( add( 23, PROPERTY_KEY_ID, large + 3, new long[]{1} ) );
+            updater.process( add( 24, PROPERTY_KEY_ID, large + 2, new long[]{1} ) );
+        }
+
+        // then
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            assertArrayEquals( new long[]{20, 24},
+                    asArray( reader.rangeSeekByNumber( large, false, large + 2, true ) ) );
+            assertArrayEquals( new long[]{21, 22, 20, 24, 23},
+                    asArray( reader.rangeSeekByNumber( large, true, null, true ) ) );
+            assertEquals( asSet( 21L, 22L ), asSet( reader.lookup( large ) ) );
+        }
+    }
+
+    @Test
+    public void shouldSeekStringRangesAndPrefixes() throws Exception
+    {
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            assertEquals( asSet( 6L, 7L, 8L, 10L ), asSet( reader.rangeSeekByString( "a", true, "b", false ) ) );
+            assertEquals( asSet( 7L, 8L, 9L, 10L ), asSet( reader.rangeSeekByString( "a", false, "b", true ) ) );
+            assertEquals( asSet( 8L, 9L ), asSet( reader.rangeSeekByString( "ab", false, null, false ) ) );
+            assertEquals( asSet( 7L, 8L ), asSet( reader.rangeSeekByPrefix( "ab" ) ) );
+            assertEquals( asSet( 6L, 7L, 8L, 10L ), asSet( reader.rangeSeekByPrefix( "a" ) ) );
+        }
+    }
+
+    @Test
+    public void shouldSeekInValueOrder() throws Exception
+    {
+        // given
+        try ( IndexUpdater updater = accessor.newUpdater( IndexUpdateMode.ONLINE ) )
+        {
+            // a supplementary character is a surrogate pair, which sorts before U+FFFD in String order
+            updater.process( add( 20, PROPERTY_KEY_ID, "a\uD83D\uDE00", new long[]{1} ) );
+            updater.process( add( 21, PROPERTY_KEY_ID, "a\uFFFD", new long[]{1} ) );
+            updater.process( add( 22, PROPERTY_KEY_ID, "a\u00E9", new long[]{1} ) );
+        }
+
+        // then
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            assertArrayEquals( new long[]{1, 2, 3, 4, 5},
+                    asArray( reader.rangeSeekByNumber( null, true, null, true ) ) );
+            assertArrayEquals( new long[]{6, 10, 7, 8, 22, 20, 21},
+                    asArray( reader.rangeSeekByString( "a", true, "b", false ) ) );
+        }
+        assertTrue( provider.seeksInOrder() );
+    }
+
+    @Test
+    public void shouldCountEntriesAndDistinctValuesWhenSampling() throws Exception
+    {
+        // given
+        try ( IndexUpdater updater = accessor.newUpdater( IndexUpdateMode.ONLINE ) )
+        {
+            updater.process( add( 20, PROPERTY_KEY_ID, "a", new long[]{1} ) );
+            updater.process( add( 21, PROPERTY_KEY_ID, "a", new long[]{1} ) );
+            updater.process( add( 22, PROPERTY_KEY_ID, 10, new long[]{1} ) );
+        }
+
+        // when
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            // then
+            assertEquals( new IndexSample( 15, 12, 15 ), reader.sampleIndex( 5 ) );
+        }
+    }
+
+    @Test
+    public void shouldSeeUpdatesWithoutRefreshingReaders() throws Exception
+    {
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            // when
+            try ( IndexUpdater updater = accessor.newUpdater( IndexUpdateMode.ONLINE ) )
+            {
+                updater.process( add( 20, PROPERTY_KEY_ID, "abd", new long[]{1} ) );
+                updater.process( change( 7, PROPERTY_KEY_ID, "ab", new long[]{1}, "c", new long[]{1} ) );
+                updater.process( remove( 8, PROPERTY_KEY_ID, "abc", new long[]{1} ) );
+            }
+
+            // then
+            assertEquals( asSet( 20L ), asSet( reader.rangeSeekByPrefix( "ab" ) ) );
+            assertEquals( 1, reader.getIndexedCount( 7, "c" ) );
+            assertEquals( 0, reader.getIndexedCount( 7, "ab" ) );
+        }
+    }
+
+    @Test
+    public void shouldRemoveAllEntriesOfNodesInRecovery() throws Exception
+    {
+        // when
+        try ( IndexUpdater updater = accessor.newUpdater( IndexUpdateMode.RECOVERY ) )
+        {
+            updater.remove( asList( 1L, 6L ) );
+        }
+
+        // then
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            assertEquals( asSet( 2L, 3L, 4L, 5L ), asSet( reader.rangeSeekByNumber( null, true, null, true ) ) );
+            assertEquals( asSet( 7L, 8L, 10L ), asSet( reader.rangeSeekByPrefix( "a" ) ) );
+        }
+    }
+
+    @Test
+    public void shouldRebuildIndexThatWasNotFlushedAfterChanges() throws Exception
+    {
+        // given
+        accessor.force();
+        try ( IndexUpdater updater = accessor.newUpdater( IndexUpdateMode.ONLINE ) )
+        {
+            updater.process( add( 20, PROPERTY_KEY_ID, "x", new long[]{1} ) );
+        }
+
+        // when
+        accessor.close();
+        InternalIndexState state = provider.getInitialState( 1 );
+        accessor = provider.getOnlineAccessor( 1, config );
+
+        // then
+        assertEquals( InternalIndexState.POPULATING, state );
+    }
+
+    @Test
+    public void shouldRejectValuesTooLargeForAnEntryBeforeTheyAreIndexed() throws Exception
+    {
+        // given
+        int maxEntrySize = GBPTree.maxEntrySize( pageCache.pageSize() );
+        char[] chars = new char[maxEntrySize];
+        Arrays.fill( chars, 'a' );
+        String tooLarge = new String( chars );
+        String largest = tooLarge.substring( 0, maxEntrySize - NativeIndexKey.entryKeySize( "" ) );
+
+        // when
+        provider.validateValue( largest );
+        try
+        {
+            provider.validateValue( tooLarge );
+            fail( "Should have rejected a value larger than the tree entries" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // then
+        }
+        try ( IndexUpdater updater = accessor.newUpdater( IndexUpdateMode.ONLINE ) )
+        {
+            updater.process( add( 20, PROPERTY_KEY_ID, largest, new long[]{1} ) );
+        }
+        try ( IndexReader reader = accessor.newReader() )
+        {
+            assertEquals( asSet( 20L ), asSet( reader.lookup( largest ) ) );
+        }
+    }
+
+    @Test
+    public void shouldBeOnlineAfterFlush() throws Exception
+    {
+        // given
+        try ( IndexUpdater updater = accessor.newUpdater( IndexUpdateMode.ONLINE ) )
+        {
+            updater.process( add( 20, PROPERTY_KEY_ID, "x", new long[]{1} ) );
+        }
+        accessor.force();
+
+        // when
+        accessor.close();
+        InternalIndexState state = provider.getInitialState( 1 );
+        accessor = provider.getOnlineAccessor( 1, config );
+
+        // then
+        assertEquals( InternalIndexState.ONLINE, state );
+    }
+}
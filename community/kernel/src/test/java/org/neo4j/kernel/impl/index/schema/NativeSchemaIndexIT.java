@@ -0,0 +1,151 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.graphdb.GraphDatabaseService;
+import org.neo4j.graphdb.Label;
+import org.neo4j.graphdb.Node;
+import org.neo4j.graphdb.Transaction;
+import org.neo4j.graphdb.factory.GraphDatabaseBuilder;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
+import org.neo4j.graphdb.schema.IndexDefinition;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.impl.index.gbptree.GBPTree;
+import org.neo4j.test.DatabaseRule;
+import org.neo4j.test.ImpermanentDatabaseRule;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.neo4j.graphdb.DynamicLabel.label;
+import static org.neo4j.helpers.collection.IteratorUtil.asSet;
+
+public class NativeSchemaIndexIT
+{
+    @Rule
+    public final DatabaseRule dbRule = new ImpermanentDatabaseRule()
+    {
+        @Override
+        protected void configure( GraphDatabaseBuilder builder )
+        {
+            builder.setConfig( GraphDatabaseSettings.native_schema_indexes, "true" );
+        }
+    };
+
+    private final Label label = label( "Person" );
+    private GraphDatabaseService db;
+    private String tooLarge;
+
+    @Before
+    public void createIndex()
+    {
+        db = dbRule.getGraphDatabaseService();
+        IndexDefinition index;
+        try ( Transaction tx = db.beginTx() )
+        {
+            index = db.schema().indexFor( label ).on( "name" ).create();
+            tx.success();
+        }
+        try ( Transaction tx = db.beginTx() )
+        {
+            db.schema().awaitIndexOnline( index, 10, TimeUnit.SECONDS );
+            tx.success();
+        }
+        PageCache pageCache = dbRule.getGraphDatabaseAPI().getDependencyResolver().resolveDependency( PageCache.class );
+        char[] chars = new char[GBPTree.maxEntrySize( pageCache.pageSize() ) + 1];
+        Arrays.fill( chars, 'a' );
+        tooLarge = new String( chars );
+    }
+
+    @Test
+    public void shouldRejectPropertyValueTooLargeForTheIndexBeforeCommit() throws Exception
+    {
+        // when
+        try ( Transaction tx = db.beginTx() )
+        {
+            db.createNode( label ).setProperty( "name", tooLarge );
+            tx.success();
+            fail( "Should have rejected a value too large for the index" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // then
+        }
+
+        // and the database keeps on committing
+        Node alice = createNode( "Alice" );
+        assertEquals( asSet( alice ), findNodes( "Alice" ) );
+    }
+
+    @Test
+    public void shouldRejectLabelOnNodeWithPropertyValueTooLargeForTheIndexBeforeCommit() throws Exception
+    {
+        // given
+        Node node;
+        try ( Transaction tx = db.beginTx() )
+        {
+            node = db.createNode();
+            node.setProperty( "name", tooLarge );
+            tx.success();
+        }
+
+        // when
+        try ( Transaction tx = db.beginTx() )
+        {
+            node.addLabel( label );
+            tx.success();
+            fail( "Should have rejected a value too large for the index" );
+        }
+        catch ( IllegalArgumentException e )
+        {
+            // then
+        }
+        Node alice = createNode( "Alice" );
+        assertEquals( asSet( alice ), findNodes( "Alice" ) );
+    }
+
+    private Node createNode( String name )
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            Node node = db.createNode( label );
+            node.setProperty( "name", name );
+            tx.success();
+            return node;
+        }
+    }
+
+    private Set<Node> findNodes( String name )
+    {
+        try ( Transaction tx = db.beginTx() )
+        {
+            Set<Node> nodes = asSet( db.findNodesByLabelAndProperty( label, "name", name ) );
+            tx.success();
+            return nodes;
+        }
+    }
+}
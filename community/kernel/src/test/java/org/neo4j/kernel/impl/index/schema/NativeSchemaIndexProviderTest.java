@@ -0,0 +1,53 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.index.schema;
+
+import java.io.File;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.index.IndexProviderCompatibilityTestSuite;
+import org.neo4j.kernel.api.index.SchemaIndexProvider;
+import org.neo4j.kernel.impl.pagecache.StandalonePageCacheFactory;
+import org.neo4j.kernel.lifecycle.LifeSupport;
+
+public class NativeSchemaIndexProviderTest extends IndexProviderCompatibilityTestSuite
+{
+    // Every test gets a provider of its own, so they share one page cache, and keep their indexes apart
+    private static final EphemeralFileSystemAbstraction fileSystem = new EphemeralFileSystemAbstraction();
+    private static final LifeSupport life = new LifeSupport();
+    private static final PageCache pageCache =
+            StandalonePageCacheFactory.createPageCache( fileSystem, "native-index-test", life );
+    private static final AtomicInteger storeDirs = new AtomicInteger();
+
+    static
+    {
+        life.start();
+    }
+
+    @Override
+    protected SchemaIndexProvider createIndexProvider()
+    {
+        File storeDir = new File( "store" + storeDirs.incrementAndGet() );
+        return new NativeSchemaIndexProvider( pageCache, fileSystem, storeDir,
+                NativeSchemaIndexProviderFactory.ENABLED_PRIORITY );
+    }
+}
@@ -28,7 +28,12 @@ import org.junit.After;
 import org.junit.ClassRule;
 import org.junit.Test;
 
+import org.neo4j.collection.primitive.PrimitiveLongCollections;
+import org.neo4j.graphdb.config.InvalidSettingException;
+import org.neo4j.graphdb.factory.GraphDatabaseSettings;
 import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.helpers.collection.MapUtil;
+import org.neo4j.io.pagecache.PageCache;
 import org.neo4j.kernel.DefaultIdGeneratorFactory;
 import org.neo4j.kernel.IdGeneratorFactory;
 import org.neo4j.kernel.IdType;
@@ -42,8 +47,14 @@ import org.neo4j.test.PageCacheRule;
 import static java.util.Arrays.asList;
 
 import static org.junit.Assert.*;
+import static org.mockito.AdditionalAnswers.delegatesTo;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 
 import static org.neo4j.kernel.impl.store.DynamicArrayStore.allocateFromNumbers;
+import static org.neo4j.kernel.impl.store.NodeLabelsField.parseLabelsField;
 import static org.neo4j.kernel.impl.store.NodeStore.readOwnerFromDynamicLabelsRecord;
 import static org.neo4j.kernel.impl.store.record.Record.NO_NEXT_PROPERTY;
 import static org.neo4j.kernel.impl.store.record.Record.NO_NEXT_RELATIONSHIP;
@@ -177,17 +188,124 @@ public class NodeStoreTest
         assertFalse(store.inUse( IdType.NODE.getMaxValue() ));
     }
 
+    @Test
+    public void shouldScanForNodesWithLabelInIdOrder() throws Exception
+    {
+        // Given
+        EphemeralFileSystemAbstraction fs = new EphemeralFileSystemAbstraction();
+        NodeStore store = newNodeStore( fs );
+        List<Long> expected = new ArrayList<>();
+        for ( int i = 0; i < 3 * store.recordsPerPage(); i++ )
+        {
+            long nodeId = store.nextId();
+            if ( i % 10 == 5 )
+            {
+                continue; // not in use
+            }
+            long[] labels = labelsOf( i );
+            NodeRecord record = new NodeRecord( nodeId, false, 10, 20, true );
+            for ( DynamicRecord dynamic : parseLabelsField( record ).put( labels, store,
+                    store.getDynamicLabelStore() ) )
+            {
+                store.getDynamicLabelStore().updateRecord( dynamic );
+            }
+            store.updateRecord( record );
+            for ( long label : labels )
+            {
+                if ( label == 7 )
+                {
+                    expected.add( nodeId );
+                }
+            }
+        }
+
+        // When
+        long[] nodes = PrimitiveLongCollections.asArray( store.scanForLabel( 7 ) );
+
+        // Then
+        assertArrayEquals( PrimitiveLongCollections.asArray( expected.iterator() ), nodes );
+        assertFalse( store.scanForLabel( 8 ).hasNext() );
+    }
+
+    private long[] labelsOf( int i )
+    {
+        switch ( i % 4 )
+        {
+        case 0:
+            return new long[]{7};
+        case 1:
+            return new long[]{3, 7, 100};
+        case 2:
+            return new long[0];
+        default:
+            // Too many to in-line, so they go in the dynamic label store
+            long[] labels = new long[12];
+            for ( int j = 0; j < labels.length; j++ )
+            {
+                labels[j] = 20 + j;
+            }
+            if ( i % 8 == 3 )
+            {
+                labels[0] = 7;
+            }
+            return labels;
+        }
+    }
+
+    @Test
+    public void shouldReservePageCacheForNodeStoreWhenConfigured() throws Exception
+    {
+        // Given
+        EphemeralFileSystemAbstraction fs = new EphemeralFileSystemAbstraction();
+        Config config = new Config( MapUtil.stringMap(
+                GraphDatabaseSettings.nodestore_mapped_memory_reservation.name(), "10" ) );
+        PageCache pageCache = mock( PageCache.class, delegatesTo( pageCacheRule.getPageCache( fs, config ) ) );
+
+        // When
+        NodeStore store = newNodeStore( fs, config, pageCache );
+
+        // Then
+        verify( pageCache ).map( eq( store.getStorageFileName() ), anyInt(), eq( 10 ) );
+    }
+
+    @Test
+    public void shouldRefusePageCacheReservationsThatAddUpToMoreThanHalfOfThePageCache() throws Exception
+    {
+        // Given
+        Config config = new Config( MapUtil.stringMap(
+                GraphDatabaseSettings.nodestore_mapped_memory_reservation.name(), "30",
+                GraphDatabaseSettings.relationshipstore_mapped_memory_reservation.name(), "30" ) );
+
+        // When
+        try
+        {
+            config.get( GraphDatabaseSettings.nodestore_mapped_memory_reservation );
+            fail( "Should have refused the reservations" );
+        }
+        catch ( InvalidSettingException e )
+        {
+            // Then
+            assertTrue( e.getMessage(), e.getMessage().contains( "reserve 60% of the page cache" ) );
+        }
+    }
+
     private NodeStore newNodeStore( EphemeralFileSystemAbstraction fs )
+    {
+        Config config = new Config();
+        return newNodeStore( fs, config, pageCacheRule.getPageCache( fs, config ) );
+    }
+
+    private NodeStore newNodeStore( EphemeralFileSystemAbstraction fs, Config config, PageCache pageCache )
     {
         File storeDir = new File( "dir" );
         fs.mkdirs( storeDir );
-        Config config = StoreFactory.configForStoreDir( new Config(), storeDir );
+        config = StoreFactory.configForStoreDir( config, storeDir );
         IdGeneratorFactory idGeneratorFactory = new DefaultIdGeneratorFactory();
         Monitors monitors = new Monitors();
         StoreFactory factory = new StoreFactory(
                 config,
                 idGeneratorFactory,
-                pageCacheRule.getPageCache( fs, config ),
+                pageCache,
                 fs,
                 DEV_NULL,
                 monitors );
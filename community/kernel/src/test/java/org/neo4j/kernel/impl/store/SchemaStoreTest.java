@@ -42,6 +42,7 @@ import org.neo4j.test.PageCacheRule;
 
 import static java.nio.ByteBuffer.wrap;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 
 import static org.neo4j.helpers.collection.IteratorUtil.asCollection;
@@ -91,46 +92,66 @@ public class SchemaStoreTest
         assertEquals( rules, readRules );
     }
 
-//    ENABLE WHEN MULTIPLE PROPERTY KEYS PER INDEX RULE IS SUPPORTED
-//    @Test
-//    public void storeAndLoadSingleLongRule() throws Exception
-//    {
-//        // GIVEN
-//
-//        Collection<SchemaRule> rules = Arrays.<SchemaRule>asList( createLongIndexRule( 0, 50 ) );
-//        for ( SchemaRule rule : rules )
-//            storeRule( rule );
-//
-//        // WHEN
-//        Collection<SchemaRule> readRules = asCollection( store.loadAll() );
-//
-//        // THEN
-//        assertEquals( rules, readRules );
-//    }
-//
-//    @Test
-//    public void storeAndLoadAllLongRules() throws Exception
-//    {
-//        // GIVEN
-//        Collection<SchemaRule> rules = Arrays.<SchemaRule>asList(
-//                createLongIndexRule( 0, 100 ), createLongIndexRule( 1, 6 ), createLongIndexRule( 2, 50 ) );
-//        for ( SchemaRule rule : rules )
-//            storeRule( rule );
-//
-//        // WHEN
-//        Collection<SchemaRule> readRules = asCollection( store.loadAll() );
-//
-//        // THEN
-//        assertEquals( rules, readRules );
-//    }
-//
-//    private IndexRule createLongIndexRule( long label, int numberOfPropertyKeys )
-//    {
-//        long[] propertyKeys = new long[numberOfPropertyKeys];
-//        for ( int i = 0; i < propertyKeys.length; i++ )
-//            propertyKeys[i] = i;
-//        return new IndexRule( store.nextId(), label, POPULATING, propertyKeys );
-//    }
+    @Test
+    public void storeAndLoadSingleLongRule() throws Exception
+    {
+        // GIVEN
+        Collection<SchemaRule> rules = Arrays.<SchemaRule>asList( createLongIndexRule( 0, 50 ) );
+        for ( SchemaRule rule : rules )
+        {
+            storeRule( rule );
+        }
+
+        // WHEN
+        Collection<SchemaRule> readRules = asCollection( store.loadAllSchemaRules() );
+
+        // THEN
+        assertEquals( rules, readRules );
+    }
+
+    @Test
+    public void storeAndLoadAllLongRules() throws Exception
+    {
+        // GIVEN
+        Collection<SchemaRule> rules = Arrays.<SchemaRule>asList(
+                createLongIndexRule( 0, 100 ), createLongIndexRule( 1, 6 ), createLongIndexRule( 2, 50 ) );
+        for ( SchemaRule rule : rules )
+        {
+            storeRule( rule );
+        }
+
+        // WHEN
+        Collection<SchemaRule> readRules = asCollection( store.loadAllSchemaRules() );
+
+        // THEN
+        assertEquals( rules, readRules );
+    }
+
+    @Test
+    public void compositeRulesShouldHaveTheirOwnKind() throws Exception
+    {
+        // GIVEN
+        IndexRule indexRule = IndexRule.indexRule( store.nextId(), 1, new int[]{4, 2}, PROVIDER_DESCRIPTOR );
+
+        // WHEN
+        byte[] serialized = new RecordSerializer().append( indexRule ).serialize();
+        IndexRule readIndexRule = (IndexRule) SchemaRule.Kind.deserialize( indexRule.getId(), wrap( serialized ) );
+
+        // THEN
+        assertEquals( SchemaRule.Kind.COMPOSITE_INDEX_RULE, readIndexRule.getKind() );
+        assertArrayEquals( new int[]{4, 2}, readIndexRule.getPropertyKeys() );
+        assertEquals( indexRule, readIndexRule );
+    }
+
+    private IndexRule createLongIndexRule( int label, int numberOfPropertyKeys )
+    {
+        int[] propertyKeys = new int[numberOfPropertyKeys];
+        for ( int i = 0; i < propertyKeys.length; i++ )
+        {
+            propertyKeys[i] = i;
+        }
+        return IndexRule.indexRule( store.nextId(), label, propertyKeys, PROVIDER_DESCRIPTOR );
+    }
 
     private long storeRule( SchemaRule rule )
     {
@@ -19,6 +19,16 @@
  */
 package org.neo4j.kernel.impl.store.counts;
 
+import static org.hamcrest.Matchers.containsString;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.neo4j.kernel.api.ReadOperations.ANY_LABEL;
+import static org.neo4j.kernel.api.ReadOperations.ANY_RELATIONSHIP_TYPE;
 import static org.neo4j.kernel.impl.store.CommonAbstractStore.buildTypeDescriptorAndVersion;
 
 import java.io.File;
@@ -31,9 +41,12 @@ import org.junit.rules.TestName;
 import org.neo4j.helpers.Function;
 import org.neo4j.io.fs.FileSystemAbstraction;
 import org.neo4j.io.pagecache.PageCache;
+import org.neo4j.kernel.api.index.IndexDescriptor;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.configuration.Config;
 import org.neo4j.kernel.impl.api.CountsKey;
 import org.neo4j.kernel.impl.store.CountsOracle;
+import org.neo4j.kernel.impl.store.kvstore.KeyValueRecordVisitor;
 import org.neo4j.kernel.impl.store.kvstore.SortedKeyValueStore;
 import org.neo4j.register.Register;
 import org.neo4j.register.Registers;
@@ -155,6 +168,210 @@ public class CountsTrackerTest
         }
     }
 
+    @Test
+    public void shouldSumUpdatesFromConcurrentThreads() throws Exception
+    {
+        // given
+        CountsTracker.createEmptyCountsStore( pageCache(), storeFile(), VERSION );
+        final int threads = 8, updatesPerThread = 1000;
+        try ( final CountsTracker tracker = new CountsTracker( fs.get(), pageCache(), storeFile() ) )
+        {
+            // when
+            Future<?>[] tasks = new Future[threads];
+            for ( int i = 0; i < threads; i++ )
+            {
+                tasks[i] = threading.execute( new Function<CountsTracker, Void>()
+                {
+                    @Override
+                    public Void apply( CountsTracker tracker )
+                    {
+                        for ( int j = 0; j < updatesPerThread; j++ )
+                        {
+                            tracker.updateCountsForNode( 1, 1 );
+                            tracker.updateCountsForRelationship( 1, 2, 3, 2 );
+                        }
+                        return null;
+                    }
+                }, tracker );
+            }
+            for ( Future<?> task : tasks )
+            {
+                task.get();
+            }
+
+            // then
+            assertEquals( threads * updatesPerThread, tracker.countsForNode( 1 ) );
+            assertEquals( 2 * threads * updatesPerThread, tracker.countsForRelationship( 1, 2, 3 ) );
+            tracker.rotate( 1 );
+            assertEquals( threads * updatesPerThread, tracker.countsForNode( 1 ) );
+            assertEquals( 2 * threads * updatesPerThread, tracker.countsForRelationship( 1, 2, 3 ) );
+        }
+    }
+
+    @Test
+    public void shouldReadCountsWhileOtherThreadsAreUpdatingThem() throws Exception
+    {
+        // given
+        CountsTracker.createEmptyCountsStore( pageCache(), storeFile(), VERSION );
+        final int threads = 4, labels = 1000;
+        try ( final CountsTracker tracker = new CountsTracker( fs.get(), pageCache(), storeFile() ) )
+        {
+            // when
+            Future<?>[] tasks = new Future[threads];
+            for ( int i = 0; i < threads; i++ )
+            {
+                tasks[i] = threading.execute( new Function<CountsTracker, Void>()
+                {
+                    @Override
+                    public Void apply( CountsTracker tracker )
+                    {
+                        for ( int label = 0; label < labels; label++ )
+                        {
+                            tracker.updateCountsForNode( label, 1 );
+                        }
+                        return null;
+                    }
+                }, tracker );
+            }
+
+            // then the counts can be read while they are being updated
+            boolean done;
+            do
+            {
+                done = true;
+                for ( Future<?> task : tasks )
+                {
+                    done &= task.isDone();
+                }
+                for ( int label = 0; label < labels; label++ )
+                {
+                    long count = tracker.countsForNode( label );
+                    assertTrue( "count=" + count, count >= 0 && count <= threads );
+                }
+            }
+            while ( !done );
+            for ( Future<?> task : tasks )
+            {
+                task.get();
+            }
+            for ( int label = 0; label < labels; label++ )
+            {
+                assertEquals( threads, tracker.countsForNode( label ) );
+            }
+            tracker.rotate( 1 );
+        }
+    }
+
+    @Test
+    public void shouldTrackCountsForLargeAndAnyTokenIds() throws Exception
+    {
+        // given
+        CountsTracker.createEmptyCountsStore( pageCache(), storeFile(), VERSION );
+        int large = Integer.MAX_VALUE - 1;
+        try ( CountsTracker tracker = new CountsTracker( fs.get(), pageCache(), storeFile() ) )
+        {
+            // when
+            tracker.updateCountsForNode( ANY_LABEL, 3 );
+            tracker.updateCountsForNode( large, 5 );
+            tracker.updateCountsForRelationship( ANY_LABEL, ANY_RELATIONSHIP_TYPE, ANY_LABEL, 7 );
+            tracker.updateCountsForRelationship( large, 1, ANY_LABEL, 11 );
+            tracker.updateCountsForRelationship( ANY_LABEL, large, 1, 13 );
+            tracker.rotate( 1 );
+            tracker.updateCountsForRelationship( large, 1, ANY_LABEL, -1 );
+            tracker.updateCountsForNode( large, -1 );
+
+            // then
+            assertEquals( 3, tracker.countsForNode( ANY_LABEL ) );
+            assertEquals( 4, tracker.countsForNode( large ) );
+            assertEquals( 7, tracker.countsForRelationship( ANY_LABEL, ANY_RELATIONSHIP_TYPE, ANY_LABEL ) );
+            assertEquals( 10, tracker.countsForRelationship( large, 1, ANY_LABEL ) );
+            assertEquals( 13, tracker.countsForRelationship( ANY_LABEL, large, 1 ) );
+            tracker.rotate( 2 );
+        }
+        try ( CountsTracker tracker = new CountsTracker( fs.get(), pageCache(), storeFile() ) )
+        {
+            assertEquals( 4, tracker.countsForNode( large ) );
+            assertEquals( 10, tracker.countsForRelationship( large, 1, ANY_LABEL ) );
+        }
+    }
+
+    @Test
+    @SuppressWarnings( "unchecked" )
+    public void shouldDetectCountsGoingNegativeWhenRotating() throws Exception
+    {
+        boolean assertionsEnabled = false;
+        assert assertionsEnabled = true;
+        assumeTrue( assertionsEnabled );
+
+        // given
+        ConcurrentTrackerState state = new ConcurrentTrackerState( mock( SortedKeyValueStore.class ) );
+        state.updateNodeCount( 1, 2 );
+        state.updateNodeCount( 1, -3 );
+        KeyValueRecordVisitor<CountsKey, Register.LongRegister> writer = mock( KeyValueRecordVisitor.class );
+        when( writer.valueRegister() ).thenReturn( Registers.newLongRegister() );
+
+        // when
+        try
+        {
+            state.accept( writer );
+            fail( "Should have detected the negative count" );
+        }
+        catch ( AssertionError e )
+        {
+            // then
+            assertThat( e.getMessage(), containsString( "value=-1" ) );
+        }
+    }
+
+    @Test
+    public void shouldKeepIndexSamplesAcrossRotationAndRestart() throws Exception
+    {
+        // given
+        CountsTracker.createEmptyCountsStore( pageCache(), storeFile(), VERSION );
+        IndexDescriptor index = new IndexDescriptor( 1, 2 ), composite = new IndexDescriptor( 1, new int[]{2, 3} ),
+                dropped = new IndexDescriptor( 4, 5 );
+        try ( CountsTracker tracker = new CountsTracker( fs.get(), pageCache(), storeFile() ) )
+        {
+            // when
+            tracker.replaceIndexSample( index, new IndexSample( 100, 3, 50 ) );
+            tracker.replaceIndexSample( index, new IndexSample( 200, 4, 100 ) );
+            tracker.replaceIndexSample( composite, new IndexSample( 10, 10, 10 ) );
+            tracker.replaceIndexSample( dropped, new IndexSample( 1, 1, 1 ) );
+            tracker.removeIndexSample( dropped );
+
+            // then
+            assertEquals( new IndexSample( 200, 4, 100 ), tracker.indexSample( index ) );
+            tracker.rotate( 1 );
+        }
+        try ( CountsTracker tracker = new CountsTracker( fs.get(), pageCache(), storeFile() ) )
+        {
+            assertEquals( new IndexSample( 200, 4, 100 ), tracker.indexSample( index ) );
+            assertEquals( new IndexSample( 10, 10, 10 ), tracker.indexSample( composite ) );
+            assertEquals( IndexSample.NONE, tracker.indexSample( dropped ) );
+            assertEquals( IndexSample.NONE, tracker.indexSample( new IndexDescriptor( 2, 1 ) ) );
+        }
+    }
+
+    @Test
+    public void shouldKeepWrittenIndexSamplesAcrossRestartWithoutRotation() throws Exception
+    {
+        // given
+        CountsTracker.createEmptyCountsStore( pageCache(), storeFile(), VERSION );
+        IndexDescriptor index = new IndexDescriptor( 1, 2 );
+        try ( CountsTracker tracker = new CountsTracker( fs.get(), pageCache(), storeFile() ) )
+        {
+            // when
+            tracker.replaceIndexSample( index, new IndexSample( 100, 3, 50 ) );
+            tracker.writeIndexSamples();
+        }
+
+        // then
+        try ( CountsTracker tracker = new CountsTracker( fs.get(), pageCache(), storeFile() ) )
+        {
+            assertEquals( new IndexSample( 100, 3, 50 ), tracker.indexSample( index ) );
+        }
+    }
+
     private static final String VERSION = buildTypeDescriptorAndVersion( CountsTracker.STORE_DESCRIPTOR );
     public final @Rule EphemeralFileSystemRule fs = new EphemeralFileSystemRule();
     public final @Rule TestName testName = new TestName();
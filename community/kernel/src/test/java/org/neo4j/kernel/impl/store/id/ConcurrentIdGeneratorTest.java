@@ -0,0 +1,297 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.store.id;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.neo4j.test.EphemeralFileSystemRule;
+
+import static java.util.Arrays.asList;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ConcurrentIdGeneratorTest
+{
+    public final
+    @Rule
+    EphemeralFileSystemRule fsr = new EphemeralFileSystemRule();
+    private final File file = new File( "ids" );
+
+    @Test
+    public void shouldHandOutUniqueIdsToConcurrentThreads() throws Exception
+    {
+        // GIVEN
+        IdGeneratorImpl.createGenerator( fsr.get(), file );
+        final IdGenerator idGenerator = new ConcurrentIdGenerator( fsr.get(), file, 100, 10, Long.MAX_VALUE, false, 0 );
+        final int threads = 8;
+        final int idsPerThread = 1_000;
+        ExecutorService executor = Executors.newFixedThreadPool( threads );
+
+        // WHEN
+        List<Future<long[]>> futures = new ArrayList<>();
+        for ( int i = 0; i < threads; i++ )
+        {
+            futures.add( executor.submit( new Callable<long[]>()
+            {
+                @Override
+                public long[] call() throws Exception
+                {
+                    long[] ids = new long[idsPerThread];
+                    for ( int j = 0; j < ids.length; j++ )
+                    {
+                        ids[j] = idGenerator.nextId();
+                    }
+                    return ids;
+                }
+            } ) );
+        }
+
+        // THEN
+        Set<Long> seen = new HashSet<>();
+        for ( Future<long[]> future : futures )
+        {
+            for ( long id : future.get() )
+            {
+                assertTrue( "Duplicate id " + id, seen.add( id ) );
+            }
+        }
+        executor.shutdown();
+        assertEquals( threads * idsPerThread, seen.size() );
+        assertTrue( idGenerator.getHighId() <= threads * idsPerThread + threads * 10 );
+        idGenerator.close();
+    }
+
+    @Test
+    public void shouldPersistFreedAndUnusedBatchIdsOnClose() throws Exception
+    {
+        // GIVEN
+        IdGeneratorImpl.createGenerator( fsr.get(), file );
+        IdGenerator idGenerator = new ConcurrentIdGenerator( fsr.get(), file, 100, 10, Long.MAX_VALUE, false, 0 );
+        for ( int i = 0; i < 5; i++ )
+        {
+            idGenerator.nextId();
+        }
+        idGenerator.freeId( 2 );
+
+        // WHEN
+        idGenerator.close();
+
+        // THEN the file can be read by the regular id generator, which hands out
+        // the freed id and the ones left in the batch before any new ones
+        IdGenerator reopened = new IdGeneratorImpl( fsr.get(), file, 100, Long.MAX_VALUE, false, 0 );
+        assertEquals( 10, reopened.getHighId() );
+        Set<Long> reused = new HashSet<>();
+        for ( int i = 0; i < 6; i++ )
+        {
+            reused.add( reopened.nextId() );
+        }
+        assertEquals( new HashSet<>( asList( 2L, 5L, 6L, 7L, 8L, 9L ) ), reused );
+        assertEquals( 10, reopened.nextId() );
+        reopened.close();
+    }
+
+    @Test
+    public void shouldPersistUnusedBatchIdsOfThreadsThatHaveEndedOnClose() throws Exception
+    {
+        // GIVEN
+        IdGeneratorImpl.createGenerator( fsr.get(), file );
+        final IdGenerator idGenerator = new ConcurrentIdGenerator( fsr.get(), file, 100, 10, Long.MAX_VALUE, false, 0 );
+        Thread thread = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                idGenerator.nextId();
+                idGenerator.nextId();
+            }
+        };
+        thread.start();
+        thread.join();
+
+        // WHEN
+        idGenerator.close();
+
+        // THEN
+        IdGenerator reopened = new IdGeneratorImpl( fsr.get(), file, 100, Long.MAX_VALUE, false, 0 );
+        assertEquals( 10, reopened.getHighId() );
+        Set<Long> reused = new HashSet<>();
+        for ( int i = 0; i < 8; i++ )
+        {
+            reused.add( reopened.nextId() );
+        }
+        assertEquals( new HashSet<>( asList( 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L ) ), reused );
+        assertEquals( 10, reopened.nextId() );
+        reopened.close();
+    }
+
+    @Test
+    public void shouldNotCountReservedButUnusedIdsAsInUse() throws Exception
+    {
+        // GIVEN
+        IdGeneratorImpl.createGenerator( fsr.get(), file );
+        IdGenerator idGenerator = new ConcurrentIdGenerator( fsr.get(), file, 100, 10, Long.MAX_VALUE, false, 0 );
+
+        // WHEN
+        for ( int i = 0; i < 3; i++ )
+        {
+            idGenerator.nextId();
+        }
+        idGenerator.freeId( 1 );
+
+        // THEN
+        assertEquals( 10, idGenerator.getHighId() );
+        assertEquals( 2, idGenerator.getNumberOfIdsInUse() );
+
+        // and WHEN the batch is invalidated, releasing its remaining ids
+        idGenerator.setHighId( 20 );
+
+        // THEN
+        assertEquals( 12, idGenerator.getNumberOfIdsInUse() );
+        idGenerator.close();
+    }
+
+    @Test
+    public void shouldReuseFreedIdsInSameSessionWhenAggressive() throws Exception
+    {
+        // GIVEN
+        IdGeneratorImpl.createGenerator( fsr.get(), file );
+        IdGenerator idGenerator = new ConcurrentIdGenerator( fsr.get(), file, 100, 10, Long.MAX_VALUE, true, 0 );
+        long id = idGenerator.nextId();
+        idGenerator.nextId();
+
+        // WHEN
+        idGenerator.freeId( id );
+
+        // THEN
+        assertEquals( id, idGenerator.nextId() );
+        idGenerator.close();
+    }
+
+    @Test
+    public void shouldSkipIntegerMinusOne() throws Exception
+    {
+        // GIVEN
+        IdGeneratorImpl.createGenerator( fsr.get(), file, IdGeneratorImpl.INTEGER_MINUS_ONE - 1 );
+        IdGenerator idGenerator = new ConcurrentIdGenerator( fsr.get(), file, 100, 10, Long.MAX_VALUE, false, 0 );
+
+        // WHEN
+        long first = idGenerator.nextId();
+        long second = idGenerator.nextId();
+
+        // THEN
+        assertEquals( IdGeneratorImpl.INTEGER_MINUS_ONE - 1, first );
+        assertEquals( IdGeneratorImpl.INTEGER_MINUS_ONE + 1, second );
+        idGenerator.close();
+    }
+
+    @Test
+    public void shouldReleaseTheRemainingIdsOfReservedBatchesWhenHighIdIsSet() throws Exception
+    {
+        // GIVEN
+        IdGeneratorImpl.createGenerator( fsr.get(), file );
+        IdGenerator idGenerator = new ConcurrentIdGenerator( fsr.get(), file, 100, 10, Long.MAX_VALUE, false, 0 );
+        idGenerator.nextId();
+
+        // WHEN
+        idGenerator.setHighId( 100 );
+
+        // THEN the ids left in the batch are handed out before the ones from the new high id
+        Set<Long> released = new HashSet<>();
+        for ( int i = 0; i < 9; i++ )
+        {
+            released.add( idGenerator.nextId() );
+        }
+        assertEquals( new HashSet<>( asList( 1L, 2L, 3L, 4L, 5L, 6L, 7L, 8L, 9L ) ), released );
+        assertEquals( 100, idGenerator.nextId() );
+        idGenerator.close();
+    }
+
+    @Test
+    public void shouldNotReleaseTheRemainingIdsOfReservedBatchesAboveTheNewHighId() throws Exception
+    {
+        // GIVEN
+        IdGeneratorImpl.createGenerator( fsr.get(), file );
+        IdGenerator idGenerator = new ConcurrentIdGenerator( fsr.get(), file, 100, 10, Long.MAX_VALUE, false, 0 );
+        idGenerator.nextId();
+
+        // WHEN
+        idGenerator.setHighId( 5 );
+
+        // THEN
+        assertEquals( 1, idGenerator.nextId() );
+        assertEquals( 2, idGenerator.nextId() );
+        assertEquals( 3, idGenerator.nextId() );
+        assertEquals( 4, idGenerator.nextId() );
+        assertEquals( 5, idGenerator.nextId() );
+        idGenerator.close();
+    }
+
+    @Test
+    public void shouldNotKeepTrackOfBatchesThatHaveBeenUsedUp() throws Exception
+    {
+        // GIVEN
+        IdGeneratorImpl.createGenerator( fsr.get(), file );
+        final ConcurrentIdGenerator idGenerator =
+                new ConcurrentIdGenerator( fsr.get(), file, 100, 10, Long.MAX_VALUE, false, 0 );
+
+        // WHEN many short lived threads each use up a whole batch
+        for ( int i = 0; i < 100; i++ )
+        {
+            Thread thread = new Thread()
+            {
+                @Override
+                public void run()
+                {
+                    for ( int j = 0; j < 10; j++ )
+                    {
+                        idGenerator.nextId();
+                    }
+                }
+            };
+            thread.start();
+            thread.join();
+        }
+
+        // THEN
+        assertEquals( 0, idGenerator.getNumberOfReservedBatches() );
+        assertEquals( 1000, idGenerator.getNumberOfIdsInUse() );
+
+        // and WHEN a batch is invalidated
+        idGenerator.nextId();
+        assertEquals( 1, idGenerator.getNumberOfReservedBatches() );
+        idGenerator.setHighId( idGenerator.getHighId() );
+
+        // THEN
+        assertEquals( 0, idGenerator.getNumberOfReservedBatches() );
+        idGenerator.close();
+    }
+}
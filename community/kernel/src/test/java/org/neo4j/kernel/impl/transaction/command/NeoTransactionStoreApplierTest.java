@@ -583,12 +583,13 @@ public class NeoTransactionStoreApplierTest
         // when
         final boolean result =
                 applier.visitSchemaRuleCommand( command ) & indexApplier.visitSchemaRuleCommand( command );
+        indexApplier.apply();
 
         // then
         assertFalse( result );
 
         verify( schemaStore, times( 1 ) ).updateRecord( record );
-        verify( indexingService, times( 1 ) ).createIndex( rule );
+        verify( indexingService, times( 1 ) ).createIndexes( rule );
         verify( cacheAccess, times( 1 ) ).addSchemaRule( rule );
     }
 
@@ -615,7 +616,7 @@ public class NeoTransactionStoreApplierTest
 
         verify( schemaStore, times( 1 ) ).setHighestPossibleIdInUse( record.getId() );
         verify( schemaStore, times( 1 ) ).updateRecord( record );
-        verify( indexingService, times( 1 ) ).createIndex( rule );
+        verify( indexingService, times( 1 ) ).createIndexes( rule );
         verify( cacheAccess, times( 1 ) ).addSchemaRule( rule );
     }
 
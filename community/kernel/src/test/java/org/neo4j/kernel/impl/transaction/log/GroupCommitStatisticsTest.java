@@ -0,0 +1,50 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import static org.junit.Assert.assertEquals;
+
+public class GroupCommitStatisticsTest
+{
+    @Test
+    public void shouldKeepTrackOfTransactionsPerForceAndForceLatency() throws Exception
+    {
+        // GIVEN
+        GroupCommitStatistics statistics = new GroupCommitStatistics();
+
+        // WHEN
+        statistics.batchForced( 3, MICROSECONDS.toNanos( 3 ) );
+        statistics.batchForced( 5, MICROSECONDS.toNanos( 3 ) );
+        statistics.batchForced( 10, MILLISECONDS.toNanos( 1 ) );
+
+        // THEN
+        assertEquals( 3, statistics.forces() );
+        assertEquals( 18, statistics.transactions() );
+        assertEquals( 6.0, statistics.averageTransactionsPerForce(), 0.0 );
+        long[] histogram = statistics.forceLatencyHistogram();
+        assertEquals( 2, histogram[2] );  // [2us,4us)
+        assertEquals( 1, histogram[10] ); // [512us,1024us)
+    }
+}
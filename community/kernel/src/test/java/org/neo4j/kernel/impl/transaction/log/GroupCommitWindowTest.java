@@ -0,0 +1,103 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MICROSECONDS;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import static org.junit.Assert.assertEquals;
+
+public class GroupCommitWindowTest
+{
+    @Test
+    public void shouldNotWaitBeforeAnythingHasBeenMeasured() throws Exception
+    {
+        // GIVEN
+        GroupCommitWindow window = new GroupCommitWindow( MILLISECONDS.toNanos( 5 ) );
+
+        // THEN
+        assertEquals( 0, window.windowNanos() );
+    }
+
+    @Test
+    public void shouldNeverWaitWhenDisabled() throws Exception
+    {
+        // GIVEN
+        GroupCommitWindow window = new GroupCommitWindow( 0 );
+
+        // WHEN
+        simulateForces( window, 100, MICROSECONDS.toNanos( 10 ), 10, MILLISECONDS.toNanos( 1 ) );
+
+        // THEN
+        assertEquals( 0, window.windowNanos() );
+    }
+
+    @Test
+    public void shouldWaitAtMostOneForceWhenCommitsArriveFrequently() throws Exception
+    {
+        // GIVEN
+        GroupCommitWindow window = new GroupCommitWindow( MILLISECONDS.toNanos( 5 ) );
+
+        // WHEN a transaction arrives every 10us, and forces take 1ms
+        simulateForces( window, 100, MICROSECONDS.toNanos( 10 ), 100, MILLISECONDS.toNanos( 1 ) );
+
+        // THEN
+        assertEquals( MILLISECONDS.toNanos( 1 ), window.windowNanos() );
+    }
+
+    @Test
+    public void shouldWaitNoLongerThanConfiguredMaximum() throws Exception
+    {
+        // GIVEN
+        GroupCommitWindow window = new GroupCommitWindow( MICROSECONDS.toNanos( 200 ) );
+
+        // WHEN
+        simulateForces( window, 100, MICROSECONDS.toNanos( 10 ), 100, MILLISECONDS.toNanos( 1 ) );
+
+        // THEN
+        assertEquals( MICROSECONDS.toNanos( 200 ), window.windowNanos() );
+    }
+
+    @Test
+    public void shouldNotWaitWhenCommitsAreInfrequent() throws Exception
+    {
+        // GIVEN
+        GroupCommitWindow window = new GroupCommitWindow( MILLISECONDS.toNanos( 5 ) );
+
+        // WHEN a single transaction arrives every 10ms, and forces take 1ms
+        simulateForces( window, 100, MILLISECONDS.toNanos( 10 ), 1, MILLISECONDS.toNanos( 1 ) );
+
+        // THEN
+        assertEquals( 0, window.windowNanos() );
+    }
+
+    private void simulateForces( GroupCommitWindow window, int forces, long arrivalNanos,
+            long transactionsPerForce, long forceNanos )
+    {
+        long now = 0;
+        for ( int i = 0; i < forces; i++ )
+        {
+            now += arrivalNanos * transactionsPerForce;
+            window.forced( transactionsPerForce, now, forceNanos );
+        }
+    }
+}
@@ -0,0 +1,197 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.log;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Rule;
+import org.junit.Test;
+
+import org.neo4j.graphdb.mockfs.EphemeralFileSystemAbstraction;
+import org.neo4j.io.fs.FileSystemAbstraction;
+import org.neo4j.io.fs.StoreChannel;
+import org.neo4j.kernel.DefaultFileSystemAbstraction;
+import org.neo4j.test.TargetDirectory;
+import org.neo4j.test.TargetDirectory.TestDirectory;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeader.LOG_HEADER_SIZE;
+import static org.neo4j.kernel.impl.transaction.log.entry.LogHeaderWriter.writeLogHeader;
+
+public class MappedLogChannelTest
+{
+    @Test
+    public void shouldReadValuesFromMappedAndActiveVersions() throws Exception
+    {
+        // GIVEN versions 0 and 1 are rotated, and version 2 is the active one
+        writeVersion( fs, 0, 1L, 2L );
+        writeVersion( fs, 1, 3L, 4L );
+        writeVersion( fs, 2, 5L, 6L );
+
+        // WHEN
+        try ( ReadableVersionableLogChannel channel = new MappedLogChannel( openForVersion( fs, 0 ),
+                new ReaderLogVersionBridge( fs, logFiles( fs ) ), 64, 1 ) )
+        {
+            // THEN
+            for ( long value = 1; value <= 6; value++ )
+            {
+                assertEquals( value, channel.getLong() );
+            }
+            assertEquals( 2, channel.getVersion() );
+            assertEquals( new LogPosition( 2, LOG_HEADER_SIZE + 16 ),
+                    channel.getCurrentPosition( new LogPositionMarker() ).newPosition() );
+            try
+            {
+                channel.get();
+                fail( "Should have reached the end" );
+            }
+            catch ( ReadPastEndException e )
+            {   // Good
+            }
+        }
+    }
+
+    @Test
+    public void shouldReadValuesStraddlingMappedVersions() throws Exception
+    {
+        // GIVEN a long that is split between two rotated versions
+        ByteBuffer value = ByteBuffer.allocate( 8 ).putLong( 0x0102030405060708L );
+        writeVersion( fs, 0, new byte[]{1, 2, 3}, copyOf( value, 0, 3 ) );
+        writeVersion( fs, 1, copyOf( value, 3, 8 ) );
+
+        // WHEN
+        try ( ReadableVersionableLogChannel channel = new MappedLogChannel( openForVersion( fs, 0 ),
+                new ReaderLogVersionBridge( fs, logFiles( fs ) ), 64, 1 ) )
+        {
+            // THEN
+            byte[] bytes = new byte[3];
+            channel.get( bytes, bytes.length );
+            assertArrayEquals( new byte[]{1, 2, 3}, bytes );
+            assertEquals( 0x0102030405060708L, channel.getLong() );
+        }
+    }
+
+    @Test
+    public void shouldUnmapEveryRegionOnceItIsReadOrTheChannelIsClosed() throws Exception
+    {
+        // GIVEN
+        assumeTrue( MappedRegionUnmapper.INSTANCE.isSupported() );
+        writeVersion( fs, 0, 1L, 2L );
+        writeVersion( fs, 1, 3L, 4L );
+        writeVersion( fs, 2, 5L );
+        final AtomicInteger unmapped = new AtomicInteger();
+        MappedRegionUnmapper unmapper = new MappedRegionUnmapper()
+        {
+            @Override
+            boolean unmap( MappedByteBuffer region )
+            {
+                unmapped.incrementAndGet();
+                return super.unmap( region );
+            }
+        };
+
+        // WHEN reading into the last mapped version
+        try ( ReadableVersionableLogChannel channel = new MappedLogChannel( openForVersion( fs, 0 ),
+                new ReaderLogVersionBridge( fs, logFiles( fs ) ), 64, 2, unmapper ) )
+        {
+            assertEquals( 1L, channel.getLong() );
+            assertEquals( 2L, channel.getLong() );
+            assertEquals( 3L, channel.getLong() );
+
+            // THEN the regions of the versions before it are unmapped
+            assertEquals( 1, unmapped.get() );
+        }
+
+        // and the region of the last one on close
+        assertEquals( 2, unmapped.get() );
+    }
+
+    @Test
+    public void shouldFallBackToReadingWhenMappingIsNotSupported() throws Exception
+    {
+        // GIVEN
+        EphemeralFileSystemAbstraction ephemeral = new EphemeralFileSystemAbstraction();
+        ephemeral.mkdirs( directory.directory() );
+        writeVersion( ephemeral, 0, 1L, 2L );
+        writeVersion( ephemeral, 1, 3L );
+
+        // WHEN
+        try ( ReadableVersionableLogChannel channel = new MappedLogChannel( openForVersion( ephemeral, 0 ),
+                new ReaderLogVersionBridge( ephemeral, logFiles( ephemeral ) ), 64, 1 ) )
+        {
+            // THEN
+            assertEquals( 1L, channel.getLong() );
+            assertEquals( 2L, channel.getLong() );
+            assertEquals( 3L, channel.getLong() );
+        }
+        ephemeral.shutdown();
+    }
+
+    private void writeVersion( FileSystemAbstraction fs, long version, long... values ) throws IOException
+    {
+        ByteBuffer buffer = ByteBuffer.allocate( values.length * 8 );
+        for ( long value : values )
+        {
+            buffer.putLong( value );
+        }
+        writeVersion( fs, version, buffer.array() );
+    }
+
+    private void writeVersion( FileSystemAbstraction fs, long version, byte[]... chunks ) throws IOException
+    {
+        try ( StoreChannel channel = fs.create( logFiles( fs ).getLogFileForVersion( version ) ) )
+        {
+            ByteBuffer header = ByteBuffer.allocate( LOG_HEADER_SIZE );
+            writeLogHeader( header, version, 0 );
+            channel.writeAll( header );
+            for ( byte[] chunk : chunks )
+            {
+                channel.writeAll( ByteBuffer.wrap( chunk ) );
+            }
+        }
+    }
+
+    private static byte[] copyOf( ByteBuffer buffer, int from, int to )
+    {
+        byte[] bytes = new byte[to - from];
+        System.arraycopy( buffer.array(), from, bytes, 0, bytes.length );
+        return bytes;
+    }
+
+    private PhysicalLogFiles logFiles( FileSystemAbstraction fs )
+    {
+        return new PhysicalLogFiles( directory.directory(), "log", fs );
+    }
+
+    private LogVersionedStoreChannel openForVersion( FileSystemAbstraction fs, long version ) throws IOException
+    {
+        return PhysicalLogFile.openForVersion( logFiles( fs ), fs, version );
+    }
+
+    private final FileSystemAbstraction fs = new DefaultFileSystemAbstraction();
+    public final @Rule TestDirectory directory = TargetDirectory.testDirForTest( getClass() );
+}
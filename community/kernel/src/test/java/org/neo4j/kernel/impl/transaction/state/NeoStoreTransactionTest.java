@@ -1531,7 +1531,7 @@ public class NeoStoreTransactionTest
                     new NeoStoreIndexStoreView( locks, neoStore ),
                     null,
                     new KernelSchemaStateStore(), Collections.<IndexRule>emptyList(),
-                    new SingleLoggingService( DEV_NULL ), IndexingService.NO_MONITOR
+                    new SingleLoggingService( DEV_NULL ), IndexingService.NO_MONITOR, 0, 0
             );
         }
 
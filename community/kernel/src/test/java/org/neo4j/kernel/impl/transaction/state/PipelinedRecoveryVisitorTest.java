@@ -0,0 +1,181 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.impl.transaction.state;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.neo4j.kernel.api.labelscan.LabelScanStore;
+import org.neo4j.kernel.api.labelscan.NodeLabelUpdate;
+import org.neo4j.kernel.impl.api.TransactionRepresentationStoreApplier;
+import org.neo4j.kernel.impl.api.index.IndexUpdates;
+import org.neo4j.kernel.impl.api.index.IndexingService;
+import org.neo4j.kernel.impl.core.CacheAccessBackDoor;
+import org.neo4j.kernel.impl.locking.LockGroup;
+import org.neo4j.kernel.impl.store.InlineNodeLabels;
+import org.neo4j.kernel.impl.store.NeoStore;
+import org.neo4j.kernel.impl.store.record.NodeRecord;
+import org.neo4j.kernel.impl.transaction.CommittedTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.TransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.command.Command;
+import org.neo4j.kernel.impl.transaction.log.PhysicalTransactionRepresentation;
+import org.neo4j.kernel.impl.transaction.log.TransactionIdStore;
+import org.neo4j.kernel.impl.transaction.log.entry.OnePhaseCommit;
+import org.neo4j.unsafe.batchinsert.LabelScanWriter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.neo4j.kernel.impl.api.TransactionApplicationMode.RECOVERY;
+
+public class PipelinedRecoveryVisitorTest
+{
+    private final TransactionIdStore store = mock( TransactionIdStore.class );
+    private final TransactionRepresentationStoreApplier storeApplier =
+            mock( TransactionRepresentationStoreApplier.class );
+    private final IndexingService indexingService = mock( IndexingService.class );
+    private final LabelScanStore labelScanStore = mock( LabelScanStore.class );
+    private final LabelScanWriter labelScanWriter = mock( LabelScanWriter.class );
+    private final NeoStore neoStore = mock( NeoStore.class );
+    private final CacheAccessBackDoor cacheAccess = mock( CacheAccessBackDoor.class );
+    private final RecoveryVisitor.Monitor monitor = mock( RecoveryVisitor.Monitor.class );
+    private final AtomicInteger recoveredCount = new AtomicInteger();
+
+    @Test
+    public void shouldNotSetLastCommittedAndClosedTransactionIdWhenNoRecoveryHappened() throws IOException
+    {
+        PipelinedRecoveryVisitor visitor = newVisitor( 2 );
+
+        visitor.close();
+
+        verify( store, never() ).setLastCommittedAndClosedTransactionId( anyLong() );
+    }
+
+    @Test
+    public void shouldApplyAllTransactionsInOrderAndBatchIndexUpdates() throws IOException
+    {
+        // given
+        when( labelScanStore.newWriter() ).thenReturn( labelScanWriter );
+        PipelinedRecoveryVisitor visitor = newVisitor( 2 );
+        List<TransactionRepresentation> transactions = new ArrayList<>();
+
+        // when
+        for ( int i = 0; i < 5; i++ )
+        {
+            TransactionRepresentation transaction = transactionAddingLabel( 10 - i, i );
+            transactions.add( transaction );
+            visitor.visit( new CommittedTransactionRepresentation( null, transaction, new OnePhaseCommit( i + 1, 0 ) ) );
+        }
+        visitor.close();
+
+        // then
+        InOrder order = inOrder( storeApplier, monitor );
+        for ( int i = 0; i < transactions.size(); i++ )
+        {
+            order.verify( storeApplier ).applyToStores( eq( transactions.get( i ) ), any( LockGroup.class ),
+                    eq( i + 1L ), eq( RECOVERY ) );
+            order.verify( monitor ).transactionRecovered( i + 1L );
+        }
+        verify( storeApplier, never() ).apply( any( TransactionRepresentation.class ), any( LockGroup.class ),
+                anyLong(), eq( RECOVERY ) );
+        assertEquals( 5, recoveredCount.get() );
+        verify( store ).setLastCommittedAndClosedTransactionId( 5 );
+
+        // batches of two, two and one transaction
+        ArgumentCaptor<IndexUpdates> indexUpdates = ArgumentCaptor.forClass( IndexUpdates.class );
+        verify( indexingService, atLeastOnce() ).updateIndexes( indexUpdates.capture(), eq( true ) );
+        assertEquals( 3, indexUpdates.getAllValues().size() );
+        Set<Long> changedNodes = new HashSet<>();
+        for ( IndexUpdates updates : indexUpdates.getAllValues() )
+        {
+            changedNodes.addAll( updates.changedNodeIds() );
+        }
+        assertEquals( new HashSet<>( Arrays.asList( 10L, 9L, 8L, 7L, 6L ) ), changedNodes );
+
+        ArgumentCaptor<NodeLabelUpdate> labelUpdates = ArgumentCaptor.forClass( NodeLabelUpdate.class );
+        verify( labelScanWriter, atLeastOnce() ).write( labelUpdates.capture() );
+        assertEquals( 5, labelUpdates.getAllValues().size() );
+        // sorted by node id within each batch
+        assertEquals( 9, labelUpdates.getAllValues().get( 0 ).getNodeId() );
+        assertEquals( 10, labelUpdates.getAllValues().get( 1 ).getNodeId() );
+    }
+
+    @Test
+    public void shouldFailRecoveryIfAnyStageFails() throws IOException
+    {
+        // given
+        IOException failure = new IOException( "store failure" );
+        doThrow( failure ).when( storeApplier ).applyToStores( any( TransactionRepresentation.class ),
+                any( LockGroup.class ), anyLong(), eq( RECOVERY ) );
+        when( labelScanStore.newWriter() ).thenReturn( labelScanWriter );
+        PipelinedRecoveryVisitor visitor = newVisitor( 2 );
+
+        // when
+        try
+        {
+            visitor.visit( new CommittedTransactionRepresentation( null, transactionAddingLabel( 1, 1 ),
+                    new OnePhaseCommit( 1, 0 ) ) );
+            visitor.close();
+            fail( "Should have failed" );
+        }
+        catch ( IOException e )
+        {
+            // then
+            assertSame( failure, e.getCause() );
+        }
+        verify( store, never() ).setLastCommittedAndClosedTransactionId( anyLong() );
+    }
+
+    private PipelinedRecoveryVisitor newVisitor( int batchSize )
+    {
+        return new PipelinedRecoveryVisitor( store, storeApplier, indexingService, labelScanStore, neoStore,
+                cacheAccess, recoveredCount, monitor, batchSize );
+    }
+
+    private TransactionRepresentation transactionAddingLabel( long nodeId, long labelId )
+    {
+        NodeRecord before = new NodeRecord( nodeId );
+        before.setInUse( true );
+        NodeRecord after = new NodeRecord( nodeId );
+        after.setInUse( true );
+        InlineNodeLabels.put( after, new long[] {labelId}, null, null );
+        return new PhysicalTransactionRepresentation(
+                Arrays.<Command>asList( new Command.NodeCommand().init( before, after ) ) );
+    }
+}
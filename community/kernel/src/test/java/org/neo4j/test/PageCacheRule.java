@@ -172,6 +172,13 @@ public class PageCacheRule extends ExternalResource
             return new PossiblyInconsistentPagedFile( pagedFile, decision );
         }
 
+        @Override
+        public PagedFile map( File file, int pageSize, int reservedPercentage ) throws IOException
+        {
+            PagedFile pagedFile = pageCache.map( file, pageSize, reservedPercentage );
+            return new PossiblyInconsistentPagedFile( pagedFile, decision );
+        }
+
         @Override
         public void unmap( File file ) throws IOException
         {
@@ -24,11 +24,14 @@ import org.apache.lucene.document.Field;
 import org.apache.lucene.document.Fieldable;
 import org.apache.lucene.index.FieldInfo.IndexOptions;
 import org.apache.lucene.index.Term;
+import org.apache.lucene.search.PrefixQuery;
 import org.apache.lucene.search.Query;
 import org.apache.lucene.search.TermQuery;
+import org.apache.lucene.search.TermRangeQuery;
 import org.apache.lucene.util.NumericUtils;
 
 import org.neo4j.kernel.api.index.ArrayEncoder;
+import org.neo4j.kernel.api.index.IndexedNumbers;
 
 import static java.lang.String.format;
 
@@ -39,6 +42,11 @@ import static org.apache.lucene.document.Field.Store.YES;
 public class LuceneDocumentStructure
 {
     static final String NODE_ID_KEY = "id";
+    /**
+     * Longs that are not exact doubles share their term with the longs around them, so their exact value is stored
+     * as well, for range seeks to compare with their bounds.
+     */
+    static final String EXACT_NUMBER_KEY = "exact_number";
 
     Document newDocument( long nodeId )
     {
@@ -173,6 +181,10 @@ public class LuceneDocumentStructure
             if ( encoding.canEncode( value ) )
             {
                 document.add( encoding.encodeField( value ) );
+                if ( encoding == ValueEncoding.Number && !IndexedNumbers.isExactDouble( (Number) value ) )
+                {
+                    document.add( new Field( EXACT_NUMBER_KEY, value.toString(), YES, Field.Index.NO ) );
+                }
                 break;
             }
         }
@@ -205,6 +217,30 @@ public class LuceneDocumentStructure
         throw new IllegalArgumentException( format( "Unable to create newQuery for %s", value ) );
     }
 
+    /**
+     * Numbers are indexed as prefix coded doubles, which sort in numeric order, so a numeric range becomes
+     * a term range over the number field. The terms of the bounds themselves are left out, since longs that round
+     * to the same double as a bound may be on either side of it, see {@link #getNumber(Document, double)}.
+     * A {@code null} bound leaves that end of the range open.
+     */
+    public Query newRangeSeekBetweenNumbersQuery( Number lower, Number upper )
+    {
+        return new TermRangeQuery( ValueEncoding.Number.key(),
+                lower == null ? null : NumericUtils.doubleToPrefixCoded( lower.doubleValue() ),
+                upper == null ? null : NumericUtils.doubleToPrefixCoded( upper.doubleValue() ),
+                false, false );
+    }
+
+    public Query newRangeSeekByStringQuery( String lower, boolean includeLower, String upper, boolean includeUpper )
+    {
+        return new TermRangeQuery( ValueEncoding.String.key(), lower, upper, includeLower, includeUpper );
+    }
+
+    public Query newRangeSeekByPrefixQuery( String prefix )
+    {
+        return new PrefixQuery( new Term( ValueEncoding.String.key(), prefix ) );
+    }
+
     public Term newQueryForChangeOrRemove( long nodeId )
     {
         return new Term( NODE_ID_KEY, "" + nodeId );
@@ -214,4 +250,18 @@ public class LuceneDocumentStructure
     {
         return Long.parseLong( from.get( NODE_ID_KEY ) );
     }
+
+    /**
+     * @return the exact value of a document found by the given number term, which is the term itself unless the
+     * value is a long that is not an exact double.
+     */
+    public Number getNumber( Document from, double term )
+    {
+        String exact = from.get( EXACT_NUMBER_KEY );
+        if ( exact == null )
+        {
+            return term;
+        }
+        return Long.parseLong( exact );
+    }
 }
@@ -21,6 +21,9 @@ package org.neo4j.kernel.api.impl.index;
 
 import java.io.IOException;
 
+import org.apache.lucene.document.Document;
+import org.apache.lucene.index.Term;
+import org.apache.lucene.index.TermEnum;
 import org.apache.lucene.search.BooleanClause;
 import org.apache.lucene.search.BooleanQuery;
 import org.apache.lucene.search.IndexSearcher;
@@ -28,9 +31,17 @@ import org.apache.lucene.search.Query;
 import org.apache.lucene.search.SearcherManager;
 import org.apache.lucene.search.TermQuery;
 
+import org.neo4j.collection.primitive.PrimitiveLongCollections.PrimitiveLongBaseIterator;
 import org.neo4j.collection.primitive.PrimitiveLongIterator;
+import org.neo4j.helpers.Predicate;
 import org.neo4j.index.impl.lucene.Hits;
 import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexSample;
+
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.concat;
+import static org.neo4j.collection.primitive.PrimitiveLongCollections.emptyIterator;
+import static org.neo4j.helpers.collection.IteratorUtil.iterator;
+import static org.neo4j.kernel.impl.api.index.IndexValuePredicates.numberRange;
 
 class LuceneIndexAccessorReader implements IndexReader
 {
@@ -48,9 +59,95 @@ class LuceneIndexAccessorReader implements IndexReader
     @Override
     public PrimitiveLongIterator lookup( Object value )
     {
+        return query( documentLogic.newQuery( value ) );
+    }
+
+    /**
+     * Doubles are in the same order as the numbers they are rounded from, so all entries between the terms of the
+     * bounds are in the range. Only the entries on those terms need their exact values compared with the bounds.
+     */
+    @Override
+    public PrimitiveLongIterator rangeSeekByNumber( Number lower, boolean includeLower,
+                                                    Number upper, boolean includeUpper )
+    {
+        Predicate<Object> inRange = numberRange( lower, includeLower, upper, includeUpper );
+        PrimitiveLongIterator between = query( documentLogic.newRangeSeekBetweenNumbersQuery( lower, upper ) );
+        PrimitiveLongIterator atLower = lower == null ? emptyIterator() : queryNumberTerm( lower, inRange );
+        boolean sameTerm = lower != null && upper != null &&
+                Double.compare( lower.doubleValue(), upper.doubleValue() ) == 0;
+        PrimitiveLongIterator atUpper = upper == null || sameTerm ? emptyIterator() : queryNumberTerm( upper, inRange );
+        return concat( iterator( atLower, between, atUpper ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByString( String lower, boolean includeLower,
+                                                    String upper, boolean includeUpper )
+    {
+        return query( documentLogic.newRangeSeekByStringQuery( lower, includeLower, upper, includeUpper ) );
+    }
+
+    @Override
+    public PrimitiveLongIterator rangeSeekByPrefix( String prefix )
+    {
+        return query( documentLogic.newRangeSeekByPrefixQuery( prefix ) );
+    }
+
+    /**
+     * Each value is a single term, in the field of its {@link LuceneDocumentStructure.ValueEncoding}, so the
+     * distinct values are sampled by walking the terms of those fields. All of the terms are walked, but only
+     * every n:th of them is counted, n chosen for their documents to add up to about the limit, so that the sample
+     * is spread over the whole range of values instead of being made up of the lowest ones.
+     */
+    @Override
+    public IndexSample sampleIndex( long sampleSizeLimit )
+    {
+        org.apache.lucene.index.IndexReader reader = searcher.getIndexReader();
+        long indexSize = reader.numDocs();
+        long stride = Math.max( 1, indexSize / Math.max( 1, sampleSizeLimit ) );
+        long termNumber = 0, uniqueValues = 0, sampleSize = 0;
         try
         {
-            Hits hits = new Hits( searcher, documentLogic.newQuery( value ), null );
+            for ( LuceneDocumentStructure.ValueEncoding encoding : LuceneDocumentStructure.ValueEncoding.values() )
+            {
+                String field = encoding.key();
+                TermEnum terms = reader.terms( new Term( field ) );
+                try
+                {
+                    do
+                    {
+                        Term term = terms.term();
+                        if ( term == null || !field.equals( term.field() ) )
+                        {
+                            break;
+                        }
+                        if ( termNumber++ % stride == 0 )
+                        {
+                            uniqueValues++;
+                            sampleSize += terms.docFreq();
+                        }
+                    }
+                    while ( terms.next() );
+                }
+                finally
+                {
+                    terms.close();
+                }
+            }
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( e );
+        }
+        // Term frequencies still count deleted documents, until their segments are merged
+        sampleSize = Math.min( sampleSize, indexSize );
+        return new IndexSample( indexSize, Math.min( uniqueValues, sampleSize ), sampleSize );
+    }
+
+    private PrimitiveLongIterator query( Query query )
+    {
+        try
+        {
+            Hits hits = new Hits( searcher, query, null );
             return new HitsPrimitiveLongIterator( hits, documentLogic );
         }
         catch ( IOException e )
@@ -59,6 +156,45 @@ class LuceneIndexAccessorReader implements IndexReader
         }
     }
 
+    private PrimitiveLongIterator queryNumberTerm( Number value, final Predicate<Object> inRange )
+    {
+        final double term = value.doubleValue();
+        final Hits hits;
+        try
+        {
+            hits = new Hits( searcher, documentLogic.newQuery( value ), null );
+        }
+        catch ( IOException e )
+        {
+            throw new RuntimeException( e );
+        }
+        return new PrimitiveLongBaseIterator()
+        {
+            private int index;
+
+            @Override
+            protected boolean fetchNext()
+            {
+                try
+                {
+                    while ( index < hits.length() )
+                    {
+                        Document document = hits.doc( index++ );
+                        if ( inRange.accept( documentLogic.getNumber( document, term ) ) )
+                        {
+                            return next( documentLogic.getNodeId( document ) );
+                        }
+                    }
+                    return false;
+                }
+                catch ( IOException e )
+                {
+                    throw new RuntimeException( e );
+                }
+            }
+        };
+    }
+
     @Override
     public int getIndexedCount( long nodeId, Object propertyValue )
     {
@@ -21,6 +21,7 @@ package org.neo4j.kernel.api.impl.index;
 
 import java.io.File;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.List;
 
 import org.junit.After;
@@ -28,6 +29,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.neo4j.kernel.api.index.IndexEntryConflictException;
 import org.neo4j.kernel.api.index.IndexReader;
+import org.neo4j.kernel.api.index.IndexSample;
 import org.neo4j.kernel.api.index.IndexUpdater;
 import org.neo4j.kernel.api.index.NodePropertyUpdate;
 import org.neo4j.kernel.impl.api.index.IndexUpdateMode;
@@ -120,6 +122,107 @@ public class LuceneIndexAccessorTest
         reader.close();
     }
 
+    @Test
+    public void shouldRangeSeekByNumber() throws Exception
+    {
+        // GIVEN
+        updateAndCommit( asList(
+                add( 1, -5 ),
+                add( 2, 10L ),
+                add( 3, 20.5d ),
+                add( 4, 40 ),
+                add( 5, "20" ) ) );
+        IndexReader reader = accessor.newReader();
+
+        // THEN
+        assertEquals( asSet( 2L, 3L ), asUniqueSet( reader.rangeSeekByNumber( 10, true, 40, false ) ) );
+        assertEquals( asSet( 3L, 4L ), asUniqueSet( reader.rangeSeekByNumber( 10, false, null, false ) ) );
+        assertEquals( asSet( 1L, 2L ), asUniqueSet( reader.rangeSeekByNumber( null, false, 10, true ) ) );
+        reader.close();
+    }
+
+    @Test
+    public void shouldRangeSeekByStringAndPrefix() throws Exception
+    {
+        // GIVEN
+        updateAndCommit( asList(
+                add( 1, "apa" ),
+                add( 2, "apple" ),
+                add( 3, "banana" ),
+                add( 4, "cherry" ),
+                add( 5, 3 ) ) );
+        IndexReader reader = accessor.newReader();
+
+        // THEN
+        assertEquals( asSet( 2L, 3L ), asUniqueSet( reader.rangeSeekByString( "apb", true, "banana", true ) ) );
+        assertEquals( asSet( 4L ), asUniqueSet( reader.rangeSeekByString( "banana", false, null, false ) ) );
+        assertEquals( asSet( 1L, 2L ), asUniqueSet( reader.rangeSeekByPrefix( "ap" ) ) );
+        assertEquals( emptySetOf( Long.class ), asUniqueSet( reader.rangeSeekByPrefix( "3" ) ) );
+        reader.close();
+    }
+
+    @Test
+    public void shouldCompareLongsThatRoundToTheSameDoubleExactlyInRangeSeek() throws Exception
+    {
+        // GIVEN
+        long large = 1L << 53;
+        updateAndCommit( asList(
+                add( 1, large ),
+                add( 2, large + 1 ),
+                add( 3, (double) large ),
+                add( 4, large + 2 ),
+                add( 5, large + 3 ) ) );
+        IndexReader reader = accessor.newReader();
+
+        // THEN
+        assertEquals( asSet( 2L, 4L ), asUniqueSet( reader.rangeSeekByNumber( large, false, large + 2, true ) ) );
+        assertEquals( asSet( 1L, 3L, 2L ), asUniqueSet( reader.rangeSeekByNumber( large, true, large + 1, true ) ) );
+        assertEquals( asSet( 1L, 3L ), asUniqueSet( reader.rangeSeekByNumber( null, false, large + 1, false ) ) );
+        assertEquals( asSet( 5L ), asUniqueSet( reader.rangeSeekByNumber( large + 2, false, null, false ) ) );
+        reader.close();
+    }
+
+    @Test
+    public void shouldSampleDistinctValuesUpToTheLimit() throws Exception
+    {
+        // GIVEN
+        updateAndCommit( asList(
+                add( 1, "apa" ),
+                add( 2, "banana" ),
+                add( 3, "banana" ),
+                add( 4, 3 ),
+                add( 5, 3L ),
+                add( 6, true ),
+                add( 7, new int[]{1, 2} ) ) );
+        IndexReader reader = accessor.newReader();
+
+        // THEN
+        assertEquals( new IndexSample( 7, 5, 7 ), reader.sampleIndex( 100 ) );
+        assertEquals( new IndexSample( 7, 1, 2 ), reader.sampleIndex( 1 ) );
+        reader.close();
+    }
+
+    @Test
+    public void shouldSampleValuesFromTheWholeRangeOfValues() throws Exception
+    {
+        // GIVEN 50 distinct low values, and then 5 high values with 10 nodes each
+        List<NodePropertyUpdate> updates = new ArrayList<>();
+        for ( int i = 0; i < 50; i++ )
+        {
+            updates.add( add( i, "a" + (10 + i) ) );
+        }
+        for ( int i = 50; i < 100; i++ )
+        {
+            updates.add( add( i, "b" + (i % 5) ) );
+        }
+        updateAndCommit( updates );
+        IndexReader reader = accessor.newReader();
+
+        // THEN every 5th value is sampled, the last of which is a high one
+        assertEquals( new IndexSample( 100, 11, 20 ), reader.sampleIndex( 20 ) );
+        reader.close();
+    }
+
     private final long nodeId = 1, nodeId2 = 2;
     private final Object value = "value", value2 = 40;
     private final LuceneDocumentStructure documentLogic = new LuceneDocumentStructure();
@@ -136,8 +239,9 @@ public class LuceneIndexAccessorTest
     }
 
     @After
-    public void after()
+    public void after() throws IOException
     {
+        accessor.close();
         dirFactory.close();
     }
 
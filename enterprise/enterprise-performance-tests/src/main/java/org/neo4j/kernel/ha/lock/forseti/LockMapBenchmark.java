@@ -0,0 +1,185 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.neo4j.kernel.ha.lock.forseti;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ThreadLocalRandom;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import org.neo4j.kernel.impl.util.collection.SimpleBitSet;
+
+/**
+ * Compares the {@link LockMap} that Forseti keeps its locks in with the alternatives: a single monitor guarding one
+ * primitive map, which is a {@link LockMap} with a single stripe, and the {@link ConcurrentHashMap} of boxed resource
+ * ids that Forseti used before.
+ *
+ * Each operation takes and releases the lock on a random resource, the way {@link ForsetiClient} does: it puts the
+ * lock if absent, looks it up, and removes it. The shared lock operation only looks up locks that are always held,
+ * like the schema lock. Run it with a number of threads, like
+ * {@code java -cp neo4j-enterprise-performance-tests.jar org.openjdk.jmh.Main LockMapBenchmark -t 8}, and with
+ * {@code -prof gc} to see what the boxed keys and map entries allocate.
+ */
+@State( Scope.Benchmark )
+public class LockMapBenchmark
+{
+    private static final int RESOURCES = 1 << 20;
+    private static final int SHARED_RESOURCES = 64;
+
+    @Param( {"striped", "synchronized", "concurrent-hash-map"} )
+    public String map;
+
+    private Locks locks;
+    private final ForsetiLockManager.Lock lock = new BenchmarkLock();
+
+    @Setup
+    public void createMap()
+    {
+        switch ( map )
+        {
+        case "striped":
+            locks = new LockMapLocks( new LockMap( LockMap.DEFAULT_STRIPES ) );
+            break;
+        case "synchronized":
+            locks = new LockMapLocks( new LockMap( 1 ) );
+            break;
+        case "concurrent-hash-map":
+            locks = new ConcurrentHashMapLocks();
+            break;
+        default:
+            throw new IllegalArgumentException( "Unknown map: " + map );
+        }
+        for ( long resourceId = 0; resourceId < SHARED_RESOURCES; resourceId++ )
+        {
+            locks.putIfAbsent( RESOURCES + resourceId, lock );
+        }
+    }
+
+    @Benchmark
+    public ForsetiLockManager.Lock acquireAndReleaseLock()
+    {
+        long resourceId = ThreadLocalRandom.current().nextInt( RESOURCES );
+        ForsetiLockManager.Lock existing = locks.putIfAbsent( resourceId, lock );
+        if ( existing == null )
+        {
+            existing = locks.get( resourceId );
+            locks.remove( resourceId );
+        }
+        return existing;
+    }
+
+    @Benchmark
+    public ForsetiLockManager.Lock lookUpSharedLock()
+    {
+        return locks.get( RESOURCES + ThreadLocalRandom.current().nextInt( SHARED_RESOURCES ) );
+    }
+
+    private interface Locks
+    {
+        ForsetiLockManager.Lock get( long resourceId );
+
+        ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock );
+
+        void remove( long resourceId );
+    }
+
+    private static class LockMapLocks implements Locks
+    {
+        private final LockMap lockMap;
+
+        LockMapLocks( LockMap lockMap )
+        {
+            this.lockMap = lockMap;
+        }
+
+        @Override
+        public ForsetiLockManager.Lock get( long resourceId )
+        {
+            return lockMap.get( resourceId );
+        }
+
+        @Override
+        public ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock )
+        {
+            return lockMap.putIfAbsent( resourceId, lock );
+        }
+
+        @Override
+        public void remove( long resourceId )
+        {
+            lockMap.remove( resourceId );
+        }
+    }
+
+    private static class ConcurrentHashMapLocks implements Locks
+    {
+        private final ConcurrentMap<Long, ForsetiLockManager.Lock> lockMap = new ConcurrentHashMap<>();
+
+        @Override
+        public ForsetiLockManager.Lock get( long resourceId )
+        {
+            return lockMap.get( resourceId );
+        }
+
+        @Override
+        public ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock )
+        {
+            return lockMap.putIfAbsent( resourceId, lock );
+        }
+
+        @Override
+        public void remove( long resourceId )
+        {
+            lockMap.remove( resourceId );
+        }
+    }
+
+    private static class BenchmarkLock implements ForsetiLockManager.Lock
+    {
+        @Override
+        public void copyHolderWaitListsInto( SimpleBitSet waitList )
+        {
+        }
+
+        @Override
+        public int holderWaitListSize()
+        {
+            return 0;
+        }
+
+        @Override
+        public boolean anyHolderIsWaitingFor( int client )
+        {
+            return false;
+        }
+
+        @Override
+        public String describeWaitList()
+        {
+            return "";
+        }
+    }
+}
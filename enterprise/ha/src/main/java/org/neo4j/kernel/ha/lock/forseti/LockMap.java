@@ -0,0 +1,162 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.ha.lock.forseti;
+
+import org.neo4j.collection.primitive.Primitive;
+import org.neo4j.collection.primitive.PrimitiveLongObjectMap;
+import org.neo4j.collection.primitive.PrimitiveLongObjectVisitor;
+import org.neo4j.io.pagecache.impl.muninn.jsr166e.StampedLock;
+
+/**
+ * The global map of resource id to lock, for a single resource type.
+ *
+ * The map is split into a power-of-two number of stripes, each being a primitive hop-scotch map guarded by its own
+ * {@link StampedLock}. Compared to a {@link java.util.concurrent.ConcurrentHashMap} this avoids boxing the resource id
+ * and allocating an entry for each lock taken. Lookups are optimistic reads, like those of the page cache translation
+ * tables, so they do not block and do not write to shared memory unless they race with an update of the same stripe.
+ * Updates are write locked per stripe, and are short enough that clients locking different resources will rarely
+ * meet.
+ */
+class LockMap
+{
+    static final int DEFAULT_STRIPES = 128;
+    private static final int STRIPE_CAPACITY = 32;
+
+    private final PrimitiveLongObjectMap<ForsetiLockManager.Lock>[] stripes;
+    private final StampedLock[] stripeLocks;
+    private final int mask;
+
+    @SuppressWarnings( "unchecked" )
+    LockMap( int stripeCount )
+    {
+        if ( Integer.bitCount( stripeCount ) != 1 )
+        {
+            throw new IllegalArgumentException( "Number of stripes must be a power of two, but was " + stripeCount );
+        }
+        this.stripes = new PrimitiveLongObjectMap[stripeCount];
+        this.stripeLocks = new StampedLock[stripeCount];
+        this.mask = stripeCount - 1;
+        for ( int i = 0; i < stripeCount; i++ )
+        {
+            stripes[i] = Primitive.longObjectMap( STRIPE_CAPACITY );
+            stripeLocks[i] = new StampedLock();
+        }
+    }
+
+    ForsetiLockManager.Lock get( long resourceId )
+    {
+        int stripe = stripe( resourceId );
+        StampedLock stripeLock = stripeLocks[stripe];
+        long stamp = stripeLock.tryOptimisticRead();
+        ForsetiLockManager.Lock lock = stripes[stripe].get( resourceId );
+        if ( !stripeLock.validate( stamp ) )
+        {
+            // Raced with an update of this stripe, try again with a proper read lock.
+            stamp = stripeLock.readLock();
+            try
+            {
+                lock = stripes[stripe].get( resourceId );
+            }
+            finally
+            {
+                stripeLock.unlockRead( stamp );
+            }
+        }
+        return lock;
+    }
+
+    /**
+     * @return the lock already in the map, in which case the given lock was not put, or {@code null} if the given
+     * lock was put in the map.
+     */
+    ForsetiLockManager.Lock putIfAbsent( long resourceId, ForsetiLockManager.Lock lock )
+    {
+        int stripe = stripe( resourceId );
+        long stamp = stripeLocks[stripe].writeLock();
+        try
+        {
+            ForsetiLockManager.Lock existing = stripes[stripe].get( resourceId );
+            if ( existing == null )
+            {
+                stripes[stripe].put( resourceId, lock );
+            }
+            return existing;
+        }
+        finally
+        {
+            stripeLocks[stripe].unlockWrite( stamp );
+        }
+    }
+
+    void put( long resourceId, ForsetiLockManager.Lock lock )
+    {
+        int stripe = stripe( resourceId );
+        long stamp = stripeLocks[stripe].writeLock();
+        try
+        {
+            stripes[stripe].put( resourceId, lock );
+        }
+        finally
+        {
+            stripeLocks[stripe].unlockWrite( stamp );
+        }
+    }
+
+    void remove( long resourceId )
+    {
+        int stripe = stripe( resourceId );
+        long stamp = stripeLocks[stripe].writeLock();
+        try
+        {
+            stripes[stripe].remove( resourceId );
+        }
+        finally
+        {
+            stripeLocks[stripe].unlockWrite( stamp );
+        }
+    }
+
+    /**
+     * Visits all locks in the map, one stripe at a time. This is used for introspection only, and will not give a
+     * consistent view of the locks held across stripes.
+     */
+    void visit( PrimitiveLongObjectVisitor<ForsetiLockManager.Lock> visitor )
+    {
+        for ( int stripe = 0; stripe < stripes.length; stripe++ )
+        {
+            long stamp = stripeLocks[stripe].readLock();
+            try
+            {
+                stripes[stripe].visitEntries( visitor );
+            }
+            finally
+            {
+                stripeLocks[stripe].unlockRead( stamp );
+            }
+        }
+    }
+
+    private int stripe( long resourceId )
+    {
+        // Resource ids are often sequential, spread them over the stripes
+        long hash = resourceId * 0x9E3779B97F4A7C15L;
+        return (int) (hash ^ (hash >>> 32)) & mask;
+    }
+}
@@ -38,10 +38,14 @@ class SharedLock implements ForsetiLockManager.Lock
     private static final int UPDATE_LOCK_FLAG = 1<<31;
 
     /**
-     * No more holders than this allowed, don't change this without changing the sizing of
-     * {@link #clientsHoldingThisLock}.
+     * No more holders than this allowed, since the ref count shares its int with {@link #UPDATE_LOCK_FLAG}.
      */
-    private static final int MAX_HOLDERS = 4680;
+    private static final int MAX_HOLDERS = ~UPDATE_LOCK_FLAG;
+
+    /**
+     * The number of holders tracked in {@link #clientsHoldingThisLock}, before the lock is inflated to a fat lock.
+     */
+    private static final int THIN_HOLDERS = 8;
 
     // TODO Investigate inlining and padding the refCount.
     // TODO My gut feeling tells me there's a high chance of false-sharing
@@ -52,26 +56,19 @@ class SharedLock implements ForsetiLockManager.Lock
      * When reading this, keep in mind the main design goals here: Releasing and acquiring this lock should not require
      * synchronization, and the lock should have as low of a memory footprint as possible.
      *
-     * An array of arrays containing references to clients holding this lock. Each client can only show up once.
-     * When the lock is created only the first reference array is created (so the last three slots in the outer array
-     * are empty). The outer array is populated when the reference arrays are filled up, with exponentially larger
-     * reference arrays:
-     *
-     * clientsHoldingThisLock[0] = 8 slots
-     * clientsHoldingThisLock[1] = 64 slots
-     * clientsHoldingThisLock[2] = 512 slots
-     * clientsHoldingThisLock[3] = 4096 slots
-     *
-     * Allowing a total of 4680 transactions holding the same shared lock simultaneously.
+     * The references to the clients holding this lock. Each client can only show up once. Most shared locks have only
+     * a few holders, which are kept here and found with a linear scan.
      *
-     * This data structure was chosen over using regular resizing of the array, because we need to be able to increase
-     * the size of the array without requiring synchronization between threads writing to the array and threads trying
-     * to resize (since the threads writing to the array are on one of the hottest code paths in the database).
-     *
-     * This data structure is, however, not optimal, since it requires O(n) at worst to search for a slot and to remove
-     * a client from the array. This should be revisited in the future.
+     * Some locks, like the schema lock, are held by hundreds of transactions at once. Scanning for free slots and for
+     * the client to remove would then dominate acquiring and releasing the lock, so once this array is full, the lock
+     * is inflated into a fat lock, see {@link FatHolders}. New holders go to the fat lock from then on, while the
+     * holders in this array remain until they release the lock.
      */
-    private final AtomicReferenceArray<ForsetiClient>[] clientsHoldingThisLock = new AtomicReferenceArray[4];
+    private final AtomicReferenceArray<ForsetiClient> clientsHoldingThisLock =
+            new AtomicReferenceArray<>( THIN_HOLDERS );
+
+    /** Set once this lock has been inflated into a fat lock, never unset. */
+    private volatile FatHolders fatHolders;
 
     /** Client that holds the update lock, if any. */
     private ForsetiClient updateHolder;
@@ -102,16 +99,12 @@ class SharedLock implements ForsetiLockManager.Lock
     @Override
     public void copyHolderWaitListsInto( SimpleBitSet waitList )
     {
-        for ( int i = 0; i < clientsHoldingThisLock.length; i++ )
+        for ( int slot = 0, slots = holderSlots(); slot < slots; slot++ )
         {
-            AtomicReferenceArray<ForsetiClient> holders = clientsHoldingThisLock[i];
-            for ( int j = 0; holders != null && j < holders.length(); j++ )
+            ForsetiClient client = holderAt( slot );
+            if(client != null)
             {
-                ForsetiClient client = holders.get( j );
-                if(client != null)
-                {
-                    client.copyWaitListTo( waitList );
-                }
+                client.copyWaitListTo( waitList );
             }
         }
     }
@@ -120,16 +113,12 @@ class SharedLock implements ForsetiLockManager.Lock
     public int holderWaitListSize()
     {
         int size = 0;
-        for ( int i = 0; i < clientsHoldingThisLock.length; i++ )
+        for ( int slot = 0, slots = holderSlots(); slot < slots; slot++ )
         {
-            AtomicReferenceArray<ForsetiClient> holders = clientsHoldingThisLock[i];
-            for ( int j = 0; holders != null && j < holders.length(); j++ )
+            ForsetiClient client = holderAt( slot );
+            if(client != null)
             {
-                ForsetiClient client = holders.get( j );
-                if(client != null)
-                {
-                    size += client.waitListSize();
-                }
+                size += client.waitListSize();
             }
         }
         return size;
@@ -138,16 +127,12 @@ class SharedLock implements ForsetiLockManager.Lock
     @Override
     public boolean anyHolderIsWaitingFor( int clientId )
     {
-        for ( int i = 0; i < clientsHoldingThisLock.length; i++ )
+        for ( int slot = 0, slots = holderSlots(); slot < slots; slot++ )
         {
-            AtomicReferenceArray<ForsetiClient> holders = clientsHoldingThisLock[i];
-            for ( int j = 0; holders != null && j < holders.length(); j++ )
+            ForsetiClient client = holderAt( slot );
+            if(client != null && client.isWaitingFor( clientId ))
             {
-                ForsetiClient client = holders.get( j );
-                if(client != null && client.isWaitingFor( clientId ))
-                {
-                    return true;
-                }
+                return true;
             }
         }
         return false;
@@ -200,18 +185,14 @@ class SharedLock implements ForsetiLockManager.Lock
     public String describeWaitList()
     {
         StringBuilder sb = new StringBuilder( "SharedLock[" );
-        for ( int i = 0; i < clientsHoldingThisLock.length; i++ )
+        boolean first = true;
+        for ( int slot = 0, slots = holderSlots(); slot < slots; slot++ )
         {
-            AtomicReferenceArray<ForsetiClient> holders = clientsHoldingThisLock[i];
-            boolean first = true;
-            for ( int j = 0; holders != null && j < holders.length(); j++ )
+            ForsetiClient current = holderAt( slot );
+            if(current != null)
             {
-                ForsetiClient current = holders.get( j );
-                if(current != null)
-                {
-                    sb.append( first ? "" : ", " ).append( current.describeWaitList() );
-                    first = false;
-                }
+                sb.append( first ? "" : ", " ).append( current.describeWaitList() );
+                first = false;
             }
         }
         return sb.append( "]" ).toString();
@@ -240,22 +221,19 @@ class SharedLock implements ForsetiLockManager.Lock
 
     private void removeClientHoldingLock( ForsetiClient client )
     {
-        for ( int i = 0; i < clientsHoldingThisLock.length; i++ )
+        FatHolders fat = fatHolders;
+        if( fat != null && fat.remove( client ) )
         {
-            AtomicReferenceArray<ForsetiClient> holders = clientsHoldingThisLock[i];
-            if(holders == null)
-            {
-                break;
-            }
+            return;
+        }
 
-            for ( int j = 0; j < holders.length(); j++ )
+        for ( int i = 0; i < clientsHoldingThisLock.length(); i++ )
+        {
+            ForsetiClient current = clientsHoldingThisLock.get( i );
+            if(current != null && current.equals( client ))
             {
-                ForsetiClient current = holders.get( j );
-                if(current != null && current.equals( client ))
-                {
-                    holders.set( j, null );
-                    return;
-                }
+                clientsHoldingThisLock.set( i, null );
+                return;
             }
         }
 
@@ -267,33 +245,22 @@ class SharedLock implements ForsetiLockManager.Lock
         assert !clientHoldsThisLock( client ) :
                 client + " can not grab a global lock it already holds: " + this + ".";
 
-        while(true)
+        FatHolders fat = fatHolders;
+        if( fat == null )
         {
-            for ( int i = 0; i < clientsHoldingThisLock.length; i++ )
+            for ( int i = 0; i < clientsHoldingThisLock.length(); i++ )
             {
-                AtomicReferenceArray<ForsetiClient> holders = clientsHoldingThisLock[i];
-                if(holders == null)
+                // TODO This means we do CAS on each entry, very likely hitting a lot of failures until we
+                // TODO find a slot. This is bounded by THIN_HOLDERS though, after which we inflate.
+                if( clientsHoldingThisLock.get( i ) == null && clientsHoldingThisLock.compareAndSet( i, null, client ) )
                 {
-                    holders = addHolderArray( i );
-                }
-
-                for ( int j = 0; j < holders.length(); j++ )
-                {
-                    ForsetiClient c = holders.get( j );
-                    if(c == null)
-                    {
-                        // TODO This means we do CAS on each entry, very likely hitting a lot of failures until we
-                        // TODO find a slot. We should look into better strategies here.
-                        // TODO One such strategy could be binary searching for a free slot, and then linear scan
-                        // TODO after that if the CAS fails on the slot we found with binary search.
-                        if( holders.compareAndSet( j, null, client ) )
-                        {
-                            return true;
-                        }
-                    }
+                    return true;
                 }
             }
+            fat = inflate();
         }
+        fat.add( client );
+        return true;
     }
 
     private boolean acquireReference()
@@ -329,29 +296,115 @@ class SharedLock implements ForsetiLockManager.Lock
         }
     }
 
-    private synchronized AtomicReferenceArray<ForsetiClient> addHolderArray( int slot )
+    private synchronized FatHolders inflate()
     {
-        if( clientsHoldingThisLock[slot] == null )
+        if( fatHolders == null )
         {
-            clientsHoldingThisLock[slot] = new AtomicReferenceArray<>( (int)(8 * Math.pow( 8, slot )) );
+            fatHolders = new FatHolders();
         }
-        return clientsHoldingThisLock[slot];
+        return fatHolders;
+    }
+
+    boolean isFat()
+    {
+        return fatHolders != null;
+    }
+
+    /**
+     * @return the number of holder slots to look at, from {@link #holderAt(int)}. This can grow over time.
+     */
+    private int holderSlots()
+    {
+        FatHolders fat = fatHolders;
+        return THIN_HOLDERS + (fat == null ? 0 : fat.slots());
+    }
+
+    private ForsetiClient holderAt( int slot )
+    {
+        return slot < THIN_HOLDERS ? clientsHoldingThisLock.get( slot ) : fatHolders.get( slot - THIN_HOLDERS );
     }
 
     private boolean clientHoldsThisLock( ForsetiClient client )
     {
-        for ( int i = 0; i < clientsHoldingThisLock.length; i++ )
+        for ( int slot = 0, slots = holderSlots(); slot < slots; slot++ )
         {
-            AtomicReferenceArray<ForsetiClient> holders = clientsHoldingThisLock[i];
-            for ( int j = 0; holders != null && j < holders.length(); j++ )
+            ForsetiClient current = holderAt( slot );
+            if(current != null && current.equals( client ))
             {
-                ForsetiClient current = holders.get( j );
-                if(current != null && current.equals( client ))
-                {
-                    return true;
-                }
+                return true;
             }
         }
         return false;
     }
+
+    /**
+     * The holders of a fat lock, with a slot for each client id. Adding and removing a holder is then a matter of
+     * writing to the slot of the client, which other clients will not contend on. The client pool keeps client ids
+     * low, so slots are allocated in chunks, as clients with higher ids start holding the lock.
+     */
+    private static class FatHolders
+    {
+        private static final int CHUNK_SHIFT = 6;
+        private static final int CHUNK_SIZE = 1 << CHUNK_SHIFT;
+        private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+        /** Chunks are only ever added, by copying the array and publishing the copy. */
+        private volatile AtomicReferenceArray<ForsetiClient>[] chunks = newChunks( 1 );
+
+        void add( ForsetiClient client )
+        {
+            chunk( client.id() ).set( client.id() & CHUNK_MASK, client );
+        }
+
+        boolean remove( ForsetiClient client )
+        {
+            AtomicReferenceArray<ForsetiClient>[] current = chunks;
+            int chunk = client.id() >>> CHUNK_SHIFT;
+            return chunk < current.length && current[chunk] != null &&
+                   current[chunk].compareAndSet( client.id() & CHUNK_MASK, client, null );
+        }
+
+        int slots()
+        {
+            return chunks.length * CHUNK_SIZE;
+        }
+
+        ForsetiClient get( int slot )
+        {
+            AtomicReferenceArray<ForsetiClient> chunk = chunks[slot >>> CHUNK_SHIFT];
+            return chunk == null ? null : chunk.get( slot & CHUNK_MASK );
+        }
+
+        private AtomicReferenceArray<ForsetiClient> chunk( int clientId )
+        {
+            AtomicReferenceArray<ForsetiClient>[] current = chunks;
+            int chunk = clientId >>> CHUNK_SHIFT;
+            if( chunk < current.length && current[chunk] != null )
+            {
+                return current[chunk];
+            }
+            return addChunk( chunk );
+        }
+
+        private synchronized AtomicReferenceArray<ForsetiClient> addChunk( int chunk )
+        {
+            AtomicReferenceArray<ForsetiClient>[] current = chunks;
+            if( chunk < current.length && current[chunk] != null )
+            {
+                return current[chunk];
+            }
+
+            AtomicReferenceArray<ForsetiClient>[] grown = newChunks( Math.max( current.length, chunk + 1 ) );
+            System.arraycopy( current, 0, grown, 0, current.length );
+            grown[chunk] = new AtomicReferenceArray<>( CHUNK_SIZE );
+            chunks = grown;
+            return grown[chunk];
+        }
+
+        @SuppressWarnings( "unchecked" )
+        private static AtomicReferenceArray<ForsetiClient>[] newChunks( int count )
+        {
+            return new AtomicReferenceArray[count];
+        }
+    }
 }
@@ -0,0 +1,147 @@
+/**
+ * Copyright (c) 2002-2014 "Neo Technology,"
+ * Network Engine for Objects in Lund AB [http://neotechnology.com]
+ *
+ * This file is part of Neo4j.
+ *
+ * Neo4j is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as
+ * published by the Free Software Foundation, either version 3 of the
+ * License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <http://www.gnu.org/licenses/>.
+ */
+package org.neo4j.kernel.ha.lock.forseti;
+
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.neo4j.collection.primitive.PrimitiveLongObjectVisitor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.mockito.Mockito.mock;
+
+public class LockMapTest
+{
+    private final LockMap map = new LockMap( 4 );
+
+    @Test
+    public void shouldOnlyPutIfAbsent() throws Exception
+    {
+        // Given
+        ForsetiLockManager.Lock first = mock( ForsetiLockManager.Lock.class );
+        ForsetiLockManager.Lock second = mock( ForsetiLockManager.Lock.class );
+
+        // When
+        assertNull( map.putIfAbsent( 42, first ) );
+
+        // Then
+        assertSame( first, map.putIfAbsent( 42, second ) );
+        assertSame( first, map.get( 42 ) );
+    }
+
+    @Test
+    public void shouldReplaceAndRemoveLocks() throws Exception
+    {
+        // Given
+        ForsetiLockManager.Lock first = mock( ForsetiLockManager.Lock.class );
+        ForsetiLockManager.Lock second = mock( ForsetiLockManager.Lock.class );
+        map.put( 42, first );
+
+        // When
+        map.put( 42, second );
+
+        // Then
+        assertSame( second, map.get( 42 ) );
+        map.remove( 42 );
+        assertNull( map.get( 42 ) );
+    }
+
+    @Test
+    public void shouldVisitLocksInAllStripes() throws Exception
+    {
+        // Given
+        Map<Long,ForsetiLockManager.Lock> expected = new HashMap<>();
+        for ( long resourceId = 0; resourceId < 100; resourceId++ )
+        {
+            ForsetiLockManager.Lock lock = mock( ForsetiLockManager.Lock.class );
+            map.put( resourceId, lock );
+            expected.put( resourceId, lock );
+        }
+
+        // When
+        final Map<Long,ForsetiLockManager.Lock> visited = new HashMap<>();
+        map.visit( new PrimitiveLongObjectVisitor<ForsetiLockManager.Lock>()
+        {
+            @Override
+            public void visited( long resourceId, ForsetiLockManager.Lock lock )
+            {
+                visited.put( resourceId, lock );
+            }
+        } );
+
+        // Then
+        assertEquals( expected, visited );
+    }
+
+    @Test
+    public void shouldFindLocksWhileTheirStripeIsBeingUpdated() throws Exception
+    {
+        // Given a single stripe, that grows and shrinks while we look up a lock in it
+        final LockMap map = new LockMap( 1 );
+        ForsetiLockManager.Lock lock = mock( ForsetiLockManager.Lock.class );
+        map.put( 1_000, lock );
+        final ForsetiLockManager.Lock other = mock( ForsetiLockManager.Lock.class );
+        final AtomicBoolean done = new AtomicBoolean();
+        Thread updater = new Thread()
+        {
+            @Override
+            public void run()
+            {
+                while ( !done.get() )
+                {
+                    for ( long resourceId = 0; resourceId < 1_000; resourceId++ )
+                    {
+                        map.putIfAbsent( resourceId, other );
+                    }
+                    for ( long resourceId = 0; resourceId < 1_000; resourceId++ )
+                    {
+                        map.remove( resourceId );
+                    }
+                }
+            }
+        };
+        updater.start();
+
+        // Then
+        try
+        {
+            for ( int i = 0; i < 1_000_000; i++ )
+            {
+                assertSame( lock, map.get( 1_000 ) );
+            }
+        }
+        finally
+        {
+            done.set( true );
+            updater.join();
+        }
+    }
+
+    @Test( expected = IllegalArgumentException.class )
+    public void shouldRequirePowerOfTwoStripes() throws Exception
+    {
+        new LockMap( 3 );
+    }
+}
@@ -21,10 +21,17 @@ package org.neo4j.kernel.ha.lock.forseti;
 
 import org.junit.Test;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static junit.framework.Assert.assertFalse;
 import static junit.framework.Assert.assertTrue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.equalTo;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class SharedLockTest
 {
@@ -61,4 +68,41 @@ public class SharedLockTest
         assertThat( lock.isUpdateLock(), equalTo(false));
     }
 
+    @Test
+    public void shouldInflateToFatLockWhenHeldByManyClients() throws Exception
+    {
+        // Given
+        List<ForsetiClient> clients = new ArrayList<>();
+        for ( int id = 0; id < 200; id++ )
+        {
+            ForsetiClient client = mock( ForsetiClient.class );
+            when( client.id() ).thenReturn( id );
+            when( client.waitListSize() ).thenReturn( 1 );
+            clients.add( client );
+        }
+
+        // When
+        SharedLock lock = new SharedLock( clients.get( 0 ) );
+        for ( ForsetiClient client : clients.subList( 1, clients.size() ) )
+        {
+            assertTrue( lock.acquire( client ) );
+        }
+
+        // Then
+        assertTrue( lock.isFat() );
+        assertThat( lock.numberOfHolders(), equalTo( 200 ) );
+        assertThat( lock.holderWaitListSize(), equalTo( 200 ) );
+
+        // And when
+        Collections.shuffle( clients, new Random( 1 ) );
+        for ( ForsetiClient client : clients.subList( 0, clients.size() - 1 ) )
+        {
+            assertFalse( lock.release( client ) );
+        }
+
+        // Then
+        assertThat( lock.holderWaitListSize(), equalTo( 1 ) );
+        assertTrue( lock.release( clients.get( clients.size() - 1 ) ) );
+        assertThat( lock.holderWaitListSize(), equalTo( 0 ) );
+    }
 }